@@ -0,0 +1,129 @@
+package rocks.inspectit.agent.java.analyzer.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javassist.NotFoundException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocks.inspectit.agent.java.config.impl.UnregisteredSensorConfig;
+
+/**
+ * Simulates the class name matching done by the byte code analyzer when the application starts and
+ * loads a large number of classes. Every class name is compared once against all sensor
+ * configurations and once only against the candidates returned by the {@link ClassMatchIndex}.
+ * Most of the loaded classes are library classes that are not instrumented.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ClassMatchIndexPerfTest {
+
+	/**
+	 * Number of loaded classes.
+	 */
+	@Param({ "20000" })
+	private int classes;
+
+	/**
+	 * Number of sensor configurations.
+	 */
+	@Param({ "10", "100", "1000" })
+	private int sensorConfigs;
+
+	/**
+	 * Names of the loaded classes.
+	 */
+	private String[] classNames;
+
+	/**
+	 * All sensor configurations.
+	 */
+	private List<UnregisteredSensorConfig> unregisteredSensorConfigs;
+
+	/**
+	 * Index of the sensor configurations.
+	 */
+	private ClassMatchIndex index;
+
+	/**
+	 * Creates the class names and the sensor configurations. Every tenth configuration defines a
+	 * package pattern, the others an exact class name.
+	 */
+	@Setup
+	public void init() {
+		classNames = new String[classes];
+		for (int i = 0; i < classes; i++) {
+			if (0 == i % 100) {
+				// application classes
+				classNames[i] = "rocks.inspectit.app.service" + (i % 20) + ".Service" + i;
+			} else {
+				classNames[i] = "org.library" + (i % 50) + ".impl.internal.Class" + i;
+			}
+		}
+
+		unregisteredSensorConfigs = new ArrayList<UnregisteredSensorConfig>(sensorConfigs);
+		for (int i = 0; i < sensorConfigs; i++) {
+			UnregisteredSensorConfig config = new UnregisteredSensorConfig(null, null);
+			if (0 == i % 10) {
+				config.setTargetClassName("rocks.inspectit.app.service" + i + ".*");
+			} else {
+				config.setTargetClassName("rocks.inspectit.app.service" + (i % 20) + ".Service" + (i * 100));
+			}
+			config.setTargetMethodName("*");
+			config.completeConfiguration();
+			unregisteredSensorConfigs.add(config);
+		}
+
+		index = new ClassMatchIndex(unregisteredSensorConfigs);
+	}
+
+	@Benchmark
+	public int linearScan() throws NotFoundException {
+		int matches = 0;
+		for (String className : classNames) {
+			for (UnregisteredSensorConfig config : unregisteredSensorConfigs) {
+				if (config.getMatcher().compareClassName(null, className)) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int index() throws NotFoundException {
+		int matches = 0;
+		for (String className : classNames) {
+			if (index.hasCandidates(className)) {
+				for (UnregisteredSensorConfig config : index.getCandidates(className)) {
+					if (config.getMatcher().compareClassName(null, className)) {
+						matches++;
+					}
+				}
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public ClassMatchIndex buildIndex() {
+		return new ClassMatchIndex(unregisteredSensorConfigs);
+	}
+
+}
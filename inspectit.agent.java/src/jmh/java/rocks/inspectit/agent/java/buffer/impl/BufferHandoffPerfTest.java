@@ -0,0 +1,328 @@
+package rocks.inspectit.agent.java.buffer.impl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import rocks.inspectit.agent.java.buffer.IBlockingBufferStrategy;
+import rocks.inspectit.agent.java.buffer.IBufferStrategy;
+import rocks.inspectit.agent.java.config.IConfigurationStorage;
+import rocks.inspectit.agent.java.connection.IConnection;
+import rocks.inspectit.agent.java.core.ICoreService;
+import rocks.inspectit.agent.java.core.IIdManager;
+import rocks.inspectit.agent.java.core.impl.CoreService;
+import rocks.inspectit.agent.java.sending.ISendingStrategy;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+/**
+ * Measures the latency of passing the measurements from the agent to the connection.
+ * <p>
+ * The <code>handoff</code> benchmark measures only the handoff of a list of measurements from the
+ * preparing thread to the sending thread. The consumer thread mimics the sending thread of the
+ * core service: it waits on its monitor when the {@link SizeBufferStrategy} is used and in
+ * {@link IBlockingBufferStrategy#awaitNext()} when the {@link RingBufferStrategy} is used.
+ * <p>
+ * The <code>sensorToConnection</code> benchmark measures the complete path of one measurement: a
+ * sensor adds it to the {@link CoreService} and triggers the sending, the preparing thread of the
+ * core service passes it to the buffer strategy and the sending thread passes it to the stub
+ * connection that only counts the sent measurements.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+public class BufferHandoffPerfTest {
+
+	@Benchmark
+	public long handoff(Handoff handoff) {
+		handoff.buffer.addMeasurements(handoff.measurements);
+		if (!(handoff.buffer instanceof IBlockingBufferStrategy)) {
+			// the preparing thread notifies the sending thread
+			synchronized (handoff.consumer) {
+				handoff.consumer.notifyAll();
+			}
+		}
+
+		handoff.produced++;
+		while (handoff.consumed.get() < handoff.produced) { // NOPMD
+			// wait until the consumer took the measurements out
+		}
+		return handoff.produced;
+	}
+
+	@Benchmark
+	public long sensorToConnection(Pipeline pipeline) {
+		pipeline.coreService.addMethodSensorData(pipeline.timerData.getSensorTypeIdent(), pipeline.timerData.getMethodIdent(), null, pipeline.timerData);
+		pipeline.coreService.sendData();
+
+		pipeline.produced++;
+		while (pipeline.sent.get() < pipeline.produced) {
+			// the trigger is lost if the preparing thread is still busy with the previous
+			// measurement, the sending strategies of the agent trigger again as well
+			pipeline.coreService.sendData();
+		}
+		return pipeline.produced;
+	}
+
+	/**
+	 * Creates the buffer strategy of the given name.
+	 * 
+	 * @param strategy
+	 *            Buffer strategy and wait strategy to use.
+	 * @return Buffer strategy.
+	 */
+	static IBufferStrategy<MethodSensorData> createBuffer(String strategy) {
+		if ("size".equals(strategy)) {
+			SizeBufferStrategy sizeBufferStrategy = new SizeBufferStrategy();
+			sizeBufferStrategy.log = LoggerFactory.getLogger(SizeBufferStrategy.class);
+			return sizeBufferStrategy;
+		} else {
+			RingBufferStrategy ringBufferStrategy = new RingBufferStrategy();
+			ringBufferStrategy.log = LoggerFactory.getLogger(RingBufferStrategy.class);
+			ringBufferStrategy.init(Collections.singletonMap("wait", strategy.substring("ring-".length())));
+			return ringBufferStrategy;
+		}
+	}
+
+	/**
+	 * Buffer with the consumer thread mimicking the sending thread.
+	 */
+	@State(Scope.Benchmark)
+	public static class Handoff {
+
+		/**
+		 * Buffer strategy and wait strategy to use.
+		 */
+		@Param({ "size", "ring-spin", "ring-yield", "ring-park" })
+		private String strategy;
+
+		/**
+		 * Buffer under test.
+		 */
+		private IBufferStrategy<MethodSensorData> buffer;
+
+		/**
+		 * Consumer thread.
+		 */
+		private Thread consumer;
+
+		/**
+		 * Number of lists taken out by the consumer.
+		 */
+		private final AtomicLong consumed = new AtomicLong();
+
+		/**
+		 * Number of lists added by the producer.
+		 */
+		private long produced;
+
+		/**
+		 * Measurements being passed.
+		 */
+		private final List<MethodSensorData> measurements = new ArrayList<MethodSensorData>(0);
+
+		/**
+		 * Creates the buffer and starts the consumer.
+		 */
+		@Setup
+		public void init() {
+			buffer = createBuffer(strategy);
+
+			consumer = new Thread() {
+				@Override
+				public void run() {
+					consume();
+				}
+			};
+			consumer.setDaemon(true);
+			consumer.start();
+		}
+
+		/**
+		 * Stops the consumer.
+		 */
+		@TearDown
+		public void stop() throws InterruptedException {
+			consumer.interrupt();
+			synchronized (consumer) {
+				consumer.notifyAll();
+			}
+			consumer.join();
+		}
+
+		// private helpers
+		private void consume() {
+			while (!consumer.isInterrupted()) {
+				if (buffer instanceof IBlockingBufferStrategy) {
+					try {
+						((IBlockingBufferStrategy<MethodSensorData>) buffer).awaitNext();
+					} catch (InterruptedException e) {
+						return;
+					}
+				} else if (!buffer.hasNext()) {
+					synchronized (consumer) {
+						try {
+							if (!buffer.hasNext() && !consumer.isInterrupted()) {
+								consumer.wait();
+							}
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+				}
+
+				while (buffer.hasNext()) {
+					buffer.next();
+					consumed.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Started core service with the buffer and the stub connection.
+	 */
+	@State(Scope.Benchmark)
+	public static class Pipeline {
+
+		/**
+		 * Buffer strategy and wait strategy to use.
+		 */
+		@Param({ "size", "ring-spin", "ring-yield", "ring-park" })
+		private String strategy;
+
+		/**
+		 * Core service passing the measurements.
+		 */
+		private CoreService coreService;
+
+		/**
+		 * Number of measurements sent to the connection.
+		 */
+		private final AtomicLong sent = new AtomicLong();
+
+		/**
+		 * Number of measurements added by the sensor.
+		 */
+		private long produced;
+
+		/**
+		 * Measurement being passed.
+		 */
+		private final TimerData timerData = new TimerData(new Timestamp(System.currentTimeMillis()), 1L, 2L, 3L);
+
+		/**
+		 * Creates and starts the core service. The platform sensors are never refreshed.
+		 * <p>
+		 * The core service is not stopped in the tear down, as it is stopped by its shutdown hook
+		 * when the forked JVM exits and can not be stopped twice.
+		 */
+		@Setup
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public void init() throws Exception {
+			IConnection connection = stub(IConnection.class, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					if ("sendDataObjects".equals(method.getName())) {
+						sent.addAndGet(((List<?>) args[0]).size());
+					} else if ("isConnected".equals(method.getName())) {
+						return Boolean.TRUE;
+					}
+					return defaultValue(method);
+				}
+			});
+			ISendingStrategy sendingStrategy = new ISendingStrategy() {
+				@Override
+				public void start(ICoreService coreService) {
+				}
+
+				@Override
+				public void stop() {
+				}
+
+				@Override
+				public void init(Map<String, String> settings) {
+				}
+			};
+			IConfigurationStorage configurationStorage = stub(IConfigurationStorage.class, null);
+			IIdManager idManager = stub(IIdManager.class, null);
+
+			coreService = new CoreService(configurationStorage, connection, (IBufferStrategy) createBuffer(strategy), Collections.singletonList(sendingStrategy), idManager);
+			// logger is injected by the agent, the field is not visible from this package
+			Field logField = CoreService.class.getDeclaredField("log");
+			logField.setAccessible(true);
+			logField.set(coreService, LoggerFactory.getLogger(CoreService.class));
+			coreService.setSensorRefreshTime(Long.MAX_VALUE);
+			coreService.start();
+		}
+
+		/**
+		 * Creates the stub of the interface.
+		 * 
+		 * @param <T>
+		 *            Type of the interface.
+		 * @param type
+		 *            Interface.
+		 * @param invocationHandler
+		 *            Handler of the calls, if <code>null</code> calls return the default values.
+		 * @return Stub.
+		 */
+		@SuppressWarnings("unchecked")
+		private static <T> T stub(Class<T> type, InvocationHandler invocationHandler) {
+			InvocationHandler handler = invocationHandler;
+			if (null == handler) {
+				handler = new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						return defaultValue(method);
+					}
+				};
+			}
+			return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+		}
+
+		/**
+		 * Returns the default value for the return type of the method.
+		 * 
+		 * @param method
+		 *            Method.
+		 * @return Empty list, zero, false or <code>null</code>.
+		 */
+		private static Object defaultValue(Method method) {
+			Class<?> returnType = method.getReturnType();
+			if (List.class.equals(returnType)) {
+				return Collections.emptyList();
+			} else if (long.class.equals(returnType)) {
+				return Long.valueOf(0L);
+			} else if (boolean.class.equals(returnType)) {
+				return Boolean.FALSE;
+			}
+			return null;
+		}
+	}
+
+}
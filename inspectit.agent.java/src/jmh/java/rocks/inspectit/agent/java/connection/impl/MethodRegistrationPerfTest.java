@@ -0,0 +1,134 @@
+package rocks.inspectit.agent.java.connection.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
+import rocks.inspectit.shared.all.cmr.service.IRegistrationService;
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
+
+/**
+ * Measures the time needed to register a large number of methods with one method sensor type each,
+ * once with a request per method and per mapping and once with the bulk registration. The CMR is
+ * replaced by a local stand-in that only simulates the network round-trip of each request.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MethodRegistrationPerfTest {
+
+	/**
+	 * Number of methods to register.
+	 */
+	@Param({ "50000" })
+	private int methods;
+
+	/**
+	 * Simulated round-trip time of one request in microseconds.
+	 */
+	@Param({ "100" })
+	private long roundTripMicros;
+
+	/**
+	 * Number of methods registered with one bulk request, same as in the id manager.
+	 */
+	@Param({ "1000" })
+	private int batchSize;
+
+	/**
+	 * Local stand-in for the registration service.
+	 */
+	private IRegistrationService registrationService;
+
+	/**
+	 * Methods to register.
+	 */
+	private List<RegisteredSensorConfig> sensorConfigs;
+
+	/**
+	 * Creates the methods and the registration service stand-in.
+	 */
+	@Setup
+	public void init() {
+		sensorConfigs = new ArrayList<RegisteredSensorConfig>(methods);
+		for (int i = 0; i < methods; i++) {
+			RegisteredSensorConfig rsc = new RegisteredSensorConfig();
+			rsc.setTargetPackageName("rocks.inspectit.test");
+			rsc.setTargetClassName("Class" + (i / 10));
+			rsc.setTargetMethodName("method" + i);
+			rsc.setParameterTypes(Collections.<String> emptyList());
+			rsc.setReturnType("void");
+			sensorConfigs.add(rsc);
+		}
+
+		final long roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+		registrationService = (IRegistrationService) Proxy.newProxyInstance(IRegistrationService.class.getClassLoader(), new Class[] { IRegistrationService.class }, new InvocationHandler() {
+			private long nextId;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				LockSupport.parkNanos(roundTripNanos);
+				if ("registerMethodIdents".equals(method.getName())) {
+					long[] ids = new long[((List<?>) args[1]).size()];
+					for (int i = 0; i < ids.length; i++) {
+						ids[i] = nextId++;
+					}
+					return ids;
+				} else if ("registerMethodIdent".equals(method.getName())) {
+					return Long.valueOf(nextId++);
+				}
+				return null;
+			}
+		});
+	}
+
+	@Benchmark
+	public long singleRegistration() throws Exception {
+		long sum = 0;
+		for (RegisteredSensorConfig rsc : sensorConfigs) {
+			long methodId = new RegisterMethodIdent(registrationService, rsc, 1L).makeCall().longValue();
+			new AddSensorTypeToMethod(registrationService, 1L, methodId).makeCall();
+			sum += methodId;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long batchRegistration() throws Exception {
+		long sum = 0;
+		long[] sensorTypeIds = new long[] { 1L };
+		for (int start = 0; start < sensorConfigs.size(); start += batchSize) {
+			List<MethodRegistrationData> batch = new ArrayList<MethodRegistrationData>(batchSize);
+			for (RegisteredSensorConfig rsc : sensorConfigs.subList(start, Math.min(start + batchSize, sensorConfigs.size()))) {
+				batch.add(new MethodRegistrationData(rsc.getTargetPackageName(), rsc.getTargetClassName(), rsc.getTargetMethodName(), rsc.getParameterTypes(), rsc.getReturnType(),
+						rsc.getModifiers(), sensorTypeIds));
+			}
+			for (long methodId : new RegisterMethodIdents(registrationService, batch, 1L).makeCall()) {
+				sum += methodId;
+			}
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,115 @@
+package rocks.inspectit.agent.java.core.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the lookups per second of the {@link MethodSensorMap} used by the {@link CoreService}
+ * with the string keyed {@link ConcurrentHashMap} used before.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class MethodSensorMapPerfTest {
+
+	/**
+	 * Number of different methods in the maps.
+	 */
+	@Param({ "100", "10000" })
+	private int methods;
+
+	/**
+	 * Prefix used for the lookups, empty string for no prefix.
+	 */
+	@Param({ "", "[param=value]" })
+	private String prefix;
+
+	/**
+	 * Sensor type id.
+	 */
+	private final long sensorTypeIdent = 3L;
+
+	/**
+	 * String keyed map.
+	 */
+	private Map<String, Object> stringKeyMap;
+
+	/**
+	 * Long keyed map.
+	 */
+	private MethodSensorMap<Object> methodSensorMap;
+
+	/**
+	 * Method id of the next lookup.
+	 */
+	private long methodIdent;
+
+	/**
+	 * Fills the maps.
+	 */
+	@Setup(Level.Trial)
+	public void init() {
+		if (0 == prefix.length()) {
+			prefix = null; // NOPMD
+		}
+		stringKeyMap = new ConcurrentHashMap<String, Object>();
+		methodSensorMap = new MethodSensorMap<Object>();
+		for (long i = 0; i < methods; i++) {
+			Object value = new Object();
+			stringKeyMap.put(getKey(sensorTypeIdent, i, prefix), value);
+			methodSensorMap.put(sensorTypeIdent, i, prefix, value);
+		}
+	}
+
+	@Benchmark
+	public Object stringKeyLookup() {
+		return stringKeyMap.get(getKey(sensorTypeIdent, nextMethodIdent(), prefix));
+	}
+
+	@Benchmark
+	public Object methodSensorMapLookup() {
+		return methodSensorMap.get(sensorTypeIdent, nextMethodIdent(), prefix);
+	}
+
+	// private helpers
+	private long nextMethodIdent() {
+		methodIdent++;
+		if (methodIdent == methods) {
+			methodIdent = 0;
+		}
+		return methodIdent;
+	}
+
+	/**
+	 * Key as it was created by the {@link CoreService} before.
+	 */
+	private String getKey(long sensorTypeIdent, long methodIdent, String prefix) {
+		StringBuffer buffer = new StringBuffer();
+		if (null != prefix) {
+			buffer.append(prefix);
+			buffer.append('.');
+		}
+		buffer.append(methodIdent);
+		buffer.append('.');
+		buffer.append(sensorTypeIdent);
+		return buffer.toString();
+	}
+
+}
@@ -0,0 +1,153 @@
+package rocks.inspectit.agent.java.hooking.impl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
+import rocks.inspectit.agent.java.core.ICoreService;
+import rocks.inspectit.agent.java.hooking.IHook;
+import rocks.inspectit.agent.java.hooking.IMethodHook;
+
+/**
+ * Measures the overhead of the {@link HookDispatcher} for one instrumented call (before body,
+ * first and second after body) of a method with 1, 3 and 6 hooks that do nothing. The
+ * <code>mapDispatch</code> benchmark repeats the same calls with the lookup in a map keyed by the
+ * boxed method id and the iteration over the hook map entries, as it was done before the hook
+ * tables were introduced.
+ * <p>
+ * Run with the GC profiler (<code>-prof gc</code>) to get the allocated bytes per call in the
+ * <code>gc.alloc.rate.norm</code> metric.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class HookDispatchPerfTest {
+
+	/**
+	 * Number of hooks on the method.
+	 */
+	@Param({ "1", "3", "6" })
+	private int hooks;
+
+	/**
+	 * Number of mapped methods.
+	 */
+	@Param({ "10000" })
+	private int methods;
+
+	/**
+	 * Dispatcher with the hook tables.
+	 */
+	private HookDispatcher hookDispatcher;
+
+	/**
+	 * Methods mapped by the boxed id.
+	 */
+	private Map<Long, RegisteredSensorConfig> methodMap;
+
+	/**
+	 * Id of the called method.
+	 */
+	private long methodId;
+
+	/**
+	 * Parameters of the called method.
+	 */
+	private Object[] parameters = new Object[0];
+
+	/**
+	 * Maps all methods with the same hooks.
+	 */
+	@Setup
+	public void init() {
+		final Map<Long, IHook> methodHooks = new LinkedHashMap<Long, IHook>();
+		for (int i = 0; i < hooks; i++) {
+			methodHooks.put(Long.valueOf(i), new NoopHook());
+		}
+
+		hookDispatcher = new HookDispatcher(null);
+		methodMap = new HashMap<Long, RegisteredSensorConfig>();
+		for (int i = 0; i < methods; i++) {
+			RegisteredSensorConfig rsc = new RegisteredSensorConfig() {
+				@Override
+				public Map<Long, IHook> getMethodHooks() {
+					return methodHooks;
+				}
+
+				@Override
+				public Map<Long, IHook> getReverseMethodHooks() {
+					return methodHooks;
+				}
+			};
+			hookDispatcher.addMethodMapping(i, rsc);
+			methodMap.put(Long.valueOf(i), rsc);
+		}
+		methodId = methods / 2;
+	}
+
+	@Benchmark
+	public void tableDispatch() {
+		hookDispatcher.dispatchMethodBeforeBody(methodId, this, parameters);
+		hookDispatcher.dispatchFirstMethodAfterBody(methodId, this, parameters, null);
+		hookDispatcher.dispatchSecondMethodAfterBody(methodId, this, parameters, null);
+	}
+
+	@Benchmark
+	public void mapDispatch() {
+		RegisteredSensorConfig rsc = methodMap.get(Long.valueOf(methodId));
+		for (Map.Entry<Long, IHook> entry : rsc.getReverseMethodHooks().entrySet()) {
+			((IMethodHook) entry.getValue()).beforeBody(methodId, entry.getKey().longValue(), this, parameters, rsc);
+		}
+		rsc = methodMap.get(Long.valueOf(methodId));
+		for (Map.Entry<Long, IHook> entry : rsc.getMethodHooks().entrySet()) {
+			((IMethodHook) entry.getValue()).firstAfterBody(methodId, entry.getKey().longValue(), this, parameters, null, rsc);
+		}
+		rsc = methodMap.get(Long.valueOf(methodId));
+		for (Map.Entry<Long, IHook> entry : rsc.getMethodHooks().entrySet()) {
+			((IMethodHook) entry.getValue()).secondAfterBody(null, methodId, entry.getKey().longValue(), this, parameters, null, rsc);
+		}
+	}
+
+	/**
+	 * Hook that does nothing.
+	 */
+	private static class NoopHook implements IMethodHook {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void beforeBody(long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void firstAfterBody(long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void secondAfterBody(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		}
+
+	}
+
+}
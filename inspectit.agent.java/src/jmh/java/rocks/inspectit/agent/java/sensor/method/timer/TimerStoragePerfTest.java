@@ -0,0 +1,112 @@
+package rocks.inspectit.agent.java.sensor.method.timer;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of the {@link ITimerStorage} implementations when one storage is updated
+ * by 1, 8 and 64 threads at the same time, which is the case when many threads execute the same
+ * instrumented method.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TimerStoragePerfTest {
+
+	/**
+	 * Mode of the {@link TimerStorageFactory}.
+	 */
+	@Param({ "optimized", "aggregate", "striped" })
+	private String mode;
+
+	/**
+	 * Storage shared by all benchmark threads.
+	 */
+	private ITimerStorage storage;
+
+	/**
+	 * Creates new storage for each iteration, so that every iteration starts with an empty
+	 * aggregation.
+	 */
+	@Setup(Level.Iteration)
+	public void initStorage() {
+		TimerStorageFactory factory = TimerStorageFactory.getFactory();
+		factory.setParameters(Collections.<String, Object> singletonMap("mode", mode));
+		storage = factory.newStorage(null, 1L, 1L, 1L, null, false);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void addData1Thread(ThreadValues values) {
+		addData(values);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public void addData8Threads(ThreadValues values) {
+		addData(values);
+	}
+
+	@Benchmark
+	@Threads(64)
+	public void addData64Threads(ThreadValues values) {
+		addData(values);
+	}
+
+	// private helpers
+	private void addData(ThreadValues values) {
+		storage.addData(values.nextTime(), values.nextCpuTime());
+	}
+
+	/**
+	 * Per thread measurement values.
+	 */
+	@State(Scope.Thread)
+	public static class ThreadValues {
+
+		/**
+		 * Current time value.
+		 */
+		private double time;
+
+		/**
+		 * Returns next time value between 0 and 100.
+		 * 
+		 * @return Time value.
+		 */
+		public double nextTime() {
+			time += 1.0d;
+			if (time > 100.0d) {
+				time = 0.0d;
+			}
+			return time;
+		}
+
+		/**
+		 * Returns cpu time for the current time value.
+		 * 
+		 * @return Cpu time value.
+		 */
+		public double nextCpuTime() {
+			return time / 2;
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+package rocks.inspectit.agent.java.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulates the stack operations of the timer hook for one instrumented call (time and cpu time
+ * pushed before and after the body and popped in the second after body) with the boxing
+ * {@link ThreadLocalStack} and with the primitive {@link ThreadLocalDoubleStack} and
+ * {@link ThreadLocalLongStack}.
+ * <p>
+ * Run with the GC profiler (<code>-prof gc</code>) to get the allocated bytes per call in the
+ * <code>gc.alloc.rate.norm</code> metric.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class HookStackPerfTest {
+
+	/**
+	 * Boxing time stack.
+	 */
+	private final ThreadLocalStack<Double> timeStack = new ThreadLocalStack<Double>();
+
+	/**
+	 * Boxing cpu time stack.
+	 */
+	private final ThreadLocalStack<Long> threadCpuTimeStack = new ThreadLocalStack<Long>();
+
+	/**
+	 * Primitive time stack.
+	 */
+	private final ThreadLocalDoubleStack primitiveTimeStack = new ThreadLocalDoubleStack();
+
+	/**
+	 * Primitive cpu time stack.
+	 */
+	private final ThreadLocalLongStack primitiveThreadCpuTimeStack = new ThreadLocalLongStack();
+
+	/**
+	 * Simulated time.
+	 */
+	private double time = 1000.0d;
+
+	/**
+	 * Simulated cpu time.
+	 */
+	private long cpuTime = 100000L;
+
+	@Benchmark
+	public double boxingStack() {
+		// before body
+		timeStack.push(new Double(nextTime()));
+		threadCpuTimeStack.push(Long.valueOf(nextCpuTime()));
+		// first after body
+		timeStack.push(new Double(nextTime()));
+		threadCpuTimeStack.push(Long.valueOf(nextCpuTime()));
+		// second after body
+		double duration = timeStack.pop().doubleValue() - timeStack.pop().doubleValue();
+		long cpuDuration = threadCpuTimeStack.pop().longValue() - threadCpuTimeStack.pop().longValue();
+		return duration + cpuDuration;
+	}
+
+	@Benchmark
+	public double primitiveStack() {
+		// before body
+		primitiveTimeStack.push(nextTime());
+		primitiveThreadCpuTimeStack.push(nextCpuTime());
+		// first after body
+		primitiveTimeStack.push(nextTime());
+		primitiveThreadCpuTimeStack.push(nextCpuTime());
+		// second after body
+		double duration = primitiveTimeStack.pop() - primitiveTimeStack.pop();
+		long cpuDuration = primitiveThreadCpuTimeStack.pop() - primitiveThreadCpuTimeStack.pop();
+		return duration + cpuDuration;
+	}
+
+	// private helpers
+	private double nextTime() {
+		time += 1.5d;
+		return time;
+	}
+
+	private long nextCpuTime() {
+		cpuTime += 1000L;
+		return cpuTime;
+	}
+
+}
@@ -52,4 +52,23 @@ public interface IClassPoolAnalyzer {
 	 */
 	ClassPool getClassPool(final ClassLoader classLoader);
 
-}
\ No newline at end of file
+	/**
+	 * Removes the class from the cache of the {@link ClassPool} responsible for the given class
+	 * loader. Has no effect if the class pools do not limit their cache.
+	 * 
+	 * @param classLoader
+	 *            The class loader.
+	 * @param className
+	 *            The name of the class.
+	 */
+	void releaseClass(final ClassLoader classLoader, final String className);
+
+	/**
+	 * Returns the number of classes that are currently cached in the class pools that limit their
+	 * cache.
+	 * 
+	 * @return Number of cached classes.
+	 */
+	int getCachedClassCount();
+
+}
@@ -6,6 +6,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javassist.ByteArrayClassPath;
 import javassist.CannotCompileException;
@@ -22,6 +24,7 @@ import rocks.inspectit.agent.java.analyzer.IClassPoolAnalyzer;
 import rocks.inspectit.agent.java.analyzer.IMatcher;
 import rocks.inspectit.agent.java.config.IConfigurationStorage;
 import rocks.inspectit.agent.java.config.StorageException;
+import rocks.inspectit.agent.java.config.impl.ConfigurationStorage;
 import rocks.inspectit.agent.java.config.impl.MethodSensorTypeConfig;
 import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
 import rocks.inspectit.agent.java.config.impl.UnregisteredSensorConfig;
@@ -50,6 +53,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class ByteCodeAnalyzer implements IByteCodeAnalyzer {
 
+	/**
+	 * After how many analyzed classes the statistics are logged.
+	 */
+	private static final long STATISTICS_LOG_INTERVAL = 1000;
+
 	/**
 	 * Log for the class.
 	 */
@@ -78,6 +86,22 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer {
 	@Value("${instrumentation.classLoaderDelegation}")
 	boolean classLoaderDelegation;
 
+	/**
+	 * Index of the unregistered sensor configurations by class name. Created again when the number
+	 * of configurations changes.
+	 */
+	private volatile ClassMatchIndex classMatchIndex;
+
+	/**
+	 * Number of classes that were analyzed with the class pool.
+	 */
+	private final AtomicLong analyzedClassCount = new AtomicLong();
+
+	/**
+	 * Time spent to analyze and instrument the classes in nanoseconds.
+	 */
+	private final AtomicLong analysisTime = new AtomicLong();
+
 	/**
 	 * The default constructor which accepts two parameters which are needed.
 	 * 
@@ -108,13 +132,29 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer {
 	 * {@inheritDoc}
 	 */
 	public byte[] analyzeAndInstrument(byte[] byteCode, String className, ClassLoader classLoader) {
+		// most of the classes are not matched by any configuration, they can be rejected before
+		// the class pool is touched, the supertypes are taken from the class file
+		ClassMatchIndex index = getClassMatchIndex();
+		boolean hierarchyCandidate = true;
+		if (null != byteCode) {
+			ClassFileHeader classFileHeader = ClassFileHeader.read(byteCode);
+			if (null != classFileHeader) {
+				hierarchyCandidate = index.isHierarchyCandidate(className, classFileHeader, classLoader);
+			}
+		}
+		if (!hierarchyCandidate && !index.hasCandidates(className, false)) {
+			return null;
+		}
+
 		// The reason to create a byte array class path here is to handle
 		// classes created at runtime (reflection / byte code engineering
 		// libraries etc.) and to get the real content of that class (think of
 		// classes modified by other java agents before.)
+		long start = System.nanoTime();
 		ClassPool classPool = classPoolAnalyzer.getClassPool(classLoader);
 		ClassPath classPath = null;
 		ClassPath loaderClassPath = null;
+		boolean instrumented = false;
 		try {
 			if (null == byteCode) {
 				// this occurs if we are in the initialization phase and are instrumenting classes
@@ -132,17 +172,19 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer {
 			classPool.insertClassPath(classPath);
 
 			byte[] instrumentedByteCode = null;
-			Map<CtBehavior, List<UnregisteredSensorConfig>> behaviorToConfigMap = analyze(className, classLoader);
+			Map<CtBehavior, List<UnregisteredSensorConfig>> behaviorToConfigMap = analyze(index.getCandidates(className, hierarchyCandidate), className, classLoader);
 
 			// class loader delegation behaviors
 			List<? extends CtBehavior> classLoaderDelegationBehaviors = analyzeForClassLoaderDelegation(className, classLoader);
 
 			CtBehavior ctBehavior = null;
 			if (!behaviorToConfigMap.isEmpty()) {
+				instrumented = true;
 				ctBehavior = instrumentSensors(behaviorToConfigMap);
 			}
 
 			if (!classLoaderDelegationBehaviors.isEmpty()) {
+				instrumented = true;
 				ctBehavior = instrumentClassLoader(classLoaderDelegationBehaviors);
 			}
 
@@ -176,6 +218,38 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer {
 			if (null != loaderClassPath) {
 				classPool.removeClassPath(loaderClassPath);
 			}
+			// the instrumented class is not needed any more and would only hold the modified byte
+			// code in the class pool
+			if (instrumented) {
+				classPoolAnalyzer.releaseClass(classLoader, className);
+			}
+			updateStatistics(className, System.nanoTime() - start, instrumented);
+		}
+	}
+
+	/**
+	 * Updates the analysis statistics with the time needed for one class. The time is logged on
+	 * debug level for each class and the summary is logged every {@value #STATISTICS_LOG_INTERVAL}
+	 * classes.
+	 * 
+	 * @param className
+	 *            The name of the class.
+	 * @param duration
+	 *            Time needed to analyze and instrument the class in nanoseconds.
+	 * @param instrumented
+	 *            If the class was instrumented.
+	 */
+	private void updateStatistics(String className, long duration, boolean instrumented) {
+		long count = analyzedClassCount.incrementAndGet();
+		long totalTime = analysisTime.addAndGet(duration);
+
+		if (log.isDebugEnabled()) {
+			log.debug("Analysis of class " + className + " took " + TimeUnit.NANOSECONDS.toMicros(duration) + " microseconds (instrumented: " + instrumented + ")");
+		}
+
+		if (0 == count % STATISTICS_LOG_INTERVAL && log.isInfoEnabled()) {
+			log.info("Analyzed " + count + " classes in " + TimeUnit.NANOSECONDS.toMillis(totalTime) + " ms (average " + TimeUnit.NANOSECONDS.toMicros(totalTime / count)
+					+ " microseconds per class), " + classPoolAnalyzer.getCachedClassCount() + " classes cached in the class pools");
 		}
 	}
 
@@ -211,10 +285,34 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer {
 		return Collections.emptyList();
 	}
 
+	/**
+	 * Returns the index of the current unregistered sensor configurations. The configurations are
+	 * only added, thus the index is created again if the number of configurations changed. With
+	 * active class loader delegation, the sub-classes of the class loader are hierarchy candidates
+	 * as well.
+	 * 
+	 * @return {@link ClassMatchIndex} of the current configurations.
+	 */
+	private ClassMatchIndex getClassMatchIndex() {
+		List<UnregisteredSensorConfig> unregisteredSensorConfigs = configurationStorage.getUnregisteredSensorConfigs();
+		List<String> additionalHierarchyTargets = Collections.emptyList();
+		if (classLoaderDelegation) {
+			additionalHierarchyTargets = Collections.singletonList(ConfigurationStorage.CLASS_LOADER_CLASS_NAME);
+		}
+		ClassMatchIndex index = classMatchIndex;
+		if (null == index || index.size() != unregisteredSensorConfigs.size() || !index.getAdditionalHierarchyTargets().equals(additionalHierarchyTargets)) {
+			index = new ClassMatchIndex(unregisteredSensorConfigs, additionalHierarchyTargets);
+			classMatchIndex = index;
+		}
+		return index;
+	}
+
 	/**
 	 * The analyze method will analyze the passed byte code, class name and class loader and returns
 	 * a {@link Map} with all matching methods to be instrumented.
 	 * 
+	 * @param unregisteredSensorConfigs
+	 *            The sensor configurations that can match the class.
 	 * @param className
 	 *            The name of the class.
 	 * @param classLoader
@@ -226,11 +324,11 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer {
 	 * @throws StorageException
 	 *             Sensor could not be added.
 	 */
-	private Map<CtBehavior, List<UnregisteredSensorConfig>> analyze(String className, ClassLoader classLoader) throws NotFoundException, StorageException {
+	private Map<CtBehavior, List<UnregisteredSensorConfig>> analyze(List<UnregisteredSensorConfig> unregisteredSensorConfigs, String className, ClassLoader classLoader) throws NotFoundException, StorageException {
 		Map<CtBehavior, List<UnregisteredSensorConfig>> behaviorToConfigMap = new HashMap<CtBehavior, List<UnregisteredSensorConfig>>();
 
-		// Iterating over all stored unregistered sensor configurations
-		for (UnregisteredSensorConfig unregisteredSensorConfig : configurationStorage.getUnregisteredSensorConfigs()) {
+		// Iterating over the unregistered sensor configurations that can match
+		for (UnregisteredSensorConfig unregisteredSensorConfig : unregisteredSensorConfigs) {
 			// try to match the class name first
 			IMatcher matcher = unregisteredSensorConfig.getMatcher();
 			if (matcher.compareClassName(classLoader, className)) {
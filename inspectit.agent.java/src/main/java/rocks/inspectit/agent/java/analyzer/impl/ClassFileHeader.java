@@ -0,0 +1,261 @@
+package rocks.inspectit.agent.java.analyzer.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Names of the direct superclass and the interfaces of a class, read from the constant pool of the
+ * class file without Javassist. Reading the header is much cheaper than creating the
+ * {@link javassist.CtClass}, so it can be done for every loaded class to decide if sensor
+ * configurations defined by superclass or interface can match it at all.
+ */
+public final class ClassFileHeader {
+
+	/**
+	 * Magic number of the class files.
+	 */
+	private static final int MAGIC = 0xCAFEBABE;
+
+	/**
+	 * Empty array of names.
+	 */
+	private static final String[] NO_NAMES = new String[0];
+
+	/**
+	 * Fully qualified name of the direct superclass, <code>null</code> for
+	 * <code>java.lang.Object</code>.
+	 */
+	private final String superclassName;
+
+	/**
+	 * Fully qualified names of the directly implemented (or extended) interfaces.
+	 */
+	private final String[] interfaceNames;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param superclassName
+	 *            Fully qualified name of the direct superclass.
+	 * @param interfaceNames
+	 *            Fully qualified names of the direct interfaces.
+	 */
+	private ClassFileHeader(String superclassName, String[] interfaceNames) {
+		this.superclassName = superclassName;
+		this.interfaceNames = interfaceNames;
+	}
+
+	/**
+	 * Reads the header of the class file.
+	 * 
+	 * @param byteCode
+	 *            Byte code of the class.
+	 * @return {@link ClassFileHeader} or <code>null</code> if the byte code is not a valid class
+	 *         file.
+	 */
+	public static ClassFileHeader read(byte[] byteCode) {
+		try {
+			return parse(byteCode);
+		} catch (RuntimeException e) {
+			// truncated or corrupted class file
+			return null;
+		}
+	}
+
+	/**
+	 * Loads the class file of the class as resource of the class loader and reads its header. This
+	 * is the same way the {@link javassist.LoaderClassPath} locates the class files.
+	 * 
+	 * @param classLoader
+	 *            Class loader to load the class file with, <code>null</code> for the bootstrap
+	 *            class loader.
+	 * @param className
+	 *            Fully qualified name of the class.
+	 * @return {@link ClassFileHeader} or <code>null</code> if the class file can not be found or
+	 *         read.
+	 */
+	public static ClassFileHeader load(ClassLoader classLoader, String className) {
+		String resourceName = className.replace('.', '/') + ".class";
+		InputStream inputStream = null;
+		try {
+			if (null != classLoader) {
+				inputStream = classLoader.getResourceAsStream(resourceName);
+			} else {
+				inputStream = ClassLoader.getSystemResourceAsStream(resourceName);
+			}
+			if (null == inputStream) {
+				return null;
+			}
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read = inputStream.read(buffer);
+			while (read >= 0) {
+				byteArrayOutputStream.write(buffer, 0, read);
+				read = inputStream.read(buffer);
+			}
+			return read(byteArrayOutputStream.toByteArray());
+		} catch (IOException e) {
+			return null;
+		} finally {
+			if (null != inputStream) {
+				try {
+					inputStream.close();
+				} catch (IOException e) { // NOPMD
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parses the constant pool and the class information up to the interfaces.
+	 * 
+	 * @param byteCode
+	 *            Byte code of the class.
+	 * @return {@link ClassFileHeader} or <code>null</code> if the byte code is not a class file.
+	 */
+	private static ClassFileHeader parse(byte[] byteCode) {
+		if ((byteCode.length < 10) || (MAGIC != readInt(byteCode, 0))) {
+			return null;
+		}
+
+		// skip magic, minor and major version
+		int position = 8;
+		int constantPoolCount = readUnsignedShort(byteCode, position);
+		position += 2;
+
+		// positions of the entries, class entries point to the name index
+		int[] entries = new int[constantPoolCount];
+		for (int i = 1; i < constantPoolCount; i++) {
+			entries[i] = position;
+			int tag = byteCode[position] & 0xFF;
+			switch (tag) {
+			case 1: // Utf8
+				position += 3 + readUnsignedShort(byteCode, position + 1);
+				break;
+			case 7: // Class
+			case 8: // String
+			case 16: // MethodType
+			case 19: // Module
+			case 20: // Package
+				position += 3;
+				break;
+			case 15: // MethodHandle
+				position += 4;
+				break;
+			case 3: // Integer
+			case 4: // Float
+			case 9: // Fieldref
+			case 10: // Methodref
+			case 11: // InterfaceMethodref
+			case 12: // NameAndType
+			case 17: // Dynamic
+			case 18: // InvokeDynamic
+				position += 5;
+				break;
+			case 5: // Long
+			case 6: // Double
+				position += 9;
+				// takes two entries
+				i++;
+				break;
+			default:
+				return null;
+			}
+		}
+
+		// skip access flags and this class
+		position += 4;
+		int superclassIndex = readUnsignedShort(byteCode, position);
+		position += 2;
+		String superclassName = null;
+		if (0 != superclassIndex) {
+			superclassName = getClassName(byteCode, entries, superclassIndex);
+		}
+
+		int interfaceCount = readUnsignedShort(byteCode, position);
+		position += 2;
+		String[] interfaceNames = NO_NAMES;
+		if (interfaceCount > 0) {
+			interfaceNames = new String[interfaceCount];
+			for (int i = 0; i < interfaceCount; i++) {
+				interfaceNames[i] = getClassName(byteCode, entries, readUnsignedShort(byteCode, position));
+				position += 2;
+			}
+		}
+
+		return new ClassFileHeader(superclassName, interfaceNames);
+	}
+
+	/**
+	 * Returns the class name of the class constant.
+	 * 
+	 * @param byteCode
+	 *            Byte code of the class.
+	 * @param entries
+	 *            Positions of the constant pool entries.
+	 * @param classIndex
+	 *            Index of the class constant.
+	 * @return Fully qualified class name with dots.
+	 */
+	private static String getClassName(byte[] byteCode, int[] entries, int classIndex) {
+		int nameIndex = readUnsignedShort(byteCode, entries[classIndex] + 1);
+		int position = entries[nameIndex] + 1;
+		int length = readUnsignedShort(byteCode, position) + 2;
+		try {
+			// modified UTF-8 as read by the data input
+			String internalName = new DataInputStream(new ByteArrayInputStream(byteCode, position, length)).readUTF();
+			return internalName.replace('/', '.');
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Class name can not be read.", e);
+		}
+	}
+
+	/**
+	 * Reads the unsigned short.
+	 * 
+	 * @param byteCode
+	 *            Bytes.
+	 * @param position
+	 *            Position.
+	 * @return Unsigned short value.
+	 */
+	private static int readUnsignedShort(byte[] byteCode, int position) {
+		return ((byteCode[position] & 0xFF) << 8) | (byteCode[position + 1] & 0xFF);
+	}
+
+	/**
+	 * Reads the int.
+	 * 
+	 * @param byteCode
+	 *            Bytes.
+	 * @param position
+	 *            Position.
+	 * @return Int value.
+	 */
+	private static int readInt(byte[] byteCode, int position) {
+		return (readUnsignedShort(byteCode, position) << 16) | readUnsignedShort(byteCode, position + 2);
+	}
+
+	/**
+	 * Gets {@link #superclassName}.
+	 * 
+	 * @return {@link #superclassName}
+	 */
+	public String getSuperclassName() {
+		return superclassName;
+	}
+
+	/**
+	 * Gets {@link #interfaceNames}.
+	 * 
+	 * @return {@link #interfaceNames}
+	 */
+	public String[] getInterfaceNames() {
+		return interfaceNames.clone();
+	}
+
+}
@@ -0,0 +1,559 @@
+package rocks.inspectit.agent.java.analyzer.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import rocks.inspectit.agent.java.config.impl.UnregisteredSensorConfig;
+
+/**
+ * Index over the {@link UnregisteredSensorConfig}s that returns only the configurations which can
+ * possibly match a given class name. Every configuration is put in one of three groups:
+ * <ul>
+ * <li>configurations with an exact class name are found with one hash lookup,</li>
+ * <li>configurations with a class name pattern that does not start with a wildcard are indexed by
+ * the package part of the text before the first wildcard (for example <code>com.foo.</code> for
+ * <code>com.foo.*Service</code>) and are found by looking up all packages of the class name,</li>
+ * <li>configurations defining a superclass or an interface are returned if the class or one of
+ * its supertypes matches any of their target names, see
+ * {@link #isHierarchyCandidate(String, ClassFileHeader, ClassLoader)},</li>
+ * <li>patterns that start with a wildcard can not be decided by the class name and are always
+ * returned.</li>
+ * </ul>
+ * The returned configurations are only candidates, the matcher of each configuration still has to
+ * be asked. The candidates keep the order of the configuration
+ * list, so the analysis results are the same as when iterating over all configurations.
+ * <p>
+ * The index is immutable and has to be created again when the configurations change.
+ */
+public class ClassMatchIndex {
+
+	/**
+	 * Name of the root class, which is never a hierarchy target unless configured.
+	 */
+	private static final String OBJECT_CLASS_NAME = Object.class.getName();
+
+	/**
+	 * Package prefix of the types that can only be loaded by the bootstrap class loader.
+	 */
+	private static final String JAVA_PACKAGE = "java.";
+
+	/**
+	 * Maximum number of supertype levels read from the class files, deeper types are treated as
+	 * candidates.
+	 */
+	private static final int MAX_HIERARCHY_DEPTH = 32;
+
+	/**
+	 * The indexed configurations.
+	 */
+	private final UnregisteredSensorConfig[] configs;
+
+	/**
+	 * Positions of the configurations with an exact class name.
+	 */
+	private final Map<String, int[]> exactNames;
+
+	/**
+	 * Positions of the configurations with a class name pattern, keyed by package prefix.
+	 */
+	private final Map<String, int[]> packagePrefixes;
+
+	/**
+	 * Positions of the configurations that have to be checked for every class.
+	 */
+	private final int[] fallback;
+
+	/**
+	 * Positions of the configurations defining a superclass or an interface.
+	 */
+	private final int[] hierarchy;
+
+	/**
+	 * Exact names of the superclasses and interfaces the hierarchy configurations look for.
+	 */
+	private final Set<String> hierarchyNames;
+
+	/**
+	 * Patterns of the superclasses and interfaces the hierarchy configurations look for.
+	 */
+	private final List<SimpleMatchPattern> hierarchyPatterns;
+
+	/**
+	 * If a hierarchy configuration has no target name, so that every class is a hierarchy
+	 * candidate.
+	 */
+	private final boolean hierarchyUndecidable;
+
+	/**
+	 * Additional superclass or interface names the index was created with.
+	 */
+	private final List<String> additionalHierarchyTargets;
+
+	/**
+	 * Cache if a type or one of its supertypes is a hierarchy target, per class loader. The types of
+	 * the bootstrap class loader are stored with the <code>null</code> key.
+	 */
+	private final Map<ClassLoader, ConcurrentMap<String, Boolean>> hierarchyCache = Collections.synchronizedMap(new WeakHashMap<ClassLoader, ConcurrentMap<String, Boolean>>());
+
+	/**
+	 * Creates the index for the given configurations.
+	 * 
+	 * @param unregisteredSensorConfigs
+	 *            Configurations to index.
+	 */
+	public ClassMatchIndex(List<UnregisteredSensorConfig> unregisteredSensorConfigs) {
+		this(unregisteredSensorConfigs, Collections.<String> emptyList());
+	}
+
+	/**
+	 * Creates the index for the given configurations with additional superclass or interface names
+	 * that have to be treated as hierarchy targets, for example the class loader of the class
+	 * loader delegation.
+	 * 
+	 * @param unregisteredSensorConfigs
+	 *            Configurations to index.
+	 * @param additionalHierarchyTargets
+	 *            Additional superclass or interface names.
+	 */
+	public ClassMatchIndex(List<UnregisteredSensorConfig> unregisteredSensorConfigs, List<String> additionalHierarchyTargets) {
+		configs = unregisteredSensorConfigs.toArray(new UnregisteredSensorConfig[unregisteredSensorConfigs.size()]);
+		this.additionalHierarchyTargets = additionalHierarchyTargets;
+
+		Map<String, List<Integer>> exact = new HashMap<String, List<Integer>>();
+		Map<String, List<Integer>> prefixes = new HashMap<String, List<Integer>>();
+		List<Integer> others = new ArrayList<Integer>();
+		List<Integer> hierarchyPositions = new ArrayList<Integer>();
+		Set<String> names = new HashSet<String>();
+		List<SimpleMatchPattern> patterns = new ArrayList<SimpleMatchPattern>();
+		boolean undecidable = false;
+
+		for (String additionalHierarchyTarget : additionalHierarchyTargets) {
+			addHierarchyTarget(additionalHierarchyTarget, names, patterns);
+		}
+
+		for (int i = 0; i < configs.length; i++) {
+			UnregisteredSensorConfig config = configs[i];
+			String targetClassName = config.getTargetClassName();
+			if (config.isSuperclass() || config.isInterface()) {
+				hierarchyPositions.add(Integer.valueOf(i));
+				if (null == targetClassName) {
+					undecidable = true;
+				} else {
+					addHierarchyTarget(targetClassName, names, patterns);
+				}
+				continue;
+			}
+			if (null == targetClassName) {
+				others.add(Integer.valueOf(i));
+				continue;
+			}
+
+			int wildcard = targetClassName.indexOf('*');
+			if (wildcard < 0) {
+				add(exact, targetClassName, i);
+			} else if (wildcard > 0) {
+				add(prefixes, packageOf(targetClassName.substring(0, wildcard)), i);
+			} else {
+				others.add(Integer.valueOf(i));
+			}
+		}
+
+		exactNames = toArrays(exact);
+		packagePrefixes = toArrays(prefixes);
+		fallback = toArray(others);
+		hierarchy = toArray(hierarchyPositions);
+		hierarchyNames = names;
+		hierarchyPatterns = patterns;
+		hierarchyUndecidable = undecidable;
+	}
+
+	/**
+	 * Returns the configurations whose matcher can match the given class name, in the order of the
+	 * indexed list. The configurations defining a superclass or an interface are always returned.
+	 * 
+	 * @param className
+	 *            Fully qualified class name.
+	 * @return Candidate configurations, empty list if no configuration can match the class.
+	 */
+	public List<UnregisteredSensorConfig> getCandidates(String className) {
+		return getCandidates(className, true);
+	}
+
+	/**
+	 * Returns the configurations whose matcher can match the given class name, in the order of the
+	 * indexed list.
+	 * 
+	 * @param className
+	 *            Fully qualified class name.
+	 * @param hierarchyCandidate
+	 *            If the configurations defining a superclass or an interface should be returned,
+	 *            see {@link #isHierarchyCandidate(String, ClassFileHeader, ClassLoader)}.
+	 * @return Candidate configurations, empty list if no configuration can match the class.
+	 */
+	public List<UnregisteredSensorConfig> getCandidates(String className, boolean hierarchyCandidate) {
+		int[] exact = exactNames.get(className);
+		int[][] found = null;
+		int foundCount = 0;
+		int total = 0;
+
+		if (!packagePrefixes.isEmpty()) {
+			// look up the default package and all packages of the class
+			int dot = -1;
+			do {
+				int[] positions = packagePrefixes.get(className.substring(0, dot + 1));
+				if (null != positions) {
+					if (null == found) {
+						found = new int[countDots(className) + 4][];
+					}
+					found[foundCount++] = positions;
+					total += positions.length;
+				}
+				dot = className.indexOf('.', dot + 1);
+			} while (dot >= 0);
+		}
+
+		if (null != exact) {
+			if (null == found) {
+				found = new int[3][];
+			}
+			found[foundCount++] = exact;
+			total += exact.length;
+		}
+
+		if (fallback.length > 0) {
+			if (null == found) {
+				found = new int[2][];
+			}
+			found[foundCount++] = fallback;
+			total += fallback.length;
+		}
+
+		if (hierarchyCandidate && hierarchy.length > 0) {
+			if (null == found) {
+				found = new int[1][];
+			}
+			found[foundCount++] = hierarchy;
+			total += hierarchy.length;
+		}
+
+		if (0 == total) {
+			return Collections.emptyList();
+		}
+
+		int[] positions;
+		if (1 == foundCount) {
+			positions = found[0];
+		} else {
+			positions = new int[total];
+			int offset = 0;
+			for (int i = 0; i < foundCount; i++) {
+				System.arraycopy(found[i], 0, positions, offset, found[i].length);
+				offset += found[i].length;
+			}
+			Arrays.sort(positions);
+		}
+
+		List<UnregisteredSensorConfig> candidates = new ArrayList<UnregisteredSensorConfig>(positions.length);
+		for (int position : positions) {
+			candidates.add(configs[position]);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Returns if at least one configuration can match the given class name. Same as checking the
+	 * result of {@link #getCandidates(String)}, but without creating the list.
+	 * 
+	 * @param className
+	 *            Fully qualified class name.
+	 * @return <code>true</code> if {@link #getCandidates(String)} would not return an empty list.
+	 */
+	public boolean hasCandidates(String className) {
+		return hasCandidates(className, true);
+	}
+
+	/**
+	 * Returns if at least one configuration can match the given class name. Same as checking the
+	 * result of {@link #getCandidates(String, boolean)}, but without creating the list.
+	 * 
+	 * @param className
+	 *            Fully qualified class name.
+	 * @param hierarchyCandidate
+	 *            If the configurations defining a superclass or an interface should be included.
+	 * @return <code>true</code> if {@link #getCandidates(String, boolean)} would not return an
+	 *         empty list.
+	 */
+	public boolean hasCandidates(String className, boolean hierarchyCandidate) {
+		if (fallback.length > 0 || exactNames.containsKey(className) || (hierarchyCandidate && hierarchy.length > 0)) {
+			return true;
+		}
+
+		if (!packagePrefixes.isEmpty()) {
+			int dot = -1;
+			do {
+				if (packagePrefixes.containsKey(className.substring(0, dot + 1))) {
+					return true;
+				}
+				dot = className.indexOf('.', dot + 1);
+			} while (dot >= 0);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns if the class or one of its superclasses or interfaces is the target of a
+	 * configuration defining a superclass or an interface, or one of the additional hierarchy
+	 * targets. The direct supertypes are taken from the class file header, the ones above are read
+	 * from the class files of the class loader. A supertype whose class file can not be found or
+	 * read is treated as a match, so that the matchers decide. The result is cached per class
+	 * loader for every visited type, so the common supertypes are read only once.
+	 * 
+	 * @param className
+	 *            Fully qualified class name.
+	 * @param classFileHeader
+	 *            Header of the class file of the class.
+	 * @param classLoader
+	 *            Class loader loading the class.
+	 * @return <code>false</code> if it is sure that no supertype of the class is a hierarchy
+	 *         target.
+	 */
+	public boolean isHierarchyCandidate(String className, ClassFileHeader classFileHeader, ClassLoader classLoader) {
+		if (hierarchyUndecidable) {
+			return true;
+		}
+		if (hierarchyNames.isEmpty() && hierarchyPatterns.isEmpty()) {
+			return false;
+		}
+		if (isHierarchyTarget(className)) {
+			return true;
+		}
+		boolean candidate = isSupertypeCandidate(classFileHeader, classLoader, 0);
+		getHierarchyCache(classLoader).put(className, Boolean.valueOf(candidate));
+		return candidate;
+	}
+
+	/**
+	 * Returns the number of indexed configurations.
+	 * 
+	 * @return Number of indexed configurations.
+	 */
+	public int size() {
+		return configs.length;
+	}
+
+	/**
+	 * Gets {@link #additionalHierarchyTargets}.
+	 * 
+	 * @return {@link #additionalHierarchyTargets}
+	 */
+	public List<String> getAdditionalHierarchyTargets() {
+		return additionalHierarchyTargets;
+	}
+
+	/**
+	 * Returns if one of the direct supertypes in the class file header or their supertypes is a
+	 * hierarchy target.
+	 * 
+	 * @param classFileHeader
+	 *            Class file header.
+	 * @param classLoader
+	 *            Class loader to read the supertypes with.
+	 * @param depth
+	 *            Depth of the supertypes in the hierarchy.
+	 * @return If a supertype can be a hierarchy target.
+	 */
+	private boolean isSupertypeCandidate(ClassFileHeader classFileHeader, ClassLoader classLoader, int depth) {
+		String superclassName = classFileHeader.getSuperclassName();
+		if (null != superclassName && isTypeCandidate(superclassName, classLoader, depth)) {
+			return true;
+		}
+		for (String interfaceName : classFileHeader.getInterfaceNames()) {
+			if (isTypeCandidate(interfaceName, classLoader, depth)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns if the type or one of its supertypes can be a hierarchy target.
+	 * 
+	 * @param typeName
+	 *            Fully qualified name of the type.
+	 * @param classLoader
+	 *            Class loader to read the type with.
+	 * @param depth
+	 *            Depth of the type in the hierarchy.
+	 * @return If the type can be a hierarchy target.
+	 */
+	private boolean isTypeCandidate(String typeName, ClassLoader classLoader, int depth) {
+		if (isHierarchyTarget(typeName)) {
+			return true;
+		}
+		if (OBJECT_CLASS_NAME.equals(typeName)) {
+			return false;
+		}
+
+		// the java types can only be defined by the bootstrap class loader
+		ClassLoader typeClassLoader = classLoader;
+		if (typeName.startsWith(JAVA_PACKAGE)) {
+			typeClassLoader = null;
+		}
+		ConcurrentMap<String, Boolean> cache = getHierarchyCache(typeClassLoader);
+		Boolean cached = cache.get(typeName);
+		if (null != cached) {
+			return cached.booleanValue();
+		}
+		if (depth >= MAX_HIERARCHY_DEPTH) {
+			return true;
+		}
+
+		ClassFileHeader classFileHeader = ClassFileHeader.load(typeClassLoader, typeName);
+		boolean candidate = (null == classFileHeader) || isSupertypeCandidate(classFileHeader, typeClassLoader, depth + 1);
+		cache.put(typeName, Boolean.valueOf(candidate));
+		return candidate;
+	}
+
+	/**
+	 * Returns if the type name is the target of a hierarchy configuration.
+	 * 
+	 * @param typeName
+	 *            Fully qualified name of the type.
+	 * @return If the type name is a hierarchy target.
+	 */
+	private boolean isHierarchyTarget(String typeName) {
+		if (hierarchyNames.contains(typeName)) {
+			return true;
+		}
+		for (SimpleMatchPattern pattern : hierarchyPatterns) {
+			if (pattern.match(typeName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the hierarchy cache of the class loader.
+	 * 
+	 * @param classLoader
+	 *            Class loader, <code>null</code> for the bootstrap class loader.
+	 * @return Cache of the class loader.
+	 */
+	private ConcurrentMap<String, Boolean> getHierarchyCache(ClassLoader classLoader) {
+		synchronized (hierarchyCache) {
+			ConcurrentMap<String, Boolean> cache = hierarchyCache.get(classLoader);
+			if (null == cache) {
+				cache = new ConcurrentHashMap<String, Boolean>();
+				hierarchyCache.put(classLoader, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Adds the target name of a hierarchy configuration either to the names or to the patterns.
+	 * 
+	 * @param targetName
+	 *            Superclass or interface name, can be a pattern.
+	 * @param names
+	 *            Exact names.
+	 * @param patterns
+	 *            Patterns.
+	 */
+	private static void addHierarchyTarget(String targetName, Set<String> names, List<SimpleMatchPattern> patterns) {
+		if (SimpleMatchPattern.isPattern(targetName)) {
+			patterns.add(new SimpleMatchPattern(targetName));
+		} else {
+			names.add(targetName);
+		}
+	}
+
+	/**
+	 * Returns the package part of the given class name prefix including the last dot. Returns an
+	 * empty string if the prefix has no package part.
+	 * 
+	 * @param prefix
+	 *            Text of the class name pattern before the first wildcard.
+	 * @return Package prefix.
+	 */
+	private static String packageOf(String prefix) {
+		return prefix.substring(0, prefix.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * Returns the number of dots in the class name.
+	 * 
+	 * @param className
+	 *            Class name.
+	 * @return Number of dots.
+	 */
+	private static int countDots(String className) {
+		int count = 0;
+		for (int i = 0; i < className.length(); i++) {
+			if ('.' == className.charAt(i)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the position to the list stored under the key.
+	 * 
+	 * @param map
+	 *            Map to add to.
+	 * @param key
+	 *            Key.
+	 * @param position
+	 *            Position of the configuration.
+	 */
+	private static void add(Map<String, List<Integer>> map, String key, int position) {
+		List<Integer> positions = map.get(key);
+		if (null == positions) {
+			positions = new ArrayList<Integer>(1);
+			map.put(key, positions);
+		}
+		positions.add(Integer.valueOf(position));
+	}
+
+	/**
+	 * Converts the values of the map to int arrays.
+	 * 
+	 * @param map
+	 *            Map with the position lists.
+	 * @return Map with the position arrays.
+	 */
+	private static Map<String, int[]> toArrays(Map<String, List<Integer>> map) {
+		Map<String, int[]> result = new HashMap<String, int[]>(map.size() * 2);
+		for (Map.Entry<String, List<Integer>> entry : map.entrySet()) {
+			result.put(entry.getKey(), toArray(entry.getValue()));
+		}
+		return result;
+	}
+
+	/**
+	 * Converts the list to an int array.
+	 * 
+	 * @param list
+	 *            List of positions in ascending order.
+	 * @return Array of positions.
+	 */
+	private static int[] toArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i).intValue();
+		}
+		return array;
+	}
+
+}
@@ -17,6 +17,7 @@ import rocks.inspectit.agent.java.util.WeakList;
 import rocks.inspectit.shared.all.spring.logger.Log;
 
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -34,6 +35,13 @@ public class ClassPoolAnalyzer implements IClassPoolAnalyzer {
 	@Log
 	Logger log;
 
+	/**
+	 * Maximum number of classes cached by each class pool. If set to zero or less, the class pools
+	 * cache all classes.
+	 */
+	@Value("${instrumentation.classPoolCacheSize}")
+	int classPoolCacheSize;
+
 	/**
 	 * A weak list to save references to the class loaders.
 	 */
@@ -102,11 +110,13 @@ public class ClassPoolAnalyzer implements IClassPoolAnalyzer {
 		if (null == classLoader) {
 			return ClassPool.getDefault();
 		}
-		if (!classLoaders.contains(classLoader)) {
-			return this.copyHierarchy(classLoader);
-		}
+		synchronized (map) {
+			if (!classLoaders.contains(classLoader)) {
+				return this.copyHierarchy(classLoader);
+			}
 
-		return map.get(classLoader);
+			return map.get(classLoader);
+		}
 	}
 
 	/**
@@ -117,11 +127,38 @@ public class ClassPoolAnalyzer implements IClassPoolAnalyzer {
 			// Return the default classpool if we don't have the mapping yet.
 			return ClassPool.getDefault();
 		}
-		ClassPool cp = (ClassPool) map.get(classLoader);
-		if (null == cp) {
-			cp = this.addClassLoader(classLoader);
+		synchronized (map) {
+			ClassPool cp = (ClassPool) map.get(classLoader);
+			if (null == cp) {
+				cp = this.addClassLoader(classLoader);
+			}
+			return cp;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void releaseClass(ClassLoader classLoader, String className) {
+		ClassPool cp = getClassPool(classLoader);
+		if (cp instanceof ManagedClassPool) {
+			((ManagedClassPool) cp).release(className);
 		}
-		return cp;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getCachedClassCount() {
+		int count = 0;
+		synchronized (map) {
+			for (ClassPool cp : map.values()) {
+				if (cp instanceof ManagedClassPool) {
+					count += ((ManagedClassPool) cp).getCachedClassCount();
+				}
+			}
+		}
+		return count;
 	}
 
 	/**
@@ -141,14 +178,14 @@ public class ClassPoolAnalyzer implements IClassPoolAnalyzer {
 		if (null != classLoader.getParent() && !classLoaders.contains(classLoader.getParent())) {
 			// If the class loader has got a parent one and was not seen before
 			// -> initialize that one first
-			cp = new ClassPool(this.copyHierarchy(classLoader.getParent()));
+			cp = this.createClassPool(this.copyHierarchy(classLoader.getParent()));
 		} else if (null != classLoader.getParent()) {
 			// Parent class loader was seen and initialized before, we only care
 			// about the current one and set the parent class loader.
-			cp = new ClassPool(map.get(classLoader.getParent()));
+			cp = this.createClassPool(map.get(classLoader.getParent()));
 		} else {
 			// Class loader has got no parent ( bootstrap class loader )
-			cp = new ClassPool(ClassPool.getDefault());
+			cp = this.createClassPool(ClassPool.getDefault());
 		}
 
 		cp.insertClassPath(new LoaderClassPath(classLoader));
@@ -158,4 +195,19 @@ public class ClassPoolAnalyzer implements IClassPoolAnalyzer {
 		return cp;
 	}
 
+	/**
+	 * Creates a new class pool with the given parent. The class pool limits its cache to
+	 * {@link #classPoolCacheSize} classes if the size is set.
+	 * 
+	 * @param parent
+	 *            The parent class pool.
+	 * @return The new class pool.
+	 */
+	private ClassPool createClassPool(ClassPool parent) {
+		if (classPoolCacheSize > 0) {
+			return new ManagedClassPool(parent, classPoolCacheSize);
+		}
+		return new ClassPool(parent);
+	}
+
 }
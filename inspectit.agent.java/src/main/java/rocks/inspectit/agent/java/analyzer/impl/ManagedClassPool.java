@@ -0,0 +1,124 @@
+package rocks.inspectit.agent.java.analyzer.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+
+/**
+ * {@link ClassPool} that keeps only a limited number of parsed {@link CtClass} objects. The
+ * javassist class pool caches every class that was once requested, thus the memory used by the
+ * agent grows with every loaded class. This class pool remembers the order in which the cached
+ * classes were used and detaches the least recently used class as soon as the cache limit is
+ * reached. A detached class is parsed again when it is requested the next time.
+ * <p>
+ * The javassist class pool calls {@link #cacheCtClass(String, CtClass, boolean)} and
+ * {@link #removeCached(String)} while holding its own lock, thus these methods synchronize on the
+ * class pool as well.
+ */
+public class ManagedClassPool extends ClassPool {
+
+	/**
+	 * Maximum number of classes cached by this class pool.
+	 */
+	private final int cacheSize;
+
+	/**
+	 * Names of the cached classes in the order they were used.
+	 */
+	private final Map<String, Boolean> cachedClassNames = new LinkedHashMap<String, Boolean>(16, 0.75f, true);
+
+	/**
+	 * Number of classes removed from the cache because the limit was reached.
+	 */
+	private long evictedClassCount;
+
+	/**
+	 * Creates a class pool with the given parent.
+	 * 
+	 * @param parent
+	 *            Parent class pool.
+	 * @param cacheSize
+	 *            Maximum number of classes to cache.
+	 */
+	public ManagedClassPool(ClassPool parent, int cacheSize) {
+		super(parent);
+		if (cacheSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be greater than zero.");
+		}
+		this.cacheSize = cacheSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected synchronized void cacheCtClass(String classname, CtClass c, boolean dynamic) {
+		super.cacheCtClass(classname, c, dynamic);
+		cachedClassNames.put(classname, Boolean.TRUE);
+
+		if (cachedClassNames.size() > cacheSize) {
+			Iterator<String> iterator = cachedClassNames.keySet().iterator();
+			String eldest = iterator.next();
+			iterator.remove();
+			super.removeCached(eldest);
+			evictedClassCount++;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected synchronized CtClass getCached(String classname) {
+		CtClass ctClass = super.getCached(classname);
+		if (null != ctClass) {
+			// mark as recently used
+			cachedClassNames.get(classname);
+		}
+		return ctClass;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected synchronized CtClass removeCached(String classname) {
+		cachedClassNames.remove(classname);
+		return super.removeCached(classname);
+	}
+
+	/**
+	 * Removes the class from the cache of this class pool. Same as {@link CtClass#detach()}, but
+	 * does not parse the class if it is not cached.
+	 * 
+	 * @param classname
+	 *            Fully qualified class name.
+	 */
+	public synchronized void release(String classname) {
+		if (cachedClassNames.containsKey(classname)) {
+			removeCached(classname);
+		}
+	}
+
+	/**
+	 * Returns the number of currently cached classes.
+	 * 
+	 * @return Number of currently cached classes.
+	 */
+	public synchronized int getCachedClassCount() {
+		return cachedClassNames.size();
+	}
+
+	/**
+	 * Returns the number of classes removed from the cache because the limit was reached.
+	 * 
+	 * @return Number of evicted classes.
+	 */
+	public synchronized long getEvictedClassCount() {
+		return evictedClassCount;
+	}
+
+}
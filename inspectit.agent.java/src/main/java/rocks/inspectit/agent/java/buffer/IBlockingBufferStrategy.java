@@ -0,0 +1,22 @@
+package rocks.inspectit.agent.java.buffer;
+
+/**
+ * A buffer strategy that the sending thread can wait on for new measurements. With such a strategy
+ * the preparing thread does not have to notify the sending thread after adding measurements, the
+ * buffer itself wakes the waiting sending thread.
+ * 
+ * @param <E>
+ *            The element contained in the list.
+ */
+public interface IBlockingBufferStrategy<E> extends IBufferStrategy<E> {
+
+	/**
+	 * Waits until measurements are available. Returns immediately if there are measurements
+	 * available. Only one thread (the consumer) is allowed to wait at a time.
+	 * 
+	 * @throws InterruptedException
+	 *             If the waiting thread is interrupted.
+	 */
+	void awaitNext() throws InterruptedException;
+
+}
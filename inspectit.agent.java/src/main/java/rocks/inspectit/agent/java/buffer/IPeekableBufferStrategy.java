@@ -0,0 +1,31 @@
+package rocks.inspectit.agent.java.buffer;
+
+import java.util.List;
+
+/**
+ * A buffer strategy that lets the sending thread look at the next list of measurements without
+ * removing it. The list is removed with {@link #commit()} only after it was successfully sent, so
+ * that the list is sent again when the sending fails.
+ * 
+ * @param <E>
+ *            The element contained in the list.
+ */
+public interface IPeekableBufferStrategy<E> extends IBufferStrategy<E> {
+
+	/**
+	 * Returns the next list of measurements without removing it. Repeated calls without
+	 * {@link #commit()} return the same list. Only one thread (the consumer) is allowed to peek.
+	 * 
+	 * @return The next list of measurements.
+	 * @throws java.util.NoSuchElementException
+	 *             If there are no measurements available.
+	 */
+	List<E> peek();
+
+	/**
+	 * Removes the list of measurements returned by the last {@link #peek()}. Does nothing if there
+	 * was no peek since the last commit or if the peeked list was meanwhile dropped by the buffer.
+	 */
+	void commit();
+
+}
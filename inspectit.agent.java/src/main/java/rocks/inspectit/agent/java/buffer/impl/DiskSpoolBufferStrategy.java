@@ -0,0 +1,779 @@
+package rocks.inspectit.agent.java.buffer.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import rocks.inspectit.agent.java.buffer.AbstractBufferStrategy;
+import rocks.inspectit.agent.java.buffer.IPeekableBufferStrategy;
+import rocks.inspectit.agent.java.config.IConfigurationStorage;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.storage.serializer.ISerializer;
+import rocks.inspectit.shared.all.storage.serializer.ISerializerProvider;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Buffer strategy that spools the list of measurements to the local disk, so that the
+ * measurements are kept when the CMR is not reachable for a longer time without growing the heap
+ * of the application. The lists are serialized with the Kryo {@link SerializationManager} and
+ * written to memory-mapped segment files. They are returned in the same order they were added, so
+ * that the spooled measurements are replayed in order once the connection to the CMR is
+ * re-established. The sending thread removes a list only after it was sent, thus a list is not
+ * lost when the sending fails. A list that could not be sent after the maximum number of retries
+ * is dropped, so that it does not block the lists added after it.
+ * <p>
+ * Several agents can share the spool directory: every agent writes to its own sub-directory
+ * named by the agent name and the process, which is locked with a lock file as long as the JVM
+ * is running. On start, the sub-directories of earlier runs of the same agent whose lock is not
+ * held anymore are deleted, the files of other agents are never touched.
+ * <p>
+ * Following settings are supported:
+ * <ul>
+ * <li><i>directory</i> - directory of the agent sub-directories, default is
+ * <i>inspectit-spool</i> in the temporary directory.</li>
+ * <li><i>segment-size</i> - size of one segment file in bytes, default is 4 MB. A list that is
+ * larger when serialized can not be spooled and is dropped.</li>
+ * <li><i>max-size</i> - maximum size of all segment files in bytes, default is 64 MB. When the
+ * maximum size is reached the oldest segment is dropped.</li>
+ * <li><i>max-retries</i> - number of times sending of a list is retried before the list is
+ * dropped, default is 10.</li>
+ * </ul>
+ */
+public class DiskSpoolBufferStrategy extends AbstractBufferStrategy<MethodSensorData> implements IPeekableBufferStrategy<MethodSensorData> {
+
+	/**
+	 * The logger of the class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * Default segment size.
+	 */
+	private static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * Default maximum size of all segments.
+	 */
+	private static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+	/**
+	 * Size of the record header holding the length of the serialized list.
+	 */
+	private static final int RECORD_HEADER_SIZE = 4;
+
+	/**
+	 * Default number of retries for sending one list.
+	 */
+	private static final int DEFAULT_MAX_RETRIES = 10;
+
+	/**
+	 * Extension of the segment files.
+	 */
+	private static final String SEGMENT_FILE_EXTENSION = ".spool";
+
+	/**
+	 * Name of the lock file in the agent sub-directory.
+	 */
+	private static final String LOCK_FILE_NAME = "spool.lock";
+
+	/**
+	 * Pattern of the process part of the sub-directory name (<i>pid_host</i>), so that the
+	 * directories of an agent whose name only starts with the name of this agent are not deleted.
+	 */
+	private static final Pattern PROCESS_DIRECTORY_PATTERN = Pattern.compile("\\d+_.*");
+
+	/**
+	 * Provider of the serializers.
+	 */
+	@Autowired
+	ISerializerProvider<SerializationManager> serializerProvider;
+
+	/**
+	 * Configuration storage to read the agent name from.
+	 */
+	@Autowired
+	IConfigurationStorage configurationStorage;
+
+	/**
+	 * Serializer used for writing, guarded by the {@link #output}.
+	 */
+	private ISerializer writeSerializer;
+
+	/**
+	 * Serializer used for reading, only used by the sending thread.
+	 */
+	private ISerializer readSerializer;
+
+	/**
+	 * Output the lists are serialized to before being copied to the segment. Its buffer can not
+	 * grow over the segment size, so that one large list does not keep a large buffer alive.
+	 */
+	private final Output output = new Output(4096, DEFAULT_SEGMENT_SIZE - RECORD_HEADER_SIZE);
+
+	/**
+	 * Input used for reading.
+	 */
+	private final Input input = new Input();
+
+	/**
+	 * Segments, oldest first. The last segment is the one being written to.
+	 */
+	private final LinkedList<Segment> segments = new LinkedList<Segment>(); // NOPMD
+
+	/**
+	 * Directory of the agent sub-directories.
+	 */
+	private File baseDirectory = new File(System.getProperty("java.io.tmpdir"), "inspectit-spool");
+
+	/**
+	 * Sub-directory of this agent holding the segment files.
+	 */
+	private File directory;
+
+	/**
+	 * Lock of the sub-directory, held as long as the JVM is running. Referenced so that the channel
+	 * of the lock is not closed by the garbage collection.
+	 */
+	private FileLock directoryLock;
+
+	/**
+	 * Size of one segment.
+	 */
+	private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+	/**
+	 * Maximum size of all segments.
+	 */
+	private long maxSize = DEFAULT_MAX_SIZE;
+
+	/**
+	 * Number of retries for sending one list.
+	 */
+	private int maxRetries = DEFAULT_MAX_RETRIES;
+
+	/**
+	 * Current size of all segments.
+	 */
+	private long currentSize;
+
+	/**
+	 * Counter for the segment file names.
+	 */
+	private long segmentCounter;
+
+	/**
+	 * Number of lists currently spooled.
+	 */
+	private volatile int count;
+
+	/**
+	 * Number of lists dropped because the maximum size was reached.
+	 */
+	private long droppedCount;
+
+	/**
+	 * List returned by the last peek, only used by the sending thread.
+	 */
+	private List<MethodSensorData> peekedList;
+
+	/**
+	 * Segment of the record returned by the last peek.
+	 */
+	private Segment peekedSegment;
+
+	/**
+	 * Position of the record returned by the last peek in the {@link #peekedSegment}.
+	 */
+	private int peekedPosition;
+
+	/**
+	 * Number of times the record of the last peek was peeked again without commit, thus the number
+	 * of failed sending attempts.
+	 */
+	private int peekedRetries;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void addMeasurements(List<MethodSensorData> measurements) {
+		if (null == measurements) {
+			throw new IllegalArgumentException("Measurements cannot be null!");
+		}
+
+		synchronized (output) {
+			output.clear();
+			try {
+				writeSerializer.serialize(measurements, output);
+			} catch (SerializationException e) {
+				log.error("Measurements could not be serialized to the spool, data will be lost.", e);
+				return;
+			}
+
+			synchronized (this) {
+				try {
+					append(output.getBuffer(), output.position());
+				} catch (IOException e) {
+					log.error("Measurements could not be written to the spool, data will be lost.", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean hasNext() {
+		return count > 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<MethodSensorData> next() {
+		List<MethodSensorData> measurements = peek();
+		commit();
+		return measurements;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	public List<MethodSensorData> peek() {
+		byte[] bytes;
+		synchronized (this) {
+			if (0 == count) {
+				throw new NoSuchElementException();
+			}
+			Segment segment = segments.getFirst();
+			if ((null != peekedList) && (segment == peekedSegment) && (segment.readPosition == peekedPosition)) {
+				if (++peekedRetries <= maxRetries) {
+					return peekedList;
+				}
+
+				// sending failed too many times, the list must not block the ones after it
+				remove(segment);
+				droppedCount++;
+				log.warn("Measurements could not be sent after " + maxRetries + " retries and are dropped from the spool, data will be lost.");
+				peekedList = null; // NOPMD
+				peekedSegment = null; // NOPMD
+				if (0 == count) {
+					return new LinkedList<MethodSensorData>();
+				}
+				segment = segments.getFirst();
+			}
+			peekedSegment = segment;
+			peekedPosition = segment.readPosition;
+			peekedRetries = 0;
+			bytes = segment.read();
+		}
+
+		input.setBuffer(bytes);
+		try {
+			peekedList = (List<MethodSensorData>) readSerializer.deserialize(input);
+		} catch (SerializationException e) {
+			log.error("Measurements could not be read from the spool, data will be lost.", e);
+			peekedList = new LinkedList<MethodSensorData>();
+		}
+		return peekedList;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void commit() {
+		if ((null != peekedSegment) && (count > 0) && (segments.getFirst() == peekedSegment) && (peekedSegment.readPosition == peekedPosition)) {
+			remove(peekedSegment);
+		}
+		peekedList = null; // NOPMD
+		peekedSegment = null; // NOPMD
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void init(Map<String, String> settings) {
+		if (settings.containsKey("directory")) {
+			baseDirectory = new File((String) settings.get("directory"));
+		}
+		if (settings.containsKey("segment-size")) {
+			segmentSize = Integer.parseInt((String) settings.get("segment-size"));
+			synchronized (output) {
+				output.setBuffer(new byte[Math.min(4096, segmentSize - RECORD_HEADER_SIZE)], segmentSize - RECORD_HEADER_SIZE);
+			}
+		}
+		if (settings.containsKey("max-size")) {
+			maxSize = Long.parseLong((String) settings.get("max-size"));
+		}
+		if (settings.containsKey("max-retries")) {
+			maxRetries = Integer.parseInt((String) settings.get("max-retries"));
+		}
+
+		writeSerializer = serializerProvider.createSerializer();
+		readSerializer = serializerProvider.createSerializer();
+
+		if (!baseDirectory.isDirectory() && !baseDirectory.mkdirs()) {
+			log.error("Spool directory " + baseDirectory.getAbsolutePath() + " could not be created.");
+		}
+
+		String agentPrefix = toFileName(getAgentName()) + '-';
+		// data from a previous run can not be sent, as the registered IDs are not valid anymore
+		deleteStaleDirectories(agentPrefix);
+		lockDirectory(agentPrefix + toFileName(ManagementFactory.getRuntimeMXBean().getName()));
+	}
+
+	/**
+	 * Returns the number of lists that were dropped because the maximum size was reached.
+	 * 
+	 * @return Number of dropped lists.
+	 */
+	public synchronized long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Returns the sub-directory of this agent holding the segment files.
+	 * 
+	 * @return Sub-directory of this agent.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the current size of all segment files in bytes.
+	 * 
+	 * @return Current size of all segment files in bytes.
+	 */
+	public synchronized long getCurrentSize() {
+		return currentSize;
+	}
+
+	/**
+	 * Returns the name of the agent, used as prefix of the sub-directory.
+	 * 
+	 * @return Agent name.
+	 */
+	private String getAgentName() {
+		String agentName = null;
+		if (null != configurationStorage) {
+			agentName = configurationStorage.getAgentName();
+		}
+		if ((null == agentName) || agentName.isEmpty()) {
+			return "inspectit";
+		}
+		return agentName;
+	}
+
+	/**
+	 * Creates and locks the sub-directory of this agent. If the directory is already locked, for
+	 * example by another buffer in the same JVM, a numbered directory is used. Segment files left
+	 * in the directory are deleted.
+	 * 
+	 * @param directoryName
+	 *            Name of the sub-directory.
+	 */
+	private void lockDirectory(String directoryName) {
+		for (int i = 0;; i++) {
+			directory = new File(baseDirectory, (0 == i) ? directoryName : directoryName + '-' + i);
+			if (!directory.isDirectory() && !directory.mkdirs()) {
+				log.error("Spool directory " + directory.getAbsolutePath() + " could not be created.");
+				return;
+			}
+			try {
+				directoryLock = tryLock(directory);
+			} catch (IOException e) {
+				log.warn("Spool directory " + directory.getAbsolutePath() + " could not be locked.", e);
+				return;
+			}
+			if (null != directoryLock) {
+				deleteSegmentFiles(directory);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Deletes the sub-directories of the earlier runs of this agent. A directory is only deleted
+	 * when its lock file can be locked, thus the JVM that wrote it is not running anymore.
+	 * 
+	 * @param agentPrefix
+	 *            Prefix of the sub-directories of this agent.
+	 */
+	private void deleteStaleDirectories(String agentPrefix) {
+		File[] agentDirectories = baseDirectory.listFiles();
+		if (null == agentDirectories) {
+			return;
+		}
+		for (File agentDirectory : agentDirectories) {
+			String name = agentDirectory.getName();
+			if (!agentDirectory.isDirectory() || !name.startsWith(agentPrefix) || !PROCESS_DIRECTORY_PATTERN.matcher(name.substring(agentPrefix.length())).matches()) {
+				continue;
+			}
+			try {
+				FileLock lock = tryLock(agentDirectory);
+				if (null == lock) {
+					continue;
+				}
+				deleteSegmentFiles(agentDirectory);
+				lock.release();
+				lock.channel().close();
+			} catch (IOException e) {
+				log.warn("Old spool directory " + agentDirectory.getAbsolutePath() + " could not be deleted.", e);
+				continue;
+			}
+			File lockFile = new File(agentDirectory, LOCK_FILE_NAME);
+			if (!lockFile.delete() || !agentDirectory.delete()) {
+				log.warn("Old spool directory " + agentDirectory.getAbsolutePath() + " could not be deleted.");
+			}
+		}
+	}
+
+	/**
+	 * Tries to lock the lock file of the directory.
+	 * 
+	 * @param lockDirectory
+	 *            Directory to lock.
+	 * @return Lock or <code>null</code> if the directory is locked by another process or by this
+	 *         JVM.
+	 * @throws IOException
+	 *             If lock file can not be opened.
+	 */
+	private static FileLock tryLock(File lockDirectory) throws IOException {
+		FileChannel channel = new RandomAccessFile(new File(lockDirectory, LOCK_FILE_NAME), "rw").getChannel();
+		try {
+			FileLock lock = channel.tryLock();
+			if (null == lock) {
+				channel.close();
+			}
+			return lock;
+		} catch (OverlappingFileLockException e) {
+			channel.close();
+			return null;
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Deletes the segment files in the directory.
+	 * 
+	 * @param segmentDirectory
+	 *            Directory of the segment files.
+	 */
+	private void deleteSegmentFiles(File segmentDirectory) {
+		File[] files = segmentDirectory.listFiles();
+		if (null != files) {
+			for (File file : files) {
+				if (file.getName().endsWith(SEGMENT_FILE_EXTENSION) && !file.delete()) {
+					log.warn("Old spool file " + file.getAbsolutePath() + " could not be deleted.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the characters that might not be allowed in file names.
+	 * 
+	 * @param name
+	 *            Name.
+	 * @return Name usable as file name.
+	 */
+	private static String toFileName(String name) {
+		return name.replaceAll("[^A-Za-z0-9._-]", "_");
+	}
+
+	/**
+	 * Appends one record to the last segment, creating a new segment if the record does not fit.
+	 * The record is never larger than the segment size, as the {@link #output} is limited to it.
+	 * Must be called while holding the lock of this object.
+	 * 
+	 * @param bytes
+	 *            Serialized list.
+	 * @param length
+	 *            Length of the serialized list.
+	 * @throws IOException
+	 *             If new segment can not be created.
+	 */
+	private void append(byte[] bytes, int length) throws IOException {
+		int recordSize = RECORD_HEADER_SIZE + length;
+		Segment segment = segments.isEmpty() ? null : segments.getLast();
+		if ((null == segment) || (segment.remaining() < recordSize)) {
+			segment = createSegment(segmentSize);
+		}
+
+		segment.write(bytes, length);
+		count++;
+	}
+
+	/**
+	 * Removes the oldest record, which is in the given first segment. Must be called while holding
+	 * the lock of this object.
+	 * 
+	 * @param segment
+	 *            First segment.
+	 */
+	private void remove(Segment segment) {
+		segment.skip();
+		count--;
+
+		if (segment.isFullyRead()) {
+			if (segments.size() > 1) {
+				segments.removeFirst();
+				deleteSegment(segment);
+			} else {
+				// the only segment is reused for writing
+				segment.reset();
+			}
+		}
+	}
+
+	/**
+	 * Creates new segment with the given capacity, dropping the oldest segments if the maximum size
+	 * would be exceeded. Must be called while holding the lock of this object.
+	 * 
+	 * @param capacity
+	 *            Capacity of the segment.
+	 * @return Created segment.
+	 * @throws IOException
+	 *             If segment file can not be created or mapped.
+	 */
+	private Segment createSegment(int capacity) throws IOException {
+		while (!segments.isEmpty() && (currentSize + capacity > maxSize)) {
+			Segment oldest = segments.removeFirst();
+			int dropped = oldest.unreadCount();
+			count -= dropped;
+			droppedCount += dropped;
+			deleteSegment(oldest);
+			log.info("Possible data loss due to the excessive data creation on the Agent! Spool size limit reached.");
+		}
+
+		File file = new File(directory, "segment-" + segmentCounter++ + SEGMENT_FILE_EXTENSION);
+		Segment segment = new Segment(file, capacity);
+		segments.addLast(segment);
+		currentSize += capacity;
+		return segment;
+	}
+
+	/**
+	 * Closes and deletes the segment. Must be called while holding the lock of this object.
+	 * 
+	 * @param segment
+	 *            Segment to delete.
+	 */
+	private void deleteSegment(Segment segment) {
+		currentSize -= segment.capacity;
+		try {
+			segment.close();
+		} catch (IOException e) {
+			log.warn("Spool file " + segment.file.getAbsolutePath() + " could not be closed.", e);
+		}
+		if (!segment.file.delete()) {
+			// the mapping might still be alive if it could not be released, file will be deleted
+			// latest on exit
+			segment.file.deleteOnExit();
+		}
+	}
+
+	/**
+	 * One memory-mapped segment file. Each record consists of the length of the serialized list
+	 * followed by the serialized bytes.
+	 */
+	private static final class Segment {
+
+		/**
+		 * File of the segment.
+		 */
+		private final File file;
+
+		/**
+		 * Random access file used to map the segment.
+		 */
+		private final RandomAccessFile randomAccessFile;
+
+		/**
+		 * Mapped segment.
+		 */
+		private final MappedByteBuffer buffer;
+
+		/**
+		 * Capacity of the segment.
+		 */
+		private final int capacity;
+
+		/**
+		 * Position of the next write.
+		 */
+		private int writePosition;
+
+		/**
+		 * Position of the next read.
+		 */
+		private int readPosition;
+
+		/**
+		 * Number of written records.
+		 */
+		private int writeCount;
+
+		/**
+		 * Number of read records.
+		 */
+		private int readCount;
+
+		/**
+		 * Creates and maps the segment file.
+		 * 
+		 * @param file
+		 *            File of the segment.
+		 * @param capacity
+		 *            Capacity of the segment.
+		 * @throws IOException
+		 *             If segment file can not be created or mapped.
+		 */
+		Segment(File file, int capacity) throws IOException {
+			this.file = file;
+			this.capacity = capacity;
+			this.randomAccessFile = new RandomAccessFile(file, "rw");
+			try {
+				randomAccessFile.setLength(capacity);
+				this.buffer = randomAccessFile.getChannel().map(MapMode.READ_WRITE, 0, capacity);
+			} catch (IOException e) {
+				randomAccessFile.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * @return Number of bytes still available for writing.
+		 */
+		int remaining() {
+			return capacity - writePosition;
+		}
+
+		/**
+		 * @return Number of records not read yet.
+		 */
+		int unreadCount() {
+			return writeCount - readCount;
+		}
+
+		/**
+		 * @return If all written records are read.
+		 */
+		boolean isFullyRead() {
+			return readCount == writeCount;
+		}
+
+		/**
+		 * Writes one record.
+		 * 
+		 * @param bytes
+		 *            Serialized list.
+		 * @param length
+		 *            Length of the serialized list.
+		 */
+		void write(byte[] bytes, int length) {
+			buffer.position(writePosition);
+			buffer.putInt(length);
+			buffer.put(bytes, 0, length);
+			writePosition = buffer.position();
+			writeCount++;
+		}
+
+		/**
+		 * Reads the record at the read position without moving the read position.
+		 * 
+		 * @return Serialized list.
+		 */
+		byte[] read() {
+			buffer.position(readPosition);
+			byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			return bytes;
+		}
+
+		/**
+		 * Moves the read position after the record at the read position.
+		 */
+		void skip() {
+			readPosition += RECORD_HEADER_SIZE + buffer.getInt(readPosition);
+			readCount++;
+		}
+
+		/**
+		 * Resets the segment so that it can be written from the beginning.
+		 */
+		void reset() {
+			writePosition = 0;
+			readPosition = 0;
+			writeCount = 0;
+			readCount = 0;
+		}
+
+		/**
+		 * Closes the segment file and releases the mapping. The segment must not be used
+		 * afterwards.
+		 * 
+		 * @throws IOException
+		 *             If file can not be closed.
+		 */
+		void close() throws IOException {
+			unmap();
+			FileChannel channel = randomAccessFile.getChannel();
+			channel.close();
+			randomAccessFile.close();
+		}
+
+		/**
+		 * Releases the mapping right away with the cleaner of the direct buffer, so that the
+		 * mapped memory and the file are freed without waiting for the garbage collection of the
+		 * buffer. If the JVM offers no cleaner the mapping is released when the buffer is garbage
+		 * collected.
+		 */
+		private void unmap() {
+			try {
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (null != cleaner) {
+					Method cleanMethod = cleaner.getClass().getMethod("clean");
+					cleanMethod.setAccessible(true);
+					cleanMethod.invoke(cleaner);
+				}
+			} catch (Exception e) { // NOPMD
+				// not supported by the JVM, mapping is released by the garbage collection
+			}
+		}
+	}
+
+}
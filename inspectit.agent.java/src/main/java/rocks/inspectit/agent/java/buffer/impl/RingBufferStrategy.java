@@ -0,0 +1,304 @@
+package rocks.inspectit.agent.java.buffer.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+
+import rocks.inspectit.agent.java.buffer.AbstractBufferStrategy;
+import rocks.inspectit.agent.java.buffer.IBlockingBufferStrategy;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Buffer strategy based on a bounded multi-producer/single-consumer ring buffer. Adding
+ * measurements and taking them out is lock-free. When the ring is full, the oldest measurements
+ * are overwritten and thus dropped, same as in the {@link SizeBufferStrategy}. The measurements are
+ * returned in the order they were added.
+ * <p>
+ * The sending thread waits for new measurements in {@link #awaitNext()}, using one of the wait
+ * strategies defined with the <i>wait</i> setting: <b>spin</b>, <b>yield</b> or <b>park</b>
+ * (default). Spinning and yielding are done for a limited number of rounds only, afterwards the
+ * waiting thread is parked until the next measurements are added. The size of the ring is defined
+ * with the <i>size</i> setting and is rounded up to the next power of two.
+ */
+public class RingBufferStrategy extends AbstractBufferStrategy<MethodSensorData> implements IBlockingBufferStrategy<MethodSensorData> {
+
+	/**
+	 * The logger of the class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * The default size if none is specified.
+	 */
+	private static final int DEFAULT_SIZE = 64;
+
+	/**
+	 * Number of spin or yield rounds before the waiting thread is parked.
+	 */
+	private static final int IDLE_ROUNDS = 1000;
+
+	/**
+	 * Maximum time to park the waiting thread in one round. The waiting thread is unparked when
+	 * measurements are added, this is only a safety net.
+	 */
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * Wait strategies of the consumer.
+	 */
+	public enum WaitStrategy {
+
+		/**
+		 * Busy spin before parking.
+		 */
+		SPIN,
+
+		/**
+		 * Yield before parking.
+		 */
+		YIELD,
+
+		/**
+		 * Park immediately.
+		 */
+		PARK;
+	}
+
+	/**
+	 * The slots of the ring.
+	 */
+	private AtomicReferenceArray<Slot> ring;
+
+	/**
+	 * Mask to get the slot index from the sequence.
+	 */
+	private int mask;
+
+	/**
+	 * Next sequence to be claimed by a producer.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Next sequence to be read by the consumer.
+	 */
+	private volatile long head;
+
+	/**
+	 * Thread currently waiting in {@link #awaitNext()}.
+	 */
+	private volatile Thread waitingThread;
+
+	/**
+	 * Used wait strategy.
+	 */
+	private WaitStrategy waitStrategy = WaitStrategy.PARK;
+
+	/**
+	 * Number of dropped measurement lists.
+	 */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/**
+	 * Creates the strategy with the default size.
+	 */
+	public RingBufferStrategy() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates the strategy with given size.
+	 * 
+	 * @param size
+	 *            Size of the ring, will be rounded up to the next power of two.
+	 */
+	public RingBufferStrategy(int size) {
+		createRing(size);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void addMeasurements(List<MethodSensorData> measurements) {
+		if (null == measurements) {
+			throw new IllegalArgumentException("Measurements cannot be null!");
+		}
+
+		long sequence = tail.getAndIncrement();
+		Slot dropped = ring.getAndSet((int) sequence & mask, new Slot(sequence, measurements));
+		if (null != dropped) {
+			// the consumer did not take the measurements that were in this slot, thus we drop the
+			// old ones, because we can not let the data pile up if the sending of the data is not
+			// fast enough
+			droppedCount.incrementAndGet();
+			log.info("Possible data loss due to the excessive data creation on the Agent!");
+		}
+
+		Thread waiting = waitingThread;
+		if (null != waiting) {
+			LockSupport.unpark(waiting);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean hasNext() {
+		return tail.get() > head;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Must only be called by the single consumer thread.
+	 */
+	public List<MethodSensorData> next() {
+		while (true) {
+			long current = head;
+			if (tail.get() <= current) {
+				throw new NoSuchElementException();
+			}
+
+			int index = (int) current & mask;
+			Slot slot = ring.get(index);
+			if (null == slot || slot.sequence < current) {
+				// sequence claimed by a producer but not yet published
+				Thread.yield();
+			} else if (slot.sequence == current) {
+				if (ring.compareAndSet(index, slot, null)) {
+					head = current + 1;
+					return slot.measurements;
+				}
+			} else {
+				// we were lapped by the producers, continue with the oldest still available
+				head = Math.max(current + 1, tail.get() - ring.length());
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void awaitNext() throws InterruptedException {
+		int rounds = 0;
+		while (!hasNext()) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+
+			if (rounds < IDLE_ROUNDS && WaitStrategy.PARK != waitStrategy) {
+				if (WaitStrategy.YIELD == waitStrategy) {
+					Thread.yield();
+				}
+				rounds++;
+			} else {
+				waitingThread = Thread.currentThread();
+				try {
+					// check again as producer might not have seen us waiting
+					if (!hasNext()) {
+						LockSupport.parkNanos(this, MAX_PARK_NANOS);
+					}
+				} finally {
+					waitingThread = null; // NOPMD
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void init(Map<String, String> settings) {
+		if (settings.containsKey("size")) {
+			createRing(Integer.parseInt((String) settings.get("size")));
+		}
+		if (settings.containsKey("wait")) {
+			String wait = (String) settings.get("wait");
+			if ("spin".equals(wait)) {
+				waitStrategy = WaitStrategy.SPIN;
+			} else if ("yield".equals(wait)) {
+				waitStrategy = WaitStrategy.YIELD;
+			} else if ("park".equals(wait)) {
+				waitStrategy = WaitStrategy.PARK;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of measurement lists that were dropped because the ring was full.
+	 * 
+	 * @return Number of dropped measurement lists.
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Returns the used wait strategy.
+	 * 
+	 * @return The used wait strategy.
+	 */
+	public WaitStrategy getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	/**
+	 * Creates the ring. Not thread safe, only to be called during initialization.
+	 * 
+	 * @param size
+	 *            Requested size.
+	 */
+	private void createRing(int size) {
+		int capacity = 1;
+		while (capacity < size) {
+			capacity <<= 1;
+		}
+		ring = new AtomicReferenceArray<Slot>(capacity);
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Slot content, measurements with the sequence they were added with.
+	 */
+	private static final class Slot {
+
+		/**
+		 * Sequence of the measurements.
+		 */
+		private final long sequence;
+
+		/**
+		 * The measurements.
+		 */
+		private final List<MethodSensorData> measurements;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param sequence
+		 *            Sequence of the measurements.
+		 * @param measurements
+		 *            The measurements.
+		 */
+		Slot(long sequence, List<MethodSensorData> measurements) {
+			this.sequence = sequence;
+			this.measurements = measurements;
+		}
+	}
+
+}
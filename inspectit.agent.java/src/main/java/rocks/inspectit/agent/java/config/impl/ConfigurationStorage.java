@@ -50,6 +50,12 @@ public class ConfigurationStorage implements IConfigurationStorage, Initializing
 	@Log
 	Logger log;
 
+	/**
+	 * Name of the class loader class whose sub-classes are instrumented for the class loader
+	 * delegation.
+	 */
+	public static final String CLASS_LOADER_CLASS_NAME = "java.lang.ClassLoader";
+
 	/**
 	 * The name of the property for the repository IP.
 	 */
@@ -816,13 +822,13 @@ public class ConfigurationStorage implements IConfigurationStorage, Initializing
 	private void createClassLoaderDelegationMatcher() {
 		UnregisteredSensorConfig superclassSensorConfig = new UnregisteredSensorConfig(classPoolAnalyzer, inheritanceAnalyzer);
 		superclassSensorConfig.setSuperclass(true);
-		superclassSensorConfig.setTargetClassName("java.lang.ClassLoader");
+		superclassSensorConfig.setTargetClassName(CLASS_LOADER_CLASS_NAME);
 		superclassSensorConfig.setTargetMethodName("loadClass");
 		superclassSensorConfig.setParameterTypes(Collections.singletonList("java.lang.String"));
 		superclassSensorConfig.setModifiers(Modifier.PUBLIC);
 
 		UnregisteredSensorConfig directSensorConfig = new UnregisteredSensorConfig(classPoolAnalyzer, inheritanceAnalyzer);
-		directSensorConfig.setTargetClassName("java.lang.ClassLoader");
+		directSensorConfig.setTargetClassName(CLASS_LOADER_CLASS_NAME);
 		directSensorConfig.setTargetMethodName("loadClass");
 		directSensorConfig.setParameterTypes(Collections.singletonList("java.lang.String"));
 		directSensorConfig.setModifiers(Modifier.PUBLIC);
@@ -9,6 +9,7 @@ import rocks.inspectit.agent.java.config.impl.MethodSensorTypeConfig;
 import rocks.inspectit.agent.java.config.impl.PlatformSensorTypeConfig;
 import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
 import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
 
 /**
  * The connection interface to implement different connection types, like RMI, Corba, etc.
@@ -43,7 +44,8 @@ public interface IConnection {
 	boolean isConnected();
 
 	/**
-	 * Sends a keep-alive signal to give a sign of life.
+	 * Sends a keep-alive signal to give a sign of life. The sending delay suggested by the server
+	 * in the answer is available via {@link #getSendingDelay()}.
 	 * 
 	 * @param platformId
 	 *            The unique id for this platform.
@@ -52,6 +54,14 @@ public interface IConnection {
 	 */
 	void sendKeepAlive(long platformId) throws ServerUnavailableException;
 
+	/**
+	 * Returns the delay in milliseconds the server suggested with the last keep-alive signal to
+	 * wait between sending two data lists.
+	 * 
+	 * @return Delay in milliseconds or <code>0</code> if data can be sent without delay.
+	 */
+	long getSendingDelay();
+
 	/**
 	 * Send the measurements to the server for further processing.
 	 * 
@@ -108,6 +118,24 @@ public interface IConnection {
 	 */
 	long registerMethod(long platformId, RegisteredSensorConfig sensorConfig) throws ServerUnavailableException, RegistrationException;
 
+	/**
+	 * Registers many methods with their method sensor type mappings at the server with one request
+	 * and returns the unique identifiers of the methods.
+	 * 
+	 * @param platformId
+	 *            The unique id for this platform.
+	 * @param methodRegistrations
+	 *            The methods to register with the registered IDs of the assigned method sensor
+	 *            types.
+	 * 
+	 * @return Returns the unique identifiers in the same order as the given methods.
+	 * @throws ServerUnavailableException
+	 *             If server to send the request to is unavailable.
+	 * @throws RegistrationException
+	 *             This exception is thrown when a problem with the registration process appears.
+	 */
+	long[] registerMethods(long platformId, List<MethodRegistrationData> methodRegistrations) throws ServerUnavailableException, RegistrationException;
+
 	/**
 	 * Registers the specified method sensor type at the CMR.
 	 * 
@@ -31,6 +31,7 @@ import rocks.inspectit.shared.all.cmr.service.IKeepAliveService;
 import rocks.inspectit.shared.all.cmr.service.IRegistrationService;
 import rocks.inspectit.shared.all.cmr.service.ServiceInterface;
 import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
 import rocks.inspectit.shared.all.kryonet.Client;
 import rocks.inspectit.shared.all.kryonet.ExtendedSerializationImpl;
 import rocks.inspectit.shared.all.kryonet.IExtendedSerialization;
@@ -85,6 +86,11 @@ public class KryoNetConnection implements IConnection {
 	 */
 	private List<String> networkInterfaces;
 
+	/**
+	 * Sending delay suggested by the server with the last keep-alive signal.
+	 */
+	private volatile long sendingDelay;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -109,7 +115,8 @@ public class KryoNetConnection implements IConnection {
 
 				int keepAliveServiceId = IKeepAliveService.class.getAnnotation(ServiceInterface.class).serviceId();
 				keepAliveService = ObjectSpace.getRemoteObject(client, keepAliveServiceId, IKeepAliveService.class);
-				((RemoteObject) keepAliveService).setNonBlocking(true);
+				((RemoteObject) keepAliveService).setNonBlocking(false);
+				((RemoteObject) keepAliveService).setTransmitReturnValue(true);
 				((RemoteObject) registrationService).setTransmitReturnValue(false);
 
 				log.info("KryoNet: Connection established!");
@@ -139,6 +146,7 @@ public class KryoNetConnection implements IConnection {
 		agentStorageService = null; // NOPMD
 		registrationService = null; // NOPMD
 		keepAliveService = null; // NOPMD
+		sendingDelay = 0;
 	}
 
 	/**
@@ -176,22 +184,29 @@ public class KryoNetConnection implements IConnection {
 			throw new ServerUnavailableException();
 		}
 
-		FailFastRemoteMethodCall<IKeepAliveService, Void> call = new FailFastRemoteMethodCall<IKeepAliveService, Void>(keepAliveService) {
+		FailFastRemoteMethodCall<IKeepAliveService, Long> call = new FailFastRemoteMethodCall<IKeepAliveService, Long>(keepAliveService) {
 			@Override
-			protected Void performRemoteCall(IKeepAliveService service) {
-				service.sendKeepAlive(platformId);
-				return null;
+			protected Long performRemoteCall(IKeepAliveService service) {
+				return Long.valueOf(service.sendKeepAlive(platformId));
 			}
 		};
 
 		try {
-			call.makeCall();
+			Long delay = call.makeCall();
+			sendingDelay = (null != delay) ? delay.longValue() : 0;
 		} catch (ExecutionException e) {
 			// there should be no execution exception
 			log.error("Exception thrown while trying to send keep-alive signal to the server.", e);
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getSendingDelay() {
+		return sendingDelay;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -309,6 +324,24 @@ public class KryoNetConnection implements IConnection {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public long[] registerMethods(long platformId, List<MethodRegistrationData> methodRegistrations) throws ServerUnavailableException, RegistrationException {
+		if (!isConnected()) {
+			throw new ServerUnavailableException();
+		}
+
+		RegisterMethodIdents register = new RegisterMethodIdents(registrationService, methodRegistrations, platformId);
+		try {
+			return register.makeCall();
+		} catch (ExecutionException executionException) {
+			// there should be no execution exception
+			log.error("Could not register the methods", executionException);
+			throw new RegistrationException("Could not register the methods", executionException);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -0,0 +1,49 @@
+package rocks.inspectit.agent.java.connection.impl;
+
+import java.util.List;
+
+import rocks.inspectit.agent.java.connection.AbstractRemoteMethodCall;
+import rocks.inspectit.shared.all.cmr.service.IRegistrationService;
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
+
+/**
+ * Class which encapsulates the request to the remote object
+ * {@link IRegistrationService#registerMethodIdents(long, List)}.
+ */
+public class RegisterMethodIdents extends AbstractRemoteMethodCall<IRegistrationService, long[]> {
+
+	/**
+	 * The methods to register.
+	 */
+	private final List<MethodRegistrationData> methodRegistrations;
+
+	/**
+	 * The ID of the current platform used for the registering process.
+	 */
+	private final long platformId;
+
+	/**
+	 * The only constructor for this class accepts three attributes. The first one is the remote
+	 * object, which will be used to send the data. The second one is the list of methods to
+	 * register. The last one is agent id.
+	 * 
+	 * @param registrationService
+	 *            The remote object.
+	 * @param methodRegistrations
+	 *            The methods to register.
+	 * @param platformId
+	 *            The ID of the platform.
+	 */
+	public RegisterMethodIdents(IRegistrationService registrationService, List<MethodRegistrationData> methodRegistrations, long platformId) {
+		super(registrationService);
+		this.methodRegistrations = methodRegistrations;
+		this.platformId = platformId;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	protected long[] performRemoteCall(IRegistrationService remoteObject) {
+		return remoteObject.registerMethodIdents(platformId, methodRegistrations);
+	}
+}
@@ -1,11 +1,11 @@
 package rocks.inspectit.agent.java.core.impl;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.DisposableBean;
@@ -15,7 +15,9 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
 
+import rocks.inspectit.agent.java.buffer.IBlockingBufferStrategy;
 import rocks.inspectit.agent.java.buffer.IBufferStrategy;
+import rocks.inspectit.agent.java.buffer.IPeekableBufferStrategy;
 import rocks.inspectit.agent.java.config.IConfigurationStorage;
 import rocks.inspectit.agent.java.config.impl.JmxSensorTypeConfig;
 import rocks.inspectit.agent.java.config.impl.PlatformSensorTypeConfig;
@@ -74,10 +76,15 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 */
 	private Map<String, DefaultData> sensorDataObjects = new ConcurrentHashMap<String, DefaultData>();
 
+	/**
+	 * Already used method sensor data objects which can be used directly on the CMR to persist.
+	 */
+	private MethodSensorMap<MethodSensorData> methodSensorDataObjects = new MethodSensorMap<MethodSensorData>();
+
 	/**
 	 * Contains object storage instances which will be initialized when sending.
 	 */
-	private Map<String, IObjectStorage> objectStorages = new ConcurrentHashMap<String, IObjectStorage>();
+	private MethodSensorMap<IObjectStorage> objectStorages = new MethodSensorMap<IObjectStorage>();
 
 	/**
 	 * Used as second hash table for the measurements when processed before sending.
@@ -85,9 +92,14 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	private Map<String, DefaultData> measurementsProcessing = new ConcurrentHashMap<String, DefaultData>();
 
 	/**
-	 * Used as second hash table for the object storages when processed before sending.
+	 * Used as second map for the method sensor data objects when processed before sending.
+	 */
+	private MethodSensorMap<MethodSensorData> methodSensorDataProcessing = new MethodSensorMap<MethodSensorData>();
+
+	/**
+	 * Used as second map for the object storages when processed before sending.
 	 */
-	private Map<String, IObjectStorage> objectStoragesProcessing = new ConcurrentHashMap<String, IObjectStorage>();
+	private MethodSensorMap<IObjectStorage> objectStoragesProcessing = new MethodSensorMap<IObjectStorage>();
 
 	/**
 	 * Temporary Map to switch the references of the active hash table with the processed one.
@@ -142,6 +154,18 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 */
 	private boolean sendingExceptionNotice = false;
 
+	/**
+	 * Defines if the core service is stopped. The data is then sent without the delay suggested
+	 * by the server.
+	 */
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Time of the last sending in nanoseconds, <code>0</code> if nothing was sent yet. Only used
+	 * by the sending thread.
+	 */
+	private long lastSendingTime;
+
 	/**
 	 * The scheduled executor service.
 	 */
@@ -196,6 +220,7 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public void start() {
+		shutdown = false;
 		for (ISendingStrategy strategy : sendingStrategies) {
 			strategy.start(this);
 		}
@@ -216,6 +241,7 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public void stop() {
+		shutdown = true;
 		for (ISendingStrategy strategy : sendingStrategies) {
 			strategy.stop();
 		}
@@ -267,15 +293,7 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public void addMethodSensorData(long sensorTypeIdent, long methodIdent, String prefix, MethodSensorData methodSensorData) {
-		StringBuffer buffer = new StringBuffer();
-		if (null != prefix) {
-			buffer.append(prefix);
-			buffer.append('.');
-		}
-		buffer.append(methodIdent);
-		buffer.append('.');
-		buffer.append(sensorTypeIdent);
-		sensorDataObjects.put(buffer.toString(), methodSensorData);
+		methodSensorDataObjects.put(sensorTypeIdent, methodIdent, prefix, methodSensorData);
 		notifyListListeners();
 	}
 
@@ -283,15 +301,7 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public MethodSensorData getMethodSensorData(long sensorTypeIdent, long methodIdent, String prefix) {
-		StringBuffer buffer = new StringBuffer();
-		if (null != prefix) {
-			buffer.append(prefix);
-			buffer.append('.');
-		}
-		buffer.append(methodIdent);
-		buffer.append('.');
-		buffer.append(sensorTypeIdent);
-		return (MethodSensorData) sensorDataObjects.get(buffer.toString());
+		return methodSensorDataObjects.get(sensorTypeIdent, methodIdent, prefix);
 	}
 
 	/**
@@ -345,15 +355,7 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public void addObjectStorage(long sensorTypeIdent, long methodIdent, String prefix, IObjectStorage objectStorage) {
-		StringBuffer buffer = new StringBuffer();
-		if (null != prefix) {
-			buffer.append(prefix);
-			buffer.append('.');
-		}
-		buffer.append(methodIdent);
-		buffer.append('.');
-		buffer.append(sensorTypeIdent);
-		objectStorages.put(buffer.toString(), objectStorage);
+		objectStorages.put(sensorTypeIdent, methodIdent, prefix, objectStorage);
 		notifyListListeners();
 	}
 
@@ -361,15 +363,7 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public IObjectStorage getObjectStorage(long sensorTypeIdent, long methodIdent, String prefix) {
-		StringBuffer buffer = new StringBuffer();
-		if (null != prefix) {
-			buffer.append(prefix);
-			buffer.append('.');
-		}
-		buffer.append(methodIdent);
-		buffer.append('.');
-		buffer.append(sensorTypeIdent);
-		return (IObjectStorage) objectStorages.get(buffer.toString());
+		return objectStorages.get(sensorTypeIdent, methodIdent, prefix);
 	}
 
 	/**
@@ -402,7 +396,8 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	private void notifyListListeners() {
 		if (!listListeners.isEmpty()) {
 			List temp = new ArrayList(sensorDataObjects.values());
-			temp.addAll(objectStorages.values());
+			methodSensorDataObjects.addValuesTo(temp);
+			objectStorages.addValuesTo(temp);
 			for (ListListener<?> listListener : listListeners) {
 				listListener.contentChanged(temp);
 			}
@@ -494,7 +489,7 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	@SuppressWarnings("unchecked")
 	private boolean prepareData() {
 		// check if measurements are added in the last interval, if not nothing needs to be sent.
-		if (sensorDataObjects.isEmpty() && objectStorages.isEmpty()) {
+		if (sensorDataObjects.isEmpty() && methodSensorDataObjects.isEmpty() && objectStorages.isEmpty()) {
 			return false;
 		}
 
@@ -503,18 +498,25 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 		sensorDataObjects = measurementsProcessing;
 		measurementsProcessing = (Map<String, DefaultData>) temp;
 
-		temp = objectStorages;
+		MethodSensorMap<MethodSensorData> tempMethodSensorData = methodSensorDataObjects;
+		methodSensorDataObjects = methodSensorDataProcessing;
+		methodSensorDataProcessing = tempMethodSensorData;
+
+		MethodSensorMap<IObjectStorage> tempObjectStorages = objectStorages;
 		objectStorages = objectStoragesProcessing;
-		objectStoragesProcessing = (Map<String, IObjectStorage>) temp;
+		objectStoragesProcessing = tempObjectStorages;
 
 		// copy the measurements values to a new list
 		List<DefaultData> tempList = new ArrayList<DefaultData>(measurementsProcessing.values());
 		measurementsProcessing.clear();
+		methodSensorDataProcessing.addValuesTo(tempList);
+		methodSensorDataProcessing.clear();
 
 		// iterate the object storages and get the value objects which will be stored in the same
 		// list.
-		for (Iterator<IObjectStorage> i = objectStoragesProcessing.values().iterator(); i.hasNext();) {
-			IObjectStorage objectStorage = i.next();
+		List<IObjectStorage> tempObjectStorageList = new ArrayList<IObjectStorage>(objectStoragesProcessing.size());
+		objectStoragesProcessing.addValuesTo(tempObjectStorageList);
+		for (IObjectStorage objectStorage : tempObjectStorageList) {
 			tempList.add(objectStorage.finalizeDataObject());
 		}
 		objectStoragesProcessing.clear();
@@ -532,8 +534,12 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * invocation by only calling this method within the single <code>SendingThread</code>. During
 	 * the JVM shutdown (in the shutdownhook), it is also ensured that this code is run
 	 * singlethreaded. </b>
+	 * <p>
+	 * Two sendings are at least the delay suggested by the server apart, measured from the end of
+	 * the last sending. The data added to the buffer strategy in the meantime is sent with the
+	 * next sending. Package-private for testing.
 	 */
-	private void send() {
+	void send() {
 		try {
 			while (bufferStrategy.hasNext()) {
 				// if we are not connected keep data in buffer strategy
@@ -541,8 +547,31 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 					return;
 				}
 
-				List<DefaultData> dataToSend = bufferStrategy.next();
-				connection.sendDataObjects(dataToSend);
+				// slow down if the server can not process the data fast enough
+				long sendingDelay = connection.getSendingDelay();
+				if ((sendingDelay > 0) && !shutdown && (0 != lastSendingTime)) {
+					long waitTime = sendingDelay - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSendingTime);
+					if (waitTime > 0) {
+						try {
+							Thread.sleep(waitTime);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+					}
+				}
+
+				// peeked data is removed only after it was sent, so that it is not lost if the
+				// sending fails
+				if (bufferStrategy instanceof IPeekableBufferStrategy) {
+					IPeekableBufferStrategy<DefaultData> peekableBufferStrategy = (IPeekableBufferStrategy<DefaultData>) bufferStrategy;
+					connection.sendDataObjects(peekableBufferStrategy.peek());
+					peekableBufferStrategy.commit();
+				} else {
+					List<DefaultData> dataToSend = bufferStrategy.next();
+					connection.sendDataObjects(dataToSend);
+				}
+				lastSendingTime = System.nanoTime();
 				sendingExceptionNotice = false;
 			}
 		} catch (ServerUnavailableException serverUnavailableException) {
@@ -603,7 +632,8 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 				// We got a request from one of the send strategies.
 
 				boolean newDataAvailable = prepareData();
-				if (newDataAvailable) {
+				if (newDataAvailable && !(bufferStrategy instanceof IBlockingBufferStrategy)) {
+					// blocking buffer strategies wake the sending thread themselves
 					// Notify sending thread
 					synchronized (sendingThread) {
 						sendingThread.notifyAll();
@@ -639,7 +669,14 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 		public void run() {
 			while (!isInterrupted()) {
 				// wait for activation if there is nothing to send
-				if (!bufferStrategy.hasNext()) {
+				if (bufferStrategy instanceof IBlockingBufferStrategy) {
+					try {
+						((IBlockingBufferStrategy<DefaultData>) bufferStrategy).awaitNext();
+					} catch (InterruptedException e) {
+						log.error("Sending thread interrupted and shuting down!");
+						break; // we were interrupted during waiting and close ourself down.
+					}
+				} else if (!bufferStrategy.hasNext()) {
 					synchronized (this) {
 						try {
 							if (!isInterrupted()) {
@@ -1,9 +1,13 @@
 package rocks.inspectit.agent.java.core.impl;
 
 import java.net.ConnectException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.DisposableBean;
@@ -25,6 +29,7 @@ import rocks.inspectit.agent.java.connection.RegistrationException;
 import rocks.inspectit.agent.java.connection.ServerUnavailableException;
 import rocks.inspectit.agent.java.core.IIdManager;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
 import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.all.version.VersionService;
 
@@ -286,32 +291,19 @@ public class IdManager implements IIdManager, InitializingBean, DisposableBean {
 	 * {@inheritDoc}
 	 */
 	public long registerMethod(RegisteredSensorConfig registeredSensorConfig) {
+		// methods are always registered by the registration thread in batches, so that the
+		// instrumentation does not have to wait for the server
 		long id;
 		synchronized (methodsToRegister) {
 			id = methodIdMap.size() + methodsToRegister.size();
+			registeredSensorConfig.setId(id);
+			methodsToRegister.addLast(registeredSensorConfig);
 		}
-		registeredSensorConfig.setId(id);
 
 		if (!serverErrorOccured) {
-			try {
-				if (!isPlatformRegistered()) {
-					getPlatformId();
-				}
-
-				registrationThread.registerMethod(registeredSensorConfig);
-			} catch (Throwable throwable) { // NOPMD
-				synchronized (methodsToRegister) {
-					methodsToRegister.addLast(registeredSensorConfig);
-
-					// start the thread to retry the registration
-					synchronized (registrationThread) {
-						registrationThread.notifyAll();
-					}
-				}
-			}
-		} else {
-			synchronized (methodsToRegister) {
-				methodsToRegister.addLast(registeredSensorConfig);
+			// start the thread to do the registration
+			synchronized (registrationThread) {
+				registrationThread.notifyAll();
 			}
 		}
 
@@ -359,29 +351,16 @@ public class IdManager implements IIdManager, InitializingBean, DisposableBean {
 	 * {@inheritDoc}
 	 */
 	public void addSensorTypeToMethod(long sensorTypeId, long methodId) {
-		// nearly same procedure as in #registerMethod(...) but without
-		// returning a value. This mapping only needs to be registered.
+		// same procedure as in #registerMethod(...), the mappings of the methods that are not yet
+		// registered are sent together with the methods.
+		synchronized (sensorTypeToMethodRegister) {
+			sensorTypeToMethodRegister.addLast(new SensorTypeToMethodMapping(sensorTypeId, methodId));
+		}
 
 		if (!serverErrorOccured) {
-			try {
-				if (!isPlatformRegistered()) {
-					getPlatformId();
-				}
-
-				registrationThread.addSensorTypeToMethod(Long.valueOf(sensorTypeId), Long.valueOf(methodId));
-			} catch (Throwable throwable) { // NOPMD
-				synchronized (sensorTypeToMethodRegister) {
-					sensorTypeToMethodRegister.addLast(new SensorTypeToMethodMapping(sensorTypeId, methodId));
-				}
-
-				// start the thread to retry the registration
-				synchronized (registrationThread) {
-					registrationThread.notifyAll();
-				}
-			}
-		} else {
-			synchronized (sensorTypeToMethodRegister) {
-				sensorTypeToMethodRegister.addLast(new SensorTypeToMethodMapping(sensorTypeId, methodId));
+			// start the thread to do the registration
+			synchronized (registrationThread) {
+				registrationThread.notifyAll();
 			}
 		}
 	}
@@ -548,6 +527,16 @@ public class IdManager implements IIdManager, InitializingBean, DisposableBean {
 		 */
 		private static final long REGISTRATION_WAIT_TIME = 10000L;
 
+		/**
+		 * The time to wait for more methods to be added before a batch of methods is registered.
+		 */
+		private static final long METHOD_BATCH_WAIT_TIME = 50L;
+
+		/**
+		 * The maximum number of methods registered with one request.
+		 */
+		private static final int METHOD_BATCH_SIZE = 1000;
+
 		/**
 		 * Creates a new instance of the <code>RegistrationThread</code> as a daemon thread.
 		 */
@@ -576,6 +565,12 @@ public class IdManager implements IIdManager, InitializingBean, DisposableBean {
 							wait();
 						}
 					}
+
+					if (!serverErrorOccured && !methodsToRegister.isEmpty()) {
+						// classes are mostly loaded in bursts, wait a bit to collect more methods
+						// in one batch
+						Thread.sleep(METHOD_BATCH_WAIT_TIME);
+					}
 				} catch (InterruptedException e) { // NOCHK
 					// nothing to do
 				}
@@ -599,9 +594,10 @@ public class IdManager implements IIdManager, InitializingBean, DisposableBean {
 					registerPlatform();
 				}
 
+				// sensor types first so that the mappings can be sent together with the methods
+				registerSensorTypes();
 				registerMethods();
 				registerJmxDefinitionDataIdents();
-				registerSensorTypes();
 				registerSensorTypeToMethodMapping();
 
 				// clear the flag
@@ -665,20 +661,41 @@ public class IdManager implements IIdManager, InitializingBean, DisposableBean {
 		 *             server.
 		 */
 		private void registerSensorTypeToMethodMapping() throws ServerUnavailableException, RegistrationException {
-			while (!sensorTypeToMethodRegister.isEmpty()) {
-				SensorTypeToMethodMapping mapping;
-				mapping = sensorTypeToMethodRegister.getFirst();
+			List<SensorTypeToMethodMapping> mappings;
+			synchronized (sensorTypeToMethodRegister) {
+				mappings = new ArrayList<SensorTypeToMethodMapping>(sensorTypeToMethodRegister);
+			}
 
+			for (SensorTypeToMethodMapping mapping : mappings) {
 				Long sensorTypeId = Long.valueOf(mapping.getSensorTypeId());
 				Long methodId = Long.valueOf(mapping.getMethodId());
 
+				// the method was queued after the methods were registered, the mapping stays queued
+				// and is sent together with the method
+				if (!methodIdMap.containsKey(methodId) && isMethodQueued(methodId.longValue())) {
+					continue;
+				}
+
 				this.addSensorTypeToMethod(sensorTypeId, methodId);
 				synchronized (sensorTypeToMethodRegister) {
-					sensorTypeToMethodRegister.removeFirst();
+					sensorTypeToMethodRegister.remove(mapping);
 				}
 			}
 		}
 
+		/**
+		 * Returns if the method with the given local id is waiting for its registration.
+		 *
+		 * @param methodId
+		 *            The local method id.
+		 * @return If the method is waiting for its registration.
+		 */
+		private boolean isMethodQueued(long methodId) {
+			synchronized (methodsToRegister) {
+				return (methodId >= methodIdMap.size()) && (methodId < (methodIdMap.size() + methodsToRegister.size()));
+			}
+		}
+
 		/**
 		 * Registers the mapping between the sensor type and a method.
 		 *
@@ -766,7 +783,8 @@ public class IdManager implements IIdManager, InitializingBean, DisposableBean {
 		}
 
 		/**
-		 * Registers all methods on the server.
+		 * Registers all methods on the server in batches. The mappings to the sensor types of the
+		 * methods in the batch are registered together with the methods.
 		 *
 		 * @throws ServerUnavailableException
 		 *             Thrown if a server error occurred.
@@ -776,34 +794,70 @@ public class IdManager implements IIdManager, InitializingBean, DisposableBean {
 		 */
 		private void registerMethods() throws ServerUnavailableException, RegistrationException {
 			while (!methodsToRegister.isEmpty()) {
-				RegisteredSensorConfig rsc;
-				rsc = methodsToRegister.getFirst();
-				this.registerMethod(rsc);
+				List<RegisteredSensorConfig> batch = new ArrayList<RegisteredSensorConfig>();
+				long firstLocalId;
 				synchronized (methodsToRegister) {
-					methodsToRegister.removeFirst();
+					// local IDs are given in the order the methods are added
+					firstLocalId = methodIdMap.size();
+					for (RegisteredSensorConfig rsc : methodsToRegister) {
+						batch.add(rsc);
+						if (batch.size() >= METHOD_BATCH_SIZE) {
+							break;
+						}
+					}
 				}
-			}
-		}
 
-		/**
-		 * Registers a method on the server and maps the local and global id.
-		 *
-		 * @param rsc
-		 *            The {@link RegisteredSensorConfig} to be registered at the server.
-		 * @throws ServerUnavailableException
-		 *             Thrown if a server error occurred.
-		 * @throws RegistrationException
-		 *             Thrown if something happened while trying to register the sensor types on the
-		 *             server.
-		 */
-		private void registerMethod(RegisteredSensorConfig rsc) throws ServerUnavailableException, RegistrationException {
-			long registeredId = connection.registerMethod(platformId, rsc);
-			synchronized (methodsToRegister) {
-				Long localId = Long.valueOf(methodIdMap.size());
-				methodIdMap.put(localId, Long.valueOf(registeredId));
+				// collect the mappings of the methods in the batch
+				Map<Long, List<Long>> sensorTypesPerMethod = new HashMap<Long, List<Long>>();
+				for (int i = 0; i < batch.size(); i++) {
+					sensorTypesPerMethod.put(Long.valueOf(firstLocalId + i), new ArrayList<Long>(1));
+				}
+				Set<SensorTypeToMethodMapping> includedMappings = new HashSet<SensorTypeToMethodMapping>();
+				synchronized (sensorTypeToMethodRegister) {
+					for (SensorTypeToMethodMapping mapping : sensorTypeToMethodRegister) {
+						List<Long> sensorTypeIds = sensorTypesPerMethod.get(Long.valueOf(mapping.getMethodId()));
+						Long serverSensorTypeId = sensorTypeIdMap.get(Long.valueOf(mapping.getSensorTypeId()));
+						if ((null != sensorTypeIds) && (null != serverSensorTypeId)) {
+							sensorTypeIds.add(serverSensorTypeId);
+							includedMappings.add(mapping);
+						}
+					}
+				}
 
-				if (log.isDebugEnabled()) {
-					log.debug("Method " + rsc.toString() + " registered. ID (local/global): " + localId + "/" + registeredId);
+				List<MethodRegistrationData> methodRegistrations = new ArrayList<MethodRegistrationData>(batch.size());
+				for (int i = 0; i < batch.size(); i++) {
+					RegisteredSensorConfig rsc = batch.get(i);
+					List<Long> sensorTypeIds = sensorTypesPerMethod.get(Long.valueOf(firstLocalId + i));
+					long[] serverSensorTypeIds = new long[sensorTypeIds.size()];
+					for (int j = 0; j < serverSensorTypeIds.length; j++) {
+						serverSensorTypeIds[j] = sensorTypeIds.get(j).longValue();
+					}
+					methodRegistrations.add(new MethodRegistrationData(rsc.getTargetPackageName(), rsc.getTargetClassName(), rsc.getTargetMethodName(), rsc.getParameterTypes(), rsc.getReturnType(),
+							rsc.getModifiers(), serverSensorTypeIds));
+				}
+
+				long[] registeredIds = connection.registerMethods(platformId, methodRegistrations);
+				if (registeredIds.length != batch.size()) {
+					throw new RegistrationException("Server returned " + registeredIds.length + " IDs for " + batch.size() + " methods!");
+				}
+
+				synchronized (methodsToRegister) {
+					for (int i = 0; i < registeredIds.length; i++) {
+						RegisteredSensorConfig rsc = batch.get(i);
+						Long localId = Long.valueOf(firstLocalId + i);
+						methodIdMap.put(localId, Long.valueOf(registeredIds[i]));
+						methodsToRegister.removeFirst();
+
+						if (log.isDebugEnabled()) {
+							log.debug("Method " + rsc.toString() + " registered. ID (local/global): " + localId + "/" + registeredIds[i]);
+						}
+					}
+				}
+
+				if (!includedMappings.isEmpty()) {
+					synchronized (sensorTypeToMethodRegister) {
+						sensorTypeToMethodRegister.removeAll(includedMappings);
+					}
 				}
 			}
 		}
@@ -0,0 +1,258 @@
+package rocks.inspectit.agent.java.core.impl;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Map that holds the values of the method sensors keyed by the primitive sensor type id and method
+ * id pair and an optional prefix. It is used by the {@link CoreService} instead of maps with string
+ * keys which had to be built on every access.
+ * <p>
+ * The map is an open addressing table with linear probing. Reading is lock-free and does not
+ * allocate any objects, nor does it compute the hash of a string when no prefix is given. Writes
+ * are synchronized; as a value for the same key is added only once per sending interval they are
+ * rare compared to the reads. Entries are never removed separately, only the complete map can be
+ * cleared.
+ * 
+ * @param <V>
+ *            Type of the values.
+ */
+public class MethodSensorMap<V> {
+
+	/**
+	 * Initial capacity of the table, must be a power of two.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * The table. Replaced completely on resize and clear.
+	 */
+	private volatile AtomicReferenceArray<Entry<V>> table;
+
+	/**
+	 * Number of entries in the table.
+	 */
+	private volatile int size;
+
+	/**
+	 * Default constructor.
+	 */
+	public MethodSensorMap() {
+		table = new AtomicReferenceArray<Entry<V>>(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Returns the value for the given key or <code>null</code> if there is no value.
+	 * 
+	 * @param sensorTypeIdent
+	 *            The sensor type id.
+	 * @param methodIdent
+	 *            The method id.
+	 * @param prefix
+	 *            Additional prefix, can be <code>null</code>.
+	 * @return The value or <code>null</code>.
+	 */
+	public V get(long sensorTypeIdent, long methodIdent, String prefix) {
+		AtomicReferenceArray<Entry<V>> tab = table;
+		int mask = tab.length() - 1;
+		int index = hash(sensorTypeIdent, methodIdent, prefix) & mask;
+		Entry<V> entry = tab.get(index);
+		while (null != entry) {
+			if (entry.matches(sensorTypeIdent, methodIdent, prefix)) {
+				return entry.value;
+			}
+			index = (index + 1) & mask;
+			entry = tab.get(index);
+		}
+		return null;
+	}
+
+	/**
+	 * Puts the value for the given key, replacing any value already existing.
+	 * 
+	 * @param sensorTypeIdent
+	 *            The sensor type id.
+	 * @param methodIdent
+	 *            The method id.
+	 * @param prefix
+	 *            Additional prefix, can be <code>null</code>.
+	 * @param value
+	 *            Value to put.
+	 */
+	public synchronized void put(long sensorTypeIdent, long methodIdent, String prefix, V value) {
+		if ((size + 1) << 1 > table.length()) {
+			resize();
+		}
+
+		AtomicReferenceArray<Entry<V>> tab = table;
+		int mask = tab.length() - 1;
+		int index = hash(sensorTypeIdent, methodIdent, prefix) & mask;
+		Entry<V> entry = tab.get(index);
+		while (null != entry) {
+			if (entry.matches(sensorTypeIdent, methodIdent, prefix)) {
+				entry.value = value;
+				return;
+			}
+			index = (index + 1) & mask;
+			entry = tab.get(index);
+		}
+
+		tab.set(index, new Entry<V>(sensorTypeIdent, methodIdent, prefix, value));
+		size++;
+	}
+
+	/**
+	 * Returns if the map is empty.
+	 * 
+	 * @return Returns if the map is empty.
+	 */
+	public boolean isEmpty() {
+		return 0 == size;
+	}
+
+	/**
+	 * Returns the number of entries in the map.
+	 * 
+	 * @return Returns the number of entries in the map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds all values of this map to the given collection.
+	 * 
+	 * @param collection
+	 *            Collection to add values to.
+	 */
+	public void addValuesTo(Collection<? super V> collection) {
+		AtomicReferenceArray<Entry<V>> tab = table;
+		for (int i = 0; i < tab.length(); i++) {
+			Entry<V> entry = tab.get(i);
+			if (null != entry) {
+				collection.add(entry.value);
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries. The capacity of the map is kept.
+	 */
+	public synchronized void clear() {
+		table = new AtomicReferenceArray<Entry<V>>(table.length());
+		size = 0;
+	}
+
+	/**
+	 * Doubles the table size.
+	 */
+	private void resize() {
+		AtomicReferenceArray<Entry<V>> oldTable = table;
+		AtomicReferenceArray<Entry<V>> newTable = new AtomicReferenceArray<Entry<V>>(oldTable.length() << 1);
+		int mask = newTable.length() - 1;
+		for (int i = 0; i < oldTable.length(); i++) {
+			Entry<V> entry = oldTable.get(i);
+			if (null != entry) {
+				int index = hash(entry.sensorTypeIdent, entry.methodIdent, entry.prefix) & mask;
+				while (null != newTable.get(index)) {
+					index = (index + 1) & mask;
+				}
+				newTable.set(index, entry);
+			}
+		}
+		table = newTable;
+	}
+
+	/**
+	 * Computes the hash for the key.
+	 * 
+	 * @param sensorTypeIdent
+	 *            The sensor type id.
+	 * @param methodIdent
+	 *            The method id.
+	 * @param prefix
+	 *            Additional prefix, can be <code>null</code>.
+	 * @return Hash.
+	 */
+	private static int hash(long sensorTypeIdent, long methodIdent, String prefix) {
+		long h = methodIdent * 0x9E3779B97F4A7C15L + sensorTypeIdent;
+		h ^= h >>> 29;
+		h *= 0xBF58476D1CE4E5B9L;
+		h ^= h >>> 32;
+		int hash = (int) h;
+		if (null != prefix) {
+			hash = 31 * hash + prefix.hashCode();
+		}
+		return hash;
+	}
+
+	/**
+	 * Entry in the table. Only the value is mutable.
+	 * 
+	 * @param <V>
+	 *            Type of the value.
+	 */
+	private static final class Entry<V> {
+
+		/**
+		 * The sensor type id.
+		 */
+		private final long sensorTypeIdent;
+
+		/**
+		 * The method id.
+		 */
+		private final long methodIdent;
+
+		/**
+		 * Additional prefix, can be <code>null</code>.
+		 */
+		private final String prefix;
+
+		/**
+		 * The value.
+		 */
+		private volatile V value;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param sensorTypeIdent
+		 *            The sensor type id.
+		 * @param methodIdent
+		 *            The method id.
+		 * @param prefix
+		 *            Additional prefix, can be <code>null</code>.
+		 * @param value
+		 *            The value.
+		 */
+		Entry(long sensorTypeIdent, long methodIdent, String prefix, V value) {
+			this.sensorTypeIdent = sensorTypeIdent;
+			this.methodIdent = methodIdent;
+			this.prefix = prefix;
+			this.value = value;
+		}
+
+		/**
+		 * Returns if this entry has the given key.
+		 * 
+		 * @param sensorTypeIdent
+		 *            The sensor type id.
+		 * @param methodIdent
+		 *            The method id.
+		 * @param prefix
+		 *            Additional prefix, can be <code>null</code>.
+		 * @return <code>true</code> if the key matches.
+		 */
+		boolean matches(long sensorTypeIdent, long methodIdent, String prefix) {
+			if (this.sensorTypeIdent != sensorTypeIdent || this.methodIdent != methodIdent) {
+				return false;
+			}
+			if (null == this.prefix) {
+				return null == prefix;
+			}
+			return this.prefix.equals(prefix);
+		}
+	}
+
+}
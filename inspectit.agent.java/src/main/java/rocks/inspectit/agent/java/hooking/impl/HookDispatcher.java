@@ -1,6 +1,5 @@
 package rocks.inspectit.agent.java.hooking.impl;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -29,6 +28,11 @@ import rocks.inspectit.shared.all.spring.logger.Log;
 @Component
 public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 
+	/**
+	 * Initial size of the hook tables.
+	 */
+	private static final int INITIAL_TABLE_SIZE = 1024;
+
 	/**
 	 * The logger of this class.
 	 */
@@ -41,14 +45,17 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	private final ICoreService coreService;
 
 	/**
-	 * Contains all method hooks.
+	 * Contains all method hooks, indexed by the method id. The ids are assigned densely by the id
+	 * manager, thus the id can be used as the index. The array is only replaced when it has to
+	 * grow and is always written again after a slot was set, so that the dispatching threads see
+	 * the new mapping.
 	 */
-	private Map<Long, RegisteredSensorConfig> methodHooks = new HashMap<Long, RegisteredSensorConfig>();
+	private volatile HookTableEntry[] methodHooks = new HookTableEntry[INITIAL_TABLE_SIZE];
 
 	/**
-	 * Contains all constructor hooks.
+	 * Contains all constructor hooks, indexed by the constructor id.
 	 */
-	private Map<Long, RegisteredSensorConfig> constructorHooks = new HashMap<Long, RegisteredSensorConfig>();
+	private volatile HookTableEntry[] constructorHooks = new HookTableEntry[INITIAL_TABLE_SIZE];
 
 	/**
 	 * Stores the current Status of the invocation sequence tracer in a {@link ThreadLocal} object.
@@ -81,15 +88,61 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void addMethodMapping(long id, RegisteredSensorConfig rsc) {
-		methodHooks.put(Long.valueOf(id), rsc);
+	public synchronized void addMethodMapping(long id, RegisteredSensorConfig rsc) {
+		methodHooks = put(methodHooks, id, rsc);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public void addConstructorMapping(long id, RegisteredSensorConfig rsc) {
-		constructorHooks.put(Long.valueOf(id), rsc);
+	public synchronized void addConstructorMapping(long id, RegisteredSensorConfig rsc) {
+		constructorHooks = put(constructorHooks, id, rsc);
+	}
+
+	/**
+	 * Puts the hooks of the {@link RegisteredSensorConfig} to the table. If the id does not fit
+	 * in the table, a copy with enough space is created.
+	 * 
+	 * @param table
+	 *            The current table.
+	 * @param id
+	 *            The method or constructor id.
+	 * @param rsc
+	 *            The registered sensor configuration.
+	 * @return The table containing the new entry.
+	 */
+	private static HookTableEntry[] put(HookTableEntry[] table, long id, RegisteredSensorConfig rsc) {
+		if (id < 0 || id >= Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The id " + id + " can not be used as table index.");
+		}
+
+		HookTableEntry[] result = table;
+		if (id >= table.length) {
+			int length = table.length;
+			while (id >= length) {
+				length = (int) Math.min(Integer.MAX_VALUE - 1L, 2L * length);
+			}
+			result = new HookTableEntry[length];
+			System.arraycopy(table, 0, result, 0, table.length);
+		}
+		result[(int) id] = new HookTableEntry(rsc);
+		return result;
+	}
+
+	/**
+	 * Returns the entry of the table for the id.
+	 * 
+	 * @param table
+	 *            The table.
+	 * @param id
+	 *            The method or constructor id.
+	 * @return The entry or <code>null</code> if no mapping exists.
+	 */
+	private static HookTableEntry get(HookTableEntry[] table, long id) {
+		if (id < 0 || id >= table.length) {
+			return null;
+		}
+		return table[(int) id];
 	}
 
 	/**
@@ -101,7 +154,8 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 				executionMarker.active();
 
 				try {
-					RegisteredSensorConfig rsc = (RegisteredSensorConfig) methodHooks.get(Long.valueOf(id));
+					HookTableEntry entry = get(methodHooks, id);
+					RegisteredSensorConfig rsc = entry.rsc;
 
 					if (rsc.startsInvocationSequence()) {
 						// The sensor configuration contains an invocation sequence
@@ -126,9 +180,9 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 					}
 
 					// Now iterate over all registered sensor types and execute them
-					for (Map.Entry<Long, IHook> entry : rsc.getReverseMethodHooks().entrySet()) {
-						IMethodHook methodHook = (IMethodHook) entry.getValue();
-						methodHook.beforeBody(id, entry.getKey().longValue(), object, parameters, rsc);
+					for (int i = 0; i < entry.reverseHooks.length; i++) {
+						IMethodHook methodHook = (IMethodHook) entry.reverseHooks[i];
+						methodHook.beforeBody(id, entry.reverseSensorTypeIds[i], object, parameters, rsc);
 					}
 				} catch (Throwable throwable) { // NOPMD
 					log.error("An error happened in the Hook Dispatcher! (before body)", throwable);
@@ -148,10 +202,11 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 				executionMarker.active();
 
 				try {
-					RegisteredSensorConfig rsc = (RegisteredSensorConfig) methodHooks.get(Long.valueOf(id));
-					for (Map.Entry<Long, IHook> entry : rsc.getMethodHooks().entrySet()) {
-						IMethodHook methodHook = (IMethodHook) entry.getValue();
-						methodHook.firstAfterBody(id, entry.getKey().longValue(), object, parameters, returnValue, rsc);
+					HookTableEntry entry = get(methodHooks, id);
+					RegisteredSensorConfig rsc = entry.rsc;
+					for (int i = 0; i < entry.hooks.length; i++) {
+						IMethodHook methodHook = (IMethodHook) entry.hooks[i];
+						methodHook.firstAfterBody(id, entry.sensorTypeIds[i], object, parameters, returnValue, rsc);
 					}
 				} catch (Throwable throwable) { // NOPMD
 					log.error("An error happened in the Hook Dispatcher! (after body)", throwable);
@@ -171,7 +226,8 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 				executionMarker.active();
 
 				try {
-					RegisteredSensorConfig rsc = (RegisteredSensorConfig) methodHooks.get(Long.valueOf(id));
+					HookTableEntry entry = get(methodHooks, id);
+					RegisteredSensorConfig rsc = entry.rsc;
 
 					if (null != invocationSequenceHolder.get()) {
 						// Need to replace the core service with the one from the invocation
@@ -179,19 +235,19 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 						// record.
 						ICoreService invocCoreService = (ICoreService) invocationSequenceHolder.get();
 
-						for (Map.Entry<Long, IHook> entry : rsc.getMethodHooks().entrySet()) {
-							IMethodHook methodHook = (IMethodHook) entry.getValue();
+						for (int i = 0; i < entry.hooks.length; i++) {
+							IMethodHook methodHook = (IMethodHook) entry.hooks[i];
 							// the invocation sequence sensor needs the original core service!
 							if (invocCoreService == methodHook) { // NOPMD
-								methodHook.secondAfterBody(coreService, id, entry.getKey().longValue(), object, parameters, returnValue, rsc);
+								methodHook.secondAfterBody(coreService, id, entry.sensorTypeIds[i], object, parameters, returnValue, rsc);
 							} else {
-								methodHook.secondAfterBody(invocCoreService, id, entry.getKey().longValue(), object, parameters, returnValue, rsc);
+								methodHook.secondAfterBody(invocCoreService, id, entry.sensorTypeIds[i], object, parameters, returnValue, rsc);
 							}
 						}
 					} else {
-						for (Map.Entry<Long, IHook> entry : rsc.getMethodHooks().entrySet()) {
-							IMethodHook methodHook = (IMethodHook) entry.getValue();
-							methodHook.secondAfterBody(coreService, id, entry.getKey().longValue(), object, parameters, returnValue, rsc);
+						for (int i = 0; i < entry.hooks.length; i++) {
+							IMethodHook methodHook = (IMethodHook) entry.hooks[i];
+							methodHook.secondAfterBody(coreService, id, entry.sensorTypeIds[i], object, parameters, returnValue, rsc);
 						}
 					}
 
@@ -228,7 +284,7 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 				executionMarker.active();
 
 				// rsc contains the settings for the actual method where the exception was thrown.
-				RegisteredSensorConfig rsc = (RegisteredSensorConfig) methodHooks.get(Long.valueOf(id));
+				RegisteredSensorConfig rsc = get(methodHooks, id).rsc;
 				long sensorTypeId = rsc.getExceptionSensorTypeConfig().getId();
 
 				ICoreService invocCoreService = null;
@@ -260,7 +316,7 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 				executionMarker.active();
 
 				// rsc contains the settings of the actual method where the exception is catched.
-				RegisteredSensorConfig rsc = (RegisteredSensorConfig) methodHooks.get(Long.valueOf(id));
+				RegisteredSensorConfig rsc = get(methodHooks, id).rsc;
 				long sensorTypeId = rsc.getExceptionSensorTypeConfig().getId();
 
 				ICoreService invocCoreService = null;
@@ -293,7 +349,7 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 
 				// rsc contains the settings for the actual constructor where the exception was
 				// thrown.
-				RegisteredSensorConfig rsc = (RegisteredSensorConfig) constructorHooks.get(Long.valueOf(id));
+				RegisteredSensorConfig rsc = get(constructorHooks, id).rsc;
 				long sensorTypeId = rsc.getExceptionSensorTypeConfig().getId();
 
 				ICoreService invocCoreService = null;
@@ -326,7 +382,7 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 
 				// rsc contains the settings of the actual constructor where the exception is
 				// catched.
-				RegisteredSensorConfig rsc = (RegisteredSensorConfig) constructorHooks.get(Long.valueOf(id));
+				RegisteredSensorConfig rsc = get(constructorHooks, id).rsc;
 				long sensorTypeId = rsc.getExceptionSensorTypeConfig().getId();
 
 				ICoreService invocCoreService = null;
@@ -358,7 +414,8 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 				executionMarker.active();
 
 				try {
-					RegisteredSensorConfig rsc = (RegisteredSensorConfig) constructorHooks.get(Long.valueOf(id));
+					HookTableEntry entry = get(constructorHooks, id);
+					RegisteredSensorConfig rsc = entry.rsc;
 
 					if (rsc.startsInvocationSequence()) {
 						// The sensor configuration contains an invocation sequence sensor. We have
@@ -381,9 +438,9 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 					}
 
 					// Now iterate over all registered sensor types and execute them
-					for (Map.Entry<Long, IHook> entry : rsc.getReverseMethodHooks().entrySet()) {
-						IConstructorHook constructorHook = (IConstructorHook) entry.getValue();
-						constructorHook.beforeConstructor(id, entry.getKey().longValue(), parameters, rsc);
+					for (int i = 0; i < entry.reverseHooks.length; i++) {
+						IConstructorHook constructorHook = (IConstructorHook) entry.reverseHooks[i];
+						constructorHook.beforeConstructor(id, entry.reverseSensorTypeIds[i], parameters, rsc);
 					}
 				} catch (Throwable throwable) { // NOPMD
 					log.error("An error happened in the Hook Dispatcher! (before constructor)", throwable);
@@ -403,7 +460,8 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 				executionMarker.active();
 
 				try {
-					RegisteredSensorConfig rsc = (RegisteredSensorConfig) constructorHooks.get(Long.valueOf(id));
+					HookTableEntry entry = get(constructorHooks, id);
+					RegisteredSensorConfig rsc = entry.rsc;
 
 					if (null != invocationSequenceHolder.get()) {
 						// Need to replace the core service with the one from the invocation
@@ -411,20 +469,20 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 						// record.
 						ICoreService invocCoreService = (ICoreService) invocationSequenceHolder.get();
 
-						for (Map.Entry<Long, IHook> entry : rsc.getMethodHooks().entrySet()) {
-							IConstructorHook constructorHook = (IConstructorHook) entry.getValue();
+						for (int i = 0; i < entry.hooks.length; i++) {
+							IConstructorHook constructorHook = (IConstructorHook) entry.hooks[i];
 							// the invocation sequence sensor and the exception sensor need the
 							// original core service!
 							if (invocCoreService == constructorHook) { // NOPMD
-								constructorHook.afterConstructor(coreService, id, entry.getKey().longValue(), object, parameters, rsc);
+								constructorHook.afterConstructor(coreService, id, entry.sensorTypeIds[i], object, parameters, rsc);
 							} else {
-								constructorHook.afterConstructor(invocCoreService, id, entry.getKey().longValue(), object, parameters, rsc);
+								constructorHook.afterConstructor(invocCoreService, id, entry.sensorTypeIds[i], object, parameters, rsc);
 							}
 						}
 					} else {
-						for (Map.Entry<Long, IHook> entry : rsc.getMethodHooks().entrySet()) {
-							IConstructorHook constructorHook = (IConstructorHook) entry.getValue();
-							constructorHook.afterConstructor(coreService, id, entry.getKey().longValue(), object, parameters, rsc);
+						for (int i = 0; i < entry.hooks.length; i++) {
+							IConstructorHook constructorHook = (IConstructorHook) entry.hooks[i];
+							constructorHook.afterConstructor(coreService, id, entry.sensorTypeIds[i], object, parameters, rsc);
 						}
 					}
 
@@ -452,6 +510,67 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 		}
 	}
 
+	/**
+	 * Entry of the hook tables. Holds the hooks of one {@link RegisteredSensorConfig} as flat
+	 * arrays, so that the dispatching does not need to iterate over the hook maps.
+	 */
+	private static final class HookTableEntry {
+
+		/**
+		 * The registered sensor configuration.
+		 */
+		private final RegisteredSensorConfig rsc;
+
+		/**
+		 * The hooks in the order of {@link RegisteredSensorConfig#getMethodHooks()}.
+		 */
+		private final IHook[] hooks;
+
+		/**
+		 * The sensor type ids of the {@link #hooks}.
+		 */
+		private final long[] sensorTypeIds;
+
+		/**
+		 * The hooks in the order of {@link RegisteredSensorConfig#getReverseMethodHooks()}.
+		 */
+		private final IHook[] reverseHooks;
+
+		/**
+		 * The sensor type ids of the {@link #reverseHooks}.
+		 */
+		private final long[] reverseSensorTypeIds;
+
+		/**
+		 * Creates the entry from the hooks of the {@link RegisteredSensorConfig}.
+		 * 
+		 * @param rsc
+		 *            The registered sensor configuration.
+		 */
+		HookTableEntry(RegisteredSensorConfig rsc) {
+			this.rsc = rsc;
+
+			Map<Long, IHook> methodHooks = rsc.getMethodHooks();
+			hooks = new IHook[methodHooks.size()];
+			sensorTypeIds = new long[methodHooks.size()];
+			int i = 0;
+			for (Map.Entry<Long, IHook> entry : methodHooks.entrySet()) {
+				sensorTypeIds[i] = entry.getKey().longValue();
+				hooks[i++] = entry.getValue();
+			}
+
+			Map<Long, IHook> reverseMethodHooks = rsc.getReverseMethodHooks();
+			reverseHooks = new IHook[reverseMethodHooks.size()];
+			reverseSensorTypeIds = new long[reverseMethodHooks.size()];
+			i = 0;
+			for (Map.Entry<Long, IHook> entry : reverseMethodHooks.entrySet()) {
+				reverseSensorTypeIds[i] = entry.getKey().longValue();
+				reverseHooks[i++] = entry.getValue();
+			}
+		}
+
+	}
+
 	/**
 	 * Private inner class used to track the count of the started invocation sequences in one
 	 * thread. Thus it extends {@link ThreadLocal} to provide a unique number for every Thread.
@@ -16,16 +16,16 @@ import rocks.inspectit.agent.java.core.impl.CoreService;
 import rocks.inspectit.agent.java.hooking.IConstructorHook;
 import rocks.inspectit.agent.java.hooking.IMethodHook;
 import rocks.inspectit.agent.java.util.StringConstraint;
-import rocks.inspectit.agent.java.util.ThreadLocalStack;
+import rocks.inspectit.agent.java.util.ThreadLocalDoubleStack;
 import rocks.inspectit.agent.java.util.Timer;
 import rocks.inspectit.shared.all.communication.data.ParameterContentData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
 
 /**
- * The hook implementation for the average timer sensor. It uses the {@link ThreadLocalStack} class
- * to save the time when the method was called. After the complete original method was executed, it
- * computes the how long the method took to finish. Afterwards, the measurement is added to the
- * {@link CoreService}.
+ * The hook implementation for the average timer sensor. It uses the {@link ThreadLocalDoubleStack}
+ * class to save the time when the method was called. After the complete original method was
+ * executed, it computes the how long the method took to finish. Afterwards, the measurement is
+ * added to the {@link CoreService}.
  * 
  * @author Patrice Bouillet
  * 
@@ -40,7 +40,7 @@ public class AverageTimerHook implements IMethodHook, IConstructorHook {
 	/**
 	 * The stack containing the start time values.
 	 */
-	private ThreadLocalStack<Double> timeStack = new ThreadLocalStack<Double>();
+	private ThreadLocalDoubleStack timeStack = new ThreadLocalDoubleStack();
 
 	/**
 	 * The timer used for accurate measuring.
@@ -85,22 +85,22 @@ public class AverageTimerHook implements IMethodHook, IConstructorHook {
 	 * {@inheritDoc}
 	 */
 	public void beforeBody(long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		timeStack.push(timer.getCurrentTime());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void firstAfterBody(long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		timeStack.push(timer.getCurrentTime());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void secondAfterBody(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		double endTime = timeStack.pop().doubleValue();
-		double startTime = timeStack.pop().doubleValue();
+		double endTime = timeStack.pop();
+		double startTime = timeStack.pop();
 		double duration = endTime - startTime;
 
 		List<ParameterContentData> parameterContentData = null;
@@ -152,14 +152,14 @@ public class AverageTimerHook implements IMethodHook, IConstructorHook {
 	 * {@inheritDoc}
 	 */
 	public void beforeConstructor(long methodId, long sensorTypeId, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		timeStack.push(timer.getCurrentTime());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void afterConstructor(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		timeStack.push(timer.getCurrentTime());
 		secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, null, rsc);
 	}
 
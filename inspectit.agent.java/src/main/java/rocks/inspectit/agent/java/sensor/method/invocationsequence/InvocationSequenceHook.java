@@ -30,7 +30,7 @@ import rocks.inspectit.agent.java.sensor.method.jdbc.PreparedStatementParameterS
 import rocks.inspectit.agent.java.sensor.method.jdbc.PreparedStatementSensor;
 import rocks.inspectit.agent.java.sensor.method.logging.Log4JLoggingSensor;
 import rocks.inspectit.agent.java.util.StringConstraint;
-import rocks.inspectit.agent.java.util.ThreadLocalStack;
+import rocks.inspectit.agent.java.util.ThreadLocalDoubleStack;
 import rocks.inspectit.agent.java.util.Timer;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.MethodSensorData;
@@ -100,7 +100,7 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	/**
 	 * The stack containing the start time values.
 	 */
-	private final ThreadLocalStack<Double> timeStack = new ThreadLocalStack<Double>();
+	private final ThreadLocalDoubleStack timeStack = new ThreadLocalDoubleStack();
 
 	/**
 	 * Saves the min duration for faster access of the values.
@@ -159,7 +159,7 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 				long registeredSensorTypeId = idManager.getRegisteredSensorTypeId(sensorTypeId);
 
 				// save the start time
-				timeStack.push(new Double(timer.getCurrentTime()));
+				timeStack.push(timer.getCurrentTime());
 
 				// no invocation tracer is currently started, so we do that now.
 				InvocationSequenceData invocationSequenceData = new InvocationSequenceData(timestamp, platformId, registeredSensorTypeId, registeredMethodId);
@@ -208,7 +208,7 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 				invocationStartIdCount.set(Long.valueOf(count - 1));
 
 				if (0 == count - 1) {
-					timeStack.push(new Double(timer.getCurrentTime()));
+					timeStack.push(timer.getCurrentTime());
 				}
 			}
 		}
@@ -236,8 +236,8 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 			}
 
 			if (methodId == invocationStartId.get().longValue() && 0 == invocationStartIdCount.get().longValue()) {
-				double endTime = timeStack.pop().doubleValue();
-				double startTime = timeStack.pop().doubleValue();
+				double endTime = timeStack.pop();
+				double startTime = timeStack.pop();
 				double duration = endTime - startTime;
 
 				// complete the sequence and store the data object in the 'true'
@@ -0,0 +1,307 @@
+package rocks.inspectit.agent.java.sensor.method.timer;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.ParameterContentData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+/**
+ * Timer storage that can be safely updated by many threads at once. Instead of updating one shared
+ * {@link TimerData} object, every thread is mapped to one of several cells (stripes) which hold
+ * the count, duration, minimum and maximum values. The cells are updated with compare-and-set
+ * operations only and are merged into a new {@link TimerData} object when
+ * {@link #finalizeDataObject()} is called.
+ * <p>
+ * All cells are kept in one {@link AtomicLongArray}. The double values are stored as their raw
+ * long bits. Each cell occupies {@value #CELL_SIZE} slots (one cache line), so threads updating
+ * different cells do not invalidate each other's cache lines.
+ */
+public class StripedTimerStorage implements ITimerStorage {
+
+	/**
+	 * Maximum number of cells.
+	 */
+	private static final int MAX_CELLS = 32;
+
+	/**
+	 * Number of long slots occupied by one cell.
+	 */
+	private static final int CELL_SIZE = 8;
+
+	/**
+	 * Offset of the count in the cell.
+	 */
+	private static final int COUNT = 0;
+
+	/**
+	 * Offset of the duration in the cell.
+	 */
+	private static final int DURATION = 1;
+
+	/**
+	 * Offset of the minimum in the cell.
+	 */
+	private static final int MIN = 2;
+
+	/**
+	 * Offset of the maximum in the cell.
+	 */
+	private static final int MAX = 3;
+
+	/**
+	 * Offset of the cpu count in the cell.
+	 */
+	private static final int CPU_COUNT = 4;
+
+	/**
+	 * Offset of the cpu duration in the cell.
+	 */
+	private static final int CPU_DURATION = 5;
+
+	/**
+	 * Offset of the cpu minimum in the cell.
+	 */
+	private static final int CPU_MIN = 6;
+
+	/**
+	 * Offset of the cpu maximum in the cell.
+	 */
+	private static final int CPU_MAX = 7;
+
+	/**
+	 * Number of cells used by each storage. Power of two related to the number of available
+	 * processors.
+	 */
+	private static final int CELLS = cellCount(Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * Raw bits of the positive infinity, initial value of the minimum slots.
+	 */
+	private static final long POSITIVE_INFINITY_BITS = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+	/**
+	 * Raw bits of the negative infinity, initial value of the maximum slots.
+	 */
+	private static final long NEGATIVE_INFINITY_BITS = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+
+	/**
+	 * Time stamp of the storage.
+	 */
+	private final Timestamp timeStamp;
+
+	/**
+	 * The platform ID.
+	 */
+	private final long platformIdent;
+
+	/**
+	 * The sensor type ID.
+	 */
+	private final long sensorTypeIdent;
+
+	/**
+	 * The method ID.
+	 */
+	private final long methodIdent;
+
+	/**
+	 * The content of the parameter/fields.
+	 */
+	private final List<ParameterContentData> parameterContentData;
+
+	/**
+	 * If TimerData's charting should be set or not.
+	 */
+	private final boolean charting;
+
+	/**
+	 * Mask used to map the thread id to the cell.
+	 */
+	private final int mask;
+
+	/**
+	 * The cells.
+	 */
+	private final AtomicLongArray cells;
+
+	/**
+	 * Default constructor which initializes the cells.
+	 * 
+	 * @param timeStamp
+	 *            The time stamp.
+	 * @param platformIdent
+	 *            The platform ID.
+	 * @param sensorTypeIdent
+	 *            The sensor type ID.
+	 * @param methodIdent
+	 *            The method ID.
+	 * @param parameterContentData
+	 *            The content of the parameter/fields.
+	 * @param charting
+	 *            If TimerData's charting should be set or not.
+	 */
+	public StripedTimerStorage(Timestamp timeStamp, long platformIdent, long sensorTypeIdent, long methodIdent, List<ParameterContentData> parameterContentData, boolean charting) {
+		this(timeStamp, platformIdent, sensorTypeIdent, methodIdent, parameterContentData, charting, CELLS);
+	}
+
+	/**
+	 * Constructor that defines the number of cells to use.
+	 * 
+	 * @param timeStamp
+	 *            The time stamp.
+	 * @param platformIdent
+	 *            The platform ID.
+	 * @param sensorTypeIdent
+	 *            The sensor type ID.
+	 * @param methodIdent
+	 *            The method ID.
+	 * @param parameterContentData
+	 *            The content of the parameter/fields.
+	 * @param charting
+	 *            If TimerData's charting should be set or not.
+	 * @param cellCount
+	 *            Number of cells, must be a power of two.
+	 */
+	StripedTimerStorage(Timestamp timeStamp, long platformIdent, long sensorTypeIdent, long methodIdent, List<ParameterContentData> parameterContentData, boolean charting, int cellCount) {
+		this.timeStamp = timeStamp;
+		this.platformIdent = platformIdent;
+		this.sensorTypeIdent = sensorTypeIdent;
+		this.methodIdent = methodIdent;
+		this.parameterContentData = parameterContentData;
+		this.charting = charting;
+		this.mask = cellCount - 1;
+		this.cells = new AtomicLongArray(cellCount * CELL_SIZE);
+
+		for (int i = 0; i < cellCount; i++) {
+			int base = i * CELL_SIZE;
+			cells.set(base + MIN, POSITIVE_INFINITY_BITS);
+			cells.set(base + MAX, NEGATIVE_INFINITY_BITS);
+			cells.set(base + CPU_MIN, POSITIVE_INFINITY_BITS);
+			cells.set(base + CPU_MAX, NEGATIVE_INFINITY_BITS);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void addData(double time, double cpuTime) {
+		int base = ((int) Thread.currentThread().getId() & mask) * CELL_SIZE;
+
+		cells.incrementAndGet(base + COUNT);
+		add(base + DURATION, time);
+		min(base + MIN, time);
+		max(base + MAX, time);
+
+		// only add the cpu time if it greater than zero
+		if (cpuTime >= 0) {
+			cells.incrementAndGet(base + CPU_COUNT);
+			add(base + CPU_DURATION, cpuTime);
+			min(base + CPU_MIN, cpuTime);
+			max(base + CPU_MAX, cpuTime);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public DefaultData finalizeDataObject() {
+		TimerData timerData = new TimerData(timeStamp, platformIdent, sensorTypeIdent, methodIdent, parameterContentData);
+		timerData.setCharting(charting);
+
+		long count = 0;
+		double duration = 0;
+		double cpuDuration = 0;
+		for (int i = 0; i <= mask; i++) {
+			int base = i * CELL_SIZE;
+
+			long cellCount = cells.get(base + COUNT);
+			if (cellCount > 0) {
+				count += cellCount;
+				duration += Double.longBitsToDouble(cells.get(base + DURATION));
+				timerData.calculateMin(Double.longBitsToDouble(cells.get(base + MIN)));
+				timerData.calculateMax(Double.longBitsToDouble(cells.get(base + MAX)));
+			}
+
+			if (cells.get(base + CPU_COUNT) > 0) {
+				cpuDuration += Double.longBitsToDouble(cells.get(base + CPU_DURATION));
+				timerData.calculateCpuMin(Double.longBitsToDouble(cells.get(base + CPU_MIN)));
+				timerData.calculateCpuMax(Double.longBitsToDouble(cells.get(base + CPU_MAX)));
+			}
+		}
+
+		timerData.setCount(count);
+		timerData.setDuration(duration);
+		timerData.setCpuDuration(cpuDuration);
+		return timerData;
+	}
+
+	/**
+	 * Atomically adds the value to the double stored in the given slot.
+	 * 
+	 * @param index
+	 *            Slot index.
+	 * @param value
+	 *            Value to add.
+	 */
+	private void add(int index, double value) {
+		long current;
+		long updated;
+		do {
+			current = cells.get(index);
+			updated = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value);
+		} while (!cells.compareAndSet(index, current, updated));
+	}
+
+	/**
+	 * Atomically sets the double stored in the given slot to the value if the value is smaller.
+	 * 
+	 * @param index
+	 *            Slot index.
+	 * @param value
+	 *            Value to compare.
+	 */
+	private void min(int index, double value) {
+		long updated = Double.doubleToRawLongBits(value);
+		long current = cells.get(index);
+		while (value < Double.longBitsToDouble(current) && !cells.compareAndSet(index, current, updated)) {
+			current = cells.get(index);
+		}
+	}
+
+	/**
+	 * Atomically sets the double stored in the given slot to the value if the value is bigger.
+	 * 
+	 * @param index
+	 *            Slot index.
+	 * @param value
+	 *            Value to compare.
+	 */
+	private void max(int index, double value) {
+		long updated = Double.doubleToRawLongBits(value);
+		long current = cells.get(index);
+		while (value > Double.longBitsToDouble(current) && !cells.compareAndSet(index, current, updated)) {
+			current = cells.get(index);
+		}
+	}
+
+	/**
+	 * Returns the number of cells to use for the given number of processors. This is the smallest
+	 * power of two that is not smaller than the number of processors, capped at {@value #MAX_CELLS}
+	 * .
+	 * 
+	 * @param processors
+	 *            Number of available processors.
+	 * @return Number of cells.
+	 */
+	static int cellCount(int processors) {
+		int cells = 1;
+		while (cells < processors && cells < MAX_CELLS) {
+			cells <<= 1;
+		}
+		return cells;
+	}
+
+}
@@ -0,0 +1,254 @@
+package rocks.inspectit.agent.java.util;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holder of all primitive stacks of one thread. Every {@link ThreadLocalDoubleStack} and
+ * {@link ThreadLocalLongStack} gets its own index on creation and all of them share one
+ * {@link ThreadLocal}, so a hook needs a single thread local lookup to reach its stack, no matter
+ * how many hooks are active.
+ * <p>
+ * Stacks are backed by growable primitive arrays, thus pushing and popping values does not box
+ * the values and does not allocate any objects once the arrays have grown to the needed size.
+ */
+final class PrimitiveStacks {
+
+	/**
+	 * Initial capacity of each stack.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The one thread local holding the stacks of each thread.
+	 */
+	private static final ThreadLocal<PrimitiveStacks> STACKS = new ThreadLocal<PrimitiveStacks>() {
+		@Override
+		protected PrimitiveStacks initialValue() {
+			return new PrimitiveStacks();
+		}
+	};
+
+	/**
+	 * Number of created double stacks.
+	 */
+	private static final AtomicInteger DOUBLE_STACK_COUNT = new AtomicInteger();
+
+	/**
+	 * Number of created long stacks.
+	 */
+	private static final AtomicInteger LONG_STACK_COUNT = new AtomicInteger();
+
+	/**
+	 * Values of the double stacks, indexed by stack index.
+	 */
+	private double[][] doubleValues = new double[0][];
+
+	/**
+	 * Sizes of the double stacks, indexed by stack index.
+	 */
+	private int[] doubleSizes = new int[0];
+
+	/**
+	 * Values of the long stacks, indexed by stack index.
+	 */
+	private long[][] longValues = new long[0][];
+
+	/**
+	 * Sizes of the long stacks, indexed by stack index.
+	 */
+	private int[] longSizes = new int[0];
+
+	/**
+	 * Private constructor, instances are created by the thread local only.
+	 */
+	private PrimitiveStacks() {
+	}
+
+	/**
+	 * Returns the stacks of the current thread.
+	 * 
+	 * @return Returns the stacks of the current thread.
+	 */
+	static PrimitiveStacks current() {
+		return STACKS.get();
+	}
+
+	/**
+	 * Returns index for a new double stack.
+	 * 
+	 * @return Index for a new double stack.
+	 */
+	static int nextDoubleStackIndex() {
+		return DOUBLE_STACK_COUNT.getAndIncrement();
+	}
+
+	/**
+	 * Returns index for a new long stack.
+	 * 
+	 * @return Index for a new long stack.
+	 */
+	static int nextLongStackIndex() {
+		return LONG_STACK_COUNT.getAndIncrement();
+	}
+
+	/**
+	 * Pushes the value onto the double stack with given index.
+	 * 
+	 * @param index
+	 *            Stack index.
+	 * @param value
+	 *            Value to push.
+	 */
+	void pushDouble(int index, double value) {
+		if (index >= doubleSizes.length) {
+			growDoubleStacks(index);
+		}
+		double[] values = doubleValues[index];
+		int size = doubleSizes[index];
+		if (size == values.length) {
+			values = new double[size << 1];
+			System.arraycopy(doubleValues[index], 0, values, 0, size);
+			doubleValues[index] = values;
+		}
+		values[size] = value;
+		doubleSizes[index] = size + 1;
+	}
+
+	/**
+	 * Removes and returns the last pushed value of the double stack with given index.
+	 * 
+	 * @param index
+	 *            Stack index.
+	 * @return Last pushed value.
+	 * @throws NoSuchElementException
+	 *             If the stack is empty.
+	 */
+	double popDouble(int index) throws NoSuchElementException {
+		int size = (index < doubleSizes.length) ? doubleSizes[index] : 0;
+		if (0 == size) {
+			throw new NoSuchElementException();
+		}
+		doubleSizes[index] = --size;
+		return doubleValues[index][size];
+	}
+
+	/**
+	 * Returns the last pushed value of the double stack with given index without removing it.
+	 * 
+	 * @param index
+	 *            Stack index.
+	 * @return Last pushed value.
+	 * @throws NoSuchElementException
+	 *             If the stack is empty.
+	 */
+	double getLastDouble(int index) throws NoSuchElementException {
+		int size = (index < doubleSizes.length) ? doubleSizes[index] : 0;
+		if (0 == size) {
+			throw new NoSuchElementException();
+		}
+		return doubleValues[index][size - 1];
+	}
+
+	/**
+	 * Returns the size of the double stack with given index.
+	 * 
+	 * @param index
+	 *            Stack index.
+	 * @return Size of the stack.
+	 */
+	int doubleSize(int index) {
+		return (index < doubleSizes.length) ? doubleSizes[index] : 0;
+	}
+
+	/**
+	 * Pushes the value onto the long stack with given index.
+	 * 
+	 * @param index
+	 *            Stack index.
+	 * @param value
+	 *            Value to push.
+	 */
+	void pushLong(int index, long value) {
+		if (index >= longSizes.length) {
+			growLongStacks(index);
+		}
+		long[] values = longValues[index];
+		int size = longSizes[index];
+		if (size == values.length) {
+			values = new long[size << 1];
+			System.arraycopy(longValues[index], 0, values, 0, size);
+			longValues[index] = values;
+		}
+		values[size] = value;
+		longSizes[index] = size + 1;
+	}
+
+	/**
+	 * Removes and returns the last pushed value of the long stack with given index.
+	 * 
+	 * @param index
+	 *            Stack index.
+	 * @return Last pushed value.
+	 * @throws NoSuchElementException
+	 *             If the stack is empty.
+	 */
+	long popLong(int index) throws NoSuchElementException {
+		int size = (index < longSizes.length) ? longSizes[index] : 0;
+		if (0 == size) {
+			throw new NoSuchElementException();
+		}
+		longSizes[index] = --size;
+		return longValues[index][size];
+	}
+
+	/**
+	 * Returns the size of the long stack with given index.
+	 * 
+	 * @param index
+	 *            Stack index.
+	 * @return Size of the stack.
+	 */
+	int longSize(int index) {
+		return (index < longSizes.length) ? longSizes[index] : 0;
+	}
+
+	/**
+	 * Grows the double stack arrays so that the stack with given index can be held.
+	 * 
+	 * @param index
+	 *            Stack index.
+	 */
+	private void growDoubleStacks(int index) {
+		int length = Math.max(index + 1, DOUBLE_STACK_COUNT.get());
+		double[][] values = new double[length][];
+		int[] sizes = new int[length];
+		System.arraycopy(doubleValues, 0, values, 0, doubleValues.length);
+		System.arraycopy(doubleSizes, 0, sizes, 0, doubleSizes.length);
+		for (int i = doubleValues.length; i < length; i++) {
+			values[i] = new double[INITIAL_CAPACITY];
+		}
+		doubleValues = values;
+		doubleSizes = sizes;
+	}
+
+	/**
+	 * Grows the long stack arrays so that the stack with given index can be held.
+	 * 
+	 * @param index
+	 *            Stack index.
+	 */
+	private void growLongStacks(int index) {
+		int length = Math.max(index + 1, LONG_STACK_COUNT.get());
+		long[][] values = new long[length][];
+		int[] sizes = new int[length];
+		System.arraycopy(longValues, 0, values, 0, longValues.length);
+		System.arraycopy(longSizes, 0, sizes, 0, longSizes.length);
+		for (int i = longValues.length; i < length; i++) {
+			values[i] = new long[INITIAL_CAPACITY];
+		}
+		longValues = values;
+		longSizes = sizes;
+	}
+
+}
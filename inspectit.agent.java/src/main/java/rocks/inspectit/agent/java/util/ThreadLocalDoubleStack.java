@@ -0,0 +1,58 @@
+package rocks.inspectit.agent.java.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Thread local stack of primitive <code>double</code> values. Unlike the {@link ThreadLocalStack}
+ * the values are not boxed and no list nodes are created, thus pushing and popping values does
+ * not create garbage. All instances share one {@link ThreadLocal}.
+ */
+public class ThreadLocalDoubleStack {
+
+	/**
+	 * Index of this stack in the {@link PrimitiveStacks}.
+	 */
+	private final int index = PrimitiveStacks.nextDoubleStackIndex();
+
+	/**
+	 * Pushes the specified value onto the stack.
+	 * 
+	 * @param value
+	 *            the value to push onto the stack.
+	 */
+	public void push(double value) {
+		PrimitiveStacks.current().pushDouble(index, value);
+	}
+
+	/**
+	 * Returns the last pushed value.
+	 * 
+	 * @return The last pushed value.
+	 * @throws NoSuchElementException
+	 *             If the stack is empty.
+	 */
+	public double pop() throws NoSuchElementException {
+		return PrimitiveStacks.current().popDouble(index);
+	}
+
+	/**
+	 * Returns the last pushed value without removing it.
+	 * 
+	 * @return The last pushed value.
+	 * @throws NoSuchElementException
+	 *             If the stack is empty.
+	 */
+	public double getLast() throws NoSuchElementException {
+		return PrimitiveStacks.current().getLastDouble(index);
+	}
+
+	/**
+	 * Returns the number of values on the stack of the current thread.
+	 * 
+	 * @return The number of values on the stack of the current thread.
+	 */
+	public int size() {
+		return PrimitiveStacks.current().doubleSize(index);
+	}
+
+}
@@ -0,0 +1,47 @@
+package rocks.inspectit.agent.java.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Thread local stack of primitive <code>long</code> values. Unlike the {@link ThreadLocalStack}
+ * the values are not boxed and no list nodes are created, thus pushing and popping values does
+ * not create garbage. All instances share one {@link ThreadLocal}.
+ */
+public class ThreadLocalLongStack {
+
+	/**
+	 * Index of this stack in the {@link PrimitiveStacks}.
+	 */
+	private final int index = PrimitiveStacks.nextLongStackIndex();
+
+	/**
+	 * Pushes the specified value onto the stack.
+	 * 
+	 * @param value
+	 *            the value to push onto the stack.
+	 */
+	public void push(long value) {
+		PrimitiveStacks.current().pushLong(index, value);
+	}
+
+	/**
+	 * Returns the last pushed value.
+	 * 
+	 * @return The last pushed value.
+	 * @throws NoSuchElementException
+	 *             If the stack is empty.
+	 */
+	public long pop() throws NoSuchElementException {
+		return PrimitiveStacks.current().popLong(index);
+	}
+
+	/**
+	 * Returns the number of values on the stack of the current thread.
+	 * 
+	 * @return The number of values on the stack of the current thread.
+	 */
+	public int size() {
+		return PrimitiveStacks.current().longSize(index);
+	}
+
+}
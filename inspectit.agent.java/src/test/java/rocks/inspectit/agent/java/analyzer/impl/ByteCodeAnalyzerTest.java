@@ -6,12 +6,14 @@ import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -30,6 +32,8 @@ import rocks.inspectit.agent.java.analyzer.classes.TestClass;
 import rocks.inspectit.agent.java.analyzer.impl.ByteCodeAnalyzer;
 import rocks.inspectit.agent.java.analyzer.impl.ThrowableMatcher;
 import rocks.inspectit.agent.java.config.IConfigurationStorage;
+import rocks.inspectit.agent.java.config.impl.ConfigurationStorage;
+import rocks.inspectit.agent.java.config.impl.FileConfigurationReader;
 import rocks.inspectit.agent.java.config.impl.MethodSensorTypeConfig;
 import rocks.inspectit.agent.java.config.impl.PropertyAccessor;
 import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
@@ -98,6 +102,60 @@ public class ByteCodeAnalyzerTest extends AbstractLogSupport {
 		assertThat(instrumentedByteCode, is(nullValue()));
 	}
 
+	@Test
+	public void notMatchingClassRejectedBeforeClassPool() throws NotFoundException, IOException, CannotCompileException {
+		String className = TestClass.class.getName();
+		ClassLoader classLoader = TestClass.class.getClassLoader();
+		byte[] byteCode = getByteCode(className);
+
+		List<UnregisteredSensorConfig> unregisteredSensorConfigs = new ArrayList<UnregisteredSensorConfig>();
+		UnregisteredSensorConfig unregisteredSensorConfig = mock(UnregisteredSensorConfig.class);
+		when(unregisteredSensorConfig.getTargetClassName()).thenReturn("info.novatec.OtherClass");
+		IMatcher matcher = mock(IMatcher.class);
+		when(unregisteredSensorConfig.getMatcher()).thenReturn(matcher);
+		unregisteredSensorConfigs.add(unregisteredSensorConfig);
+		when(configurationStorage.getUnregisteredSensorConfigs()).thenReturn(unregisteredSensorConfigs);
+
+		byte[] instrumentedByteCode = byteCodeAnalyzer.analyzeAndInstrument(byteCode, className, classLoader);
+
+		assertThat(instrumentedByteCode, is(nullValue()));
+		verifyZeroInteractions(classPoolAnalyzer, matcher);
+	}
+
+	@Test
+	public void notMatchingClassRejectedWithDefaultProfile() throws Exception {
+		ConfigurationStorage defaultConfigurationStorage = new ConfigurationStorage(classPoolAnalyzer, inheritanceAnalyzer);
+		setInstanceValue(defaultConfigurationStorage, "log", LoggerFactory.getLogger(ConfigurationStorage.class));
+		FileConfigurationReader fileConfigurationReader = new FileConfigurationReader(defaultConfigurationStorage);
+		setInstanceValue(fileConfigurationReader, "log", LoggerFactory.getLogger(FileConfigurationReader.class));
+		String configProperty = System.getProperty("inspectit.config");
+		System.setProperty("inspectit.config", "src/main/external-resources/config");
+		try {
+			fileConfigurationReader.load();
+		} finally {
+			if (null == configProperty) {
+				System.clearProperty("inspectit.config");
+			} else {
+				System.setProperty("inspectit.config", configProperty);
+			}
+		}
+		defaultConfigurationStorage.afterPropertiesSet();
+		assertThat(defaultConfigurationStorage.getUnregisteredSensorConfigs(), is(not(empty())));
+
+		byteCodeAnalyzer = new ByteCodeAnalyzer(defaultConfigurationStorage, hookInstrumenter, classPoolAnalyzer);
+		byteCodeAnalyzer.log = LoggerFactory.getLogger(ByteCodeAnalyzer.class);
+		byteCodeAnalyzer.classLoaderDelegation = true;
+		String className = TestClass.class.getName();
+		ClassLoader classLoader = TestClass.class.getClassLoader();
+		byte[] byteCode = getByteCode(className);
+
+		// neither the class name nor the supertypes match the default profile
+		byte[] instrumentedByteCode = byteCodeAnalyzer.analyzeAndInstrument(byteCode, className, classLoader);
+
+		assertThat(instrumentedByteCode, is(nullValue()));
+		verifyZeroInteractions(classPoolAnalyzer, inheritanceAnalyzer, hookInstrumenter);
+	}
+
 	@Test
 	public void simpleClassAndMethod() throws NotFoundException, IOException, CannotCompileException {
 		String className = TestClass.class.getName();
@@ -0,0 +1,73 @@
+package rocks.inspectit.agent.java.analyzer.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import rocks.inspectit.agent.java.analyzer.classes.AbstractSubTest;
+import rocks.inspectit.agent.java.analyzer.classes.AbstractTest;
+import rocks.inspectit.agent.java.analyzer.classes.ISubTest;
+import rocks.inspectit.agent.java.analyzer.classes.ITest;
+import rocks.inspectit.agent.java.analyzer.classes.ITestTwo;
+import rocks.inspectit.agent.java.analyzer.classes.TestClass;
+
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class ClassFileHeaderTest {
+
+	@Test
+	public void superclass() {
+		ClassFileHeader classFileHeader = load(TestClass.class);
+
+		assertThat(classFileHeader.getSuperclassName(), is(AbstractSubTest.class.getName()));
+		assertThat(classFileHeader.getInterfaceNames(), is(emptyArray()));
+	}
+
+	@Test
+	public void superclassAndInterface() {
+		ClassFileHeader classFileHeader = load(AbstractSubTest.class);
+
+		assertThat(classFileHeader.getSuperclassName(), is(AbstractTest.class.getName()));
+		assertThat(classFileHeader.getInterfaceNames(), is(arrayContaining(ITestTwo.class.getName())));
+	}
+
+	@Test
+	public void extendedInterface() {
+		ClassFileHeader classFileHeader = load(ISubTest.class);
+
+		assertThat(classFileHeader.getSuperclassName(), is(Object.class.getName()));
+		assertThat(classFileHeader.getInterfaceNames(), is(arrayContaining(ITest.class.getName())));
+	}
+
+	@Test
+	public void object() {
+		ClassFileHeader classFileHeader = ClassFileHeader.load(null, Object.class.getName());
+
+		assertThat(classFileHeader, is(notNullValue()));
+		assertThat(classFileHeader.getSuperclassName(), is(nullValue()));
+	}
+
+	@Test
+	public void notExistingClass() {
+		ClassFileHeader classFileHeader = ClassFileHeader.load(TestClass.class.getClassLoader(), "info.novatec.NotExisting");
+
+		assertThat(classFileHeader, is(nullValue()));
+	}
+
+	@Test
+	public void invalidByteCode() {
+		assertThat(ClassFileHeader.read(new byte[] { 1, 2, 3 }), is(nullValue()));
+		assertThat(ClassFileHeader.read(new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 50, 0, 5, 1 }), is(nullValue()));
+	}
+
+	private ClassFileHeader load(Class<?> clazz) {
+		ClassFileHeader classFileHeader = ClassFileHeader.load(clazz.getClassLoader(), clazz.getName());
+		assertThat(classFileHeader, is(notNullValue()));
+		return classFileHeader;
+	}
+
+}
@@ -0,0 +1,167 @@
+package rocks.inspectit.agent.java.analyzer.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import rocks.inspectit.agent.java.analyzer.classes.EmptyClass;
+import rocks.inspectit.agent.java.analyzer.classes.ITest;
+import rocks.inspectit.agent.java.analyzer.classes.MyTestError;
+import rocks.inspectit.agent.java.analyzer.classes.TestClass;
+import rocks.inspectit.agent.java.analyzer.classes.TestClassLoader;
+import rocks.inspectit.agent.java.config.impl.UnregisteredSensorConfig;
+
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class ClassMatchIndexTest {
+
+	@Test
+	public void noConfigurations() {
+		ClassMatchIndex index = new ClassMatchIndex(Collections.<UnregisteredSensorConfig> emptyList());
+
+		assertThat(index.size(), is(0));
+		assertThat(index.hasCandidates("info.novatec.Test"), is(false));
+		assertThat(index.getCandidates("info.novatec.Test"), is(empty()));
+	}
+
+	@Test
+	public void exactClassName() {
+		UnregisteredSensorConfig config = config("info.novatec.Test");
+		ClassMatchIndex index = new ClassMatchIndex(Collections.singletonList(config));
+
+		assertThat(index.hasCandidates("info.novatec.Test"), is(true));
+		assertThat(index.getCandidates("info.novatec.Test"), contains(config));
+		assertThat(index.hasCandidates("info.novatec.Test2"), is(false));
+		assertThat(index.getCandidates("info.novatec.Test2"), is(empty()));
+	}
+
+	@Test
+	public void packagePattern() {
+		UnregisteredSensorConfig config = config("info.novatec.*");
+		UnregisteredSensorConfig classPrefixConfig = config("info.novatec.dao.*Dao");
+		List<UnregisteredSensorConfig> configs = new ArrayList<UnregisteredSensorConfig>();
+		configs.add(config);
+		configs.add(classPrefixConfig);
+		ClassMatchIndex index = new ClassMatchIndex(configs);
+
+		assertThat(index.getCandidates("info.novatec.Test"), contains(config));
+		assertThat(index.getCandidates("info.novatec.dao.UserDao"), contains(config, classPrefixConfig));
+		assertThat(index.hasCandidates("info.Test"), is(false));
+		assertThat(index.getCandidates("info.Test"), is(empty()));
+		assertThat(index.hasCandidates("com.novatec.Test"), is(false));
+	}
+
+	@Test
+	public void defaultPackagePattern() {
+		UnregisteredSensorConfig config = config("Test*");
+		ClassMatchIndex index = new ClassMatchIndex(Collections.singletonList(config));
+
+		// not decided by the index, the matcher has to check the class name
+		assertThat(index.getCandidates("TestClass"), contains(config));
+		assertThat(index.getCandidates("info.novatec.TestClass"), contains(config));
+	}
+
+	@Test
+	public void leadingWildcardAlwaysCandidate() {
+		UnregisteredSensorConfig config = config("*Service");
+		ClassMatchIndex index = new ClassMatchIndex(Collections.singletonList(config));
+
+		assertThat(index.hasCandidates("info.novatec.Test"), is(true));
+		assertThat(index.getCandidates("info.novatec.Test"), contains(config));
+	}
+
+	@Test
+	public void superclassAndInterfaceAlwaysCandidate() {
+		UnregisteredSensorConfig superclassConfig = config("java.lang.Throwable");
+		when(superclassConfig.isSuperclass()).thenReturn(true);
+		UnregisteredSensorConfig interfaceConfig = config("javax.servlet.Servlet");
+		when(interfaceConfig.isInterface()).thenReturn(true);
+		List<UnregisteredSensorConfig> configs = new ArrayList<UnregisteredSensorConfig>();
+		configs.add(superclassConfig);
+		configs.add(interfaceConfig);
+		ClassMatchIndex index = new ClassMatchIndex(configs);
+
+		assertThat(index.hasCandidates("info.novatec.Test"), is(true));
+		assertThat(index.getCandidates("info.novatec.Test"), contains(superclassConfig, interfaceConfig));
+	}
+
+	@Test
+	public void interfaceOfSupertypeIsHierarchyCandidate() {
+		UnregisteredSensorConfig interfaceConfig = config(ITest.class.getName());
+		when(interfaceConfig.isInterface()).thenReturn(true);
+		ClassMatchIndex index = new ClassMatchIndex(Collections.singletonList(interfaceConfig));
+
+		assertThat(isHierarchyCandidate(index, TestClass.class), is(true));
+		assertThat(index.getCandidates(TestClass.class.getName(), true), contains(interfaceConfig));
+		assertThat(isHierarchyCandidate(index, EmptyClass.class), is(false));
+		assertThat(index.hasCandidates(EmptyClass.class.getName(), false), is(false));
+		assertThat(index.getCandidates(EmptyClass.class.getName(), false), is(empty()));
+	}
+
+	@Test
+	public void superclassPatternIsHierarchyCandidate() {
+		UnregisteredSensorConfig superclassConfig = config("java.lang.Thr*");
+		when(superclassConfig.isSuperclass()).thenReturn(true);
+		ClassMatchIndex index = new ClassMatchIndex(Collections.singletonList(superclassConfig));
+
+		assertThat(isHierarchyCandidate(index, MyTestError.class), is(true));
+		assertThat(isHierarchyCandidate(index, TestClass.class), is(false));
+	}
+
+	@Test
+	public void hierarchyWithoutTargetNameAlwaysCandidate() {
+		UnregisteredSensorConfig superclassConfig = config(null);
+		when(superclassConfig.isSuperclass()).thenReturn(true);
+		ClassMatchIndex index = new ClassMatchIndex(Collections.singletonList(superclassConfig));
+
+		assertThat(isHierarchyCandidate(index, EmptyClass.class), is(true));
+	}
+
+	@Test
+	public void additionalHierarchyTarget() {
+		ClassMatchIndex index = new ClassMatchIndex(Collections.<UnregisteredSensorConfig> emptyList(), Collections.singletonList("java.lang.ClassLoader"));
+
+		assertThat(isHierarchyCandidate(index, TestClassLoader.class), is(true));
+		assertThat(isHierarchyCandidate(index, TestClass.class), is(false));
+		assertThat(index.hasCandidates(TestClassLoader.class.getName(), true), is(false));
+	}
+
+	@Test
+	public void candidatesKeepConfigurationOrder() {
+		UnregisteredSensorConfig fallbackConfig = config("*Test");
+		UnregisteredSensorConfig exactConfig = config("info.novatec.Test");
+		UnregisteredSensorConfig patternConfig = config("info.*");
+		UnregisteredSensorConfig otherConfig = config("com.novatec.Test");
+		List<UnregisteredSensorConfig> configs = new ArrayList<UnregisteredSensorConfig>();
+		configs.add(fallbackConfig);
+		configs.add(exactConfig);
+		configs.add(otherConfig);
+		configs.add(patternConfig);
+		ClassMatchIndex index = new ClassMatchIndex(configs);
+
+		assertThat(index.size(), is(4));
+		assertThat(index.getCandidates("info.novatec.Test"), contains(fallbackConfig, exactConfig, patternConfig));
+	}
+
+	private boolean isHierarchyCandidate(ClassMatchIndex index, Class<?> clazz) {
+		ClassFileHeader classFileHeader = ClassFileHeader.load(clazz.getClassLoader(), clazz.getName());
+		assertThat(classFileHeader, is(notNullValue()));
+		return index.isHierarchyCandidate(clazz.getName(), classFileHeader, clazz.getClassLoader());
+	}
+
+	private UnregisteredSensorConfig config(String targetClassName) {
+		UnregisteredSensorConfig config = mock(UnregisteredSensorConfig.class);
+		when(config.getTargetClassName()).thenReturn(targetClassName);
+		return config;
+	}
+
+}
@@ -3,6 +3,7 @@ package rocks.inspectit.agent.java.analyzer.impl;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 
@@ -98,6 +99,23 @@ public class ClassPoolAnalyzerTest extends AbstractLogSupport {
 		assertThat(getClassLoader(parentParentClassPool), is(equalTo((ClassLoader) testClassLoader)));
 	}
 
+	@Test
+	public void managedClassPool() throws Exception {
+		classPoolAnalyzer.classPoolCacheSize = 10;
+		TestClassLoader testClassLoader = new TestClassLoader(TestClass.class.getClassLoader());
+
+		ClassPool classPool = classPoolAnalyzer.getClassPool(testClassLoader);
+		assertThat(classPool, is(instanceOf(ManagedClassPool.class)));
+
+		// otherwise the class would be cached in the class pool of the parent
+		classPool.childFirstLookup = true;
+		classPool.get(TestClass.class.getName());
+		assertThat(((ManagedClassPool) classPool).getCachedClassCount(), is(1));
+
+		classPoolAnalyzer.releaseClass(testClassLoader, TestClass.class.getName());
+		assertThat(((ManagedClassPool) classPool).getCachedClassCount(), is(0));
+	}
+
 	private ClassPool getParentClassPool(ClassPool classPool) throws Exception {
 		// only possible through reflection :(
 		Field field = ClassPool.class.getDeclaredField("parent");
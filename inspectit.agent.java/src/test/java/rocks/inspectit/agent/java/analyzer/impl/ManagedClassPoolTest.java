@@ -0,0 +1,71 @@
+package rocks.inspectit.agent.java.analyzer.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import javassist.CtClass;
+import javassist.NotFoundException;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class ManagedClassPoolTest {
+
+	private ManagedClassPool classPool;
+
+	@BeforeMethod
+	public void init() {
+		classPool = new ManagedClassPool(null, 2);
+		classPool.appendSystemPath();
+	}
+
+	@Test
+	public void cached() throws NotFoundException {
+		CtClass ctClass = classPool.get("java.lang.String");
+
+		assertThat(classPool.get("java.lang.String"), is(sameInstance(ctClass)));
+		assertThat(classPool.getCachedClassCount(), is(1));
+		assertThat(classPool.getEvictedClassCount(), is(0L));
+	}
+
+	@Test
+	public void leastRecentlyUsedEvicted() throws NotFoundException {
+		CtClass string = classPool.get("java.lang.String");
+		CtClass integer = classPool.get("java.lang.Integer");
+		// string is now used more recently than integer
+		classPool.get("java.lang.String");
+		classPool.get("java.lang.Long");
+
+		assertThat(classPool.getCachedClassCount(), is(2));
+		assertThat(classPool.getEvictedClassCount(), is(1L));
+		assertThat(classPool.get("java.lang.String"), is(sameInstance(string)));
+		assertThat(classPool.get("java.lang.Integer"), is(not(sameInstance(integer))));
+	}
+
+	@Test
+	public void release() throws NotFoundException {
+		CtClass ctClass = classPool.get("java.lang.String");
+		classPool.release("java.lang.String");
+
+		assertThat(classPool.getCachedClassCount(), is(0));
+		assertThat(classPool.getEvictedClassCount(), is(0L));
+		assertThat(classPool.get("java.lang.String"), is(not(sameInstance(ctClass))));
+	}
+
+	@Test
+	public void detach() throws NotFoundException {
+		CtClass ctClass = classPool.get("java.lang.String");
+		ctClass.detach();
+
+		assertThat(classPool.getCachedClassCount(), is(0));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void invalidCacheSize() {
+		new ManagedClassPool(null, 0);
+	}
+
+}
@@ -0,0 +1,340 @@
+package rocks.inspectit.agent.java.buffer.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.agent.java.config.IConfigurationStorage;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.storage.serializer.ISerializerProvider;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+@SuppressWarnings({ "PMD", "unchecked" })
+public class DiskSpoolBufferStrategyTest {
+
+	private DiskSpoolBufferStrategy bufferStrategy;
+
+	private File directory;
+
+	private IConfigurationStorage configurationStorage;
+
+	/**
+	 * Objects passed to the serializer, the index is written as serialized form.
+	 */
+	private List<Object> serialized;
+
+	private SerializationManager serializer;
+
+	@BeforeMethod
+	public void initTestClass() throws Exception {
+		serialized = new ArrayList<Object>();
+		serializer = mock(SerializationManager.class);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Output output = (Output) invocation.getArguments()[1];
+				output.writeInt(serialized.size());
+				serialized.add(invocation.getArguments()[0]);
+				return null;
+			}
+		}).when(serializer).serialize(any(), any(Output.class));
+		when(serializer.deserialize(any(Input.class))).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				Input input = (Input) invocation.getArguments()[0];
+				return serialized.get(input.readInt());
+			}
+		});
+		ISerializerProvider<SerializationManager> serializerProvider = mock(ISerializerProvider.class);
+		when(serializerProvider.createSerializer()).thenReturn(serializer);
+
+		directory = new File(System.getProperty("java.io.tmpdir"), "inspectit-spool-test");
+
+		configurationStorage = mock(IConfigurationStorage.class);
+		when(configurationStorage.getAgentName()).thenReturn("UnitTestAgent");
+
+		bufferStrategy = createBufferStrategy(serializerProvider);
+	}
+
+	@AfterMethod
+	public void deleteDirectory() {
+		delete(directory);
+	}
+
+	@Test
+	public void addAndRetrieve() {
+		bufferStrategy.init(settings("1024", "4096"));
+		List<MethodSensorData> measurements = new ArrayList<MethodSensorData>(0);
+		bufferStrategy.addMeasurements(measurements);
+
+		assertThat(bufferStrategy.hasNext(), is(true));
+		assertThat(bufferStrategy.next(), is(sameInstance(measurements)));
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void emptyBuffer() {
+		bufferStrategy.init(settings("1024", "4096"));
+
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test(expectedExceptions = { NoSuchElementException.class })
+	public void noSuchElementException() {
+		bufferStrategy.init(settings("1024", "4096"));
+
+		bufferStrategy.next();
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void addNullMeasurement() {
+		bufferStrategy.init(settings("1024", "4096"));
+
+		bufferStrategy.addMeasurements(null);
+	}
+
+	@Test
+	public void retrieveInOrderOverSegments() {
+		// each record is 8 bytes, so two records fit in one segment
+		bufferStrategy.init(settings("16", "4096"));
+		List<List<MethodSensorData>> added = new ArrayList<List<MethodSensorData>>();
+		for (int i = 0; i < 5; i++) {
+			List<MethodSensorData> measurements = new ArrayList<MethodSensorData>(0);
+			added.add(measurements);
+			bufferStrategy.addMeasurements(measurements);
+		}
+
+		assertThat(bufferStrategy.getCurrentSize(), is(48L));
+		for (List<MethodSensorData> measurements : added) {
+			assertThat(bufferStrategy.next(), is(sameInstance(measurements)));
+		}
+		assertThat(bufferStrategy.hasNext(), is(false));
+		assertThat(bufferStrategy.getCurrentSize(), is(16L));
+	}
+
+	@Test
+	public void oldestSegmentDroppedWhenFull() {
+		bufferStrategy.init(settings("16", "32"));
+		List<List<MethodSensorData>> added = new ArrayList<List<MethodSensorData>>();
+		for (int i = 0; i < 6; i++) {
+			List<MethodSensorData> measurements = new ArrayList<MethodSensorData>(0);
+			added.add(measurements);
+			bufferStrategy.addMeasurements(measurements);
+		}
+
+		assertThat(bufferStrategy.getDroppedCount(), is(2L));
+		assertThat(bufferStrategy.getCurrentSize(), is(32L));
+		for (int i = 2; i < 6; i++) {
+			assertThat(bufferStrategy.next(), is(sameInstance(added.get(i))));
+		}
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void peekKeepsMeasurementsUntilCommit() {
+		bufferStrategy.init(settings("1024", "4096"));
+		List<MethodSensorData> first = new ArrayList<MethodSensorData>(0);
+		List<MethodSensorData> second = new ArrayList<MethodSensorData>(0);
+		bufferStrategy.addMeasurements(first);
+		bufferStrategy.addMeasurements(second);
+
+		assertThat(bufferStrategy.peek(), is(sameInstance(first)));
+		// sending failed, same list is peeked again
+		assertThat(bufferStrategy.peek(), is(sameInstance(first)));
+		assertThat(bufferStrategy.hasNext(), is(true));
+		bufferStrategy.commit();
+
+		assertThat(bufferStrategy.peek(), is(sameInstance(second)));
+		bufferStrategy.commit();
+		assertThat(bufferStrategy.hasNext(), is(false));
+		// nothing peeked, nothing removed
+		bufferStrategy.commit();
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void commitAfterPeekedSegmentDropped() {
+		bufferStrategy.init(settings("16", "32"));
+		List<List<MethodSensorData>> added = new ArrayList<List<MethodSensorData>>();
+		for (int i = 0; i < 4; i++) {
+			List<MethodSensorData> measurements = new ArrayList<MethodSensorData>(0);
+			added.add(measurements);
+			bufferStrategy.addMeasurements(measurements);
+		}
+		assertThat(bufferStrategy.peek(), is(sameInstance(added.get(0))));
+
+		// drops the segment of the peeked list
+		List<MethodSensorData> measurements = new ArrayList<MethodSensorData>(0);
+		added.add(measurements);
+		bufferStrategy.addMeasurements(measurements);
+		bufferStrategy.commit();
+
+		assertThat(bufferStrategy.getDroppedCount(), is(2L));
+		for (int i = 2; i < 5; i++) {
+			assertThat(bufferStrategy.next(), is(sameInstance(added.get(i))));
+		}
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void measurementsLargerThanSegmentDropped() throws Exception {
+		bufferStrategy.init(settings("16", "4096"));
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				try {
+					((Output) invocation.getArguments()[1]).writeBytes(new byte[16]);
+				} catch (KryoException e) {
+					throw new SerializationException("Serialization failed.", e);
+				}
+				return null;
+			}
+		}).when(serializer).serialize(any(), any(Output.class));
+
+		bufferStrategy.addMeasurements(new ArrayList<MethodSensorData>(0));
+
+		assertThat(bufferStrategy.hasNext(), is(false));
+		assertThat(bufferStrategy.getCurrentSize(), is(0L));
+	}
+
+	@Test
+	public void measurementsDroppedAfterMaxRetries() {
+		Map<String, String> settings = settings("1024", "4096");
+		settings.put("max-retries", "2");
+		bufferStrategy.init(settings);
+		List<MethodSensorData> first = new ArrayList<MethodSensorData>(0);
+		List<MethodSensorData> second = new ArrayList<MethodSensorData>(0);
+		bufferStrategy.addMeasurements(first);
+		bufferStrategy.addMeasurements(second);
+
+		// first sending and two retries fail
+		assertThat(bufferStrategy.peek(), is(sameInstance(first)));
+		assertThat(bufferStrategy.peek(), is(sameInstance(first)));
+		assertThat(bufferStrategy.peek(), is(sameInstance(first)));
+
+		assertThat(bufferStrategy.peek(), is(sameInstance(second)));
+		assertThat(bufferStrategy.getDroppedCount(), is(1L));
+		bufferStrategy.commit();
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void lastMeasurementsDroppedAfterMaxRetries() {
+		Map<String, String> settings = settings("1024", "4096");
+		settings.put("max-retries", "0");
+		bufferStrategy.init(settings);
+		bufferStrategy.addMeasurements(new ArrayList<MethodSensorData>(0));
+
+		bufferStrategy.peek();
+		assertThat(bufferStrategy.peek(), is(empty()));
+		bufferStrategy.commit();
+
+		assertThat(bufferStrategy.hasNext(), is(false));
+		assertThat(bufferStrategy.getDroppedCount(), is(1L));
+	}
+
+	@Test
+	public void ownDirectoryPerAgentProcess() {
+		bufferStrategy.init(settings("1024", "4096"));
+
+		assertThat(bufferStrategy.getDirectory().getParentFile(), is(directory));
+		assertThat(bufferStrategy.getDirectory().getName(), startsWith("UnitTestAgent-"));
+		assertThat(new File(bufferStrategy.getDirectory(), "spool.lock").exists(), is(true));
+	}
+
+	@Test
+	public void lockedDirectoryNotShared() {
+		bufferStrategy.init(settings("1024", "4096"));
+		DiskSpoolBufferStrategy otherBufferStrategy = createBufferStrategy(bufferStrategy.serializerProvider);
+		otherBufferStrategy.init(settings("1024", "4096"));
+		bufferStrategy.addMeasurements(new ArrayList<MethodSensorData>(0));
+
+		assertThat(otherBufferStrategy.getDirectory(), is(not(bufferStrategy.getDirectory())));
+		assertThat(bufferStrategy.getDirectory().exists(), is(true));
+		assertThat(bufferStrategy.hasNext(), is(true));
+		assertThat(otherBufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void staleFilesOfAgentDeletedOnInit() throws Exception {
+		File staleDirectory = new File(directory, "UnitTestAgent-1_oldhost");
+		staleDirectory.mkdirs();
+		File staleFile = new File(staleDirectory, "segment-0.spool");
+		staleFile.createNewFile();
+		new File(staleDirectory, "spool.lock").createNewFile();
+
+		bufferStrategy.init(settings("1024", "4096"));
+
+		assertThat(staleFile.exists(), is(false));
+		assertThat(staleDirectory.exists(), is(false));
+	}
+
+	@Test
+	public void filesOfOtherAgentsKeptOnInit() throws Exception {
+		File otherAgentDirectory = new File(directory, "OtherAgent-1_host");
+		File prefixAgentDirectory = new File(directory, "UnitTestAgent-2-1_host");
+		otherAgentDirectory.mkdirs();
+		prefixAgentDirectory.mkdirs();
+		File otherAgentFile = new File(otherAgentDirectory, "segment-0.spool");
+		File prefixAgentFile = new File(prefixAgentDirectory, "segment-0.spool");
+		otherAgentFile.createNewFile();
+		prefixAgentFile.createNewFile();
+
+		bufferStrategy.init(settings("1024", "4096"));
+
+		assertThat(otherAgentFile.exists(), is(true));
+		assertThat(prefixAgentFile.exists(), is(true));
+	}
+
+	private DiskSpoolBufferStrategy createBufferStrategy(ISerializerProvider<SerializationManager> serializerProvider) {
+		DiskSpoolBufferStrategy diskSpoolBufferStrategy = new DiskSpoolBufferStrategy();
+		diskSpoolBufferStrategy.log = LoggerFactory.getLogger(DiskSpoolBufferStrategy.class);
+		diskSpoolBufferStrategy.serializerProvider = serializerProvider;
+		diskSpoolBufferStrategy.configurationStorage = configurationStorage;
+		return diskSpoolBufferStrategy;
+	}
+
+	private void delete(File file) {
+		File[] files = file.listFiles();
+		if (null != files) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private Map<String, String> settings(String segmentSize, String maxSize) {
+		Map<String, String> settings = new HashMap<String, String>();
+		settings.put("directory", directory.getAbsolutePath());
+		settings.put("segment-size", segmentSize);
+		settings.put("max-size", maxSize);
+		return settings;
+	}
+}
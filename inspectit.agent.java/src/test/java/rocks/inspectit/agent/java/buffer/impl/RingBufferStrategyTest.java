@@ -0,0 +1,168 @@
+package rocks.inspectit.agent.java.buffer.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.agent.java.buffer.impl.RingBufferStrategy.WaitStrategy;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+
+@SuppressWarnings("PMD")
+public class RingBufferStrategyTest {
+
+	private RingBufferStrategy bufferStrategy;
+
+	@BeforeMethod
+	public void initTestClass() {
+		bufferStrategy = new RingBufferStrategy();
+		bufferStrategy.log = LoggerFactory.getLogger(RingBufferStrategy.class);
+	}
+
+	@Test
+	public void addAndRetrieve() {
+		List<MethodSensorData> measurements = Collections.<MethodSensorData> emptyList();
+		bufferStrategy.addMeasurements(measurements);
+
+		assertThat(bufferStrategy.hasNext(), is(true));
+		assertThat(bufferStrategy.next(), is(sameInstance(measurements)));
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void emptyBuffer() {
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test(expectedExceptions = { NoSuchElementException.class })
+	public void noSuchElementException() {
+		bufferStrategy.next();
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void addNullMeasurement() {
+		bufferStrategy.addMeasurements(null);
+	}
+
+	@Test
+	public void retrieveInOrder() {
+		List<MethodSensorData> listOne = new ArrayList<MethodSensorData>(0);
+		List<MethodSensorData> listTwo = new ArrayList<MethodSensorData>(0);
+		bufferStrategy.addMeasurements(listOne);
+		bufferStrategy.addMeasurements(listTwo);
+
+		assertThat(bufferStrategy.next(), is(sameInstance(listOne)));
+		assertThat(bufferStrategy.next(), is(sameInstance(listTwo)));
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void oldestDroppedWhenFull() {
+		Map<String, String> settings = new HashMap<String, String>();
+		settings.put("size", "2");
+		bufferStrategy.init(settings);
+
+		List<MethodSensorData> listOne = new ArrayList<MethodSensorData>(0);
+		List<MethodSensorData> listTwo = new ArrayList<MethodSensorData>(0);
+		List<MethodSensorData> listThree = new ArrayList<MethodSensorData>(0);
+		bufferStrategy.addMeasurements(listOne);
+		bufferStrategy.addMeasurements(listTwo);
+		bufferStrategy.addMeasurements(listThree);
+
+		assertThat(bufferStrategy.getDroppedCount(), is(1L));
+		assertThat(bufferStrategy.next(), is(sameInstance(listTwo)));
+		assertThat(bufferStrategy.next(), is(sameInstance(listThree)));
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void initWaitStrategy() {
+		assertThat(bufferStrategy.getWaitStrategy(), is(WaitStrategy.PARK));
+
+		bufferStrategy.init(Collections.singletonMap("wait", "yield"));
+		assertThat(bufferStrategy.getWaitStrategy(), is(WaitStrategy.YIELD));
+
+		bufferStrategy.init(Collections.singletonMap("wait", "spin"));
+		assertThat(bufferStrategy.getWaitStrategy(), is(WaitStrategy.SPIN));
+	}
+
+	@Test
+	public void awaitReturnsWhenDataAvailable() throws InterruptedException {
+		bufferStrategy.addMeasurements(Collections.<MethodSensorData> emptyList());
+
+		bufferStrategy.awaitNext();
+
+		assertThat(bufferStrategy.hasNext(), is(true));
+	}
+
+	@Test
+	public void awaitWokenByProducer() throws InterruptedException {
+		final CountDownLatch consumed = new CountDownLatch(1);
+		Thread consumer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					bufferStrategy.awaitNext();
+					bufferStrategy.next();
+					consumed.countDown();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		consumer.start();
+
+		bufferStrategy.addMeasurements(Collections.<MethodSensorData> emptyList());
+
+		assertThat(consumed.await(5, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test(expectedExceptions = { InterruptedException.class })
+	public void awaitInterrupted() throws InterruptedException {
+		Thread.currentThread().interrupt();
+		bufferStrategy.awaitNext();
+	}
+
+	@Test
+	public void concurrentProducers() throws InterruptedException {
+		Map<String, String> settings = new HashMap<String, String>();
+		settings.put("size", "1024");
+		bufferStrategy.init(settings);
+		final int threadCount = 4;
+		final int iterations = 200;
+		final CountDownLatch end = new CountDownLatch(threadCount);
+
+		for (int i = 0; i < threadCount; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < iterations; j++) {
+						bufferStrategy.addMeasurements(new ArrayList<MethodSensorData>(0));
+					}
+					end.countDown();
+				}
+			}.start();
+		}
+		end.await();
+
+		int count = 0;
+		while (bufferStrategy.hasNext()) {
+			bufferStrategy.next();
+			count++;
+		}
+		assertThat(count, is(equalTo(threadCount * iterations)));
+	}
+}
@@ -42,6 +42,7 @@ import rocks.inspectit.shared.all.cmr.service.IKeepAliveService;
 import rocks.inspectit.shared.all.cmr.service.IRegistrationService;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.kryonet.Client;
 
@@ -84,6 +85,18 @@ public class KryoNetConnectionTest {
 			verifyNoMoreInteractions(keepAliveService);
 		}
 
+		@Test
+		public void sendingDelay() throws Exception {
+			when(client.isConnected()).thenReturn(true);
+			long id = 3L;
+			when(keepAliveService.sendKeepAlive(id)).thenReturn(500L);
+
+			assertThat(connection.getSendingDelay(), is(0L));
+			connection.sendKeepAlive(id);
+
+			assertThat(connection.getSendingDelay(), is(500L));
+		}
+
 		@Test(expectedExceptions = { ServerUnavailableException.class })
 		public void timeout() throws Exception {
 			when(client.isConnected()).thenReturn(true);
@@ -483,6 +496,59 @@ public class KryoNetConnectionTest {
 		}
 	}
 
+	public static class RegisterMethods extends KryoNetConnectionTest {
+
+		@Test
+		public void registerMethods() throws Exception {
+			long platformIdent = 7L;
+			long[] ids = new long[] { 3L, 4L };
+			when(client.isConnected()).thenReturn(true);
+			List<MethodRegistrationData> methodRegistrations = new ArrayList<MethodRegistrationData>();
+			methodRegistrations.add(new MethodRegistrationData("p", "c", "m1", Collections.<String> emptyList(), "r", 1, new long[] { 5L }));
+			methodRegistrations.add(new MethodRegistrationData("p", "c", "m2", Collections.<String> emptyList(), "r", 1, new long[0]));
+			doReturn(ids).when(registrationService).registerMethodIdents(platformIdent, methodRegistrations);
+
+			long[] registeredIds = connection.registerMethods(platformIdent, methodRegistrations);
+			assertThat(registeredIds, is(ids));
+
+			verify(registrationService, times(1)).registerMethodIdents(platformIdent, methodRegistrations);
+			verifyNoMoreInteractions(registrationService);
+		}
+
+		@Test(expectedExceptions = { ServerUnavailableException.class })
+		public void timeout() throws Exception {
+			long platformIdent = 7L;
+			when(client.isConnected()).thenReturn(true);
+			List<MethodRegistrationData> methodRegistrations = Collections.emptyList();
+			doThrow(TimeoutException.class).when(registrationService).registerMethodIdents(platformIdent, methodRegistrations);
+
+			try {
+				connection.registerMethods(platformIdent, methodRegistrations);
+			} catch (ServerUnavailableException e) {
+				assertThat(e.isServerTimeout(), is(true));
+				throw e;
+			} finally {
+				verify(registrationService, times(1)).registerMethodIdents(platformIdent, methodRegistrations);
+				verifyNoMoreInteractions(registrationService);
+			}
+		}
+
+		@Test(expectedExceptions = { ServerUnavailableException.class })
+		public void notConnected() throws Exception {
+			when(client.isConnected()).thenReturn(false);
+			List<MethodRegistrationData> methodRegistrations = Collections.emptyList();
+
+			try {
+				connection.registerMethods(7L, methodRegistrations);
+			} catch (ServerUnavailableException e) {
+				assertThat(e.isServerTimeout(), is(false));
+				throw e;
+			} finally {
+				verifyZeroInteractions(registrationService);
+			}
+		}
+	}
+
 	public static class RegisterMethodSensor extends KryoNetConnectionTest {
 
 		@Test
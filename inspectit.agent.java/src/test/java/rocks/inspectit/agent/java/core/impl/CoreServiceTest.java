@@ -2,6 +2,7 @@ package rocks.inspectit.agent.java.core.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
@@ -15,6 +16,7 @@ import static org.mockito.Mockito.when;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.mockito.Mock;
 import org.slf4j.LoggerFactory;
@@ -23,6 +25,7 @@ import org.testng.annotations.Test;
 
 import rocks.inspectit.agent.java.AbstractLogSupport;
 import rocks.inspectit.agent.java.buffer.IBufferStrategy;
+import rocks.inspectit.agent.java.buffer.impl.SimpleBufferStrategy;
 import rocks.inspectit.agent.java.config.IConfigurationStorage;
 import rocks.inspectit.agent.java.connection.IConnection;
 import rocks.inspectit.agent.java.connection.ServerUnavailableException;
@@ -230,6 +233,31 @@ public class CoreServiceTest extends AbstractLogSupport {
 		verifyZeroInteractions(idManager);
 	}
 
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void sendingDelayedSinceLastSending() throws ServerUnavailableException {
+		SimpleBufferStrategy simpleBufferStrategy = new SimpleBufferStrategy();
+		setInstanceValue(simpleBufferStrategy, "log", LoggerFactory.getLogger(SimpleBufferStrategy.class));
+		coreService = new CoreService(configurationStorage, connection, (IBufferStrategy) simpleBufferStrategy, Collections.singletonList(sendingStrategy), idManager);
+		coreService.log = LoggerFactory.getLogger(CoreService.class);
+		when(connection.isConnected()).thenReturn(true);
+		when(connection.getSendingDelay()).thenReturn(200L);
+		List<MethodSensorData> first = new ArrayList<MethodSensorData>();
+		List<MethodSensorData> second = new ArrayList<MethodSensorData>();
+
+		simpleBufferStrategy.addMeasurements(first);
+		coreService.send();
+		simpleBufferStrategy.addMeasurements(second);
+		long start = System.nanoTime();
+		coreService.send();
+		long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		// the simple buffer strategy holds only one list, the delay is kept between the sendings
+		assertThat(duration, is(greaterThanOrEqualTo(150L)));
+		verify(connection, times(1)).sendDataObjects(first);
+		verify(connection, times(1)).sendDataObjects(second);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
 	public void verifyListListenerMethodData() {
@@ -6,19 +6,30 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.lang.reflect.Field;
 import java.net.ConnectException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -32,6 +43,7 @@ import rocks.inspectit.agent.java.config.impl.RepositoryConfig;
 import rocks.inspectit.agent.java.connection.IConnection;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
 import rocks.inspectit.agent.java.core.impl.IdManager;
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
 import rocks.inspectit.shared.all.version.VersionService;
 
 @SuppressWarnings("PMD")
@@ -280,19 +292,27 @@ public class IdManagerTest extends AbstractLogSupport {
 		when(connection.isConnected()).thenReturn(true);
 
 		RegisteredSensorConfig registeredSensorConfig = mock(RegisteredSensorConfig.class);
+		RegistrationAnswer<long[]> registerMethods = new RegistrationAnswer<long[]>(new long[] { 7L, 13L });
+		when(connection.registerMethods(anyLong(), Mockito.<List<MethodRegistrationData>> any())).thenAnswer(registerMethods);
 
 		idManager.start();
 
-		when(connection.registerMethod(anyInt(), eq(registeredSensorConfig))).thenReturn(7L).thenReturn(13L);
-		long id = idManager.registerMethod(registeredSensorConfig);
-		assertThat(id, is(greaterThanOrEqualTo(0L)));
-		assertThat(idManager.getRegisteredMethodId(id), is(7L));
+		// both methods are queued before the registration thread can take them
+		long firstId;
+		long secondId;
+		synchronized (getMethodsToRegister()) {
+			firstId = idManager.registerMethod(registeredSensorConfig);
+			secondId = idManager.registerMethod(registeredSensorConfig);
+		}
+		assertThat(firstId, is(greaterThanOrEqualTo(0L)));
+		assertThat(secondId, is(not(firstId)));
 
-		id = idManager.registerMethod(registeredSensorConfig);
-		assertThat(id, is(greaterThanOrEqualTo(0L)));
-		assertThat(idManager.getRegisteredMethodId(id), is(13L));
+		registerMethods.awaitAndStop();
 
-		idManager.stop();
+		assertThat(idManager.getRegisteredMethodId(firstId), is(7L));
+		assertThat(idManager.getRegisteredMethodId(secondId), is(13L));
+		verify(connection, times(1)).registerMethods(anyLong(), Mockito.<List<MethodRegistrationData>> any());
+		verify(connection, never()).registerMethod(anyLong(), Mockito.<RegisteredSensorConfig> any());
 	}
 
 	@Test
@@ -303,17 +323,192 @@ public class IdManagerTest extends AbstractLogSupport {
 
 		RegisteredSensorConfig registeredSensorConfig = mock(RegisteredSensorConfig.class);
 		MethodSensorTypeConfig methodSensorType = mock(MethodSensorTypeConfig.class);
+		RegistrationAnswer<long[]> registerMethods = new RegistrationAnswer<long[]>(new long[] { 7L });
+		when(connection.registerMethods(anyLong(), Mockito.<List<MethodRegistrationData>> any())).thenAnswer(registerMethods);
+		when(connection.registerMethodSensorType(anyInt(), eq(methodSensorType))).thenReturn(5L);
 
 		idManager.start();
 
-		when(connection.registerMethod(anyInt(), eq(registeredSensorConfig))).thenReturn(7L);
+		long sensorTypeId = idManager.registerMethodSensorType(methodSensorType);
+		// the mapping is queued before the registration thread can take the method
+		long methodId;
+		synchronized (getMethodsToRegister()) {
+			methodId = idManager.registerMethod(registeredSensorConfig);
+			idManager.addSensorTypeToMethod(sensorTypeId, methodId);
+		}
+
+		registerMethods.awaitAndStop();
+
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(connection, times(1)).registerMethods(anyLong(), captor.capture());
+		MethodRegistrationData methodRegistration = (MethodRegistrationData) captor.getValue().get(0);
+		assertThat(methodRegistration.getMethodSensorTypeIdents(), is(equalTo(new long[] { 5L })));
+		verify(connection, never()).addSensorTypeToMethod(anyLong(), anyLong());
+		assertThat(idManager.getRegisteredMethodId(methodId), is(7L));
+	}
+
+	@Test
+	public void mappingOfRegisteredMethod() throws Exception {
+		RepositoryConfig repositoryConfig = mock(RepositoryConfig.class);
+		when(configurationStorage.getRepositoryConfig()).thenReturn(repositoryConfig);
+		when(connection.isConnected()).thenReturn(true);
+
+		RegisteredSensorConfig registeredSensorConfig = mock(RegisteredSensorConfig.class);
+		MethodSensorTypeConfig methodSensorType = mock(MethodSensorTypeConfig.class);
+		RegistrationAnswer<long[]> registerMethods = new RegistrationAnswer<long[]>(new long[] { 7L });
+		when(connection.registerMethods(anyLong(), Mockito.<List<MethodRegistrationData>> any())).thenAnswer(registerMethods);
 		when(connection.registerMethodSensorType(anyInt(), eq(methodSensorType))).thenReturn(5L);
-		long methodId = idManager.registerMethod(registeredSensorConfig);
+		RegistrationAnswer<Void> addSensorTypeToMethod = new RegistrationAnswer<Void>(null);
+		doAnswer(addSensorTypeToMethod).when(connection).addSensorTypeToMethod(anyLong(), anyLong());
+
+		idManager.start();
+
 		long sensorTypeId = idManager.registerMethodSensorType(methodSensorType);
+		long methodId = idManager.registerMethod(registeredSensorConfig);
+		registerMethods.await();
+
+		// mapping added after the method batch was sent
 		idManager.addSensorTypeToMethod(sensorTypeId, methodId);
 
-		idManager.stop();
+		addSensorTypeToMethod.awaitAndStop();
+
+		verify(connection, times(1)).addSensorTypeToMethod(5L, 7L);
+	}
 
-		verify(connection).addSensorTypeToMethod(5L, 7L);
+	/**
+	 * Mapping of a method queued after the methods were registered in the current run of the
+	 * registration thread must wait for the method and must not fail.
+	 */
+	@Test
+	public void mappingOfMethodQueuedDuringRegistration() throws Exception {
+		RepositoryConfig repositoryConfig = mock(RepositoryConfig.class);
+		when(configurationStorage.getRepositoryConfig()).thenReturn(repositoryConfig);
+		when(connection.isConnected()).thenReturn(true);
+		Logger log = mock(Logger.class);
+		idManager.log = log;
+
+		final RegisteredSensorConfig registeredSensorConfig = mock(RegisteredSensorConfig.class);
+		MethodSensorTypeConfig methodSensorType = mock(MethodSensorTypeConfig.class);
+		RegistrationAnswer<long[]> registerFirstMethod = new RegistrationAnswer<long[]>(new long[] { 7L });
+		RegistrationAnswer<long[]> registerNextMethod = new RegistrationAnswer<long[]>(new long[] { 8L });
+		when(connection.registerMethods(anyLong(), Mockito.<List<MethodRegistrationData>> any())).thenAnswer(registerFirstMethod).thenAnswer(registerNextMethod);
+		when(connection.registerMethodSensorType(anyInt(), eq(methodSensorType))).thenReturn(5L);
+
+		// the next method and its mapping are queued while the first mapping is registered
+		final long[] sensorTypeId = new long[1];
+		final List<Long> nextMethodIds = new ArrayList<Long>();
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				if (nextMethodIds.isEmpty()) {
+					long nextMethodId = idManager.registerMethod(registeredSensorConfig);
+					idManager.addSensorTypeToMethod(sensorTypeId[0], nextMethodId);
+					nextMethodIds.add(Long.valueOf(nextMethodId));
+				}
+				return null;
+			}
+		}).when(connection).addSensorTypeToMethod(anyLong(), anyLong());
+
+		idManager.start();
+
+		sensorTypeId[0] = idManager.registerMethodSensorType(methodSensorType);
+		long methodId = idManager.registerMethod(registeredSensorConfig);
+		registerFirstMethod.await();
+
+		idManager.addSensorTypeToMethod(sensorTypeId[0], methodId);
+
+		registerNextMethod.awaitAndStop();
+
+		verify(connection, times(1)).addSensorTypeToMethod(5L, 7L);
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(connection, times(2)).registerMethods(anyLong(), captor.capture());
+		MethodRegistrationData methodRegistration = (MethodRegistrationData) captor.getAllValues().get(1).get(0);
+		assertThat(methodRegistration.getMethodSensorTypeIdents(), is(equalTo(new long[] { 5L })));
+		assertThat(idManager.getRegisteredMethodId(nextMethodIds.get(0).longValue()), is(8L));
+		verify(log, never()).error(anyString(), Mockito.<Throwable> any());
+	}
+
+	/**
+	 * Returns the queue of the methods to register, holding its lock keeps the registration thread
+	 * from taking the queued methods.
+	 *
+	 * @return Queue of the methods to register.
+	 * @throws Exception
+	 *             If the field can not be read.
+	 */
+	private Object getMethodsToRegister() throws Exception {
+		Field field = IdManager.class.getDeclaredField("methodsToRegister");
+		field.setAccessible(true);
+		return field.get(idManager);
+	}
+
+	/**
+	 * Answer of the connection call done by the registration thread. Counts down the latch when
+	 * called, so that the test can wait for the call, and remembers the registration thread, so
+	 * that the test can wait until it finished its run.
+	 *
+	 * @param <T>
+	 *            Type of the result.
+	 */
+	private class RegistrationAnswer<T> implements Answer<T> {
+
+		/**
+		 * Result of the calls.
+		 */
+		private final T result;
+
+		/**
+		 * Latch counted down on the call.
+		 */
+		private final CountDownLatch latch;
+
+		/**
+		 * Thread doing the calls.
+		 */
+		private volatile Thread thread;
+
+		/**
+		 * Creates the answer waiting for one call.
+		 *
+		 * @param result
+		 *            Result of the calls.
+		 */
+		RegistrationAnswer(T result) {
+			this.result = result;
+			this.latch = new CountDownLatch(1);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public T answer(InvocationOnMock invocation) throws Throwable {
+			thread = Thread.currentThread();
+			latch.countDown();
+			return result;
+		}
+
+		/**
+		 * Waits for the call.
+		 *
+		 * @throws InterruptedException
+		 *             If interrupted.
+		 */
+		void await() throws InterruptedException {
+			assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+		}
+
+		/**
+		 * Waits for the call, then stops the id manager and waits until the registration thread
+		 * finished its current run.
+		 *
+		 * @throws InterruptedException
+		 *             If interrupted.
+		 */
+		void awaitAndStop() throws InterruptedException {
+			await();
+			idManager.stop();
+			thread.join(10000L);
+		}
 	}
 }
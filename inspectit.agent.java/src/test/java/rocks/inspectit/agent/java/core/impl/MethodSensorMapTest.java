@@ -0,0 +1,94 @@
+package rocks.inspectit.agent.java.core.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class MethodSensorMapTest {
+
+	private MethodSensorMap<String> map;
+
+	@BeforeMethod
+	public void initTestClass() {
+		map = new MethodSensorMap<String>();
+	}
+
+	@Test
+	public void emptyMap() {
+		assertThat(map.isEmpty(), is(true));
+		assertThat(map.get(1L, 2L, null), is(nullValue()));
+	}
+
+	@Test
+	public void putAndGet() {
+		map.put(1L, 2L, null, "value");
+
+		assertThat(map.isEmpty(), is(false));
+		assertThat(map.get(1L, 2L, null), is("value"));
+		assertThat(map.get(2L, 1L, null), is(nullValue()));
+		assertThat(map.get(1L, 2L, "prefix"), is(nullValue()));
+	}
+
+	@Test
+	public void prefixedKeys() {
+		map.put(1L, 2L, null, "noPrefix");
+		map.put(1L, 2L, "prefix", "prefix");
+		map.put(1L, 2L, "otherPrefix", "otherPrefix");
+
+		assertThat(map.size(), is(3));
+		assertThat(map.get(1L, 2L, null), is("noPrefix"));
+		assertThat(map.get(1L, 2L, "prefix"), is("prefix"));
+		assertThat(map.get(1L, 2L, new String("otherPrefix")), is("otherPrefix"));
+	}
+
+	@Test
+	public void replaceValue() {
+		map.put(1L, 2L, null, "first");
+		map.put(1L, 2L, null, "second");
+
+		assertThat(map.size(), is(1));
+		assertThat(map.get(1L, 2L, null), is("second"));
+	}
+
+	@Test
+	public void resize() {
+		int count = 10000;
+		for (int i = 0; i < count; i++) {
+			map.put(i % 7, i, null, String.valueOf(i));
+		}
+
+		assertThat(map.size(), is(count));
+		for (int i = 0; i < count; i++) {
+			assertThat(map.get(i % 7, i, null), is(String.valueOf(i)));
+		}
+	}
+
+	@Test
+	public void valuesAndClear() {
+		map.put(1L, 2L, null, "one");
+		map.put(3L, 4L, "prefix", "two");
+
+		List<String> values = new ArrayList<String>();
+		map.addValuesTo(values);
+		assertThat(values, hasSize(2));
+		assertThat(values, containsInAnyOrder("one", "two"));
+
+		map.clear();
+		values.clear();
+		map.addValuesTo(values);
+		assertThat(map.isEmpty(), is(true));
+		assertThat(values, is(empty()));
+		assertThat(map.get(1L, 2L, null), is(nullValue()));
+	}
+
+}
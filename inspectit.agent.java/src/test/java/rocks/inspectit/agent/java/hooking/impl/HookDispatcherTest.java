@@ -56,17 +56,16 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		Object returnValue = mock(Object.class);
 
 		hookDispatcher.addMethodMapping(methodId, registeredSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 
 		hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(2)).getMethodHooks();
 
 		verifyZeroInteractions(object, coreService, returnValue);
 		verifyNoMoreInteractions(registeredSensorConfig);
@@ -88,19 +87,18 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		Object returnValue = mock(Object.class);
 
 		hookDispatcher.addMethodMapping(methodId, registeredSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		verify(methodHook, times(1)).beforeBody(methodId, sensorTypeId, object, parameters, registeredSensorConfig);
 
 		hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 		verify(methodHook, times(1)).firstAfterBody(methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 		hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(2)).getMethodHooks();
 		verify(methodHook, times(1)).secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 		verifyZeroInteractions(object, coreService, returnValue);
@@ -133,17 +131,17 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		Object returnValue = mock(Object.class);
 
 		hookDispatcher.addMethodMapping(methodId, registeredSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		InOrder inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
 		inOrder.verify(methodHookThree, times(1)).beforeBody(methodId, sensorTypeIdThree, object, parameters, registeredSensorConfig);
 		inOrder.verify(methodHookTwo, times(1)).beforeBody(methodId, sensorTypeIdTwo, object, parameters, registeredSensorConfig);
 		inOrder.verify(methodHookOne, times(1)).beforeBody(methodId, sensorTypeIdOne, object, parameters, registeredSensorConfig);
 
 		hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 		inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
 		inOrder.verify(methodHookOne, times(1)).firstAfterBody(methodId, sensorTypeIdOne, object, parameters, returnValue, registeredSensorConfig);
 		inOrder.verify(methodHookTwo, times(1)).firstAfterBody(methodId, sensorTypeIdTwo, object, parameters, returnValue, registeredSensorConfig);
@@ -151,7 +149,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(2)).getMethodHooks();
 		inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
 		inOrder.verify(methodHookOne, times(1)).secondAfterBody(coreService, methodId, sensorTypeIdOne, object, parameters, returnValue, registeredSensorConfig);
 		inOrder.verify(methodHookTwo, times(1)).secondAfterBody(coreService, methodId, sensorTypeIdTwo, object, parameters, returnValue, registeredSensorConfig);
@@ -191,6 +188,8 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		// map the first method
 		hookDispatcher.addMethodMapping(methodId, registeredSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		RegisteredSensorConfig registeredSensorConfigTwo = mock(RegisteredSensorConfig.class);
 		Map<Long, IHook> methodHooksTwo = new LinkedHashMap<Long, IHook>();
@@ -200,6 +199,8 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		long methodIdTwo = 15L;
 		// map the second method
 		hookDispatcher.addMethodMapping(methodIdTwo, registeredSensorConfigTwo);
+		verify(registeredSensorConfigTwo, times(1)).getMethodHooks();
+		verify(registeredSensorConfigTwo, times(1)).getReverseMethodHooks();
 
 		// ////////////////////////////////////////////////////////
 		// FIRST METHOD DISPATCHER
@@ -207,7 +208,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		// dispatch the first method - before body
 		hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		verify(registeredSensorConfig, times(1)).getInvocationSequenceSensorTypeConfig();
 		verify(methodSensor, times(1)).getHook();
 		verify(methodHook, times(1)).beforeBody(methodId, methodSensorTypeId, object, parameters, registeredSensorConfig);
@@ -220,7 +220,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		// dispatch the second method - before body
 		hookDispatcher.dispatchMethodBeforeBody(methodIdTwo, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		verify(methodSensor, times(1)).getHook();
 		verify(methodHook, times(1)).beforeBody(methodIdTwo, methodSensorTypeId, object, parameters, registeredSensorConfigTwo);
 		verify(invocHook, times(1)).beforeBody(eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(registeredSensorConfigTwo));
@@ -228,13 +227,11 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		// dispatch the second method - first after body
 		hookDispatcher.dispatchFirstMethodAfterBody(methodIdTwo, object, parameters, returnValue);
-		verify(registeredSensorConfigTwo, times(1)).getMethodHooks();
 		verify(methodHook, times(1)).firstAfterBody(methodIdTwo, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfigTwo);
 
 		// dispatch the second method - second after body
 		hookDispatcher.dispatchSecondMethodAfterBody(methodIdTwo, object, parameters, returnValue);
 		verify(registeredSensorConfigTwo, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfigTwo, times(2)).getMethodHooks();
 		verify(methodHook, times(1)).secondAfterBody(invocHook, methodIdTwo, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfigTwo);
 		verify(invocHook, times(1)).secondAfterBody(eq(coreService), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(returnValue), eq(registeredSensorConfigTwo));
 
@@ -243,14 +240,12 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		// dispatch the first method - first after body
 		hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 		verify(methodHook, times(1)).firstAfterBody(methodId, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 		verify(invocHook, times(1)).firstAfterBody(methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 		// dispatch the first method - second after body
 		hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(2)).getMethodHooks();
 		verify(methodHook, times(1)).secondAfterBody(invocHook, methodId, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 		verify(invocHook, times(1)).secondAfterBody(coreService, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
@@ -270,14 +265,14 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		Object[] parameters = new Object[0];
 
 		hookDispatcher.addConstructorMapping(methodId, registeredSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchConstructorBeforeBody(methodId, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchConstructorAfterBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 
 		verifyZeroInteractions(object, coreService);
 		verifyNoMoreInteractions(registeredSensorConfig);
@@ -298,15 +293,15 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		Object[] parameters = new Object[0];
 
 		hookDispatcher.addConstructorMapping(methodId, registeredSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchConstructorBeforeBody(methodId, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		verify(constructorHook, times(1)).beforeConstructor(methodId, sensorTypeId, parameters, registeredSensorConfig);
 
 		hookDispatcher.dispatchConstructorAfterBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 		verify(constructorHook, times(1)).afterConstructor(coreService, methodId, sensorTypeId, object, parameters, registeredSensorConfig);
 
 		verifyZeroInteractions(object, coreService);
@@ -338,10 +333,11 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		Object[] parameters = new Object[0];
 
 		hookDispatcher.addConstructorMapping(methodId, registeredSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchConstructorBeforeBody(methodId, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		InOrder inOrder = inOrder(constructorHookOne, constructorHookTwo, constructorHookThree);
 		inOrder.verify(constructorHookThree, times(1)).beforeConstructor(methodId, sensorTypeIdThree, parameters, registeredSensorConfig);
 		inOrder.verify(constructorHookTwo, times(1)).beforeConstructor(methodId, sensorTypeIdTwo, parameters, registeredSensorConfig);
@@ -349,7 +345,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		hookDispatcher.dispatchConstructorAfterBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 		inOrder = inOrder(constructorHookOne, constructorHookTwo, constructorHookThree);
 		inOrder.verify(constructorHookOne, times(1)).afterConstructor(coreService, methodId, sensorTypeIdOne, object, parameters, registeredSensorConfig);
 		inOrder.verify(constructorHookTwo, times(1)).afterConstructor(coreService, methodId, sensorTypeIdTwo, object, parameters, registeredSensorConfig);
@@ -388,6 +383,8 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		// map the first method
 		hookDispatcher.addMethodMapping(methodId, registeredSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 
 		RegisteredSensorConfig registeredSensorConfigTwo = mock(RegisteredSensorConfig.class);
 		Map<Long, IHook> methodHooksTwo = new LinkedHashMap<Long, IHook>();
@@ -397,6 +394,8 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		long methodIdTwo = 15L;
 		// map the second method
 		hookDispatcher.addConstructorMapping(methodIdTwo, registeredSensorConfigTwo);
+		verify(registeredSensorConfigTwo, times(1)).getMethodHooks();
+		verify(registeredSensorConfigTwo, times(1)).getReverseMethodHooks();
 
 		// ////////////////////////////////////////////////////////
 		// METHOD DISPATCHER
@@ -404,7 +403,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		// dispatch the first method - before body
 		hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		verify(registeredSensorConfig, times(1)).getInvocationSequenceSensorTypeConfig();
 		verify(methodSensor, times(1)).getHook();
 		verify(invocHook, times(1)).beforeBody(methodId, invocSensorTypeId, object, parameters, registeredSensorConfig);
@@ -416,7 +414,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		// dispatch the constructor - before constructor
 		hookDispatcher.dispatchConstructorBeforeBody(methodIdTwo, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		verify(methodSensor, times(1)).getHook();
 		verify(constructorHook, times(1)).beforeConstructor(methodIdTwo, methodSensorTypeId, parameters, registeredSensorConfigTwo);
 		verify((IConstructorHook) invocHook, times(1)).beforeConstructor(eq(methodIdTwo), anyLong(), eq(parameters), eq(registeredSensorConfigTwo));
@@ -425,7 +422,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		// dispatch the constructor - after constructor
 		hookDispatcher.dispatchConstructorAfterBody(methodIdTwo, object, parameters);
 		verify(registeredSensorConfigTwo, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfigTwo, times(1)).getMethodHooks();
 		verify(constructorHook, times(1)).afterConstructor(invocHook, methodIdTwo, methodSensorTypeId, object, parameters, registeredSensorConfigTwo);
 		verify((IConstructorHook) invocHook, times(1)).afterConstructor(eq(coreService), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(registeredSensorConfigTwo));
 
@@ -434,13 +430,11 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		// dispatch the method - first after body
 		hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 		verify(invocHook, times(1)).firstAfterBody(methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 		// dispatch the method - second after body
 		hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(2)).getMethodHooks();
 		verify(invocHook, times(1)).secondAfterBody(coreService, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 		// END METHOD DISPATCHER
@@ -494,10 +488,13 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		hookDispatcher.addMethodMapping(methodId, registeredSensorConfig);
 		hookDispatcher.addConstructorMapping(constructorId, registeredConstructorSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
+		verify(registeredConstructorSensorConfig, times(1)).getMethodHooks();
+		verify(registeredConstructorSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		verify(methodHook, times(1)).beforeBody(methodId, sensorTypeId, object, parameters, registeredSensorConfig);
 
 		hookDispatcher.dispatchConstructorBeforeBody(constructorId, parameters);
@@ -513,12 +510,10 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		verify(exceptionHook, times(1)).dispatchOnThrowInBody(coreService, methodId, exceptionSensorTypeId, object, exceptionObject, parameters, registeredSensorConfig);
 
 		hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 		verify(methodHook, times(1)).firstAfterBody(methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 		hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(2)).getMethodHooks();
 		verify(methodHook, times(1)).secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 		// third method of exception sensor
@@ -586,10 +581,13 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		hookDispatcher.addMethodMapping(methodId, registeredSensorConfig);
 		hookDispatcher.addConstructorMapping(constructorId, registeredConstructorSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
+		verify(registeredConstructorSensorConfig, times(1)).getMethodHooks();
+		verify(registeredConstructorSensorConfig, times(1)).getReverseMethodHooks();
 
 		hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		InOrder inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
 		inOrder.verify(methodHookThree, times(1)).beforeBody(methodId, sensorTypeIdThree, object, parameters, registeredSensorConfig);
 		inOrder.verify(methodHookTwo, times(1)).beforeBody(methodId, sensorTypeIdTwo, object, parameters, registeredSensorConfig);
@@ -608,7 +606,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		verify(exceptionHook, times(1)).dispatchOnThrowInBody(coreService, methodId, exceptionSensorTypeId, object, exceptionObject, parameters, registeredSensorConfig);
 
 		hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 		inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
 		inOrder.verify(methodHookOne, times(1)).firstAfterBody(methodId, sensorTypeIdOne, object, parameters, returnValue, registeredSensorConfig);
 		inOrder.verify(methodHookTwo, times(1)).firstAfterBody(methodId, sensorTypeIdTwo, object, parameters, returnValue, registeredSensorConfig);
@@ -616,7 +613,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(2)).getMethodHooks();
 		inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
 		inOrder.verify(methodHookOne, times(1)).secondAfterBody(coreService, methodId, sensorTypeIdOne, object, parameters, returnValue, registeredSensorConfig);
 		inOrder.verify(methodHookTwo, times(1)).secondAfterBody(coreService, methodId, sensorTypeIdTwo, object, parameters, returnValue, registeredSensorConfig);
@@ -694,6 +690,12 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		hookDispatcher.addMethodMapping(methodId, registeredSensorConfig);
 		hookDispatcher.addMethodMapping(methodIdTwo, registeredSensorConfigTwo);
 		hookDispatcher.addConstructorMapping(constructorId, registeredConstructorSensorConfig);
+		verify(registeredSensorConfig, times(1)).getMethodHooks();
+		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
+		verify(registeredSensorConfigTwo, times(1)).getMethodHooks();
+		verify(registeredSensorConfigTwo, times(1)).getReverseMethodHooks();
+		verify(registeredConstructorSensorConfig, times(1)).getMethodHooks();
+		verify(registeredConstructorSensorConfig, times(1)).getReverseMethodHooks();
 
 		// ////////////////////////////////////////////////////////
 		// FIRST METHOD DISPATCHER
@@ -701,7 +703,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		// dispatch the first method - before body
 		hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		verify(registeredSensorConfig, times(1)).getInvocationSequenceSensorTypeConfig();
 		verify(methodSensor, times(1)).getHook();
 		verify(methodHook, times(1)).beforeBody(methodId, methodSensorTypeId, object, parameters, registeredSensorConfig);
@@ -714,7 +715,6 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		// dispatch the second method - before body
 		hookDispatcher.dispatchMethodBeforeBody(methodIdTwo, object, parameters);
 		verify(registeredSensorConfig, times(1)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(1)).getReverseMethodHooks();
 		verify(methodSensor, times(1)).getHook();
 		verify(methodHook, times(1)).beforeBody(methodIdTwo, methodSensorTypeId, object, parameters, registeredSensorConfigTwo);
 		verify(invocHook, times(1)).beforeBody(eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(registeredSensorConfigTwo));
@@ -739,13 +739,11 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		// dispatch the second method - first after body
 		hookDispatcher.dispatchFirstMethodAfterBody(methodIdTwo, object, parameters, returnValue);
-		verify(registeredSensorConfigTwo, times(1)).getMethodHooks();
 		verify(methodHook, times(1)).firstAfterBody(methodIdTwo, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfigTwo);
 
 		// dispatch the second method - second after body
 		hookDispatcher.dispatchSecondMethodAfterBody(methodIdTwo, object, parameters, returnValue);
 		verify(registeredSensorConfigTwo, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfigTwo, times(2)).getMethodHooks();
 		verify(methodHook, times(1)).secondAfterBody(invocHook, methodIdTwo, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfigTwo);
 		verify(invocHook, times(1)).secondAfterBody(eq(coreService), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(returnValue), eq(registeredSensorConfigTwo));
 		// END SECOND METHOD DISPATCHER
@@ -758,14 +756,12 @@ public class HookDispatcherTest extends AbstractLogSupport {
 
 		// dispatch the first method - first after body
 		hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
-		verify(registeredSensorConfig, times(1)).getMethodHooks();
 		verify(methodHook, times(1)).firstAfterBody(methodId, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 		verify(invocHook, times(1)).firstAfterBody(methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 		// dispatch the first method - second after body
 		hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
 		verify(registeredSensorConfig, times(2)).startsInvocationSequence();
-		verify(registeredSensorConfig, times(2)).getMethodHooks();
 		verify(methodHook, times(1)).secondAfterBody(invocHook, methodId, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 		verify(invocHook, times(1)).secondAfterBody(coreService, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
@@ -776,4 +772,34 @@ public class HookDispatcherTest extends AbstractLogSupport {
 		verifyNoMoreInteractions(methodHook, exceptionHook, registeredSensorConfig);
 	}
 
+	@Test
+	public void dispatchMethodHooksAfterTableGrowth() {
+		RegisteredSensorConfig registeredSensorConfig = mock(RegisteredSensorConfig.class);
+		RegisteredSensorConfig registeredSensorConfigTwo = mock(RegisteredSensorConfig.class);
+		Map<Long, IHook> methodHooks = new LinkedHashMap<Long, IHook>();
+		IMethodHook methodHook = mock(IMethodHook.class);
+		long sensorTypeId = 7L;
+		methodHooks.put(sensorTypeId, methodHook);
+		when(registeredSensorConfig.getReverseMethodHooks()).thenReturn(methodHooks);
+		when(registeredSensorConfig.getMethodHooks()).thenReturn(methodHooks);
+		when(registeredSensorConfigTwo.getReverseMethodHooks()).thenReturn(methodHooks);
+		when(registeredSensorConfigTwo.getMethodHooks()).thenReturn(methodHooks);
+
+		int methodId = 3;
+		int methodIdTwo = 5000;
+		Object object = mock(Object.class);
+		Object[] parameters = new Object[0];
+
+		hookDispatcher.addMethodMapping(methodId, registeredSensorConfig);
+		// does not fit in the initial table
+		hookDispatcher.addMethodMapping(methodIdTwo, registeredSensorConfigTwo);
+
+		hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
+		hookDispatcher.dispatchMethodBeforeBody(methodIdTwo, object, parameters);
+
+		verify(methodHook, times(1)).beforeBody(methodId, sensorTypeId, object, parameters, registeredSensorConfig);
+		verify(methodHook, times(1)).beforeBody(methodIdTwo, sensorTypeId, object, parameters, registeredSensorConfigTwo);
+		verifyNoMoreInteractions(methodHook);
+	}
+
 }
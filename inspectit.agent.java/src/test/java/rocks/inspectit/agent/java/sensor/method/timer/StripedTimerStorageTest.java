@@ -0,0 +1,101 @@
+package rocks.inspectit.agent.java.sensor.method.timer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+@SuppressWarnings("PMD")
+public class StripedTimerStorageTest {
+
+	@Test
+	public void noData() {
+		StripedTimerStorage storage = new StripedTimerStorage(null, 1L, 2L, 3L, null, true);
+
+		TimerData timerData = (TimerData) storage.finalizeDataObject();
+		assertThat(timerData.getPlatformIdent(), is(1L));
+		assertThat(timerData.getSensorTypeIdent(), is(2L));
+		assertThat(timerData.getMethodIdent(), is(3L));
+		assertThat(timerData.isCharting(), is(true));
+		assertThat(timerData.getCount(), is(0L));
+		assertThat(timerData.getMin(), is(-1d));
+		assertThat(timerData.getMax(), is(-1d));
+		assertThat(timerData.isCpuMetricDataAvailable(), is(false));
+	}
+
+	@Test
+	public void sameAsOptimized() {
+		StripedTimerStorage storage = new StripedTimerStorage(null, 1L, 2L, 3L, null, false);
+		OptimizedTimerStorage optimizedStorage = new OptimizedTimerStorage(null, 1L, 2L, 3L, null, false);
+
+		double[] times = { 12.5d, 3.25d, 100.0d, 0.5d };
+		double[] cpuTimes = { 10.0d, -1.0d, 80.0d, 0.25d };
+		for (int i = 0; i < times.length; i++) {
+			storage.addData(times[i], cpuTimes[i]);
+			optimizedStorage.addData(times[i], cpuTimes[i]);
+		}
+
+		TimerData timerData = (TimerData) storage.finalizeDataObject();
+		TimerData expected = (TimerData) optimizedStorage.finalizeDataObject();
+		assertThat(timerData.getCount(), is(equalTo(expected.getCount())));
+		assertThat(timerData.getDuration(), is(equalTo(expected.getDuration())));
+		assertThat(timerData.getMin(), is(equalTo(expected.getMin())));
+		assertThat(timerData.getMax(), is(equalTo(expected.getMax())));
+		assertThat(timerData.getCpuDuration(), is(equalTo(expected.getCpuDuration())));
+		assertThat(timerData.getCpuMin(), is(equalTo(expected.getCpuMin())));
+		assertThat(timerData.getCpuMax(), is(equalTo(expected.getCpuMax())));
+	}
+
+	@Test
+	public void concurrentUpdatesNotLost() throws InterruptedException {
+		final StripedTimerStorage storage = new StripedTimerStorage(null, 1L, 2L, 3L, null, false, 4);
+		final int threadCount = 8;
+		final int iterations = 10000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch end = new CountDownLatch(threadCount);
+
+		for (int i = 0; i < threadCount; i++) {
+			final double time = i + 1;
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int j = 0; j < iterations; j++) {
+							storage.addData(time, time);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						end.countDown();
+					}
+				}
+			}.start();
+		}
+		start.countDown();
+		end.await();
+
+		TimerData timerData = (TimerData) storage.finalizeDataObject();
+		// sum of 1..8 for each iteration
+		double expectedDuration = iterations * (threadCount * (threadCount + 1) / 2);
+		assertThat(timerData.getCount(), is((long) threadCount * iterations));
+		assertThat(timerData.getDuration(), is(closeTo(expectedDuration, 0.0001d)));
+		assertThat(timerData.getCpuDuration(), is(closeTo(expectedDuration, 0.0001d)));
+		assertThat(timerData.getMin(), is(1d));
+		assertThat(timerData.getMax(), is((double) threadCount));
+	}
+
+	@Test
+	public void cellCount() {
+		assertThat(StripedTimerStorage.cellCount(1), is(1));
+		assertThat(StripedTimerStorage.cellCount(3), is(4));
+		assertThat(StripedTimerStorage.cellCount(8), is(8));
+		assertThat(StripedTimerStorage.cellCount(1000), is(32));
+	}
+}
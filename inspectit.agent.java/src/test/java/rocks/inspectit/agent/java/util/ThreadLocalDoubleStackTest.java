@@ -0,0 +1,91 @@
+package rocks.inspectit.agent.java.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.NoSuchElementException;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class ThreadLocalDoubleStackTest {
+
+	private ThreadLocalDoubleStack doubleStack;
+
+	private ThreadLocalLongStack longStack;
+
+	@BeforeMethod
+	public void initTestClass() {
+		doubleStack = new ThreadLocalDoubleStack();
+		longStack = new ThreadLocalLongStack();
+	}
+
+	@Test
+	public void emptyStack() {
+		assertThat(doubleStack.size(), is(0));
+		assertThat(longStack.size(), is(0));
+	}
+
+	@Test
+	public void oneValue() {
+		doubleStack.push(1.5d);
+		longStack.push(3L);
+
+		assertThat(doubleStack.getLast(), is(1.5d));
+		assertThat(doubleStack.pop(), is(1.5d));
+		assertThat(longStack.pop(), is(3L));
+		assertThat(doubleStack.size(), is(0));
+		assertThat(longStack.size(), is(0));
+	}
+
+	@Test(expectedExceptions = { NoSuchElementException.class })
+	public void noSuchElementDouble() {
+		doubleStack.pop();
+	}
+
+	@Test(expectedExceptions = { NoSuchElementException.class })
+	public void noSuchElementLong() {
+		longStack.pop();
+	}
+
+	@Test
+	public void stacksAreIndependent() {
+		ThreadLocalDoubleStack otherStack = new ThreadLocalDoubleStack();
+
+		doubleStack.push(1.0d);
+		otherStack.push(2.0d);
+		doubleStack.push(3.0d);
+
+		assertThat(otherStack.pop(), is(2.0d));
+		assertThat(doubleStack.pop(), is(3.0d));
+		assertThat(doubleStack.pop(), is(1.0d));
+	}
+
+	@Test
+	public void growBeyondInitialCapacity() {
+		int count = 1000;
+		for (int i = 0; i < count; i++) {
+			doubleStack.push(i);
+			longStack.push(i);
+		}
+
+		assertThat(doubleStack.size(), is(count));
+		for (int i = count - 1; i >= 0; i--) {
+			assertThat(doubleStack.pop(), is((double) i));
+			assertThat(longStack.pop(), is((long) i));
+		}
+	}
+
+	@Test(invocationCount = 10, threadPoolSize = 10)
+	public void stackTest() {
+		doubleStack.push(1.0d);
+		doubleStack.push(2.0d);
+		doubleStack.push(3.0d);
+
+		assertThat(doubleStack.pop(), is(3.0d));
+		assertThat(doubleStack.pop(), is(2.0d));
+		assertThat(doubleStack.pop(), is(1.0d));
+	}
+
+}
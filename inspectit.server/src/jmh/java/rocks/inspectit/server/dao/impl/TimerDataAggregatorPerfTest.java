@@ -0,0 +1,147 @@
+package rocks.inspectit.server.dao.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+/**
+ * Simulates the charting timer data ingestion of the CMR with 8 processing threads. The CMR has to
+ * handle at least 100.000 timer data objects per second, thus the measured throughput should stay
+ * well above this value. The aggregation period is short so that the time buckets roll over and
+ * the cache cleaner persists the aggregated data while the processing threads are running. The
+ * entity manager does nothing, so only the aggregation and the cache handling are measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@Threads(8)
+@State(Scope.Benchmark)
+public class TimerDataAggregatorPerfTest {
+
+	/**
+	 * Number of different agents to simulate.
+	 */
+	@Param({ "2" })
+	private int agents;
+
+	/**
+	 * Number of different methods to simulate.
+	 */
+	@Param({ "100", "1000" })
+	private int methods;
+
+	/**
+	 * Aggregator under test.
+	 */
+	private TimerDataAggregator aggregator;
+
+	/**
+	 * Set up, prepare the aggregator.
+	 */
+	@Setup
+	public void init() {
+		PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+
+			@Override
+			public TransactionStatus getTransaction(TransactionDefinition definition) {
+				return new SimpleTransactionStatus();
+			}
+
+			@Override
+			public void commit(TransactionStatus status) {
+			}
+
+			@Override
+			public void rollback(TransactionStatus status) {
+			}
+		};
+
+		aggregator = new TimerDataAggregator(transactionManager);
+		aggregator.aggregationPeriod = 100L;
+		aggregator.cacheCleanSleepingPeriod = 50L;
+		aggregator.maxElements = 200;
+		aggregator.entityManager = (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(), new Class<?>[] { EntityManager.class }, new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				return null;
+			}
+		});
+		aggregator.postConstruct();
+	}
+
+	/**
+	 * Stops the cache cleaner of the aggregator, so that it does not keep running into the next
+	 * trial.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		aggregator.preDestroy();
+	}
+
+	@Benchmark
+	public void processTimerData(ThreadState threadState) {
+		aggregator.processTimerData(threadState.nextTimerData(agents, methods));
+	}
+
+	/**
+	 * Random generator of each processing thread.
+	 */
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		/**
+		 * Random.
+		 */
+		private final Random random = new Random();
+
+		/**
+		 * Creates the next timer data to process.
+		 * 
+		 * @param agents
+		 *            Number of different agents.
+		 * @param methods
+		 *            Number of different methods.
+		 * @return Timer data.
+		 */
+		TimerData nextTimerData(int agents, int methods) {
+			TimerData timerData = new TimerData(new Timestamp(System.currentTimeMillis()), 1L + random.nextInt(agents), 1L, 1L + random.nextInt(methods));
+			timerData.setCount(1L);
+			timerData.setDuration(random.nextDouble());
+			timerData.calculateMin(timerData.getDuration());
+			timerData.calculateMax(timerData.getDuration());
+			timerData.setCharting(true);
+			return timerData;
+		}
+
+	}
+
+}
@@ -0,0 +1,235 @@
+package rocks.inspectit.server.indexing;
+
+import java.lang.reflect.Method;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.ExceptionSensorData;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.indexing.restriction.IIndexQueryRestriction;
+import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionPredicate;
+import rocks.inspectit.shared.cs.indexing.restriction.impl.CachingIndexQueryRestrictionProcessor;
+import rocks.inspectit.shared.cs.indexing.restriction.impl.IndexQueryRestrictionFactory;
+
+/**
+ * Checks the restrictions of one query against the same mix of objects the
+ * {@link IndexingTreePerfTest} puts into the indexing tree. The <code>reflection</code> benchmark
+ * resolves the getters with {@link Method#invoke(Object, Object...)} as it was done before the
+ * restrictions were compiled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class IndexQueryRestrictionPerfTest {
+
+	/**
+	 * Number of objects to check.
+	 */
+	@Param({ "10000" })
+	private int objects;
+
+	/**
+	 * Number of restrictions in the query.
+	 */
+	@Param({ "3", "5" })
+	private int restrictionCount;
+
+	/**
+	 * Number of different agents to simulate.
+	 */
+	@Param({ "2" })
+	private int agents;
+
+	/**
+	 * Number of different sensors to simulate.
+	 */
+	@Param({ "10" })
+	private int sensors;
+
+	/**
+	 * Number of different methods to simulate.
+	 */
+	@Param({ "100" })
+	private int methods;
+
+	/**
+	 * Spread of data in duration of 1 hour.
+	 */
+	@Param({ "3600000" })
+	private int timestampSpread;
+
+	/**
+	 * Objects to check.
+	 */
+	private List<DefaultData> data;
+
+	/**
+	 * Restrictions of the query.
+	 */
+	private List<IIndexQueryRestriction> restrictions;
+
+	/**
+	 * Processor under test.
+	 */
+	private CachingIndexQueryRestrictionProcessor processor;
+
+	/**
+	 * Restrictions compiled by the processor.
+	 */
+	private IIndexQueryRestrictionPredicate predicate;
+
+	/**
+	 * Methods for the reflection benchmark.
+	 */
+	private ConcurrentHashMap<Integer, Method> methodCache;
+
+	/**
+	 * Set up, prepare objects and restrictions.
+	 */
+	@Setup
+	public void init() {
+		Random random = new Random();
+		data = new ArrayList<DefaultData>(objects);
+		for (int i = 0; i < objects; i++) {
+			DefaultData defaultData = getRandomDataObject(random);
+			defaultData.setId(i);
+			data.add(defaultData);
+		}
+
+		restrictions = new ArrayList<IIndexQueryRestriction>();
+		restrictions.add(IndexQueryRestrictionFactory.isNotNull("timeStamp"));
+		restrictions.add(IndexQueryRestrictionFactory.lessEqual("platformIdent", (long) agents));
+		restrictions.add(IndexQueryRestrictionFactory.greaterEqual("methodIdent", 1L));
+		if (restrictionCount > 3) {
+			restrictions.add(IndexQueryRestrictionFactory.greaterEqual("id", 0L));
+			restrictions.add(IndexQueryRestrictionFactory.notEqual("httpInfo.id", -1L));
+		}
+
+		processor = new CachingIndexQueryRestrictionProcessor();
+		predicate = processor.compile(restrictions);
+		methodCache = new ConcurrentHashMap<Integer, Method>();
+	}
+
+	@Benchmark
+	public int compiled() {
+		int fulfilled = 0;
+		for (DefaultData defaultData : data) {
+			if (predicate.areAllRestrictionsFulfilled(defaultData)) {
+				fulfilled++;
+			}
+		}
+		return fulfilled;
+	}
+
+	@Benchmark
+	public int notCompiled() {
+		int fulfilled = 0;
+		for (DefaultData defaultData : data) {
+			if (processor.areAllRestrictionsFulfilled(defaultData, restrictions)) {
+				fulfilled++;
+			}
+		}
+		return fulfilled;
+	}
+
+	@Benchmark
+	public int reflection() throws Exception {
+		int fulfilled = 0;
+		for (DefaultData defaultData : data) {
+			if (areAllRestrictionsFulfilledReflection(defaultData)) {
+				fulfilled++;
+			}
+		}
+		return fulfilled;
+	}
+
+	// private helpers
+	private boolean areAllRestrictionsFulfilledReflection(Object object) throws Exception {
+		for (IIndexQueryRestriction restriction : restrictions) {
+			Object executeOn = object;
+			for (String methodName : restriction.getQualifiedMethodNames()) {
+				Method method = getMethod(executeOn.getClass(), methodName);
+				if (null == method) {
+					return false;
+				}
+				executeOn = method.invoke(executeOn, new Object[0]);
+			}
+			if (!restriction.isFulfilled(executeOn)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Method getMethod(Class<?> clazz, String methodName) {
+		Integer cacheKey = Integer.valueOf((31 * clazz.hashCode()) + methodName.hashCode());
+		Method method = methodCache.get(cacheKey);
+		if (null == method) {
+			try {
+				method = clazz.getMethod(methodName, new Class<?>[0]);
+			} catch (NoSuchMethodException e) {
+				method = null;
+			}
+			if (null != method) {
+				methodCache.putIfAbsent(cacheKey, method);
+			}
+		}
+		return method;
+	}
+
+	private DefaultData getRandomDataObject(Random random) {
+		int objectSplit = random.nextInt(100);
+
+		// http 5%, exceptions 5%, sqls 25%, timers 65%
+		if (objectSplit < 5) {
+			HttpTimerData httpTimerData = new HttpTimerData(new Timestamp(getRandomTimestamp(random)), getRandomPlatformIdent(random), getRandomSensorIdent(random), getRandomMethodIdent(random));
+			httpTimerData.getHttpInfo().setId(random.nextInt(methods));
+			return httpTimerData;
+		} else if (objectSplit < 10) {
+			return new ExceptionSensorData(new Timestamp(getRandomTimestamp(random)), getRandomPlatformIdent(random), getRandomSensorIdent(random), getRandomMethodIdent(random));
+		} else if (objectSplit < 35) {
+			return new SqlStatementData(new Timestamp(getRandomTimestamp(random)), getRandomPlatformIdent(random), getRandomSensorIdent(random), getRandomMethodIdent(random));
+		} else {
+			return new TimerData(new Timestamp(getRandomTimestamp(random)), getRandomPlatformIdent(random), getRandomSensorIdent(random), getRandomMethodIdent(random));
+		}
+	}
+
+	private long getRandomPlatformIdent(Random random) {
+		return 1L + random.nextInt(agents);
+	}
+
+	private long getRandomSensorIdent(Random random) {
+		return 1L + random.nextInt(sensors);
+	}
+
+	private long getRandomMethodIdent(Random random) {
+		return 1L + random.nextInt(methods);
+	}
+
+	private long getRandomTimestamp(Random random) {
+		return System.currentTimeMillis() - random.nextInt(timestampSpread);
+	}
+
+}
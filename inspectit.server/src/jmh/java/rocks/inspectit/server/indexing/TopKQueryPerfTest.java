@@ -0,0 +1,194 @@
+package rocks.inspectit.server.indexing;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocks.inspectit.server.indexing.impl.RootBranchFactory;
+import rocks.inspectit.server.indexing.impl.RootBranchFactory.RootBranch;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.comparator.DefaultDataComparatorEnum;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.cs.indexing.impl.IndexQuery;
+import rocks.inspectit.shared.cs.indexing.query.factory.impl.InvocationSequenceDataQueryFactory;
+import rocks.inspectit.shared.cs.indexing.query.provider.impl.IndexQueryProvider;
+import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionProcessor;
+import rocks.inspectit.shared.cs.indexing.restriction.impl.CachingIndexQueryRestrictionProcessor;
+
+/**
+ * Compares the invocation overview query that returns only the newest invocations. The
+ * <code>sortAfterQuery</code> benchmarks query the complete result and sort it afterwards as it
+ * was done before the comparator and the limit were passed to the indexing tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class TopKQueryPerfTest {
+
+	/**
+	 * Indexing tree under test.
+	 */
+	private RootBranch<DefaultData> indexingTree;
+
+	/**
+	 * Number of invocations to be added to the indexing tree.
+	 */
+	@Param({ "100000" })
+	private int invocations;
+
+	/**
+	 * Number of invocations to return.
+	 */
+	@Param({ "100", "1000" })
+	private int limit;
+
+	/**
+	 * Number of different agents to simulate.
+	 */
+	@Param({ "2" })
+	private int agents;
+
+	/**
+	 * Number of different sensors to simulate.
+	 */
+	@Param({ "10" })
+	private int sensors;
+
+	/**
+	 * Number of different methods to simulate.
+	 */
+	@Param({ "100" })
+	private int methods;
+
+	/**
+	 * Spread of data in duration of 1 hour.
+	 */
+	@Param({ "3600000" })
+	private int timestampSpread;
+
+	/**
+	 * Invocation overview query.
+	 */
+	private IndexQuery invocationOverviewQuery;
+
+	/**
+	 * Comparator sorting the newest invocations first.
+	 */
+	private Comparator<DefaultData> comparator;
+
+	/**
+	 * ForkJoinPool.
+	 */
+	private ForkJoinPool forkJoinPool;
+
+	/**
+	 * Set up, prepare indexing tree.
+	 */
+	@Setup(Level.Trial)
+	public void initIndexingTree() throws Exception {
+		forkJoinPool = new ForkJoinPool(4);
+
+		RootBranchFactory rootBranchFactory = new RootBranchFactory();
+		indexingTree = rootBranchFactory.getObject();
+
+		Random random = new Random();
+		for (int i = 0; i < invocations; i++) {
+			InvocationSequenceData data = new InvocationSequenceData(new Timestamp(getRandomTimestamp(random)), getRandomPlatformIdent(random), getRandomSensorIdent(random),
+					getRandomMethodIdent(random));
+			data.setId(i);
+			indexingTree.put(data);
+		}
+
+		final IIndexQueryRestrictionProcessor restrictionProcessor = new CachingIndexQueryRestrictionProcessor();
+		IndexQueryProvider indexQueryProvider = new IndexQueryProvider() {
+
+			@Override
+			public IndexQuery createNewIndexQuery() {
+				IndexQuery indexQuery = new IndexQuery();
+				indexQuery.setRestrictionProcessor(restrictionProcessor);
+				return indexQuery;
+			}
+		};
+
+		InvocationSequenceDataQueryFactory<IndexQuery> invocationSequenceDataQueryFactory = new InvocationSequenceDataQueryFactory<IndexQuery>(indexQueryProvider);
+		invocationOverviewQuery = invocationSequenceDataQueryFactory.getInvocationSequenceOverview(0, 0, 0, null, null);
+
+		comparator = Collections.reverseOrder(DefaultDataComparatorEnum.TIMESTAMP);
+	}
+
+	/**
+	 * Shuts down the fork join pool.
+	 */
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		forkJoinPool.shutdown();
+	}
+
+	@Benchmark
+	public List<DefaultData> sortAfterQuery() {
+		return sortAndLimit(indexingTree.query(invocationOverviewQuery));
+	}
+
+	@Benchmark
+	public List<DefaultData> sortAfterQueryForkJoin() {
+		return sortAndLimit(indexingTree.query(invocationOverviewQuery, forkJoinPool));
+	}
+
+	@Benchmark
+	public List<DefaultData> limitInQuery() {
+		return indexingTree.query(invocationOverviewQuery, comparator, limit);
+	}
+
+	@Benchmark
+	public List<DefaultData> limitInQueryForkJoin() {
+		return indexingTree.query(invocationOverviewQuery, comparator, limit, forkJoinPool);
+	}
+
+	// private helpers
+	private List<DefaultData> sortAndLimit(List<DefaultData> result) {
+		Collections.sort(result, comparator);
+		if (result.size() > limit) {
+			return new ArrayList<DefaultData>(result.subList(0, limit));
+		}
+		return result;
+	}
+
+	private long getRandomPlatformIdent(Random random) {
+		return 1L + random.nextInt(agents);
+	}
+
+	private long getRandomSensorIdent(Random random) {
+		return 1L + random.nextInt(sensors);
+	}
+
+	private long getRandomMethodIdent(Random random) {
+		return 1L + random.nextInt(methods);
+	}
+
+	private long getRandomTimestamp(Random random) {
+		return System.currentTimeMillis() - random.nextInt(timestampSpread);
+	}
+
+}
@@ -0,0 +1,307 @@
+package rocks.inspectit.server.tsdb;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+
+/**
+ * Compares the {@link TimeSeriesStore} with the H2 database the platform sensor data was saved to
+ * before. Both are filled with one day of CPU samples of 10 platforms sent every 5 seconds. The
+ * ingestion benchmarks save the samples in batches of 100 like the agent sends them, the query
+ * benchmarks read one hour of one platform. The H2 table has the columns and the index the
+ * Hibernate mapping creates for the {@link CpuInformationData}. The bytes per sample of both are
+ * printed at the end of each fork.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TimeSeriesStorePerfTest {
+
+	/**
+	 * Number of platforms.
+	 */
+	private static final int PLATFORMS = 10;
+
+	/**
+	 * Sending interval of the samples.
+	 */
+	private static final long INTERVAL = 5000L;
+
+	/**
+	 * Number of samples per platform loaded before the measurement.
+	 */
+	private static final int SAMPLES = (int) (TimeUnit.DAYS.toMillis(1) / INTERVAL);
+
+	/**
+	 * Samples saved in one ingestion operation.
+	 */
+	private static final int BATCH_SIZE = 100;
+
+	/**
+	 * Start time of the samples.
+	 */
+	private static final long START = 1451606400000L;
+
+	/**
+	 * Folder of the store and the database.
+	 */
+	private Path folder;
+
+	/**
+	 * Store under test.
+	 */
+	private TimeSeriesStore store;
+
+	/**
+	 * Connection to the H2 database.
+	 */
+	private Connection connection;
+
+	/**
+	 * Time stamp of the next ingested sample.
+	 */
+	private long nextTimestamp;
+
+	/**
+	 * Random.
+	 */
+	private final Random random = new Random(1);
+
+	/**
+	 * Creates and fills the store and the database.
+	 * 
+	 * @throws Exception
+	 *             If the store or the database can not be created.
+	 */
+	@Setup
+	public void init() throws Exception {
+		folder = Files.createTempDirectory("timeseries");
+
+		store = new TimeSeriesStore();
+		store.log = LoggerFactory.getLogger(TimeSeriesStore.class);
+		store.folder = folder.resolve("timeseries").toString();
+		store.postConstruct();
+
+		connection = DriverManager.getConnection("jdbc:h2:" + folder.resolve("inspectit").toString() + ";LOCK_MODE=0;CACHE_SIZE=131072", "inspectit", "inspectit");
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE cpu_information_data (id BIGINT AUTO_INCREMENT PRIMARY KEY, platform_ident BIGINT NOT NULL, sensor_type_ident BIGINT NOT NULL, "
+					+ "time_stamp TIMESTAMP NOT NULL, count INT, process_cpu_time BIGINT, min_cpu_usage REAL, max_cpu_usage REAL, total_cpu_usage REAL)");
+			statement.execute("CREATE INDEX cpu_platform_time ON cpu_information_data (platform_ident, time_stamp)");
+		}
+		connection.setAutoCommit(false);
+
+		List<CpuInformationData> batch = new ArrayList<CpuInformationData>(BATCH_SIZE);
+		for (int i = 0; i < SAMPLES; i++) {
+			for (int platform = 1; platform <= PLATFORMS; platform++) {
+				batch.add(createData(platform, START + (i * INTERVAL)));
+				if (batch.size() == BATCH_SIZE) {
+					saveToStore(batch);
+					saveToDatabase(batch);
+					batch.clear();
+				}
+			}
+		}
+		store.flush();
+		nextTimestamp = START + (SAMPLES * INTERVAL);
+
+		System.out.println("Time series store bytes per sample: " + ((double) store.getDiskSize() / (SAMPLES * PLATFORMS)));
+		System.out.println("H2 bytes per sample: " + ((double) Files.size(folder.resolve("inspectit.h2.db")) / (SAMPLES * PLATFORMS)));
+	}
+
+	/**
+	 * Closes the store and the database and deletes the folder.
+	 * 
+	 * @throws Exception
+	 *             If the folder can not be deleted.
+	 */
+	@TearDown
+	public void cleanUp() throws Exception {
+		store.preDestroy();
+		connection.close();
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public void ingestStore() {
+		saveToStore(nextBatch());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public void ingestH2() throws SQLException {
+		saveToDatabase(nextBatch());
+	}
+
+	@Benchmark
+	public void queryStore(Blackhole blackhole) {
+		long from = nextQueryStart();
+		CpuInformationData template = createData(1 + random.nextInt(PLATFORMS), from);
+		blackhole.consume(store.getDataFromToDate(template, new Date(from), new Date(from + TimeUnit.HOURS.toMillis(1))));
+	}
+
+	@Benchmark
+	public void queryH2(Blackhole blackhole) throws SQLException {
+		long from = nextQueryStart();
+		try (PreparedStatement statement = connection
+				.prepareStatement("SELECT * FROM cpu_information_data WHERE platform_ident = ? AND sensor_type_ident = ? AND time_stamp BETWEEN ? AND ?")) {
+			statement.setLong(1, 1 + random.nextInt(PLATFORMS));
+			statement.setLong(2, 1L);
+			statement.setTimestamp(3, new Timestamp(from));
+			statement.setTimestamp(4, new Timestamp(from + TimeUnit.HOURS.toMillis(1)));
+			List<CpuInformationData> result = new ArrayList<CpuInformationData>();
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					CpuInformationData data = new CpuInformationData();
+					data.setId(resultSet.getLong("id"));
+					data.setPlatformIdent(resultSet.getLong("platform_ident"));
+					data.setSensorTypeIdent(resultSet.getLong("sensor_type_ident"));
+					data.setTimeStamp(resultSet.getTimestamp("time_stamp"));
+					data.setCount(resultSet.getInt("count"));
+					data.setProcessCpuTime(resultSet.getLong("process_cpu_time"));
+					data.setMinCpuUsage(resultSet.getFloat("min_cpu_usage"));
+					data.setMaxCpuUsage(resultSet.getFloat("max_cpu_usage"));
+					data.setTotalCpuUsage(resultSet.getFloat("total_cpu_usage"));
+					result.add(data);
+				}
+			}
+			blackhole.consume(result);
+		}
+	}
+
+	/**
+	 * Saves the samples to the store.
+	 * 
+	 * @param batch
+	 *            Samples.
+	 */
+	private void saveToStore(List<CpuInformationData> batch) {
+		for (DefaultData data : batch) {
+			store.add(data);
+		}
+	}
+
+	/**
+	 * Saves the samples to the database in one transaction.
+	 * 
+	 * @param batch
+	 *            Samples.
+	 * @throws SQLException
+	 *             If the samples can not be saved.
+	 */
+	private void saveToDatabase(List<CpuInformationData> batch) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("INSERT INTO cpu_information_data (platform_ident, sensor_type_ident, time_stamp, count, process_cpu_time, "
+				+ "min_cpu_usage, max_cpu_usage, total_cpu_usage) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+			for (CpuInformationData data : batch) {
+				statement.setLong(1, data.getPlatformIdent());
+				statement.setLong(2, data.getSensorTypeIdent());
+				statement.setTimestamp(3, data.getTimeStamp());
+				statement.setInt(4, data.getCount());
+				statement.setLong(5, data.getProcessCpuTime());
+				statement.setFloat(6, data.getMinCpuUsage());
+				statement.setFloat(7, data.getMaxCpuUsage());
+				statement.setFloat(8, data.getTotalCpuUsage());
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+		connection.commit();
+	}
+
+	/**
+	 * Creates the next batch of samples of all platforms.
+	 * 
+	 * @return Samples.
+	 */
+	private List<CpuInformationData> nextBatch() {
+		List<CpuInformationData> batch = new ArrayList<CpuInformationData>(BATCH_SIZE);
+		while (batch.size() < BATCH_SIZE) {
+			for (int platform = 1; platform <= PLATFORMS; platform++) {
+				batch.add(createData(platform, nextTimestamp));
+			}
+			nextTimestamp += INTERVAL;
+		}
+		return batch;
+	}
+
+	/**
+	 * Returns random start of a query in the loaded day.
+	 * 
+	 * @return Start time.
+	 */
+	private long nextQueryStart() {
+		return START + (random.nextInt(23) * TimeUnit.HOURS.toMillis(1));
+	}
+
+	/**
+	 * Creates the sample.
+	 * 
+	 * @param platformIdent
+	 *            Platform ident.
+	 * @param timestamp
+	 *            Time stamp.
+	 * @return Sample.
+	 */
+	private CpuInformationData createData(long platformIdent, long timestamp) {
+		CpuInformationData data = new CpuInformationData();
+		data.setPlatformIdent(platformIdent);
+		data.setSensorTypeIdent(1L);
+		data.setTimeStamp(new Timestamp(timestamp));
+		data.setCount(1);
+		data.setProcessCpuTime(timestamp - START);
+		float usage = random.nextInt(1000) / 10f;
+		data.setMinCpuUsage(usage);
+		data.setMaxCpuUsage(usage);
+		data.setTotalCpuUsage(usage);
+		return data;
+	}
+
+}
@@ -0,0 +1,45 @@
+package rocks.inspectit.server.cache;
+
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+
+/**
+ * Listener that is informed about the elements indexed and evicted by the {@link IBuffer}. The
+ * memory the listener needs for the data of the buffer is added to the buffer size.
+ * 
+ * @param <E>
+ *            Type of objects in buffer.
+ */
+public interface IBufferListener<E> {
+
+	/**
+	 * Informs the listener that the element has been indexed.
+	 * 
+	 * @param element
+	 *            Indexed element.
+	 */
+	void elementIndexed(IBufferElement<E> element);
+
+	/**
+	 * Informs the listener that the element has been evicted. Note that the element might be
+	 * evicted before it was indexed.
+	 * 
+	 * @param element
+	 *            Evicted element.
+	 */
+	void elementEvicted(IBufferElement<E> element);
+
+	/**
+	 * Informs the listener that all elements have been removed from the buffer.
+	 */
+	void bufferCleared();
+
+	/**
+	 * Returns the size of the data the listener holds for the buffer.
+	 * 
+	 * @param objectSizes
+	 *            A proper instance of {@link IObjectSizes} that correspond to the JVM.
+	 * @return Size in bytes.
+	 */
+	long getSize(IObjectSizes objectSizes);
+
+}
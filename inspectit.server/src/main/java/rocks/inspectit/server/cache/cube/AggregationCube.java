@@ -0,0 +1,455 @@
+package rocks.inspectit.server.cache.cube;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.IAggregatedData;
+import rocks.inspectit.shared.all.communication.IIdsAwareAggregatedData;
+import rocks.inspectit.shared.all.communication.data.InvocationAwareData.MutableInt;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.cs.indexing.aggregation.impl.AggregationPerformer;
+
+/**
+ * Pre-aggregated view of the timer data in the buffer. When the data is indexed it's aggregated to
+ * the cell of its time bucket, platform, sensor type, method and the key of the view. When the
+ * data is evicted it's subtracted from its cell again, and the cell is removed when it does not
+ * hold any data. Aggregated views are created from the cells, thus only the data of the buckets at
+ * the borders of the queried interval has to be read from the indexing tree.
+ * <p>
+ * Minimum and maximum values can not be subtracted, so they include the evicted data of a cell
+ * until all of its data is evicted.
+ * 
+ * @param <E>
+ *            Type of the data in the cube.
+ */
+public abstract class AggregationCube<E extends TimerData> {
+
+	/**
+	 * Length of the time buckets in milliseconds.
+	 */
+	public static final long BUCKET_SIZE = 60000L;
+
+	/**
+	 * Class of the data.
+	 */
+	private final Class<? extends E> dataClass;
+
+	/**
+	 * Class of the aggregated data.
+	 */
+	private final Class<? extends E> aggregatedDataClass;
+
+	/**
+	 * Cells of the cube.
+	 */
+	private final ConcurrentHashMap<CellKey, Cell<E>> cells = new ConcurrentHashMap<CellKey, Cell<E>>();
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param dataClass
+	 *            Class of the data. Sub-classes are not included in the cube.
+	 * @param aggregatedDataClass
+	 *            Class of the aggregated data.
+	 */
+	protected AggregationCube(Class<? extends E> dataClass, Class<? extends E> aggregatedDataClass) {
+		this.dataClass = dataClass;
+		this.aggregatedDataClass = aggregatedDataClass;
+	}
+
+	/**
+	 * Returns the key of the view for the data. Data with the same key is aggregated to one cell
+	 * per time bucket, platform, sensor type and method.
+	 * 
+	 * @param data
+	 *            Data.
+	 * @return Key values.
+	 */
+	protected abstract List<?> getKey(E data);
+
+	/**
+	 * Creates the empty aggregated data of a cell. All values of the data the index queries can
+	 * be restricted on have to be set.
+	 * 
+	 * @param data
+	 *            First data of the cell.
+	 * @return Aggregated data.
+	 */
+	protected abstract IAggregatedData<E> createCellData(E data);
+
+	/**
+	 * Adds the data to its cell if it belongs to this cube.
+	 * 
+	 * @param defaultData
+	 *            Indexed data.
+	 */
+	public void add(DefaultData defaultData) {
+		E data = getData(defaultData);
+		if (null != data) {
+			update(data, true);
+		}
+	}
+
+	/**
+	 * Subtracts the data from its cell if it belongs to this cube.
+	 * 
+	 * @param defaultData
+	 *            Evicted data.
+	 */
+	public void remove(DefaultData defaultData) {
+		E data = getData(defaultData);
+		if (null != data) {
+			update(data, false);
+		}
+	}
+
+	/**
+	 * Removes all cells.
+	 */
+	public void clear() {
+		cells.clear();
+	}
+
+	/**
+	 * Returns if the query can be answered by the cube. Queries that don't search for the classes
+	 * of this cube or that are restricted on the id are not supported.
+	 * 
+	 * @param query
+	 *            Query.
+	 * @return If the query is supported.
+	 */
+	public boolean isQuerySupported(IIndexQuery query) {
+		if (0 != query.getMinId()) {
+			return false;
+		}
+		List<Class<?>> objectClasses = query.getObjectClasses();
+		return null != objectClasses && objectClasses.contains(dataClass) && objectClasses.contains(aggregatedDataClass);
+	}
+
+	/**
+	 * Passes the data of the cells fulfilling the query to the aggregation performer. The time
+	 * interval of the query is ignored, the cells of the buckets starting in the given interval
+	 * are used.
+	 * 
+	 * @param query
+	 *            Query.
+	 * @param fromTime
+	 *            Start of the first bucket, inclusive.
+	 * @param toTime
+	 *            End of the last bucket, exclusive.
+	 * @param aggregationPerformer
+	 *            Performer of the aggregation of the view.
+	 */
+	public void aggregate(IIndexQuery query, long fromTime, long toTime, AggregationPerformer<? super E> aggregationPerformer) {
+		for (Map.Entry<CellKey, Cell<E>> entry : cells.entrySet()) {
+			CellKey key = entry.getKey();
+			if ((key.bucketStart < fromTime) || (key.bucketStart >= toTime)) {
+				continue;
+			}
+			if (((0 != query.getPlatformIdent()) && (query.getPlatformIdent() != key.platformIdent)) || ((0 != query.getSensorTypeIdent()) && (query.getSensorTypeIdent() != key.sensorTypeIdent))
+					|| ((0 != query.getMethodIdent()) && (query.getMethodIdent() != key.methodIdent))) {
+				continue;
+			}
+
+			Cell<E> cell = entry.getValue();
+			synchronized (cell) {
+				E cellData = cell.data.getData();
+				if ((cell.elements > 0) && query.areAllRestrictionsFulfilled(cellData)) {
+					aggregationPerformer.processElement(cellData);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the size of the cube.
+	 * 
+	 * @param objectSizes
+	 *            A proper instance of {@link IObjectSizes} that correspond to the JVM.
+	 * @return Size in bytes.
+	 */
+	public long getSize(IObjectSizes objectSizes) {
+		long size = objectSizes.getSizeOfConcurrentHashMap(cells.size(), 16);
+		for (Map.Entry<CellKey, Cell<E>> entry : cells.entrySet()) {
+			size += objectSizes.alignTo8Bytes(objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(1, 0, 0, 0, 4, 0));
+			size += objectSizes.getSizeOf(entry.getKey().key);
+			size += objectSizes.alignTo8Bytes(objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(1, 1, 0, 0, 1, 0));
+			Cell<E> cell = entry.getValue();
+			synchronized (cell) {
+				size += cell.data.getData().getObjectSize(objectSizes);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the number of cells.
+	 * 
+	 * @return Returns the number of cells.
+	 */
+	public int getCellCount() {
+		return cells.size();
+	}
+
+	/**
+	 * Returns the start of the bucket the time belongs to.
+	 * 
+	 * @param time
+	 *            Time in milliseconds.
+	 * @return Start of the bucket in milliseconds.
+	 */
+	public static long getBucketStart(long time) {
+		return time - (time % BUCKET_SIZE);
+	}
+
+	/**
+	 * Returns the data if it belongs to this cube.
+	 * 
+	 * @param defaultData
+	 *            Data to check.
+	 * @return Data or <code>null</code> if it does not belong to this cube.
+	 */
+	@SuppressWarnings("unchecked")
+	private E getData(DefaultData defaultData) {
+		if ((null != defaultData) && (null != defaultData.getTimeStamp()) && ((defaultData.getClass() == dataClass) || (defaultData.getClass() == aggregatedDataClass))) {
+			return (E) defaultData;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the data to or subtracts it from its cell. A cell is created if needed, as the data can
+	 * be evicted before it's indexed, in that case the cell holds the negative values until the data
+	 * is added.
+	 * 
+	 * @param data
+	 *            Data.
+	 * @param add
+	 *            <code>true</code> to add the data, <code>false</code> to subtract it.
+	 */
+	private void update(E data, boolean add) {
+		long bucketStart = getBucketStart(data.getTimeStamp().getTime());
+		CellKey key = new CellKey(bucketStart, data.getPlatformIdent(), data.getSensorTypeIdent(), data.getMethodIdent(), getKey(data));
+		while (true) {
+			Cell<E> cell = cells.get(key);
+			if (null == cell) {
+				IAggregatedData<E> cellData = createCellData(data);
+				cellData.getData().setTimeStamp(new Timestamp(bucketStart));
+				cellData.getData().setMethodIdent(data.getMethodIdent());
+				cell = new Cell<E>(cellData);
+				Cell<E> existing = cells.putIfAbsent(key, cell);
+				if (null != existing) {
+					cell = existing;
+				}
+			}
+
+			synchronized (cell) {
+				// the cell was removed after we got it, try again with a new one
+				if (cell.removed) {
+					continue;
+				}
+				if (add) {
+					cell.data.aggregate(data);
+					cell.elements++;
+				} else {
+					subtract(cell.data, data);
+					cell.elements--;
+				}
+				if (0 == cell.elements) {
+					cell.removed = true;
+					cells.remove(key, cell);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Subtracts the values of the data from the aggregated data.
+	 * 
+	 * @param aggregatedData
+	 *            Aggregated data of the cell.
+	 * @param data
+	 *            Data to subtract.
+	 */
+	private void subtract(IAggregatedData<E> aggregatedData, E data) {
+		E cellData = aggregatedData.getData();
+		cellData.setCount(cellData.getCount() - data.getCount());
+		cellData.setDuration(cellData.getDuration() - data.getDuration());
+		if (data.isCpuMetricDataAvailable()) {
+			cellData.setCpuDuration(cellData.getCpuDuration() - data.getCpuDuration());
+		}
+		if (data.isExclusiveTimeDataAvailable()) {
+			cellData.setExclusiveCount(cellData.getExclusiveCount() - data.getExclusiveCount());
+			cellData.addExclusiveDuration(-data.getExclusiveDuration());
+		}
+
+		Map<Long, MutableInt> parentsIdMap = cellData.getInvocationsParentsIdMap();
+		if ((null != parentsIdMap) && (null != data.getInvocationsParentsIdMap())) {
+			for (Map.Entry<Long, MutableInt> entry : data.getInvocationsParentsIdMap().entrySet()) {
+				MutableInt count = parentsIdMap.get(entry.getKey());
+				if (null != count) {
+					count.add(-entry.getValue().getValue());
+					if (count.getValue() <= 0) {
+						parentsIdMap.remove(entry.getKey());
+					}
+				}
+			}
+		}
+
+		if (aggregatedData instanceof IIdsAwareAggregatedData) {
+			Collection<Long> aggregatedIds = ((IIdsAwareAggregatedData<?>) aggregatedData).getAggregatedIds();
+			if (data instanceof IIdsAwareAggregatedData) {
+				aggregatedIds.removeAll(((IIdsAwareAggregatedData<?>) data).getAggregatedIds());
+			} else {
+				aggregatedIds.remove(data.getId());
+			}
+		}
+	}
+
+	/**
+	 * Key of a cell.
+	 */
+	private static final class CellKey {
+
+		/**
+		 * Start of the time bucket.
+		 */
+		private final long bucketStart;
+
+		/**
+		 * Platform ident.
+		 */
+		private final long platformIdent;
+
+		/**
+		 * Sensor type ident.
+		 */
+		private final long sensorTypeIdent;
+
+		/**
+		 * Method ident.
+		 */
+		private final long methodIdent;
+
+		/**
+		 * Key of the view.
+		 */
+		private final List<?> key;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param bucketStart
+		 *            Start of the time bucket.
+		 * @param platformIdent
+		 *            Platform ident.
+		 * @param sensorTypeIdent
+		 *            Sensor type ident.
+		 * @param methodIdent
+		 *            Method ident.
+		 * @param key
+		 *            Key of the view.
+		 */
+		CellKey(long bucketStart, long platformIdent, long sensorTypeIdent, long methodIdent, List<?> key) {
+			this.bucketStart = bucketStart;
+			this.platformIdent = platformIdent;
+			this.sensorTypeIdent = sensorTypeIdent;
+			this.methodIdent = methodIdent;
+			this.key = key;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + (int) (bucketStart ^ (bucketStart >>> 32));
+			result = prime * result + (int) (platformIdent ^ (platformIdent >>> 32));
+			result = prime * result + (int) (sensorTypeIdent ^ (sensorTypeIdent >>> 32));
+			result = prime * result + (int) (methodIdent ^ (methodIdent >>> 32));
+			result = prime * result + ((key == null) ? 0 : key.hashCode());
+			return result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			CellKey other = (CellKey) obj;
+			if (bucketStart != other.bucketStart) {
+				return false;
+			}
+			if (platformIdent != other.platformIdent) {
+				return false;
+			}
+			if (sensorTypeIdent != other.sensorTypeIdent) {
+				return false;
+			}
+			if (methodIdent != other.methodIdent) {
+				return false;
+			}
+			if (key == null) {
+				if (other.key != null) {
+					return false;
+				}
+			} else if (!key.equals(other.key)) {
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Cell of the cube.
+	 * 
+	 * @param <E>
+	 *            Type of the data in the cell.
+	 */
+	private static final class Cell<E extends TimerData> {
+
+		/**
+		 * Aggregated data.
+		 */
+		private final IAggregatedData<E> data;
+
+		/**
+		 * Number of the aggregated elements.
+		 */
+		private long elements;
+
+		/**
+		 * If the cell has been removed from the cube.
+		 */
+		private boolean removed;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param data
+		 *            Aggregated data.
+		 */
+		Cell(IAggregatedData<E> data) {
+			this.data = data;
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package rocks.inspectit.server.cache.cube;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.server.cache.IBufferElement;
+import rocks.inspectit.server.cache.IBufferListener;
+import rocks.inspectit.server.cache.impl.CompressedInvocationBufferElement;
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+
+/**
+ * Holds the cubes of the aggregated timer, SQL and HTTP views. The cubes are updated with the data
+ * indexed and evicted by the buffer, and with the data of the invocations that is directly
+ * indexed. The data of an invocation is subtracted when the invocation is evicted.
+ */
+@Component
+public class AggregationCubes implements IBufferListener<DefaultData> {
+
+	/**
+	 * Cube of the timer data.
+	 */
+	private final TimerDataAggregationCube timerDataCube = new TimerDataAggregationCube();
+
+	/**
+	 * Cube of the SQL statements.
+	 */
+	private final SqlStatementDataAggregationCube sqlStatementDataCube = new SqlStatementDataAggregationCube();
+
+	/**
+	 * Cube of the HTTP timer data.
+	 */
+	private final HttpTimerDataAggregationCube httpTimerDataCube = new HttpTimerDataAggregationCube();
+
+	/**
+	 * Adds the data to the cube it belongs to.
+	 * 
+	 * @param defaultData
+	 *            Indexed data.
+	 */
+	public void add(DefaultData defaultData) {
+		timerDataCube.add(defaultData);
+		sqlStatementDataCube.add(defaultData);
+		httpTimerDataCube.add(defaultData);
+	}
+
+	/**
+	 * Subtracts the data from the cube it belongs to.
+	 * 
+	 * @param defaultData
+	 *            Evicted data.
+	 */
+	public void remove(DefaultData defaultData) {
+		timerDataCube.remove(defaultData);
+		sqlStatementDataCube.remove(defaultData);
+		httpTimerDataCube.remove(defaultData);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void elementIndexed(IBufferElement<DefaultData> element) {
+		add(element.getObject());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The directly indexed data of the nested sequences is subtracted together with the
+	 * invocation.
+	 */
+	@Override
+	public void elementEvicted(IBufferElement<DefaultData> element) {
+		DefaultData defaultData = element.getObject();
+		remove(defaultData);
+
+		if (element instanceof CompressedInvocationBufferElement) {
+			for (DefaultData nestedData : ((CompressedInvocationBufferElement<DefaultData>) element).getNestedIndexedData()) {
+				remove(nestedData);
+			}
+		} else if (defaultData instanceof InvocationSequenceData) {
+			List<DefaultData> nestedIndexedData = new ArrayList<DefaultData>();
+			for (InvocationSequenceData child : ((InvocationSequenceData) defaultData).getNestedSequences()) {
+				CompressedInvocationBufferElement.collectIndexedData(child, nestedIndexedData);
+			}
+			for (DefaultData nestedData : nestedIndexedData) {
+				remove(nestedData);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void bufferCleared() {
+		timerDataCube.clear();
+		sqlStatementDataCube.clear();
+		httpTimerDataCube.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSize(IObjectSizes objectSizes) {
+		return timerDataCube.getSize(objectSizes) + sqlStatementDataCube.getSize(objectSizes) + httpTimerDataCube.getSize(objectSizes);
+	}
+
+	/**
+	 * Gets {@link #timerDataCube}.
+	 * 
+	 * @return {@link #timerDataCube}
+	 */
+	public TimerDataAggregationCube getTimerDataCube() {
+		return timerDataCube;
+	}
+
+	/**
+	 * Gets {@link #sqlStatementDataCube}.
+	 * 
+	 * @return {@link #sqlStatementDataCube}
+	 */
+	public SqlStatementDataAggregationCube getSqlStatementDataCube() {
+		return sqlStatementDataCube;
+	}
+
+	/**
+	 * Gets {@link #httpTimerDataCube}.
+	 * 
+	 * @return {@link #httpTimerDataCube}
+	 */
+	public HttpTimerDataAggregationCube getHttpTimerDataCube() {
+		return httpTimerDataCube;
+	}
+
+}
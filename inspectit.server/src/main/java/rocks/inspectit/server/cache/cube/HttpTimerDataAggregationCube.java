@@ -0,0 +1,49 @@
+package rocks.inspectit.server.cache.cube;
+
+import java.util.Arrays;
+import java.util.List;
+
+import rocks.inspectit.shared.all.communication.IAggregatedData;
+import rocks.inspectit.shared.all.communication.data.AggregatedHttpTimerData;
+import rocks.inspectit.shared.all.communication.data.HttpInfo;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+
+/**
+ * Cube of the aggregated HTTP timer data views. The cells are separated by the URI, the tag and
+ * the request method, so that the URI and the use case based views can be created from them. The
+ * charting data is kept in own cells, as the cells take the charting flag of their first data.
+ */
+public class HttpTimerDataAggregationCube extends AggregationCube<HttpTimerData> {
+
+	/**
+	 * Default constructor.
+	 */
+	public HttpTimerDataAggregationCube() {
+		super(HttpTimerData.class, AggregatedHttpTimerData.class);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected List<?> getKey(HttpTimerData data) {
+		HttpInfo httpInfo = data.getHttpInfo();
+		return Arrays.asList(data.isCharting(), httpInfo.getUri(), httpInfo.getInspectItTaggingHeaderValue(), httpInfo.getRequestMethod());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IAggregatedData<HttpTimerData> createCellData(HttpTimerData data) {
+		AggregatedHttpTimerData cellData = new AggregatedHttpTimerData();
+		cellData.setPlatformIdent(data.getPlatformIdent());
+		cellData.setSensorTypeIdent(data.getSensorTypeIdent());
+		cellData.setCharting(data.isCharting());
+		cellData.getHttpInfo().setUri(data.getHttpInfo().getUri());
+		cellData.getHttpInfo().setInspectItTaggingHeaderValue(data.getHttpInfo().getInspectItTaggingHeaderValue());
+		cellData.getHttpInfo().setRequestMethod(data.getHttpInfo().getRequestMethod());
+		return cellData;
+	}
+
+}
@@ -0,0 +1,40 @@
+package rocks.inspectit.server.cache.cube;
+
+import java.util.Arrays;
+import java.util.List;
+
+import rocks.inspectit.shared.all.communication.IAggregatedData;
+import rocks.inspectit.shared.all.communication.data.AggregatedSqlStatementData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.cs.indexing.aggregation.Aggregators;
+
+/**
+ * Cube of the aggregated SQL statements view. The cells are separated by the statement and the
+ * database, the parameters are not included.
+ */
+public class SqlStatementDataAggregationCube extends AggregationCube<SqlStatementData> {
+
+	/**
+	 * Default constructor.
+	 */
+	public SqlStatementDataAggregationCube() {
+		super(SqlStatementData.class, AggregatedSqlStatementData.class);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected List<?> getKey(SqlStatementData data) {
+		return Arrays.asList(data.isPreparedStatement(), data.getSql(), data.getDatabaseUrl(), data.getDatabaseProductName(), data.getDatabaseProductVersion());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IAggregatedData<SqlStatementData> createCellData(SqlStatementData data) {
+		return Aggregators.SQL_STATEMENT_DATA_AGGREGATOR.getClone(data);
+	}
+
+}
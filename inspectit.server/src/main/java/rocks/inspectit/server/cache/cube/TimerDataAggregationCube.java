@@ -0,0 +1,39 @@
+package rocks.inspectit.server.cache.cube;
+
+import java.util.Collections;
+import java.util.List;
+
+import rocks.inspectit.shared.all.communication.IAggregatedData;
+import rocks.inspectit.shared.all.communication.data.AggregatedTimerData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.cs.indexing.aggregation.Aggregators;
+
+/**
+ * Cube of the aggregated timer data view. The cells are only separated by the method.
+ */
+public class TimerDataAggregationCube extends AggregationCube<TimerData> {
+
+	/**
+	 * Default constructor.
+	 */
+	public TimerDataAggregationCube() {
+		super(TimerData.class, AggregatedTimerData.class);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected List<?> getKey(TimerData data) {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IAggregatedData<TimerData> createCellData(TimerData data) {
+		return Aggregators.TIMER_DATA_AGGREGATOR.getClone(data);
+	}
+
+}
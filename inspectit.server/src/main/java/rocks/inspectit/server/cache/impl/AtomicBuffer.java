@@ -1,6 +1,8 @@
 package rocks.inspectit.server.cache.impl;
 
 import java.text.NumberFormat;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -22,6 +24,7 @@ import org.springframework.stereotype.Component;
 import rocks.inspectit.server.cache.IBuffer;
 import rocks.inspectit.server.cache.IBufferElement;
 import rocks.inspectit.server.cache.IBufferElement.BufferElementState;
+import rocks.inspectit.server.cache.IBufferListener;
 import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
 import rocks.inspectit.shared.all.cmr.property.spring.PropertyUpdate;
 import rocks.inspectit.shared.all.communication.DefaultData;
@@ -70,6 +73,21 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E>, BeanName
 		this.indexingTree = indexingTree;
 	}
 
+	/**
+	 * Listeners informed about the indexed and evicted elements.
+	 */
+	List<IBufferListener<E>> bufferListeners = Collections.emptyList();
+
+	/**
+	 * Sets {@link #bufferListeners}.
+	 * 
+	 * @param bufferListeners
+	 *            New value for {@link #bufferListeners}
+	 */
+	public void setBufferListeners(List<IBufferListener<E>> bufferListeners) {
+		this.bufferListeners = bufferListeners;
+	}
+
 	/**
 	 * Atomic reference to the first object.
 	 */
@@ -349,6 +367,18 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E>, BeanName
 					// add evicted elements to the total count
 					elementsEvicted.addAndGet(elementsInFragment);
 
+					// inform listeners, the count is used as the next element of the last evicted
+					// one can already be a newly added element
+					if (!bufferListeners.isEmpty()) {
+						IBufferElement<E> evictedElement = currentLastElement;
+						for (int i = 0; i < elementsInFragment; i++) {
+							for (IBufferListener<E> bufferListener : bufferListeners) {
+								bufferListener.elementEvicted(evictedElement);
+							}
+							evictedElement = evictedElement.getNextElement();
+						}
+					}
+
 					// if the last is now pointing to the empty buffer element, it means that we
 					// have
 					// evicted all elements, so first should also point to empty buffer element
@@ -508,6 +538,9 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E>, BeanName
 			elementsIndexed.set(0);
 			elementsEvicted.set(0);
 			indexingTree.clearAll();
+			for (IBufferListener<E> bufferListener : bufferListeners) {
+				bufferListener.bufferCleared();
+			}
 			indexingTreeSize.set(0);
 			dataAddedInBytes.set(0);
 			dataRemovedInBytes.set(0);
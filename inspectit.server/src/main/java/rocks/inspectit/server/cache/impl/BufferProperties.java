@@ -131,6 +131,18 @@ public class BufferProperties {
 	@Value(value = "${buffer.maxOldSpaceOccupancy}")
 	float maxOldSpaceOccupancy;
 
+	/**
+	 * If invocation sequences should be kept compressed outside of the heap.
+	 */
+	@Value(value = "${buffer.invocationCompressionActive}")
+	boolean invocationCompressionActive;
+
+	/**
+	 * Maximum size of the direct memory used for the compressed invocation sequences.
+	 */
+	@Value(value = "${buffer.invocationCompressionMaxOffHeapSize}")
+	long invocationCompressionMaxOffHeapSize;
+
 	/**
 	 * Returns buffer eviction occupancy percentage.
 	 * 
@@ -237,6 +249,24 @@ public class BufferProperties {
 		return indexingWaitTime;
 	}
 
+	/**
+	 * Gets {@link #invocationCompressionActive}.
+	 * 
+	 * @return {@link #invocationCompressionActive}
+	 */
+	public boolean isInvocationCompressionActive() {
+		return invocationCompressionActive;
+	}
+
+	/**
+	 * Gets {@link #invocationCompressionMaxOffHeapSize}.
+	 * 
+	 * @return {@link #invocationCompressionMaxOffHeapSize}
+	 */
+	public long getInvocationCompressionMaxOffHeapSize() {
+		return invocationCompressionMaxOffHeapSize;
+	}
+
 	/**
 	 * @return the minOldSpaceOccupancyActiveTillOldGenSize
 	 */
@@ -469,6 +499,8 @@ public class BufferProperties {
 			log.info("||-Min object size expansion active till buffer occupancy: " + NumberFormat.getInstance().format(minObjectExpansionRateActiveTillOccupancy * 100) + " %");
 			log.info("||-Max object size expansion active till buffer size: " + NumberFormat.getInstance().format(maxObjectExpansionRateActiveTillBufferSize) + " bytes");
 			log.info("||-Min object size expansion active from buffer size: " + NumberFormat.getInstance().format(minObjectExpansionRateActiveFromBufferSize) + " bytes");
+			log.info("||-Invocation compression active: " + invocationCompressionActive);
+			log.info("||-Invocation compression max off-heap size: " + NumberFormat.getInstance().format(invocationCompressionMaxOffHeapSize) + " bytes");
 		}
 
 		// eviction
@@ -0,0 +1,146 @@
+package rocks.inspectit.server.cache.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import rocks.inspectit.server.cache.impl.CompressedInvocationStore.CompressedInvocation;
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.ExceptionEvent;
+import rocks.inspectit.shared.all.communication.data.ExceptionSensorData;
+import rocks.inspectit.shared.all.communication.data.InvocationAwareData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+
+/**
+ * Buffer element for an invocation sequence that is compressed in the
+ * {@link CompressedInvocationStore}. The element holds the clone of the invocation without nested
+ * sequences, which is indexed and used for the invocation overview. Timer, SQL and exception data
+ * of the nested sequences that is indexed on its own is also held by the element, as otherwise it
+ * would be removed from the indexing tree. The compressed invocation is released when the element
+ * is evicted.
+ * 
+ * @param <E>
+ *            Type of the object in the buffer.
+ */
+public class CompressedInvocationBufferElement<E extends DefaultData> extends BufferElement<E> {
+
+	/**
+	 * Indexed data of the nested sequences.
+	 */
+	private final DefaultData[] nestedIndexedData;
+
+	/**
+	 * Compressed invocation.
+	 */
+	private final CompressedInvocation compressedInvocation;
+
+	/**
+	 * Store holding the compressed invocation.
+	 */
+	private final CompressedInvocationStore compressedInvocationStore;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param invocationClone
+	 *            Clone of the invocation without nested sequences.
+	 * @param invocation
+	 *            Complete invocation to get the indexed data from.
+	 * @param compressedInvocation
+	 *            Compressed invocation.
+	 * @param compressedInvocationStore
+	 *            Store holding the compressed invocation.
+	 */
+	public CompressedInvocationBufferElement(E invocationClone, InvocationSequenceData invocation, CompressedInvocation compressedInvocation, CompressedInvocationStore compressedInvocationStore) {
+		super(invocationClone);
+		List<DefaultData> indexedData = new ArrayList<DefaultData>();
+		for (InvocationSequenceData child : invocation.getNestedSequences()) {
+			collectIndexedData(child, indexedData);
+		}
+		this.nestedIndexedData = indexedData.toArray(new DefaultData[indexedData.size()]);
+		this.compressedInvocation = compressedInvocation;
+		this.compressedInvocationStore = compressedInvocationStore;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Only the size of the objects on the heap is calculated, the compressed bytes are not included.
+	 */
+	@Override
+	public void calculateAndSetBufferElementSize(IObjectSizes objectSizes) {
+		long size = objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(5, 0, 0, 0, 1, 0);
+		if (null != getObject()) {
+			size += getObject().getObjectSize(objectSizes);
+		}
+		size += objectSizes.getSizeOfArray(nestedIndexedData.length);
+		for (DefaultData defaultData : nestedIndexedData) {
+			size += defaultData.getObjectSize(objectSizes);
+		}
+		// compressed invocation and its entry in the store
+		size += objectSizes.alignTo8Bytes(objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(1, 1, 3, 0, 0, 0));
+		size += objectSizes.getSizeOfHashMapKeyEntrySet() + objectSizes.getSizeOfLongObject();
+		size += size * objectSizes.getObjectSecurityExpansionRate();
+		setBufferElementSize(size);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Releases the compressed invocation when element is evicted.
+	 */
+	@Override
+	public void setBufferElementState(BufferElementState bufferElementState) {
+		super.setBufferElementState(bufferElementState);
+		if (BufferElementState.EVICTED == bufferElementState) {
+			compressedInvocationStore.release(getObject().getId(), compressedInvocation);
+		}
+	}
+
+	/**
+	 * Gets {@link #nestedIndexedData}.
+	 * 
+	 * @return {@link #nestedIndexedData}
+	 */
+	public DefaultData[] getNestedIndexedData() {
+		return nestedIndexedData;
+	}
+
+	/**
+	 * Collects the data of the invocation and its nested sequences that is indexed on its own.
+	 * 
+	 * @param invocation
+	 *            Invocation to collect from.
+	 * @param indexedData
+	 *            List to add the data to.
+	 */
+	public static void collectIndexedData(InvocationSequenceData invocation, List<DefaultData> indexedData) {
+		addIfIndexed(invocation.getTimerData(), indexedData);
+		addIfIndexed(invocation.getSqlStatementData(), indexedData);
+		if (null != invocation.getExceptionSensorDataObjects()) {
+			for (ExceptionSensorData exceptionData : invocation.getExceptionSensorDataObjects()) {
+				if (exceptionData.getExceptionEvent() == ExceptionEvent.CREATED) {
+					addIfIndexed(exceptionData, indexedData);
+				}
+			}
+		}
+		for (InvocationSequenceData child : invocation.getNestedSequences()) {
+			collectIndexedData(child, indexedData);
+		}
+	}
+
+	/**
+	 * Adds the data to the list if it's only found in invocations and thus indexed on its own.
+	 * 
+	 * @param invocationAwareData
+	 *            Data to check, can be <code>null</code>.
+	 * @param indexedData
+	 *            List to add the data to.
+	 */
+	private static void addIfIndexed(InvocationAwareData invocationAwareData, List<DefaultData> indexedData) {
+		if ((null != invocationAwareData) && invocationAwareData.isOnlyFoundInInvocations()) {
+			indexedData.add(invocationAwareData);
+		}
+	}
+
+}
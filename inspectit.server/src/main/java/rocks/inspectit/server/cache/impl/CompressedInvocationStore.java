@@ -0,0 +1,446 @@
+package rocks.inspectit.server.cache.impl;
+
+import java.nio.ByteBuffer;
+import java.text.NumberFormat;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+
+/**
+ * Keeps the invocation sequences of the buffer serialized and compressed in the direct memory.
+ * The compressed invocations are written one after another to pages of the direct memory. A page
+ * is reused for new invocations when all invocations written to it have been evicted from the
+ * buffer. The amount of the direct memory used is limited by the
+ * {@link BufferProperties#getInvocationCompressionMaxOffHeapSize()}, when the limit is reached the
+ * invocations are not compressed and stay on the heap.
+ * <p>
+ * The store only holds the bytes, the buffer holds the {@link CompressedInvocationBufferElement}
+ * with the invocation data needed for the indexing and the invocation overview.
+ */
+@Component
+public class CompressedInvocationStore {
+
+	/**
+	 * Size of one page of the direct memory.
+	 */
+	static final int PAGE_SIZE = 1024 * 1024;
+
+	/**
+	 * The logger of this class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * Buffer properties.
+	 */
+	@Autowired
+	BufferProperties bufferProperties;
+
+	/**
+	 * Serialization manager provider.
+	 */
+	@Autowired
+	SerializationManagerProvider serializationManagerProvider;
+
+	/**
+	 * Compressed invocations that are not released mapped by the invocation id.
+	 */
+	private final ConcurrentHashMap<Long, CompressedInvocation> compressedInvocations = new ConcurrentHashMap<Long, CompressedInvocation>();
+
+	/**
+	 * Pages that can be reused.
+	 */
+	private final Deque<ByteBuffer> freePages = new ArrayDeque<ByteBuffer>();
+
+	/**
+	 * Deflater for compressing.
+	 */
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+	/**
+	 * Inflater for decompressing.
+	 */
+	private final Inflater inflater = new Inflater();
+
+	/**
+	 * Output for serialization.
+	 */
+	private final Output output = new Output(4096, -1);
+
+	/**
+	 * Array the compressed bytes are written to before they are copied to the page.
+	 */
+	private byte[] compressedBytes = new byte[4096];
+
+	/**
+	 * Serialization manager.
+	 */
+	private SerializationManager serializationManager;
+
+	/**
+	 * Page new invocations are written to.
+	 */
+	private Page currentPage;
+
+	/**
+	 * Number of allocated pages.
+	 */
+	private int allocatedPages;
+
+	/**
+	 * Maximum number of pages to allocate.
+	 */
+	private int maxPages;
+
+	/**
+	 * Generation of the pages, increased when the store is cleared.
+	 */
+	private int generation;
+
+	/**
+	 * Returns if the invocations should be compressed.
+	 * 
+	 * @return Returns if the invocations should be compressed.
+	 */
+	public boolean isActive() {
+		return bufferProperties.isInvocationCompressionActive();
+	}
+
+	/**
+	 * Serializes and compresses the invocation to the direct memory.
+	 * <p>
+	 * Must only be called when the invocation is completely processed, as changes to the
+	 * invocation done after the compression are lost.
+	 * 
+	 * @param invocation
+	 *            Invocation to compress.
+	 * @return {@link CompressedInvocation} or <code>null</code> if the invocation can not be
+	 *         compressed or the direct memory limit is reached.
+	 */
+	public synchronized CompressedInvocation compress(InvocationSequenceData invocation) {
+		output.clear();
+		try {
+			serializationManager.serialize(invocation, output);
+		} catch (SerializationException e) {
+			log.warn("Invocation sequence can not be serialized, it will not be compressed.", e);
+			return null;
+		}
+
+		int length = output.position();
+		deflater.reset();
+		deflater.setInput(output.getBuffer(), 0, length);
+		deflater.finish();
+		int compressedLength = 0;
+		while (!deflater.finished()) {
+			if (compressedLength == compressedBytes.length) {
+				compressedBytes = Arrays.copyOf(compressedBytes, compressedBytes.length * 2);
+			}
+			compressedLength += deflater.deflate(compressedBytes, compressedLength, compressedBytes.length - compressedLength);
+		}
+
+		if (compressedLength > PAGE_SIZE) {
+			return null;
+		}
+
+		if ((null != currentPage) && (0 == currentPage.invocationCount) && (currentPage.buffer.remaining() < compressedLength)) {
+			// all invocations of the current page are released, start from the beginning
+			currentPage.buffer.clear();
+		} else if ((null == currentPage) || (currentPage.buffer.remaining() < compressedLength)) {
+			Page page = createPage();
+			if (null == page) {
+				return null;
+			}
+			if (null != currentPage) {
+				currentPage.sealed = true;
+				recycleIfEmpty(currentPage);
+			}
+			currentPage = page;
+		}
+
+		int offset = currentPage.buffer.position();
+		currentPage.buffer.put(compressedBytes, 0, compressedLength);
+		currentPage.invocationCount++;
+
+		CompressedInvocation compressedInvocation = new CompressedInvocation(currentPage, offset, compressedLength, length);
+		compressedInvocations.put(invocation.getId(), compressedInvocation);
+		return compressedInvocation;
+	}
+
+	/**
+	 * Returns the complete invocation for the given invocation. If the invocation was compressed
+	 * the de-compressed invocation with all nested sequences is returned, otherwise the given
+	 * invocation.
+	 * 
+	 * @param invocation
+	 *            Invocation from the buffer.
+	 * @return Complete invocation.
+	 */
+	public InvocationSequenceData getInvocationSequence(InvocationSequenceData invocation) {
+		if (compressedInvocations.isEmpty()) {
+			return invocation;
+		}
+
+		CompressedInvocation compressedInvocation = compressedInvocations.get(invocation.getId());
+		if (null == compressedInvocation) {
+			return invocation;
+		}
+
+		synchronized (this) {
+			// page might have been reused already
+			if (compressedInvocation.released || (compressedInvocation.page.generation != generation)) {
+				return invocation;
+			}
+
+			byte[] bytes = new byte[compressedInvocation.compressedLength];
+			ByteBuffer buffer = compressedInvocation.page.buffer.duplicate();
+			buffer.position(compressedInvocation.offset);
+			buffer.get(bytes);
+
+			try {
+				byte[] serialized = new byte[compressedInvocation.length];
+				inflater.reset();
+				inflater.setInput(bytes);
+				int length = 0;
+				while (!inflater.finished() && !inflater.needsInput() && (length < serialized.length)) {
+					length += inflater.inflate(serialized, length, serialized.length - length);
+				}
+				return (InvocationSequenceData) serializationManager.deserialize(new Input(serialized, 0, length));
+			} catch (DataFormatException | SerializationException e) {
+				log.error("Compressed invocation sequence with id " + invocation.getId() + " can not be read.", e);
+				return invocation;
+			}
+		}
+	}
+
+	/**
+	 * Releases the compressed invocation when it is evicted from the buffer. Can be called more
+	 * than once for the same invocation.
+	 * 
+	 * @param invocationId
+	 *            Id of the invocation.
+	 * @param compressedInvocation
+	 *            Compressed invocation to release.
+	 */
+	public synchronized void release(long invocationId, CompressedInvocation compressedInvocation) {
+		if (compressedInvocation.released) {
+			return;
+		}
+
+		compressedInvocation.released = true;
+		compressedInvocations.remove(invocationId, compressedInvocation);
+
+		Page page = compressedInvocation.page;
+		if (page.generation == generation) {
+			page.invocationCount--;
+			recycleIfEmpty(page);
+		}
+	}
+
+	/**
+	 * Releases all compressed invocations. Must be called when the buffer is cleared.
+	 */
+	public synchronized void clear() {
+		compressedInvocations.clear();
+		freePages.clear();
+		currentPage = null;
+		allocatedPages = 0;
+		generation++;
+	}
+
+	/**
+	 * Returns the amount of the direct memory in bytes used by the store.
+	 * 
+	 * @return Returns the amount of the direct memory in bytes used by the store.
+	 */
+	public synchronized long getOffHeapSize() {
+		return (long) allocatedPages * PAGE_SIZE;
+	}
+
+	/**
+	 * Returns number of compressed invocations in the store.
+	 * 
+	 * @return Returns number of compressed invocations in the store.
+	 */
+	public int getCompressedInvocationCount() {
+		return compressedInvocations.size();
+	}
+
+	/**
+	 * Returns a page to write to. Reuses a free page if one exists.
+	 * 
+	 * @return Page or <code>null</code> if the direct memory limit is reached.
+	 */
+	private Page createPage() {
+		ByteBuffer buffer = freePages.poll();
+		if (null == buffer) {
+			if (allocatedPages >= maxPages) {
+				return null;
+			}
+			try {
+				buffer = ByteBuffer.allocateDirect(PAGE_SIZE);
+			} catch (OutOfMemoryError e) { // NOPMD
+				log.warn("Direct memory for the compressed invocations can not be allocated, invocations will not be compressed.", e);
+				return null;
+			}
+			allocatedPages++;
+		}
+		buffer.clear();
+		return new Page(buffer, generation);
+	}
+
+	/**
+	 * Puts the page to the free pages if all its invocations are released and no new invocations
+	 * will be written to it.
+	 * 
+	 * @param page
+	 *            Page to check.
+	 */
+	private void recycleIfEmpty(Page page) {
+		if (page.sealed && (0 == page.invocationCount)) {
+			freePages.push(page.buffer);
+		}
+	}
+
+	/**
+	 * Is executed after dependency injection is done to perform any initialization.
+	 */
+	@PostConstruct
+	public void postConstruct() {
+		serializationManager = serializationManagerProvider.createSerializer();
+		maxPages = (int) (bufferProperties.getInvocationCompressionMaxOffHeapSize() / PAGE_SIZE);
+
+		if (isActive() && log.isInfoEnabled()) {
+			log.info("|-Compressing invocation sequences in the buffer using up to " + NumberFormat.getInstance().format((long) maxPages * PAGE_SIZE) + " bytes of direct memory...");
+		}
+	}
+
+	/**
+	 * Page of the direct memory.
+	 */
+	private static final class Page {
+
+		/**
+		 * Buffer of the page.
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * Generation of the store the page was created in.
+		 */
+		private final int generation;
+
+		/**
+		 * Number of not released invocations in the page.
+		 */
+		private int invocationCount;
+
+		/**
+		 * If no more invocations will be written to the page.
+		 */
+		private boolean sealed;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param buffer
+		 *            Buffer of the page.
+		 * @param generation
+		 *            Generation of the store the page was created in.
+		 */
+		Page(ByteBuffer buffer, int generation) {
+			this.buffer = buffer;
+			this.generation = generation;
+		}
+
+	}
+
+	/**
+	 * Location of one compressed invocation in the direct memory.
+	 */
+	public static final class CompressedInvocation {
+
+		/**
+		 * Page holding the compressed bytes.
+		 */
+		private final Page page;
+
+		/**
+		 * Position in the page.
+		 */
+		private final int offset;
+
+		/**
+		 * Number of compressed bytes.
+		 */
+		private final int compressedLength;
+
+		/**
+		 * Number of serialized bytes.
+		 */
+		private final int length;
+
+		/**
+		 * If the invocation has been released.
+		 */
+		private boolean released;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param page
+		 *            Page holding the compressed bytes.
+		 * @param offset
+		 *            Position in the page.
+		 * @param compressedLength
+		 *            Number of compressed bytes.
+		 * @param length
+		 *            Number of serialized bytes.
+		 */
+		CompressedInvocation(Page page, int offset, int compressedLength, int length) {
+			this.page = page;
+			this.offset = offset;
+			this.compressedLength = compressedLength;
+			this.length = length;
+		}
+
+		/**
+		 * Gets {@link #compressedLength}.
+		 * 
+		 * @return {@link #compressedLength}
+		 */
+		public int getCompressedLength() {
+			return compressedLength;
+		}
+
+		/**
+		 * Gets {@link #length}.
+		 * 
+		 * @return {@link #length}
+		 */
+		public int getLength() {
+			return length;
+		}
+
+	}
+
+}
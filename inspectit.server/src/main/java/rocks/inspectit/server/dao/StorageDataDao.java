@@ -102,7 +102,8 @@ public interface StorageDataDao {
 	/**
 	 * Returns all the data that is indexed in the indexing tree for a specific platform ident. Not
 	 * that is possible that some data is contained two times in the return list, ones as a object
-	 * in the list, ones as a part of invocation that is in the list.
+	 * in the list, ones as a part of invocation that is in the list. The platform sensor and JMX
+	 * data of the agent is loaded from the time series store.
 	 * 
 	 * @param platformId
 	 *            Id of agent.
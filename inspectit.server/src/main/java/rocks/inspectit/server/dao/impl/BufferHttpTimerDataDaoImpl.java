@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import rocks.inspectit.server.cache.cube.AggregationCubes;
 import rocks.inspectit.server.dao.HttpTimerDataDao;
 import rocks.inspectit.shared.all.communication.data.HttpTimerData;
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
@@ -36,13 +37,19 @@ public class BufferHttpTimerDataDaoImpl extends DefaultBufferDataDao<HttpTimerDa
 	@Autowired
 	private HttpTimerDataQueryFactory<IIndexQuery> httpDataQueryFactory;
 
+	/**
+	 * Cubes of the aggregated views.
+	 */
+	@Autowired
+	private AggregationCubes aggregationCubes;
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public List<HttpTimerData> getAggregatedHttpTimerData(HttpTimerData httpData, boolean includeRequestMethod) {
 		IIndexQuery query = httpDataQueryFactory.getFindAllHttpTimersQuery(httpData, null, null);
-		return super.executeQuery(query, new HttpTimerDataAggregator(true, includeRequestMethod), false);
+		return super.executeQuery(query, new HttpTimerDataAggregator(true, includeRequestMethod), aggregationCubes.getHttpTimerDataCube(), false);
 	}
 
 	/**
@@ -51,7 +58,7 @@ public class BufferHttpTimerDataDaoImpl extends DefaultBufferDataDao<HttpTimerDa
 	@Override
 	public List<HttpTimerData> getAggregatedHttpTimerData(HttpTimerData httpData, boolean includeRequestMethod, Date fromDate, Date toDate) {
 		IIndexQuery query = httpDataQueryFactory.getFindAllHttpTimersQuery(httpData, fromDate, toDate);
-		return super.executeQuery(query, new HttpTimerDataAggregator(true, includeRequestMethod), false);
+		return super.executeQuery(query, new HttpTimerDataAggregator(true, includeRequestMethod), aggregationCubes.getHttpTimerDataCube(), false);
 	}
 
 	/**
@@ -60,7 +67,7 @@ public class BufferHttpTimerDataDaoImpl extends DefaultBufferDataDao<HttpTimerDa
 	@Override
 	public List<HttpTimerData> getTaggedAggregatedHttpTimerData(HttpTimerData httpData, boolean includeRequestMethod) {
 		IIndexQuery query = httpDataQueryFactory.getFindAllTaggedHttpTimersQuery(httpData, null, null);
-		return super.executeQuery(query, new HttpTimerDataAggregator(false, includeRequestMethod), false);
+		return super.executeQuery(query, new HttpTimerDataAggregator(false, includeRequestMethod), aggregationCubes.getHttpTimerDataCube(), false);
 	}
 
 	/**
@@ -69,7 +76,7 @@ public class BufferHttpTimerDataDaoImpl extends DefaultBufferDataDao<HttpTimerDa
 	@Override
 	public List<HttpTimerData> getTaggedAggregatedHttpTimerData(HttpTimerData httpData, boolean includeRequestMethod, Date fromDate, Date toDate) {
 		IIndexQuery query = httpDataQueryFactory.getFindAllTaggedHttpTimersQuery(httpData, fromDate, toDate);
-		return super.executeQuery(query, new HttpTimerDataAggregator(false, includeRequestMethod), false);
+		return super.executeQuery(query, new HttpTimerDataAggregator(false, includeRequestMethod), aggregationCubes.getHttpTimerDataCube(), false);
 	}
 
 }
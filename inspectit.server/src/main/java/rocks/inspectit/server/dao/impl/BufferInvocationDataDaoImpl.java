@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import rocks.inspectit.server.cache.impl.CompressedInvocationStore;
 import rocks.inspectit.server.dao.InvocationDataDao;
 import rocks.inspectit.shared.all.communication.comparator.DefaultDataComparatorEnum;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
@@ -41,6 +42,12 @@ public class BufferInvocationDataDaoImpl extends DefaultBufferDataDao<Invocation
 	@Autowired
 	private InvocationSequenceDataQueryFactory<IIndexQuery> invocationDataQueryFactory;
 
+	/**
+	 * Store for the compressed invocations.
+	 */
+	@Autowired
+	private CompressedInvocationStore compressedInvocationStore;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -102,9 +109,15 @@ public class BufferInvocationDataDaoImpl extends DefaultBufferDataDao<Invocation
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * Compressed invocations are de-compressed.
 	 */
 	public InvocationSequenceData getInvocationSequenceDetail(InvocationSequenceData template) {
-		return super.getIndexingTree().get(template);
+		InvocationSequenceData invocationSequenceData = super.getIndexingTree().get(template);
+		if (null == invocationSequenceData) {
+			return null;
+		}
+		return compressedInvocationStore.getInvocationSequence(invocationSequenceData);
 	}
 
 }
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import rocks.inspectit.server.cache.cube.AggregationCubes;
 import rocks.inspectit.server.dao.SqlDataDao;
 import rocks.inspectit.shared.all.communication.data.SqlStatementData;
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
@@ -38,6 +39,12 @@ public class BufferSqlDataDaoImpl extends DefaultBufferDataDao<SqlStatementData>
 	@Autowired
 	private SqlStatementDataQueryFactory<IIndexQuery> sqlDataQueryFactory;
 
+	/**
+	 * Cubes of the aggregated views.
+	 */
+	@Autowired
+	private AggregationCubes aggregationCubes;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -50,7 +57,7 @@ public class BufferSqlDataDaoImpl extends DefaultBufferDataDao<SqlStatementData>
 	 */
 	public List<SqlStatementData> getAggregatedSqlStatements(SqlStatementData sqlStatementData, Date fromDate, Date toDate) {
 		IIndexQuery query = sqlDataQueryFactory.getAggregatedSqlStatementsQuery(sqlStatementData, fromDate, toDate);
-		return super.executeQuery(query, Aggregators.SQL_STATEMENT_DATA_AGGREGATOR, true);
+		return super.executeQuery(query, Aggregators.SQL_STATEMENT_DATA_AGGREGATOR, aggregationCubes.getSqlStatementDataCube(), true);
 	}
 
 	/**
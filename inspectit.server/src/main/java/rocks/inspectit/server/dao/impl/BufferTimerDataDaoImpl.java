@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import rocks.inspectit.server.cache.cube.AggregationCubes;
 import rocks.inspectit.server.dao.TimerDataDao;
 import rocks.inspectit.shared.all.communication.data.TimerData;
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
@@ -37,6 +38,12 @@ public class BufferTimerDataDaoImpl extends DefaultBufferDataDao<TimerData> impl
 	@Autowired
 	private TimerDataQueryFactory<IIndexQuery> timerDataQueryFactory;
 
+	/**
+	 * Cubes of the aggregated views.
+	 */
+	@Autowired
+	private AggregationCubes aggregationCubes;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -49,6 +56,6 @@ public class BufferTimerDataDaoImpl extends DefaultBufferDataDao<TimerData> impl
 	 */
 	public List<TimerData> getAggregatedTimerData(TimerData timerData, Date fromDate, Date toDate) {
 		IIndexQuery query = timerDataQueryFactory.getAggregatedTimerDataQuery(timerData, fromDate, toDate);
-		return super.executeQuery(query, Aggregators.TIMER_DATA_AGGREGATOR, true);
+		return super.executeQuery(query, Aggregators.TIMER_DATA_AGGREGATOR, aggregationCubes.getTimerDataCube(), true);
 	}
 }
@@ -1,11 +1,13 @@
 package rocks.inspectit.server.dao.impl;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 
+import rocks.inspectit.server.cache.cube.AggregationCube;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
 import rocks.inspectit.shared.cs.indexing.aggregation.IAggregator;
@@ -156,7 +158,9 @@ public class DefaultBufferDataDao<E extends DefaultData> {
 	/**
 	 * Executes the query on the indexing tree. If the {@link IAggregator} is not <code>null</code>
 	 * then the results will be aggregated based on the given {@link IAggregator}. Results can be
-	 * sorted by comparator. Furthermore the result list can be limited.
+	 * sorted by comparator. Furthermore the result list can be limited. If the results are sorted
+	 * and limited, but not aggregated, the indexing tree collects only the first elements instead
+	 * of the complete result.
 	 * 
 	 * @param indexQuery
 	 *            Index query to execute.
@@ -171,6 +175,15 @@ public class DefaultBufferDataDao<E extends DefaultData> {
 	 * @return Result list.
 	 */
 	protected List<E> executeQuery(IIndexQuery indexQuery, IAggregator<E> aggregator, Comparator<? super E> comparator, int limit, boolean useForkJoin) {
+		if (null == aggregator && null != comparator && limit > -1) {
+			// only the first elements are needed, let the tree components keep only those
+			if (useForkJoin) {
+				return indexingTree.query(indexQuery, comparator, limit, forkJoinPool);
+			} else {
+				return indexingTree.query(indexQuery, comparator, limit);
+			}
+		}
+
 		List<E> data;
 		
 		if (useForkJoin) {
@@ -195,6 +208,64 @@ public class DefaultBufferDataDao<E extends DefaultData> {
 		return data;
 	}
 
+	/**
+	 * Executes the aggregating query with the help of the {@link AggregationCube}. The complete
+	 * buckets of the cube in the interval of the query are aggregated from the cube, only the
+	 * data of the partially queried buckets at the borders of the interval is read from the
+	 * indexing tree. Queries not supported by the cube are executed on the indexing tree.
+	 * 
+	 * @param indexQuery
+	 *            Index query to execute.
+	 * @param aggregator
+	 *            {@link IAggregator} of the view.
+	 * @param aggregationCube
+	 *            Cube holding the pre-aggregated data of the view.
+	 * @param useForkJoin
+	 * 			  true, if forkJoinPool should be used
+	 * @return Result list.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected List<E> executeQuery(IIndexQuery indexQuery, IAggregator<E> aggregator, AggregationCube<?> aggregationCube, boolean useForkJoin) {
+		if (!aggregationCube.isQuerySupported(indexQuery)) {
+			return this.executeQuery(indexQuery, aggregator, useForkJoin);
+		}
+
+		Timestamp fromDate = indexQuery.getFromDate();
+		Timestamp toDate = indexQuery.getToDate();
+		// first complete bucket and the end of the last complete bucket
+		long cubeFrom = Long.MIN_VALUE;
+		if (null != fromDate) {
+			cubeFrom = AggregationCube.getBucketStart((fromDate.getTime() + AggregationCube.BUCKET_SIZE) - 1);
+		}
+		long cubeTo = Long.MAX_VALUE;
+		if (null != toDate) {
+			cubeTo = AggregationCube.getBucketStart(toDate.getTime() + 1);
+		}
+		if (cubeFrom >= cubeTo) {
+			// no complete bucket in the interval
+			return this.executeQuery(indexQuery, aggregator, useForkJoin);
+		}
+
+		AggregationPerformer<E> aggregationPerformer = new AggregationPerformer<E>(aggregator);
+		// the cube holds the data of the same type as this DAO
+		((AggregationCube) aggregationCube).aggregate(indexQuery, cubeFrom, cubeTo, aggregationPerformer);
+
+		if ((null != fromDate) && (fromDate.getTime() < cubeFrom)) {
+			Timestamp borderTo = new Timestamp(cubeFrom - 1);
+			borderTo.setNanos(999999999);
+			indexQuery.setToDate(borderTo);
+			aggregationPerformer.processCollection(this.executeQuery(indexQuery, useForkJoin));
+			indexQuery.setToDate(toDate);
+		}
+		if ((null != toDate) && (toDate.getTime() >= cubeTo)) {
+			indexQuery.setFromDate(new Timestamp(cubeTo));
+			aggregationPerformer.processCollection(this.executeQuery(indexQuery, useForkJoin));
+			indexQuery.setFromDate(fromDate);
+		}
+
+		return aggregationPerformer.getResultList();
+	}
+
 	/**
 	 * Gets {@link #indexingTree}.
 	 * 
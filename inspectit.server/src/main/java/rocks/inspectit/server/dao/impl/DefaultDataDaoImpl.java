@@ -1,13 +1,17 @@
 package rocks.inspectit.server.dao.impl;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -26,6 +30,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import rocks.inspectit.server.dao.DefaultDataDao;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
+import rocks.inspectit.server.tsdb.RollupManager;
+import rocks.inspectit.server.tsdb.RollupTier;
+import rocks.inspectit.server.tsdb.TimeSeriesStore;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.MethodSensorData;
 import rocks.inspectit.shared.all.communication.data.HttpInfo;
@@ -63,6 +70,25 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 	@PersistenceContext
 	private EntityManager entityManager;
 
+	/**
+	 * Store of the platform sensor and JMX data, such data is not in the database.
+	 */
+	@Autowired
+	private TimeSeriesStore timeSeriesStore;
+
+	/**
+	 * Manager of the rollups used for the charts of long time ranges.
+	 */
+	@Autowired
+	private RollupManager rollupManager;
+
+	/**
+	 * Samples of the {@link TimeSeriesStore} classes that were saved in the database before the
+	 * classes were moved to the store, mapped by the class. Only the classes with such samples are
+	 * in the map.
+	 */
+	private final Map<Class<?>, DatabaseSamples> databaseSamples = new HashMap<Class<?>, DatabaseSamples>();
+
 	/**
 	 * {@inheritDoc}
 	 * <p>
@@ -83,6 +109,28 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 	 * {@inheritDoc}
 	 */
 	public List<DefaultData> findByExampleWithLastInterval(DefaultData template, long timeInterval) {
+		if (timeSeriesStore.isStored(template.getClass())) {
+			long fromTimestamp = System.currentTimeMillis() - timeInterval;
+			List<DefaultData> result = timeSeriesStore.getDataFromToDate(template, new Date(fromTimestamp + 1), new Date(Long.MAX_VALUE));
+			if (isInDatabaseAfter(template.getClass(), fromTimestamp)) {
+				result.addAll(0, findInDatabaseWithLastInterval(template, timeInterval));
+			}
+			return result;
+		}
+
+		return findInDatabaseWithLastInterval(template, timeInterval);
+	}
+
+	/**
+	 * Returns the samples of the template series saved in the database in the last time interval.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param timeInterval
+	 *            Time interval in milliseconds.
+	 * @return Samples from the database.
+	 */
+	private List<DefaultData> findInDatabaseWithLastInterval(DefaultData template, long timeInterval) {
 		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 		CriteriaQuery<DefaultData> criteria = builder.createQuery(DefaultData.class);
 		Root<? extends DefaultData> root = criteria.from(template.getClass());
@@ -111,6 +159,26 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 	 * {@inheritDoc}
 	 */
 	public List<DefaultData> findByExampleSinceId(DefaultData template) {
+		if (timeSeriesStore.isStored(template.getClass())) {
+			List<DefaultData> result = timeSeriesStore.getDataSinceId(template, true);
+			if (isInDatabaseSinceId(template.getClass(), template.getId())) {
+				result.addAll(0, findInDatabaseSinceId(template));
+			}
+			return result;
+		}
+
+		return findInDatabaseSinceId(template);
+	}
+
+	/**
+	 * Returns the samples of the template series saved in the database with the id larger than the
+	 * id of the template.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @return Samples from the database.
+	 */
+	private List<DefaultData> findInDatabaseSinceId(DefaultData template) {
 		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 		CriteriaQuery<DefaultData> criteria = builder.createQuery(DefaultData.class);
 		Root<? extends DefaultData> root = criteria.from(template.getClass());
@@ -139,6 +207,26 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 	 * {@inheritDoc}
 	 */
 	public List<DefaultData> findByExampleSinceIdIgnoreMethodId(DefaultData template) {
+		if (timeSeriesStore.isStored(template.getClass())) {
+			List<DefaultData> result = timeSeriesStore.getDataSinceId(template, false);
+			if (isInDatabaseSinceId(template.getClass(), template.getId())) {
+				result.addAll(0, findInDatabaseSinceIdIgnoreMethodId(template));
+			}
+			return result;
+		}
+
+		return findInDatabaseSinceIdIgnoreMethodId(template);
+	}
+
+	/**
+	 * Returns the samples of the template class and platform saved in the database with the id
+	 * larger than the id of the template.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @return Samples from the database.
+	 */
+	private List<DefaultData> findInDatabaseSinceIdIgnoreMethodId(DefaultData template) {
 		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 		CriteriaQuery<DefaultData> criteria = builder.createQuery(DefaultData.class);
 		Root<? extends DefaultData> root = criteria.from(template.getClass());
@@ -156,6 +244,71 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 	 * {@inheritDoc}
 	 */
 	public List<DefaultData> findByExampleFromToDate(DefaultData template, Date fromDate, Date toDate) {
+		if (!(template instanceof HttpTimerData)) {
+			RollupTier tier = rollupManager.selectTier(template.getClass(), fromDate, toDate);
+			if (RollupTier.RAW != tier) {
+				// rollups exist only since they were introduced, older ranges are read raw
+				List<DefaultData> rollups = rollupManager.getRollupData(template, tier, true, fromDate, toDate);
+				if (CollectionUtils.isNotEmpty(rollups)) {
+					return rollups;
+				}
+			} else if (rollupManager.isRawDataRetired(template.getClass(), fromDate)) {
+				// raw data of the short range is retired, the finest rollups are read instead
+				List<DefaultData> rollups = rollupManager.getFinestRollupData(template, true, fromDate, toDate);
+				if (CollectionUtils.isNotEmpty(rollups)) {
+					return rollups;
+				}
+			} else {
+				List<DefaultData> rawData = findRawByExampleFromToDate(template, fromDate, toDate);
+				if (CollectionUtils.isEmpty(rawData)) {
+					// no raw data in the range, the rollups might still have it
+					List<DefaultData> rollups = rollupManager.getFinestRollupData(template, true, fromDate, toDate);
+					if (CollectionUtils.isNotEmpty(rollups)) {
+						return rollups;
+					}
+				}
+				return rawData;
+			}
+		}
+
+		return findRawByExampleFromToDate(template, fromDate, toDate);
+	}
+
+	/**
+	 * Returns the raw data of the template series in the given time range.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param fromDate
+	 *            Start date, inclusive.
+	 * @param toDate
+	 *            End date, inclusive.
+	 * @return Raw data.
+	 */
+	private List<DefaultData> findRawByExampleFromToDate(DefaultData template, Date fromDate, Date toDate) {
+		if (timeSeriesStore.isStored(template.getClass())) {
+			List<DefaultData> result = timeSeriesStore.getDataFromToDate(template, fromDate, toDate);
+			if (isInDatabaseAfter(template.getClass(), fromDate.getTime())) {
+				result.addAll(0, findInDatabaseFromToDate(template, fromDate, toDate));
+			}
+			return result;
+		}
+
+		return findInDatabaseFromToDate(template, fromDate, toDate);
+	}
+
+	/**
+	 * Returns the samples of the template series saved in the database in the given time range.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param fromDate
+	 *            Start date, inclusive.
+	 * @param toDate
+	 *            End date, inclusive.
+	 * @return Samples from the database.
+	 */
+	private List<DefaultData> findInDatabaseFromToDate(DefaultData template, Date fromDate, Date toDate) {
 		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 		CriteriaQuery<DefaultData> criteria = builder.createQuery(DefaultData.class);
 		Root<? extends DefaultData> root = criteria.from(template.getClass());
@@ -184,6 +337,25 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 	 * {@inheritDoc}
 	 */
 	public DefaultData findByExampleLastData(DefaultData template) {
+		if (timeSeriesStore.isStored(template.getClass())) {
+			DefaultData last = timeSeriesStore.getLastData(template);
+			if ((null == last) && databaseSamples.containsKey(template.getClass())) {
+				return findInDatabaseLastData(template);
+			}
+			return last;
+		}
+
+		return findInDatabaseLastData(template);
+	}
+
+	/**
+	 * Returns the last sample of the template saved in the database.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @return Last sample or <code>null</code> if there is none.
+	 */
+	private DefaultData findInDatabaseLastData(DefaultData template) {
 		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 		CriteriaQuery<DefaultData> criteria = builder.createQuery(DefaultData.class);
 		Root<? extends DefaultData> root = criteria.from(template.getClass());
@@ -219,6 +391,21 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 	@Override
 	public List<HttpTimerData> getChartingHttpTimerDataFromDateToDate(Collection<HttpTimerData> templates, Date fromDate, Date toDate, boolean retrieveByTag) {
 		if (CollectionUtils.isNotEmpty(templates)) {
+			RollupTier tier = rollupManager.selectTier(HttpTimerData.class, fromDate, toDate);
+			boolean rawDataRetired = (RollupTier.RAW == tier) && rollupManager.isRawDataRetired(HttpTimerData.class, fromDate);
+			if (RollupTier.RAW != tier) {
+				List<HttpTimerData> rollups = getChartingHttpTimerDataRollups(templates, tier, fromDate, toDate, retrieveByTag);
+				if (CollectionUtils.isNotEmpty(rollups)) {
+					return rollups;
+				}
+			} else if (rawDataRetired) {
+				// raw data of the short range is retired, the finest rollups are read instead
+				List<HttpTimerData> rollups = getFinestChartingHttpTimerDataRollups(templates, fromDate, toDate, retrieveByTag);
+				if (CollectionUtils.isNotEmpty(rollups)) {
+					return rollups;
+				}
+			}
+
 			CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 			CriteriaQuery<HttpTimerData> criteria = builder.createQuery(HttpTimerData.class);
 			Root<? extends HttpTimerData> root = criteria.from(HttpTimerData.class);
@@ -248,12 +435,95 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 
 			criteria.where(platformId, timestamp, condition);
 
-			return entityManager.createQuery(criteria).getResultList();
+			List<HttpTimerData> rawData = entityManager.createQuery(criteria).getResultList();
+			if ((RollupTier.RAW == tier) && !rawDataRetired && CollectionUtils.isEmpty(rawData)) {
+				// no raw data in the range, the rollups might still have it
+				List<HttpTimerData> rollups = getFinestChartingHttpTimerDataRollups(templates, fromDate, toDate, retrieveByTag);
+				if (CollectionUtils.isNotEmpty(rollups)) {
+					return rollups;
+				}
+			}
+			return rawData;
 		} else {
 			return Collections.emptyList();
 		}
 	}
 
+	/**
+	 * Returns the rollups of the {@link HttpTimerData} of the finest tier that holds rollups of the
+	 * templates in the given time range.
+	 * 
+	 * @param templates
+	 *            Templates.
+	 * @param fromDate
+	 *            From date.
+	 * @param toDate
+	 *            To date
+	 * @param retrieveByTag
+	 *            If tag values from the templates should be used.
+	 * @return List of {@link HttpTimerData} rollups with the {@link HttpInfo} set or empty list if
+	 *         no tier holds rollups in the range.
+	 */
+	private List<HttpTimerData> getFinestChartingHttpTimerDataRollups(Collection<HttpTimerData> templates, Date fromDate, Date toDate, boolean retrieveByTag) {
+		for (RollupTier tier : RollupTier.values()) {
+			if (RollupTier.RAW != tier) {
+				List<HttpTimerData> rollups = getChartingHttpTimerDataRollups(templates, tier, fromDate, toDate, retrieveByTag);
+				if (!rollups.isEmpty()) {
+					return rollups;
+				}
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Returns the rollups of the {@link HttpTimerData} of the persisted {@link HttpInfo}s matching
+	 * the URIs or the tag values of the templates.
+	 * 
+	 * @param templates
+	 *            Templates.
+	 * @param tier
+	 *            Rollup tier to read.
+	 * @param fromDate
+	 *            From date.
+	 * @param toDate
+	 *            To date
+	 * @param retrieveByTag
+	 *            If tag values from the templates should be used.
+	 * @return List of {@link HttpTimerData} rollups with the {@link HttpInfo} set.
+	 */
+	private List<HttpTimerData> getChartingHttpTimerDataRollups(Collection<HttpTimerData> templates, RollupTier tier, Date fromDate, Date toDate, boolean retrieveByTag) {
+		Set<String> values = new HashSet<String>();
+		for (HttpTimerData httpTimerData : templates) {
+			if (!retrieveByTag && !HttpInfo.UNDEFINED.equals(httpTimerData.getHttpInfo().getUri())) {
+				values.add(httpTimerData.getHttpInfo().getUri());
+			} else if (retrieveByTag && httpTimerData.getHttpInfo().hasInspectItTaggingHeader()) {
+				values.add(httpTimerData.getHttpInfo().getInspectItTaggingHeaderValue());
+			}
+		}
+		if (values.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<HttpInfo> criteria = builder.createQuery(HttpInfo.class);
+		Root<? extends HttpInfo> root = criteria.from(HttpInfo.class);
+		criteria.where(root.get(retrieveByTag ? "inspectItTaggingHeaderValue" : "uri").in(values));
+
+		List<HttpTimerData> result = new ArrayList<HttpTimerData>();
+		HttpTimerData template = new HttpTimerData();
+		template.setPlatformIdent(templates.iterator().next().getPlatformIdent());
+		for (HttpInfo httpInfo : entityManager.createQuery(criteria).getResultList()) {
+			template.setHttpInfo(httpInfo);
+			for (DefaultData rollup : rollupManager.getRollupData(template, tier, false, fromDate, toDate)) {
+				HttpTimerData httpTimerData = (HttpTimerData) rollup;
+				httpTimerData.setHttpInfo(httpInfo);
+				result.add(httpTimerData);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -269,6 +539,8 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 		query = entityManager.createNamedQuery(DefaultData.DELETE_FOR_PLATFORM_ID);
 		query.setParameter("platformIdent", platformId);
 		query.executeUpdate();
+
+		timeSeriesStore.deletePlatform(platformId.longValue());
 	}
 
 	/**
@@ -280,6 +552,45 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 			return null;
 		}
 
+		if (timeSeriesStore.isStored(JmxSensorValueData.class)) {
+			List<JmxSensorValueData> result;
+			if (fromDate != null && toDate != null) {
+				result = timeSeriesStore.getJmxDataOverview(template, fromDate, toDate);
+			} else {
+				result = timeSeriesStore.getJmxDataOverview(template, null, null);
+			}
+
+			long fromTimestamp = (fromDate != null && toDate != null) ? fromDate.getTime() : Long.MIN_VALUE;
+			if (isInDatabaseAfter(JmxSensorValueData.class, fromTimestamp)) {
+				// definitions without samples in the store are taken from the database
+				Set<Long> definitionIds = new HashSet<Long>();
+				for (JmxSensorValueData data : result) {
+					definitionIds.add(data.getJmxSensorDefinitionDataIdentId());
+				}
+				for (JmxSensorValueData data : getJmxDataOverviewFromDatabase(template, fromDate, toDate)) {
+					if (!definitionIds.contains(data.getJmxSensorDefinitionDataIdentId())) {
+						result.add(data);
+					}
+				}
+			}
+			return result;
+		}
+
+		return getJmxDataOverviewFromDatabase(template, fromDate, toDate);
+	}
+
+	/**
+	 * Returns the last sample of every JMX definition of the template saved in the database.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param fromDate
+	 *            From date or <code>null</code> for no limit.
+	 * @param toDate
+	 *            To date or <code>null</code> for no limit.
+	 * @return Last sample of every definition from the database.
+	 */
+	private List<JmxSensorValueData> getJmxDataOverviewFromDatabase(JmxSensorValueData template, Date fromDate, Date toDate) {
 		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
 		CriteriaQuery<JmxSensorValueData> c = cb.createQuery(JmxSensorValueData.class);
 		Root<JmxSensorValueData> root = c.from(JmxSensorValueData.class);
@@ -305,4 +616,85 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 		
 		return entityManager.createQuery(c).getResultList();
 	}
+
+	/**
+	 * If the database holds samples of the data class with the time stamp after the given time.
+	 * 
+	 * @param dataClass
+	 *            Data class.
+	 * @param timestamp
+	 *            Time in milliseconds.
+	 * @return If the database holds samples of the data class after the given time.
+	 */
+	private boolean isInDatabaseAfter(Class<?> dataClass, long timestamp) {
+		DatabaseSamples samples = databaseSamples.get(dataClass);
+		return (null != samples) && (samples.maxTimestamp >= timestamp);
+	}
+
+	/**
+	 * If the database holds samples of the data class with the id larger than the given one.
+	 * 
+	 * @param dataClass
+	 *            Data class.
+	 * @param id
+	 *            Id.
+	 * @return If the database holds samples of the data class with the larger id.
+	 */
+	private boolean isInDatabaseSinceId(Class<?> dataClass, long id) {
+		DatabaseSamples samples = databaseSamples.get(dataClass);
+		return (null != samples) && (samples.maxId > id);
+	}
+
+	/**
+	 * Finds the samples of the {@link TimeSeriesStore} classes that were saved in the database
+	 * before the classes were moved to the store. Such samples are still returned for the ranges
+	 * they cover. The store is told to assign larger ids, so that the ids stay unique and the
+	 * queries since id work across both.
+	 */
+	@PostConstruct
+	public void postConstruct() {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		for (Class<? extends DefaultData> dataClass : timeSeriesStore.getStoredClasses()) {
+			CriteriaQuery<Object[]> criteria = builder.createQuery(Object[].class);
+			Root<? extends DefaultData> root = criteria.from(dataClass);
+			criteria.multiselect(builder.max(root.<Long> get("id")), builder.greatest(root.<Timestamp> get("timeStamp")));
+
+			Object[] result = entityManager.createQuery(criteria).getSingleResult();
+			if ((null != result[0]) && (null != result[1])) {
+				DatabaseSamples samples = new DatabaseSamples(((Number) result[0]).longValue(), ((Date) result[1]).getTime());
+				databaseSamples.put(dataClass, samples);
+				timeSeriesStore.reserveIds(samples.maxId);
+			}
+		}
+	}
+
+	/**
+	 * Largest id and time stamp of the samples of one class saved in the database.
+	 */
+	private static final class DatabaseSamples {
+
+		/**
+		 * Largest id.
+		 */
+		private final long maxId;
+
+		/**
+		 * Largest time stamp in milliseconds.
+		 */
+		private final long maxTimestamp;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param maxId
+		 *            Largest id.
+		 * @param maxTimestamp
+		 *            Largest time stamp in milliseconds.
+		 */
+		DatabaseSamples(long maxId, long maxTimestamp) {
+			this.maxId = maxId;
+			this.maxTimestamp = maxTimestamp;
+		}
+
+	}
 }
\ No newline at end of file
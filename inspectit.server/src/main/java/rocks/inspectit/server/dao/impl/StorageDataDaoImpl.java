@@ -6,6 +6,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.ListIterator;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
@@ -13,8 +14,6 @@ import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,9 +23,11 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import rocks.inspectit.server.cache.impl.CompressedInvocationStore;
 import rocks.inspectit.server.dao.StorageDataDao;
+import rocks.inspectit.server.tsdb.TimeSeriesStore;
 import rocks.inspectit.shared.all.communication.DefaultData;
-import rocks.inspectit.shared.all.communication.SystemSensorData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 import rocks.inspectit.shared.all.communication.data.SystemInformationData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.exception.enumeration.StorageErrorCodeEnum;
@@ -64,6 +65,18 @@ public class StorageDataDaoImpl implements StorageDataDao {
 	@Autowired
 	private IBufferTreeComponent<DefaultData> indexingTree;
 
+	/**
+	 * Store for the compressed invocations.
+	 */
+	@Autowired
+	private CompressedInvocationStore compressedInvocationStore;
+
+	/**
+	 * Store of the platform sensor and JMX data, such data is not in the database.
+	 */
+	@Autowired
+	private TimeSeriesStore timeSeriesStore;
+
 	/**
 	 * Entity manager.
 	 */
@@ -206,26 +219,11 @@ public class StorageDataDaoImpl implements StorageDataDao {
 		}
 		List<DefaultData> bufferData = indexingTree.query(query);
 		if (CollectionUtils.isNotEmpty(bufferData)) {
-			results.addAll(bufferData);
+			results.addAll(getCompleteInvocations(bufferData));
 		}
 
-		// then load all System sensor data from DB
-		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-		CriteriaQuery<SystemSensorData> criteria = builder.createQuery(SystemSensorData.class);
-		Root<? extends SystemSensorData> root = criteria.from(SystemSensorData.class);
-
-		Predicate platformIdPredicate = builder.equal(root.get("platformIdent"), platformId);
-		Predicate timestampPredicate = null;
-		if (null != fromDate && null != toDate) {
-			timestampPredicate = builder.between(root.<Timestamp> get("timeStamp"), new Timestamp(fromDate.getTime()), new Timestamp(toDate.getTime()));
-		}
-
-		if (null != timestampPredicate) {
-			criteria.where(platformIdPredicate, timestampPredicate);
-		} else {
-			criteria.where(platformIdPredicate);
-		}
-		List<SystemSensorData> sensorDatas = entityManager.createQuery(criteria).getResultList();
+		// then load all platform sensor and JMX data from the time series store
+		List<DefaultData> sensorDatas = timeSeriesStore.getPlatformData(platformId, fromDate, toDate);
 
 		// combine results
 		if (CollectionUtils.isNotEmpty(sensorDatas)) {
@@ -251,7 +249,7 @@ public class StorageDataDaoImpl implements StorageDataDao {
 		IIndexQuery query = indexQueryProvider.createNewIndexQuery();
 		query.addIndexingRestriction(IndexQueryRestrictionFactory.isInCollection("id", elementIds));
 		query.setPlatformIdent(platformIdent);
-		return indexingTree.query(query);
+		return getCompleteInvocations(indexingTree.query(query));
 	}
 
 	/**
@@ -264,6 +262,24 @@ public class StorageDataDaoImpl implements StorageDataDao {
 		return query.getResultList();
 	}
 
+	/**
+	 * Replaces the invocations compressed in the buffer with the complete invocations, so that the
+	 * nested sequences are included when the data is written to the storage.
+	 * 
+	 * @param bufferData
+	 *            Data from the buffer, list is changed.
+	 * @return Same list with complete invocations.
+	 */
+	private List<DefaultData> getCompleteInvocations(List<DefaultData> bufferData) {
+		for (ListIterator<DefaultData> it = bufferData.listIterator(); it.hasNext();) {
+			DefaultData defaultData = it.next();
+			if (defaultData instanceof InvocationSequenceData) {
+				it.set(compressedInvocationStore.getInvocationSequence((InvocationSequenceData) defaultData));
+			}
+		}
+		return bufferData;
+	}
+
 	/**
 	 * Initializes the default label list.
 	 * <p>
@@ -1,13 +1,15 @@
 package rocks.inspectit.server.dao.impl;
 
 import java.sql.Timestamp;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,6 +24,11 @@ import rocks.inspectit.shared.all.communication.data.TimerData;
 
 /**
  * Aggregator for the {@link TimerData} objects that need to be persisted to the DB.
+ * <p>
+ * The aggregated objects are kept in a concurrent map keyed by the platform ident, method ident
+ * and aggregation time stamp. Only the threads aggregating to the same object synchronize on it,
+ * thus the processing threads do not block each other and are not blocked while the objects that
+ * left the cache are persisted.
  * 
  * @author Ivan Senic
  * @see https://inspectit-performance.atlassian.net/wiki/display/DEV/TimerData+Aggregator
@@ -30,6 +37,12 @@ import rocks.inspectit.shared.all.communication.data.TimerData;
 @Repository
 public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 
+	/**
+	 * Number of objects persisted before the entity manager is flushed and cleared. Same as the
+	 * <code>hibernate.jdbc.batch_size</code>, so that one flush executes one JDBC batch.
+	 */
+	private static final int PERSIST_BATCH_SIZE = 50;
+
 	/**
 	 * Period of time in which all timer data should be aggregated. In milliseconds.
 	 */
@@ -57,23 +70,18 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 	/**
 	 * Map for caching.
 	 */
-	private Map<Integer, TimerData> map;
+	private ConcurrentHashMap<CacheKey, CacheEntry> map;
 
 	/**
 	 * Queue for knowing the order.
 	 */
-	private ConcurrentLinkedQueue<TimerData> queue;
+	private ConcurrentLinkedQueue<CacheEntry> queue;
 
 	/**
 	 * List of objects that are out of the cache and need to be persisted.
 	 */
 	private ConcurrentLinkedQueue<TimerData> persistList;
 
-	/**
-	 * Lock for persist all.
-	 */
-	private ReentrantLock persistAllLock;
-
 	/**
 	 * Cache cleaner.
 	 */
@@ -94,10 +102,9 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 	public TimerDataAggregator(PlatformTransactionManager transactionManager) {
 		super(TimerData.class);
 		elementCount = new AtomicInteger(0);
-		map = new HashMap<Integer, TimerData>();
-		queue = new ConcurrentLinkedQueue<TimerData>();
+		map = new ConcurrentHashMap<CacheKey, CacheEntry>();
+		queue = new ConcurrentLinkedQueue<CacheEntry>();
 		persistList = new ConcurrentLinkedQueue<TimerData>();
-		persistAllLock = new ReentrantLock();
 
 		this.tt = new TransactionTemplate(transactionManager);
 	}
@@ -111,37 +118,46 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 	 */
 	public void processTimerData(TimerData timerData) {
 		long aggregationTimestamp = getAlteredTimestamp(timerData);
-		int cacheHash = getCacheHash(timerData.getPlatformIdent(), timerData.getMethodIdent(), aggregationTimestamp);
+		CacheKey cacheKey = new CacheKey(timerData.getPlatformIdent(), timerData.getMethodIdent(), aggregationTimestamp);
 
-		persistAllLock.lock();
-		try {
-			TimerData aggTimerData = map.get(cacheHash);
-			if (aggTimerData == null) {
+		while (true) {
+			CacheEntry cacheEntry = map.get(cacheKey);
+			if (null == cacheEntry) {
 				// we create a DB aggregated timer data because we don't want to alter objects that
 				// are in the memory
-				aggTimerData = new DatabaseAggregatedTimerData(new Timestamp(aggregationTimestamp), timerData.getPlatformIdent(), timerData.getSensorTypeIdent(), timerData.getMethodIdent());
-				map.put(cacheHash, aggTimerData);
-				queue.add(aggTimerData);
-
-				// set most recently in cleaner
-				if (null != timerDataAggregatorCacheCleaner) {
-					timerDataAggregatorCacheCleaner.setMostRecentlyAdded(aggTimerData);
-				}
+				TimerData aggTimerData = new DatabaseAggregatedTimerData(new Timestamp(aggregationTimestamp), timerData.getPlatformIdent(), timerData.getSensorTypeIdent(),
+						timerData.getMethodIdent());
+				CacheEntry newEntry = new CacheEntry(cacheKey, aggTimerData);
+				cacheEntry = map.putIfAbsent(cacheKey, newEntry);
+				if (null == cacheEntry) {
+					cacheEntry = newEntry;
+					queue.add(cacheEntry);
+
+					// set most recently in cleaner
+					if (null != timerDataAggregatorCacheCleaner) {
+						timerDataAggregatorCacheCleaner.setMostRecentlyAdded(aggTimerData);
+					}
 
-				int count = elementCount.incrementAndGet();
-				// remove oldest as long as number of elements is higher than maximum
-				while (maxElements < count) {
-					TimerData oldest = queue.poll();
-					if (null != oldest) {
-						map.remove(getCacheHash(oldest.getPlatformIdent(), oldest.getMethodIdent(), oldest.getTimeStamp().getTime()));
-						persistList.add(oldest);
+					int count = elementCount.incrementAndGet();
+					// remove oldest as long as number of elements is higher than maximum
+					while (maxElements < count) {
+						CacheEntry oldest = queue.poll();
+						if (null == oldest) {
+							break;
+						}
+						persistList.add(remove(oldest));
 						count = elementCount.decrementAndGet();
 					}
 				}
 			}
-			aggTimerData.aggregateTimerData(timerData);
-		} finally {
-			persistAllLock.unlock();
+
+			synchronized (cacheEntry) {
+				// entry could be removed from the cache after we got it from the map
+				if (!cacheEntry.removed) {
+					cacheEntry.timerData.aggregateTimerData(timerData);
+					return;
+				}
+			}
 		}
 	}
 
@@ -149,25 +165,17 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 	 * Clears the cache and persists all the data inside.
 	 */
 	public void removeAndPersistAll() {
-		if (!queue.isEmpty()) {
-			persistAllLock.lock();
-			try {
-				tt.execute(new TransactionCallbackWithoutResult() {
-					@Override
-					protected void doInTransactionWithoutResult(TransactionStatus status) {
-						TimerData oldest = queue.poll();
-						while (oldest != null) {
-							map.remove(getCacheHash(oldest.getPlatformIdent(), oldest.getMethodIdent(), oldest.getTimeStamp().getTime()));
-							TimerDataAggregator.super.create(oldest);
-							elementCount.decrementAndGet();
-
-							oldest = queue.poll();
-						}
-					}
-				});
-			} finally {
-				persistAllLock.unlock();
-			}
+		List<TimerData> toPersist = new ArrayList<TimerData>();
+		CacheEntry oldest = queue.poll();
+		while (oldest != null) {
+			toPersist.add(remove(oldest));
+			elementCount.decrementAndGet();
+
+			oldest = queue.poll();
+		}
+
+		if (!toPersist.isEmpty()) {
+			persistAll(toPersist);
 		}
 	}
 
@@ -176,38 +184,58 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 	 */
 	void saveAllInPersistList() {
 		if (!persistList.isEmpty()) {
-			tt.execute(new TransactionCallbackWithoutResult() {
-				@Override
-				protected void doInTransactionWithoutResult(TransactionStatus status) {
-					TimerData last = persistList.poll();
-					while (last != null) {
-						last.finalizeData();
-						TimerDataAggregator.super.create(last);
-						last = persistList.poll();
-					}
-				}
-			});
+			List<TimerData> toPersist = new ArrayList<TimerData>();
+			TimerData last = persistList.poll();
+			while (last != null) {
+				last.finalizeData();
+				toPersist.add(last);
+				last = persistList.poll();
+			}
+
+			persistAll(toPersist);
+		}
+	}
+
+	/**
+	 * Removes the entry from the cache map. After this method returns no other thread will
+	 * aggregate to the timer data of the entry.
+	 * 
+	 * @param cacheEntry
+	 *            Entry polled from the {@link #queue}.
+	 * @return Aggregated timer data of the entry.
+	 */
+	private TimerData remove(CacheEntry cacheEntry) {
+		map.remove(cacheEntry.cacheKey, cacheEntry);
+		synchronized (cacheEntry) {
+			cacheEntry.removed = true;
 		}
+		return cacheEntry.timerData;
 	}
 
 	/**
-	 * Returns the cache hash code.
+	 * Persists the given objects in one transaction. The entity manager is flushed and cleared
+	 * after every {@value #PERSIST_BATCH_SIZE} objects, thus the inserts are executed in JDBC
+	 * batches and the persistence context does not grow with the number of objects.
 	 * 
-	 * @param platformIdent
-	 *            Platform ident.
-	 * @param methodIdent
-	 *            Method ident.
-	 * @param timestampValue
-	 *            Time stamp value as long.
-	 * @return Cache hash for the given set of values.
+	 * @param toPersist
+	 *            Objects to persist.
 	 */
-	private int getCacheHash(long platformIdent, long methodIdent, long timestampValue) {
-		final int prime = 31;
-		int result = 0;
-		result = prime * result + (int) (platformIdent ^ (platformIdent >>> 32));
-		result = prime * result + (int) (methodIdent ^ (methodIdent >>> 32));
-		result = prime * result + (int) (timestampValue ^ (timestampValue >>> 32));
-		return result;
+	private void persistAll(final List<TimerData> toPersist) {
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				EntityManager entityManager = getEntityManager();
+				int persisted = 0;
+				for (TimerData timerData : toPersist) {
+					TimerDataAggregator.super.create(timerData);
+					persisted++;
+					if (0 == (persisted % PERSIST_BATCH_SIZE)) {
+						entityManager.flush();
+						entityManager.clear();
+					}
+				}
+			}
+		});
 	}
 
 	/**
@@ -232,6 +260,19 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 		timerDataAggregatorCacheCleaner.start();
 	}
 
+	/**
+	 * Stops the cache cleaner thread.
+	 */
+	@PreDestroy
+	public void preDestroy() {
+		timerDataAggregatorCacheCleaner.interrupt();
+		try {
+			timerDataAggregatorCacheCleaner.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 * @return the aggregationPeriod
 	 */
@@ -262,4 +303,109 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 		return elementCount.get();
 	}
 
+	/**
+	 * Key of the aggregated timer data in the cache.
+	 */
+	private static final class CacheKey {
+
+		/**
+		 * Platform ident.
+		 */
+		private final long platformIdent;
+
+		/**
+		 * Method ident.
+		 */
+		private final long methodIdent;
+
+		/**
+		 * Aggregation time stamp value.
+		 */
+		private final long timestampValue;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param platformIdent
+		 *            Platform ident.
+		 * @param methodIdent
+		 *            Method ident.
+		 * @param timestampValue
+		 *            Aggregation time stamp value.
+		 */
+		CacheKey(long platformIdent, long methodIdent, long timestampValue) {
+			this.platformIdent = platformIdent;
+			this.methodIdent = methodIdent;
+			this.timestampValue = timestampValue;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + (int) (platformIdent ^ (platformIdent >>> 32));
+			result = prime * result + (int) (methodIdent ^ (methodIdent >>> 32));
+			result = prime * result + (int) (timestampValue ^ (timestampValue >>> 32));
+			return result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return (platformIdent == other.platformIdent) && (methodIdent == other.methodIdent) && (timestampValue == other.timestampValue);
+		}
+
+	}
+
+	/**
+	 * Aggregated timer data in the cache. Aggregation and removal from the cache synchronize on
+	 * the entry.
+	 */
+	private static final class CacheEntry {
+
+		/**
+		 * Key in the cache.
+		 */
+		private final CacheKey cacheKey;
+
+		/**
+		 * Aggregated timer data.
+		 */
+		private final TimerData timerData;
+
+		/**
+		 * If the entry was removed from the cache.
+		 */
+		private boolean removed;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param cacheKey
+		 *            Key in the cache.
+		 * @param timerData
+		 *            Aggregated timer data.
+		 */
+		CacheEntry(CacheKey cacheKey, TimerData timerData) {
+			this.cacheKey = cacheKey;
+			this.timerData = timerData;
+		}
+
+	}
+
 }
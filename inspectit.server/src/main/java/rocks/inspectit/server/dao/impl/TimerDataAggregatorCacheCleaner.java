@@ -44,7 +44,7 @@ class TimerDataAggregatorCacheCleaner extends Thread {
 	 */
 	@Override
 	public void run() {
-		while (true) {
+		while (!isInterrupted()) {
 			TimerData timerData = this.mostRecentlyAdded;
 			if (timerData != null) {
 				if (timerData == lastChecked) { // NOPMD
@@ -56,7 +56,8 @@ class TimerDataAggregatorCacheCleaner extends Thread {
 			try {
 				Thread.sleep(this.timerDataAggregator.cacheCleanSleepingPeriod);
 			} catch (InterruptedException e) {
-				Thread.interrupted();
+				// stopped by the aggregator
+				this.interrupt();
 			}
 		}
 	}
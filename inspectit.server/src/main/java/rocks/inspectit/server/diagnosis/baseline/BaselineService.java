@@ -0,0 +1,290 @@
+package rocks.inspectit.server.diagnosis.baseline;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.shared.all.communication.data.HttpInfo;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Learns the duration baselines of the business transactions from the incoming invocation
+ * sequences. A business transaction is identified by the tag or the URI of the root HTTP request,
+ * or by the root method if the root is no HTTP request. Every transaction has a
+ * {@link DurationSketch}.
+ * <p>
+ * The baseline of a transaction is the 95th percentile of its durations. Invocations are diagnosed
+ * when they are slower than the 99th percentile and also slower than three standard deviations
+ * above the moving average. Until a transaction has {@link #MIN_SAMPLES} durations the configured
+ * default baseline is used.
+ * <p>
+ * The number of transactions is limited, transactions above the limit use the default baseline
+ * until idle transactions are removed.
+ */
+@Component
+public class BaselineService {
+
+	/**
+	 * Number of durations needed before the learned baseline is used.
+	 */
+	static final int MIN_SAMPLES = 100;
+
+	/**
+	 * Quantile used as the baseline.
+	 */
+	private static final double BASELINE_QUANTILE = 0.95d;
+
+	/**
+	 * Quantile the invocations must exceed to be diagnosed.
+	 */
+	private static final double DIAGNOSIS_QUANTILE = 0.99d;
+
+	/**
+	 * Time in milliseconds after which a transaction without invocations is removed.
+	 */
+	private static final long IDLE_TIME = 24 * 60 * 60 * 1000L;
+
+	/**
+	 * Period in milliseconds of removing the idle transactions.
+	 */
+	private static final long CLEAN_PERIOD = 60 * 60 * 1000L;
+
+	/**
+	 * The logger of this class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * Baseline in milliseconds used for the transactions without enough durations.
+	 */
+	@Value("${cmr.diagnosisDefaultBaseline}")
+	double defaultBaseline;
+
+	/**
+	 * Maximum number of transactions with a learned baseline.
+	 */
+	@Value("${cmr.diagnosisMaxTransactions}")
+	int maxTransactions;
+
+	/**
+	 * Transactions.
+	 */
+	private final ConcurrentHashMap<TransactionKey, Transaction> transactions = new ConcurrentHashMap<TransactionKey, Transaction>();
+
+	/**
+	 * Adds the duration of the invocation to the baseline of its transaction.
+	 * 
+	 * @param invocation
+	 *            Root invocation sequence.
+	 */
+	public void update(InvocationSequenceData invocation) {
+		TransactionKey key = TransactionKey.of(invocation);
+		Transaction transaction = transactions.get(key);
+		if (null == transaction) {
+			if (transactions.size() >= maxTransactions) {
+				return;
+			}
+			transaction = new Transaction();
+			Transaction existing = transactions.putIfAbsent(key, transaction);
+			if (null != existing) {
+				transaction = existing;
+			}
+		}
+
+		synchronized (transaction) {
+			transaction.sketch.add(invocation.getDuration());
+			transaction.lastUpdate = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Returns the baseline of the transaction of the invocation.
+	 * 
+	 * @param invocation
+	 *            Root invocation sequence.
+	 * @return Baseline in milliseconds.
+	 */
+	public double getBaseline(InvocationSequenceData invocation) {
+		Transaction transaction = transactions.get(TransactionKey.of(invocation));
+		if (null == transaction) {
+			return defaultBaseline;
+		}
+		synchronized (transaction) {
+			if (transaction.sketch.getCount() < MIN_SAMPLES) {
+				return defaultBaseline;
+			}
+			return transaction.sketch.getQuantile(BASELINE_QUANTILE);
+		}
+	}
+
+	/**
+	 * Returns if the invocation is slow enough to be diagnosed compared to the baseline of its
+	 * transaction.
+	 * 
+	 * @param invocation
+	 *            Root invocation sequence.
+	 * @return If the invocation should be diagnosed.
+	 */
+	public boolean isDiagnosisNeeded(InvocationSequenceData invocation) {
+		double threshold;
+		Transaction transaction = transactions.get(TransactionKey.of(invocation));
+		if (null == transaction) {
+			threshold = defaultBaseline;
+		} else {
+			synchronized (transaction) {
+				DurationSketch sketch = transaction.sketch;
+				if (sketch.getCount() < MIN_SAMPLES) {
+					threshold = defaultBaseline;
+				} else {
+					threshold = Math.max(sketch.getQuantile(DIAGNOSIS_QUANTILE), sketch.getMean() + (3 * sketch.getStandardDeviation()));
+				}
+			}
+		}
+		return invocation.getDuration() > threshold;
+	}
+
+	/**
+	 * Removes the transactions without invocations in the {@link #IDLE_TIME}.
+	 */
+	@Scheduled(fixedRate = CLEAN_PERIOD)
+	public void removeIdleTransactions() {
+		long idleSince = System.currentTimeMillis() - IDLE_TIME;
+		int removed = 0;
+		for (Iterator<Transaction> it = transactions.values().iterator(); it.hasNext();) {
+			Transaction transaction = it.next();
+			synchronized (transaction) {
+				if (transaction.lastUpdate < idleSince) {
+					it.remove();
+					removed++;
+				}
+			}
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("Removed " + removed + " idle business transaction baselines, " + transactions.size() + " remaining.");
+		}
+	}
+
+	/**
+	 * Returns the number of transactions.
+	 * 
+	 * @return Returns the number of transactions.
+	 */
+	public int getTransactionCount() {
+		return transactions.size();
+	}
+
+	/**
+	 * Key of a business transaction.
+	 */
+	private static final class TransactionKey {
+
+		/**
+		 * Root method ident, <code>0</code> for the HTTP transactions.
+		 */
+		private final long methodIdent;
+
+		/**
+		 * Tag or URI of the HTTP request, <code>null</code> for the method transactions.
+		 */
+		private final String httpName;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param methodIdent
+		 *            Root method ident, <code>0</code> for the HTTP transactions.
+		 * @param httpName
+		 *            Tag or URI of the HTTP request, <code>null</code> for the method
+		 *            transactions.
+		 */
+		private TransactionKey(long methodIdent, String httpName) {
+			this.methodIdent = methodIdent;
+			this.httpName = httpName;
+		}
+
+		/**
+		 * Returns the key of the transaction of the invocation.
+		 * 
+		 * @param invocation
+		 *            Root invocation sequence.
+		 * @return Key.
+		 */
+		static TransactionKey of(InvocationSequenceData invocation) {
+			if (invocation.getTimerData() instanceof HttpTimerData) {
+				HttpInfo httpInfo = ((HttpTimerData) invocation.getTimerData()).getHttpInfo();
+				if (null != httpInfo) {
+					if (httpInfo.hasInspectItTaggingHeader()) {
+						return new TransactionKey(0, "tag:" + httpInfo.getInspectItTaggingHeaderValue());
+					} else if (httpInfo.isUriDefined()) {
+						return new TransactionKey(0, "uri:" + httpInfo.getUri());
+					}
+				}
+			}
+			return new TransactionKey(invocation.getMethodIdent(), null);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + (int) (methodIdent ^ (methodIdent >>> 32));
+			result = prime * result + ((httpName == null) ? 0 : httpName.hashCode());
+			return result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			TransactionKey other = (TransactionKey) obj;
+			if (methodIdent != other.methodIdent) {
+				return false;
+			}
+			if (httpName == null) {
+				if (other.httpName != null) {
+					return false;
+				}
+			} else if (!httpName.equals(other.httpName)) {
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Learned baseline of one transaction.
+	 */
+	private static final class Transaction {
+
+		/**
+		 * Durations of the transaction.
+		 */
+		private final DurationSketch sketch = new DurationSketch();
+
+		/**
+		 * Time of the last duration.
+		 */
+		private long lastUpdate;
+	}
+
+}
@@ -0,0 +1,168 @@
+package rocks.inspectit.server.diagnosis.baseline;
+
+/**
+ * Constant memory summary of the durations of one business transaction. The sketch keeps a
+ * logarithmic histogram with four buckets per power of two, thus the quantiles have a relative
+ * error of at most 9 percent, and the exponentially weighted moving average and variance of the
+ * durations.
+ * <p>
+ * The histogram counts are halved when the number of durations reaches {@link #DECAY_COUNT}, so
+ * that the quantiles follow the recent behavior of the transaction and the counts fit in a short.
+ * <p>
+ * The sketch is not thread safe.
+ */
+public class DurationSketch {
+
+	/**
+	 * Number of buckets per power of two.
+	 */
+	private static final int BUCKETS_PER_OCTAVE = 4;
+
+	/**
+	 * Number of buckets. The first bucket holds the durations below one millisecond, the last one
+	 * the durations above about four hours.
+	 */
+	static final int BUCKET_COUNT = 96;
+
+	/**
+	 * Count of the durations in the histogram when the counts are halved.
+	 */
+	static final int DECAY_COUNT = 1 << 14;
+
+	/**
+	 * Weight of a new duration in the moving average and variance.
+	 */
+	private static final double EWMA_ALPHA = 0.01d;
+
+	/**
+	 * Histogram counts.
+	 */
+	private final short[] buckets = new short[BUCKET_COUNT];
+
+	/**
+	 * Number of durations in the histogram.
+	 */
+	private int histogramCount;
+
+	/**
+	 * Number of durations added since the sketch was created.
+	 */
+	private long count;
+
+	/**
+	 * Exponentially weighted moving average.
+	 */
+	private double mean;
+
+	/**
+	 * Exponentially weighted moving variance.
+	 */
+	private double variance;
+
+	/**
+	 * Adds the duration to the sketch.
+	 * 
+	 * @param duration
+	 *            Duration in milliseconds.
+	 */
+	public void add(double duration) {
+		if (histogramCount >= DECAY_COUNT) {
+			histogramCount = 0;
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				buckets[i] = (short) (buckets[i] >> 1);
+				histogramCount += buckets[i];
+			}
+		}
+		buckets[getBucket(duration)]++;
+		histogramCount++;
+
+		if (0 == count) {
+			mean = duration;
+		} else {
+			double diff = duration - mean;
+			double increment = EWMA_ALPHA * diff;
+			mean += increment;
+			variance = (1 - EWMA_ALPHA) * (variance + (diff * increment));
+		}
+		count++;
+	}
+
+	/**
+	 * Returns the estimated quantile of the durations.
+	 * 
+	 * @param quantile
+	 *            Quantile between <code>0</code> and <code>1</code>, for example <code>0.95</code>.
+	 * @return Estimated duration in milliseconds or <code>0</code> if the sketch is empty.
+	 */
+	public double getQuantile(double quantile) {
+		double rank = quantile * histogramCount;
+		int cumulative = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			if (cumulative + buckets[i] >= rank && buckets[i] > 0) {
+				// linear interpolation inside the bucket
+				double lower = getLowerBound(i);
+				double fraction = (rank - cumulative) / buckets[i];
+				return lower + (fraction * (getLowerBound(i + 1) - lower));
+			}
+			cumulative += buckets[i];
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the bucket of the duration.
+	 * 
+	 * @param duration
+	 *            Duration in milliseconds.
+	 * @return Bucket index.
+	 */
+	static int getBucket(double duration) {
+		if (duration < 1d) {
+			return 0;
+		}
+		int bucket = 1 + (int) (BUCKETS_PER_OCTAVE * (Math.log(duration) / Math.log(2)));
+		return Math.min(bucket, BUCKET_COUNT - 1);
+	}
+
+	/**
+	 * Returns the smallest duration of the bucket.
+	 * 
+	 * @param bucket
+	 *            Bucket index.
+	 * @return Duration in milliseconds.
+	 */
+	static double getLowerBound(int bucket) {
+		if (0 == bucket) {
+			return 0d;
+		}
+		return Math.pow(2, (bucket - 1) / (double) BUCKETS_PER_OCTAVE);
+	}
+
+	/**
+	 * Gets {@link #count}.
+	 * 
+	 * @return {@link #count}
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets {@link #mean}.
+	 * 
+	 * @return {@link #mean}
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Returns the exponentially weighted moving standard deviation.
+	 * 
+	 * @return Returns the exponentially weighted moving standard deviation.
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(variance);
+	}
+
+}
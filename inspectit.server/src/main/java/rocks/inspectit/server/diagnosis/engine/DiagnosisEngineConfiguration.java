@@ -15,6 +15,7 @@ import rocks.inspectit.server.diagnosis.engine.rule.store.DefaultRuleOutputStora
 import rocks.inspectit.server.diagnosis.engine.rule.store.IRuleOutputStorage;
 import rocks.inspectit.server.diagnosis.engine.session.ISessionCallback;
 import rocks.inspectit.server.diagnosis.engine.session.ISessionResultCollector;
+import rocks.inspectit.server.diagnosis.engine.session.RuleExecutionStatistics;
 import rocks.inspectit.server.diagnosis.engine.session.Session;
 
 /**
@@ -55,6 +56,19 @@ public class DiagnosisEngineConfiguration<I, R> {
 	 */
 	private ExecutorService executorService;
 
+	/**
+	 * The {@link ExecutorService} shared by all {@link Session}s to execute the rules. If not
+	 * provided, each session creates its own executor with {@link #numRuleWorkers} threads. As
+	 * sessions block until their rules are executed, a shared executor must be a work stealing
+	 * pool if it also runs the sessions.
+	 */
+	private ExecutorService ruleExecutorService;
+
+	/**
+	 * The {@link RuleExecutionStatistics} to record the execution times of the rules. Optional.
+	 */
+	private RuleExecutionStatistics ruleExecutionStatistics;
+
 	/**
 	 * The {@link IRuleOutputStorage} implementation to be used.
 	 */
@@ -97,6 +111,30 @@ public class DiagnosisEngineConfiguration<I, R> {
 		return this;
 	}
 
+	/**
+	 * Sets {@link #ruleExecutorService}.
+	 *
+	 * @param ruleExecutorService
+	 *            New value for {@link #ruleExecutorService}
+	 * @return DiagnosisEngineConfiguration itself
+	 */
+	public DiagnosisEngineConfiguration<I, R> setRuleExecutorService(ExecutorService ruleExecutorService) {
+		this.ruleExecutorService = checkNotNull(ruleExecutorService, "The ExecutorService must not be null.");
+		return this;
+	}
+
+	/**
+	 * Sets {@link #ruleExecutionStatistics}.
+	 *
+	 * @param ruleExecutionStatistics
+	 *            New value for {@link #ruleExecutionStatistics}
+	 * @return DiagnosisEngineConfiguration itself
+	 */
+	public DiagnosisEngineConfiguration<I, R> setRuleExecutionStatistics(RuleExecutionStatistics ruleExecutionStatistics) {
+		this.ruleExecutionStatistics = ruleExecutionStatistics;
+		return this;
+	}
+
 	/**
 	 * Adds new Classes to {@link #ruleClasses}.
 	 *
@@ -254,6 +292,24 @@ public class DiagnosisEngineConfiguration<I, R> {
 		return executorService;
 	}
 
+	/**
+	 * Gets {@link #ruleExecutorService}.
+	 *
+	 * @return {@link #ruleExecutorService}
+	 */
+	public ExecutorService getRuleExecutorService() {
+		return ruleExecutorService;
+	}
+
+	/**
+	 * Gets {@link #ruleExecutionStatistics}.
+	 *
+	 * @return {@link #ruleExecutionStatistics}
+	 */
+	public RuleExecutionStatistics getRuleExecutionStatistics() {
+		return ruleExecutionStatistics;
+	}
+
 	/**
 	 * Gets {@link #storageClass}.
 	 *
@@ -0,0 +1,75 @@
+package rocks.inspectit.server.diagnosis.engine.session;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rocks.inspectit.server.diagnosis.engine.rule.RuleDefinition;
+
+/**
+ * Thread safe statistics of the execution times of the rules over all {@link Session}s.
+ */
+public class RuleExecutionStatistics {
+
+	/**
+	 * Statistics per rule name.
+	 */
+	private final ConcurrentHashMap<String, RuleStatistics> statistics = new ConcurrentHashMap<>();
+
+	/**
+	 * Records one execution of the rule.
+	 *
+	 * @param definition
+	 *            Executed {@link RuleDefinition}.
+	 * @param durationNanos
+	 *            Execution time in nanoseconds.
+	 */
+	public void record(RuleDefinition definition, long durationNanos) {
+		RuleStatistics ruleStatistics = statistics.get(definition.getName());
+		if (null == ruleStatistics) {
+			ruleStatistics = new RuleStatistics();
+			RuleStatistics existing = statistics.putIfAbsent(definition.getName(), ruleStatistics);
+			if (null != existing) {
+				ruleStatistics = existing;
+			}
+		}
+		ruleStatistics.count.incrementAndGet();
+		ruleStatistics.totalNanos.addAndGet(durationNanos);
+	}
+
+	/**
+	 * Returns the average execution time of each rule.
+	 *
+	 * @return Map of the rule name to the average execution time in milliseconds.
+	 */
+	public Map<String, Double> getAverageExecutionTimes() {
+		Map<String, Double> averages = new HashMap<>();
+		for (Map.Entry<String, RuleStatistics> entry : statistics.entrySet()) {
+			long count = entry.getValue().count.get();
+			if (count > 0) {
+				double totalMillis = entry.getValue().totalNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+				averages.put(entry.getKey(), totalMillis / count);
+			}
+		}
+		return averages;
+	}
+
+	/**
+	 * Execution counters of one rule.
+	 */
+	private static final class RuleStatistics {
+
+		/**
+		 * Number of executions.
+		 */
+		private final AtomicLong count = new AtomicLong();
+
+		/**
+		 * Total execution time in nanoseconds.
+		 */
+		private final AtomicLong totalNanos = new AtomicLong();
+	}
+
+}
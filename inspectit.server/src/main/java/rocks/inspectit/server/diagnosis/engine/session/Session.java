@@ -113,6 +113,18 @@ public final class Session<I, R> implements Callable<R> {
 	 */
 	private ExecutorService executor;
 
+	/**
+	 * If the {@link #executor} was created by this session and has to be shut down with it. Shared
+	 * executors are shut down by their owner.
+	 */
+	private boolean ownExecutor;
+
+	/**
+	 * The {@link RuleExecutionStatistics} to record the execution times of the rules. Can be
+	 * <code>null</code>.
+	 */
+	private RuleExecutionStatistics ruleExecutionStatistics;
+
 	/**
 	 * The {@link ISessionResultCollector} which produces the results of a session execution. The
 	 * {@link ISessionResultCollector} is configurable from the {@link DiagnosisEngineConfiguration}
@@ -175,6 +187,16 @@ public final class Session<I, R> implements Callable<R> {
 		 */
 		private int shutDownTimeout = 2;
 
+		/**
+		 * The shared {@link ExecutorService} to execute the rules.
+		 */
+		private ExecutorService executorService;
+
+		/**
+		 * The {@link RuleExecutionStatistics} to record the execution times of the rules.
+		 */
+		private RuleExecutionStatistics ruleExecutionStatistics;
+
 		/**
 		 * The {@code RuleDefinition}s to be executed.
 		 */
@@ -202,6 +224,31 @@ public final class Session<I, R> implements Callable<R> {
 			return this;
 		}
 
+		/**
+		 * Sets {@link #executorService}. If not set, the session creates its own executor with
+		 * {@link #numRuleWorkers} threads.
+		 *
+		 * @param executorService
+		 *            New value for {@link #executorService}
+		 * @return The Builder itself
+		 */
+		public Builder<I, R> setExecutorService(ExecutorService executorService) {
+			this.executorService = executorService;
+			return this;
+		}
+
+		/**
+		 * Sets {@link #ruleExecutionStatistics}.
+		 *
+		 * @param ruleExecutionStatistics
+		 *            New value for {@link #ruleExecutionStatistics}
+		 * @return The Builder itself
+		 */
+		public Builder<I, R> setRuleExecutionStatistics(RuleExecutionStatistics ruleExecutionStatistics) {
+			this.ruleExecutionStatistics = ruleExecutionStatistics;
+			return this;
+		}
+
 		/**
 		 * Sets {@link #shutDownTimeout}.
 		 *
@@ -265,7 +312,13 @@ public final class Session<I, R> implements Callable<R> {
 
 			// Create a new Session
 			Session<I, R> session = new Session<>();
-			session.executor = Executors.newFixedThreadPool(numRuleWorkers);
+			if (null != executorService) {
+				session.executor = executorService;
+			} else {
+				session.executor = Executors.newFixedThreadPool(numRuleWorkers);
+				session.ownExecutor = true;
+			}
+			session.ruleExecutionStatistics = ruleExecutionStatistics;
 			session.shutDownTimeout = shutDownTimeout;
 			// Create a new SessionContext and instantiate the IRuleOutputStorage
 			session.sessionContext = new SessionContext<>(ruleDefinitions, tryInstantiate(storageClass));
@@ -406,9 +459,11 @@ public final class Session<I, R> implements Callable<R> {
 			break;
 		}
 		try {
-			executor.shutdown();
-			if (!executor.awaitTermination(shutDownTimeout, TimeUnit.SECONDS)) {
-				LOG.error("Session Executor did not shut down within: {} seconds.", shutDownTimeout);
+			if (ownExecutor) {
+				executor.shutdown();
+				if (!executor.awaitTermination(shutDownTimeout, TimeUnit.SECONDS)) {
+					LOG.error("Session Executor did not shut down within: {} seconds.", shutDownTimeout);
+				}
 			}
 		} catch (InterruptedException e) {
 			throw new SessionException("Failed to destroy Session", e);
@@ -470,27 +525,40 @@ public final class Session<I, R> implements Callable<R> {
 	 * Internal processing routine to execute all rules. This methods blocks as long as further
 	 * rules can be executed. If this method returns it is assured that all possible rules are
 	 * executed and all possible results are available in the IRuleOutputStorage.
+	 * <p>
+	 * A single executable rule is executed in the calling thread, as there is nothing to execute in
+	 * parallel and the handoff to the executor would only add latency.
 	 */
 	private void doProcess() {
 		Collection<RuleExecution> nextRules = findNextRules();
 		while (!nextRules.isEmpty()) {
-			try {
-				// 1. invoke next set of rules
-				List<Future<Collection<RuleOutput>>> futures = executor.invokeAll(nextRules);
-				// 2. iterate over all created futures
-				for (Future<Collection<RuleOutput>> future : futures) {
-					try {
-						// 3. block till a of RuleOutputs is received
-						Collection<RuleOutput> outputs = future.get();
-						// 4. store outputs in IRuleOutputStorage
-						sessionContext.getStorage().store(outputs);
-					} catch (Exception ex) {
-						// ensure a proper exception handling
-						failure(ex);
+			if (nextRules.size() == 1) {
+				try {
+					// execute the only rule directly and store outputs in IRuleOutputStorage
+					sessionContext.getStorage().store(nextRules.iterator().next().call());
+				} catch (Exception ex) {
+					// ensure a proper exception handling
+					failure(ex);
+				}
+			} else {
+				try {
+					// 1. invoke next set of rules
+					List<Future<Collection<RuleOutput>>> futures = executor.invokeAll(nextRules);
+					// 2. iterate over all created futures
+					for (Future<Collection<RuleOutput>> future : futures) {
+						try {
+							// 3. block till a of RuleOutputs is received
+							Collection<RuleOutput> outputs = future.get();
+							// 4. store outputs in IRuleOutputStorage
+							sessionContext.getStorage().store(outputs);
+						} catch (Exception ex) {
+							// ensure a proper exception handling
+							failure(ex);
+						}
 					}
+				} catch (InterruptedException ex) {
+					throw new SessionException("Failed to retrieve RuleOutput", ex);
 				}
-			} catch (InterruptedException ex) {
-				throw new SessionException("Failed to retrieve RuleOutput", ex);
 			}
 			// Fetch the next executable rules
 			nextRules = findNextRules();
@@ -585,7 +653,14 @@ public final class Session<I, R> implements Callable<R> {
 
 		@Override
 		public Collection<RuleOutput> call() throws Exception {
-			return definition.execute(collectInputs(definition), Session.this.sessionContext.getSessionVariables());
+			long start = System.nanoTime();
+			try {
+				return definition.execute(collectInputs(definition), Session.this.sessionContext.getSessionVariables());
+			} finally {
+				if (null != ruleExecutionStatistics) {
+					ruleExecutionStatistics.record(definition, System.nanoTime() - start);
+				}
+			}
 		}
 	}
 
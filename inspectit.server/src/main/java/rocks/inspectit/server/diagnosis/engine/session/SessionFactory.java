@@ -57,7 +57,8 @@ public class SessionFactory<I, R> extends BasePoolableObjectFactory<Session<I, R
 	public Session<I, R> makeObject() throws Exception {
 		// Utilize Session#Builder to create a new Session. Session is configured with values from
 		// the the DiagnosisEngineConfiguration.
-		return Session.<I, R> builder().setNumRuleWorkers(configuration.getNumRuleWorkers()).setStorageClass(configuration.getStorageClass()).setRuleDefinitions(ruleDefinitions)
+		return Session.<I, R> builder().setNumRuleWorkers(configuration.getNumRuleWorkers()).setExecutorService(configuration.getRuleExecutorService())
+				.setRuleExecutionStatistics(configuration.getRuleExecutionStatistics()).setStorageClass(configuration.getStorageClass()).setRuleDefinitions(ruleDefinitions)
 				.setSessionResultCollector(configuration.getResultCollector()).build();
 	}
 
@@ -0,0 +1,143 @@
+package rocks.inspectit.server.diagnosis.service;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import rocks.inspectit.server.diagnosis.service.DiagnosisServiceImpl.DiagnosisInput;
+
+/**
+ * Bounded blocking queue of the invocations waiting for the diagnosis. The slowest invocation is
+ * taken first. When the queue is full a new invocation replaces the fastest queued one if it is
+ * slower, otherwise it is rejected. Thus the slowest invocations are diagnosed when the diagnosis
+ * can not keep up with the incoming invocations.
+ */
+class DiagnosisQueue {
+
+	/**
+	 * Orders the inputs by the descending duration of the invocation, inputs with the same duration
+	 * in the order of their arrival.
+	 */
+	private static final Comparator<DiagnosisInput> SLOWEST_FIRST = new Comparator<DiagnosisInput>() {
+		@Override
+		public int compare(DiagnosisInput o1, DiagnosisInput o2) {
+			int result = Double.compare(o2.getInvocation().getDuration(), o1.getInvocation().getDuration());
+			if (0 != result) {
+				return result;
+			}
+			return Long.compare(o1.getSequence(), o2.getSequence());
+		}
+	};
+
+	/**
+	 * Maximum number of queued inputs.
+	 */
+	private final int capacity;
+
+	/**
+	 * Queued inputs.
+	 */
+	private final TreeSet<DiagnosisInput> inputs = new TreeSet<>(SLOWEST_FIRST);
+
+	/**
+	 * Lock guarding the {@link #inputs}.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Condition signaled when an input is added.
+	 */
+	private final Condition notEmpty = lock.newCondition();
+
+	/**
+	 * Arrival sequence of the next input.
+	 */
+	private long sequence;
+
+	/**
+	 * Number of inputs that were rejected or removed from the queue without diagnosis.
+	 */
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param capacity
+	 *            Maximum number of queued inputs.
+	 */
+	DiagnosisQueue(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Adds the input to the queue if there is space or if it is slower than the fastest queued
+	 * input, which is then removed.
+	 *
+	 * @param input
+	 *            Input to add.
+	 * @return <code>true</code> if the input was added, <code>false</code> if it was rejected.
+	 */
+	boolean offer(DiagnosisInput input) {
+		lock.lock();
+		try {
+			input.setSequence(sequence++);
+			if (inputs.size() >= capacity) {
+				rejectedCount.incrementAndGet();
+				if ((0 == capacity) || (SLOWEST_FIRST.compare(input, inputs.last()) > 0)) {
+					return false;
+				}
+				inputs.pollLast();
+			}
+			inputs.add(input);
+			notEmpty.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the slowest input, waiting until one is available.
+	 *
+	 * @return Slowest input.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting.
+	 */
+	DiagnosisInput take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (inputs.isEmpty()) {
+				notEmpty.await();
+			}
+			return inputs.pollFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of queued inputs.
+	 *
+	 * @return Returns the number of queued inputs.
+	 */
+	int size() {
+		lock.lock();
+		try {
+			return inputs.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets {@link #rejectedCount}.
+	 *
+	 * @return {@link #rejectedCount}
+	 */
+	long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+}
@@ -3,18 +3,18 @@ package rocks.inspectit.server.diagnosis.service;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.commons.math3.util.Pair;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
@@ -24,6 +24,7 @@ import rocks.inspectit.server.diagnosis.engine.DiagnosisEngineConfiguration;
 import rocks.inspectit.server.diagnosis.engine.IDiagnosisEngine;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.Rule;
 import rocks.inspectit.server.diagnosis.engine.session.ISessionCallback;
+import rocks.inspectit.server.diagnosis.engine.session.RuleExecutionStatistics;
 import rocks.inspectit.server.diagnosis.engine.session.SessionVariables;
 import rocks.inspectit.server.diagnosis.service.rules.RuleConstants;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
@@ -39,8 +40,6 @@ public class DiagnosisServiceImpl implements IDiagnosisService, Runnable {
 	@Log
 	Logger log;
 
-	private static final long TIMEOUT = 50;
-
 	@Autowired
 	private IDiagnosisResultNotificationService diagnosisResultService;
 
@@ -49,10 +48,32 @@ public class DiagnosisServiceImpl implements IDiagnosisService, Runnable {
 	@Autowired
 	private ProblemInstanceResultCollector collector;
 
-	private final int capacity = 100;
+	/**
+	 * Maximum number of invocations waiting for the diagnosis.
+	 */
+	@Value("${cmr.diagnosisQueueCapacity}")
+	int queueCapacity;
+
+	/**
+	 * Number of threads executing the diagnosis sessions and their rules. Value <code>0</code>
+	 * uses one thread per available processor.
+	 */
+	@Value("${cmr.diagnosisWorkers}")
+	int workers;
+
+	/**
+	 * Invocations waiting for the diagnosis, slowest first.
+	 */
+	private DiagnosisQueue queue;
 
-	private final BlockingQueue<DiagnosisInput> queue = new LinkedBlockingQueue<>(capacity);
+	/**
+	 * Execution times of the rules.
+	 */
+	private final RuleExecutionStatistics ruleExecutionStatistics = new RuleExecutionStatistics();
 
+	/**
+	 * Executor running the dispatching of the queued invocations to the engine.
+	 */
 	private final ExecutorService executor = Executors.newSingleThreadExecutor();
 
 	private final List<String> rulesPackages;
@@ -66,11 +87,7 @@ public class DiagnosisServiceImpl implements IDiagnosisService, Runnable {
 	 */
 	@Override
 	public boolean diagnose(InvocationSequenceData invocation, double baseline) {
-		try {
-			return queue.offer(new DiagnosisInput(invocation, baseline), TIMEOUT, TimeUnit.MILLISECONDS);
-		} catch (InterruptedException e) {
-			return false;
-		}
+		return queue.offer(new DiagnosisInput(invocation, baseline));
 	}
 
 	/**
@@ -106,8 +123,33 @@ public class DiagnosisServiceImpl implements IDiagnosisService, Runnable {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRejectedCount() {
+		return queue.getRejectedCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Double> getRuleExecutionTimes() {
+		return ruleExecutionStatistics.getAverageExecutionTimes();
+	}
+
 	@PostConstruct
 	public void init() throws ClassNotFoundException {
+		queue = new DiagnosisQueue(queueCapacity);
 
 		ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
 
@@ -122,7 +164,14 @@ public class DiagnosisServiceImpl implements IDiagnosisService, Runnable {
 
 		DiagnosisEngineConfiguration<InvocationSequenceData, List<ProblemOccurrence>> configuration = new DiagnosisEngineConfiguration<InvocationSequenceData, List<ProblemOccurrence>>();
 
-		configuration.setNumSessionWorkers(2);
+		// sessions and their rules share one work stealing pool, so a session waiting for its rules
+		// helps executing them instead of blocking a thread
+		int parallelism = (workers > 0) ? workers : Runtime.getRuntime().availableProcessors();
+		ForkJoinPool workerPool = new ForkJoinPool(parallelism);
+		configuration.setNumSessionWorkers(parallelism);
+		configuration.setExecutorService(workerPool);
+		configuration.setRuleExecutorService(workerPool);
+		configuration.setRuleExecutionStatistics(ruleExecutionStatistics);
 		configuration.setRuleClasses(ruleClasses);
 		configuration.setResultCollector(collector);
 		configuration.setSessionCallback(new DelegatingResultHandler());
@@ -134,10 +183,15 @@ public class DiagnosisServiceImpl implements IDiagnosisService, Runnable {
 		}
 	}
 
-	private static class DiagnosisInput {
+	static class DiagnosisInput {
 		private final InvocationSequenceData invocation;
 		private final double baseline;
 
+		/**
+		 * Arrival sequence in the {@link DiagnosisQueue}.
+		 */
+		private long sequence;
+
 		/**
 		 * @param invocation
 		 * @param baseline
@@ -164,6 +218,25 @@ public class DiagnosisServiceImpl implements IDiagnosisService, Runnable {
 		public double getBaseline() {
 			return baseline;
 		}
+
+		/**
+		 * Gets {@link #sequence}.
+		 *
+		 * @return {@link #sequence}
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * Sets {@link #sequence}.
+		 *
+		 * @param sequence
+		 *            New value for {@link #sequence}
+		 */
+		public void setSequence(long sequence) {
+			this.sequence = sequence;
+		}
 	}
 
 	private class DelegatingResultHandler implements ISessionCallback<List<ProblemOccurrence>> {
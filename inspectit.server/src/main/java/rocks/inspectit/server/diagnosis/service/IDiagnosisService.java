@@ -1,6 +1,7 @@
 package rocks.inspectit.server.diagnosis.service;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.apache.commons.math3.util.Pair;
 
@@ -15,4 +16,25 @@ public interface IDiagnosisService {
 	boolean diagnose(InvocationSequenceData invocation, double baseline);
 
 	int diagnose(Collection<Pair<InvocationSequenceData, Double>> invocationBaselinePairs);
+
+	/**
+	 * Returns the number of invocations waiting for the diagnosis.
+	 *
+	 * @return Returns the number of invocations waiting for the diagnosis.
+	 */
+	int getQueueSize();
+
+	/**
+	 * Returns the number of invocations that were not diagnosed because the queue was full.
+	 *
+	 * @return Returns the number of invocations that were not diagnosed because the queue was full.
+	 */
+	long getRejectedCount();
+
+	/**
+	 * Returns the average execution time of each diagnosis rule.
+	 *
+	 * @return Map of the rule name to the average execution time in milliseconds.
+	 */
+	Map<String, Double> getRuleExecutionTimes();
 }
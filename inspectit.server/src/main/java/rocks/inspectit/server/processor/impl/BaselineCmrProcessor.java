@@ -0,0 +1,41 @@
+package rocks.inspectit.server.processor.impl;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import rocks.inspectit.server.diagnosis.baseline.BaselineService;
+import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+
+/**
+ * Processor that passes the durations of the invocation sequences to the {@link BaselineService}.
+ * Must be after the {@link DiagnosisCmrProcessor}, so that invocations are diagnosed against the
+ * baseline without their own duration.
+ */
+public class BaselineCmrProcessor extends AbstractCmrDataProcessor {
+
+	/**
+	 * {@link BaselineService} learning the baselines.
+	 */
+	@Autowired
+	BaselineService baselineService;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void processData(DefaultData defaultData, EntityManager entityManager) {
+		baselineService.update((InvocationSequenceData) defaultData);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canBeProcessed(DefaultData defaultData) {
+		return defaultData instanceof InvocationSequenceData;
+	}
+
+}
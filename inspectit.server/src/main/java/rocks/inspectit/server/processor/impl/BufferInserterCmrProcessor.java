@@ -7,6 +7,9 @@ import org.springframework.beans.factory.annotation.Qualifier;
 
 import rocks.inspectit.server.cache.IBuffer;
 import rocks.inspectit.server.cache.impl.BufferElement;
+import rocks.inspectit.server.cache.impl.CompressedInvocationBufferElement;
+import rocks.inspectit.server.cache.impl.CompressedInvocationStore;
+import rocks.inspectit.server.cache.impl.CompressedInvocationStore.CompressedInvocation;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.MethodSensorData;
@@ -16,6 +19,9 @@ import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 /**
  * Buffer inserter data processor. Inserts only {@link MethodSensorData} data objects that are not
  * part of an invocation.
+ * <p>
+ * If the {@link CompressedInvocationStore} is active the invocations are compressed before they
+ * are inserted, thus this processor must run after all processors changing the invocations.
  * 
  * @author Ivan Senic
  * 
@@ -29,6 +35,12 @@ public class BufferInserterCmrProcessor extends AbstractCmrDataProcessor {
 	@Qualifier("atomicBuffer")
 	IBuffer<MethodSensorData> buffer;
 
+	/**
+	 * Store for the compressed invocations.
+	 */
+	@Autowired
+	CompressedInvocationStore compressedInvocationStore;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -36,6 +48,14 @@ public class BufferInserterCmrProcessor extends AbstractCmrDataProcessor {
 	protected void processData(DefaultData defaultData, EntityManager entityManager) {
 		//System.out.println(((AtomicBuffer) buffer).name + "-> Indexer: "
 		// + ((RootBranch) ((AtomicBuffer) buffer).getIndexingTree()).name);
+		if ((defaultData instanceof InvocationSequenceData) && compressedInvocationStore.isActive()) {
+			InvocationSequenceData invocation = (InvocationSequenceData) defaultData;
+			CompressedInvocation compressedInvocation = compressedInvocationStore.compress(invocation);
+			if (null != compressedInvocation) {
+				buffer.put(new CompressedInvocationBufferElement<MethodSensorData>(invocation.getClonedInvocationSequence(), invocation, compressedInvocation, compressedInvocationStore));
+				return;
+			}
+		}
 		buffer.put(new BufferElement<MethodSensorData>((MethodSensorData) defaultData));
 	}
 
@@ -7,6 +7,7 @@ import javax.persistence.EntityManager;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import rocks.inspectit.server.diagnosis.baseline.BaselineService;
 import rocks.inspectit.server.diagnosis.service.IDiagnosisService;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
 import rocks.inspectit.shared.all.communication.DefaultData;
@@ -21,7 +22,11 @@ public class DiagnosisCmrProcessor extends AbstractCmrDataProcessor {
 	@Autowired
 	private IDiagnosisService diagnosisService;
 
-	private final double baseline = 1000.0;
+	/**
+	 * {@link BaselineService} providing the learned baseline of the business transaction.
+	 */
+	@Autowired
+	BaselineService baselineService;
 
 	public DiagnosisCmrProcessor() {
 
@@ -32,7 +37,8 @@ public class DiagnosisCmrProcessor extends AbstractCmrDataProcessor {
 	 */
 	@Override
 	protected void processData(DefaultData defaultData, EntityManager entityManager) {
-		diagnosisService.diagnose((InvocationSequenceData) defaultData, baseline);
+		InvocationSequenceData invocation = (InvocationSequenceData) defaultData;
+		diagnosisService.diagnose(invocation, baselineService.getBaseline(invocation));
 	}
 
 	/**
@@ -40,7 +46,7 @@ public class DiagnosisCmrProcessor extends AbstractCmrDataProcessor {
 	 */
 	@Override
 	public boolean canBeProcessed(DefaultData defaultData) {
-		return defaultData instanceof InvocationSequenceData && ((InvocationSequenceData) defaultData).getDuration() > baseline;
+		return defaultData instanceof InvocationSequenceData && baselineService.isDiagnosisNeeded((InvocationSequenceData) defaultData);
 	}
 
 }
@@ -5,6 +5,7 @@ import javax.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import rocks.inspectit.server.cache.cube.AggregationCubes;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.InvocationAwareData;
@@ -32,6 +33,12 @@ public class IndexerCmrProcessor extends AbstractCmrDataProcessor {
 	@Autowired
 	IBufferTreeComponent<DefaultData> indexingTree;
 
+	/**
+	 * Cubes of the aggregated views.
+	 */
+	@Autowired
+	AggregationCubes aggregationCubes;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -39,6 +46,7 @@ public class IndexerCmrProcessor extends AbstractCmrDataProcessor {
 	protected void processData(DefaultData defaultData, EntityManager entityManager) {
 		try {
 			indexingTree.put(defaultData);
+			aggregationCubes.add(defaultData);
 		} catch (IndexingException e) {
 			// should never happen
 			log.error(e.getMessage(), e);
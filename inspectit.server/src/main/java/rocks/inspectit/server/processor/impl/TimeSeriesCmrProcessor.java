@@ -0,0 +1,63 @@
+package rocks.inspectit.server.processor.impl;
+
+import java.util.Collection;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
+import rocks.inspectit.server.tsdb.RollupManager;
+import rocks.inspectit.server.tsdb.TimeSeriesStore;
+import rocks.inspectit.shared.all.communication.DefaultData;
+
+/**
+ * Processor that saves the platform sensor and JMX data to the {@link TimeSeriesStore} and passes
+ * it to the {@link RollupManager}.
+ */
+public class TimeSeriesCmrProcessor extends AbstractCmrDataProcessor {
+
+	/**
+	 * {@link TimeSeriesStore} to save the data to.
+	 */
+	@Autowired
+	TimeSeriesStore timeSeriesStore;
+
+	/**
+	 * {@link RollupManager} to aggregate the data.
+	 */
+	@Autowired
+	RollupManager rollupManager;
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The write-ahead log of the store is forced to the disk once for the whole batch.
+	 */
+	@Override
+	public void process(Collection<? extends DefaultData> defaultDatas, EntityManager entityManager) {
+		super.process(defaultDatas, entityManager);
+		timeSeriesStore.sync();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void processData(DefaultData defaultData, EntityManager entityManager) {
+		timeSeriesStore.add(defaultData);
+		rollupManager.aggregate(defaultData);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canBeProcessed(DefaultData defaultData) {
+		if (null != defaultData) {
+			return timeSeriesStore.isStored(defaultData.getClass());
+		}
+		return false;
+	}
+
+}
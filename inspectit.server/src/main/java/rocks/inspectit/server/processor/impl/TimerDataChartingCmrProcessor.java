@@ -1,8 +1,8 @@
 package rocks.inspectit.server.processor.impl;
 
+import java.util.Arrays;
 import java.util.List;
 
-import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -10,23 +10,27 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import rocks.inspectit.server.dao.impl.TimerDataAggregator;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
+import rocks.inspectit.server.tsdb.RollupManager;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.HttpInfo;
 import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.ParameterContentData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
-import rocks.inspectit.shared.all.spring.logger.Log;
-import rocks.inspectit.shared.all.storage.serializer.SerializationException;
-import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
-import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
 
 /**
  * Processor that saves {@link TimerData} or {@link HttpTimerData} to database correctly if the
  * charting is on.
+ * <p>
+ * The persisted {@link HttpInfo}s are cached by URI, tag and request method, so that the database
+ * is only queried for the ones not seen before. The {@link HttpTimerData} is persisted as a copy
+ * of its charting values, the parameters, attributes and headers of the original are not copied.
  * 
  * @author Ivan Senic
  * 
@@ -34,10 +38,9 @@ import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManag
 public class TimerDataChartingCmrProcessor extends AbstractCmrDataProcessor {
 
 	/**
-	 * Log for this class.
+	 * Max amount of the cached {@link HttpInfo}s.
 	 */
-	@Log
-	Logger log;
+	private static final int MAX_CACHED_HTTP_INFOS = 10000;
 
 	/**
 	 * {@link TimerDataAggregator} for {@link TimerData} aggregation.
@@ -46,15 +49,16 @@ public class TimerDataChartingCmrProcessor extends AbstractCmrDataProcessor {
 	TimerDataAggregator timerDataAggregator;
 
 	/**
-	 * Serialization manager provider for getting the {@link SerializationManager}.
+	 * {@link RollupManager} for the rollups of the charting data.
 	 */
 	@Autowired
-	private SerializationManagerProvider serializationManagerProvider;
+	RollupManager rollupManager;
 
 	/**
-	 * {@link SerializationManager} for cloning.
+	 * Persisted {@link HttpInfo}s keyed by the URI, tag and request method. The cached instances are
+	 * detached and never changed.
 	 */
-	SerializationManager serializationManager;
+	Cache<List<String>, HttpInfo> httpInfoCache = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_HTTP_INFOS).build();
 
 	/**
 	 * {@inheritDoc}
@@ -62,17 +66,23 @@ public class TimerDataChartingCmrProcessor extends AbstractCmrDataProcessor {
 	@Override
 	protected void processData(DefaultData defaultData, EntityManager entityManager) {
 		if (defaultData instanceof HttpTimerData) {
-			try {
-				HttpTimerData original = (HttpTimerData) defaultData;
-				HttpInfo httpInfo = getHttpInfo(original, entityManager);
-				HttpTimerData clone = getClone(original);
-				clone.setHttpInfo(httpInfo);
-				entityManager.persist(clone);
-			} catch (SerializationException e) {
-				log.warn("TimerDataChartingCmrProcessor failed to clone the given HttpTimerData", e);
+			HttpTimerData original = (HttpTimerData) defaultData;
+			HttpInfo httpInfo = getHttpInfo(original, entityManager);
+			HttpTimerData chartingData = getChartingData(original);
+			chartingData.setHttpInfo(httpInfo);
+			if (0 == httpInfo.getId()) {
+				// new info is persisted with the data, rollup needs the generated id
+				entityManager.persist(chartingData);
+				rollupManager.aggregate(chartingData);
+			} else {
+				// rollup keeps the cached info, the persisted data only references it by id
+				rollupManager.aggregate(chartingData);
+				chartingData.setHttpInfo(entityManager.getReference(HttpInfo.class, httpInfo.getId()));
+				entityManager.persist(chartingData);
 			}
 		} else {
 			timerDataAggregator.processTimerData((TimerData) defaultData);
+			rollupManager.aggregate(defaultData);
 		}
 	}
 
@@ -85,23 +95,46 @@ public class TimerDataChartingCmrProcessor extends AbstractCmrDataProcessor {
 	}
 
 	/**
-	 * Creates the cloned {@link HttpTimerData} by using the kryo and {@link #serializationManager}.
-	 * Sets id of the clone to zero.
+	 * Creates the {@link HttpTimerData} to persist from the original one. The values needed for
+	 * the charting and the parameter contents are copied, the id of the created data is zero. The
+	 * parameter contents are new objects, as persisting sets their ids and the original ones must
+	 * stay unchanged.
 	 * 
 	 * @param original
-	 *            Data to be cloned.
-	 * @return Cloned {@link HttpTimerData} with id zero.
-	 * @throws SerializationException
-	 *             If serialization fails.
+	 *            Data to copy.
+	 * @return New {@link HttpTimerData} with id zero.
 	 */
-	private synchronized HttpTimerData getClone(HttpTimerData original) throws SerializationException {
-		HttpTimerData httpTimerData = serializationManager.copy(original);
-		httpTimerData.setId(0L);
+	private HttpTimerData getChartingData(HttpTimerData original) {
+		HttpTimerData httpTimerData = new HttpTimerData(original.getTimeStamp(), original.getPlatformIdent(), original.getSensorTypeIdent(), original.getMethodIdent());
+		httpTimerData.setCount(original.getCount());
+		httpTimerData.setDuration(original.getDuration());
+		httpTimerData.calculateMin(original.getMin());
+		httpTimerData.calculateMax(original.getMax());
+		httpTimerData.setVariance(original.getVariance());
+		httpTimerData.setCpuDuration(original.getCpuDuration());
+		httpTimerData.calculateCpuMin(original.getCpuMin());
+		httpTimerData.calculateCpuMax(original.getCpuMax());
+		httpTimerData.setExclusiveCount(original.getExclusiveCount());
+		httpTimerData.setExclusiveDuration(original.getExclusiveDuration());
+		httpTimerData.calculateExclusiveMin(original.getExclusiveMin());
+		httpTimerData.calculateExclusiveMax(original.getExclusiveMax());
+		httpTimerData.setCharting(original.isCharting());
+		if (null != original.getParameterContentData()) {
+			for (ParameterContentData parameterContent : original.getParameterContentData()) {
+				ParameterContentData copy = new ParameterContentData();
+				copy.setName(parameterContent.getName());
+				copy.setContent(parameterContent.getContent());
+				copy.setContentType(parameterContent.getContentType());
+				copy.setSignaturePosition(parameterContent.getSignaturePosition());
+				httpTimerData.addParameterContentData(copy);
+			}
+		}
 		return httpTimerData;
 	}
 
 	/**
-	 * Find {@link HttpInfo} to attach to {@link HttpTimerData} when saving.
+	 * Find {@link HttpInfo} to attach to {@link HttpTimerData} when saving. The database is only
+	 * queried if the info is not in the {@link #httpInfoCache}.
 	 * 
 	 * @param httpTimerData
 	 *            {@link HttpTimerData} to find info for.
@@ -115,6 +148,12 @@ public class TimerDataChartingCmrProcessor extends AbstractCmrDataProcessor {
 		String tag = httpInfo.hasInspectItTaggingHeader() ? httpInfo.getInspectItTaggingHeaderValue() : null; // NOPMD
 		String requestMethod = httpInfo.getRequestMethod();
 
+		List<String> key = Arrays.asList(uri, tag, requestMethod);
+		HttpInfo cachedHttpInfo = httpInfoCache.getIfPresent(key);
+		if (null != cachedHttpInfo) {
+			return cachedHttpInfo;
+		}
+
 		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 		CriteriaQuery<HttpInfo> criteria = builder.createQuery(HttpInfo.class);
 		Root<? extends HttpInfo> root = criteria.from(HttpInfo.class);
@@ -138,18 +177,13 @@ public class TimerDataChartingCmrProcessor extends AbstractCmrDataProcessor {
 		List<?> httpInfoList = entityManager.createQuery(criteria).getResultList();
 
 		if (CollectionUtils.isNotEmpty(httpInfoList)) {
-			return (HttpInfo) httpInfoList.get(0);
+			// only infos already in the database are cached, new ones are cached when found
+			HttpInfo persistedHttpInfo = (HttpInfo) httpInfoList.get(0);
+			httpInfoCache.put(key, persistedHttpInfo);
+			return persistedHttpInfo;
 		} else {
 			return new HttpInfo(uri, requestMethod, tag);
 		}
 	}
 
-	/**
-	 * Post construct.
-	 */
-	@PostConstruct
-	protected void init() {
-		serializationManager = serializationManagerProvider.createSerializer();
-	}
-
 }
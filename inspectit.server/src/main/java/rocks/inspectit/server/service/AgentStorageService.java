@@ -15,6 +15,7 @@ import org.springframework.stereotype.Service;
 
 import rocks.inspectit.server.dao.DefaultDataDao;
 import rocks.inspectit.server.spring.aop.MethodLog;
+import rocks.inspectit.server.util.AgentFlowController;
 import rocks.inspectit.server.util.AgentStatusDataProvider;
 import rocks.inspectit.server.util.Converter;
 import rocks.inspectit.shared.all.cmr.property.spring.PropertyUpdate;
@@ -65,6 +66,12 @@ public class AgentStorageService implements IAgentStorageService {
 	@Autowired
 	ICmrManagementService cmrManagementService;
 
+	/**
+	 * {@link AgentFlowController}.
+	 */
+	@Autowired
+	AgentFlowController agentFlowController;
+
 	/**
 	 * Queue to store and remove list of data that has to be processed.
 	 */
@@ -114,6 +121,7 @@ public class AgentStorageService implements IAgentStorageService {
 					log.trace("Data dropped on the CMR due to the high volume of incoming data from Agent(s). Dropped data objects count: " + droppedSize);
 				}
 				cmrManagementService.addDroppedDataCount(droppedSize);
+				agentFlowController.registerDataDropped();
 			}
 		} catch (InterruptedException e) {
 			return;
@@ -164,6 +172,7 @@ public class AgentStorageService implements IAgentStorageService {
 	@PostConstruct
 	public void postConstruct() throws Exception {
 		updateThreadCount();
+		agentFlowController.registerIngestionQueue(dataObjectsBlockingQueue);
 
 		if (log.isInfoEnabled()) {
 			log.info("|-Agent Storage Service active...");
@@ -9,6 +9,7 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 
@@ -19,8 +20,11 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import rocks.inspectit.server.cache.IBuffer;
+import rocks.inspectit.server.cache.impl.CompressedInvocationStore;
+import rocks.inspectit.server.diagnosis.service.IDiagnosisService;
 import rocks.inspectit.server.property.PropertyManager;
 import rocks.inspectit.server.spring.aop.MethodLog;
+import rocks.inspectit.server.util.AgentFlowController;
 import rocks.inspectit.server.util.ShutdownService;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.cmr.CmrStatusData;
@@ -55,6 +59,12 @@ public class CmrManagementService implements ICmrManagementService {
 	@Qualifier("atomicBuffer")
 	private IBuffer<DefaultData> buffer;
 
+	/**
+	 * Store for the compressed invocations of the buffer.
+	 */
+	@Autowired
+	private CompressedInvocationStore compressedInvocationStore;
+
 	/**
 	 * {@link StorageManager}.
 	 */
@@ -70,7 +80,19 @@ public class CmrManagementService implements ICmrManagementService {
 	/**
 	 * Count of dropped data due to high volume of incoming data objects.
 	 */
-	private int droppedDataCount = 0;
+	private final AtomicInteger droppedDataCount = new AtomicInteger();
+
+	/**
+	 * {@link AgentFlowController}.
+	 */
+	@Autowired
+	private AgentFlowController agentFlowController;
+
+	/**
+	 * {@link IDiagnosisService}.
+	 */
+	@Autowired
+	private IDiagnosisService diagnosisService;
 
 	/**
 	 * {@link ShutdownService}.
@@ -110,6 +132,7 @@ public class CmrManagementService implements ICmrManagementService {
 	@MethodLog
 	public void clearBuffer() {
 		buffer.clearAll();
+		compressedInvocationStore.clear();
 	}
 
 	/**
@@ -130,6 +153,11 @@ public class CmrManagementService implements ICmrManagementService {
 		cmrStatusData.setUpTime(System.currentTimeMillis() - timeStarted);
 		cmrStatusData.setDateStarted(dateStarted);
 		cmrStatusData.setDatabaseSize(getDatabaseSize());
+		cmrStatusData.setDroppedDataCount(droppedDataCount.get());
+		cmrStatusData.setAgentThrottleCount(agentFlowController.getThrottleCount());
+		cmrStatusData.setDiagnosisQueueSize(diagnosisService.getQueueSize());
+		cmrStatusData.setDiagnosisRejectedCount(diagnosisService.getRejectedCount());
+		cmrStatusData.setDiagnosisRuleExecutionTimes(diagnosisService.getRuleExecutionTimes());
 		return cmrStatusData;
 	}
 
@@ -140,14 +168,14 @@ public class CmrManagementService implements ICmrManagementService {
 	 *            Dropped amount.
 	 */
 	public void addDroppedDataCount(int count) {
-		droppedDataCount += count;
+		droppedDataCount.addAndGet(count);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public int getDroppedDataCount() {
-		return droppedDataCount;
+		return droppedDataCount.get();
 	}
 
 	/**
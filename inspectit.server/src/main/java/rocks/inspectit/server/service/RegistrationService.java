@@ -34,6 +34,7 @@ import rocks.inspectit.shared.all.cmr.model.PlatformIdent;
 import rocks.inspectit.shared.all.cmr.model.PlatformSensorTypeIdent;
 import rocks.inspectit.shared.all.cmr.model.SensorTypeIdent;
 import rocks.inspectit.shared.all.cmr.service.IRegistrationService;
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.exception.enumeration.AgentManagementErrorCodeEnum;
 import rocks.inspectit.shared.all.spring.logger.Log;
@@ -269,6 +270,34 @@ public class RegistrationService implements IRegistrationService {
 		methodIdentToSensorTypeDao.saveOrUpdate(methodIdentToSensorType);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public long[] registerMethodIdents(long platformId, List<MethodRegistrationData> methodRegistrations) {
+		long[] methodIds = new long[methodRegistrations.size()];
+		int i = 0;
+		for (MethodRegistrationData methodRegistration : methodRegistrations) {
+			long methodId = registerMethodIdent(platformId, methodRegistration.getPackageName(), methodRegistration.getClassName(), methodRegistration.getMethodName(),
+					methodRegistration.getParameterTypes(), methodRegistration.getReturnType(), methodRegistration.getModifiers());
+
+			long[] methodSensorTypeIds = methodRegistration.getMethodSensorTypeIdents();
+			if (null != methodSensorTypeIds) {
+				for (long methodSensorTypeId : methodSensorTypeIds) {
+					addSensorTypeToMethod(methodSensorTypeId, methodId);
+				}
+			}
+
+			methodIds[i++] = methodId;
+		}
+
+		if (log.isDebugEnabled()) {
+			log.debug("Registered " + methodIds.length + " methods for the platform with id " + platformId + ".");
+		}
+		return methodIds;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
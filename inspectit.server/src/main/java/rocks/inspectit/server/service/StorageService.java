@@ -3,6 +3,7 @@ package rocks.inspectit.server.service;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -292,7 +293,10 @@ public class StorageService implements IStorageService {
 			throw new BusinessException("Load index files locations for the storage " + storageData + ".", StorageErrorCodeEnum.STORAGE_DOES_NOT_EXIST);
 		}
 		try {
-			return storageManager.getFilesHttpLocation(storageData, StorageFileType.INDEX_FILE.getExtension());
+			Map<String, Long> result = new HashMap<String, Long>();
+			result.putAll(storageManager.getFilesHttpLocation(storageData, StorageFileType.INDEX_FILE.getExtension()));
+			result.putAll(storageManager.getFilesHttpLocation(storageData, StorageFileType.INDEX_PARTITION_FILE.getExtension()));
+			return result;
 		} catch (IOException e) {
 			throw new TechnicalException("Load index files locations for the storage " + storageData + ".", StorageErrorCodeEnum.INPUT_OUTPUT_OPERATION_FAILED, e);
 		}
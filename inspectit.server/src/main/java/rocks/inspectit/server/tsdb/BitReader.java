@@ -0,0 +1,67 @@
+package rocks.inspectit.server.tsdb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the bits written by the {@link BitWriter} from a byte buffer. The buffer is read from its
+ * position up to its limit and the position of the buffer is not changed.
+ */
+public class BitReader {
+
+	/**
+	 * Buffer to read from.
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * Position in the buffer of the first byte.
+	 */
+	private final int offset;
+
+	/**
+	 * Number of bits read.
+	 */
+	private long bitPosition;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param buffer
+	 *            Buffer to read from, reading starts at the current position of the buffer.
+	 */
+	public BitReader(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.offset = buffer.position();
+	}
+
+	/**
+	 * Reads one bit.
+	 * 
+	 * @return Bit read.
+	 */
+	public boolean readBit() {
+		int index = offset + (int) (bitPosition >>> 3);
+		if (index >= buffer.limit()) {
+			throw new IllegalStateException("No more bits to read.");
+		}
+		boolean bit = ((buffer.get(index) >>> (7 - (int) (bitPosition & 7))) & 1) != 0;
+		bitPosition++;
+		return bit;
+	}
+
+	/**
+	 * Reads the given number of bits.
+	 * 
+	 * @param bitCount
+	 *            Number of bits to read, from 0 to 64.
+	 * @return Value with the read bits as lowest bits.
+	 */
+	public long readBits(int bitCount) {
+		long value = 0;
+		for (int i = 0; i < bitCount; i++) {
+			value = (value << 1) | (readBit() ? 1 : 0);
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,96 @@
+package rocks.inspectit.server.tsdb;
+
+import java.util.Arrays;
+
+/**
+ * Writes values bit by bit to a growing byte array. The bits are written starting with the most
+ * significant bit of every byte.
+ */
+public class BitWriter {
+
+	/**
+	 * Bytes written so far.
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Number of bits written.
+	 */
+	private long bitPosition;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param initialCapacity
+	 *            Initial capacity in bytes.
+	 */
+	public BitWriter(int initialCapacity) {
+		bytes = new byte[Math.max(1, initialCapacity)];
+	}
+
+	/**
+	 * Writes one bit.
+	 * 
+	 * @param bit
+	 *            Bit to write.
+	 */
+	public void writeBit(boolean bit) {
+		ensureCapacity(1);
+		if (bit) {
+			int index = (int) (bitPosition >>> 3);
+			bytes[index] |= 1 << (7 - (int) (bitPosition & 7));
+		}
+		bitPosition++;
+	}
+
+	/**
+	 * Writes the given number of the lowest bits of the value.
+	 * 
+	 * @param value
+	 *            Value to write.
+	 * @param bitCount
+	 *            Number of bits to write, from 0 to 64.
+	 */
+	public void writeBits(long value, int bitCount) {
+		ensureCapacity(bitCount);
+		for (int i = bitCount - 1; i >= 0; i--) {
+			if (((value >>> i) & 1) != 0) {
+				int index = (int) (bitPosition >>> 3);
+				bytes[index] |= 1 << (7 - (int) (bitPosition & 7));
+			}
+			bitPosition++;
+		}
+	}
+
+	/**
+	 * Returns the number of bytes containing the written bits.
+	 * 
+	 * @return Returns the number of bytes containing the written bits.
+	 */
+	public int getByteLength() {
+		return (int) ((bitPosition + 7) >>> 3);
+	}
+
+	/**
+	 * Returns a copy of the bytes containing the written bits.
+	 * 
+	 * @return Returns a copy of the bytes containing the written bits.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, getByteLength());
+	}
+
+	/**
+	 * Ensures that the given number of bits can be written.
+	 * 
+	 * @param bitCount
+	 *            Number of bits to write.
+	 */
+	private void ensureCapacity(int bitCount) {
+		int needed = (int) ((bitPosition + bitCount + 7) >>> 3);
+		if (needed > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+		}
+	}
+
+}
@@ -0,0 +1,378 @@
+package rocks.inspectit.server.tsdb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import rocks.inspectit.server.tsdb.SeriesSchema.ColumnType;
+import rocks.inspectit.shared.all.communication.DefaultData;
+
+/**
+ * Sealed chunk of one series written to a {@link Segment}. The chunk holds the samples of the
+ * series column by column, every column is compressed with the {@link TimeSeriesCodec}. The
+ * instance only holds the header of the chunk, the payload is read from the segment when the chunk
+ * is decoded.
+ * <p>
+ * Layout of a chunk in the segment file:
+ * <ul>
+ * <li>int payload length</li>
+ * <li>byte index of the data class, <code>-1</code> marks the deletion of a platform</li>
+ * <li>long platform ident, long sensor type ident, long definition id</li>
+ * <li>int number of samples, int number of columns</li>
+ * <li>long minimum time stamp, long maximum time stamp, long maximum id</li>
+ * <li>payload: time stamps, ids and the columns of the schema</li>
+ * </ul>
+ */
+public class Chunk {
+
+	/**
+	 * Size of the header in bytes.
+	 */
+	public static final int HEADER_SIZE = 4 + 1 + 8 + 8 + 8 + 4 + 4 + 8 + 8 + 8;
+
+	/**
+	 * Data class index marking the deletion of a platform.
+	 */
+	static final byte DELETED_PLATFORM = -1;
+
+	/**
+	 * Key of the series, <code>null</code> for the deletion marks.
+	 */
+	private final SeriesKey key;
+
+	/**
+	 * Segment holding the chunk.
+	 */
+	private final Segment segment;
+
+	/**
+	 * Position of the payload in the segment.
+	 */
+	private final long payloadPosition;
+
+	/**
+	 * Length of the payload.
+	 */
+	private final int payloadLength;
+
+	/**
+	 * Number of samples.
+	 */
+	private final int count;
+
+	/**
+	 * Minimum time stamp.
+	 */
+	private final long minTimestamp;
+
+	/**
+	 * Maximum time stamp.
+	 */
+	private final long maxTimestamp;
+
+	/**
+	 * Maximum id.
+	 */
+	private final long maxId;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param key
+	 *            Key of the series.
+	 * @param segment
+	 *            Segment holding the chunk.
+	 * @param payloadPosition
+	 *            Position of the payload in the segment.
+	 * @param payloadLength
+	 *            Length of the payload.
+	 * @param count
+	 *            Number of samples.
+	 * @param minTimestamp
+	 *            Minimum time stamp.
+	 * @param maxTimestamp
+	 *            Maximum time stamp.
+	 * @param maxId
+	 *            Maximum id.
+	 */
+	Chunk(SeriesKey key, Segment segment, long payloadPosition, int payloadLength, int count, long minTimestamp, long maxTimestamp, long maxId) {
+		this.key = key;
+		this.segment = segment;
+		this.payloadPosition = payloadPosition;
+		this.payloadLength = payloadLength;
+		this.count = count;
+		this.minTimestamp = minTimestamp;
+		this.maxTimestamp = maxTimestamp;
+		this.maxId = maxId;
+	}
+
+	/**
+	 * Writes the header and the compressed columns of the samples to a buffer.
+	 * 
+	 * @param key
+	 *            Key of the series.
+	 * @param classIndex
+	 *            Index of the data class.
+	 * @param schema
+	 *            Schema of the data class.
+	 * @param samples
+	 *            Samples of the series.
+	 * @return Buffer ready to be written.
+	 */
+	static ByteBuffer encode(SeriesKey key, byte classIndex, SeriesSchema schema, List<DefaultData> samples) {
+		int count = samples.size();
+		long[] timestamps = new long[count];
+		long[] ids = new long[count];
+		long minTimestamp = Long.MAX_VALUE;
+		long maxTimestamp = Long.MIN_VALUE;
+		long maxId = 0;
+		for (int i = 0; i < count; i++) {
+			DefaultData data = samples.get(i);
+			timestamps[i] = data.getTimeStamp().getTime();
+			ids[i] = data.getId();
+			minTimestamp = Math.min(minTimestamp, timestamps[i]);
+			maxTimestamp = Math.max(maxTimestamp, timestamps[i]);
+			maxId = Math.max(maxId, ids[i]);
+		}
+
+		BitWriter writer = new BitWriter(count * 4);
+		TimeSeriesCodec.writeDeltaOfDelta(writer, timestamps, count);
+		TimeSeriesCodec.writeDeltaOfDelta(writer, ids, count);
+		long[] bits = new long[count];
+		String[] strings = null;
+		for (int column = 0; column < schema.getColumnCount(); column++) {
+			if (ColumnType.STRING == schema.getColumnType(column)) {
+				if (null == strings) {
+					strings = new String[count];
+				}
+				for (int i = 0; i < count; i++) {
+					strings[i] = schema.getString(samples.get(i), column);
+				}
+				TimeSeriesCodec.writeDictionary(writer, strings, count);
+			} else {
+				for (int i = 0; i < count; i++) {
+					bits[i] = schema.getBits(samples.get(i), column);
+				}
+				TimeSeriesCodec.writeXor(writer, bits, count);
+			}
+		}
+
+		byte[] payload = writer.toByteArray();
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+		writeHeader(buffer, payload.length, classIndex, key.getPlatformIdent(), key.getSensorTypeIdent(), key.getDefinitionId(), count, schema.getColumnCount(), minTimestamp, maxTimestamp, maxId);
+		buffer.put(payload);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Writes the deletion mark of the platform to a buffer. The mark deletes all samples of the
+	 * platform up to the given id.
+	 * 
+	 * @param platformIdent
+	 *            Platform ident.
+	 * @param maxId
+	 *            Last id assigned before the deletion.
+	 * @return Buffer ready to be written.
+	 */
+	static ByteBuffer encodeDeletedPlatform(long platformIdent, long maxId) {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+		writeHeader(buffer, 0, DELETED_PLATFORM, platformIdent, 0, 0, 0, 0, 0, 0, maxId);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Creates the chunk of the buffer returned by
+	 * {@link #encode(SeriesKey, byte, SeriesSchema, List)} after the buffer was appended to the
+	 * segment.
+	 * 
+	 * @param key
+	 *            Key of the series.
+	 * @param segment
+	 *            Segment the buffer was appended to.
+	 * @param position
+	 *            Position of the buffer in the segment.
+	 * @param encoded
+	 *            Encoded buffer.
+	 * @return Chunk.
+	 */
+	static Chunk of(SeriesKey key, Segment segment, long position, ByteBuffer encoded) {
+		int countOffset = 4 + 1 + 8 + 8 + 8;
+		int timestampOffset = countOffset + 4 + 4;
+		return new Chunk(key, segment, position + HEADER_SIZE, encoded.getInt(0), encoded.getInt(countOffset), encoded.getLong(timestampOffset), encoded.getLong(timestampOffset + 8),
+				encoded.getLong(timestampOffset + 16));
+	}
+
+	/**
+	 * Decodes the samples of the chunk that are in the given time range.
+	 * 
+	 * @param schema
+	 *            Schema of the data class.
+	 * @param fromTimestamp
+	 *            Minimum time stamp, inclusive.
+	 * @param toTimestamp
+	 *            Maximum time stamp, inclusive.
+	 * @param minId
+	 *            Samples must have larger id.
+	 * @return Samples, empty list if the segment of the chunk was closed.
+	 */
+	public List<DefaultData> decode(SeriesSchema schema, long fromTimestamp, long toTimestamp, long minId) {
+		ByteBuffer payload = segment.read(payloadPosition, payloadLength);
+		if (null == payload) {
+			return Collections.emptyList();
+		}
+		BitReader reader = new BitReader(payload);
+		long[] timestamps = new long[count];
+		long[] ids = new long[count];
+		TimeSeriesCodec.readDeltaOfDelta(reader, timestamps, count);
+		TimeSeriesCodec.readDeltaOfDelta(reader, ids, count);
+
+		DefaultData[] samples = new DefaultData[count];
+		for (int i = 0; i < count; i++) {
+			if ((timestamps[i] >= fromTimestamp) && (timestamps[i] <= toTimestamp) && (ids[i] > minId)) {
+				samples[i] = schema.newData(key, ids[i], timestamps[i]);
+			}
+		}
+
+		long[] bits = new long[count];
+		String[] strings = null;
+		for (int column = 0; column < schema.getColumnCount(); column++) {
+			if (ColumnType.STRING == schema.getColumnType(column)) {
+				if (null == strings) {
+					strings = new String[count];
+				}
+				TimeSeriesCodec.readDictionary(reader, strings, count);
+				for (int i = 0; i < count; i++) {
+					if (null != samples[i]) {
+						schema.setString(samples[i], column, strings[i]);
+					}
+				}
+			} else {
+				TimeSeriesCodec.readXor(reader, bits, count);
+				for (int i = 0; i < count; i++) {
+					if (null != samples[i]) {
+						schema.setBits(samples[i], column, bits[i]);
+					}
+				}
+			}
+		}
+
+		List<DefaultData> result = new ArrayList<DefaultData>(count);
+		for (DefaultData sample : samples) {
+			if (null != sample) {
+				result.add(sample);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * If the chunk has samples in the given time range.
+	 * 
+	 * @param fromTimestamp
+	 *            Minimum time stamp, inclusive.
+	 * @param toTimestamp
+	 *            Maximum time stamp, inclusive.
+	 * @return If the chunk has samples in the given time range.
+	 */
+	public boolean overlaps(long fromTimestamp, long toTimestamp) {
+		return (minTimestamp <= toTimestamp) && (maxTimestamp >= fromTimestamp);
+	}
+
+	/**
+	 * Writes the chunk header.
+	 * 
+	 * @param buffer
+	 *            Buffer to write to.
+	 * @param payloadLength
+	 *            Length of the payload.
+	 * @param classIndex
+	 *            Index of the data class.
+	 * @param platformIdent
+	 *            Platform ident.
+	 * @param sensorTypeIdent
+	 *            Sensor type ident.
+	 * @param definitionId
+	 *            Definition id.
+	 * @param count
+	 *            Number of samples.
+	 * @param columnCount
+	 *            Number of columns.
+	 * @param minTimestamp
+	 *            Minimum time stamp.
+	 * @param maxTimestamp
+	 *            Maximum time stamp.
+	 * @param maxId
+	 *            Maximum id.
+	 */
+	private static void writeHeader(ByteBuffer buffer, int payloadLength, byte classIndex, long platformIdent, long sensorTypeIdent, long definitionId, int count, int columnCount, long minTimestamp,
+			long maxTimestamp, long maxId) {
+		buffer.putInt(payloadLength);
+		buffer.put(classIndex);
+		buffer.putLong(platformIdent);
+		buffer.putLong(sensorTypeIdent);
+		buffer.putLong(definitionId);
+		buffer.putInt(count);
+		buffer.putInt(columnCount);
+		buffer.putLong(minTimestamp);
+		buffer.putLong(maxTimestamp);
+		buffer.putLong(maxId);
+	}
+
+	/**
+	 * Gets {@link #key}.
+	 * 
+	 * @return {@link #key}
+	 */
+	public SeriesKey getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets {@link #segment}.
+	 * 
+	 * @return {@link #segment}
+	 */
+	public Segment getSegment() {
+		return segment;
+	}
+
+	/**
+	 * Gets {@link #count}.
+	 * 
+	 * @return {@link #count}
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets {@link #minTimestamp}.
+	 * 
+	 * @return {@link #minTimestamp}
+	 */
+	public long getMinTimestamp() {
+		return minTimestamp;
+	}
+
+	/**
+	 * Gets {@link #maxTimestamp}.
+	 * 
+	 * @return {@link #maxTimestamp}
+	 */
+	public long getMaxTimestamp() {
+		return maxTimestamp;
+	}
+
+	/**
+	 * Gets {@link #maxId}.
+	 * 
+	 * @return {@link #maxId}
+	 */
+	public long getMaxId() {
+		return maxId;
+	}
+
+}
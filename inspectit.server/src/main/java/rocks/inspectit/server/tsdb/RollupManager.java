@@ -0,0 +1,440 @@
+package rocks.inspectit.server.tsdb;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.IAggregatedData;
+import rocks.inspectit.shared.all.communication.data.DatabaseAggregatedTimerData;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.JmxSensorValueData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Creates the rollups of the {@link TimeSeriesStore}. Every sample passed to the manager is
+ * aggregated into one open bucket per series and {@link RollupTier}. The bucket is written to the
+ * store as one sample with the period start as time stamp when a sample of a later period arrives
+ * or when the period has ended.
+ * <p>
+ * The timer data is aggregated with {@link TimerData#aggregateTimerData(TimerData)}, the platform
+ * sensor and numeric JMX data with {@link IAggregatedData#aggregate(DefaultData)}. The data that
+ * can not be aggregated keeps the last sample of the period.
+ * <p>
+ * The manager also retires the raw data that is older than the configured retention.
+ */
+@Component
+public class RollupManager {
+
+	/**
+	 * Period in milliseconds of writing the buckets of ended periods to the store.
+	 */
+	private static final long FLUSH_PERIOD = 60 * 1000L;
+
+	/**
+	 * Time in milliseconds a bucket is kept open after its period ended for the samples arriving
+	 * late.
+	 */
+	private static final long GRACE_PERIOD = 30 * 1000L;
+
+	/**
+	 * Period in milliseconds of checking the raw data retention.
+	 */
+	private static final long RETENTION_PERIOD = 60 * 60 * 1000L;
+
+	/**
+	 * Entities holding the raw charting timer data in the database.
+	 */
+	private static final Class<?>[] CHARTING_CLASSES = { DatabaseAggregatedTimerData.class, HttpTimerData.class };
+
+	/**
+	 * The logger of this class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * Number of points a chart needs in its time range.
+	 */
+	@Value("${cmr.rollupChartPoints}")
+	long chartPoints;
+
+	/**
+	 * Number of days the raw data is kept, <code>0</code> to keep it.
+	 */
+	@Value("${cmr.rawDataRetentionDays}")
+	long rawDataRetentionDays;
+
+	/**
+	 * Store to write the rollups to.
+	 */
+	@Autowired
+	TimeSeriesStore timeSeriesStore;
+
+	/**
+	 * Entity manager for deleting the raw charting timer data.
+	 */
+	@PersistenceContext
+	EntityManager entityManager;
+
+	/**
+	 * Transaction template to use to delete the raw charting timer data.
+	 */
+	private TransactionTemplate tt;
+
+	/**
+	 * Open buckets.
+	 */
+	private final ConcurrentHashMap<SeriesKey, Bucket> buckets = new ConcurrentHashMap<SeriesKey, Bucket>();
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param transactionManager
+	 *            {@link PlatformTransactionManager}. Autowired by Spring.
+	 */
+	@Autowired
+	public RollupManager(PlatformTransactionManager transactionManager) {
+		this.tt = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * If the data of the given class is rolled up.
+	 * 
+	 * @param dataClass
+	 *            Data class.
+	 * @return If the data of the given class is rolled up.
+	 */
+	public boolean isRolledUp(Class<?> dataClass) {
+		return TimeSeriesStore.DATA_CLASSES.contains(dataClass);
+	}
+
+	/**
+	 * Returns the tier the data of the given class and time range should be read from, based on
+	 * the number of chart points.
+	 * 
+	 * @param dataClass
+	 *            Data class.
+	 * @param fromDate
+	 *            Start date.
+	 * @param toDate
+	 *            End date.
+	 * @return Tier to read or {@link RollupTier#RAW} if the raw data should be read.
+	 */
+	public RollupTier selectTier(Class<?> dataClass, Date fromDate, Date toDate) {
+		if (!isRolledUp(dataClass)) {
+			return RollupTier.RAW;
+		}
+		return RollupTier.select(fromDate.getTime(), toDate.getTime(), chartPoints);
+	}
+
+	/**
+	 * Returns if the raw data of the given class might be already retired for a time range
+	 * starting at the given date, because the date is older than the configured raw data
+	 * retention.
+	 * 
+	 * @param dataClass
+	 *            Data class.
+	 * @param fromDate
+	 *            Start date.
+	 * @return If the raw data might be retired for the time range.
+	 */
+	public boolean isRawDataRetired(Class<?> dataClass, Date fromDate) {
+		if (!isRolledUp(dataClass) || (rawDataRetentionDays <= 0)) {
+			return false;
+		}
+		return fromDate.getTime() < System.currentTimeMillis() - TimeUnit.DAYS.toMillis(rawDataRetentionDays);
+	}
+
+	/**
+	 * Aggregates the sample into the buckets of all rollup tiers. The sample is not changed.
+	 * 
+	 * @param data
+	 *            Sample to aggregate.
+	 */
+	public void aggregate(DefaultData data) {
+		if (!isRolledUp(data.getClass())) {
+			return;
+		}
+
+		long timestamp = data.getTimeStamp().getTime();
+		for (RollupTier tier : RollupTier.values()) {
+			if (RollupTier.RAW == tier) {
+				continue;
+			}
+
+			SeriesKey key = SeriesKey.of(data, tier);
+			long periodStart = tier.getPeriodStart(timestamp);
+			while (true) {
+				Bucket bucket = buckets.get(key);
+				if (null == bucket) {
+					Bucket newBucket = new Bucket(periodStart, copy(key, data, periodStart));
+					bucket = buckets.putIfAbsent(key, newBucket);
+					if (null == bucket) {
+						break;
+					}
+				}
+
+				synchronized (bucket) {
+					if (bucket.closed) {
+						continue;
+					}
+					if (bucket.start == periodStart) {
+						bucket.rollup = merge(key, bucket.rollup, data);
+						break;
+					} else if (bucket.start > periodStart) {
+						// sample of an already written period, the rollup is merged when read
+						timeSeriesStore.add(key, copy(key, data, periodStart));
+						break;
+					} else {
+						bucket.closed = true;
+						buckets.remove(key, bucket);
+						timeSeriesStore.add(key, bucket.rollup);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the rollups of the template series in the given tier and time range. Rollups of the
+	 * same series and period are merged.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param tier
+	 *            Rollup tier.
+	 * @param matchSensorType
+	 *            If the sensor type of the series must match the template.
+	 * @param fromDate
+	 *            Start date, inclusive.
+	 * @param toDate
+	 *            End date, inclusive.
+	 * @return Rollups in the order they were written.
+	 */
+	public List<DefaultData> getRollupData(DefaultData template, RollupTier tier, boolean matchSensorType, Date fromDate, Date toDate) {
+		// the periods are aligned to the tier, thus the period holding the start date is included
+		Date periodFromDate = new Date(tier.getPeriodStart(fromDate.getTime()));
+		List<DefaultData> rollups = timeSeriesStore.getRollupData(template, tier, matchSensorType, periodFromDate, toDate);
+
+		Map<SeriesKey, Map<Long, DefaultData>> merged = new LinkedHashMap<SeriesKey, Map<Long, DefaultData>>();
+		List<DefaultData> result = new ArrayList<DefaultData>(rollups.size());
+		for (DefaultData rollup : rollups) {
+			SeriesKey key = SeriesKey.of(rollup, tier);
+			Map<Long, DefaultData> periods = merged.get(key);
+			if (null == periods) {
+				periods = new LinkedHashMap<Long, DefaultData>();
+				merged.put(key, periods);
+			}
+
+			long timestamp = rollup.getTimeStamp().getTime();
+			DefaultData existing = periods.get(timestamp);
+			if (null == existing) {
+				periods.put(timestamp, rollup);
+				result.add(rollup);
+			} else {
+				DefaultData mergedRollup = merge(key, existing, rollup);
+				if (mergedRollup != existing) { // NOPMD
+					periods.put(timestamp, mergedRollup);
+					result.set(result.indexOf(existing), mergedRollup);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the rollups of the finest tier that holds rollups of the template series in the
+	 * given time range. Used when the raw data of the range is retired or not available.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param matchSensorType
+	 *            If the sensor type of the series must match the template.
+	 * @param fromDate
+	 *            Start date, inclusive.
+	 * @param toDate
+	 *            End date, inclusive.
+	 * @return Rollups of the finest tier or empty list if no tier holds rollups in the range.
+	 * @see #getRollupData(DefaultData, RollupTier, boolean, Date, Date)
+	 */
+	public List<DefaultData> getFinestRollupData(DefaultData template, boolean matchSensorType, Date fromDate, Date toDate) {
+		if (isRolledUp(template.getClass())) {
+			for (RollupTier tier : RollupTier.values()) {
+				if (RollupTier.RAW != tier) {
+					List<DefaultData> rollups = getRollupData(template, tier, matchSensorType, fromDate, toDate);
+					if (!rollups.isEmpty()) {
+						return rollups;
+					}
+				}
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Writes the buckets of the ended periods to the store.
+	 */
+	@Scheduled(fixedRate = FLUSH_PERIOD)
+	public void flush() {
+		flush(System.currentTimeMillis() - GRACE_PERIOD);
+		timeSeriesStore.sync();
+	}
+
+	/**
+	 * Writes the buckets of the periods that ended before the given time to the store.
+	 * 
+	 * @param timestamp
+	 *            Time in milliseconds.
+	 */
+	void flush(long timestamp) {
+		for (Entry<SeriesKey, Bucket> entry : buckets.entrySet()) {
+			Bucket bucket = entry.getValue();
+			synchronized (bucket) {
+				if (!bucket.closed && (bucket.start + entry.getKey().getTier().getPeriod() <= timestamp)) {
+					bucket.closed = true;
+					buckets.remove(entry.getKey(), bucket);
+					timeSeriesStore.add(entry.getKey(), bucket.rollup);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deletes the raw data that is older than the configured retention. The rollups are kept.
+	 */
+	@Scheduled(fixedRate = RETENTION_PERIOD)
+	public void retireRawData() {
+		if (rawDataRetentionDays <= 0) {
+			return;
+		}
+
+		long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(rawDataRetentionDays);
+		int partitions = timeSeriesStore.deletePartitionsBefore(RollupTier.RAW, cutoff);
+		final Timestamp cutoffTimestamp = new Timestamp(cutoff);
+		int rows = tt.execute(new TransactionCallback<Integer>() {
+			@Override
+			public Integer doInTransaction(TransactionStatus status) {
+				int deleted = 0;
+				for (Class<?> chartingClass : CHARTING_CLASSES) {
+					Query query = entityManager.createQuery("DELETE FROM " + chartingClass.getSimpleName() + " d WHERE d.timeStamp < :timeStamp");
+					query.setParameter("timeStamp", cutoffTimestamp);
+					deleted += query.executeUpdate();
+				}
+				return deleted;
+			}
+		});
+
+		if (log.isDebugEnabled()) {
+			log.debug("Raw data older than " + cutoffTimestamp + " deleted, " + partitions + " time series partitions retired and " + rows + " charting timer data rows deleted.");
+		}
+	}
+
+	/**
+	 * Copies the sample to a new rollup of the given period.
+	 * 
+	 * @param key
+	 *            Key of the rollup series.
+	 * @param data
+	 *            Sample.
+	 * @param periodStart
+	 *            Start of the period.
+	 * @return Rollup.
+	 */
+	private DefaultData copy(SeriesKey key, DefaultData data, long periodStart) {
+		DefaultData rollup = timeSeriesStore.getSchema(key.getDataClass()).copy(key, data, periodStart);
+		if (data instanceof HttpTimerData) {
+			((HttpTimerData) rollup).setHttpInfo(((HttpTimerData) data).getHttpInfo());
+		}
+		return rollup;
+	}
+
+	/**
+	 * Merges the sample into the rollup.
+	 * 
+	 * @param key
+	 *            Key of the rollup series.
+	 * @param rollup
+	 *            Rollup.
+	 * @param data
+	 *            Sample of the same series and period.
+	 * @return Merged rollup, either the given rollup or a new one.
+	 */
+	@SuppressWarnings("unchecked")
+	private DefaultData merge(SeriesKey key, DefaultData rollup, DefaultData data) {
+		if (rollup instanceof TimerData) {
+			((TimerData) rollup).aggregateTimerData((TimerData) data);
+			return rollup;
+		} else if (rollup instanceof JmxSensorValueData) {
+			JmxSensorValueData jmxRollup = (JmxSensorValueData) rollup;
+			JmxSensorValueData jmxData = (JmxSensorValueData) data;
+			if (jmxRollup.isBooleanOrNumeric() && jmxData.isBooleanOrNumeric()) {
+				jmxRollup.aggregate(jmxData);
+				jmxRollup.setValue(jmxData.getValue());
+				return jmxRollup;
+			}
+		} else if (rollup instanceof IAggregatedData) {
+			((IAggregatedData<DefaultData>) rollup).aggregate(data);
+			return rollup;
+		}
+		// data that can not be aggregated keeps the last sample of the period
+		return copy(key, data, rollup.getTimeStamp().getTime());
+	}
+
+	/**
+	 * Open bucket of one series and period.
+	 */
+	private static final class Bucket {
+
+		/**
+		 * Start of the period.
+		 */
+		private final long start;
+
+		/**
+		 * Rollup of the samples in the period.
+		 */
+		private DefaultData rollup;
+
+		/**
+		 * If the bucket was written to the store, the samples must then be added to a new bucket.
+		 */
+		private boolean closed;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param start
+		 *            Start of the period.
+		 * @param rollup
+		 *            Rollup of the first sample.
+		 */
+		Bucket(long start, DefaultData rollup) {
+			this.start = start;
+			this.rollup = rollup;
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+package rocks.inspectit.server.tsdb;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution tiers of the {@link TimeSeriesStore}. The {@link #RAW} tier holds the samples as they
+ * were received, the other tiers hold one sample per series and period that aggregates the count,
+ * sum, minimum and maximum of all samples in the period.
+ */
+public enum RollupTier {
+
+	/**
+	 * Samples as received.
+	 */
+	RAW(0, TimeUnit.DAYS.toMillis(1)),
+
+	/**
+	 * One sample per minute.
+	 */
+	ONE_MINUTE(TimeUnit.MINUTES.toMillis(1), TimeUnit.DAYS.toMillis(7)),
+
+	/**
+	 * One sample per 15 minutes.
+	 */
+	FIFTEEN_MINUTES(TimeUnit.MINUTES.toMillis(15), TimeUnit.DAYS.toMillis(30)),
+
+	/**
+	 * One sample per hour.
+	 */
+	ONE_HOUR(TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(90));
+
+	/**
+	 * Aggregation period in milliseconds, <code>0</code> for the raw samples.
+	 */
+	private final long period;
+
+	/**
+	 * Duration of one segment file of the tier in milliseconds.
+	 */
+	private final long partitionDuration;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param period
+	 *            Aggregation period in milliseconds, <code>0</code> for the raw samples.
+	 * @param partitionDuration
+	 *            Duration of one segment file of the tier in milliseconds.
+	 */
+	RollupTier(long period, long partitionDuration) {
+		this.period = period;
+		this.partitionDuration = partitionDuration;
+	}
+
+	/**
+	 * Returns the coarsest tier that still has at least the given number of samples in the time
+	 * range.
+	 * 
+	 * @param fromTimestamp
+	 *            Start of the range.
+	 * @param toTimestamp
+	 *            End of the range.
+	 * @param points
+	 *            Number of samples needed in the range, for example the width of the chart.
+	 * @return Coarsest tier meeting the resolution, {@link #RAW} if no rollup tier does.
+	 */
+	public static RollupTier select(long fromTimestamp, long toTimestamp, long points) {
+		if (points <= 0) {
+			return RAW;
+		}
+		long resolution = (toTimestamp - fromTimestamp) / points;
+		RollupTier[] tiers = values();
+		for (int i = tiers.length - 1; i > 0; i--) {
+			if (tiers[i].period <= resolution) {
+				return tiers[i];
+			}
+		}
+		return RAW;
+	}
+
+	/**
+	 * Returns the start of the aggregation period the time belongs to.
+	 * 
+	 * @param timestamp
+	 *            Time in milliseconds.
+	 * @return Start of the period, the time itself for the {@link #RAW} tier.
+	 */
+	public long getPeriodStart(long timestamp) {
+		if (0 == period) {
+			return timestamp;
+		}
+		return timestamp - (timestamp % period);
+	}
+
+	/**
+	 * Returns the start of the segment partition the time belongs to.
+	 * 
+	 * @param timestamp
+	 *            Time in milliseconds.
+	 * @return Start of the partition.
+	 */
+	public long getPartitionStart(long timestamp) {
+		return timestamp - (timestamp % partitionDuration);
+	}
+
+	/**
+	 * Returns the name of the folder of the tier segment files relative to the store folder.
+	 * 
+	 * @return Folder name, empty string for the {@link #RAW} tier.
+	 */
+	public String getFolderName() {
+		if (RAW == this) {
+			return "";
+		}
+		return name().toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Gets {@link #period}.
+	 * 
+	 * @return {@link #period}
+	 */
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Gets {@link #partitionDuration}.
+	 * 
+	 * @return {@link #partitionDuration}
+	 */
+	public long getPartitionDuration() {
+		return partitionDuration;
+	}
+
+}
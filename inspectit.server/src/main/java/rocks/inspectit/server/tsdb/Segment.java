@@ -0,0 +1,254 @@
+package rocks.inspectit.server.tsdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File holding the chunks of one time partition of one tier of the time series store. The chunks
+ * are only appended to the file. The chunks are read with the positional reads of the file
+ * channel, thus reads do not block each other and chunks appended later need no re-mapping of the
+ * file. The write-ahead log of the open chunks of a tier is written in the same format.
+ */
+public class Segment {
+
+	/**
+	 * The logger of this class. Initialized manually.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(Segment.class);
+
+	/**
+	 * Path of the file.
+	 */
+	private final Path path;
+
+	/**
+	 * Tier of the chunks in the file.
+	 */
+	private final RollupTier tier;
+
+	/**
+	 * Start time of the partition in milliseconds.
+	 */
+	private final long partitionStart;
+
+	/**
+	 * Channel to the file.
+	 */
+	private FileChannel channel;
+
+	/**
+	 * Size of the file.
+	 */
+	private long size;
+
+	/**
+	 * If the file was closed.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param path
+	 *            Path of the file.
+	 * @param tier
+	 *            Tier of the chunks in the file.
+	 * @param partitionStart
+	 *            Start time of the partition in milliseconds.
+	 * @throws IOException
+	 *             If the file can not be opened.
+	 */
+	public Segment(Path path, RollupTier tier, long partitionStart) throws IOException {
+		this.path = path;
+		this.tier = tier;
+		this.partitionStart = partitionStart;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.size = channel.size();
+	}
+
+	/**
+	 * Appends the chunk to the file.
+	 * 
+	 * @param chunk
+	 *            Buffer with the chunk header and payload.
+	 * @return Position of the chunk in the file.
+	 * @throws IOException
+	 *             If the chunk can not be written.
+	 */
+	public synchronized long append(ByteBuffer chunk) throws IOException {
+		long position = size;
+		while (chunk.hasRemaining()) {
+			size += channel.write(chunk, size);
+		}
+		return position;
+	}
+
+	/**
+	 * Forces the appended chunks to the disk.
+	 * 
+	 * @throws IOException
+	 *             If the file can not be forced.
+	 */
+	public void force() throws IOException {
+		channel.force(false);
+	}
+
+	/**
+	 * Removes all chunks from the file.
+	 * 
+	 * @throws IOException
+	 *             If the file can not be truncated.
+	 */
+	public synchronized void truncate() throws IOException {
+		channel.truncate(0);
+		channel.force(false);
+		size = 0;
+	}
+
+	/**
+	 * Returns the bytes of the file at the given position.
+	 * 
+	 * @param position
+	 *            Position in the file.
+	 * @param length
+	 *            Number of bytes.
+	 * @return Read-only buffer with the bytes or <code>null</code> if the file was closed, for
+	 *         example because its partition was retired.
+	 */
+	public ByteBuffer read(long position, int length) {
+		if (closed) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		try {
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0) {
+					throw new IllegalStateException("Segment file " + path + " ends before the chunk at position " + position + ".");
+				}
+			}
+		} catch (ClosedChannelException e) {
+			return null;
+		} catch (IOException e) {
+			throw new IllegalStateException("Segment file " + path + " can not be read.", e);
+		}
+		buffer.flip();
+		return buffer.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Reads the headers of all chunks in the file. Incomplete chunk at the end of the file, for
+	 * example after a crash, is removed from the file.
+	 * 
+	 * @param schemas
+	 *            Schemas of the data classes, index in the list is the data class index in the
+	 *            file.
+	 * @return Chunks in the order they were written, including the platform deletion marks.
+	 * @throws IOException
+	 *             If the file can not be read.
+	 */
+	public synchronized List<Chunk> readChunks(List<SeriesSchema> schemas) throws IOException {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		ByteBuffer header = ByteBuffer.allocate(Chunk.HEADER_SIZE);
+		long position = 0;
+		while (position + Chunk.HEADER_SIZE <= size) {
+			header.clear();
+			while (header.hasRemaining()) {
+				if (channel.read(header, position + header.position()) < 0) {
+					break;
+				}
+			}
+			header.flip();
+
+			int payloadLength = header.getInt();
+			byte classIndex = header.get();
+			long platformIdent = header.getLong();
+			long sensorTypeIdent = header.getLong();
+			long definitionId = header.getLong();
+			int count = header.getInt();
+			int columnCount = header.getInt();
+			long minTimestamp = header.getLong();
+			long maxTimestamp = header.getLong();
+			long maxId = header.getLong();
+
+			long payloadPosition = position + Chunk.HEADER_SIZE;
+			if ((payloadLength < 0) || (payloadPosition + payloadLength > size)) {
+				break;
+			}
+
+			if (Chunk.DELETED_PLATFORM == classIndex) {
+				chunks.add(new Chunk(new SeriesKey(null, platformIdent, 0, 0, tier), this, payloadPosition, 0, 0, 0, 0, maxId));
+			} else if ((classIndex >= 0) && (classIndex < schemas.size()) && (schemas.get(classIndex).getColumnCount() == columnCount)) {
+				SeriesKey key = new SeriesKey(schemas.get(classIndex).getDataClass(), platformIdent, sensorTypeIdent, definitionId, tier);
+				chunks.add(new Chunk(key, this, payloadPosition, payloadLength, count, minTimestamp, maxTimestamp, maxId));
+			} else {
+				LOG.warn("Chunk at position " + position + " in the time series segment " + path + " does not match the known data classes and will be ignored.");
+			}
+			position = payloadPosition + payloadLength;
+		}
+
+		if (position < size) {
+			LOG.warn("Incomplete chunk at the end of the time series segment " + path + " is removed.");
+			channel.truncate(position);
+			size = position;
+		}
+		return chunks;
+	}
+
+	/**
+	 * Closes the file.
+	 */
+	public synchronized void close() {
+		closed = true;
+		try {
+			channel.close();
+		} catch (IOException e) {
+			LOG.warn("Time series segment " + path + " can not be closed.", e);
+		}
+	}
+
+	/**
+	 * Gets {@link #tier}.
+	 * 
+	 * @return {@link #tier}
+	 */
+	public RollupTier getTier() {
+		return tier;
+	}
+
+	/**
+	 * Gets {@link #partitionStart}.
+	 * 
+	 * @return {@link #partitionStart}
+	 */
+	public long getPartitionStart() {
+		return partitionStart;
+	}
+
+	/**
+	 * Returns the size of the file.
+	 * 
+	 * @return Returns the size of the file.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the path of the file.
+	 * 
+	 * @return Returns the path of the file.
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+}
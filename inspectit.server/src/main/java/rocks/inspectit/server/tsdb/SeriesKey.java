@@ -0,0 +1,188 @@
+package rocks.inspectit.server.tsdb;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+
+/**
+ * Identifies one series in the time series store. A series holds the data of one data class sent
+ * by one platform for one sensor type and, for the JMX and timer data, one JMX definition, method
+ * or HTTP info. Every {@link RollupTier} has its own series.
+ */
+public class SeriesKey {
+
+	/**
+	 * Data class.
+	 */
+	private final Class<? extends DefaultData> dataClass;
+
+	/**
+	 * Platform ident.
+	 */
+	private final long platformIdent;
+
+	/**
+	 * Sensor type ident.
+	 */
+	private final long sensorTypeIdent;
+
+	/**
+	 * Definition id, see {@link SeriesSchema#getDefinitionId(DefaultData)}.
+	 */
+	private final long definitionId;
+
+	/**
+	 * Tier of the series.
+	 */
+	private final RollupTier tier;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param dataClass
+	 *            Data class.
+	 * @param platformIdent
+	 *            Platform ident.
+	 * @param sensorTypeIdent
+	 *            Sensor type ident.
+	 * @param definitionId
+	 *            Definition id, see {@link SeriesSchema#getDefinitionId(DefaultData)}.
+	 * @param tier
+	 *            Tier of the series.
+	 */
+	public SeriesKey(Class<? extends DefaultData> dataClass, long platformIdent, long sensorTypeIdent, long definitionId, RollupTier tier) {
+		this.dataClass = dataClass;
+		this.platformIdent = platformIdent;
+		this.sensorTypeIdent = sensorTypeIdent;
+		this.definitionId = definitionId;
+		this.tier = tier;
+	}
+
+	/**
+	 * Creates the key of the raw series the data belongs to.
+	 * 
+	 * @param data
+	 *            Data.
+	 * @return Series key.
+	 */
+	public static SeriesKey of(DefaultData data) {
+		return of(data, RollupTier.RAW);
+	}
+
+	/**
+	 * Creates the key of the series of the given tier the data belongs to.
+	 * 
+	 * @param data
+	 *            Data.
+	 * @param tier
+	 *            Tier of the series.
+	 * @return Series key.
+	 */
+	public static SeriesKey of(DefaultData data, RollupTier tier) {
+		return new SeriesKey(data.getClass(), data.getPlatformIdent(), data.getSensorTypeIdent(), SeriesSchema.getDefinitionId(data), tier);
+	}
+
+	/**
+	 * Gets {@link #dataClass}.
+	 * 
+	 * @return {@link #dataClass}
+	 */
+	public Class<? extends DefaultData> getDataClass() {
+		return dataClass;
+	}
+
+	/**
+	 * Gets {@link #platformIdent}.
+	 * 
+	 * @return {@link #platformIdent}
+	 */
+	public long getPlatformIdent() {
+		return platformIdent;
+	}
+
+	/**
+	 * Gets {@link #sensorTypeIdent}.
+	 * 
+	 * @return {@link #sensorTypeIdent}
+	 */
+	public long getSensorTypeIdent() {
+		return sensorTypeIdent;
+	}
+
+	/**
+	 * Gets {@link #definitionId}.
+	 * 
+	 * @return {@link #definitionId}
+	 */
+	public long getDefinitionId() {
+		return definitionId;
+	}
+
+	/**
+	 * Gets {@link #tier}.
+	 * 
+	 * @return {@link #tier}
+	 */
+	public RollupTier getTier() {
+		return tier;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((dataClass == null) ? 0 : dataClass.hashCode());
+		result = prime * result + (int) (definitionId ^ (definitionId >>> 32));
+		result = prime * result + (int) (platformIdent ^ (platformIdent >>> 32));
+		result = prime * result + (int) (sensorTypeIdent ^ (sensorTypeIdent >>> 32));
+		result = prime * result + ((tier == null) ? 0 : tier.hashCode());
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		SeriesKey other = (SeriesKey) obj;
+		if (dataClass == null) {
+			if (other.dataClass != null) {
+				return false;
+			}
+		} else if (!dataClass.equals(other.dataClass)) {
+			return false;
+		}
+		if (definitionId != other.definitionId) {
+			return false;
+		}
+		if (platformIdent != other.platformIdent) {
+			return false;
+		}
+		if (sensorTypeIdent != other.sensorTypeIdent) {
+			return false;
+		}
+		if (tier != other.tier) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "SeriesKey [dataClass=" + dataClass.getSimpleName() + ", platformIdent=" + platformIdent + ", sensorTypeIdent=" + sensorTypeIdent + ", definitionId=" + definitionId + ", tier=" + tier + "]";
+	}
+
+}
@@ -0,0 +1,345 @@
+package rocks.inspectit.server.tsdb;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.data.HttpInfo;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.JmxSensorValueData;
+
+/**
+ * Describes the columns of one data class stored in the time series store. Every non-static field
+ * of a primitive or string type declared in the data class and its super classes up to the
+ * {@link DefaultData} is one column, fields of other types are not stored. The fields identifying
+ * the series, the id and the time stamp are not columns as they are stored separately. The columns
+ * are sorted by the field name, so that the order does not depend on the JVM.
+ */
+public class SeriesSchema {
+
+	/**
+	 * Name of the field holding the JMX definition id.
+	 */
+	private static final String JMX_DEFINITION_FIELD = "jmxSensorDefinitionDataIdentId";
+
+	/**
+	 * Type of a column.
+	 */
+	enum ColumnType {
+
+		/**
+		 * Integer column.
+		 */
+		INT,
+
+		/**
+		 * Long column.
+		 */
+		LONG,
+
+		/**
+		 * Float column.
+		 */
+		FLOAT,
+
+		/**
+		 * Double column.
+		 */
+		DOUBLE,
+
+		/**
+		 * Boolean column.
+		 */
+		BOOLEAN,
+
+		/**
+		 * String column.
+		 */
+		STRING;
+	}
+
+	/**
+	 * Data class.
+	 */
+	private final Class<? extends DefaultData> dataClass;
+
+	/**
+	 * Fields of the columns.
+	 */
+	private final Field[] fields;
+
+	/**
+	 * Types of the columns.
+	 */
+	private final ColumnType[] types;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param dataClass
+	 *            Data class to describe.
+	 */
+	public SeriesSchema(Class<? extends DefaultData> dataClass) {
+		this.dataClass = dataClass;
+
+		List<Field> fieldList = new ArrayList<Field>();
+		for (Class<?> clazz = dataClass; !DefaultData.class.equals(clazz); clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers()) && !JMX_DEFINITION_FIELD.equals(field.getName()) && (null != getColumnType(field))) {
+					field.setAccessible(true);
+					fieldList.add(field);
+				}
+			}
+		}
+		Collections.sort(fieldList, new Comparator<Field>() {
+			@Override
+			public int compare(Field f1, Field f2) {
+				return f1.getName().compareTo(f2.getName());
+			}
+		});
+
+		fields = fieldList.toArray(new Field[fieldList.size()]);
+		types = new ColumnType[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			types[i] = getColumnType(fields[i]);
+		}
+	}
+
+	/**
+	 * Gets {@link #dataClass}.
+	 * 
+	 * @return {@link #dataClass}
+	 */
+	public Class<? extends DefaultData> getDataClass() {
+		return dataClass;
+	}
+
+	/**
+	 * Returns the number of columns.
+	 * 
+	 * @return Returns the number of columns.
+	 */
+	public int getColumnCount() {
+		return fields.length;
+	}
+
+	/**
+	 * Returns the type of the column.
+	 * 
+	 * @param column
+	 *            Column index.
+	 * @return Returns the type of the column.
+	 */
+	public ColumnType getColumnType(int column) {
+		return types[column];
+	}
+
+	/**
+	 * Reads the numeric column of the data as raw bits.
+	 * 
+	 * @param data
+	 *            Data to read.
+	 * @param column
+	 *            Numeric column index.
+	 * @return Bits of the column value.
+	 */
+	public long getBits(DefaultData data, int column) {
+		try {
+			Field field = fields[column];
+			switch (types[column]) {
+			case INT:
+				return field.getInt(data);
+			case LONG:
+				return field.getLong(data);
+			case FLOAT:
+				return Float.floatToRawIntBits(field.getFloat(data)) & 0xFFFFFFFFL;
+			case DOUBLE:
+				return Double.doubleToRawLongBits(field.getDouble(data));
+			case BOOLEAN:
+				return field.getBoolean(data) ? 1L : 0L;
+			default:
+				throw new IllegalArgumentException("Column " + field.getName() + " is not numeric.");
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Sets the numeric column of the data from the raw bits.
+	 * 
+	 * @param data
+	 *            Data to set the value to.
+	 * @param column
+	 *            Numeric column index.
+	 * @param bits
+	 *            Bits of the column value.
+	 */
+	public void setBits(DefaultData data, int column, long bits) {
+		try {
+			Field field = fields[column];
+			switch (types[column]) {
+			case INT:
+				field.setInt(data, (int) bits);
+				break;
+			case LONG:
+				field.setLong(data, bits);
+				break;
+			case FLOAT:
+				field.setFloat(data, Float.intBitsToFloat((int) bits));
+				break;
+			case DOUBLE:
+				field.setDouble(data, Double.longBitsToDouble(bits));
+				break;
+			case BOOLEAN:
+				field.setBoolean(data, 0L != bits);
+				break;
+			default:
+				throw new IllegalArgumentException("Column " + field.getName() + " is not numeric.");
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Reads the string column of the data.
+	 * 
+	 * @param data
+	 *            Data to read.
+	 * @param column
+	 *            String column index.
+	 * @return Column value.
+	 */
+	public String getString(DefaultData data, int column) {
+		try {
+			return (String) fields[column].get(data);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Sets the string column of the data.
+	 * 
+	 * @param data
+	 *            Data to set the value to.
+	 * @param column
+	 *            String column index.
+	 * @param value
+	 *            Column value.
+	 */
+	public void setString(DefaultData data, int column, String value) {
+		try {
+			fields[column].set(data, value);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates a new data object of the series with the given key.
+	 * 
+	 * @param key
+	 *            Key of the series.
+	 * @param id
+	 *            Id of the data.
+	 * @param timestamp
+	 *            Time stamp in milliseconds.
+	 * @return New data object without the column values.
+	 */
+	public DefaultData newData(SeriesKey key, long id, long timestamp) {
+		DefaultData data;
+		try {
+			data = dataClass.newInstance();
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new IllegalStateException("Data class " + dataClass.getName() + " can not be instantiated.", e);
+		}
+		data.setId(id);
+		data.setPlatformIdent(key.getPlatformIdent());
+		data.setSensorTypeIdent(key.getSensorTypeIdent());
+		data.setTimeStamp(new Timestamp(timestamp));
+		if (data instanceof JmxSensorValueData) {
+			((JmxSensorValueData) data).setJmxSensorDefinitionDataIdentId(key.getDefinitionId());
+		}
+		return data;
+	}
+
+	/**
+	 * Creates a copy of the data holding the column values of the data, but not the values of the
+	 * fields that are not stored.
+	 * 
+	 * @param key
+	 *            Key of the series of the copy.
+	 * @param data
+	 *            Data to copy.
+	 * @param timestamp
+	 *            Time stamp of the copy in milliseconds.
+	 * @return Copy with the id <code>0</code>.
+	 */
+	public DefaultData copy(SeriesKey key, DefaultData data, long timestamp) {
+		DefaultData copy = newData(key, 0, timestamp);
+		for (int column = 0; column < fields.length; column++) {
+			if (ColumnType.STRING == types[column]) {
+				setString(copy, column, getString(data, column));
+			} else {
+				setBits(copy, column, getBits(data, column));
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns the id of the definition that separates the series of the same data class, platform
+	 * and sensor type. This is the JMX definition of the {@link JmxSensorValueData}, the persisted
+	 * {@link HttpInfo} of the {@link HttpTimerData} and the method of the other
+	 * {@link MethodSensorData}.
+	 * 
+	 * @param data
+	 *            Data.
+	 * @return Definition id or <code>0</code>.
+	 */
+	public static long getDefinitionId(DefaultData data) {
+		if (data instanceof JmxSensorValueData) {
+			return ((JmxSensorValueData) data).getJmxSensorDefinitionDataIdentId();
+		} else if (data instanceof HttpTimerData) {
+			HttpInfo httpInfo = ((HttpTimerData) data).getHttpInfo();
+			return (null != httpInfo) ? httpInfo.getId() : 0;
+		} else if (data instanceof MethodSensorData) {
+			return ((MethodSensorData) data).getMethodIdent();
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the column type of the field.
+	 * 
+	 * @param field
+	 *            Field.
+	 * @return Column type or <code>null</code> if the field can not be stored.
+	 */
+	private static ColumnType getColumnType(Field field) {
+		Class<?> type = field.getType();
+		if (int.class.equals(type)) {
+			return ColumnType.INT;
+		} else if (long.class.equals(type)) {
+			return ColumnType.LONG;
+		} else if (float.class.equals(type)) {
+			return ColumnType.FLOAT;
+		} else if (double.class.equals(type)) {
+			return ColumnType.DOUBLE;
+		} else if (boolean.class.equals(type)) {
+			return ColumnType.BOOLEAN;
+		} else if (String.class.equals(type)) {
+			return ColumnType.STRING;
+		}
+		return null;
+	}
+
+}
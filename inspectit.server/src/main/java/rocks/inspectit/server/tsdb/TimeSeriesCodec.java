@@ -0,0 +1,321 @@
+package rocks.inspectit.server.tsdb;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compression of the columns of the time series chunks.
+ * <ul>
+ * <li>Increasing values like time stamps and ids are written as the difference of the successive
+ * deltas, thus regular sampling intervals need only one bit per value.</li>
+ * <li>Numeric values are written as the XOR with the previous value, only the meaningful bits of
+ * the XOR are written. Unchanged values need one bit, slowly changing values only a few bits.</li>
+ * <li>Strings are written as a dictionary of the distinct values followed by the dictionary
+ * indexes.</li>
+ * </ul>
+ */
+public final class TimeSeriesCodec {
+
+	/**
+	 * Charset for the strings.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Bit counts of the delta of delta buckets. The last bucket holds any value.
+	 */
+	private static final int[] DELTA_OF_DELTA_BITS = { 7, 9, 12, 32, 64 };
+
+	/**
+	 * Private constructor.
+	 */
+	private TimeSeriesCodec() {
+	}
+
+	/**
+	 * Writes the increasing values as the delta of delta.
+	 * 
+	 * @param writer
+	 *            Writer to write to.
+	 * @param values
+	 *            Values to write.
+	 * @param count
+	 *            Number of values to write.
+	 */
+	public static void writeDeltaOfDelta(BitWriter writer, long[] values, int count) {
+		if (0 == count) {
+			return;
+		}
+		writer.writeBits(values[0], 64);
+		long previousDelta = 0;
+		for (int i = 1; i < count; i++) {
+			long delta = values[i] - values[i - 1];
+			long deltaOfDelta = delta - previousDelta;
+			previousDelta = delta;
+			if (0 == deltaOfDelta) {
+				writer.writeBit(false);
+				continue;
+			}
+			for (int bucket = 0; bucket < DELTA_OF_DELTA_BITS.length; bucket++) {
+				int bits = DELTA_OF_DELTA_BITS[bucket];
+				boolean last = bucket == DELTA_OF_DELTA_BITS.length - 1;
+				if (last || fitsSigned(deltaOfDelta, bits)) {
+					// bucket prefix: bucket + 1 ones followed by a zero, the last has no zero
+					writer.writeBits(-1L, bucket + 1);
+					if (!last) {
+						writer.writeBit(false);
+					}
+					writer.writeBits(deltaOfDelta, bits);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the values written by {@link #writeDeltaOfDelta(BitWriter, long[], int)}.
+	 * 
+	 * @param reader
+	 *            Reader to read from.
+	 * @param values
+	 *            Array to read the values to.
+	 * @param count
+	 *            Number of values to read.
+	 */
+	public static void readDeltaOfDelta(BitReader reader, long[] values, int count) {
+		if (0 == count) {
+			return;
+		}
+		values[0] = reader.readBits(64);
+		long previousDelta = 0;
+		for (int i = 1; i < count; i++) {
+			long deltaOfDelta = 0;
+			if (reader.readBit()) {
+				int bucket = 0;
+				while ((bucket < DELTA_OF_DELTA_BITS.length - 1) && reader.readBit()) {
+					bucket++;
+				}
+				int bits = DELTA_OF_DELTA_BITS[bucket];
+				deltaOfDelta = signExtend(reader.readBits(bits), bits);
+			}
+			previousDelta += deltaOfDelta;
+			values[i] = values[i - 1] + previousDelta;
+		}
+	}
+
+	/**
+	 * Writes the values as the XOR with the previous value.
+	 * 
+	 * @param writer
+	 *            Writer to write to.
+	 * @param values
+	 *            Values to write.
+	 * @param count
+	 *            Number of values to write.
+	 */
+	public static void writeXor(BitWriter writer, long[] values, int count) {
+		if (0 == count) {
+			return;
+		}
+		writer.writeBits(values[0], 64);
+		int previousLeading = -1;
+		int previousTrailing = 0;
+		for (int i = 1; i < count; i++) {
+			long xor = values[i] ^ values[i - 1];
+			if (0 == xor) {
+				writer.writeBit(false);
+				continue;
+			}
+			writer.writeBit(true);
+			int leading = Long.numberOfLeadingZeros(xor);
+			int trailing = Long.numberOfTrailingZeros(xor);
+			if ((previousLeading >= 0) && (leading >= previousLeading) && (trailing >= previousTrailing)) {
+				// meaningful bits fit into the previous window
+				writer.writeBit(false);
+				writer.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+			} else {
+				int significant = 64 - leading - trailing;
+				writer.writeBit(true);
+				writer.writeBits(leading, 6);
+				writer.writeBits(significant - 1, 6);
+				writer.writeBits(xor >>> trailing, significant);
+				previousLeading = leading;
+				previousTrailing = trailing;
+			}
+		}
+	}
+
+	/**
+	 * Reads the values written by {@link #writeXor(BitWriter, long[], int)}.
+	 * 
+	 * @param reader
+	 *            Reader to read from.
+	 * @param values
+	 *            Array to read the values to.
+	 * @param count
+	 *            Number of values to read.
+	 */
+	public static void readXor(BitReader reader, long[] values, int count) {
+		if (0 == count) {
+			return;
+		}
+		values[0] = reader.readBits(64);
+		int previousLeading = 0;
+		int previousTrailing = 0;
+		for (int i = 1; i < count; i++) {
+			if (!reader.readBit()) {
+				values[i] = values[i - 1];
+				continue;
+			}
+			if (reader.readBit()) {
+				previousLeading = (int) reader.readBits(6);
+				int significant = (int) reader.readBits(6) + 1;
+				previousTrailing = 64 - previousLeading - significant;
+			}
+			long xor = reader.readBits(64 - previousLeading - previousTrailing) << previousTrailing;
+			values[i] = values[i - 1] ^ xor;
+		}
+	}
+
+	/**
+	 * Writes the strings as the dictionary of the distinct values followed by the indexes.
+	 * 
+	 * @param writer
+	 *            Writer to write to.
+	 * @param values
+	 *            Values to write, can contain <code>null</code>.
+	 * @param count
+	 *            Number of values to write.
+	 */
+	public static void writeDictionary(BitWriter writer, String[] values, int count) {
+		Map<String, Integer> dictionary = new HashMap<String, Integer>();
+		int[] indexes = new int[count];
+		int nullIndex = -1;
+		int size = 0;
+		BitWriter dictionaryWriter = new BitWriter(64);
+		for (int i = 0; i < count; i++) {
+			String value = values[i];
+			Integer index = (null == value) ? ((nullIndex >= 0) ? Integer.valueOf(nullIndex) : null) : dictionary.get(value);
+			if (null == index) {
+				index = Integer.valueOf(size++);
+				if (null == value) {
+					nullIndex = index.intValue();
+					dictionaryWriter.writeBit(true);
+				} else {
+					dictionary.put(value, index);
+					byte[] bytes = value.getBytes(UTF_8);
+					dictionaryWriter.writeBit(false);
+					dictionaryWriter.writeBits(bytes.length, 32);
+					for (byte b : bytes) {
+						dictionaryWriter.writeBits(b, 8);
+					}
+				}
+			}
+			indexes[i] = index.intValue();
+		}
+
+		writer.writeBits(size, 32);
+		byte[] dictionaryBytes = dictionaryWriter.toByteArray();
+		writer.writeBits(dictionaryBytes.length, 32);
+		for (byte b : dictionaryBytes) {
+			writer.writeBits(b, 8);
+		}
+		int indexBits = indexBits(size);
+		int previous = -1;
+		for (int i = 0; i < count; i++) {
+			if (indexes[i] == previous) {
+				writer.writeBit(false);
+			} else {
+				writer.writeBit(true);
+				writer.writeBits(indexes[i], indexBits);
+				previous = indexes[i];
+			}
+		}
+	}
+
+	/**
+	 * Reads the strings written by {@link #writeDictionary(BitWriter, String[], int)}.
+	 * 
+	 * @param reader
+	 *            Reader to read from.
+	 * @param values
+	 *            Array to read the values to.
+	 * @param count
+	 *            Number of values to read.
+	 */
+	public static void readDictionary(BitReader reader, String[] values, int count) {
+		int size = (int) reader.readBits(32);
+		int dictionaryLength = (int) reader.readBits(32);
+		String[] dictionary = new String[size];
+		long dictionaryStart = 0;
+		for (int i = 0; i < size; i++) {
+			if (reader.readBit()) {
+				dictionary[i] = null;
+				dictionaryStart += 1;
+			} else {
+				int length = (int) reader.readBits(32);
+				byte[] bytes = new byte[length];
+				for (int j = 0; j < length; j++) {
+					bytes[j] = (byte) reader.readBits(8);
+				}
+				dictionary[i] = new String(bytes, UTF_8);
+				dictionaryStart += 33 + (8L * length);
+			}
+		}
+		// skip the padding of the dictionary
+		reader.readBits((int) ((8L * dictionaryLength) - dictionaryStart));
+
+		int indexBits = indexBits(size);
+		int previous = -1;
+		for (int i = 0; i < count; i++) {
+			if (reader.readBit()) {
+				previous = (int) reader.readBits(indexBits);
+			}
+			values[i] = dictionary[previous];
+		}
+	}
+
+	/**
+	 * Returns number of bits needed for the indexes of the dictionary with given size.
+	 * 
+	 * @param size
+	 *            Size of the dictionary.
+	 * @return Number of bits.
+	 */
+	private static int indexBits(int size) {
+		return (size <= 1) ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+
+	/**
+	 * If the value fits into the given number of bits as signed value.
+	 * 
+	 * @param value
+	 *            Value.
+	 * @param bits
+	 *            Number of bits.
+	 * @return If the value fits into the given number of bits.
+	 */
+	private static boolean fitsSigned(long value, int bits) {
+		long bound = 1L << (bits - 1);
+		return (value >= -bound) && (value < bound);
+	}
+
+	/**
+	 * Extends the sign of the value with the given number of bits.
+	 * 
+	 * @param value
+	 *            Value.
+	 * @param bits
+	 *            Number of bits of the value.
+	 * @return Sign extended value.
+	 */
+	private static long signExtend(long value, int bits) {
+		if (64 == bits) {
+			return value;
+		}
+		int shift = 64 - bits;
+		return (value << shift) >> shift;
+	}
+
+}
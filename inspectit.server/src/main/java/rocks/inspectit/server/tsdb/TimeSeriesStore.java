@@ -0,0 +1,1018 @@
+package rocks.inspectit.server.tsdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.ClassLoadingInformationData;
+import rocks.inspectit.shared.all.communication.data.CompilationInformationData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.JmxSensorValueData;
+import rocks.inspectit.shared.all.communication.data.MemoryInformationData;
+import rocks.inspectit.shared.all.communication.data.RuntimeInformationData;
+import rocks.inspectit.shared.all.communication.data.ThreadInformationData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Append-only store for the platform sensor and JMX data. The samples of every series are
+ * collected in an open chunk and written compressed column by column to the segment file of the
+ * time partition when the chunk is full, when the partition changes or when the store is flushed.
+ * <p>
+ * Next to the raw samples the store holds the samples of the {@link RollupTier}s created by the
+ * {@link RollupManager}, also for the charting timer data that is not stored raw. Every tier has
+ * its own segment files, so that the raw partitions can be retired earlier than the rollups.
+ * <p>
+ * Every series keeps an index of its chunks per time partition, so that a range query only decodes
+ * the chunks of the series overlapping the range. The index is rebuilt from the chunk headers of
+ * the segment files when the CMR starts.
+ * <p>
+ * Every added sample is also appended to the write-ahead log of its tier, which is forced to the
+ * disk with {@link #sync()} once per processed batch. The open chunks are thus not lost when the CMR
+ * crashes before the flush, they are restored from the write-ahead log when the CMR starts. The
+ * write-ahead log is cleared on every flush, after the sealed chunks are forced to the disk.
+ * <p>
+ * The store assigns the ids of the samples, the ids are increasing in the order the samples are
+ * added.
+ */
+@Component
+public class TimeSeriesStore {
+
+	/**
+	 * Data classes stored in the store. The index in the list is written to the segment files, thus
+	 * new classes must only be added to the end of the list.
+	 */
+	static final List<Class<? extends DefaultData>> DATA_CLASSES = Collections.unmodifiableList(Arrays.<Class<? extends DefaultData>> asList(ClassLoadingInformationData.class,
+			CompilationInformationData.class, CpuInformationData.class, MemoryInformationData.class, RuntimeInformationData.class, ThreadInformationData.class, JmxSensorValueData.class,
+			TimerData.class, HttpTimerData.class));
+
+	/**
+	 * Number of the first {@link #DATA_CLASSES} that are stored raw, the remaining classes are only
+	 * stored in the rollup tiers.
+	 */
+	private static final int RAW_DATA_CLASS_COUNT = 7;
+
+	/**
+	 * Maximum number of samples in one chunk.
+	 */
+	static final int CHUNK_SIZE = 256;
+
+	/**
+	 * Period in milliseconds of writing the open chunks to the segment files.
+	 */
+	private static final long FLUSH_PERIOD = 5 * 60 * 1000L;
+
+	/**
+	 * Extension of the segment files.
+	 */
+	private static final String SEGMENT_EXTENSION = ".tss";
+
+	/**
+	 * Name of the write-ahead log file in the folder of every tier.
+	 */
+	static final String WRITE_AHEAD_LOG_FILE_NAME = "open-chunks.wal";
+
+	/**
+	 * The logger of this class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * Folder of the segment files.
+	 */
+	@Value("${cmr.timeSeriesStoreFolder}")
+	String folder;
+
+	/**
+	 * Schemas of the data classes in the same order as the {@link #DATA_CLASSES}.
+	 */
+	private final List<SeriesSchema> schemas = new ArrayList<SeriesSchema>();
+
+	/**
+	 * Segments of every tier mapped by the start time of the partition.
+	 */
+	private final Map<RollupTier, ConcurrentSkipListMap<Long, Segment>> segments = new EnumMap<RollupTier, ConcurrentSkipListMap<Long, Segment>>(RollupTier.class);
+
+	/**
+	 * All series.
+	 */
+	private final ConcurrentHashMap<SeriesKey, Series> seriesMap = new ConcurrentHashMap<SeriesKey, Series>();
+
+	/**
+	 * Generator of the sample ids.
+	 */
+	private final AtomicLong idGenerator = new AtomicLong();
+
+	/**
+	 * Write-ahead logs of the samples in the open chunks of every tier.
+	 */
+	private final Map<RollupTier, Segment> writeAheadLogs = new EnumMap<RollupTier, Segment>(RollupTier.class);
+
+	/**
+	 * Segments written since the last flush, they must be forced to the disk before the write-ahead
+	 * logs are cleared.
+	 */
+	private final Set<Segment> unsyncedSegments = Collections.newSetFromMap(new ConcurrentHashMap<Segment, Boolean>());
+
+	/**
+	 * Write-ahead logs written since the last sync.
+	 */
+	private final Set<Segment> unsyncedWriteAheadLogs = Collections.newSetFromMap(new ConcurrentHashMap<Segment, Boolean>());
+
+	/**
+	 * Lock ensuring that no sample is added while the open chunks are flushed and the write-ahead
+	 * logs are cleared.
+	 */
+	private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+	/**
+	 * Default constructor.
+	 */
+	public TimeSeriesStore() {
+		for (Class<? extends DefaultData> dataClass : DATA_CLASSES) {
+			schemas.add(new SeriesSchema(dataClass));
+		}
+		for (RollupTier tier : RollupTier.values()) {
+			segments.put(tier, new ConcurrentSkipListMap<Long, Segment>());
+		}
+	}
+
+	/**
+	 * If the raw data of the given class is stored in the time series store.
+	 * 
+	 * @param dataClass
+	 *            Data class.
+	 * @return If the raw data of the given class is stored in the time series store.
+	 */
+	public boolean isStored(Class<?> dataClass) {
+		int index = DATA_CLASSES.indexOf(dataClass);
+		return (index >= 0) && (index < RAW_DATA_CLASS_COUNT);
+	}
+
+	/**
+	 * Adds the sample to its raw series. The id of the sample is set by the store.
+	 * 
+	 * @param data
+	 *            Sample to add.
+	 */
+	public void add(DefaultData data) {
+		add(SeriesKey.of(data), data);
+	}
+
+	/**
+	 * Adds the sample to the series with the given key. The id of the sample is set by the store.
+	 * 
+	 * @param key
+	 *            Key of the series, the data class of the key defines the stored columns.
+	 * @param data
+	 *            Sample to add.
+	 */
+	void add(SeriesKey key, DefaultData data) {
+		Series series = getOrCreateSeries(key);
+
+		flushLock.readLock().lock();
+		try {
+			synchronized (series) {
+				data.setId(idGenerator.incrementAndGet());
+				writeAhead(key, data);
+				addOpenSample(series, data);
+			}
+		} finally {
+			flushLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Forces the write-ahead logs to the disk, so that all samples added so far survive a crash of
+	 * the CMR.
+	 */
+	public void sync() {
+		for (Iterator<Segment> it = unsyncedWriteAheadLogs.iterator(); it.hasNext();) {
+			Segment writeAheadLog = it.next();
+			// removed before forcing, so that samples appended meanwhile are forced on the next sync
+			it.remove();
+			try {
+				writeAheadLog.force();
+			} catch (IOException e) {
+				log.error("Write-ahead log " + writeAheadLog.getPath() + " of the time series store can not be forced to the disk.", e);
+			}
+		}
+	}
+
+	/**
+	 * Makes sure that the ids assigned by the store are larger than the given id. Used for keeping
+	 * the ids unique with the samples that were saved in the database before the store.
+	 * 
+	 * @param id
+	 *            Id that must not be assigned by the store.
+	 */
+	public void reserveIds(long id) {
+		long current = idGenerator.get();
+		while ((current < id) && !idGenerator.compareAndSet(current, id)) {
+			current = idGenerator.get();
+		}
+	}
+
+	/**
+	 * Returns the data classes whose raw data is stored in the store.
+	 * 
+	 * @return Returns the data classes whose raw data is stored in the store.
+	 */
+	public List<Class<? extends DefaultData>> getStoredClasses() {
+		return DATA_CLASSES.subList(0, RAW_DATA_CLASS_COUNT);
+	}
+
+	/**
+	 * Returns the samples of the series of the template in the given time range. The series is
+	 * defined by the class, platform ident, sensor type ident and for the JMX data the definition
+	 * id of the template.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param fromDate
+	 *            Start date, inclusive.
+	 * @param toDate
+	 *            End date, inclusive.
+	 * @return Samples sorted by the id.
+	 */
+	public List<DefaultData> getDataFromToDate(DefaultData template, Date fromDate, Date toDate) {
+		return query(template, RollupTier.RAW, true, true, fromDate.getTime(), toDate.getTime(), 0);
+	}
+
+	/**
+	 * Returns the samples of the given tier of the template series in the given time range. Every
+	 * series of the tier can have more than one sample with the same time stamp if samples arrived
+	 * after their period was written.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param tier
+	 *            Tier to read.
+	 * @param matchSensorType
+	 *            If the sensor type of the series must match the template.
+	 * @param fromDate
+	 *            Start date, inclusive.
+	 * @param toDate
+	 *            End date, inclusive.
+	 * @return Samples sorted by the id.
+	 */
+	public List<DefaultData> getRollupData(DefaultData template, RollupTier tier, boolean matchSensorType, Date fromDate, Date toDate) {
+		return query(template, tier, matchSensorType, true, fromDate.getTime(), toDate.getTime(), 0);
+	}
+
+	/**
+	 * Returns the samples of the series of the template with the id larger than the id of the
+	 * template.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param matchSensorType
+	 *            If only the series of the template sensor type and definition should be used,
+	 *            otherwise all series of the template class and platform are used.
+	 * @return Samples sorted by the id.
+	 */
+	public List<DefaultData> getDataSinceId(DefaultData template, boolean matchSensorType) {
+		return query(template, RollupTier.RAW, matchSensorType, matchSensorType, Long.MIN_VALUE, Long.MAX_VALUE, template.getId());
+	}
+
+	/**
+	 * Returns the last sample of the template class and platform, and for the JMX data of the
+	 * template definition.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @return Last sample or <code>null</code> if there is none.
+	 */
+	public DefaultData getLastData(DefaultData template) {
+		DefaultData last = null;
+		for (Series series : seriesMap.values()) {
+			if (matches(series.key, template, RollupTier.RAW, false, true)) {
+				DefaultData seriesLast = getLastData(series, Long.MIN_VALUE, Long.MAX_VALUE);
+				if ((null != seriesLast) && ((null == last) || (seriesLast.getId() > last.getId()))) {
+					last = seriesLast;
+				}
+			}
+		}
+		return last;
+	}
+
+	/**
+	 * Returns the raw samples of all series of the platform in the given time range, thus all
+	 * platform sensor and JMX data of the agent.
+	 * 
+	 * @param platformIdent
+	 *            Platform ident.
+	 * @param fromDate
+	 *            Start date, inclusive, or <code>null</code> for no limit.
+	 * @param toDate
+	 *            End date, inclusive, or <code>null</code> for no limit.
+	 * @return Samples sorted by the id.
+	 */
+	public List<DefaultData> getPlatformData(long platformIdent, Date fromDate, Date toDate) {
+		long fromTimestamp = (null != fromDate) ? fromDate.getTime() : Long.MIN_VALUE;
+		long toTimestamp = (null != toDate) ? toDate.getTime() : Long.MAX_VALUE;
+
+		List<DefaultData> result = new ArrayList<DefaultData>();
+		for (Series series : seriesMap.values()) {
+			if ((series.key.getTier() == RollupTier.RAW) && (series.key.getPlatformIdent() == platformIdent)) {
+				readSeries(series, RollupTier.RAW, fromTimestamp, toTimestamp, 0, result);
+			}
+		}
+		sortById(result);
+		return result;
+	}
+
+	/**
+	 * Returns the last sample of every JMX definition of the template platform and sensor type. If
+	 * the template has the definition id set, only this definition is returned.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param fromDate
+	 *            Start date, inclusive, or <code>null</code> for no limit.
+	 * @param toDate
+	 *            End date, inclusive, or <code>null</code> for no limit.
+	 * @return Last sample of every definition.
+	 */
+	public List<JmxSensorValueData> getJmxDataOverview(JmxSensorValueData template, Date fromDate, Date toDate) {
+		long fromTimestamp = (null != fromDate) ? fromDate.getTime() : Long.MIN_VALUE;
+		long toTimestamp = (null != toDate) ? toDate.getTime() : Long.MAX_VALUE;
+		boolean matchDefinition = template.getJmxSensorDefinitionDataIdentId() > 0;
+
+		List<JmxSensorValueData> result = new ArrayList<JmxSensorValueData>();
+		for (Series series : seriesMap.values()) {
+			if (matches(series.key, template, RollupTier.RAW, true, matchDefinition)) {
+				DefaultData last = getLastData(series, fromTimestamp, toTimestamp);
+				if (null != last) {
+					result.add((JmxSensorValueData) last);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all series of the platform in all tiers.
+	 * 
+	 * @param platformIdent
+	 *            Platform ident.
+	 */
+	public void deletePlatform(long platformIdent) {
+		for (Iterator<Series> it = seriesMap.values().iterator(); it.hasNext();) {
+			Series series = it.next();
+			if (series.key.getPlatformIdent() == platformIdent) {
+				synchronized (series) {
+					series.openSamples.clear();
+					series.chunks.clear();
+				}
+				it.remove();
+			}
+		}
+
+		// the mark is written to every tier, so that it lives as long as the data of the tier
+		long now = System.currentTimeMillis();
+		long maxId = idGenerator.get();
+		for (RollupTier tier : RollupTier.values()) {
+			try {
+				Segment segment = getOrCreateSegment(tier, tier.getPartitionStart(now));
+				segment.append(Chunk.encodeDeletedPlatform(platformIdent, maxId));
+				unsyncedSegments.add(segment);
+			} catch (IOException e) {
+				log.error("Deletion of the platform " + platformIdent + " can not be written to the time series store.", e);
+			}
+		}
+	}
+
+	/**
+	 * Removes the partitions of the tier that end before the given time. The segment files of the
+	 * partitions are deleted.
+	 * 
+	 * @param tier
+	 *            Tier.
+	 * @param timestamp
+	 *            Time in milliseconds.
+	 * @return Number of removed partitions.
+	 */
+	public int deletePartitionsBefore(RollupTier tier, long timestamp) {
+		NavigableMap<Long, Segment> retired = segments.get(tier).headMap(timestamp - tier.getPartitionDuration(), true);
+		if (retired.isEmpty()) {
+			return 0;
+		}
+
+		List<Segment> removed = new ArrayList<Segment>(retired.values());
+		for (Series series : seriesMap.values()) {
+			if (series.key.getTier() == tier) {
+				synchronized (series) {
+					for (Segment segment : removed) {
+						series.chunks.remove(segment.getPartitionStart());
+					}
+				}
+			}
+		}
+		for (Segment segment : removed) {
+			retired.remove(segment.getPartitionStart());
+			unsyncedSegments.remove(segment);
+			segment.close();
+			try {
+				Files.deleteIfExists(segment.getPath());
+			} catch (IOException e) {
+				log.warn("Retired time series segment " + segment.getPath() + " can not be deleted.", e);
+			}
+		}
+		return removed.size();
+	}
+
+	/**
+	 * Writes all open chunks to the segment files, forces the written segment files to the disk and
+	 * clears the write-ahead logs.
+	 */
+	@Scheduled(fixedRate = FLUSH_PERIOD)
+	public void flush() {
+		flushLock.writeLock().lock();
+		try {
+			for (Series series : seriesMap.values()) {
+				synchronized (series) {
+					if (!series.openSamples.isEmpty()) {
+						seal(series);
+					}
+				}
+			}
+
+			// the write-ahead logs are only cleared when all sealed chunks are on the disk
+			for (Iterator<Segment> it = unsyncedSegments.iterator(); it.hasNext();) {
+				Segment segment = it.next();
+				try {
+					segment.force();
+					it.remove();
+				} catch (IOException e) {
+					log.error("Time series segment " + segment.getPath() + " can not be forced to the disk, the write-ahead log is kept.", e);
+					return;
+				}
+			}
+			for (Segment writeAheadLog : writeAheadLogs.values()) {
+				try {
+					writeAheadLog.truncate();
+				} catch (IOException e) {
+					log.error("Write-ahead log " + writeAheadLog.getPath() + " of the time series store can not be cleared.", e);
+				}
+			}
+		} finally {
+			flushLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the size of all segment files in bytes.
+	 * 
+	 * @return Returns the size of all segment files in bytes.
+	 */
+	public long getDiskSize() {
+		long diskSize = 0;
+		for (ConcurrentSkipListMap<Long, Segment> tierSegments : segments.values()) {
+			for (Segment segment : tierSegments.values()) {
+				diskSize += segment.getSize();
+			}
+		}
+		return diskSize;
+	}
+
+	/**
+	 * Queries the series matching the template.
+	 * 
+	 * @param template
+	 *            Template.
+	 * @param tier
+	 *            Tier of the series.
+	 * @param matchSensorType
+	 *            If the sensor type must match.
+	 * @param matchDefinition
+	 *            If the definition must match.
+	 * @param fromTimestamp
+	 *            Start time, inclusive.
+	 * @param toTimestamp
+	 *            End time, inclusive.
+	 * @param minId
+	 *            Samples must have larger id.
+	 * @return Samples sorted by the id.
+	 */
+	private List<DefaultData> query(DefaultData template, RollupTier tier, boolean matchSensorType, boolean matchDefinition, long fromTimestamp, long toTimestamp, long minId) {
+		List<DefaultData> result = new ArrayList<DefaultData>();
+		for (Series series : seriesMap.values()) {
+			if (matches(series.key, template, tier, matchSensorType, matchDefinition)) {
+				readSeries(series, tier, fromTimestamp, toTimestamp, minId, result);
+			}
+		}
+		sortById(result);
+		return result;
+	}
+
+	/**
+	 * Reads the samples of the series in the given range.
+	 * 
+	 * @param series
+	 *            Series to read.
+	 * @param tier
+	 *            Tier of the series.
+	 * @param fromTimestamp
+	 *            Start time, inclusive.
+	 * @param toTimestamp
+	 *            End time, inclusive.
+	 * @param minId
+	 *            Samples must have larger id.
+	 * @param result
+	 *            List to add the samples to.
+	 */
+	private void readSeries(Series series, RollupTier tier, long fromTimestamp, long toTimestamp, long minId, List<DefaultData> result) {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		List<DefaultData> openSamples;
+		synchronized (series) {
+			// only the partitions overlapping the range can hold the samples
+			long fromPartition = (Long.MIN_VALUE == fromTimestamp) ? Long.MIN_VALUE : tier.getPartitionStart(fromTimestamp);
+			for (List<Chunk> partitionChunks : series.chunks.subMap(fromPartition, true, toTimestamp, true).values()) {
+				for (Chunk chunk : partitionChunks) {
+					if (chunk.overlaps(fromTimestamp, toTimestamp) && (chunk.getMaxId() > minId)) {
+						chunks.add(chunk);
+					}
+				}
+			}
+			openSamples = new ArrayList<DefaultData>(series.openSamples);
+		}
+
+		SeriesSchema schema = getSchema(series.key.getDataClass());
+		for (Chunk chunk : chunks) {
+			result.addAll(chunk.decode(schema, fromTimestamp, toTimestamp, minId));
+		}
+		for (DefaultData data : openSamples) {
+			long timestamp = data.getTimeStamp().getTime();
+			if ((timestamp >= fromTimestamp) && (timestamp <= toTimestamp) && (data.getId() > minId)) {
+				result.add(data);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the samples by the id.
+	 * 
+	 * @param result
+	 *            Samples to sort.
+	 */
+	private void sortById(List<DefaultData> result) {
+		Collections.sort(result, new Comparator<DefaultData>() {
+			@Override
+			public int compare(DefaultData d1, DefaultData d2) {
+				return Long.compare(d1.getId(), d2.getId());
+			}
+		});
+	}
+
+	/**
+	 * Returns the last sample of the series in the given time range.
+	 * 
+	 * @param series
+	 *            Series.
+	 * @param fromTimestamp
+	 *            Start time, inclusive.
+	 * @param toTimestamp
+	 *            End time, inclusive.
+	 * @return Last sample or <code>null</code> if there is none.
+	 */
+	private DefaultData getLastData(Series series, long fromTimestamp, long toTimestamp) {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		synchronized (series) {
+			for (int i = series.openSamples.size() - 1; i >= 0; i--) {
+				DefaultData data = series.openSamples.get(i);
+				long timestamp = data.getTimeStamp().getTime();
+				if ((timestamp >= fromTimestamp) && (timestamp <= toTimestamp)) {
+					return data;
+				}
+			}
+			for (List<Chunk> partitionChunks : series.chunks.descendingMap().values()) {
+				for (int i = partitionChunks.size() - 1; i >= 0; i--) {
+					if (partitionChunks.get(i).overlaps(fromTimestamp, toTimestamp)) {
+						chunks.add(partitionChunks.get(i));
+					}
+				}
+			}
+		}
+
+		// chunks of later partitions first, the first chunk with samples in range has the last
+		// sample as ids are increasing in a series
+		SeriesSchema schema = getSchema(series.key.getDataClass());
+		DefaultData last = null;
+		for (Chunk chunk : chunks) {
+			if ((null != last) && (chunk.getMaxId() < last.getId())) {
+				continue;
+			}
+			List<DefaultData> samples = chunk.decode(schema, fromTimestamp, toTimestamp, 0);
+			for (DefaultData data : samples) {
+				if ((null == last) || (data.getId() > last.getId())) {
+					last = data;
+				}
+			}
+		}
+		return last;
+	}
+
+	/**
+	 * Adds the sample with the assigned id to the open chunk of the series. The open chunk is sealed
+	 * when the partition changes or when it is full. Must be called while holding the lock of the
+	 * series.
+	 * 
+	 * @param series
+	 *            Series.
+	 * @param data
+	 *            Sample.
+	 */
+	private void addOpenSample(Series series, DefaultData data) {
+		long partitionStart = series.key.getTier().getPartitionStart(data.getTimeStamp().getTime());
+		if (!series.openSamples.isEmpty() && (series.openPartitionStart != partitionStart)) {
+			seal(series);
+		}
+		series.openPartitionStart = partitionStart;
+		series.openSamples.add(data);
+		if (series.openSamples.size() >= CHUNK_SIZE) {
+			seal(series);
+		}
+	}
+
+	/**
+	 * Appends the sample to the write-ahead log of the tier of the series.
+	 * 
+	 * @param key
+	 *            Key of the series.
+	 * @param data
+	 *            Sample with the assigned id.
+	 */
+	private void writeAhead(SeriesKey key, DefaultData data) {
+		Segment writeAheadLog = writeAheadLogs.get(key.getTier());
+		if (null == writeAheadLog) {
+			return;
+		}
+		int classIndex = DATA_CLASSES.indexOf(key.getDataClass());
+		try {
+			writeAheadLog.append(Chunk.encode(key, (byte) classIndex, schemas.get(classIndex), Collections.singletonList(data)));
+			unsyncedWriteAheadLogs.add(writeAheadLog);
+		} catch (IOException e) {
+			log.error("Sample of the series " + key + " can not be written to the write-ahead log of the time series store.", e);
+		}
+	}
+
+	/**
+	 * Returns the largest id of the samples in the series.
+	 * 
+	 * @param series
+	 *            Series.
+	 * @return Largest id or <code>0</code> if the series is empty.
+	 */
+	private long getMaxId(Series series) {
+		if (!series.openSamples.isEmpty()) {
+			return series.openSamples.get(series.openSamples.size() - 1).getId();
+		}
+		long maxId = 0;
+		for (List<Chunk> partitionChunks : series.chunks.values()) {
+			for (Chunk chunk : partitionChunks) {
+				maxId = Math.max(maxId, chunk.getMaxId());
+			}
+		}
+		return maxId;
+	}
+
+	/**
+	 * Writes the open chunk of the series to the segment of its partition. Must be called while
+	 * holding the lock of the series.
+	 * 
+	 * @param series
+	 *            Series.
+	 */
+	private void seal(Series series) {
+		List<DefaultData> samples = series.openSamples;
+		series.openSamples = new ArrayList<DefaultData>(CHUNK_SIZE);
+
+		SeriesKey key = series.key;
+		int classIndex = DATA_CLASSES.indexOf(key.getDataClass());
+		try {
+			Segment segment = getOrCreateSegment(key.getTier(), series.openPartitionStart);
+			ByteBuffer buffer = Chunk.encode(key, (byte) classIndex, schemas.get(classIndex), samples);
+			long position = segment.append(buffer);
+			unsyncedSegments.add(segment);
+			addChunk(series, segment, Chunk.of(key, segment, position, buffer));
+		} catch (IOException e) {
+			log.error("Samples of the series " + key + " can not be written to the time series store. Samples count: " + samples.size(), e);
+		}
+	}
+
+	/**
+	 * Adds the chunk to the index of the series.
+	 * 
+	 * @param series
+	 *            Series.
+	 * @param segment
+	 *            Segment holding the chunk.
+	 * @param chunk
+	 *            Chunk.
+	 */
+	private void addChunk(Series series, Segment segment, Chunk chunk) {
+		List<Chunk> partitionChunks = series.chunks.get(segment.getPartitionStart());
+		if (null == partitionChunks) {
+			partitionChunks = new ArrayList<Chunk>();
+			series.chunks.put(segment.getPartitionStart(), partitionChunks);
+		}
+		partitionChunks.add(chunk);
+	}
+
+	/**
+	 * Returns the series with the given key, creates one if it does not exist.
+	 * 
+	 * @param key
+	 *            Series key.
+	 * @return Series.
+	 */
+	private Series getOrCreateSeries(SeriesKey key) {
+		Series series = seriesMap.get(key);
+		if (null == series) {
+			series = new Series(key);
+			Series existing = seriesMap.putIfAbsent(key, series);
+			if (null != existing) {
+				series = existing;
+			}
+		}
+		return series;
+	}
+
+	/**
+	 * Returns the segment of the partition, creates one if it does not exist.
+	 * 
+	 * @param tier
+	 *            Tier of the segment.
+	 * @param partitionStart
+	 *            Start time of the partition.
+	 * @return Segment.
+	 * @throws IOException
+	 *             If the segment file can not be created.
+	 */
+	private Segment getOrCreateSegment(RollupTier tier, long partitionStart) throws IOException {
+		ConcurrentSkipListMap<Long, Segment> tierSegments = segments.get(tier);
+		Segment segment = tierSegments.get(partitionStart);
+		if (null == segment) {
+			synchronized (tierSegments) {
+				segment = tierSegments.get(partitionStart);
+				if (null == segment) {
+					segment = new Segment(getFolder(tier).resolve(partitionStart + SEGMENT_EXTENSION), tier, partitionStart);
+					tierSegments.put(partitionStart, segment);
+				}
+			}
+		}
+		return segment;
+	}
+
+	/**
+	 * Returns the folder of the segment files of the tier.
+	 * 
+	 * @param tier
+	 *            Tier.
+	 * @return Folder.
+	 */
+	private Path getFolder(RollupTier tier) {
+		return Paths.get(folder, tier.getFolderName());
+	}
+
+	/**
+	 * Returns the schema of the data class.
+	 * 
+	 * @param dataClass
+	 *            Data class.
+	 * @return Schema.
+	 */
+	SeriesSchema getSchema(Class<? extends DefaultData> dataClass) {
+		return schemas.get(DATA_CLASSES.indexOf(dataClass));
+	}
+
+	/**
+	 * If the series key matches the template.
+	 * 
+	 * @param key
+	 *            Series key.
+	 * @param template
+	 *            Template.
+	 * @param tier
+	 *            Tier of the series.
+	 * @param matchSensorType
+	 *            If the sensor type must match.
+	 * @param matchDefinition
+	 *            If the definition must match.
+	 * @return If the series key matches the template.
+	 */
+	private boolean matches(SeriesKey key, DefaultData template, RollupTier tier, boolean matchSensorType, boolean matchDefinition) {
+		return (key.getTier() == tier) && key.getDataClass().equals(template.getClass()) && (key.getPlatformIdent() == template.getPlatformIdent())
+				&& (!matchSensorType || (key.getSensorTypeIdent() == template.getSensorTypeIdent())) && (!matchDefinition || (key.getDefinitionId() == SeriesSchema.getDefinitionId(template)));
+	}
+
+	/**
+	 * Opens the segment files and rebuilds the index of the series. The samples of the open chunks
+	 * that were not flushed before the CMR stopped are restored from the write-ahead logs and
+	 * written to the segment files.
+	 * 
+	 * @throws IOException
+	 *             If the segment files can not be read.
+	 */
+	@PostConstruct
+	public void postConstruct() throws IOException {
+		// deletion marks are written to the partition of the deletion time, thus all chunks must be
+		// read before deciding which were deleted
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		Map<Long, Long> deletedPlatforms = new HashMap<Long, Long>();
+		long maxId = 0;
+		int segmentCount = 0;
+		for (RollupTier tier : RollupTier.values()) {
+			for (Entry<Long, Path> entry : listSegmentFiles(tier).entrySet()) {
+				Segment segment = new Segment(entry.getValue(), tier, entry.getKey());
+				segments.get(tier).put(entry.getKey(), segment);
+				segmentCount++;
+				for (Chunk chunk : segment.readChunks(schemas)) {
+					if (null == chunk.getKey().getDataClass()) {
+						Long deletedId = deletedPlatforms.get(chunk.getKey().getPlatformIdent());
+						if ((null == deletedId) || (deletedId.longValue() < chunk.getMaxId())) {
+							deletedPlatforms.put(chunk.getKey().getPlatformIdent(), chunk.getMaxId());
+						}
+					} else {
+						chunks.add(chunk);
+					}
+					maxId = Math.max(maxId, chunk.getMaxId());
+				}
+			}
+		}
+		idGenerator.set(maxId);
+
+		int chunkCount = 0;
+		for (Chunk chunk : chunks) {
+			Long deletedId = deletedPlatforms.get(chunk.getKey().getPlatformIdent());
+			if ((null == deletedId) || (deletedId.longValue() < chunk.getMaxId())) {
+				Series series = getOrCreateSeries(chunk.getKey());
+				addChunk(series, chunk.getSegment(), chunk);
+				chunkCount++;
+			}
+		}
+
+		int restoredCount = 0;
+		for (RollupTier tier : RollupTier.values()) {
+			Segment writeAheadLog = new Segment(getFolder(tier).resolve(WRITE_AHEAD_LOG_FILE_NAME), tier, 0);
+			restoredCount += restore(writeAheadLog, deletedPlatforms);
+			writeAheadLogs.put(tier, writeAheadLog);
+		}
+		flush();
+
+		if (log.isInfoEnabled()) {
+			log.info("|-Time series store active with " + chunkCount + " chunks in " + segmentCount + " segments, " + restoredCount + " samples restored from the write-ahead log...");
+		}
+	}
+
+	/**
+	 * Restores the samples of the write-ahead log that are not in the sealed chunks of their series
+	 * to the open chunks.
+	 * 
+	 * @param writeAheadLog
+	 *            Write-ahead log of one tier.
+	 * @param deletedPlatforms
+	 *            Largest id of the deleted samples mapped by the platform ident.
+	 * @return Number of restored samples.
+	 * @throws IOException
+	 *             If the write-ahead log can not be read.
+	 */
+	private int restore(Segment writeAheadLog, Map<Long, Long> deletedPlatforms) throws IOException {
+		int restoredCount = 0;
+		for (Chunk chunk : writeAheadLog.readChunks(schemas)) {
+			SeriesKey key = chunk.getKey();
+			if (null == key.getDataClass()) {
+				continue;
+			}
+			Long deletedId = deletedPlatforms.get(key.getPlatformIdent());
+			for (DefaultData data : chunk.decode(getSchema(key.getDataClass()), Long.MIN_VALUE, Long.MAX_VALUE, 0)) {
+				if ((null != deletedId) && (deletedId.longValue() >= data.getId())) {
+					continue;
+				}
+				// samples of the chunks sealed before the crash are already in the segment files
+				Series series = getOrCreateSeries(key);
+				if (data.getId() > getMaxId(series)) {
+					addOpenSample(series, data);
+					reserveIds(data.getId());
+					restoredCount++;
+				}
+			}
+		}
+		return restoredCount;
+	}
+
+	/**
+	 * Lists the segment files of the tier, creates the folder of the tier if it does not exist.
+	 * 
+	 * @param tier
+	 *            Tier.
+	 * @return Segment files mapped by the start time of the partition.
+	 * @throws IOException
+	 *             If the folder can not be listed.
+	 */
+	private NavigableMap<Long, Path> listSegmentFiles(RollupTier tier) throws IOException {
+		Path path = getFolder(tier);
+		Files.createDirectories(path);
+
+		NavigableMap<Long, Path> files = new TreeMap<Long, Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*" + SEGMENT_EXTENSION)) {
+			for (Path file : stream) {
+				String name = file.getFileName().toString();
+				try {
+					files.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length())), file);
+				} catch (NumberFormatException e) {
+					log.warn("File " + file + " is not a time series segment and will be ignored.");
+				}
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Writes the open chunks and closes the segment files and the write-ahead logs.
+	 */
+	@PreDestroy
+	public void preDestroy() {
+		flush();
+		for (ConcurrentSkipListMap<Long, Segment> tierSegments : segments.values()) {
+			for (Segment segment : tierSegments.values()) {
+				segment.close();
+			}
+		}
+		for (Segment writeAheadLog : writeAheadLogs.values()) {
+			writeAheadLog.close();
+		}
+	}
+
+	/**
+	 * One series with the open chunk and the index of the sealed chunks.
+	 */
+	private static final class Series {
+
+		/**
+		 * Key of the series.
+		 */
+		private final SeriesKey key;
+
+		/**
+		 * Sealed chunks mapped by the start time of the partition.
+		 */
+		private final NavigableMap<Long, List<Chunk>> chunks = new TreeMap<Long, List<Chunk>>();
+
+		/**
+		 * Samples of the open chunk.
+		 */
+		private List<DefaultData> openSamples = new ArrayList<DefaultData>(CHUNK_SIZE);
+
+		/**
+		 * Partition of the open chunk.
+		 */
+		private long openPartitionStart;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param key
+		 *            Key of the series.
+		 */
+		Series(SeriesKey key) {
+			this.key = key;
+		}
+
+	}
+
+}
@@ -0,0 +1,100 @@
+package rocks.inspectit.server.util;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.shared.all.cmr.service.IKeepAliveService;
+
+/**
+ * Bean that decides how fast the agents should send the data to the CMR. The decision is based on
+ * the occupancy of the queue the incoming data waits in for the processing. When the occupancy is
+ * above {@link #THROTTLE_OCCUPANCY} the agents are asked to delay the sending of the data between
+ * two data lists, the delay grows with the occupancy up to the {@link #maxSendingDelay}. If data
+ * has been dropped in the last keep-alive period the maximum delay is suggested.
+ * <p>
+ * The suggested delay is returned to the agents with the keep-alive signal, thus the agents are
+ * slowed down before the CMR has to drop the data.
+ */
+@Component
+public class AgentFlowController {
+
+	/**
+	 * Occupancy of the queue after which the agents are asked to delay the sending.
+	 */
+	static final float THROTTLE_OCCUPANCY = 0.5f;
+
+	/**
+	 * Maximum delay in milliseconds the agents are asked to wait between two data lists.
+	 */
+	@Value("${cmr.agentMaxSendingDelay}")
+	long maxSendingDelay;
+
+	/**
+	 * Queue holding the incoming data before processing.
+	 */
+	private volatile BlockingQueue<?> ingestionQueue;
+
+	/**
+	 * Time in milliseconds when the data was dropped the last time.
+	 */
+	private volatile long lastDropTime;
+
+	/**
+	 * Number of times agents were asked to delay the sending.
+	 */
+	private final AtomicLong throttleCount = new AtomicLong();
+
+	/**
+	 * Registers the queue holding the incoming data before processing.
+	 * 
+	 * @param ingestionQueue
+	 *            Queue holding the incoming data.
+	 */
+	public void registerIngestionQueue(BlockingQueue<?> ingestionQueue) {
+		this.ingestionQueue = ingestionQueue;
+	}
+
+	/**
+	 * Registers that the incoming data had to be dropped.
+	 */
+	public void registerDataDropped() {
+		lastDropTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns the delay in milliseconds the agent should wait between sending two data lists.
+	 * Every call returning a delay larger than zero is counted as one throttling.
+	 * 
+	 * @return Delay in milliseconds or <code>0</code> if the agent does not need to wait.
+	 */
+	public long getSendingDelay() {
+		long delay = 0;
+		if (System.currentTimeMillis() - lastDropTime < IKeepAliveService.KA_PERIOD) {
+			delay = maxSendingDelay;
+		} else if (null != ingestionQueue) {
+			int size = ingestionQueue.size();
+			float occupancy = (float) size / (size + ingestionQueue.remainingCapacity());
+			if (occupancy > THROTTLE_OCCUPANCY) {
+				delay = (long) (maxSendingDelay * (occupancy - THROTTLE_OCCUPANCY) / (1 - THROTTLE_OCCUPANCY));
+			}
+		}
+
+		if (delay > 0) {
+			throttleCount.incrementAndGet();
+		}
+		return delay;
+	}
+
+	/**
+	 * Returns the number of times agents were asked to delay the sending.
+	 * 
+	 * @return Returns the number of times agents were asked to delay the sending.
+	 */
+	public long getThrottleCount() {
+		return throttleCount.get();
+	}
+
+}
@@ -418,6 +418,7 @@ public class HealthStatus {
 	 */
 	private void logStorageStatistics() {
 		log.info("Status of the Write Channel Manager's executor service: " + writingChannelManager.getExecutorServiceStatus());
+		log.info("Write Channel Manager submitted " + writingChannelManager.getSubmittedWriteCount() + " writes in total.");
 		log.info("Status of each writable storage and its executor service:");
 		Map<StorageData, String> writersStatusMap = storageManager.getWritersStatus();
 		if (!writersStatusMap.isEmpty()) {
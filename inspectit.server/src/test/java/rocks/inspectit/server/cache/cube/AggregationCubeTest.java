@@ -0,0 +1,316 @@
+package rocks.inspectit.server.cache.cube;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.data.AggregatedHttpTimerData;
+import rocks.inspectit.shared.all.communication.data.AggregatedSqlStatementData;
+import rocks.inspectit.shared.all.communication.data.AggregatedTimerData;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.cs.indexing.aggregation.Aggregators;
+import rocks.inspectit.shared.cs.indexing.aggregation.impl.AggregationPerformer;
+import rocks.inspectit.shared.cs.indexing.aggregation.impl.HttpTimerDataAggregator;
+import rocks.inspectit.shared.cs.indexing.impl.IndexQuery;
+import rocks.inspectit.shared.cs.indexing.restriction.impl.CachingIndexQueryRestrictionProcessor;
+import rocks.inspectit.shared.cs.indexing.restriction.impl.IndexQueryRestrictionFactory;
+
+/**
+ * Tests the {@link AggregationCube}.
+ */
+@SuppressWarnings("PMD")
+public class AggregationCubeTest {
+
+	/**
+	 * Start of the first bucket.
+	 */
+	private static final long START = 1451606400000L;
+
+	/**
+	 * Timer data cube.
+	 */
+	private TimerDataAggregationCube timerDataCube;
+
+	/**
+	 * Query for the timer data.
+	 */
+	private IndexQuery query;
+
+	/**
+	 * Creates the cube and the query.
+	 */
+	@BeforeMethod
+	public void init() {
+		timerDataCube = new TimerDataAggregationCube();
+		query = new IndexQuery();
+		query.setObjectClasses(Arrays.<Class<?>> asList(TimerData.class, AggregatedTimerData.class));
+	}
+
+	/**
+	 * Data of the same method is aggregated over the buckets.
+	 */
+	@Test
+	public void aggregate() {
+		TimerData first = timer(1L, 10L, 1000L, 10d);
+		TimerData second = timer(2L, 10L, 2000L, 20d);
+		TimerData third = timer(3L, 10L, AggregationCube.BUCKET_SIZE + 1000L, 30d);
+		TimerData other = timer(4L, 11L, 1000L, 5d);
+		timerDataCube.add(first);
+		timerDataCube.add(second);
+		timerDataCube.add(third);
+		timerDataCube.add(other);
+
+		assertThat(timerDataCube.getCellCount(), is(3));
+
+		query.setMethodIdent(10L);
+		List<TimerData> result = aggregate(Long.MIN_VALUE, Long.MAX_VALUE);
+		assertThat(result, hasSize(1));
+		AggregatedTimerData aggregated = (AggregatedTimerData) result.get(0);
+		assertThat(aggregated.getCount(), is(3L));
+		assertThat(aggregated.getDuration(), is(60d));
+		assertThat(aggregated.getMin(), is(10d));
+		assertThat(aggregated.getMax(), is(30d));
+		assertThat(aggregated.getAggregatedIds(), containsInAnyOrder(1L, 2L, 3L));
+	}
+
+	/**
+	 * Only the buckets in the interval are aggregated.
+	 */
+	@Test
+	public void aggregateInterval() {
+		timerDataCube.add(timer(1L, 10L, 1000L, 10d));
+		timerDataCube.add(timer(2L, 10L, AggregationCube.BUCKET_SIZE + 1000L, 20d));
+		timerDataCube.add(timer(3L, 10L, (2 * AggregationCube.BUCKET_SIZE) + 1000L, 30d));
+
+		List<TimerData> result = aggregate(START + AggregationCube.BUCKET_SIZE, START + (2 * AggregationCube.BUCKET_SIZE));
+		assertThat(result, hasSize(1));
+		assertThat(result.get(0).getCount(), is(1L));
+		assertThat(result.get(0).getDuration(), is(20d));
+	}
+
+	/**
+	 * Evicted data is subtracted and empty cells are removed.
+	 */
+	@Test
+	public void remove() {
+		TimerData first = timer(1L, 10L, 1000L, 10d);
+		TimerData second = timer(2L, 10L, 2000L, 20d);
+		timerDataCube.add(first);
+		timerDataCube.add(second);
+
+		timerDataCube.remove(first);
+
+		List<TimerData> result = aggregate(Long.MIN_VALUE, Long.MAX_VALUE);
+		assertThat(result, hasSize(1));
+		assertThat(result.get(0).getCount(), is(1L));
+		assertThat(result.get(0).getDuration(), is(20d));
+		assertThat(((AggregatedTimerData) result.get(0)).getAggregatedIds(), contains(2L));
+
+		timerDataCube.remove(second);
+
+		assertThat(timerDataCube.getCellCount(), is(0));
+		assertThat(aggregate(Long.MIN_VALUE, Long.MAX_VALUE), is(empty()));
+	}
+
+	/**
+	 * Data evicted before it's indexed does not leave a cell.
+	 */
+	@Test
+	public void removeBeforeAdd() {
+		TimerData timerData = timer(1L, 10L, 1000L, 10d);
+
+		timerDataCube.remove(timerData);
+		assertThat(aggregate(Long.MIN_VALUE, Long.MAX_VALUE), is(empty()));
+
+		timerDataCube.add(timerData);
+		assertThat(timerDataCube.getCellCount(), is(0));
+	}
+
+	/**
+	 * Sub-classes are not included in the timer data cube.
+	 */
+	@Test
+	public void subClassesIgnored() {
+		SqlStatementData sqlStatementData = new SqlStatementData(new Timestamp(START), 1L, 2L, 10L);
+		sqlStatementData.setCount(1L);
+		timerDataCube.add(sqlStatementData);
+
+		assertThat(timerDataCube.getCellCount(), is(0));
+	}
+
+	/**
+	 * Cells are filtered with the restrictions of the query.
+	 */
+	@Test
+	public void sqlRestrictions() {
+		SqlStatementDataAggregationCube sqlCube = new SqlStatementDataAggregationCube();
+		sqlCube.add(sql(1L, "SELECT 1", "url1"));
+		sqlCube.add(sql(2L, "SELECT 1", "url2"));
+		sqlCube.add(sql(3L, "SELECT 2", "url1"));
+
+		IndexQuery sqlQuery = new IndexQuery();
+		sqlQuery.setRestrictionProcessor(new CachingIndexQueryRestrictionProcessor());
+		sqlQuery.setObjectClasses(Arrays.<Class<?>> asList(SqlStatementData.class, AggregatedSqlStatementData.class));
+		sqlQuery.addIndexingRestriction(IndexQueryRestrictionFactory.equal("databaseUrl", "url1"));
+
+		AggregationPerformer<SqlStatementData> aggregationPerformer = new AggregationPerformer<SqlStatementData>(Aggregators.SQL_STATEMENT_DATA_AGGREGATOR);
+		sqlCube.aggregate(sqlQuery, Long.MIN_VALUE, Long.MAX_VALUE, aggregationPerformer);
+
+		List<SqlStatementData> result = aggregationPerformer.getResultList();
+		assertThat(result, hasSize(2));
+		for (SqlStatementData sqlStatementData : result) {
+			assertThat(sqlStatementData.getDatabaseUrl(), is("url1"));
+			assertThat(sqlStatementData.getCount(), is(1L));
+		}
+	}
+
+	/**
+	 * The use case view is created from the cells with the tag.
+	 */
+	@Test
+	public void httpTagged() {
+		HttpTimerDataAggregationCube httpCube = new HttpTimerDataAggregationCube();
+		httpCube.add(http(1L, "/a", "tag", "GET"));
+		httpCube.add(http(2L, "/b", "tag", "POST"));
+		httpCube.add(http(3L, "/b", null, "GET"));
+
+		IndexQuery httpQuery = new IndexQuery();
+		httpQuery.setRestrictionProcessor(new CachingIndexQueryRestrictionProcessor());
+		httpQuery.setObjectClasses(Arrays.<Class<?>> asList(HttpTimerData.class, AggregatedHttpTimerData.class));
+		httpQuery.addIndexingRestriction(IndexQueryRestrictionFactory.isNotNull("httpInfo.inspectItTaggingHeaderValue"));
+
+		AggregationPerformer<HttpTimerData> aggregationPerformer = new AggregationPerformer<HttpTimerData>(new HttpTimerDataAggregator(false, false));
+		httpCube.aggregate(httpQuery, Long.MIN_VALUE, Long.MAX_VALUE, aggregationPerformer);
+
+		List<HttpTimerData> result = aggregationPerformer.getResultList();
+		assertThat(result, hasSize(1));
+		assertThat(result.get(0).getCount(), is(2L));
+		assertThat(result.get(0).getHttpInfo().getRequestMethod(), is(HttpTimerData.REQUEST_METHOD_MULTIPLE));
+	}
+
+	/**
+	 * Charting and not charting data of the same URI is kept in different cells.
+	 */
+	@Test
+	public void httpCharting() {
+		HttpTimerDataAggregationCube httpCube = new HttpTimerDataAggregationCube();
+		HttpTimerData charting = http(1L, "/a", null, "GET");
+		charting.setCharting(true);
+		httpCube.add(charting);
+		httpCube.add(http(2L, "/a", null, "GET"));
+
+		assertThat(httpCube.getCellCount(), is(2));
+	}
+
+	/**
+	 * Queries restricted on the id or searching other classes are not supported.
+	 */
+	@Test
+	public void querySupported() {
+		assertThat(timerDataCube.isQuerySupported(query), is(true));
+
+		query.setMinId(10L);
+		assertThat(timerDataCube.isQuerySupported(query), is(false));
+
+		IndexQuery otherQuery = new IndexQuery();
+		otherQuery.setObjectClasses(new ArrayList<Class<?>>(Arrays.<Class<?>> asList(TimerData.class)));
+		assertThat(timerDataCube.isQuerySupported(otherQuery), is(false));
+	}
+
+	/**
+	 * Aggregates the timer data cube.
+	 * 
+	 * @param fromTime
+	 *            Start of the first bucket.
+	 * @param toTime
+	 *            End of the last bucket.
+	 * @return Aggregated data.
+	 */
+	private List<TimerData> aggregate(long fromTime, long toTime) {
+		AggregationPerformer<TimerData> aggregationPerformer = new AggregationPerformer<TimerData>(Aggregators.TIMER_DATA_AGGREGATOR);
+		timerDataCube.aggregate(query, fromTime, toTime, aggregationPerformer);
+		return aggregationPerformer.getResultList();
+	}
+
+	/**
+	 * Creates the timer data.
+	 * 
+	 * @param id
+	 *            Id.
+	 * @param methodIdent
+	 *            Method ident.
+	 * @param millis
+	 *            Milliseconds after the {@link #START}.
+	 * @param duration
+	 *            Duration.
+	 * @return Timer data.
+	 */
+	private TimerData timer(long id, long methodIdent, long millis, double duration) {
+		TimerData data = new TimerData(new Timestamp(START + millis), 1L, 2L, methodIdent);
+		data.setId(id);
+		data.setCount(1L);
+		data.setDuration(duration);
+		data.calculateMin(duration);
+		data.calculateMax(duration);
+		return data;
+	}
+
+	/**
+	 * Creates the SQL statement.
+	 * 
+	 * @param id
+	 *            Id.
+	 * @param sql
+	 *            SQL.
+	 * @param url
+	 *            Database URL.
+	 * @return SQL statement.
+	 */
+	private SqlStatementData sql(long id, String sql, String url) {
+		SqlStatementData data = new SqlStatementData(new Timestamp(START), 1L, 2L, 10L);
+		data.setId(id);
+		data.setSql(sql);
+		data.setDatabaseUrl(url);
+		data.setCount(1L);
+		data.setDuration(1d);
+		return data;
+	}
+
+	/**
+	 * Creates the HTTP timer data.
+	 * 
+	 * @param id
+	 *            Id.
+	 * @param uri
+	 *            URI.
+	 * @param tag
+	 *            Tag, can be <code>null</code>.
+	 * @param requestMethod
+	 *            Request method.
+	 * @return HTTP timer data.
+	 */
+	private HttpTimerData http(long id, String uri, String tag, String requestMethod) {
+		HttpTimerData data = new HttpTimerData(new Timestamp(START), 1L, 2L, 10L);
+		data.setId(id);
+		data.getHttpInfo().setUri(uri);
+		data.getHttpInfo().setInspectItTaggingHeaderValue(tag);
+		data.getHttpInfo().setRequestMethod(requestMethod);
+		data.setCount(1L);
+		data.setDuration(1d);
+		return data;
+	}
+
+}
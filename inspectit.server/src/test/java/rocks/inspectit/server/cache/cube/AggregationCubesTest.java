@@ -0,0 +1,99 @@
+package rocks.inspectit.server.cache.cube;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.sql.Timestamp;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.cache.impl.BufferElement;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+/**
+ * Tests the {@link AggregationCubes}.
+ */
+@SuppressWarnings("PMD")
+public class AggregationCubesTest {
+
+	/**
+	 * Class under test.
+	 */
+	private AggregationCubes aggregationCubes;
+
+	/**
+	 * Creates the cubes.
+	 */
+	@BeforeMethod
+	public void init() {
+		aggregationCubes = new AggregationCubes();
+	}
+
+	/**
+	 * Data is added to the cube of its class.
+	 */
+	@Test
+	public void indexed() {
+		aggregationCubes.elementIndexed(new BufferElement<DefaultData>(timer(new TimerData())));
+		aggregationCubes.elementIndexed(new BufferElement<DefaultData>(timer(new SqlStatementData())));
+		aggregationCubes.elementIndexed(new BufferElement<DefaultData>(timer(new HttpTimerData())));
+		aggregationCubes.elementIndexed(new BufferElement<DefaultData>(timer(new HttpTimerData())));
+
+		assertThat(aggregationCubes.getTimerDataCube().getCellCount(), is(1));
+		assertThat(aggregationCubes.getSqlStatementDataCube().getCellCount(), is(1));
+		assertThat(aggregationCubes.getHttpTimerDataCube().getCellCount(), is(1));
+	}
+
+	/**
+	 * Directly indexed data of the invocation is removed when the invocation is evicted.
+	 */
+	@Test
+	public void invocationEvicted() {
+		InvocationSequenceData invocation = new InvocationSequenceData(new Timestamp(1000L), 1L, 2L, 3L);
+		InvocationSequenceData child = new InvocationSequenceData(new Timestamp(1000L), 1L, 2L, 4L);
+		SqlStatementData sqlStatementData = timer(new SqlStatementData());
+		sqlStatementData.addInvocationParentId(1L);
+		child.setSqlStatementData(sqlStatementData);
+		invocation.getNestedSequences().add(child);
+
+		aggregationCubes.add(sqlStatementData);
+		assertThat(aggregationCubes.getSqlStatementDataCube().getCellCount(), is(1));
+
+		aggregationCubes.elementEvicted(new BufferElement<DefaultData>(invocation));
+		assertThat(aggregationCubes.getSqlStatementDataCube().getCellCount(), is(0));
+	}
+
+	/**
+	 * Cubes are cleared with the buffer.
+	 */
+	@Test
+	public void cleared() {
+		aggregationCubes.add(timer(new TimerData()));
+
+		aggregationCubes.bufferCleared();
+
+		assertThat(aggregationCubes.getTimerDataCube().getCellCount(), is(0));
+	}
+
+	/**
+	 * Initializes the timer data.
+	 * 
+	 * @param timerData
+	 *            Timer data.
+	 * @return Timer data.
+	 */
+	private <T extends TimerData> T timer(T timerData) {
+		timerData.setTimeStamp(new Timestamp(1000L));
+		timerData.setPlatformIdent(1L);
+		timerData.setMethodIdent(4L);
+		timerData.setCount(1L);
+		timerData.setDuration(1d);
+		return timerData;
+	}
+
+}
@@ -0,0 +1,234 @@
+package rocks.inspectit.server.cache.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.RandomStringUtils;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.cache.IBufferElement.BufferElementState;
+import rocks.inspectit.server.cache.impl.CompressedInvocationStore.CompressedInvocation;
+import rocks.inspectit.server.test.AbstractTestNGLogSupport;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.storage.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.storage.serializer.SerializationManagerPostProcessor;
+
+/**
+ * Tests the {@link CompressedInvocationStore}.
+ */
+@SuppressWarnings("PMD")
+public class CompressedInvocationStoreTest extends AbstractTestNGLogSupport {
+
+	/**
+	 * Class under test.
+	 */
+	private CompressedInvocationStore store;
+
+	@Mock
+	private BufferProperties bufferProperties;
+
+	@Mock
+	private SerializationManagerProvider serializationManagerProvider;
+
+	@InjectMocks
+	private ClassSchemaManager schemaManager;
+
+	@Mock
+	private Logger log;
+
+	/**
+	 * Init.
+	 * 
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	@BeforeMethod
+	public void init() throws IOException {
+		MockitoAnnotations.initMocks(this);
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+
+		SerializationManager serializer = new SerializationManager();
+		serializer.setSchemaManager(schemaManager);
+		serializer.setKryoNetNetwork(new KryoNetNetwork());
+		serializer.initKryo();
+		new SerializationManagerPostProcessor().postProcessAfterInitialization(serializer, "serializer");
+
+		when(serializationManagerProvider.createSerializer()).thenReturn(serializer);
+		when(bufferProperties.isInvocationCompressionActive()).thenReturn(true);
+		when(bufferProperties.getInvocationCompressionMaxOffHeapSize()).thenReturn(2L * CompressedInvocationStore.PAGE_SIZE);
+
+		store = new CompressedInvocationStore();
+		store.bufferProperties = bufferProperties;
+		store.serializationManagerProvider = serializationManagerProvider;
+		store.log = LoggerFactory.getLogger(CompressedInvocationStore.class);
+		store.postConstruct();
+	}
+
+	/**
+	 * Tests that the compressed invocation is read with all nested sequences.
+	 */
+	@Test
+	public void compressAndRead() {
+		InvocationSequenceData invocation = getInvocation(1L, 10, "select * from table");
+
+		CompressedInvocation compressedInvocation = store.compress(invocation);
+
+		assertThat(compressedInvocation, is(notNullValue()));
+		assertThat(compressedInvocation.getCompressedLength(), is(lessThan(compressedInvocation.getLength())));
+		assertThat(store.getCompressedInvocationCount(), is(1));
+
+		InvocationSequenceData result = store.getInvocationSequence(invocation.getClonedInvocationSequence());
+		assertThat(result.getId(), is(1L));
+		assertThat(result.getNestedSequences(), hasSize(10));
+		for (int i = 0; i < 10; i++) {
+			InvocationSequenceData child = result.getNestedSequences().get(i);
+			assertThat(child.getParentSequence(), is(sameInstance(result)));
+			assertThat(child.getSqlStatementData().getSql(), is(equalTo("select * from table")));
+		}
+	}
+
+	/**
+	 * Tests that not compressed invocation is returned as it is.
+	 */
+	@Test
+	public void notCompressed() {
+		InvocationSequenceData invocation = getInvocation(1L, 1, "sql");
+
+		assertThat(store.getInvocationSequence(invocation), is(sameInstance(invocation)));
+	}
+
+	/**
+	 * Tests that the released invocation is not read anymore.
+	 */
+	@Test
+	public void release() {
+		InvocationSequenceData invocation = getInvocation(1L, 1, "sql");
+		CompressedInvocation compressedInvocation = store.compress(invocation);
+		InvocationSequenceData clone = invocation.getClonedInvocationSequence();
+
+		store.release(1L, compressedInvocation);
+		store.release(1L, compressedInvocation);
+
+		assertThat(store.getCompressedInvocationCount(), is(0));
+		assertThat(store.getInvocationSequence(clone), is(sameInstance(clone)));
+	}
+
+	/**
+	 * Tests that the clear releases all invocations.
+	 */
+	@Test
+	public void clear() {
+		InvocationSequenceData invocation = getInvocation(1L, 1, "sql");
+		CompressedInvocation compressedInvocation = store.compress(invocation);
+		InvocationSequenceData clone = invocation.getClonedInvocationSequence();
+
+		store.clear();
+
+		assertThat(store.getInvocationSequence(clone), is(sameInstance(clone)));
+		assertThat(store.getOffHeapSize(), is(0L));
+
+		// release after clear must not fail
+		store.release(1L, compressedInvocation);
+	}
+
+	/**
+	 * Tests that no more than max off-heap size is used and that pages are reused.
+	 */
+	@Test
+	public void maxOffHeapSize() {
+		String sql = RandomStringUtils.randomAlphanumeric(800 * 1024);
+		InvocationSequenceData first = getInvocation(1L, 1, sql);
+		InvocationSequenceData second = getInvocation(2L, 1, sql + "2");
+		InvocationSequenceData third = getInvocation(3L, 1, sql + "3");
+
+		CompressedInvocation firstCompressed = store.compress(first);
+		assertThat(firstCompressed, is(notNullValue()));
+		assertThat(store.compress(second), is(notNullValue()));
+		assertThat(store.getOffHeapSize(), is(2L * CompressedInvocationStore.PAGE_SIZE));
+
+		// no more pages
+		assertThat(store.compress(third), is(nullValue()));
+
+		// page of the first is reused
+		store.release(1L, firstCompressed);
+		assertThat(store.compress(third), is(notNullValue()));
+		assertThat(store.getOffHeapSize(), is(2L * CompressedInvocationStore.PAGE_SIZE));
+		assertThat(store.getInvocationSequence(third.getClonedInvocationSequence()).getNestedSequences().get(0).getSqlStatementData().getSql(), is(equalTo(sql + "3")));
+		assertThat(store.getInvocationSequence(second.getClonedInvocationSequence()).getNestedSequences().get(0).getSqlStatementData().getSql(), is(equalTo(sql + "2")));
+	}
+
+	/**
+	 * Tests that buffer element holds the invocation without nested sequences and releases the
+	 * compressed invocation on eviction.
+	 */
+	@Test
+	public void bufferElementEviction() {
+		CompressedInvocationStore storeMock = mock(CompressedInvocationStore.class);
+		CompressedInvocation compressedInvocation = store.compress(getInvocation(1L, 1, "sql"));
+		InvocationSequenceData invocation = getInvocation(1L, 1, "sql");
+
+		CompressedInvocationBufferElement<InvocationSequenceData> element = new CompressedInvocationBufferElement<InvocationSequenceData>(invocation.getClonedInvocationSequence(), invocation,
+				compressedInvocation, storeMock);
+		assertThat(element.getObject().getNestedSequences(), hasSize(0));
+
+		element.setBufferElementState(BufferElementState.EVICTED);
+		verify(storeMock).release(1L, compressedInvocation);
+	}
+
+	/**
+	 * Creates the invocation with the nested sequences holding the SQL statements.
+	 * 
+	 * @param id
+	 *            Id of the invocation.
+	 * @param children
+	 *            Number of nested sequences.
+	 * @param sql
+	 *            SQL of the statements.
+	 * @return Invocation.
+	 */
+	private InvocationSequenceData getInvocation(long id, int children, String sql) {
+		Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+		InvocationSequenceData invocation = new InvocationSequenceData(timestamp, 1L, 1L, 1L);
+		invocation.setId(id);
+		List<InvocationSequenceData> nestedSequences = new ArrayList<InvocationSequenceData>();
+		for (int i = 0; i < children; i++) {
+			InvocationSequenceData child = new InvocationSequenceData(timestamp, 1L, 1L, 2L);
+			SqlStatementData sqlStatementData = new SqlStatementData(timestamp, 1L, 1L, 2L, sql);
+			sqlStatementData.setCount(1L);
+			sqlStatementData.addInvocationParentId(id);
+			child.setSqlStatementData(sqlStatementData);
+			child.setParentSequence(invocation);
+			nestedSequences.add(child);
+		}
+		invocation.setNestedSequences(nestedSequences);
+		invocation.setChildCount(children);
+		return invocation;
+	}
+
+}
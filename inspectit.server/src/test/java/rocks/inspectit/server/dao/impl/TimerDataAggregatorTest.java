@@ -8,6 +8,7 @@ import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
@@ -19,6 +20,9 @@ import java.sql.Timestamp;
 import java.util.Date;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
 
@@ -130,6 +134,80 @@ public class TimerDataAggregatorTest extends AbstractTestNGLogSupport {
 		assertThat(argument.getValue().getMethodIdent(), is(timerData1.getMethodIdent()));
 	}
 
+	/**
+	 * Tests that the objects with same cache hash in the previous implementation are not
+	 * aggregated together.
+	 */
+	@Test
+	public void noAggregationOnHashCollision() {
+		// 31 * (31 * 0 + 31) + 0 == 31 * (31 * 1 + 0) + 0
+		TimerData timerData1 = new TimerData(new Timestamp(0), 0L, 20L, 31L);
+		TimerData timerData2 = new TimerData(new Timestamp(0), 1L, 20L, 0L);
+
+		aggregator.processTimerData(timerData1);
+		aggregator.processTimerData(timerData2);
+
+		assertThat(aggregator.getElementCount(), is(2));
+	}
+
+	/**
+	 * Tests that the entity manager is flushed and cleared after each batch of persisted objects.
+	 */
+	@Test
+	public void persistInBatches() {
+		aggregator.maxElements = 1000;
+
+		for (int i = 0; i < 120; i++) {
+			aggregator.processTimerData(new TimerData(new Timestamp(System.currentTimeMillis()), 10L, 20L, i));
+		}
+		aggregator.removeAndPersistAll();
+
+		assertThat(aggregator.getElementCount(), is(0));
+		verify(entityManager, times(120)).persist(anyObject());
+		verify(entityManager, times(2)).flush();
+		verify(entityManager, times(2)).clear();
+	}
+
+	/**
+	 * Tests that no data is lost when many threads aggregate and the cache is cleaned at the same
+	 * time.
+	 */
+	@Test
+	public void concurrentAggregation() throws Exception {
+		aggregator.maxElements = 5;
+		final int threads = 8;
+		final int perThread = 10000;
+
+		ArgumentCaptor<TimerData> argument = ArgumentCaptor.forClass(TimerData.class);
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			executorService.execute(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < perThread; i++) {
+						TimerData timerData = new TimerData(new Timestamp(0), 10L, 20L, i % 10);
+						timerData.setCount(1L);
+						aggregator.processTimerData(timerData);
+						if (0 == (i % 1000)) {
+							aggregator.saveAllInPersistList();
+						}
+					}
+				}
+			});
+		}
+		executorService.shutdown();
+		assertThat(executorService.awaitTermination(1, TimeUnit.MINUTES), is(true));
+		aggregator.saveAllInPersistList();
+		aggregator.removeAndPersistAll();
+
+		verify(entityManager, atLeastOnce()).persist(argument.capture());
+		long count = 0;
+		for (TimerData timerData : argument.getAllValues()) {
+			count += timerData.getCount();
+		}
+		assertThat(count, is((long) threads * perThread));
+	}
+
 	/**
 	 * Test for the validity of aggregation.
 	 */
@@ -0,0 +1,149 @@
+package rocks.inspectit.server.diagnosis.baseline;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.data.HttpInfo;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+
+/**
+ * Tests the {@link BaselineService}.
+ */
+@SuppressWarnings("PMD")
+public class BaselineServiceTest {
+
+	/**
+	 * Class under test.
+	 */
+	private BaselineService baselineService;
+
+	/**
+	 * Creates the service.
+	 */
+	@BeforeMethod
+	public void init() {
+		baselineService = new BaselineService();
+		baselineService.log = LoggerFactory.getLogger(BaselineService.class);
+		baselineService.defaultBaseline = 1000d;
+		baselineService.maxTransactions = 10;
+	}
+
+	/**
+	 * Default baseline is used until enough durations are known.
+	 */
+	@Test
+	public void defaultBaseline() {
+		for (int i = 1; i < BaselineService.MIN_SAMPLES; i++) {
+			baselineService.update(invocation(1L, 10d));
+		}
+
+		assertThat(baselineService.getBaseline(invocation(1L, 10d)), is(1000d));
+		assertThat(baselineService.isDiagnosisNeeded(invocation(1L, 500d)), is(false));
+		assertThat(baselineService.isDiagnosisNeeded(invocation(1L, 1001d)), is(true));
+		assertThat(baselineService.getBaseline(invocation(2L, 10d)), is(1000d));
+	}
+
+	/**
+	 * Learned baseline is used per transaction.
+	 */
+	@Test
+	public void learnedBaseline() {
+		for (int i = 0; i < 1000; i++) {
+			baselineService.update(invocation(1L, 10d + (i % 10)));
+			baselineService.update(invocation(2L, 5000d + (i % 100)));
+		}
+
+		assertThat(baselineService.getBaseline(invocation(1L, 0d)), is(closeTo(19d, 2d)));
+		assertThat(baselineService.isDiagnosisNeeded(invocation(1L, 15d)), is(false));
+		assertThat(baselineService.isDiagnosisNeeded(invocation(1L, 50d)), is(true));
+
+		assertThat(baselineService.getBaseline(invocation(2L, 0d)), is(closeTo(5095d, 800d)));
+		assertThat(baselineService.isDiagnosisNeeded(invocation(2L, 2000d)), is(false));
+		assertThat(baselineService.isDiagnosisNeeded(invocation(2L, 10000d)), is(true));
+	}
+
+	/**
+	 * HTTP transactions are separated by the tag or the URI and not by the root method.
+	 */
+	@Test
+	public void httpTransactions() {
+		for (int i = 0; i < BaselineService.MIN_SAMPLES; i++) {
+			baselineService.update(httpInvocation(1L, "/a", null, 10d));
+			baselineService.update(httpInvocation(1L, "/b", null, 100d));
+			baselineService.update(httpInvocation(1L, "/a", "tag", 200d));
+		}
+
+		assertThat(baselineService.getTransactionCount(), is(3));
+		assertThat(baselineService.getBaseline(httpInvocation(2L, "/a", null, 0d)), is(closeTo(10d, 2d)));
+		assertThat(baselineService.getBaseline(httpInvocation(2L, "/b", null, 0d)), is(closeTo(100d, 20d)));
+		assertThat(baselineService.getBaseline(httpInvocation(2L, "/b", "tag", 0d)), is(closeTo(200d, 40d)));
+		assertThat(baselineService.getBaseline(invocation(1L, 0d)), is(1000d));
+	}
+
+	/**
+	 * No transactions are added above the limit.
+	 */
+	@Test
+	public void maxTransactions() {
+		for (int i = 0; i < 20; i++) {
+			baselineService.update(invocation(i, 10d));
+		}
+
+		assertThat(baselineService.getTransactionCount(), is(10));
+	}
+
+	/**
+	 * Recently updated transactions are not removed.
+	 */
+	@Test
+	public void removeIdleTransactions() {
+		baselineService.update(invocation(1L, 10d));
+		baselineService.removeIdleTransactions();
+
+		assertThat(baselineService.getTransactionCount(), is(1));
+	}
+
+	/**
+	 * Creates the invocation.
+	 * 
+	 * @param methodIdent
+	 *            Root method ident.
+	 * @param duration
+	 *            Duration.
+	 * @return Invocation.
+	 */
+	private InvocationSequenceData invocation(long methodIdent, double duration) {
+		InvocationSequenceData invocation = new InvocationSequenceData();
+		invocation.setMethodIdent(methodIdent);
+		invocation.setDuration(duration);
+		return invocation;
+	}
+
+	/**
+	 * Creates the HTTP invocation.
+	 * 
+	 * @param methodIdent
+	 *            Root method ident.
+	 * @param uri
+	 *            Request URI.
+	 * @param tag
+	 *            Tagging header or <code>null</code>.
+	 * @param duration
+	 *            Duration.
+	 * @return Invocation.
+	 */
+	private InvocationSequenceData httpInvocation(long methodIdent, String uri, String tag, double duration) {
+		InvocationSequenceData invocation = invocation(methodIdent, duration);
+		HttpTimerData httpTimerData = new HttpTimerData();
+		httpTimerData.setHttpInfo(new HttpInfo(uri, "GET", tag));
+		invocation.setTimerData(httpTimerData);
+		return invocation;
+	}
+
+}
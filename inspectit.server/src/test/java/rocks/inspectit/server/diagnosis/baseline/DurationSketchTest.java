@@ -0,0 +1,94 @@
+package rocks.inspectit.server.diagnosis.baseline;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link DurationSketch}.
+ */
+@SuppressWarnings("PMD")
+public class DurationSketchTest {
+
+	/**
+	 * Empty sketch has no quantiles.
+	 */
+	@Test
+	public void empty() {
+		DurationSketch sketch = new DurationSketch();
+
+		assertThat(sketch.getCount(), is(0L));
+		assertThat(sketch.getQuantile(0.95d), is(0d));
+	}
+
+	/**
+	 * Durations fall into the bucket of their power of two.
+	 */
+	@Test
+	public void buckets() {
+		assertThat(DurationSketch.getBucket(0.5d), is(0));
+		assertThat(DurationSketch.getBucket(1d), is(1));
+		assertThat(DurationSketch.getBucket(2d), is(5));
+		assertThat(DurationSketch.getBucket(1024d), is(41));
+		assertThat(DurationSketch.getBucket(Double.MAX_VALUE), is(DurationSketch.BUCKET_COUNT - 1));
+		assertThat(DurationSketch.getLowerBound(5), is(2d));
+	}
+
+	/**
+	 * Quantiles of uniform durations are within the bucket error.
+	 */
+	@Test
+	public void quantiles() {
+		DurationSketch sketch = new DurationSketch();
+		for (int i = 1; i <= 10000; i++) {
+			sketch.add(i / 10d);
+		}
+
+		assertThat(sketch.getCount(), is(10000L));
+		assertThat(sketch.getQuantile(0.5d), is(closeTo(500d, 45d)));
+		assertThat(sketch.getQuantile(0.95d), is(closeTo(950d, 85d)));
+		assertThat(sketch.getQuantile(0.99d), is(closeTo(990d, 90d)));
+	}
+
+	/**
+	 * Old durations lose their weight when the counts are halved.
+	 */
+	@Test
+	public void decay() {
+		DurationSketch sketch = new DurationSketch();
+		for (int i = 0; i < 20000; i++) {
+			sketch.add(10d);
+		}
+		assertThat(sketch.getQuantile(0.5d), is(lessThan(12d)));
+
+		for (int i = 0; i < 20000; i++) {
+			sketch.add(1000d);
+		}
+		assertThat(sketch.getCount(), is(40000L));
+		assertThat(sketch.getQuantile(0.5d), is(greaterThan(900d)));
+	}
+
+	/**
+	 * Moving average and deviation follow the durations.
+	 */
+	@Test
+	public void movingAverage() {
+		DurationSketch sketch = new DurationSketch();
+		for (int i = 0; i < 1000; i++) {
+			sketch.add(100d);
+		}
+		assertThat(sketch.getMean(), is(100d));
+		assertThat(sketch.getStandardDeviation(), is(0d));
+
+		for (int i = 0; i < 1000; i++) {
+			sketch.add((0 == (i % 2)) ? 190d : 210d);
+		}
+		assertThat(sketch.getMean(), is(closeTo(200d, 1d)));
+		assertThat(sketch.getStandardDeviation(), is(closeTo(10d, 1d)));
+	}
+
+}
@@ -2,6 +2,8 @@ package rocks.inspectit.server.diagnosis.engine;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -14,6 +16,7 @@ import rocks.inspectit.server.diagnosis.engine.rule.store.DefaultRuleOutputStora
 import rocks.inspectit.server.diagnosis.engine.session.DefaultSessionResult;
 import rocks.inspectit.server.diagnosis.engine.session.DefaultSessionResultCollector;
 import rocks.inspectit.server.diagnosis.engine.session.ISessionCallback;
+import rocks.inspectit.server.diagnosis.engine.session.RuleExecutionStatistics;
 import rocks.inspectit.server.diagnosis.engine.tag.Tags;
 
 /**
@@ -56,6 +59,48 @@ public class DiagnosisEngineTest {
 		}
 	}
 
+	@Test
+	public void testEngineWithSharedWorkStealingPool() {
+
+		final List<DefaultSessionResult<String>> results = new ArrayList<>();
+		ForkJoinPool pool = new ForkJoinPool(1);
+		RuleExecutionStatistics statistics = new RuleExecutionStatistics();
+
+		DiagnosisEngineConfiguration<String, DefaultSessionResult<String>> configuration = new DiagnosisEngineConfiguration<String, DefaultSessionResult<String>>().setNumSessionWorkers(1)
+				.setExecutorService(pool).setRuleExecutorService(pool).setRuleExecutionStatistics(statistics).setRuleClasses(R1.class, R2.class, R3.class, R4.class)
+				.setStorageClass(DefaultRuleOutputStorage.class).setResultCollector(new DefaultSessionResultCollector<String>())
+				.setSessionCallback(new ISessionCallback<DefaultSessionResult<String>>() {
+					@Override
+					public void onSuccess(DefaultSessionResult<String> result) {
+						results.add(result);
+					}
+
+					@Override
+					public void onFailure(Throwable t) {
+					}
+
+				});
+
+		DiagnosisEngine<String, DefaultSessionResult<String>> diagnosisEngine = new DiagnosisEngine<>(configuration);
+
+		// one worker must execute the session and the two parallel conditional rules
+		diagnosisEngine.analyze("Trace");
+		diagnosisEngine.analyze("Trace");
+
+		try {
+			diagnosisEngine.shutdown(true);
+			Assert.assertEquals(results.size(), 2);
+			Assert.assertEquals(results.get(1).getEndTags().get("Tag3").size(), 1);
+			Assert.assertEquals(results.get(1).getEndTags().get("Tag4").size(), 1);
+
+			Map<String, Double> executionTimes = statistics.getAverageExecutionTimes();
+			Assert.assertEquals(executionTimes.size(), 4);
+			Assert.assertTrue(executionTimes.containsKey("ConditionalRule1"));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Rule
 	public static class R1 {
 
@@ -0,0 +1,71 @@
+package rocks.inspectit.server.diagnosis.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.diagnosis.service.DiagnosisServiceImpl.DiagnosisInput;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+
+/**
+ * Tests the {@link DiagnosisQueue}.
+ */
+@SuppressWarnings("PMD")
+public class DiagnosisQueueTest {
+
+	/**
+	 * Slowest invocations are taken first, equal ones in the order of arrival.
+	 */
+	@Test
+	public void slowestFirst() throws InterruptedException {
+		DiagnosisQueue queue = new DiagnosisQueue(10);
+		DiagnosisInput first = input(2000d);
+		DiagnosisInput second = input(2000d);
+		queue.offer(input(1000d));
+		queue.offer(first);
+		queue.offer(input(5000d));
+		queue.offer(second);
+
+		assertThat(queue.size(), is(4));
+		assertThat(queue.take().getInvocation().getDuration(), is(5000d));
+		assertThat(queue.take(), is(first));
+		assertThat(queue.take(), is(second));
+		assertThat(queue.take().getInvocation().getDuration(), is(1000d));
+		assertThat(queue.size(), is(0));
+		assertThat(queue.getRejectedCount(), is(0L));
+	}
+
+	/**
+	 * Full queue replaces the fastest invocation by a slower one and rejects faster ones.
+	 */
+	@Test
+	public void full() throws InterruptedException {
+		DiagnosisQueue queue = new DiagnosisQueue(2);
+		assertThat(queue.offer(input(2000d)), is(true));
+		assertThat(queue.offer(input(3000d)), is(true));
+
+		assertThat(queue.offer(input(1000d)), is(false));
+		assertThat(queue.offer(input(2000d)), is(false));
+		assertThat(queue.offer(input(4000d)), is(true));
+
+		assertThat(queue.size(), is(2));
+		assertThat(queue.getRejectedCount(), is(3L));
+		assertThat(queue.take().getInvocation().getDuration(), is(4000d));
+		assertThat(queue.take().getInvocation().getDuration(), is(3000d));
+	}
+
+	/**
+	 * Creates the input.
+	 *
+	 * @param duration
+	 *            Duration of the invocation.
+	 * @return Input.
+	 */
+	private DiagnosisInput input(double duration) {
+		InvocationSequenceData invocation = new InvocationSequenceData();
+		invocation.setDuration(duration);
+		return new DiagnosisInput(invocation, 1000d);
+	}
+
+}
@@ -6,7 +6,10 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.RETURNS_SMART_NULLS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -15,6 +18,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import javax.persistence.EntityManager;
@@ -33,7 +37,9 @@ import org.testng.annotations.Test;
 
 import rocks.inspectit.server.cache.IBuffer;
 import rocks.inspectit.server.cache.IBufferElement;
+import rocks.inspectit.server.cache.cube.AggregationCubes;
 import rocks.inspectit.server.dao.impl.TimerDataAggregator;
+import rocks.inspectit.server.diagnosis.baseline.BaselineService;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
 import rocks.inspectit.server.processor.impl.BufferInserterCmrProcessor;
 import rocks.inspectit.server.processor.impl.CacheIdGeneratorCmrProcessor;
@@ -43,8 +49,11 @@ import rocks.inspectit.server.processor.impl.InvocationModifierCmrProcessor;
 import rocks.inspectit.server.processor.impl.PersistingCmrProcessor;
 import rocks.inspectit.server.processor.impl.RecorderCmrProcessor;
 import rocks.inspectit.server.processor.impl.SqlExclusiveTimeCmrProcessor;
+import rocks.inspectit.server.processor.impl.TimeSeriesCmrProcessor;
 import rocks.inspectit.server.processor.impl.TimerDataChartingCmrProcessor;
 import rocks.inspectit.server.storage.CmrStorageManager;
+import rocks.inspectit.server.tsdb.RollupManager;
+import rocks.inspectit.server.tsdb.TimeSeriesStore;
 import rocks.inspectit.server.util.CacheIdGenerator;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.ExceptionEvent;
@@ -55,10 +64,9 @@ import rocks.inspectit.shared.all.communication.data.HttpInfo;
 import rocks.inspectit.shared.all.communication.data.HttpTimerData;
 import rocks.inspectit.shared.all.communication.data.InvocationAwareData;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.ParameterContentData;
 import rocks.inspectit.shared.all.communication.data.SqlStatementData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
-import rocks.inspectit.shared.all.storage.serializer.SerializationException;
-import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
 import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
 import rocks.inspectit.shared.cs.storage.recording.RecordingState;
@@ -90,15 +98,24 @@ public class CmrDataProcessorsTest {
 	@Mock
 	private TimerDataAggregator timerDataAggregator;
 
-	@Mock
-	private SerializationManager serializationManager;
-
 	@Mock
 	private AbstractCmrDataProcessor chainedProcessor;
 
 	@Mock
 	private EntityManager entityManager;
 
+	@Mock
+	private TimeSeriesStore timeSeriesStore;
+
+	@Mock
+	private RollupManager rollupManager;
+
+	@Mock
+	private BaselineService baselineService;
+
+	@Mock
+	private AggregationCubes aggregationCubes;
+
 	@BeforeMethod
 	public void init() {
 		MockitoAnnotations.initMocks(this);
@@ -198,6 +215,7 @@ public class CmrDataProcessorsTest {
 		IndexerCmrProcessor processor = new IndexerCmrProcessor();
 		processor.log = log;
 		processor.indexingTree = indexingTree;
+		processor.aggregationCubes = aggregationCubes;
 
 		// don't fail on null
 		processor.process((DefaultData) null, entityManager);
@@ -226,6 +244,7 @@ public class CmrDataProcessorsTest {
 		when(invocationAwareData.isOnlyFoundOutsideInvocations()).thenReturn(false);
 		processor.process(invocationAwareData, entityManager);
 		verify(indexingTree, times(1)).put(invocationAwareData);
+		verify(aggregationCubes, times(1)).add(invocationAwareData);
 
 		// survive indexing exception
 		when(indexingTree.put(indexingTree.put(invocationAwareData))).thenThrow(IndexingException.class);
@@ -283,6 +302,38 @@ public class CmrDataProcessorsTest {
 		verify(entityManager, times(1)).persist(timerData);
 	}
 
+	/**
+	 * Tests the {@link TimeSeriesCmrProcessor}.
+	 */
+	@Test
+	public void timeSeriesProcessor() {
+		TimeSeriesCmrProcessor processor = new TimeSeriesCmrProcessor();
+		processor.timeSeriesStore = timeSeriesStore;
+		processor.rollupManager = rollupManager;
+		when(timeSeriesStore.isStored(CpuInformationData.class)).thenReturn(true);
+
+		// don't fail on null
+		processor.process((DefaultData) null, entityManager);
+
+		// don't process classes not in the store
+		processor.process(new TimerData(), entityManager);
+		verify(timeSeriesStore, times(0)).add(Mockito.<DefaultData> any());
+		verifyZeroInteractions(rollupManager);
+
+		// yes for stored class
+		CpuInformationData cpuInformationData = new CpuInformationData();
+		processor.process(cpuInformationData, entityManager);
+		verify(timeSeriesStore, times(1)).add(cpuInformationData);
+		verify(rollupManager, times(1)).aggregate(cpuInformationData);
+		verifyZeroInteractions(entityManager);
+
+		// write-ahead log synced once per batch
+		verify(timeSeriesStore, times(0)).sync();
+		processor.process(Arrays.asList(new CpuInformationData(), new CpuInformationData()), entityManager);
+		verify(timeSeriesStore, times(3)).add(Mockito.<DefaultData> any());
+		verify(timeSeriesStore, times(1)).sync();
+	}
+
 	/**
 	 * Tests the {@link SqlExclusiveTimeCmrProcessor}.
 	 */
@@ -313,10 +364,10 @@ public class CmrDataProcessorsTest {
 	 * Tests the {@link TimerDataChartingCmrProcessor}.
 	 */
 	@Test
-	public void chartingProcessor() throws CloneNotSupportedException, SerializationException {
+	public void chartingProcessor() {
 		TimerDataChartingCmrProcessor processor = new TimerDataChartingCmrProcessor();
 		processor.timerDataAggregator = timerDataAggregator;
-		processor.serializationManager = serializationManager;
+		processor.rollupManager = rollupManager;
 
 		// set up entity manager for quering
 		CriteriaBuilder build = mock(CriteriaBuilder.class, RETURNS_SMART_NULLS);
@@ -337,33 +388,59 @@ public class CmrDataProcessorsTest {
 		HttpInfo originalInfo = mock(HttpInfo.class, RETURNS_SMART_NULLS);
 		HttpTimerData httpTimerData = mock(HttpTimerData.class);
 		when(httpTimerData.getHttpInfo()).thenReturn(originalInfo);
-		HttpTimerData clone = mock(HttpTimerData.class);
-		when(serializationManager.copy(Mockito.<HttpTimerData> any())).thenReturn(clone);
+		when(httpTimerData.getCount()).thenReturn(3L);
+		when(httpTimerData.getDuration()).thenReturn(30d);
+		ParameterContentData parameterContent = new ParameterContentData();
+		parameterContent.setName("name");
+		parameterContent.setContent("content");
+		parameterContent.setSignaturePosition(1);
+		when(httpTimerData.getParameterContentData()).thenReturn(Collections.singleton(parameterContent));
 		HttpInfo httpInfo = mock(HttpInfo.class);
+		when(httpInfo.getId()).thenReturn(1L);
 		when(query.getResultList()).thenReturn(Collections.singletonList(httpInfo));
+		when(entityManager.getReference(HttpInfo.class, 1L)).thenReturn(httpInfo);
 
 		// first with no charting skip
 		when(timerData.isCharting()).thenReturn(false);
 		when(httpTimerData.isCharting()).thenReturn(false);
 		processor.process(timerData, entityManager);
 		processor.process(httpTimerData, entityManager);
-		verifyZeroInteractions(timerDataAggregator, entityManager);
+		verifyZeroInteractions(timerDataAggregator, entityManager, rollupManager);
 
 		// then with charting process
 		when(timerData.isCharting()).thenReturn(true);
 		when(httpTimerData.isCharting()).thenReturn(true);
 		processor.process(timerData, entityManager);
 		processor.process(httpTimerData, entityManager);
+		processor.process(httpTimerData, entityManager);
 		// timer to aggregator
 		verify(timerDataAggregator, times(1)).processTimerData(timerData);
-		// http to entityManager
-		verify(clone, times(1)).setHttpInfo(httpInfo);
-		verify(entityManager, times(1)).persist(clone);
+		// http copies to entityManager
+		ArgumentCaptor<HttpTimerData> captor = ArgumentCaptor.forClass(HttpTimerData.class);
+		verify(entityManager, times(2)).persist(captor.capture());
+		for (HttpTimerData persisted : captor.getAllValues()) {
+			assertThat(persisted, is(not(sameInstance(httpTimerData))));
+			assertThat(persisted.getId(), is(0L));
+			assertThat(persisted.getCount(), is(3L));
+			assertThat(persisted.getDuration(), is(30d));
+			assertThat(persisted.getHttpInfo(), is(httpInfo));
+			assertThat(persisted.getParameterContentData(), hasSize(1));
+			ParameterContentData persistedContent = persisted.getParameterContentData().iterator().next();
+			assertThat(persistedContent, is(not(sameInstance(parameterContent))));
+			assertThat(persistedContent.getName(), is("name"));
+			assertThat(persistedContent.getContent(), is("content"));
+			assertThat(persistedContent.getSignaturePosition(), is(1));
+		}
+		// info queried only once
+		verify(query, times(1)).getResultList();
 		verifyNoMoreInteractions(timerDataAggregator);
+		// both to the rollups
+		verify(rollupManager, times(1)).aggregate(timerData);
+		verify(rollupManager, times(2)).aggregate(isA(HttpTimerData.class));
 
-		// correct ID set on the clone
-		verify(clone, times(1)).setId(0);
+		// original is not changed
 		verify(httpTimerData, times(0)).setId(0);
+		verify(httpTimerData, times(0)).setHttpInfo(Mockito.<HttpInfo> any());
 	}
 
 	/**
@@ -538,4 +615,23 @@ public class CmrDataProcessorsTest {
 		assertThat(exceptionSensorData.getInvocationParentsIdSet(), is(empty()));
 	}
 
+	/**
+	 * Tests the {@link BaselineCmrProcessor}.
+	 */
+	@Test
+	public void baseline() {
+		BaselineCmrProcessor processor = new BaselineCmrProcessor();
+		processor.baselineService = baselineService;
+
+		// only invocations are passed
+		processor.process(new TimerData(), entityManager);
+		verifyZeroInteractions(baselineService);
+
+		InvocationSequenceData invocation = new InvocationSequenceData();
+		processor.process(invocation, entityManager);
+		verify(baselineService, times(1)).update(invocation);
+		verifyNoMoreInteractions(baselineService);
+		verifyZeroInteractions(entityManager);
+	}
+
 }
@@ -14,6 +14,7 @@ import org.testng.annotations.Test;
 
 import rocks.inspectit.server.service.AgentStorageService;
 import rocks.inspectit.server.test.AbstractTestNGLogSupport;
+import rocks.inspectit.server.util.AgentFlowController;
 import rocks.inspectit.server.util.AgentStatusDataProvider;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
@@ -42,6 +43,9 @@ public class AgentStorageServiceTest extends AbstractTestNGLogSupport {
 	@Mock
 	private ICmrManagementService cmrManagementService;
 
+	@Mock
+	private AgentFlowController agentFlowController;
+
 	/**
 	 * Initializes the mocks.
 	 */
@@ -51,6 +55,7 @@ public class AgentStorageServiceTest extends AbstractTestNGLogSupport {
 		agentStorageService = new AgentStorageService(new ArrayBlockingQueue<SoftReference<List<? extends DefaultData>>>(1));
 		agentStorageService.platformIdentDateSaver = agentStatusDataProvider;
 		agentStorageService.cmrManagementService = cmrManagementService;
+		agentStorageService.agentFlowController = agentFlowController;
 		agentStorageService.log = LoggerFactory.getLogger(AgentStorageService.class);
 	}
 
@@ -70,6 +75,7 @@ public class AgentStorageServiceTest extends AbstractTestNGLogSupport {
 
 		Mockito.verify(agentStatusDataProvider, Mockito.times(2)).registerDataSent(1L);
 		Mockito.verify(cmrManagementService, Mockito.times(1)).addDroppedDataCount(dataList.size());
+		Mockito.verify(agentFlowController, Mockito.times(1)).registerDataDropped();
 	}
 
 	/**
@@ -85,6 +91,6 @@ public class AgentStorageServiceTest extends AbstractTestNGLogSupport {
 		agentStorageService.addDataObjects(dataList);
 
 		Mockito.verify(agentStatusDataProvider, Mockito.times(1)).registerDataSent(1L);
-		Mockito.verifyZeroInteractions(cmrManagementService);
+		Mockito.verifyZeroInteractions(cmrManagementService, agentFlowController);
 	}
 }
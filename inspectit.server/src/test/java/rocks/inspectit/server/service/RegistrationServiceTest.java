@@ -6,6 +6,7 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
@@ -15,6 +16,7 @@ import static org.mockito.Mockito.when;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -52,6 +54,7 @@ import rocks.inspectit.shared.all.cmr.model.MethodIdentToSensorType;
 import rocks.inspectit.shared.all.cmr.model.MethodSensorTypeIdent;
 import rocks.inspectit.shared.all.cmr.model.PlatformIdent;
 import rocks.inspectit.shared.all.cmr.model.PlatformSensorTypeIdent;
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 
 /**
@@ -674,4 +677,53 @@ public class RegistrationServiceTest extends AbstractTestNGLogSupport {
 		assertThat(argument.getValue().getTimestamp().getTime(), is(greaterThan(timestamp.getTime())));
 	}
 
+	/**
+	 * Tests the bulk registration of methods with their method sensor types.
+	 */
+	@Test
+	public void registerMethodIdents() {
+		long platformId = 1;
+		long methodSensorId = 50;
+		List<String> parameterTypes = Collections.emptyList();
+		MethodRegistrationData first = new MethodRegistrationData("package", "class", "first", parameterTypes, "void", 1, new long[] { methodSensorId });
+		MethodRegistrationData second = new MethodRegistrationData("package", "class", "second", parameterTypes, "void", 1, new long[0]);
+
+		PlatformIdent platformIdent = new PlatformIdent();
+		MethodSensorTypeIdent methodSensorTypeIdent = new MethodSensorTypeIdent();
+		when(platformIdentDao.load(platformId)).thenReturn(platformIdent);
+		when(methodIdentDao.findForPlatformIdAndExample(eq(platformId), (MethodIdent) anyObject())).thenReturn(Collections.<MethodIdent> emptyList());
+		when(methodSensorTypeIdentDao.load(methodSensorId)).thenReturn(methodSensorTypeIdent);
+		final Map<Long, MethodIdent> savedMethodIdents = new HashMap<Long, MethodIdent>();
+		Mockito.doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				MethodIdent methodIdent = (MethodIdent) invocation.getArguments()[0];
+				methodIdent.setId(Long.valueOf(20 + savedMethodIdents.size()));
+				savedMethodIdents.put(methodIdent.getId(), methodIdent);
+				return null;
+			}
+		}).when(methodIdentDao).saveOrUpdate((MethodIdent) anyObject());
+		when(methodIdentDao.load(anyLong())).thenAnswer(new Answer<MethodIdent>() {
+			@Override
+			public MethodIdent answer(InvocationOnMock invocation) throws Throwable {
+				return savedMethodIdents.get(invocation.getArguments()[0]);
+			}
+		});
+
+		long[] registeredIds = registrationService.registerMethodIdents(platformId, Arrays.asList(first, second));
+		assertThat(registeredIds.length, is(2));
+		assertThat(registeredIds[0], is(20L));
+		assertThat(registeredIds[1], is(21L));
+
+		ArgumentCaptor<MethodIdent> methodArgument = ArgumentCaptor.forClass(MethodIdent.class);
+		verify(methodIdentDao, times(2)).saveOrUpdate(methodArgument.capture());
+		assertThat(methodArgument.getAllValues().get(0).getMethodName(), is(equalTo("first")));
+		assertThat(methodArgument.getAllValues().get(1).getMethodName(), is(equalTo("second")));
+
+		ArgumentCaptor<MethodIdentToSensorType> mappingArgument = ArgumentCaptor.forClass(MethodIdentToSensorType.class);
+		verify(methodIdentToSensorTypeDao, times(1)).saveOrUpdate(mappingArgument.capture());
+		assertThat(mappingArgument.getValue().getMethodIdent(), is(equalTo(methodArgument.getAllValues().get(0))));
+		assertThat(mappingArgument.getValue().getMethodSensorTypeIdent(), is(equalTo(methodSensorTypeIdent)));
+	}
+
 }
@@ -1,6 +1,7 @@
 package rocks.inspectit.server.storage;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -18,11 +19,17 @@ import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -30,6 +37,7 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.AfterTest;
 import org.testng.annotations.BeforeMethod;
@@ -37,19 +45,29 @@ import org.testng.annotations.Test;
 
 import rocks.inspectit.server.cache.IBuffer;
 import rocks.inspectit.server.dao.StorageDataDao;
+import rocks.inspectit.server.dao.impl.StorageDataDaoImpl;
 import rocks.inspectit.server.storage.CmrStorageManager;
 import rocks.inspectit.server.storage.CmrStorageRecorder;
 import rocks.inspectit.server.storage.CmrStorageWriter;
 import rocks.inspectit.server.storage.CmrStorageWriterProvider;
 import rocks.inspectit.server.test.AbstractTestNGLogSupport;
+import rocks.inspectit.server.tsdb.TimeSeriesStore;
 import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.JmxSensorValueData;
+import rocks.inspectit.shared.all.communication.data.SystemInformationData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
 import rocks.inspectit.shared.all.exception.BusinessException;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
 import rocks.inspectit.shared.all.storage.serializer.SerializationException;
 import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
 import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
 import rocks.inspectit.shared.all.version.VersionService;
 import rocks.inspectit.shared.cs.cmr.service.IServerStatusService;
 import rocks.inspectit.shared.cs.communication.data.cmr.WritingStatus;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+import rocks.inspectit.shared.cs.indexing.impl.IndexQuery;
+import rocks.inspectit.shared.cs.indexing.query.provider.impl.IndexQueryProvider;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageManager;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
@@ -411,6 +429,55 @@ public class CmrStorageManagerTest extends AbstractTestNGLogSupport {
 		assertThat(storageManager.isStorageClosed(storageData), is(true));
 	}
 
+	/**
+	 * Tests that the copy buffer action writes the platform sensor and JMX data from the time
+	 * series store to the storage together with the buffer data.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void copyBufferToStorageWithPlatformData() throws Exception {
+		storageData = new StorageData();
+		storageData.setName("Test");
+
+		DefaultData oldestData = new TimerData();
+		oldestData.setTimeStamp(new Timestamp(1000L));
+		when(buffer.getOldestElement()).thenReturn(oldestData);
+
+		long platformId = 10L;
+		TimerData timerData = new TimerData();
+		timerData.setPlatformIdent(platformId);
+		CpuInformationData cpuInformationData = new CpuInformationData();
+		cpuInformationData.setPlatformIdent(platformId);
+		JmxSensorValueData jmxSensorValueData = new JmxSensorValueData();
+		jmxSensorValueData.setPlatformIdent(platformId);
+
+		IndexQueryProvider indexQueryProvider = mock(IndexQueryProvider.class);
+		when(indexQueryProvider.createNewIndexQuery()).thenReturn(new IndexQuery());
+		IBufferTreeComponent<DefaultData> indexingTree = mock(IBufferTreeComponent.class);
+		when(indexingTree.query(Mockito.<IIndexQuery> any())).thenReturn(new ArrayList<DefaultData>(Collections.singletonList(timerData)));
+		TimeSeriesStore timeSeriesStore = mock(TimeSeriesStore.class);
+		when(timeSeriesStore.getPlatformData(eq(platformId), eq(new Date(1000L)), Mockito.<Date> any())).thenReturn(Arrays.<DefaultData> asList(cpuInformationData, jmxSensorValueData));
+		EntityManager entityManager = mock(EntityManager.class);
+		Query query = mock(Query.class);
+		when(entityManager.createNamedQuery(SystemInformationData.FIND_LATEST_FOR_PLATFORM_IDS)).thenReturn(query);
+		when(query.getResultList()).thenReturn(Collections.emptyList());
+
+		StorageDataDaoImpl storageDataDaoImpl = new StorageDataDaoImpl(mock(PlatformTransactionManager.class));
+		setField(storageDataDaoImpl, "indexQueryProvider", indexQueryProvider);
+		setField(storageDataDaoImpl, "indexingTree", indexingTree);
+		setField(storageDataDaoImpl, "timeSeriesStore", timeSeriesStore);
+		setField(storageDataDaoImpl, "entityManager", entityManager);
+		storageManager.storageDataDao = storageDataDaoImpl;
+		storageManager = spy(storageManager);
+
+		Collection<AbstractDataProcessor> processors = Collections.singleton(mock(AbstractDataProcessor.class));
+		storageManager.copyBufferToStorage(storageData, Collections.singletonList(platformId), processors, false);
+
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(storageManager, times(1)).writeToStorage(eq(storageData), captor.capture(), eq(processors), eq(true));
+		assertThat((List<DefaultData>) captor.getValue(), containsInAnyOrder((DefaultData) timerData, cpuInformationData, jmxSensorValueData));
+	}
+
 	/**
 	 * Tests copy data to storage action.
 	 */
@@ -438,6 +505,22 @@ public class CmrStorageManagerTest extends AbstractTestNGLogSupport {
 		assertThat(storageManager.isStorageClosed(storageData), is(true));
 	}
 
+	/**
+	 * Sets the private field of the object.
+	 * 
+	 * @param object
+	 *            Object.
+	 * @param name
+	 *            Name of the field.
+	 * @param value
+	 *            Value to set.
+	 */
+	private void setField(Object object, String name, Object value) throws Exception {
+		Field field = object.getClass().getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(object, value);
+	}
+
 	/**
 	 * After processing to delete storage that might be created in the test.
 	 */
@@ -0,0 +1,263 @@
+package rocks.inspectit.server.tsdb;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.CompilationInformationData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.JmxSensorValueData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+/**
+ * Tests the {@link RollupManager}.
+ */
+@SuppressWarnings("PMD")
+public class RollupManagerTest {
+
+	/**
+	 * Start time of the samples.
+	 */
+	private static final long START = 1451606400000L;
+
+	/**
+	 * Folder of the store.
+	 */
+	private Path folder;
+
+	/**
+	 * Store holding the rollups.
+	 */
+	private TimeSeriesStore store;
+
+	/**
+	 * Class under test.
+	 */
+	private RollupManager rollupManager;
+
+	/**
+	 * Creates the store in a new folder.
+	 * 
+	 * @throws IOException
+	 *             If the folder can not be created.
+	 */
+	@BeforeMethod
+	public void init() throws IOException {
+		folder = Files.createTempDirectory("timeseries");
+		store = new TimeSeriesStore();
+		store.log = LoggerFactory.getLogger(TimeSeriesStore.class);
+		store.folder = folder.toString();
+		store.postConstruct();
+
+		rollupManager = new RollupManager(mock(PlatformTransactionManager.class));
+		rollupManager.log = LoggerFactory.getLogger(RollupManager.class);
+		rollupManager.timeSeriesStore = store;
+		rollupManager.chartPoints = 1000;
+	}
+
+	/**
+	 * Closes the store and removes the folder.
+	 * 
+	 * @throws IOException
+	 *             If the folder can not be removed.
+	 */
+	@AfterMethod
+	public void cleanUp() throws IOException {
+		store.preDestroy();
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Only the data classes of the store are rolled up.
+	 */
+	@Test
+	public void rolledUp() {
+		assertThat(rollupManager.isRolledUp(TimerData.class), is(true));
+		assertThat(rollupManager.isRolledUp(CpuInformationData.class), is(true));
+		assertThat(rollupManager.isRolledUp(SqlStatementData.class), is(false));
+		assertThat(rollupManager.selectTier(SqlStatementData.class, new Date(0), new Date(START)), is(RollupTier.RAW));
+		assertThat(rollupManager.selectTier(TimerData.class, new Date(0), new Date(START)), is(RollupTier.ONE_HOUR));
+	}
+
+	/**
+	 * Timer data is aggregated per period, the open period is written when flushed.
+	 */
+	@Test
+	public void timerData() {
+		for (int i = 0; i < 180; i++) {
+			rollupManager.aggregate(timer(i * 1000, 10d + i));
+		}
+		TimerData timerData = timer(0, 5d);
+
+		List<DefaultData> minutes = rollupManager.getRollupData(timerData, RollupTier.ONE_MINUTE, true, new Date(START), new Date(START + 180000L));
+		assertThat(minutes, hasSize(2));
+		assertThat(((TimerData) minutes.get(0)).getCount(), is(60L));
+		assertThat(((TimerData) minutes.get(0)).getMin(), is(10d));
+		assertThat(((TimerData) minutes.get(0)).getMax(), is(69d));
+		assertThat(((TimerData) minutes.get(1)).getTimeStamp().getTime(), is(START + 60000L));
+		assertThat(((TimerData) minutes.get(1)).getMethodIdent(), is(4L));
+		assertThat(rollupManager.getRollupData(timerData, RollupTier.ONE_HOUR, true, new Date(START), new Date(START + 180000L)), is(empty()));
+
+		rollupManager.flush(START + 180000L);
+
+		minutes = rollupManager.getRollupData(timerData, RollupTier.ONE_MINUTE, true, new Date(START), new Date(START + 180000L));
+		assertThat(minutes, hasSize(3));
+		assertThat(rollupManager.getRollupData(timerData, RollupTier.ONE_HOUR, true, new Date(START), new Date(START + 180000L)), is(empty()));
+
+		rollupManager.flush(START + 3600000L);
+
+		List<DefaultData> hours = rollupManager.getRollupData(timerData, RollupTier.ONE_HOUR, true, new Date(START), new Date(START + 180000L));
+		assertThat(hours, hasSize(1));
+		assertThat(((TimerData) hours.get(0)).getCount(), is(180L));
+		assertThat(((TimerData) hours.get(0)).getDuration(), is(180 * 10d + ((179 * 180) / 2)));
+		assertThat(((TimerData) hours.get(0)).getTimeStamp().getTime(), is(START));
+	}
+
+	/**
+	 * Samples arriving after their period was written are merged when read.
+	 */
+	@Test
+	public void lateData() {
+		rollupManager.aggregate(timer(1000, 10d));
+		rollupManager.aggregate(timer(61000, 20d));
+		rollupManager.aggregate(timer(2000, 30d));
+		rollupManager.flush(START + 120000L);
+
+		List<DefaultData> minutes = rollupManager.getRollupData(timer(0, 0d), RollupTier.ONE_MINUTE, true, new Date(START), new Date(START + 120000L));
+		assertThat(minutes, hasSize(2));
+		assertThat(((TimerData) minutes.get(0)).getCount(), is(2L));
+		assertThat(((TimerData) minutes.get(0)).getMax(), is(30d));
+		assertThat(((TimerData) minutes.get(1)).getCount(), is(1L));
+	}
+
+	/**
+	 * Platform sensor and JMX data is aggregated, other data keeps the last sample.
+	 */
+	@Test
+	public void sensorData() {
+		for (int i = 0; i < 60; i++) {
+			CpuInformationData cpu = new CpuInformationData();
+			cpu.setPlatformIdent(1L);
+			cpu.setSensorTypeIdent(2L);
+			cpu.setTimeStamp(new Timestamp(START + (i * 1000L)));
+			cpu.setCount(1);
+			cpu.setMinCpuUsage(i);
+			cpu.setMaxCpuUsage(i);
+			cpu.setTotalCpuUsage(i);
+			rollupManager.aggregate(cpu);
+
+			JmxSensorValueData jmx = new JmxSensorValueData(5L, String.valueOf(i), new Timestamp(START + (i * 1000L)), 1L, 3L);
+			rollupManager.aggregate(jmx);
+
+			CompilationInformationData compilation = new CompilationInformationData(new Timestamp(START + (i * 1000L)), 1L, 4L);
+			compilation.setTotalTotalCompilationTime(i);
+			rollupManager.aggregate(compilation);
+		}
+		rollupManager.flush(START + 60000L);
+
+		Date to = new Date(START + 60000L);
+		List<DefaultData> cpu = rollupManager.getRollupData(new CpuInformationData(null, 1L, 2L), RollupTier.ONE_MINUTE, true, new Date(START), to);
+		assertThat(cpu, hasSize(1));
+		assertThat(((CpuInformationData) cpu.get(0)).getCount(), is(60));
+		assertThat(((CpuInformationData) cpu.get(0)).getMinCpuUsage(), is(0f));
+		assertThat(((CpuInformationData) cpu.get(0)).getMaxCpuUsage(), is(59f));
+
+		List<DefaultData> jmx = rollupManager.getRollupData(new JmxSensorValueData(5L, "0", null, 1L, 3L), RollupTier.ONE_MINUTE, true, new Date(START), to);
+		assertThat(jmx, hasSize(1));
+		assertThat(((JmxSensorValueData) jmx.get(0)).getValue(), is("59"));
+		assertThat(((JmxSensorValueData) jmx.get(0)).getMaxValue(), is(59d));
+		assertThat(((JmxSensorValueData) jmx.get(0)).getAverageValue(), is(29.5d));
+
+		List<DefaultData> compilation = rollupManager.getRollupData(new CompilationInformationData(null, 1L, 4L), RollupTier.ONE_MINUTE, true, new Date(START), to);
+		assertThat(compilation, hasSize(1));
+		assertThat(((CompilationInformationData) compilation.get(0)).getTotalTotalCompilationTime(), is(59L));
+	}
+
+	/**
+	 * Finest tier holding the rollups is read.
+	 */
+	@Test
+	public void finestRollupData() {
+		for (int i = 0; i < 180; i++) {
+			rollupManager.aggregate(timer(i * 1000, 10d + i));
+		}
+		rollupManager.flush(START + 3600000L);
+
+		Date to = new Date(START + 180000L);
+		List<DefaultData> rollups = rollupManager.getFinestRollupData(timer(0, 0d), true, new Date(START), to);
+		assertThat(rollups, hasSize(3));
+		assertThat(((TimerData) rollups.get(0)).getCount(), is(60L));
+		assertThat(rollupManager.getFinestRollupData(timer(0, 0d), true, new Date(START + 3600000L), new Date(START + 7200000L)), is(empty()));
+		assertThat(rollupManager.getFinestRollupData(new SqlStatementData(), true, new Date(START), to), is(empty()));
+	}
+
+	/**
+	 * Raw data is retired only for the rolled up classes and ranges older than the retention.
+	 */
+	@Test
+	public void rawDataRetired() {
+		Date old = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2));
+		Date recent = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+
+		rollupManager.rawDataRetentionDays = 0;
+		assertThat(rollupManager.isRawDataRetired(TimerData.class, old), is(false));
+
+		rollupManager.rawDataRetentionDays = 1;
+		assertThat(rollupManager.isRawDataRetired(TimerData.class, old), is(true));
+		assertThat(rollupManager.isRawDataRetired(TimerData.class, recent), is(false));
+		assertThat(rollupManager.isRawDataRetired(SqlStatementData.class, old), is(false));
+	}
+
+	/**
+	 * Creates the timer sample.
+	 * 
+	 * @param millis
+	 *            Milliseconds after the {@link #START}.
+	 * @param duration
+	 *            Duration.
+	 * @return Sample.
+	 */
+	private TimerData timer(long millis, double duration) {
+		TimerData data = new TimerData(new Timestamp(START + millis), 1L, 2L, 4L);
+		data.setCharting(true);
+		data.setCount(1L);
+		data.setDuration(duration);
+		data.calculateMin(duration);
+		data.calculateMax(duration);
+		return data;
+	}
+
+}
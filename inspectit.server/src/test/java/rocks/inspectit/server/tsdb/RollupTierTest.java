@@ -0,0 +1,52 @@
+package rocks.inspectit.server.tsdb;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link RollupTier}.
+ */
+@SuppressWarnings("PMD")
+public class RollupTierTest {
+
+	/**
+	 * Coarsest tier that still has the wanted number of points is selected.
+	 */
+	@Test
+	public void select() {
+		assertThat(RollupTier.select(0, TimeUnit.HOURS.toMillis(1), 1000), is(RollupTier.RAW));
+		assertThat(RollupTier.select(0, TimeUnit.DAYS.toMillis(1), 2000), is(RollupTier.RAW));
+		assertThat(RollupTier.select(0, TimeUnit.DAYS.toMillis(1), 1440), is(RollupTier.ONE_MINUTE));
+		assertThat(RollupTier.select(0, TimeUnit.DAYS.toMillis(7), 1000), is(RollupTier.ONE_MINUTE));
+		assertThat(RollupTier.select(0, TimeUnit.DAYS.toMillis(7), 672), is(RollupTier.FIFTEEN_MINUTES));
+		assertThat(RollupTier.select(0, TimeUnit.DAYS.toMillis(30), 1000), is(RollupTier.FIFTEEN_MINUTES));
+		assertThat(RollupTier.select(0, TimeUnit.DAYS.toMillis(30), 500), is(RollupTier.ONE_HOUR));
+		assertThat(RollupTier.select(0, TimeUnit.DAYS.toMillis(365), 1000), is(RollupTier.ONE_HOUR));
+	}
+
+	/**
+	 * Raw data is read when no points are set.
+	 */
+	@Test
+	public void selectNoPoints() {
+		assertThat(RollupTier.select(0, TimeUnit.DAYS.toMillis(365), 0), is(RollupTier.RAW));
+	}
+
+	/**
+	 * Periods are aligned to the tier.
+	 */
+	@Test
+	public void periodStart() {
+		long timestamp = TimeUnit.HOURS.toMillis(5) + TimeUnit.MINUTES.toMillis(17) + 1234L;
+
+		assertThat(RollupTier.RAW.getPeriodStart(timestamp), is(timestamp));
+		assertThat(RollupTier.ONE_MINUTE.getPeriodStart(timestamp), is(TimeUnit.HOURS.toMillis(5) + TimeUnit.MINUTES.toMillis(17)));
+		assertThat(RollupTier.FIFTEEN_MINUTES.getPeriodStart(timestamp), is(TimeUnit.HOURS.toMillis(5) + TimeUnit.MINUTES.toMillis(15)));
+		assertThat(RollupTier.ONE_HOUR.getPeriodStart(timestamp), is(TimeUnit.HOURS.toMillis(5)));
+	}
+
+}
@@ -0,0 +1,149 @@
+package rocks.inspectit.server.tsdb;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link TimeSeriesCodec}.
+ */
+@SuppressWarnings("PMD")
+public class TimeSeriesCodecTest {
+
+	/**
+	 * Regular time stamps need one bit per sample after the first two.
+	 */
+	@Test
+	public void deltaOfDeltaRegular() {
+		long[] values = new long[100];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = 1451606400000L + (i * 5000L);
+		}
+
+		BitWriter writer = new BitWriter(16);
+		TimeSeriesCodec.writeDeltaOfDelta(writer, values, values.length);
+
+		assertThat(writer.getByteLength(), is(lessThan(32)));
+		assertThat(readDeltaOfDelta(writer, values.length), is(equalTo(values)));
+	}
+
+	/**
+	 * Jitter and large jumps of all sizes are decoded correctly.
+	 */
+	@Test
+	public void deltaOfDeltaIrregular() {
+		Random random = new Random(1);
+		long[] values = new long[1000];
+		values[0] = Long.MIN_VALUE;
+		values[1] = Long.MAX_VALUE;
+		for (int i = 2; i < values.length; i++) {
+			int bucket = random.nextInt(5);
+			switch (bucket) {
+			case 0:
+				values[i] = values[i - 1] + random.nextInt(100);
+				break;
+			case 1:
+				values[i] = values[i - 1] - random.nextInt(1000);
+				break;
+			case 2:
+				values[i] = values[i - 1] + random.nextInt(1 << 20);
+				break;
+			case 3:
+				values[i] = values[i - 1] + random.nextInt();
+				break;
+			default:
+				values[i] = random.nextLong();
+				break;
+			}
+		}
+
+		BitWriter writer = new BitWriter(16);
+		TimeSeriesCodec.writeDeltaOfDelta(writer, values, values.length);
+
+		assertThat(readDeltaOfDelta(writer, values.length), is(equalTo(values)));
+	}
+
+	/**
+	 * Double and float values are decoded bit exact.
+	 */
+	@Test
+	public void xor() {
+		Random random = new Random(2);
+		long[] values = new long[1000];
+		for (int i = 0; i < values.length; i++) {
+			if (i % 10 == 0) {
+				values[i] = Double.doubleToRawLongBits(Double.NaN);
+			} else if (i % 3 == 0) {
+				values[i] = values[i - 1];
+			} else if (i % 2 == 0) {
+				values[i] = Float.floatToRawIntBits(random.nextFloat() * 100) & 0xFFFFFFFFL;
+			} else {
+				values[i] = Double.doubleToRawLongBits(random.nextDouble() * 1000000);
+			}
+		}
+
+		BitWriter writer = new BitWriter(16);
+		TimeSeriesCodec.writeXor(writer, values, values.length);
+
+		long[] read = new long[values.length];
+		TimeSeriesCodec.readXor(new BitReader(ByteBuffer.wrap(writer.toByteArray())), read, read.length);
+		assertThat(read, is(equalTo(values)));
+	}
+
+	/**
+	 * Constant values need one bit per sample after the first one.
+	 */
+	@Test
+	public void xorConstant() {
+		long[] values = new long[256];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Double.doubleToRawLongBits(42.5d);
+		}
+
+		BitWriter writer = new BitWriter(16);
+		TimeSeriesCodec.writeXor(writer, values, values.length);
+
+		assertThat(writer.getByteLength(), is(lessThan(8 + 33)));
+	}
+
+	/**
+	 * Strings including <code>null</code> are decoded correctly.
+	 */
+	@Test
+	public void dictionary() {
+		String[] values = new String[] { "a", "a", null, "b", "\u00fc\u00df", "a", null, null, "" };
+
+		BitWriter writer = new BitWriter(16);
+		TimeSeriesCodec.writeDictionary(writer, values, values.length);
+		// make sure following data is read correctly
+		writer.writeBits(0x5L, 3);
+
+		BitReader reader = new BitReader(ByteBuffer.wrap(writer.toByteArray()));
+		String[] read = new String[values.length];
+		TimeSeriesCodec.readDictionary(reader, read, read.length);
+		assertThat(read, is(equalTo(values)));
+		assertThat(reader.readBits(3), is(0x5L));
+	}
+
+	/**
+	 * Reads the delta of delta encoded values from the writer.
+	 * 
+	 * @param writer
+	 *            Writer.
+	 * @param count
+	 *            Number of values.
+	 * @return Values.
+	 */
+	private long[] readDeltaOfDelta(BitWriter writer, int count) {
+		long[] read = new long[count];
+		TimeSeriesCodec.readDeltaOfDelta(new BitReader(ByteBuffer.wrap(writer.toByteArray())), read, count);
+		return read;
+	}
+
+}
@@ -0,0 +1,385 @@
+package rocks.inspectit.server.tsdb;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.JmxSensorValueData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+/**
+ * Tests the {@link TimeSeriesStore}.
+ */
+@SuppressWarnings("PMD")
+public class TimeSeriesStoreTest {
+
+	/**
+	 * Start time of the samples.
+	 */
+	private static final long START = 1451606400000L;
+
+	/**
+	 * Folder of the store.
+	 */
+	private Path folder;
+
+	/**
+	 * Class under test.
+	 */
+	private TimeSeriesStore store;
+
+	/**
+	 * Creates the store in a new folder.
+	 * 
+	 * @throws IOException
+	 *             If the folder can not be created.
+	 */
+	@BeforeMethod
+	public void init() throws IOException {
+		folder = Files.createTempDirectory("timeseries");
+		store = createStore();
+	}
+
+	/**
+	 * Closes the store and removes the folder.
+	 * 
+	 * @throws IOException
+	 *             If the folder can not be removed.
+	 */
+	@AfterMethod
+	public void cleanUp() throws IOException {
+		store.preDestroy();
+		delete(folder);
+	}
+
+	/**
+	 * Deletes the folder with all files.
+	 * 
+	 * @param path
+	 *            Folder to delete.
+	 * @throws IOException
+	 *             If the folder can not be removed.
+	 */
+	private void delete(Path path) throws IOException {
+		Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Only the platform sensor and JMX data is stored.
+	 */
+	@Test
+	public void stored() {
+		assertThat(store.isStored(CpuInformationData.class), is(true));
+		assertThat(store.isStored(JmxSensorValueData.class), is(true));
+		assertThat(store.isStored(DefaultData.class), is(false));
+		assertThat(store.isStored(TimerData.class), is(false));
+	}
+
+	/**
+	 * Range query returns the samples of the sealed and the open chunks.
+	 */
+	@Test
+	public void fromToDate() {
+		for (int i = 0; i < 600; i++) {
+			store.add(cpu(1L, i));
+		}
+		store.add(cpu(2L, 150));
+
+		List<DefaultData> result = store.getDataFromToDate(cpu(1L, 0), new Date(START + 100000L), new Date(START + 599000L));
+
+		assertThat(result, hasSize(500));
+		long lastId = 0;
+		for (int i = 0; i < result.size(); i++) {
+			CpuInformationData data = (CpuInformationData) result.get(i);
+			assertThat(data.getPlatformIdent(), is(1L));
+			assertThat(data.getSensorTypeIdent(), is(2L));
+			assertThat(data.getTimeStamp().getTime(), is(START + ((100 + i) * 1000L)));
+			assertThat(data.getTotalCpuUsage(), is((100 + i) / 4f));
+			assertThat(data.getCount(), is(100 + i));
+			assertThat(data.getId(), is(greaterThan(lastId)));
+			lastId = data.getId();
+		}
+	}
+
+	/**
+	 * Query returns only the samples with larger id.
+	 */
+	@Test
+	public void sinceId() {
+		for (int i = 0; i < 300; i++) {
+			store.add(cpu(1L, i));
+		}
+		CpuInformationData template = cpu(1L, 0);
+		template.setId(250L);
+
+		List<DefaultData> result = store.getDataSinceId(template, true);
+
+		assertThat(result, hasSize(50));
+		assertThat(result.get(0).getId(), is(251L));
+	}
+
+	/**
+	 * Samples are read from the segment files after the store is opened again.
+	 * 
+	 * @throws IOException
+	 *             If the store can not be opened.
+	 */
+	@Test
+	public void reopen() throws IOException {
+		// two partitions
+		for (int i = 0; i < 300; i++) {
+			store.add(cpu(1L, i * 1000));
+		}
+		store.preDestroy();
+		store = createStore();
+
+		List<DefaultData> result = store.getDataFromToDate(cpu(1L, 0), new Date(START), new Date(START + 300000000L));
+		assertThat(result, hasSize(300));
+		assertThat(((CpuInformationData) result.get(299)).getCount(), is(299000));
+		assertThat(store.getDiskSize(), is(greaterThan(0L)));
+
+		CpuInformationData data = cpu(1L, 300000);
+		store.add(data);
+		assertThat(data.getId(), is(greaterThan(result.get(299).getId())));
+		assertThat(store.getLastData(cpu(1L, 0)).getId(), is(data.getId()));
+	}
+
+	/**
+	 * Samples of the open chunks are restored from the write-ahead log when the store was not
+	 * flushed before the CMR stopped.
+	 * 
+	 * @throws IOException
+	 *             If the store can not be opened.
+	 */
+	@Test
+	public void restoreFromWriteAheadLog() throws IOException {
+		// one sealed and one open chunk
+		for (int i = 0; i < 300; i++) {
+			store.add(cpu(1L, i));
+		}
+		store.sync();
+		Path writeAheadLog = folder.resolve(RollupTier.RAW.getFolderName()).resolve(TimeSeriesStore.WRITE_AHEAD_LOG_FILE_NAME);
+		assertThat(Files.size(writeAheadLog), is(greaterThan(0L)));
+
+		// copy of the folder is the state after a crash
+		final Path crashedFolder = Files.createTempDirectory("timeseries");
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Files.createDirectories(crashedFolder.resolve(folder.relativize(dir)));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.copy(file, crashedFolder.resolve(folder.relativize(file)));
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		store.preDestroy();
+		delete(folder);
+		folder = crashedFolder;
+		store = createStore();
+
+		List<DefaultData> result = store.getDataFromToDate(cpu(1L, 0), new Date(START), new Date(START + 300000L));
+		assertThat(result, hasSize(300));
+		assertThat(result.get(299).getId(), is(300L));
+		assertThat(((CpuInformationData) result.get(299)).getCount(), is(299));
+		assertThat(Files.size(folder.resolve(RollupTier.RAW.getFolderName()).resolve(TimeSeriesStore.WRITE_AHEAD_LOG_FILE_NAME)), is(0L));
+
+		CpuInformationData data = cpu(1L, 300);
+		store.add(data);
+		assertThat(data.getId(), is(301L));
+
+		// restored samples were written to the segment files
+		store.preDestroy();
+		store = createStore();
+		assertThat(store.getDataFromToDate(cpu(1L, 0), new Date(START), new Date(START + 300000L)), hasSize(301));
+	}
+
+	/**
+	 * Ids reserved for the samples saved elsewhere are not assigned.
+	 */
+	@Test
+	public void reserveIds() {
+		store.reserveIds(1000L);
+		store.reserveIds(10L);
+
+		CpuInformationData data = cpu(1L, 0);
+		store.add(data);
+
+		assertThat(data.getId(), is(1001L));
+	}
+
+	/**
+	 * Overview returns the last sample of every JMX definition.
+	 */
+	@Test
+	public void jmxDataOverview() {
+		for (int i = 0; i < 300; i++) {
+			store.add(jmx(i % 3, i, String.valueOf(i)));
+		}
+		store.flush();
+
+		List<String> values = new ArrayList<String>();
+		for (JmxSensorValueData data : store.getJmxDataOverview(jmx(0, 0, null), null, null)) {
+			values.add(data.getValue());
+		}
+		assertThat(values, hasSize(3));
+		assertThat(values.contains("297") && values.contains("298") && values.contains("299"), is(true));
+
+		List<JmxSensorValueData> result = store.getJmxDataOverview(jmx(1, 0, null), new Date(START), new Date(START + 100000L));
+		assertThat(result, hasSize(1));
+		assertThat(result.get(0).getValue(), is("100"));
+		assertThat(result.get(0).getJmxSensorDefinitionDataIdentId(), is(1L));
+	}
+
+	/**
+	 * Samples of deleted platform are not returned, also not after the store is opened again.
+	 * 
+	 * @throws IOException
+	 *             If the store can not be opened.
+	 */
+	@Test
+	public void deletePlatform() throws IOException {
+		for (int i = 0; i < 300; i++) {
+			store.add(cpu(1L, i));
+			store.add(cpu(2L, i));
+		}
+
+		store.deletePlatform(1L);
+
+		assertThat(store.getLastData(cpu(1L, 0)), is(nullValue()));
+		store.preDestroy();
+		store = createStore();
+		assertThat(store.getLastData(cpu(1L, 0)), is(nullValue()));
+		assertThat(store.getDataSinceId(cpu(1L, 0), false), is(empty()));
+		assertThat(store.getDataSinceId(cpu(2L, 0), false), hasSize(300));
+
+		CpuInformationData data = cpu(1L, 0);
+		store.add(data);
+		assertThat(store.getDataSinceId(cpu(1L, 0), false), contains((DefaultData) data));
+	}
+
+	/**
+	 * Retired raw partitions are removed, the rollups are kept.
+	 * 
+	 * @throws IOException
+	 *             If the store can not be opened.
+	 */
+	@Test
+	public void deletePartitionsBefore() throws IOException {
+		long day = RollupTier.RAW.getPartitionDuration() / 1000L;
+		for (int i = 0; i < 3; i++) {
+			CpuInformationData data = cpu(1L, (int) (i * day));
+			store.add(data);
+			store.add(SeriesKey.of(data, RollupTier.ONE_HOUR), cpu(1L, (int) (i * day)));
+		}
+		store.flush();
+
+		int retired = store.deletePartitionsBefore(RollupTier.RAW, START + (2 * day * 1000L));
+
+		assertThat(retired, is(2));
+		Date to = new Date(START + (3 * day * 1000L));
+		assertThat(store.getDataFromToDate(cpu(1L, 0), new Date(START), to), hasSize(1));
+		assertThat(store.getRollupData(cpu(1L, 0), RollupTier.ONE_HOUR, true, new Date(START), to), hasSize(3));
+
+		store.preDestroy();
+		store = createStore();
+		assertThat(store.getDataFromToDate(cpu(1L, 0), new Date(START), to), hasSize(1));
+		assertThat(store.getRollupData(cpu(1L, 0), RollupTier.ONE_HOUR, true, new Date(START), to), hasSize(3));
+	}
+
+	/**
+	 * Creates and opens the store in the {@link #folder}.
+	 * 
+	 * @return Store.
+	 * @throws IOException
+	 *             If the store can not be opened.
+	 */
+	private TimeSeriesStore createStore() throws IOException {
+		TimeSeriesStore timeSeriesStore = new TimeSeriesStore();
+		timeSeriesStore.log = LoggerFactory.getLogger(TimeSeriesStore.class);
+		timeSeriesStore.folder = folder.toString();
+		timeSeriesStore.postConstruct();
+		return timeSeriesStore;
+	}
+
+	/**
+	 * Creates the CPU sample.
+	 * 
+	 * @param platformIdent
+	 *            Platform ident.
+	 * @param second
+	 *            Second after the {@link #START}.
+	 * @return Sample.
+	 */
+	private CpuInformationData cpu(long platformIdent, int second) {
+		CpuInformationData data = new CpuInformationData();
+		data.setPlatformIdent(platformIdent);
+		data.setSensorTypeIdent(2L);
+		data.setTimeStamp(new Timestamp(START + (second * 1000L)));
+		data.setCount(second);
+		data.setTotalCpuUsage(second / 4f);
+		return data;
+	}
+
+	/**
+	 * Creates the JMX sample.
+	 * 
+	 * @param definitionId
+	 *            Definition id.
+	 * @param second
+	 *            Second after the {@link #START}.
+	 * @param value
+	 *            Value, <code>null</code> for the query templates.
+	 * @return Sample.
+	 */
+	private JmxSensorValueData jmx(long definitionId, int second, String value) {
+		JmxSensorValueData data = new JmxSensorValueData();
+		data.setPlatformIdent(1L);
+		data.setSensorTypeIdent(3L);
+		data.setJmxSensorDefinitionDataIdentId(definitionId);
+		data.setTimeStamp(new Timestamp(START + (second * 1000L)));
+		// setting the null value fails on the numeric check
+		if (null != value) {
+			data.setValue(value);
+		}
+		return data;
+	}
+
+}
@@ -0,0 +1,101 @@
+package rocks.inspectit.server.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link AgentFlowController}.
+ */
+@SuppressWarnings("PMD")
+public class AgentFlowControllerTest {
+
+	/**
+	 * Class under test.
+	 */
+	private AgentFlowController agentFlowController;
+
+	/**
+	 * Queue with capacity of 10.
+	 */
+	private ArrayBlockingQueue<Object> queue;
+
+	/**
+	 * Init method.
+	 */
+	@BeforeMethod
+	public void init() {
+		agentFlowController = new AgentFlowController();
+		agentFlowController.maxSendingDelay = 1000L;
+		queue = new ArrayBlockingQueue<Object>(10);
+	}
+
+	/**
+	 * No delay when no queue is registered.
+	 */
+	@Test
+	public void noQueue() {
+		assertThat(agentFlowController.getSendingDelay(), is(0L));
+		assertThat(agentFlowController.getThrottleCount(), is(0L));
+	}
+
+	/**
+	 * No delay until the throttle occupancy is reached.
+	 */
+	@Test
+	public void noDelayBelowThrottleOccupancy() {
+		agentFlowController.registerIngestionQueue(queue);
+		fillQueue(5);
+
+		assertThat(agentFlowController.getSendingDelay(), is(0L));
+		assertThat(agentFlowController.getThrottleCount(), is(0L));
+	}
+
+	/**
+	 * Delay grows with the occupancy of the queue.
+	 */
+	@Test
+	public void delayGrowsWithOccupancy() {
+		agentFlowController.registerIngestionQueue(queue);
+
+		fillQueue(6);
+		long delay = agentFlowController.getSendingDelay();
+		assertThat(delay, is(greaterThan(0L)));
+		assertThat(delay, is(lessThan(1000L)));
+
+		fillQueue(4);
+		assertThat(agentFlowController.getSendingDelay(), is(1000L));
+		assertThat(agentFlowController.getThrottleCount(), is(2L));
+	}
+
+	/**
+	 * Maximum delay after the data has been dropped.
+	 */
+	@Test
+	public void maxDelayAfterDrop() {
+		agentFlowController.registerIngestionQueue(queue);
+		agentFlowController.registerDataDropped();
+
+		assertThat(agentFlowController.getSendingDelay(), is(1000L));
+		assertThat(agentFlowController.getThrottleCount(), is(1L));
+	}
+
+	/**
+	 * Adds elements to the queue.
+	 * 
+	 * @param count
+	 *            Number of elements to add.
+	 */
+	private void fillQueue(int count) {
+		for (int i = 0; i < count; i++) {
+			queue.add(new Object());
+		}
+	}
+
+}
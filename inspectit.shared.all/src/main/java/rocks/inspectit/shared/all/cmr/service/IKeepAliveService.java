@@ -27,11 +27,15 @@ public interface IKeepAliveService extends Remote {
 	int KA_TIMEOUT = 5000;
 
 	/**
-	 * Sends a keep-alive message of the platform with the given id.
+	 * Sends a keep-alive message of the platform with the given id. The CMR answers with the delay
+	 * the agent should wait between sending two data lists, so that the agents slow down when the
+	 * CMR can not process the incoming data fast enough.
 	 * 
 	 * @param platformId
 	 *            ID of the platform ident.
+	 * @return Delay in milliseconds the agent should wait between sending two data lists or
+	 *         <code>0</code> if no delay is needed.
 	 */
-	void sendKeepAlive(long platformId);
+	long sendKeepAlive(long platformId);
 
 }
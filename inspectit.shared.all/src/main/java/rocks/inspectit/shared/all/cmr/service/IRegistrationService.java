@@ -4,6 +4,7 @@ import java.rmi.Remote;
 import java.util.List;
 import java.util.Map;
 
+import rocks.inspectit.shared.all.communication.data.cmr.MethodRegistrationData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 
 /**
@@ -102,6 +103,20 @@ public interface IRegistrationService extends Remote {
 	 */
 	void addSensorTypeToMethod(long methodSensorTypeIdent, long methodIdent);
 
+	/**
+	 * Registers many methods and their method sensor type mappings with one call. Has the same
+	 * effect as calling {@link #registerMethodIdent(long, String, String, String, List, String, int)}
+	 * for every method and {@link #addSensorTypeToMethod(long, long)} for every method sensor type
+	 * assigned to it, but saves the round-trip per method.
+	 * 
+	 * @param platformIdent
+	 *            The unique identifier of the platform.
+	 * @param methodRegistrations
+	 *            The methods to register with the IDs of the assigned method sensor types.
+	 * @return Returns the unique method identifiers in the same order as the given methods.
+	 */
+	long[] registerMethodIdents(long platformIdent, List<MethodRegistrationData> methodRegistrations);
+
 	/**
 	 * Every sensor type which gathers information about the target platform/system has to be
 	 * registered by calling this method.
@@ -2,6 +2,7 @@ package rocks.inspectit.shared.all.communication.data.cmr;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.Map;
 
 import rocks.inspectit.shared.all.communication.DefaultData;
 
@@ -73,6 +74,32 @@ public class CmrStatusData implements Serializable {
 	 */
 	private Long databaseSize;
 
+	/**
+	 * Number of data objects dropped on the CMR due to the high volume of incoming data.
+	 */
+	private long droppedDataCount;
+
+	/**
+	 * Number of times agents were asked to delay the sending of data due to the high volume of
+	 * incoming data.
+	 */
+	private long agentThrottleCount;
+
+	/**
+	 * Number of invocations waiting for the problem diagnosis.
+	 */
+	private int diagnosisQueueSize;
+
+	/**
+	 * Number of invocations not diagnosed because the diagnosis queue was full.
+	 */
+	private long diagnosisRejectedCount;
+
+	/**
+	 * Average execution time in milliseconds of each diagnosis rule.
+	 */
+	private Map<String, Double> diagnosisRuleExecutionTimes;
+
 	/**
 	 * Gets {@link #currentBufferSize}.
 	 * 
@@ -282,6 +309,101 @@ public class CmrStatusData implements Serializable {
 		this.databaseSize = databaseSize;
 	}
 
+	/**
+	 * Gets {@link #droppedDataCount}.
+	 * 
+	 * @return {@link #droppedDataCount}
+	 */
+	public long getDroppedDataCount() {
+		return droppedDataCount;
+	}
+
+	/**
+	 * Sets {@link #droppedDataCount}.
+	 * 
+	 * @param droppedDataCount
+	 *            New value for {@link #droppedDataCount}
+	 */
+	public void setDroppedDataCount(long droppedDataCount) {
+		this.droppedDataCount = droppedDataCount;
+	}
+
+	/**
+	 * Gets {@link #agentThrottleCount}.
+	 * 
+	 * @return {@link #agentThrottleCount}
+	 */
+	public long getAgentThrottleCount() {
+		return agentThrottleCount;
+	}
+
+	/**
+	 * Sets {@link #agentThrottleCount}.
+	 * 
+	 * @param agentThrottleCount
+	 *            New value for {@link #agentThrottleCount}
+	 */
+	public void setAgentThrottleCount(long agentThrottleCount) {
+		this.agentThrottleCount = agentThrottleCount;
+	}
+
+	/**
+	 * Gets {@link #diagnosisQueueSize}.
+	 * 
+	 * @return {@link #diagnosisQueueSize}
+	 */
+	public int getDiagnosisQueueSize() {
+		return diagnosisQueueSize;
+	}
+
+	/**
+	 * Sets {@link #diagnosisQueueSize}.
+	 * 
+	 * @param diagnosisQueueSize
+	 *            New value for {@link #diagnosisQueueSize}
+	 */
+	public void setDiagnosisQueueSize(int diagnosisQueueSize) {
+		this.diagnosisQueueSize = diagnosisQueueSize;
+	}
+
+	/**
+	 * Gets {@link #diagnosisRejectedCount}.
+	 * 
+	 * @return {@link #diagnosisRejectedCount}
+	 */
+	public long getDiagnosisRejectedCount() {
+		return diagnosisRejectedCount;
+	}
+
+	/**
+	 * Sets {@link #diagnosisRejectedCount}.
+	 * 
+	 * @param diagnosisRejectedCount
+	 *            New value for {@link #diagnosisRejectedCount}
+	 */
+	public void setDiagnosisRejectedCount(long diagnosisRejectedCount) {
+		this.diagnosisRejectedCount = diagnosisRejectedCount;
+	}
+
+	/**
+	 * Gets {@link #diagnosisRuleExecutionTimes}.
+	 * 
+	 * @return {@link #diagnosisRuleExecutionTimes}
+	 */
+	public Map<String, Double> getDiagnosisRuleExecutionTimes() {
+		return diagnosisRuleExecutionTimes;
+	}
+
+	/**
+	 * Sets {@link #diagnosisRuleExecutionTimes}.
+	 * 
+	 * @param diagnosisRuleExecutionTimes
+	 *            New value for {@link #diagnosisRuleExecutionTimes}
+	 */
+	public void setDiagnosisRuleExecutionTimes(Map<String, Double> diagnosisRuleExecutionTimes) {
+		this.diagnosisRuleExecutionTimes = diagnosisRuleExecutionTimes;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -289,12 +411,17 @@ public class CmrStatusData implements Serializable {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
+		result = prime * result + (int) (agentThrottleCount ^ (agentThrottleCount >>> 32));
 		result = prime * result + ((bufferNewestElement == null) ? 0 : bufferNewestElement.hashCode());
 		result = prime * result + ((bufferOldestElement == null) ? 0 : bufferOldestElement.hashCode());
 		result = prime * result + (canWriteMore ? 1231 : 1237);
 		result = prime * result + (int) (currentBufferSize ^ (currentBufferSize >>> 32));
 		result = prime * result + ((databaseSize == null) ? 0 : databaseSize.hashCode());
 		result = prime * result + ((dateStarted == null) ? 0 : dateStarted.hashCode());
+		result = prime * result + diagnosisQueueSize;
+		result = prime * result + (int) (diagnosisRejectedCount ^ (diagnosisRejectedCount >>> 32));
+		result = prime * result + ((diagnosisRuleExecutionTimes == null) ? 0 : diagnosisRuleExecutionTimes.hashCode());
+		result = prime * result + (int) (droppedDataCount ^ (droppedDataCount >>> 32));
 		result = prime * result + (int) (maxBufferSize ^ (maxBufferSize >>> 32));
 		result = prime * result + (int) (storageDataSpaceLeft ^ (storageDataSpaceLeft >>> 32));
 		result = prime * result + (int) (storageMaxDataSpace ^ (storageMaxDataSpace >>> 32));
@@ -318,6 +445,9 @@ public class CmrStatusData implements Serializable {
 			return false;
 		}
 		CmrStatusData other = (CmrStatusData) obj;
+		if (agentThrottleCount != other.agentThrottleCount) {
+			return false;
+		}
 		if (bufferNewestElement == null) {
 			if (other.bufferNewestElement != null) {
 				return false;
@@ -352,6 +482,22 @@ public class CmrStatusData implements Serializable {
 		} else if (!dateStarted.equals(other.dateStarted)) {
 			return false;
 		}
+		if (diagnosisQueueSize != other.diagnosisQueueSize) {
+			return false;
+		}
+		if (diagnosisRejectedCount != other.diagnosisRejectedCount) {
+			return false;
+		}
+		if (diagnosisRuleExecutionTimes == null) {
+			if (other.diagnosisRuleExecutionTimes != null) {
+				return false;
+			}
+		} else if (!diagnosisRuleExecutionTimes.equals(other.diagnosisRuleExecutionTimes)) {
+			return false;
+		}
+		if (droppedDataCount != other.droppedDataCount) {
+			return false;
+		}
 		if (maxBufferSize != other.maxBufferSize) {
 			return false;
 		}
@@ -0,0 +1,307 @@
+package rocks.inspectit.shared.all.communication.data.cmr;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the information needed to register one instrumented method together with the method
+ * sensor types that are assigned to it. Used for the bulk registration of the methods.
+ * 
+ * @see rocks.inspectit.shared.all.cmr.service.IRegistrationService#registerMethodIdents(long,
+ *      List)
+ */
+public class MethodRegistrationData implements Serializable {
+
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = 4183427209611570215L;
+
+	/**
+	 * The name of the package.
+	 */
+	private String packageName;
+
+	/**
+	 * The name of the class.
+	 */
+	private String className;
+
+	/**
+	 * The name of the method.
+	 */
+	private String methodName;
+
+	/**
+	 * The parameter types of the method.
+	 */
+	private List<String> parameterTypes;
+
+	/**
+	 * The return type of the method.
+	 */
+	private String returnType;
+
+	/**
+	 * The modifiers.
+	 */
+	private int modifiers;
+
+	/**
+	 * Registered IDs of the method sensor types assigned to the method.
+	 */
+	private long[] methodSensorTypeIdents;
+
+	/**
+	 * No-arg constructor.
+	 */
+	public MethodRegistrationData() {
+	}
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param packageName
+	 *            The name of the package.
+	 * @param className
+	 *            The name of the class.
+	 * @param methodName
+	 *            The name of the method.
+	 * @param parameterTypes
+	 *            The parameter types of the method.
+	 * @param returnType
+	 *            The return type of the method.
+	 * @param modifiers
+	 *            The modifiers.
+	 * @param methodSensorTypeIdents
+	 *            Registered IDs of the method sensor types assigned to the method.
+	 */
+	public MethodRegistrationData(String packageName, String className, String methodName, List<String> parameterTypes, String returnType, int modifiers, long[] methodSensorTypeIdents) {
+		this.packageName = packageName;
+		this.className = className;
+		this.methodName = methodName;
+		this.parameterTypes = parameterTypes;
+		this.returnType = returnType;
+		this.modifiers = modifiers;
+		this.methodSensorTypeIdents = methodSensorTypeIdents;
+	}
+
+	/**
+	 * Gets {@link #packageName}.
+	 * 
+	 * @return {@link #packageName}
+	 */
+	public String getPackageName() {
+		return packageName;
+	}
+
+	/**
+	 * Sets {@link #packageName}.
+	 * 
+	 * @param packageName
+	 *            New value for {@link #packageName}
+	 */
+	public void setPackageName(String packageName) {
+		this.packageName = packageName;
+	}
+
+	/**
+	 * Gets {@link #className}.
+	 * 
+	 * @return {@link #className}
+	 */
+	public String getClassName() {
+		return className;
+	}
+
+	/**
+	 * Sets {@link #className}.
+	 * 
+	 * @param className
+	 *            New value for {@link #className}
+	 */
+	public void setClassName(String className) {
+		this.className = className;
+	}
+
+	/**
+	 * Gets {@link #methodName}.
+	 * 
+	 * @return {@link #methodName}
+	 */
+	public String getMethodName() {
+		return methodName;
+	}
+
+	/**
+	 * Sets {@link #methodName}.
+	 * 
+	 * @param methodName
+	 *            New value for {@link #methodName}
+	 */
+	public void setMethodName(String methodName) {
+		this.methodName = methodName;
+	}
+
+	/**
+	 * Gets {@link #parameterTypes}.
+	 * 
+	 * @return {@link #parameterTypes}
+	 */
+	public List<String> getParameterTypes() {
+		return parameterTypes;
+	}
+
+	/**
+	 * Sets {@link #parameterTypes}.
+	 * 
+	 * @param parameterTypes
+	 *            New value for {@link #parameterTypes}
+	 */
+	public void setParameterTypes(List<String> parameterTypes) {
+		this.parameterTypes = parameterTypes;
+	}
+
+	/**
+	 * Gets {@link #returnType}.
+	 * 
+	 * @return {@link #returnType}
+	 */
+	public String getReturnType() {
+		return returnType;
+	}
+
+	/**
+	 * Sets {@link #returnType}.
+	 * 
+	 * @param returnType
+	 *            New value for {@link #returnType}
+	 */
+	public void setReturnType(String returnType) {
+		this.returnType = returnType;
+	}
+
+	/**
+	 * Gets {@link #modifiers}.
+	 * 
+	 * @return {@link #modifiers}
+	 */
+	public int getModifiers() {
+		return modifiers;
+	}
+
+	/**
+	 * Sets {@link #modifiers}.
+	 * 
+	 * @param modifiers
+	 *            New value for {@link #modifiers}
+	 */
+	public void setModifiers(int modifiers) {
+		this.modifiers = modifiers;
+	}
+
+	/**
+	 * Gets {@link #methodSensorTypeIdents}.
+	 * 
+	 * @return {@link #methodSensorTypeIdents}
+	 */
+	public long[] getMethodSensorTypeIdents() {
+		return methodSensorTypeIdents;
+	}
+
+	/**
+	 * Sets {@link #methodSensorTypeIdents}.
+	 * 
+	 * @param methodSensorTypeIdents
+	 *            New value for {@link #methodSensorTypeIdents}
+	 */
+	public void setMethodSensorTypeIdents(long[] methodSensorTypeIdents) {
+		this.methodSensorTypeIdents = methodSensorTypeIdents;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((packageName == null) ? 0 : packageName.hashCode());
+		result = prime * result + ((className == null) ? 0 : className.hashCode());
+		result = prime * result + ((methodName == null) ? 0 : methodName.hashCode());
+		result = prime * result + ((parameterTypes == null) ? 0 : parameterTypes.hashCode());
+		result = prime * result + ((returnType == null) ? 0 : returnType.hashCode());
+		result = prime * result + modifiers;
+		result = prime * result + Arrays.hashCode(methodSensorTypeIdents);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		MethodRegistrationData other = (MethodRegistrationData) obj;
+		if (packageName == null) {
+			if (other.packageName != null) {
+				return false;
+			}
+		} else if (!packageName.equals(other.packageName)) {
+			return false;
+		}
+		if (className == null) {
+			if (other.className != null) {
+				return false;
+			}
+		} else if (!className.equals(other.className)) {
+			return false;
+		}
+		if (methodName == null) {
+			if (other.methodName != null) {
+				return false;
+			}
+		} else if (!methodName.equals(other.methodName)) {
+			return false;
+		}
+		if (parameterTypes == null) {
+			if (other.parameterTypes != null) {
+				return false;
+			}
+		} else if (!parameterTypes.equals(other.parameterTypes)) {
+			return false;
+		}
+		if (returnType == null) {
+			if (other.returnType != null) {
+				return false;
+			}
+		} else if (!returnType.equals(other.returnType)) {
+			return false;
+		}
+		if (modifiers != other.modifiers) {
+			return false;
+		}
+		if (!Arrays.equals(methodSensorTypeIdents, other.methodSensorTypeIdents)) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return packageName + "." + className + "#" + methodName + parameterTypes;
+	}
+
+}
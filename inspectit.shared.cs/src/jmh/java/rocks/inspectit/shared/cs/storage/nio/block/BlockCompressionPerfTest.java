@@ -0,0 +1,331 @@
+package rocks.inspectit.shared.cs.storage.nio.block;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading of the not compressed storage channel file with the reading of the same file
+ * written in compressed blocks. The channel file of a recorded storage can be passed with the
+ * <code>channelFile</code> parameter (for example
+ * <code>-p channelFile=/storage/id/1.itdata</code>), otherwise a file with repetitive data is
+ * generated. The disk footprint of both files is printed in the setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class BlockCompressionPerfTest {
+
+	/**
+	 * Path to the channel file of a recorded storage. Empty to generate the data.
+	 */
+	@Param({ "" })
+	private String channelFile;
+
+	/**
+	 * Size of the generated data.
+	 */
+	@Param({ "33554432" })
+	private int generatedSize;
+
+	/**
+	 * Size of the uncompressed block.
+	 */
+	@Param({ "65536" })
+	private int blockSize;
+
+	/**
+	 * Number of ranges read in the random read benchmarks.
+	 */
+	@Param({ "1000" })
+	private int ranges;
+
+	/**
+	 * Size of the range read in the random read benchmarks, similar to the size of a single
+	 * serialized object.
+	 */
+	@Param({ "512" })
+	private int rangeSize;
+
+	/**
+	 * Not compressed file.
+	 */
+	private Path rawPath;
+
+	/**
+	 * Compressed file.
+	 */
+	private Path compressedPath;
+
+	/**
+	 * Channel of the not compressed file.
+	 */
+	private FileChannel rawChannel;
+
+	/**
+	 * Channel of the compressed file.
+	 */
+	private FileChannel compressedChannel;
+
+	/**
+	 * Block index of the compressed file.
+	 */
+	private BlockIndex blockIndex;
+
+	/**
+	 * Logical size of the data.
+	 */
+	private long size;
+
+	/**
+	 * Positions of the random ranges.
+	 */
+	private long[] rangePositions;
+
+	/**
+	 * Inflater for reading.
+	 */
+	private Inflater inflater = new Inflater();
+
+	/**
+	 * Prepares the files.
+	 * 
+	 * @throws IOException
+	 *             If files can not be prepared.
+	 */
+	@Setup(Level.Trial)
+	public void init() throws IOException {
+		Random random = new Random(1);
+		byte[] data;
+		if (channelFile.isEmpty()) {
+			data = generateData(random);
+			rawPath = Files.createTempFile("raw", ".itdata");
+			Files.write(rawPath, data);
+		} else {
+			rawPath = Paths.get(channelFile);
+			data = Files.readAllBytes(rawPath);
+		}
+		size = data.length;
+
+		compressedPath = Files.createTempFile("compressed", ".itdata");
+		blockIndex = new BlockIndex(blockSize);
+		Deflater deflater = BlockCodec.createDeflater();
+		try (FileChannel fileChannel = FileChannel.open(compressedPath, StandardOpenOption.WRITE)) {
+			long position = 0;
+			byte[] block = new byte[blockSize];
+			for (int offset = 0; offset < data.length; offset += blockSize) {
+				int length = Math.min(blockSize, data.length - offset);
+				System.arraycopy(data, offset, block, 0, length);
+				byte[] compressed = BlockCodec.compress(deflater, block, length);
+				fileChannel.write(ByteBuffer.wrap(compressed), position);
+				blockIndex.addBlock(position, compressed.length, length);
+				position += compressed.length;
+			}
+			fileChannel.write(blockIndex.serialize(position), position);
+		} finally {
+			deflater.end();
+		}
+
+		System.out.println("Disk footprint: not compressed " + Files.size(rawPath) + " bytes, compressed " + Files.size(compressedPath) + " bytes.");
+
+		rangePositions = new long[ranges];
+		for (int i = 0; i < ranges; i++) {
+			rangePositions[i] = (long) (random.nextDouble() * (size - rangeSize));
+		}
+
+		rawChannel = FileChannel.open(rawPath, StandardOpenOption.READ);
+		compressedChannel = FileChannel.open(compressedPath, StandardOpenOption.READ);
+	}
+
+	/**
+	 * Closes and deletes the files.
+	 * 
+	 * @throws IOException
+	 *             If files can not be deleted.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		rawChannel.close();
+		compressedChannel.close();
+		inflater.end();
+		Files.delete(compressedPath);
+		if (channelFile.isEmpty()) {
+			Files.delete(rawPath);
+		}
+	}
+
+	/**
+	 * Reads the complete not compressed file.
+	 * 
+	 * @return Read data.
+	 * @throws IOException
+	 *             If read fails.
+	 */
+	@Benchmark
+	public long sequentialRaw() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+		long checksum = 0;
+		for (long position = 0; position < size; position += blockSize) {
+			buffer.clear();
+			readFully(rawChannel, buffer, position, (int) Math.min(blockSize, size - position));
+			checksum += buffer.get(0);
+		}
+		return checksum;
+	}
+
+	/**
+	 * Reads and decompresses all blocks of the compressed file.
+	 * 
+	 * @return Read data.
+	 * @throws IOException
+	 *             If read fails.
+	 */
+	@Benchmark
+	public long sequentialCompressed() throws IOException {
+		long checksum = 0;
+		for (int block = 0; block < blockIndex.getBlockCount(); block++) {
+			checksum += readBlock(block)[0];
+		}
+		return checksum;
+	}
+
+	/**
+	 * Reads the random ranges from the not compressed file.
+	 * 
+	 * @return Read data.
+	 * @throws IOException
+	 *             If read fails.
+	 */
+	@Benchmark
+	public long randomRaw() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(rangeSize);
+		long checksum = 0;
+		for (long position : rangePositions) {
+			buffer.clear();
+			readFully(rawChannel, buffer, position, rangeSize);
+			checksum += buffer.get(0);
+		}
+		return checksum;
+	}
+
+	/**
+	 * Reads the random ranges from the compressed file by decompressing the blocks holding the
+	 * ranges.
+	 * 
+	 * @return Read data.
+	 * @throws IOException
+	 *             If read fails.
+	 */
+	@Benchmark
+	public long randomCompressed() throws IOException {
+		byte[] range = new byte[rangeSize];
+		long checksum = 0;
+		for (long position : rangePositions) {
+			long readPosition = position;
+			int read = 0;
+			while (read < rangeSize) {
+				byte[] block = readBlock(blockIndex.getBlock(readPosition));
+				int offset = blockIndex.getOffset(readPosition);
+				int length = Math.min(rangeSize - read, block.length - offset);
+				System.arraycopy(block, offset, range, read, length);
+				read += length;
+				readPosition += length;
+			}
+			checksum += range[0];
+		}
+		return checksum;
+	}
+
+	/**
+	 * Reads and decompresses the block.
+	 * 
+	 * @param block
+	 *            Block number.
+	 * @return Decompressed block.
+	 * @throws IOException
+	 *             If read fails.
+	 */
+	private byte[] readBlock(int block) throws IOException {
+		int compressedSize = blockIndex.getCompressedSize(block);
+		ByteBuffer compressed = ByteBuffer.allocate(compressedSize);
+		readFully(compressedChannel, compressed, blockIndex.getPosition(block), compressedSize);
+		return BlockCodec.decompress(inflater, compressed.array(), 0, compressedSize, blockIndex.getSize(block));
+	}
+
+	/**
+	 * Reads the given amount of bytes from the position.
+	 * 
+	 * @param fileChannel
+	 *            Channel to read from.
+	 * @param buffer
+	 *            Buffer to read to.
+	 * @param position
+	 *            Position in the file.
+	 * @param length
+	 *            Number of bytes to read.
+	 * @throws IOException
+	 *             If read fails.
+	 */
+	private void readFully(FileChannel fileChannel, ByteBuffer buffer, long position, int length) throws IOException {
+		buffer.limit(length);
+		long readPosition = position;
+		while (buffer.hasRemaining()) {
+			int read = fileChannel.read(buffer, readPosition);
+			if (read < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+			readPosition += read;
+		}
+	}
+
+	/**
+	 * Generates the data similar to the serialized storage data, with repeating class ids, ids,
+	 * time stamps and strings.
+	 * 
+	 * @param random
+	 *            Random to use.
+	 * @return Data.
+	 */
+	private byte[] generateData(Random random) {
+		String[] strings = { "SELECT * FROM ORDERS WHERE ID = ?", "/shop/cart", "rocks.inspectit.Service", "GET", "POST" };
+		ByteBuffer buffer = ByteBuffer.allocate(generatedSize);
+		long id = 1;
+		long timestamp = 1451606400000L;
+		while (buffer.remaining() > 128) {
+			buffer.put((byte) random.nextInt(8));
+			buffer.putLong(id++);
+			buffer.putLong(timestamp += random.nextInt(10));
+			buffer.putLong(random.nextInt(4));
+			buffer.putDouble(random.nextInt(1000) / 10d);
+			byte[] string = strings[random.nextInt(strings.length)].getBytes();
+			buffer.put(string, 0, Math.min(string.length, buffer.remaining()));
+		}
+		return buffer.array();
+	}
+
+}
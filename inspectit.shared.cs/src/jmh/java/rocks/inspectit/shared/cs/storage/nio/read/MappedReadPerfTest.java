@@ -0,0 +1,390 @@
+package rocks.inspectit.shared.cs.storage.nio.read;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.storage.nio.ByteBufferProvider;
+import rocks.inspectit.shared.all.storage.serializer.ISerializer;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.util.KryoUtil;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
+import rocks.inspectit.shared.cs.storage.IStorageData;
+import rocks.inspectit.shared.cs.storage.StorageData;
+import rocks.inspectit.shared.cs.storage.StorageFileType;
+import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.nio.stream.ExtendedByteBufferInputStream;
+
+/**
+ * Compares reading of a complete local storage channel with the
+ * {@link ExtendedByteBufferInputStream} and with the {@link MappedChannelReader}, same as when
+ * opening the overview of all data of a downloaded storage. The channel file is generated in the
+ * setup with the given size (for example <code>-p channelSize=2147483648</code> for a 2 GB
+ * storage), the descriptors are joined to the given size as the descriptors passed to the reading
+ * in the UI.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class MappedReadPerfTest {
+
+	/**
+	 * Size of the generated channel file.
+	 */
+	@Param({ "268435456" })
+	private long channelSize;
+
+	/**
+	 * Size of the joined descriptor.
+	 */
+	@Param({ "1048576" })
+	private long descriptorSize;
+
+	/**
+	 * Directory of the storage.
+	 */
+	private Path storageDir;
+
+	/**
+	 * Storage data.
+	 */
+	private StorageData storageData;
+
+	/**
+	 * Descriptors pointing to all data in the channel.
+	 */
+	private List<IStorageDescriptor> descriptors;
+
+	/**
+	 * Serializer.
+	 */
+	private ISerializer serializer;
+
+	/**
+	 * Storage manager returning the generated storage directory.
+	 */
+	private StorageManager storageManager;
+
+	/**
+	 * IO executor of the reading channel manager.
+	 */
+	private ExecutorService ioExecutorService;
+
+	/**
+	 * Executor of the stream read tasks.
+	 */
+	private ExecutorService storageExecutorService;
+
+	/**
+	 * Channel manager for the stream reading.
+	 */
+	private ReadingChannelManager readingChannelManager;
+
+	/**
+	 * Buffer provider for the stream reading.
+	 */
+	private ByteBufferProvider byteBufferProvider;
+
+	/**
+	 * Reader for the mapped reading.
+	 */
+	private MappedChannelReader mappedChannelReader;
+
+	/**
+	 * Generates the channel file.
+	 * 
+	 * @throws IOException
+	 *             If file can not be written.
+	 */
+	@Setup(Level.Trial)
+	public void init() throws IOException {
+		storageDir = Files.createTempDirectory("storage");
+		storageData = new StorageData();
+		serializer = new KryoSerializer();
+		storageManager = new StorageManager() {
+			@Override
+			public Path getStoragePath(IStorageData storageData) {
+				return storageDir;
+			}
+
+			@Override
+			protected Path getDefaultStorageDirPath() {
+				return storageDir;
+			}
+		};
+
+		descriptors = new ArrayList<IStorageDescriptor>();
+		Random random = new Random(1);
+		Output output = new Output(2 * 1024 * 1024, -1);
+		long position = 0;
+		long descriptorPosition = 0;
+		StorageDescriptor descriptor = null;
+		Path channelPath = storageDir.resolve(1 + StorageFileType.DATA_FILE.getExtension());
+		try (OutputStream outputStream = Files.newOutputStream(channelPath)) {
+			while (position < channelSize) {
+				int objectPosition = output.position();
+				serializer.serialize(createObject(random), output);
+				int objectSize = output.position() - objectPosition;
+				if ((null == descriptor) || (position + objectSize - descriptorPosition > descriptorSize)) {
+					descriptor = new StorageDescriptor(1, position, objectSize);
+					descriptorPosition = position;
+					descriptors.add(descriptor);
+				} else {
+					descriptor.setPositionAndSize(descriptorPosition, position + objectSize - descriptorPosition);
+				}
+				position += objectSize;
+				if (output.position() > 1024 * 1024) {
+					outputStream.write(output.getBuffer(), 0, output.position());
+					output.clear();
+				}
+			}
+			outputStream.write(output.getBuffer(), 0, output.position());
+		} catch (SerializationException e) {
+			throw new IOException(e);
+		}
+
+		ioExecutorService = Executors.newFixedThreadPool(2);
+		storageExecutorService = Executors.newFixedThreadPool(3);
+		readingChannelManager = new ReadingChannelManager();
+		readingChannelManager.log = LoggerFactory.getLogger(ReadingChannelManager.class);
+		readingChannelManager.setExecutorService(ioExecutorService);
+		byteBufferProvider = new PooledByteBufferProvider();
+
+		mappedChannelReader = new MappedChannelReader();
+		mappedChannelReader.log = LoggerFactory.getLogger(MappedChannelReader.class);
+		mappedChannelReader.setStorageManager(storageManager);
+	}
+
+	/**
+	 * Deletes the storage.
+	 * 
+	 * @throws IOException
+	 *             If files can not be deleted.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		readingChannelManager.finalizeAllChannels();
+		ioExecutorService.shutdown();
+		storageExecutorService.shutdown();
+		Files.delete(storageDir.resolve(1 + StorageFileType.DATA_FILE.getExtension()));
+		Files.delete(storageDir);
+	}
+
+	/**
+	 * Reads all data with the {@link ExtendedByteBufferInputStream}.
+	 * 
+	 * @return Number of read objects.
+	 * @throws Exception
+	 *             If read fails.
+	 */
+	@Benchmark
+	public int stream() throws Exception {
+		ExtendedByteBufferInputStream inputStream = new ExtendedByteBufferInputStream(storageData, descriptors);
+		inputStream.setByteBufferProvider(byteBufferProvider);
+		inputStream.setReadingChannelManager(readingChannelManager);
+		inputStream.setStorageManager(storageManager);
+		inputStream.setExecutorService(storageExecutorService);
+		inputStream.prepare();
+
+		int count = 0;
+		Input input = new Input(inputStream);
+		try {
+			while (KryoUtil.hasMoreBytes(input)) {
+				serializer.deserialize(input);
+				count++;
+			}
+		} finally {
+			input.close();
+		}
+		return count;
+	}
+
+	/**
+	 * Reads all data with the {@link MappedChannelReader}.
+	 * 
+	 * @return Number of read objects.
+	 * @throws Exception
+	 *             If read fails.
+	 */
+	@Benchmark
+	public int mapped() throws Exception {
+		return mappedChannelReader.read(storageData, descriptors, serializer).size();
+	}
+
+	/**
+	 * Creates the object similar to the timer data.
+	 * 
+	 * @param random
+	 *            Random to use.
+	 * @return Object to serialize.
+	 */
+	private static Object createObject(Random random) {
+		RecordedObject object = new RecordedObject();
+		object.id = random.nextLong();
+		object.platformIdent = random.nextInt(4);
+		object.methodIdent = random.nextInt(10000);
+		object.timeStamp = 1451606400000L + random.nextInt(100000000);
+		object.duration = random.nextDouble() * 1000;
+		object.cpuDuration = random.nextDouble() * 1000;
+		object.name = "rocks.inspectit.Service#method" + random.nextInt(100);
+		return object;
+	}
+
+	/**
+	 * Recorded object similar to the timer data.
+	 */
+	private static class RecordedObject {
+
+		/**
+		 * Id.
+		 */
+		private long id;
+
+		/**
+		 * Platform ident.
+		 */
+		private long platformIdent;
+
+		/**
+		 * Method ident.
+		 */
+		private long methodIdent;
+
+		/**
+		 * Time stamp.
+		 */
+		private long timeStamp;
+
+		/**
+		 * Duration.
+		 */
+		private double duration;
+
+		/**
+		 * Cpu duration.
+		 */
+		private double cpuDuration;
+
+		/**
+		 * Name.
+		 */
+		private String name;
+	}
+
+	/**
+	 * Serializer with the plain {@link Kryo}.
+	 */
+	private static class KryoSerializer implements ISerializer {
+
+		/**
+		 * Kryo.
+		 */
+		private Kryo kryo = new Kryo();
+
+		/**
+		 * Default constructor.
+		 */
+		KryoSerializer() {
+			kryo.register(RecordedObject.class);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void serialize(Object object, Output output) throws SerializationException {
+			kryo.writeClassAndObject(output, object);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void serialize(Object object, Output output, Map<?, ?> kryoPreferences) throws SerializationException {
+			serialize(object, output);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object deserialize(Input input) throws SerializationException {
+			return kryo.readClassAndObject(input);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public <T> T copy(T object) {
+			return kryo.copy(object);
+		}
+	}
+
+	/**
+	 * Simple buffer pool without the pool configuration of the {@link ByteBufferProvider}.
+	 */
+	private static class PooledByteBufferProvider extends ByteBufferProvider {
+
+		/**
+		 * Available buffers.
+		 */
+		private Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ByteBuffer acquireByteBuffer() {
+			ByteBuffer buffer = buffers.poll();
+			if (null == buffer) {
+				buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_CAPACITY);
+			}
+			return buffer;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void releaseByteBuffer(ByteBuffer byteBuffer) {
+			byteBuffer.clear();
+			buffers.offer(byteBuffer);
+		}
+	}
+
+}
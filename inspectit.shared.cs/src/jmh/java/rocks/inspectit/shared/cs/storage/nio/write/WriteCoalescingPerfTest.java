@@ -0,0 +1,282 @@
+package rocks.inspectit.shared.cs.storage.nio.write;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import rocks.inspectit.shared.all.storage.nio.ByteBufferProvider;
+import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
+import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
+
+/**
+ * Compares the recording throughput of the direct writes of the serialized objects with the
+ * coalesced writes of the {@link WritingChannelManager}. The number of submitted channel writes
+ * per written object is printed after each iteration, as it corresponds to the number of write
+ * system calls and completion callbacks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class WriteCoalescingPerfTest {
+
+	/**
+	 * Size of the single serialized object.
+	 */
+	@Param({ "256" })
+	private int objectSize;
+
+	/**
+	 * Maximum number of objects waiting to be written, same as the limit of the writing queue of
+	 * the storage writer.
+	 */
+	@Param({ "10000" })
+	private int maxPendingWrites;
+
+	/**
+	 * Time in milliseconds between the time triggered flushes.
+	 */
+	@Param({ "100" })
+	private long flushDelay;
+
+	/**
+	 * Manager to test.
+	 */
+	private WritingChannelManager writingChannelManager;
+
+	/**
+	 * IO executor of the channels.
+	 */
+	private ExecutorService executorService;
+
+	/**
+	 * Executor for the time triggered flushes.
+	 */
+	private ScheduledExecutorService scheduledExecutorService;
+
+	/**
+	 * Channel file.
+	 */
+	private Path path;
+
+	/**
+	 * Serialized object.
+	 */
+	private ByteBuffer object;
+
+	/**
+	 * Limits the objects waiting to be written.
+	 */
+	private Semaphore pendingWrites;
+
+	/**
+	 * Number of objects written in the current iteration.
+	 */
+	private AtomicLong objects = new AtomicLong();
+
+	/**
+	 * Submitted writes at the start of the current iteration.
+	 */
+	private long submittedWrites;
+
+	/**
+	 * Prepares the manager and the channel file.
+	 * 
+	 * @throws IOException
+	 *             If file can not be created.
+	 */
+	@Setup(Level.Trial)
+	public void init() throws IOException {
+		executorService = Executors.newFixedThreadPool(4);
+		writingChannelManager = new WritingChannelManager();
+		writingChannelManager.log = LoggerFactory.getLogger(WritingChannelManager.class);
+		writingChannelManager.setExecutorService(executorService);
+		writingChannelManager.setByteBufferProvider(new PooledByteBufferProvider());
+
+		path = Files.createTempFile("coalescing", ".itdata");
+		byte[] bytes = new byte[objectSize];
+		for (int i = 0; i < objectSize; i++) {
+			bytes[i] = (byte) i;
+		}
+		object = ByteBuffer.allocateDirect(objectSize);
+		object.put(bytes);
+		object.flip();
+		pendingWrites = new Semaphore(maxPendingWrites);
+
+		scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+		scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					writingChannelManager.flush(path);
+				} catch (IOException e) {
+					e.printStackTrace(); // NOPMD
+				}
+			}
+		}, flushDelay, flushDelay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Remembers the submitted writes.
+	 */
+	@Setup(Level.Iteration)
+	public void initIteration() {
+		objects.set(0);
+		submittedWrites = writingChannelManager.getSubmittedWriteCount();
+	}
+
+	/**
+	 * Waits for all objects to be written and prints the submitted writes per object.
+	 * 
+	 * @throws Exception
+	 *             If waiting fails.
+	 */
+	@TearDown(Level.Iteration)
+	public void tearDownIteration() throws Exception {
+		writingChannelManager.flush(path);
+		pendingWrites.acquire(maxPendingWrites);
+		pendingWrites.release(maxPendingWrites);
+
+		long writes = writingChannelManager.getSubmittedWriteCount() - submittedWrites;
+		System.out.println("Submitted " + writes + " writes for " + objects.get() + " objects (" + ((double) writes / Math.max(1, objects.get())) + " per object).");
+	}
+
+	/**
+	 * Closes and deletes the channel file.
+	 * 
+	 * @throws IOException
+	 *             If file can not be deleted.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		scheduledExecutorService.shutdownNow();
+		writingChannelManager.finalizeChannel(path);
+		executorService.shutdown();
+		Files.delete(path);
+	}
+
+	/**
+	 * Writes the object with its own channel write.
+	 * 
+	 * @throws Exception
+	 *             If write fails.
+	 */
+	@Benchmark
+	public void direct() throws Exception {
+		pendingWrites.acquire();
+		objects.incrementAndGet();
+		writingChannelManager.write(new ObjectOutputStream(), path, new ReleasingCompletionRunnable());
+	}
+
+	/**
+	 * Writes the object coalesced with other objects.
+	 * 
+	 * @throws Exception
+	 *             If write fails.
+	 */
+	@Benchmark
+	public void coalesced() throws Exception {
+		pendingWrites.acquire();
+		objects.incrementAndGet();
+		writingChannelManager.writeCoalesced(new ObjectOutputStream(), path, new ReleasingCompletionRunnable());
+	}
+
+	/**
+	 * Stream holding the serialized object.
+	 */
+	private class ObjectOutputStream extends ExtendedByteBufferOutputStream {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public List<ByteBuffer> getAllByteBuffers() {
+			return Collections.singletonList(object.duplicate());
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public long getTotalWriteSize() {
+			return objectSize;
+		}
+	}
+
+	/**
+	 * Completion runnable that releases the pending write.
+	 */
+	private class ReleasingCompletionRunnable extends WriteReadCompletionRunnable {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			pendingWrites.release();
+		}
+	}
+
+	/**
+	 * Simple buffer pool without the pool configuration of the {@link ByteBufferProvider}.
+	 */
+	private static class PooledByteBufferProvider extends ByteBufferProvider {
+
+		/**
+		 * Available buffers.
+		 */
+		private Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ByteBuffer acquireByteBuffer() {
+			ByteBuffer buffer = buffers.poll();
+			if (null == buffer) {
+				buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_CAPACITY);
+			}
+			return buffer;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void releaseByteBuffer(ByteBuffer byteBuffer) {
+			byteBuffer.clear();
+			buffers.offer(byteBuffer);
+		}
+	}
+
+}
@@ -212,7 +212,8 @@ public interface IStorageService {
 	/**
 	 * Returns the map of the string/long pairs that represent the path to the index files for one
 	 * storage and their size in bytes. The paths are in form "/directory/file.extension". These
-	 * paths can be used in combination to CMR's ip and port to get the files via HTTP.
+	 * paths can be used in combination to CMR's ip and port to get the files via HTTP. The index
+	 * partition files referenced by the index files are included.
 	 * <p>
 	 * For example, if the CMR has the ip localhost and port 8080, the address for the file would
 	 * be: http://localhost:8080/directory/file.extension
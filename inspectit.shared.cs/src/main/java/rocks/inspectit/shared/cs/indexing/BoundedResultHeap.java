@@ -0,0 +1,94 @@
+package rocks.inspectit.shared.cs.indexing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps only the first elements of a query result in the order defined by the comparator. The
+ * elements are kept in a heap whose head is the last of the kept elements, thus a new element is
+ * only compared with the head to decide if it belongs to the result. The memory used by the heap
+ * depends on the limit and not on the number of added elements.
+ *
+ * @param <R>
+ *            Type of the elements.
+ */
+public class BoundedResultHeap<R> {
+
+	/**
+	 * Comparator defining the order of the result.
+	 */
+	private final Comparator<? super R> comparator;
+
+	/**
+	 * Maximum number of elements.
+	 */
+	private final int limit;
+
+	/**
+	 * Heap with the last of the kept elements at the head.
+	 */
+	private final PriorityQueue<R> heap;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param comparator
+	 *            Comparator defining the order of the result.
+	 * @param limit
+	 *            Maximum number of elements, must not be negative.
+	 */
+	public BoundedResultHeap(Comparator<? super R> comparator, int limit) {
+		if (null == comparator) {
+			throw new IllegalArgumentException("Comparator must not be null.");
+		}
+		if (limit < 0) {
+			throw new IllegalArgumentException("Limit must not be negative.");
+		}
+		this.comparator = comparator;
+		this.limit = limit;
+		this.heap = new PriorityQueue<R>(Math.max(1, limit), Collections.reverseOrder(comparator));
+	}
+
+	/**
+	 * Adds the element if it belongs to the first elements.
+	 *
+	 * @param element
+	 *            Element to add.
+	 */
+	public void add(R element) {
+		if (heap.size() < limit) {
+			heap.add(element);
+		} else if ((limit > 0) && (comparator.compare(element, heap.peek()) < 0)) {
+			heap.poll();
+			heap.add(element);
+		}
+	}
+
+	/**
+	 * Adds all elements, for example the partial result of another heap.
+	 *
+	 * @param elements
+	 *            Elements to add.
+	 */
+	public void addAll(Collection<? extends R> elements) {
+		for (R element : elements) {
+			add(element);
+		}
+	}
+
+	/**
+	 * Returns the kept elements sorted by the comparator.
+	 *
+	 * @return Sorted list with at most limit elements.
+	 */
+	public List<R> getSortedList() {
+		List<R> result = new ArrayList<R>(heap);
+		Collections.sort(result, comparator);
+		return result;
+	}
+
+}
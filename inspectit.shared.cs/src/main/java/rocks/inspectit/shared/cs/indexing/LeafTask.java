@@ -1,9 +1,11 @@
 package rocks.inspectit.shared.cs.indexing;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.RecursiveTask;
 
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
 /**
  * Returns the objects of the commited leaf.
  * @author Tobias Angerstein
@@ -24,6 +26,16 @@ public class LeafTask<R, E> extends RecursiveTask<List<R>> {
 	 * The given query.
 	 */
 	private IIndexQuery query;
+
+	/**
+	 * Comparator defining the order of the result, can be <code>null</code>.
+	 */
+	private Comparator<? super R> comparator;
+
+	/**
+	 * Maximum number of results when the comparator is set.
+	 */
+	private int limit;
 	
 	/**
 	 * Default constructor.
@@ -33,8 +45,28 @@ public class LeafTask<R, E> extends RecursiveTask<List<R>> {
 	 * 		query
 	 */
 	public LeafTask(ITreeComponent<R, E> treeComponent, IIndexQuery query) {
+		this(treeComponent, query, null, -1);
+	}
+
+	/**
+	 * Constructor for the query that returns only the first elements in the order of the
+	 * comparator.
+	 * 
+	 * @param treeComponent
+	 *            leaf
+	 * @param query
+	 *            query
+	 * @param comparator
+	 *            Comparator defining the order of the result. Pass <code>null</code> if result
+	 *            should not be limited.
+	 * @param limit
+	 *            Maximum number of results.
+	 */
+	public LeafTask(ITreeComponent<R, E> treeComponent, IIndexQuery query, Comparator<? super R> comparator, int limit) {
 		this.leaf = treeComponent;
 		this.query = query;
+		this.comparator = comparator;
+		this.limit = limit;
 	}
 
 	/**
@@ -42,7 +74,17 @@ public class LeafTask<R, E> extends RecursiveTask<List<R>> {
 	 * <p>
 	 * Queries the Leaf.
 	 */
+	@SuppressWarnings("unchecked")
 	protected List<R> compute() {
-		return leaf.query(query);
+		if (null == comparator) {
+			return leaf.query(query);
+		} else if (leaf instanceof IBufferTreeComponent) {
+			// buffer components return the same elements they index
+			return ((IBufferTreeComponent<R>) leaf).query(query, comparator, limit);
+		} else {
+			BoundedResultHeap<R> resultHeap = new BoundedResultHeap<R>(comparator, limit);
+			resultHeap.addAll(leaf.query(query));
+			return resultHeap.getSortedList();
+		}
 	}
 }
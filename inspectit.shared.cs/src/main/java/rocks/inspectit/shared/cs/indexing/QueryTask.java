@@ -2,13 +2,17 @@ package rocks.inspectit.shared.cs.indexing;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.RecursiveTask;
 
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
 
 /**
- * Queries through the branches and creates new tasks for each branch.
+ * Queries through the branches and creates new tasks for each branch. If a comparator is given,
+ * only the first elements up to the limit are collected from the branches and the results of the
+ * sub-tasks are merged with a {@link BoundedResultHeap}.
  * 
  * @author Tobias Angerstein
  *
@@ -29,6 +33,16 @@ public class QueryTask<R, E> extends RecursiveTask<List<R>> {
 	 */
 	private Collection<? extends ITreeComponent<R, E>> branchesToQuery;
 
+	/**
+	 * Comparator defining the order of the result, can be <code>null</code>.
+	 */
+	private Comparator<? super R> comparator;
+
+	/**
+	 * Maximum number of results when the comparator is set.
+	 */
+	private int limit;
+
 	/**
 	 * Default constructor. The current branch and the query is needed.
 	 * 
@@ -38,8 +52,28 @@ public class QueryTask<R, E> extends RecursiveTask<List<R>> {
 	 *            the given query
 	 */
 	public QueryTask(Collection<? extends ITreeComponent<R, E>> branchesToQuery, IIndexQuery query) {
+		this(branchesToQuery, query, null, -1);
+	}
+
+	/**
+	 * Constructor for the query that returns only the first elements in the order of the
+	 * comparator.
+	 * 
+	 * @param branchesToQuery
+	 *            The branches, which have to be queried.
+	 * @param query
+	 *            the given query
+	 * @param comparator
+	 *            Comparator defining the order of the result. Pass <code>null</code> if result
+	 *            should not be limited.
+	 * @param limit
+	 *            Maximum number of results.
+	 */
+	public QueryTask(Collection<? extends ITreeComponent<R, E>> branchesToQuery, IIndexQuery query, Comparator<? super R> comparator, int limit) {
 		this.query = query;
 		this.branchesToQuery = branchesToQuery;
+		this.comparator = comparator;
+		this.limit = limit;
 	}
 
 	/**
@@ -47,16 +81,32 @@ public class QueryTask<R, E> extends RecursiveTask<List<R>> {
 	 * <p>
 	 * Forks and queries all subbranches.
 	 */
+	@SuppressWarnings("unchecked")
 	protected List<R> compute() {
 		// List of Forks which will be started
 		List<RecursiveTask<List<R>>> forks = new ArrayList<RecursiveTask<List<R>>>();
-		List<R> resultList = new ArrayList<R>();
 		for (ITreeComponent<R, E> component : branchesToQuery) {
 			// New fork is being started
-			RecursiveTask<List<R>> task = component.getTaskForForkJoinQuery(query);
+			RecursiveTask<List<R>> task;
+			if (null != comparator && component instanceof IBufferTreeComponent) {
+				// buffer components return the same elements they index
+				task = ((IBufferTreeComponent<R>) component).getTaskForForkJoinQuery(query, comparator, limit);
+			} else {
+				task = component.getTaskForForkJoinQuery(query);
+			}
 			forks.add(task);
 			task.fork();
 		}
+
+		if (null != comparator) {
+			BoundedResultHeap<R> resultHeap = new BoundedResultHeap<R>(comparator, limit);
+			for (RecursiveTask<List<R>> fork : forks) {
+				resultHeap.addAll(fork.join());
+			}
+			return resultHeap.getSortedList();
+		}
+
+		List<R> resultList = new ArrayList<R>();
 		for (RecursiveTask<List<R>> fork : forks) {
 			resultList.addAll(fork.join());
 		}
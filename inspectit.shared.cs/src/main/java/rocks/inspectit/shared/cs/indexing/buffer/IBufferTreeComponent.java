@@ -1,7 +1,12 @@
 package rocks.inspectit.shared.cs.indexing.buffer;
 
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
 import rocks.inspectit.shared.cs.indexing.ITreeComponent;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
 
@@ -54,4 +59,51 @@ public interface IBufferTreeComponent<E> extends ITreeComponent<E, E> {
 	 */
 	long getNumberOfElements();
 
+	/**
+	 * Returns the first elements that satisfy the query in the order defined by the comparator.
+	 * The result is the same as sorting the result of {@link #query(IIndexQuery)} and taking the
+	 * first limit elements, but every tree component keeps only the first limit elements of its
+	 * own result.
+	 * 
+	 * @param query
+	 *            Query.
+	 * @param comparator
+	 *            Comparator defining the order of the result.
+	 * @param limit
+	 *            Maximum number of elements to return.
+	 * @return Sorted list of at most limit elements, or empty list if nothing is found.
+	 */
+	List<E> query(IIndexQuery query, Comparator<? super E> comparator, int limit);
+
+	/**
+	 * Returns the first elements that satisfy the query in the order defined by the comparator.
+	 * Uses Join&Fork and creates a new task for each child, the results of the tasks are merged
+	 * keeping only the first limit elements.
+	 * 
+	 * @param query
+	 *            Query.
+	 * @param comparator
+	 *            Comparator defining the order of the result.
+	 * @param limit
+	 *            Maximum number of elements to return.
+	 * @param forkJoinPool
+	 *            The Pool which starts and manages the forks
+	 * @return Sorted list of at most limit elements, or empty list if nothing is found.
+	 */
+	List<E> query(IIndexQuery query, Comparator<? super E> comparator, int limit, ForkJoinPool forkJoinPool);
+
+	/**
+	 * Creates a fitting task for the query that returns only the first elements in the order of
+	 * the comparator.
+	 * 
+	 * @param query
+	 *            Query.
+	 * @param comparator
+	 *            Comparator defining the order of the result.
+	 * @param limit
+	 *            Maximum number of elements to return.
+	 * @return Task.
+	 */
+	RecursiveTask<List<E>> getTaskForForkJoinQuery(IIndexQuery query, Comparator<? super E> comparator, int limit);
+
 }
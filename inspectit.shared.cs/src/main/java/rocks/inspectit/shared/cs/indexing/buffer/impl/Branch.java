@@ -1,12 +1,19 @@
 package rocks.inspectit.shared.cs.indexing.buffer.impl;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
 import rocks.inspectit.shared.cs.indexing.AbstractBranch;
+import rocks.inspectit.shared.cs.indexing.BoundedResultHeap;
 import rocks.inspectit.shared.cs.indexing.ITreeComponent;
+import rocks.inspectit.shared.cs.indexing.QueryTask;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferBranchIndexer;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
 
@@ -114,6 +121,35 @@ public class Branch<E extends DefaultData> extends AbstractBranch<E, E> implemen
 		return sum;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<E> query(IIndexQuery query, Comparator<? super E> comparator, int limit) {
+		BoundedResultHeap<E> resultHeap = new BoundedResultHeap<E>(comparator, limit);
+		for (ITreeComponent<E, E> treeComponent : getBranchesToQuery(query)) {
+			if (treeComponent instanceof IBufferTreeComponent) {
+				resultHeap.addAll(((IBufferTreeComponent<E>) treeComponent).query(query, comparator, limit));
+			} else {
+				resultHeap.addAll(treeComponent.query(query));
+			}
+		}
+		return resultHeap.getSortedList();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<E> query(IIndexQuery query, Comparator<? super E> comparator, int limit, ForkJoinPool forkJoinPool) {
+		return forkJoinPool.invoke(getTaskForForkJoinQuery(query, comparator, limit));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public RecursiveTask<List<E>> getTaskForForkJoinQuery(IIndexQuery query, Comparator<? super E> comparator, int limit) {
+		return new QueryTask<>(getBranchesToQuery(query), query, comparator, limit);
+	}
+
 	/**
 	 * @return the bufferBranchIndexer
 	 */
@@ -3,6 +3,7 @@ package rocks.inspectit.shared.cs.indexing.buffer.impl;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -16,6 +17,7 @@ import org.cliffc.high_scale_lib.NonBlockingHashMapLong;
 import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.cs.indexing.BoundedResultHeap;
 import rocks.inspectit.shared.cs.indexing.LeafTask;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
 
@@ -131,6 +133,31 @@ public class Leaf<E extends DefaultData> implements IBufferTreeComponent<E> {
 		return forkJoinPool.invoke(getTaskForForkJoinQuery(query));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<E> query(IIndexQuery query, Comparator<? super E> comparator, int limit) {
+		BoundedResultHeap<E> resultHeap = new BoundedResultHeap<E>(comparator, limit);
+		Iterator<CustomWeakReference<E>> iterator = map.values().iterator();
+		while (iterator.hasNext()) {
+			WeakReference<E> weakReference = iterator.next();
+			if (null != weakReference) {
+				E element = weakReference.get();
+				if (null != element && element.isQueryComplied(query)) {
+					resultHeap.add(element);
+				}
+			}
+		}
+		return resultHeap.getSortedList();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<E> query(IIndexQuery query, Comparator<? super E> comparator, int limit, ForkJoinPool forkJoinPool) {
+		return forkJoinPool.invoke(getTaskForForkJoinQuery(query, comparator, limit));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -255,4 +282,11 @@ public class Leaf<E extends DefaultData> implements IBufferTreeComponent<E> {
 	public RecursiveTask<List<E>> getTaskForForkJoinQuery(IIndexQuery query) {
 		return new LeafTask<>(this, query);
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public RecursiveTask<List<E>> getTaskForForkJoinQuery(IIndexQuery query, Comparator<? super E> comparator, int limit) {
+		return new LeafTask<>(this, query, comparator, limit);
+	}
 }
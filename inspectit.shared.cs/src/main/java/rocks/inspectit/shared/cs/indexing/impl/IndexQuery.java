@@ -15,6 +15,7 @@ import org.springframework.stereotype.Component;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
 import rocks.inspectit.shared.all.indexing.restriction.IIndexQueryRestriction;
+import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionPredicate;
 import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionProcessor;
 
 /**
@@ -75,6 +76,12 @@ public class IndexQuery implements IIndexQuery {
 	 */
 	private List<IIndexQueryRestriction> indexingRestrictionList = new ArrayList<IIndexQueryRestriction>();
 
+	/**
+	 * Restrictions compiled by the {@link #restrictionProcessor}. Created with the first check and
+	 * reset when the restrictions change.
+	 */
+	private transient volatile IIndexQueryRestrictionPredicate restrictionPredicate;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -179,6 +186,7 @@ public class IndexQuery implements IIndexQuery {
 	 */
 	public void addIndexingRestriction(IIndexQueryRestriction indexingRestriction) {
 		indexingRestrictionList.add(indexingRestriction);
+		restrictionPredicate = null;
 	}
 
 	/**
@@ -229,7 +237,16 @@ public class IndexQuery implements IIndexQuery {
 	 * {@inheritDoc}
 	 */
 	public boolean areAllRestrictionsFulfilled(DefaultData defaultData) {
-		return restrictionProcessor.areAllRestrictionsFulfilled(defaultData, indexingRestrictionList);
+		if (indexingRestrictionList.isEmpty()) {
+			return true;
+		}
+
+		IIndexQueryRestrictionPredicate predicate = restrictionPredicate;
+		if (null == predicate) {
+			predicate = restrictionProcessor.compile(indexingRestrictionList);
+			restrictionPredicate = predicate;
+		}
+		return predicate.areAllRestrictionsFulfilled(defaultData);
 	}
 
 	/**
@@ -238,6 +255,7 @@ public class IndexQuery implements IIndexQuery {
 	 */
 	public void setRestrictionProcessor(IIndexQueryRestrictionProcessor restrictionProcessor) {
 		this.restrictionProcessor = restrictionProcessor;
+		this.restrictionPredicate = null;
 	}
 
 	/**
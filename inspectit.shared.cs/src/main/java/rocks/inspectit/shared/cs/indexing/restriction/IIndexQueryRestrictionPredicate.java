@@ -0,0 +1,20 @@
+package rocks.inspectit.shared.cs.indexing.restriction;
+
+/**
+ * Restrictions of one index query compiled by the {@link IIndexQueryRestrictionProcessor}. The
+ * predicate resolves the getter methods of the restrictions only once for every class of the
+ * checked objects, thus it should be used when the same restrictions are checked against many
+ * objects.
+ */
+public interface IIndexQueryRestrictionPredicate {
+
+	/**
+	 * If all compiled restrictions are fulfilled for supplied object.
+	 * 
+	 * @param object
+	 *            Object that restrictions should be checked against.
+	 * @return True if all restrictions are fulfilled, otherwise false.
+	 */
+	boolean areAllRestrictionsFulfilled(Object object);
+
+}
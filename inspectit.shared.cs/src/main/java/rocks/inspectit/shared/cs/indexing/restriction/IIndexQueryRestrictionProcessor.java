@@ -24,4 +24,14 @@ public interface IIndexQueryRestrictionProcessor {
 	 */
 	boolean areAllRestrictionsFulfilled(Object object, List<IIndexQueryRestriction> restrictions);
 
+	/**
+	 * Compiles the given restrictions to the predicate that can check them against many objects.
+	 * Changes to the list after the compilation are not reflected in the returned predicate.
+	 * 
+	 * @param restrictions
+	 *            List of restrictions.
+	 * @return Predicate that checks if all given restrictions are fulfilled.
+	 */
+	IIndexQueryRestrictionPredicate compile(List<IIndexQueryRestriction> restrictions);
+
 }
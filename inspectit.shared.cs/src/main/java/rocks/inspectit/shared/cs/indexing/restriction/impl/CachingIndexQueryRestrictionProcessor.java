@@ -1,7 +1,10 @@
 package rocks.inspectit.shared.cs.indexing.restriction.impl;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -10,19 +13,30 @@ import org.springframework.stereotype.Component;
 
 import rocks.inspectit.shared.all.indexing.restriction.IIndexQueryRestriction;
 import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionPredicate;
 import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionProcessor;
 
 /**
- * This restriction processor caches the methods of each class that needs to be invoke. It also
- * marks in the cache all method that do not exist for specific class and an attempt to find them
- * was made.
- *
+ * This restriction processor caches the method handles of each class that needs to be invoke. It
+ * also marks in the cache all method that do not exist for specific class and an attempt to find
+ * them was made.
+ * <p>
+ * Restrictions compiled with {@link #compile(List)} resolve the getter chain once for each class
+ * of the checked objects. Every getter after the first one is resolved on the declared return type
+ * of the previous getter, thus only the getters that are not declared there are searched in the
+ * cache for every checked object.
+ * 
  * @author Ivan Senic
- *
+ * 
  */
 @Component
 public class CachingIndexQueryRestrictionProcessor implements IIndexQueryRestrictionProcessor {
 
+	/**
+	 * Type of the method handles invoked by the compiled restrictions.
+	 */
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
 	/**
 	 * The logger.
 	 */
@@ -30,26 +44,28 @@ public class CachingIndexQueryRestrictionProcessor implements IIndexQueryRestric
 	Logger log;
 
 	/**
-	 * Map for caching methods.
+	 * Map for caching method handles.
+	 */
+	private final ConcurrentHashMap<MethodCacheKey, MethodHandle> cacheMap;
+
+	/**
+	 * Marker method handle.
 	 */
-	private final ConcurrentHashMap<Integer, Method> cacheMap;
+	private final MethodHandle markerMethod;
 
 	/**
-	 * Marker method.
+	 * Lookup for creating the method handles.
 	 */
-	private Method markerMethod;
+	private final MethodHandles.Lookup lookup;
 
 	/**
-	 * Default constructor. Sets {@link #markerMethod} to refer to {@link Object#toString()}.
+	 * Default constructor. Sets {@link #markerMethod} to a method handle that returns
+	 * <code>null</code>.
 	 */
 	public CachingIndexQueryRestrictionProcessor() {
-		cacheMap = new ConcurrentHashMap<Integer, Method>();
-		try {
-			// setting marker method to point to Object.toString()
-			markerMethod = Object.class.getMethod("toString", new Class[0]);
-		} catch (Exception e) {
-			throw new IllegalStateException("Method toString() can not be found", e);
-		}
+		cacheMap = new ConcurrentHashMap<MethodCacheKey, MethodHandle>();
+		markerMethod = MethodHandles.constant(Object.class, null);
+		lookup = MethodHandles.lookup();
 	}
 
 	/**
@@ -65,14 +81,22 @@ public class CachingIndexQueryRestrictionProcessor implements IIndexQueryRestric
 		return true;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IIndexQueryRestrictionPredicate compile(List<IIndexQueryRestriction> restrictions) {
+		return new CompiledRestrictions(new ArrayList<IIndexQueryRestriction>(restrictions));
+	}
+
 	/**
 	 * Checks if one {@link IIndexQueryRestriction} is fulfilled.
-	 *
+	 * 
 	 * @param object
 	 *            to start from
 	 * @param indexingRestriction
 	 *            {@link IIndexQueryRestriction} to check.
-	 *
+	 * 
 	 * @return <code>true</code> if the indexing restriction is fulfilled.
 	 */
 	private boolean isRestrictionFulfilled(Object object, IIndexQueryRestriction indexingRestriction) {
@@ -81,71 +105,292 @@ public class CachingIndexQueryRestrictionProcessor implements IIndexQueryRestric
 		try {
 			Object executeOn = object;
 			for (String methodName : methodNames) {
-				Method method = getMethod(executeOn, methodName);
-				if (null == method) {
+				if (null == executeOn) {
+					return false;
+				}
+				MethodHandle methodHandle = getMethodHandle(executeOn.getClass(), methodName);
+				if (null == methodHandle) {
 					return false;
 				}
-				executeOn = method.invoke(executeOn, new Object[0]);
+				executeOn = methodHandle.invokeExact(executeOn);
 			}
 
 			return indexingRestriction.isFulfilled(executeOn);
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			log.error("Error in find object to execute indexing restricton check.", e);
+		} catch (Throwable t) { // NOPMD
+			log.error("Error in find object to execute indexing restricton check.", t);
 			return false;
 		}
 	}
 
 	/**
-	 * Returns the {@link Method} for the given {@link Object} with the given method name.
-	 *
-	 * @param object
-	 *            Object to find method on.
+	 * Returns the method handle for the public method with the given name and without parameters
+	 * of the given class. The returned handle is of the type {@link #GETTER_TYPE}.
+	 * 
+	 * @param clazz
+	 *            Class to find method in.
 	 * @param methodName
 	 *            Name of the method.
-	 * @return Method if one can be found.
+	 * @return Method handle if method can be found, otherwise <code>null</code>.
 	 */
-	private Method getMethod(Object object, String methodName) {
-		int cacheKey = getMethodCacheKey(object.getClass(), methodName);
-		Method method = cacheMap.get(cacheKey);
+	private MethodHandle getMethodHandle(Class<?> clazz, String methodName) {
+		MethodCacheKey cacheKey = new MethodCacheKey(clazz, methodName);
+		MethodHandle methodHandle = cacheMap.get(cacheKey);
 
-		if (method == null) { // method is not yet in cache
+		if (methodHandle == null) { // method is not yet in cache
 			try {
-				Method methodFromClass = object.getClass().getMethod(methodName, new Class<?>[0]);
-				Method existing = cacheMap.putIfAbsent(cacheKey, methodFromClass);
-				if (null != existing) {
-					methodFromClass = existing;
-				}
-				return methodFromClass;
+				Method method = clazz.getMethod(methodName, new Class<?>[0]);
+				methodHandle = lookup.unreflect(method).asType(GETTER_TYPE);
 			} catch (NoSuchMethodException e) {
 				// not found, put marker method at this place in map
-				cacheMap.putIfAbsent(cacheKey, markerMethod);
-				return null;
-			} catch (SecurityException | IllegalArgumentException e) {
-				log.error("Error retrieve the method " + methodName + " for the object of class " + object.getClass(), e);
+				methodHandle = markerMethod;
+			} catch (SecurityException | IllegalAccessException e) {
+				log.error("Error retrieve the method " + methodName + " for the object of class " + clazz, e);
 				return null;
 			}
-		} else if (markerMethod.equals(method)) {
+
+			MethodHandle existing = cacheMap.putIfAbsent(cacheKey, methodHandle);
+			if (null != existing) {
+				methodHandle = existing;
+			}
+		}
+
+		if (markerMethod == methodHandle) {
 			return null;
 		} else {
-			return method;
+			return methodHandle;
 		}
 	}
 
 	/**
-	 * Returns key for the hash map based on the supplied class and method name.
-	 *
+	 * Returns the declared return type of the public method with the given name and without
+	 * parameters of the given class.
+	 * 
 	 * @param clazz
-	 *            class
+	 *            Class to find method in.
 	 * @param methodName
-	 *            method name
-	 * @return int key
+	 *            Name of the method.
+	 * @return Declared return type or <code>null</code> if it can not be resolved.
+	 */
+	private Class<?> getReturnType(Class<?> clazz, String methodName) {
+		try {
+			return clazz.getMethod(methodName, new Class<?>[0]).getReturnType();
+		} catch (NoSuchMethodException | SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Key of the {@link CachingIndexQueryRestrictionProcessor#cacheMap}.
 	 */
-	private int getMethodCacheKey(Class<?> clazz, String methodName) {
-		final int prime = 31;
-		int result = 0;
-		result = prime * result + ((clazz == null) ? 0 : clazz.hashCode());
-		result = prime * result + ((methodName == null) ? 0 : methodName.hashCode());
-		return result;
+	private static final class MethodCacheKey {
+
+		/**
+		 * Class the method is searched in.
+		 */
+		private final Class<?> clazz;
+
+		/**
+		 * Name of the method.
+		 */
+		private final String methodName;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param clazz
+		 *            Class the method is searched in.
+		 * @param methodName
+		 *            Name of the method.
+		 */
+		MethodCacheKey(Class<?> clazz, String methodName) {
+			this.clazz = clazz;
+			this.methodName = methodName;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + clazz.hashCode();
+			result = prime * result + methodName.hashCode();
+			return result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			MethodCacheKey other = (MethodCacheKey) obj;
+			return (clazz == other.clazz) && methodName.equals(other.methodName);
+		}
+
+	}
+
+	/**
+	 * Restrictions of one query compiled for every class of the checked objects.
+	 */
+	private final class CompiledRestrictions implements IIndexQueryRestrictionPredicate {
+
+		/**
+		 * Restrictions to check.
+		 */
+		private final List<IIndexQueryRestriction> restrictions;
+
+		/**
+		 * Compiled restrictions for each class of the checked objects.
+		 */
+		private final ConcurrentHashMap<Class<?>, CompiledRestriction[]> compiledMap = new ConcurrentHashMap<Class<?>, CompiledRestriction[]>();
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param restrictions
+		 *            Restrictions to check.
+		 */
+		CompiledRestrictions(List<IIndexQueryRestriction> restrictions) {
+			this.restrictions = restrictions;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean areAllRestrictionsFulfilled(Object object) {
+			Class<?> clazz = object.getClass();
+			CompiledRestriction[] compiledRestrictions = compiledMap.get(clazz);
+			if (null == compiledRestrictions) {
+				compiledRestrictions = new CompiledRestriction[restrictions.size()];
+				for (int i = 0; i < compiledRestrictions.length; i++) {
+					compiledRestrictions[i] = new CompiledRestriction(clazz, restrictions.get(i));
+				}
+				CompiledRestriction[] existing = compiledMap.putIfAbsent(clazz, compiledRestrictions);
+				if (null != existing) {
+					compiledRestrictions = existing;
+				}
+			}
+
+			for (CompiledRestriction compiledRestriction : compiledRestrictions) {
+				if (!compiledRestriction.isFulfilled(object)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * One restriction with the getter chain resolved for one class.
+	 */
+	private final class CompiledRestriction {
+
+		/**
+		 * Restriction to check.
+		 */
+		private final IIndexQueryRestriction restriction;
+
+		/**
+		 * Getter method names.
+		 */
+		private final String[] methodNames;
+
+		/**
+		 * Resolved getters. Getters that have to be resolved on the class of the object they are
+		 * invoked on are <code>null</code>. Array itself is <code>null</code> if the class does
+		 * not have the first getter and the restriction can not be fulfilled.
+		 */
+		private final MethodHandle[] methodHandles;
+
+		/**
+		 * Default constructor. Resolves the getters.
+		 * 
+		 * @param clazz
+		 *            Class of the checked objects.
+		 * @param restriction
+		 *            Restriction to check.
+		 */
+		CompiledRestriction(Class<?> clazz, IIndexQueryRestriction restriction) {
+			this.restriction = restriction;
+			List<String> qualifiedMethodNames = restriction.getQualifiedMethodNames();
+			methodNames = qualifiedMethodNames.toArray(new String[qualifiedMethodNames.size()]);
+			methodHandles = resolveMethodHandles(clazz);
+		}
+
+		/**
+		 * Resolves the getters starting with the given class.
+		 * 
+		 * @param clazz
+		 *            Class of the checked objects.
+		 * @return Resolved getters or <code>null</code> if the class does not have the first
+		 *         getter.
+		 */
+		private MethodHandle[] resolveMethodHandles(Class<?> clazz) {
+			MethodHandle[] handles = new MethodHandle[methodNames.length];
+			Class<?> declaredType = clazz;
+			for (int i = 0; i < methodNames.length; i++) {
+				if (null != declaredType) {
+					handles[i] = getMethodHandle(declaredType, methodNames[i]);
+				}
+				if (null != handles[i]) {
+					declaredType = getReturnType(declaredType, methodNames[i]);
+				} else if (0 == i) {
+					return null;
+				} else {
+					// resolved on the class of the returned object
+					declaredType = null;
+				}
+			}
+			return handles;
+		}
+
+		/**
+		 * Checks if the restriction is fulfilled.
+		 * 
+		 * @param object
+		 *            Object of the class the restriction was compiled for.
+		 * @return <code>true</code> if the indexing restriction is fulfilled.
+		 */
+		boolean isFulfilled(Object object) {
+			if (null == methodHandles) {
+				return false;
+			}
+
+			try {
+				Object executeOn = object;
+				for (int i = 0; i < methodHandles.length; i++) {
+					if (null == executeOn) {
+						return false;
+					}
+					MethodHandle methodHandle = methodHandles[i];
+					if (null == methodHandle) {
+						methodHandle = getMethodHandle(executeOn.getClass(), methodNames[i]);
+						if (null == methodHandle) {
+							return false;
+						}
+					}
+					executeOn = methodHandle.invokeExact(executeOn);
+				}
+
+				return restriction.isFulfilled(executeOn);
+			} catch (Throwable t) { // NOPMD
+				log.error("Error in find object to execute indexing restricton check.", t);
+				return false;
+			}
+		}
+
 	}
 
 }
@@ -0,0 +1,28 @@
+package rocks.inspectit.shared.cs.indexing.storage;
+
+import java.io.IOException;
+
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+
+/**
+ * Loads the parts of the storage indexing tree that are saved in the separate partition files.
+ * 
+ * @see rocks.inspectit.shared.cs.indexing.storage.impl.LazyStorageTreeComponent
+ */
+public interface IStorageTreePartitionLoader {
+
+	/**
+	 * Loads the tree component saved in the given partition file.
+	 * 
+	 * @param <E>
+	 *            Type of elements in the tree.
+	 * @param partitionFile
+	 *            Name of the partition file relative to the storage directory.
+	 * @return Tree component saved in the partition.
+	 * @throws IOException
+	 *             If partition file can not be read.
+	 * @throws SerializationException
+	 *             If de-serialization of the partition fails.
+	 */
+	<E> IStorageTreeComponent<E> loadPartition(String partitionFile) throws IOException, SerializationException;
+}
@@ -0,0 +1,217 @@
+package rocks.inspectit.shared.cs.indexing.storage.impl;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreePartitionLoader;
+
+/**
+ * Tree component that stands in the saved indexing tree for the part of the tree saved in the
+ * separate partition file. The partition is loaded with the {@link IStorageTreePartitionLoader}
+ * only when the query reaches this component. The loaded partition is held with the
+ * {@link SoftReference}, thus it can be evicted when memory is low and will be loaded again on the
+ * next query.
+ * <p>
+ * Same as the {@link CombinedStorageBranch} this component provides only read operations.
+ * 
+ * @param <E>
+ *            Type of elements in the tree.
+ */
+public class LazyStorageTreeComponent<E extends DefaultData> implements IStorageTreeComponent<E> {
+
+	/**
+	 * Name of the partition file relative to the storage directory.
+	 */
+	private String partitionFile;
+
+	/**
+	 * Loader of the partition.
+	 */
+	private transient IStorageTreePartitionLoader partitionLoader;
+
+	/**
+	 * Reference to the loaded partition.
+	 */
+	private transient volatile SoftReference<IStorageTreeComponent<E>> partitionReference;
+
+	/**
+	 * No-args constructor for serialization.
+	 */
+	public LazyStorageTreeComponent() {
+	}
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param partitionFile
+	 *            Name of the partition file relative to the storage directory.
+	 */
+	public LazyStorageTreeComponent(String partitionFile) {
+		this.partitionFile = partitionFile;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Call to this method throws the {@link UnsupportedOperationException} cause lazy component
+	 * should only be used for read operations.
+	 */
+	public IStorageDescriptor put(E element) throws IndexingException {
+		throw new UnsupportedOperationException("Lazy storage tree component provides only read-only operations.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public IStorageDescriptor get(E template) {
+		return getPartition().get(template);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Call to this method throws the {@link UnsupportedOperationException} cause lazy component
+	 * should only be used for read operations.
+	 */
+	public IStorageDescriptor getAndRemove(E template) {
+		throw new UnsupportedOperationException("Lazy storage tree component provides only read-only operations.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<IStorageDescriptor> query(IIndexQuery query) {
+		return getPartition().query(query);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<IStorageDescriptor> query(IIndexQuery query, ForkJoinPool forkJoinPool) {
+		return forkJoinPool.invoke(getTaskForForkJoinQuery(query));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public RecursiveTask<List<IStorageDescriptor>> getTaskForForkJoinQuery(IIndexQuery query) {
+		return getPartition().getTaskForForkJoinQuery(query);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The partition is already finalized when saved, thus nothing is done.
+	 */
+	public void preWriteFinalization() {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getComponentSize(IObjectSizes objectSizes) {
+		long size = objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(3, 0, 0, 0, 0, 0);
+		size += objectSizes.getSizeOf(partitionFile);
+		SoftReference<IStorageTreeComponent<E>> reference = partitionReference;
+		if (null != reference) {
+			size += objectSizes.alignTo8Bytes(objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(4, 0, 0, 0, 0, 0));
+			IStorageTreeComponent<E> partition = reference.get();
+			if (null != partition) {
+				size += partition.getComponentSize(objectSizes);
+			}
+		}
+		return objectSizes.alignTo8Bytes(size);
+	}
+
+	/**
+	 * Returns if the partition is currently loaded.
+	 * 
+	 * @return Returns if the partition is currently loaded.
+	 */
+	public boolean isPartitionLoaded() {
+		SoftReference<IStorageTreeComponent<E>> reference = partitionReference;
+		return (null != reference) && (null != reference.get());
+	}
+
+	/**
+	 * Releases the loaded partition. It will be loaded again on the next query.
+	 */
+	public void releasePartition() {
+		partitionReference = null;
+	}
+
+	/**
+	 * Returns the partition, loading it if it's not loaded or it has been evicted. As the tree
+	 * operations can not throw checked exceptions, failure of the loading is reported with the
+	 * {@link RuntimeException}.
+	 * 
+	 * @return Partition tree component.
+	 */
+	private IStorageTreeComponent<E> getPartition() {
+		SoftReference<IStorageTreeComponent<E>> reference = partitionReference;
+		IStorageTreeComponent<E> partition = (null != reference) ? reference.get() : null;
+		if (null != partition) {
+			return partition;
+		}
+
+		synchronized (this) {
+			reference = partitionReference;
+			partition = (null != reference) ? reference.get() : null;
+			if (null == partition) {
+				if (null == partitionLoader) {
+					throw new IllegalStateException("Partition loader is not set, storage index partition " + partitionFile + " can not be loaded.");
+				}
+				try {
+					partition = partitionLoader.loadPartition(partitionFile);
+				} catch (IOException | SerializationException e) {
+					throw new RuntimeException("Storage index partition " + partitionFile + " can not be loaded.", e);
+				}
+				partitionReference = new SoftReference<IStorageTreeComponent<E>>(partition);
+			}
+			return partition;
+		}
+	}
+
+	/**
+	 * Gets {@link #partitionFile}.
+	 * 
+	 * @return {@link #partitionFile}
+	 */
+	public String getPartitionFile() {
+		return partitionFile;
+	}
+
+	/**
+	 * Sets {@link #partitionLoader}.
+	 * 
+	 * @param partitionLoader
+	 *            New value for {@link #partitionLoader}
+	 */
+	public void setPartitionLoader(IStorageTreePartitionLoader partitionLoader) {
+		this.partitionLoader = partitionLoader;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("partitionFile", partitionFile);
+		toStringBuilder.append("partitionLoaded", isPartitionLoaded());
+		return toStringBuilder.toString();
+	}
+
+}
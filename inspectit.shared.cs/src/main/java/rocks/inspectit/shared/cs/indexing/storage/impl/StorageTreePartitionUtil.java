@@ -0,0 +1,94 @@
+package rocks.inspectit.shared.cs.indexing.storage.impl;
+
+import java.util.Map;
+import java.util.UUID;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.cs.indexing.AbstractBranch;
+import rocks.inspectit.shared.cs.indexing.ITreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreePartitionLoader;
+import rocks.inspectit.shared.cs.storage.StorageFileType;
+
+/**
+ * Utility for splitting the storage indexing tree in the partitions that are saved to separate
+ * files and loaded on demand with the {@link LazyStorageTreeComponent}.
+ */
+public final class StorageTreePartitionUtil {
+
+	/**
+	 * Private constructor.
+	 */
+	private StorageTreePartitionUtil() {
+	}
+
+	/**
+	 * Splits the indexing tree in partitions. The branches of the tree up to the given depth are
+	 * copied to the returned manifest tree, while every tree component on the given depth is
+	 * placed in the partitions map and replaced with the {@link LazyStorageTreeComponent} in the
+	 * manifest. The given tree is not changed.
+	 * <p>
+	 * If depth is zero or tree is not a {@link StorageBranch} the tree is returned as is and no
+	 * partitions are created.
+	 * 
+	 * @param <E>
+	 *            Type of elements in the tree.
+	 * @param tree
+	 *            Tree to partition.
+	 * @param depth
+	 *            Depth of the partitions, <code>1</code> means that each child of the root branch
+	 *            is a partition.
+	 * @param partitions
+	 *            Map to place the partitions in, keyed by the partition file name.
+	 * @return Manifest tree holding the {@link LazyStorageTreeComponent}s in place of the
+	 *         partitions.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends DefaultData> IStorageTreeComponent<E> partition(IStorageTreeComponent<E> tree, int depth, Map<String, IStorageTreeComponent<E>> partitions) {
+		if ((depth <= 0) || !(tree instanceof StorageBranch)) {
+			return tree;
+		}
+
+		StorageBranch<E> branch = (StorageBranch<E>) tree;
+		StorageBranch<E> manifest = new StorageBranch<E>(branch.getStorageBranchIndexer());
+		for (Map.Entry<Object, ITreeComponent<IStorageDescriptor, E>> entry : branch.getComponentMap().entrySet()) {
+			ITreeComponent<IStorageDescriptor, E> component = entry.getValue();
+			if (component instanceof IStorageTreeComponent) {
+				IStorageTreeComponent<E> storageTreeComponent = (IStorageTreeComponent<E>) component;
+				if (depth == 1) {
+					String partitionFile = UUID.randomUUID().toString() + StorageFileType.INDEX_PARTITION_FILE.getExtension();
+					partitions.put(partitionFile, storageTreeComponent);
+					component = new LazyStorageTreeComponent<E>(partitionFile);
+				} else {
+					component = partition(storageTreeComponent, depth - 1, partitions);
+				}
+			}
+			manifest.getComponentMap().put(entry.getKey(), component);
+		}
+		return manifest;
+	}
+
+	/**
+	 * Sets the partition loader to all {@link LazyStorageTreeComponent}s in the given tree.
+	 * 
+	 * @param component
+	 *            Tree to set the loader in.
+	 * @param partitionLoader
+	 *            Loader to set.
+	 */
+	public static void setPartitionLoader(ITreeComponent<?, ?> component, IStorageTreePartitionLoader partitionLoader) {
+		if (component instanceof LazyStorageTreeComponent) {
+			((LazyStorageTreeComponent<?>) component).setPartitionLoader(partitionLoader);
+		} else if (component instanceof AbstractBranch) {
+			for (ITreeComponent<?, ?> child : ((AbstractBranch<?, ?>) component).getComponentMap().values()) {
+				setPartitionLoader(child, partitionLoader);
+			}
+		} else if (component instanceof CombinedStorageBranch) {
+			for (ITreeComponent<?, ?> child : ((CombinedStorageBranch<?>) component).getBranches()) {
+				setPartitionLoader(child, partitionLoader);
+			}
+		}
+	}
+
+}
@@ -17,6 +17,11 @@ public enum StorageFileType {
 	 */
 	INDEX_FILE(".index"),
 
+	/**
+	 * Partitions of the storage index files that are loaded on demand.
+	 */
+	INDEX_PARTITION_FILE(".indexpart"),
+
 	/**
 	 * Storage data files.
 	 */
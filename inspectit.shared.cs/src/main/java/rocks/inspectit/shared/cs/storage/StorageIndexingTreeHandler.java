@@ -29,6 +29,7 @@ import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageTreePartitionUtil;
 import rocks.inspectit.shared.cs.storage.StorageWriter.WriteTask;
 import rocks.inspectit.shared.cs.storage.util.StorageIndexTreeProvider;
 
@@ -124,6 +125,13 @@ public class StorageIndexingTreeHandler {
 	@Value(value = "${storage.maximumIndexingTreeSize}")
 	long maximumIndexingTreeSize;
 
+	/**
+	 * Depth of the indexing tree on which the tree is split in partitions saved to separate files.
+	 * Zero means that the tree is saved in one file.
+	 */
+	@Value(value = "${storage.indexPartitionDepth}")
+	int indexPartitionDepth;
+
 	/**
 	 * Future for the task of saving the indexing tree.
 	 */
@@ -271,7 +279,7 @@ public class StorageIndexingTreeHandler {
 				}
 			}
 			currentIndexingTree.preWriteFinalization();
-			boolean written = storageWriter.writeNonDefaultDataObject(currentIndexingTree, getRandomFileName() + StorageFileType.INDEX_FILE.getExtension());
+			boolean written = writeIndexingTree(currentIndexingTree);
 			if (!written) {
 				log.error("Indexing tree saving failed. Indexing tree might be lost.");
 			}
@@ -287,6 +295,27 @@ public class StorageIndexingTreeHandler {
 		return writeTasksInProcess.size();
 	}
 
+	/**
+	 * Writes the indexing tree. The tree is split in the partitions on the
+	 * {@link #indexPartitionDepth} and each partition is written to a separate file, so that
+	 * readers can load only the partitions their queries reach. The manifest tree that points to
+	 * the partitions is written last, thus a saved manifest never points to a missing partition.
+	 * 
+	 * @param indexingTree
+	 *            Tree to write.
+	 * @return True if the tree was written successfully, otherwise false.
+	 */
+	private boolean writeIndexingTree(IStorageTreeComponent<DefaultData> indexingTree) {
+		Map<String, IStorageTreeComponent<DefaultData>> partitions = new HashMap<String, IStorageTreeComponent<DefaultData>>();
+		IStorageTreeComponent<DefaultData> manifest = StorageTreePartitionUtil.partition(indexingTree, indexPartitionDepth, partitions);
+		for (Map.Entry<String, IStorageTreeComponent<DefaultData>> entry : partitions.entrySet()) {
+			if (!storageWriter.writeNonDefaultDataObject(entry.getValue(), entry.getKey())) {
+				return false;
+			}
+		}
+		return storageWriter.writeNonDefaultDataObject(manifest, getRandomFileName() + StorageFileType.INDEX_FILE.getExtension());
+	}
+
 	/**
 	 * Returns random file name.
 	 * 
@@ -335,7 +364,7 @@ public class StorageIndexingTreeHandler {
 										boolean safeToSave = Collections.disjoint(writeTasksToWait, writeTasksInProcess.keySet());
 										if (safeToSave) {
 											currentIndexingTree.preWriteFinalization();
-											boolean written = storageWriter.writeNonDefaultDataObject(currentIndexingTree, getRandomFileName() + StorageFileType.INDEX_FILE.getExtension());
+											boolean written = writeIndexingTree(currentIndexingTree);
 											if (!written) {
 												log.error("Indexing tree saving failed. Indexing tree might be lost.");
 											}
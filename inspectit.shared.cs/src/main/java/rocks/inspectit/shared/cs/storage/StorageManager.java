@@ -3,6 +3,7 @@ package rocks.inspectit.shared.cs.storage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileStore;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -40,6 +41,7 @@ import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManag
 import rocks.inspectit.shared.cs.indexing.aggregation.IAggregator;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockIndex;
 import rocks.inspectit.shared.cs.storage.util.DeleteFileVisitor;
 import rocks.inspectit.shared.cs.storage.util.StorageDeleteFileVisitor;
 
@@ -162,6 +164,29 @@ public abstract class StorageManager {
 		return getStoragePath(storageData).resolve(channelId + StorageFileType.DATA_FILE.getExtension());
 	}
 
+	/**
+	 * Returns the {@link BlockIndex} of the channel for given {@link StorageData} and ID of the
+	 * channel.
+	 * 
+	 * @param storageData
+	 *            {@link IStorageData} object.
+	 * @param channelId
+	 *            Id of channel.
+	 * @return {@link BlockIndex} or <code>null</code> if the channel is not block compressed or
+	 *         does not exist.
+	 * @throws IOException
+	 *             If reading of the index fails.
+	 */
+	public BlockIndex getBlockIndex(IStorageData storageData, int channelId) throws IOException {
+		Path channelPath = getChannelPath(storageData, channelId);
+		if (!Files.exists(channelPath)) {
+			return null;
+		}
+		try (FileChannel fileChannel = FileChannel.open(channelPath, StandardOpenOption.READ)) {
+			return BlockIndex.read(fileChannel);
+		}
+	}
+
 	/**
 	 * Returns path for the cached storage data file.
 	 * 
@@ -31,6 +31,7 @@ import javax.annotation.Resource;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import com.esotericsoftware.kryo.io.Output;
 
@@ -44,6 +45,7 @@ import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManag
 import rocks.inspectit.shared.cs.communication.data.cmr.WritingStatus;
 import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
 import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
+import rocks.inspectit.shared.cs.storage.nio.write.BlockCompressingWriter;
 import rocks.inspectit.shared.cs.storage.nio.write.WritingChannelManager;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
 import rocks.inspectit.shared.cs.storage.processor.write.AbstractWriteDataProcessor;
@@ -107,6 +109,31 @@ public class StorageWriter implements IWriter {
 	@Autowired
 	WritingChannelManager writingChannelManager;
 
+	/**
+	 * {@link BlockCompressingWriter} used when the {@link #blockCompression} is active.
+	 */
+	@Autowired
+	BlockCompressingWriter blockCompressingWriter;
+
+	/**
+	 * If the channels are written as compressed blocks.
+	 */
+	@Value("${storage.blockCompression}")
+	boolean blockCompression;
+
+	/**
+	 * If the writes of the data are coalesced per channel. Not used when the
+	 * {@link #blockCompression} is active, as the blocks already coalesce the data.
+	 */
+	@Value("${storage.writeCoalescing}")
+	boolean writeCoalescing;
+
+	/**
+	 * Maximum time in milliseconds the coalesced writes wait before they are flushed.
+	 */
+	@Value("${storage.writeCoalescingFlushDelay}")
+	long writeCoalescingFlushDelay = 100;
+
 	/**
 	 * {@link SerializationManagerProvider}.
 	 */
@@ -169,6 +196,11 @@ public class StorageWriter implements IWriter {
 	 */
 	private ScheduledFuture<?> checkWritingStatusFuture;
 
+	/**
+	 * Future for the task of flushing the coalesced writes.
+	 */
+	private ScheduledFuture<?> flushCoalescedWritesFuture;
+
 	/**
 	 * The set of the currently active writing tasks represented by {@link FutureTask}. When this
 	 * set is empty, it means that no writing tasks is currently being executed.
@@ -322,6 +354,16 @@ public class StorageWriter implements IWriter {
 				}
 			}, 30, 30, TimeUnit.SECONDS);
 
+			if (isWriteCoalescingActive()) {
+				// coalesced writes must not wait for the full buffer for too long
+				flushCoalescedWritesFuture = scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
+					@Override
+					public void run() {
+						flushCoalescedWrites();
+					}
+				}, writeCoalescingFlushDelay, writeCoalescingFlushDelay, TimeUnit.MILLISECONDS);
+			}
+
 			for (AbstractWriteDataProcessor processor : writeDataProcessors) {
 				try {
 					processor.onPrepare(storageManager, this, storageData);
@@ -407,6 +449,25 @@ public class StorageWriter implements IWriter {
 			// shut the executor
 			shutdownWritingExecutorService();
 
+			if (isWriteCoalescingActive()) {
+				// write what is left so that the pending writes can complete
+				if (null != flushCoalescedWritesFuture) {
+					flushCoalescedWritesFuture.cancel(false);
+				}
+				flushCoalescedWrites();
+			}
+
+			if (blockCompression) {
+				// write the last blocks so that the pending writes can complete
+				for (Path channelPath : openedChannelPaths) {
+					try {
+						blockCompressingWriter.finishChannel(channelPath);
+					} catch (IOException e) {
+						log.warn("Writing the last block of the channel " + channelPath + " failed.", e);
+					}
+				}
+			}
+
 			if (doFinalize) {
 				finalizeWrite();
 			}
@@ -423,6 +484,28 @@ public class StorageWriter implements IWriter {
 		}
 	}
 
+	/**
+	 * Flushes the coalesced writes of all opened channels.
+	 */
+	private void flushCoalescedWrites() {
+		for (Path channelPath : openedChannelPaths) {
+			try {
+				writingChannelManager.flush(channelPath);
+			} catch (IOException e) {
+				log.warn("Flushing the coalesced writes of the channel " + channelPath + " failed.", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns if the writes are coalesced with the {@link WritingChannelManager}.
+	 * 
+	 * @return If the writes are coalesced.
+	 */
+	private boolean isWriteCoalescingActive() {
+		return writeCoalescing && !blockCompression;
+	}
+
 	/**
 	 * Correctly shuts down the {@link #writingExecutorService}.
 	 */
@@ -674,6 +757,10 @@ public class StorageWriter implements IWriter {
 				// write to disk
 				Path channelPath = storageManager.getChannelPath(storageData, channelId);
 				openedChannelPaths.add(channelPath);
+				if (blockCompression || writeCoalescing) {
+					writeCopied(extendedByteBufferOutputStream, channelPath);
+					return;
+				}
 				try {
 					// position and size will be set in the completion runnable
 					writingChannelManager.write(extendedByteBufferOutputStream, channelPath, completionRunnable);
@@ -694,6 +781,43 @@ public class StorageWriter implements IWriter {
 			}
 		}
 
+		/**
+		 * Appends the serialized data to the current block of the channel or coalesces it with the
+		 * other writes to the channel. The stream is closed right away as the bytes are copied.
+		 * 
+		 * @param extendedByteBufferOutputStream
+		 *            Stream holding the serialized data.
+		 * @param channelPath
+		 *            Path to the channel's file.
+		 */
+		private void writeCopied(ExtendedByteBufferOutputStream extendedByteBufferOutputStream, Path channelPath) {
+			// position and size will be set in the completion runnable, for the compressed blocks
+			// these are the logical ones in the channel
+			WriteReadCompletionRunnable completionRunnable = new WriteReadCompletionRunnable() {
+				@Override
+				public void run() {
+					if (isCompleted()) {
+						indexingTreeHandler.writeSuccessful(WriteTask.this, getAttemptedWriteReadPosition(), getAttemptedWriteReadSize());
+					} else {
+						indexingTreeHandler.writeFailed(WriteTask.this);
+					}
+				}
+			};
+
+			try {
+				if (blockCompression) {
+					blockCompressingWriter.write(extendedByteBufferOutputStream, channelPath, completionRunnable);
+				} else {
+					writingChannelManager.writeCoalesced(extendedByteBufferOutputStream, channelPath, completionRunnable);
+				}
+			} catch (IOException e) {
+				indexingTreeHandler.writeFailed(this);
+				log.error("Exception occurred while attempting to write data to disk", e);
+			} finally {
+				extendedByteBufferOutputStream.close();
+			}
+		}
+
 		/**
 		 * @return Returns data to be written by this task.
 		 */
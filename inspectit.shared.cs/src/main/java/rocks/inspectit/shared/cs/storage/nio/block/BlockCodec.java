@@ -0,0 +1,92 @@
+package rocks.inspectit.shared.cs.storage.nio.block;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and decompresses the blocks of the block compressed storage channels. The blocks are
+ * compressed with the {@link Deflater} using {@link Deflater#BEST_SPEED}, as the storage data is
+ * very repetitive and the compression must keep up with the writing.
+ */
+public final class BlockCodec {
+
+	/**
+	 * Private constructor.
+	 */
+	private BlockCodec() {
+	}
+
+	/**
+	 * Creates the deflater for compressing the blocks.
+	 * 
+	 * @return {@link Deflater}
+	 */
+	public static Deflater createDeflater() {
+		return new Deflater(Deflater.BEST_SPEED);
+	}
+
+	/**
+	 * Compresses the block.
+	 * 
+	 * @param deflater
+	 *            Deflater to use, it is reset before compressing.
+	 * @param block
+	 *            Uncompressed bytes.
+	 * @param length
+	 *            Number of bytes in the block.
+	 * @return Compressed bytes.
+	 */
+	public static byte[] compress(Deflater deflater, byte[] block, int length) {
+		deflater.reset();
+		deflater.setInput(block, 0, length);
+		deflater.finish();
+		byte[] compressed = new byte[Math.max(64, length / 2)];
+		int compressedLength = 0;
+		while (!deflater.finished()) {
+			if (compressedLength == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+		}
+		return Arrays.copyOf(compressed, compressedLength);
+	}
+
+	/**
+	 * Decompresses the block.
+	 * 
+	 * @param inflater
+	 *            Inflater to use, it is reset before decompressing.
+	 * @param compressed
+	 *            Array holding the compressed block.
+	 * @param offset
+	 *            Offset of the compressed block in the array.
+	 * @param compressedLength
+	 *            Length of the compressed block.
+	 * @param size
+	 *            Uncompressed size of the block.
+	 * @return Uncompressed bytes.
+	 * @throws IOException
+	 *             If the block can not be decompressed.
+	 */
+	public static byte[] decompress(Inflater inflater, byte[] compressed, int offset, int compressedLength, int size) throws IOException {
+		inflater.reset();
+		inflater.setInput(compressed, offset, compressedLength);
+		byte[] block = new byte[size];
+		int length = 0;
+		try {
+			while (!inflater.finished() && !inflater.needsInput() && (length < size)) {
+				length += inflater.inflate(block, length, size - length);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Storage block can not be decompressed.", e);
+		}
+		if (length != size) {
+			throw new IOException("Storage block decompressed to " + length + " bytes, expected " + size + " bytes.");
+		}
+		return block;
+	}
+
+}
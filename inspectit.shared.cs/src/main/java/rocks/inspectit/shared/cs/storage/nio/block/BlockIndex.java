@@ -0,0 +1,310 @@
+package rocks.inspectit.shared.cs.storage.nio.block;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Index of the compressed blocks of one storage channel file. The data of a block compressed
+ * channel is appended into blocks of {@link #blockSize} bytes that are compressed one by one, so
+ * the logical (uncompressed) position of the data defines the block it belongs to and the offset
+ * in that block. The storage descriptors keep pointing to the logical positions.
+ * <p>
+ * The index is written at the end of the channel file, followed by a footer of
+ * {@link #FOOTER_SIZE} bytes holding the position of the index, the format version and the
+ * {@link #MAGIC} number. Files that do not end with the footer are not compressed.
+ */
+public class BlockIndex {
+
+	/**
+	 * Default size of the uncompressed block.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	/**
+	 * Magic number that ends the block compressed channel files.
+	 */
+	public static final long MAGIC = 0x69744254434b5a31L;
+
+	/**
+	 * Version of the format.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Size of the footer in bytes (index position, format version and magic number).
+	 */
+	public static final int FOOTER_SIZE = 20;
+
+	/**
+	 * Size of one block entry in the index in bytes.
+	 */
+	private static final int ENTRY_SIZE = 16;
+
+	/**
+	 * Size of the uncompressed block.
+	 */
+	private final int blockSize;
+
+	/**
+	 * Number of blocks.
+	 */
+	private int blockCount;
+
+	/**
+	 * Positions of the compressed blocks in the file.
+	 */
+	private long[] positions = new long[16];
+
+	/**
+	 * Compressed sizes of the blocks.
+	 */
+	private int[] compressedSizes = new int[16];
+
+	/**
+	 * Uncompressed sizes of the blocks. Only the last block can be smaller than the
+	 * {@link #blockSize}.
+	 */
+	private int[] sizes = new int[16];
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param blockSize
+	 *            Size of the uncompressed block.
+	 */
+	public BlockIndex(int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Block size must be positive.");
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Adds the next block to the index.
+	 * 
+	 * @param position
+	 *            Position of the compressed block in the file.
+	 * @param compressedSize
+	 *            Compressed size of the block.
+	 * @param size
+	 *            Uncompressed size of the block.
+	 */
+	public void addBlock(long position, int compressedSize, int size) {
+		if (blockCount == positions.length) {
+			positions = Arrays.copyOf(positions, blockCount * 2);
+			compressedSizes = Arrays.copyOf(compressedSizes, blockCount * 2);
+			sizes = Arrays.copyOf(sizes, blockCount * 2);
+		}
+		positions[blockCount] = position;
+		compressedSizes[blockCount] = compressedSize;
+		sizes[blockCount] = size;
+		blockCount++;
+	}
+
+	/**
+	 * Returns the block the logical position belongs to.
+	 * 
+	 * @param logicalPosition
+	 *            Uncompressed position in the channel.
+	 * @return Block number.
+	 */
+	public int getBlock(long logicalPosition) {
+		return (int) (logicalPosition / blockSize);
+	}
+
+	/**
+	 * Returns the offset of the logical position in its block.
+	 * 
+	 * @param logicalPosition
+	 *            Uncompressed position in the channel.
+	 * @return Offset in the uncompressed block.
+	 */
+	public int getOffset(long logicalPosition) {
+		return (int) (logicalPosition % blockSize);
+	}
+
+	/**
+	 * Returns the position of the compressed block in the file.
+	 * 
+	 * @param block
+	 *            Block number.
+	 * @return Position of the compressed block.
+	 */
+	public long getPosition(int block) {
+		checkBlock(block);
+		return positions[block];
+	}
+
+	/**
+	 * Returns the compressed size of the block.
+	 * 
+	 * @param block
+	 *            Block number.
+	 * @return Compressed size.
+	 */
+	public int getCompressedSize(int block) {
+		checkBlock(block);
+		return compressedSizes[block];
+	}
+
+	/**
+	 * Returns the uncompressed size of the block.
+	 * 
+	 * @param block
+	 *            Block number.
+	 * @return Uncompressed size.
+	 */
+	public int getSize(int block) {
+		checkBlock(block);
+		return sizes[block];
+	}
+
+	/**
+	 * Gets {@link #blockSize}.
+	 * 
+	 * @return {@link #blockSize}
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Gets {@link #blockCount}.
+	 * 
+	 * @return {@link #blockCount}
+	 */
+	public int getBlockCount() {
+		return blockCount;
+	}
+
+	/**
+	 * Serializes the index followed by the footer.
+	 * 
+	 * @param indexPosition
+	 *            Position the index will be written to in the file.
+	 * @return Buffer ready to be written.
+	 */
+	public ByteBuffer serialize(long indexPosition) {
+		ByteBuffer buffer = ByteBuffer.allocate(8 + (blockCount * ENTRY_SIZE) + FOOTER_SIZE);
+		buffer.putInt(blockSize);
+		buffer.putInt(blockCount);
+		for (int i = 0; i < blockCount; i++) {
+			buffer.putLong(positions[i]);
+			buffer.putInt(compressedSizes[i]);
+			buffer.putInt(sizes[i]);
+		}
+		buffer.putLong(indexPosition);
+		buffer.putInt(FORMAT_VERSION);
+		buffer.putLong(MAGIC);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Returns the position of the index from the footer.
+	 * 
+	 * @param footer
+	 *            Buffer holding the last {@link #FOOTER_SIZE} bytes of the file.
+	 * @return Position of the index or <code>-1</code> if the footer does not belong to a block
+	 *         compressed file.
+	 * @throws IOException
+	 *             If the file has been written with an unknown format version.
+	 */
+	public static long getIndexPosition(ByteBuffer footer) throws IOException {
+		if (footer.remaining() < FOOTER_SIZE) {
+			return -1;
+		}
+		long indexPosition = footer.getLong();
+		int version = footer.getInt();
+		long magic = footer.getLong();
+		if (MAGIC != magic) {
+			return -1;
+		}
+		if (FORMAT_VERSION != version) {
+			throw new IOException("Block compressed storage file format version " + version + " is not supported.");
+		}
+		return indexPosition;
+	}
+
+	/**
+	 * Deserializes the index.
+	 * 
+	 * @param buffer
+	 *            Buffer holding the index. Footer is ignored.
+	 * @return {@link BlockIndex}
+	 */
+	public static BlockIndex deserialize(ByteBuffer buffer) {
+		BlockIndex blockIndex = new BlockIndex(buffer.getInt());
+		int blockCount = buffer.getInt();
+		for (int i = 0; i < blockCount; i++) {
+			blockIndex.addBlock(buffer.getLong(), buffer.getInt(), buffer.getInt());
+		}
+		return blockIndex;
+	}
+
+	/**
+	 * Reads the index of the channel file.
+	 * 
+	 * @param fileChannel
+	 *            Channel of the file.
+	 * @return {@link BlockIndex} or <code>null</code> if the file is not block compressed.
+	 * @throws IOException
+	 *             If reading fails.
+	 */
+	public static BlockIndex read(FileChannel fileChannel) throws IOException {
+		long fileSize = fileChannel.size();
+		if (fileSize < FOOTER_SIZE) {
+			return null;
+		}
+
+		ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+		readFully(fileChannel, footer, fileSize - FOOTER_SIZE);
+		long indexPosition = getIndexPosition(footer);
+		if ((indexPosition < 0) || (indexPosition > (fileSize - FOOTER_SIZE))) {
+			return null;
+		}
+
+		ByteBuffer index = ByteBuffer.allocate((int) (fileSize - FOOTER_SIZE - indexPosition));
+		readFully(fileChannel, index, indexPosition);
+		return deserialize(index);
+	}
+
+	/**
+	 * Reads the buffer completely from the given position and flips it.
+	 * 
+	 * @param fileChannel
+	 *            Channel to read from.
+	 * @param buffer
+	 *            Buffer to fill.
+	 * @param position
+	 *            Position in the file.
+	 * @throws IOException
+	 *             If reading fails or the file ends before the buffer is filled.
+	 */
+	private static void readFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+		long readPosition = position;
+		while (buffer.hasRemaining()) {
+			int read = fileChannel.read(buffer, readPosition);
+			if (read < 0) {
+				throw new IOException("Unexpected end of the block compressed storage file.");
+			}
+			readPosition += read;
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Checks that the block exists.
+	 * 
+	 * @param block
+	 *            Block number.
+	 */
+	private void checkBlock(int block) {
+		if ((block < 0) || (block >= blockCount)) {
+			throw new IndexOutOfBoundsException("Block " + block + " does not exist, channel has " + blockCount + " blocks.");
+		}
+	}
+
+}
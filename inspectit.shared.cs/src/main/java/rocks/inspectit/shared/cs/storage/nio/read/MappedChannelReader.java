@@ -0,0 +1,399 @@
+package rocks.inspectit.shared.cs.storage.nio.read;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.storage.serializer.ISerializer;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.util.KryoUtil;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.storage.IStorageData;
+import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockCodec;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockIndex;
+
+/**
+ * Reads the storage data from the local disk by memory mapping the channel files. The objects are
+ * de-serialized straight from the mapped regions with the {@link ByteBufferInput}, thus there is
+ * no copying to the intermediate buffers and no asynchronous reading as with the
+ * {@link ReadingChannelManager}.
+ * <p>
+ * The channel files are mapped in regions of at most {@link #regionSize} bytes, so that big
+ * storages do not exhaust the address space. The regions are mapped privately (copy on write),
+ * because the {@link ByteBufferInput} temporarily changes the bytes of the ASCII strings while
+ * reading them. The channel files are never changed, but they must be writable. The block
+ * compressed channels can not be de-serialized from the mapped file, their blocks are read with
+ * positional reads and inflated.
+ */
+public class MappedChannelReader {
+
+	/**
+	 * Default size of the mapped region.
+	 */
+	public static final int DEFAULT_REGION_SIZE = 256 * 1024 * 1024;
+
+	/**
+	 * The log of this class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * {@link StorageManager}.
+	 */
+	private StorageManager storageManager;
+
+	/**
+	 * Maximum size of the mapped region, files smaller than this are mapped completely.
+	 */
+	private int regionSize = DEFAULT_REGION_SIZE;
+
+	/**
+	 * Reads and de-serializes the data described by the descriptors. The data of each channel is
+	 * returned in the order of the descriptors pointing to the channel.
+	 * 
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param storageData
+	 *            {@link IStorageData} to read data for. Storage must be available on the local
+	 *            disk.
+	 * @param descriptors
+	 *            Descriptors that point to the data.
+	 * @param serializer
+	 *            Serializer to use, must not be used by other threads during the read.
+	 * @return De-serialized objects.
+	 * @throws IOException
+	 *             If the channel files can not be opened, mapped or read, or if descriptor points
+	 *             outside of the channel file.
+	 * @throws SerializationException
+	 *             If de-serialization fails.
+	 */
+	public <E> List<E> read(IStorageData storageData, List<IStorageDescriptor> descriptors, ISerializer serializer) throws IOException, SerializationException {
+		Map<Path, List<IStorageDescriptor>> channelDescriptors = new LinkedHashMap<Path, List<IStorageDescriptor>>();
+		for (IStorageDescriptor descriptor : descriptors) {
+			Path channelPath = storageManager.getChannelPath(storageData, descriptor);
+			List<IStorageDescriptor> list = channelDescriptors.get(channelPath);
+			if (null == list) {
+				list = new ArrayList<IStorageDescriptor>();
+				channelDescriptors.put(channelPath, list);
+			}
+			list.add(descriptor);
+		}
+
+		List<E> result = new ArrayList<E>(descriptors.size());
+		ByteBufferInput input = new ByteBufferInput();
+		for (Map.Entry<Path, List<IStorageDescriptor>> entry : channelDescriptors.entrySet()) {
+			try (FileChannel fileChannel = FileChannel.open(entry.getKey(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				BlockIndex blockIndex = BlockIndex.read(fileChannel);
+				if (null == blockIndex) {
+					readMapped(fileChannel, entry.getKey(), entry.getValue(), serializer, input, result);
+				} else {
+					readCompressed(fileChannel, blockIndex, entry.getValue(), serializer, input, result);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the {@link BlockIndex} of the channel the descriptor points to. The index can be
+	 * passed to the {@link #read(IStorageData, List, BlockIndex, ISerializer)}, so that the index
+	 * is read only once when the data of the channel is read in several parts.
+	 * 
+	 * @param storageData
+	 *            {@link IStorageData} to read data for. Storage must be available on the local
+	 *            disk.
+	 * @param descriptor
+	 *            Descriptor pointing to the channel.
+	 * @return {@link BlockIndex} or <code>null</code> if the channel is not block compressed.
+	 * @throws IOException
+	 *             If the channel file can not be opened or read.
+	 */
+	public BlockIndex getBlockIndex(IStorageData storageData, IStorageDescriptor descriptor) throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(storageManager.getChannelPath(storageData, descriptor), StandardOpenOption.READ)) {
+			return BlockIndex.read(fileChannel);
+		}
+	}
+
+	/**
+	 * Reads and de-serializes the data described by the descriptors that all point to the same
+	 * channel, using the already read {@link BlockIndex} of the channel. The data is returned in
+	 * the order of the descriptors.
+	 * 
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param storageData
+	 *            {@link IStorageData} to read data for. Storage must be available on the local
+	 *            disk.
+	 * @param descriptors
+	 *            Descriptors that point to the data of one channel.
+	 * @param blockIndex
+	 *            {@link BlockIndex} of the channel as returned by
+	 *            {@link #getBlockIndex(IStorageData, IStorageDescriptor)}, <code>null</code> if the
+	 *            channel is not block compressed.
+	 * @param serializer
+	 *            Serializer to use, must not be used by other threads during the read.
+	 * @return De-serialized objects.
+	 * @throws IOException
+	 *             If the channel file can not be opened, mapped or read, or if descriptor points
+	 *             outside of the channel file.
+	 * @throws SerializationException
+	 *             If de-serialization fails.
+	 */
+	public <E> List<E> read(IStorageData storageData, List<IStorageDescriptor> descriptors, BlockIndex blockIndex, ISerializer serializer) throws IOException, SerializationException {
+		List<E> result = new ArrayList<E>(descriptors.size());
+		if (descriptors.isEmpty()) {
+			return result;
+		}
+
+		Path channelPath = storageManager.getChannelPath(storageData, descriptors.get(0));
+		ByteBufferInput input = new ByteBufferInput();
+		if (null == blockIndex) {
+			try (FileChannel fileChannel = FileChannel.open(channelPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				readMapped(fileChannel, channelPath, descriptors, serializer, input, result);
+			}
+		} else {
+			// compressed blocks are only read, no need to open for writing
+			try (FileChannel fileChannel = FileChannel.open(channelPath, StandardOpenOption.READ)) {
+				readCompressed(fileChannel, blockIndex, descriptors, serializer, input, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the descriptors from the mapped regions of the not compressed channel.
+	 * 
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param fileChannel
+	 *            Opened channel file.
+	 * @param channelPath
+	 *            Path to the channel's file.
+	 * @param descriptors
+	 *            Descriptors pointing to the channel.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @param input
+	 *            Input to use.
+	 * @param result
+	 *            List to add the de-serialized objects to.
+	 * @throws IOException
+	 *             If mapping fails or descriptor points outside of the file.
+	 * @throws SerializationException
+	 *             If de-serialization fails.
+	 */
+	private <E> void readMapped(FileChannel fileChannel, Path channelPath, List<IStorageDescriptor> descriptors, ISerializer serializer, ByteBufferInput input, List<E> result)
+			throws IOException, SerializationException {
+		long fileSize = fileChannel.size();
+		MappedByteBuffer region = null;
+		long regionPosition = 0;
+		try {
+			for (IStorageDescriptor descriptor : descriptors) {
+				long position = descriptor.getPosition();
+				long size = descriptor.getSize();
+				if ((position < 0) || (position + size > fileSize)) {
+					throw new IOException("Descriptor " + descriptor + " points outside of the channel file " + channelPath + ".");
+				}
+
+				if ((null == region) || (position < regionPosition) || (position + size > regionPosition + region.capacity())) {
+					unmap(region);
+					region = null;
+					if (fileSize <= regionSize) {
+						regionPosition = 0;
+					} else {
+						regionPosition = position;
+					}
+					long regionLength = Math.min(fileSize - regionPosition, Math.max(regionSize, size));
+					if (regionLength > Integer.MAX_VALUE) {
+						throw new IOException("Descriptor " + descriptor + " is too big to be mapped.");
+					}
+					region = fileChannel.map(MapMode.PRIVATE, regionPosition, regionLength);
+				}
+
+				ByteBuffer buffer = region.duplicate();
+				buffer.position((int) (position - regionPosition));
+				buffer.limit((int) (position - regionPosition + size));
+				deserialize(buffer.slice(), serializer, input, result);
+			}
+		} finally {
+			unmap(region);
+		}
+	}
+
+	/**
+	 * Reads the descriptors from the block compressed channel.
+	 * 
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param fileChannel
+	 *            Opened channel file.
+	 * @param blockIndex
+	 *            Block index of the channel.
+	 * @param descriptors
+	 *            Descriptors pointing to the channel.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @param input
+	 *            Input to use.
+	 * @param result
+	 *            List to add the de-serialized objects to.
+	 * @throws IOException
+	 *             If reading or decompressing fails.
+	 * @throws SerializationException
+	 *             If de-serialization fails.
+	 */
+	private <E> void readCompressed(FileChannel fileChannel, BlockIndex blockIndex, List<IStorageDescriptor> descriptors, ISerializer serializer, ByteBufferInput input, List<E> result)
+			throws IOException, SerializationException {
+		Inflater inflater = new Inflater();
+		byte[] block = null;
+		int blockNumber = -1;
+		try {
+			for (IStorageDescriptor descriptor : descriptors) {
+				byte[] bytes = new byte[(int) descriptor.getSize()];
+				long position = descriptor.getPosition();
+				int read = 0;
+				while (read < bytes.length) {
+					int number = blockIndex.getBlock(position);
+					if (number >= blockIndex.getBlockCount()) {
+						throw new IOException("Descriptor " + descriptor + " points outside of the last block.");
+					}
+					if (number != blockNumber) {
+						block = readBlock(fileChannel, blockIndex, number, inflater);
+						blockNumber = number;
+					}
+					int offset = blockIndex.getOffset(position);
+					int length = Math.min(bytes.length - read, block.length - offset);
+					if (length <= 0) {
+						throw new IOException("Descriptor " + descriptor + " points outside of the block.");
+					}
+					System.arraycopy(block, offset, bytes, read, length);
+					read += length;
+					position += length;
+				}
+				deserialize(ByteBuffer.wrap(bytes), serializer, input, result);
+			}
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Reads and inflates the block.
+	 * 
+	 * @param fileChannel
+	 *            Opened channel file.
+	 * @param blockIndex
+	 *            Block index of the channel.
+	 * @param number
+	 *            Number of the block.
+	 * @param inflater
+	 *            Inflater to use.
+	 * @return Decompressed block.
+	 * @throws IOException
+	 *             If reading or decompressing fails.
+	 */
+	private byte[] readBlock(FileChannel fileChannel, BlockIndex blockIndex, int number, Inflater inflater) throws IOException {
+		int compressedSize = blockIndex.getCompressedSize(number);
+		long position = blockIndex.getPosition(number);
+		ByteBuffer compressed = ByteBuffer.allocate(compressedSize);
+		while (compressed.hasRemaining()) {
+			if (fileChannel.read(compressed, position + compressed.position()) < 0) {
+				throw new IOException("Compressed block " + number + " is outside of the channel file.");
+			}
+		}
+		return BlockCodec.decompress(inflater, compressed.array(), 0, compressedSize, blockIndex.getSize(number));
+	}
+
+	/**
+	 * De-serializes all objects in the buffer.
+	 * 
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param buffer
+	 *            Buffer holding the serialized objects from position zero to the limit.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @param input
+	 *            Input to use.
+	 * @param result
+	 *            List to add the de-serialized objects to.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If de-serialization fails.
+	 */
+	@SuppressWarnings("unchecked")
+	private <E> void deserialize(ByteBuffer buffer, ISerializer serializer, ByteBufferInput input, List<E> result) throws IOException, SerializationException {
+		input.setBuffer(buffer);
+		while (KryoUtil.hasMoreBytes(input)) {
+			result.add((E) serializer.deserialize(input));
+		}
+	}
+
+	/**
+	 * Releases the mapped region without waiting for the garbage collection, so that the channel
+	 * file can be deleted right after the read on all platforms. The region must not be used
+	 * after this call. If the region can not be released on this JVM, it will be released when
+	 * garbage collected.
+	 * 
+	 * @param region
+	 *            Mapped region, can be <code>null</code>.
+	 */
+	private void unmap(MappedByteBuffer region) {
+		if (null == region) {
+			return;
+		}
+		try {
+			Method cleanerMethod = region.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(region);
+			if (null != cleaner) {
+				Method cleanMethod = cleaner.getClass().getMethod("clean");
+				cleanMethod.setAccessible(true);
+				cleanMethod.invoke(cleaner);
+			}
+		} catch (Exception e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Mapped region can not be released, it will be released when garbage collected.", e);
+			}
+		}
+	}
+
+	/**
+	 * Sets {@link #storageManager}.
+	 * 
+	 * @param storageManager
+	 *            New value for {@link #storageManager}
+	 */
+	public void setStorageManager(StorageManager storageManager) {
+		this.storageManager = storageManager;
+	}
+
+	/**
+	 * Sets {@link #regionSize}.
+	 * 
+	 * @param regionSize
+	 *            New value for {@link #regionSize}
+	 */
+	public void setRegionSize(int regionSize) {
+		this.regionSize = regionSize;
+	}
+
+}
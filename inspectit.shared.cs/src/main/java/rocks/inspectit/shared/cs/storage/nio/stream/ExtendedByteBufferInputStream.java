@@ -5,15 +5,19 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Inflater;
 
 import javax.annotation.Resource;
 
@@ -32,6 +36,8 @@ import rocks.inspectit.shared.cs.storage.IStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageManager;
 import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockCodec;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockIndex;
 import rocks.inspectit.shared.cs.storage.nio.read.ReadingChannelManager;
 
 /**
@@ -228,7 +234,8 @@ public class ExtendedByteBufferInputStream extends AbstractExtendedByteBufferInp
 
 	/**
 	 * Read task that reads one by one descriptor and puts the full buffers to the full buffers
-	 * queue.
+	 * queue. Descriptors pointing to the block compressed channels are read by decompressing only
+	 * the blocks holding the data of the descriptor.
 	 * 
 	 * @author Ivan Senic
 	 * 
@@ -251,16 +258,61 @@ public class ExtendedByteBufferInputStream extends AbstractExtendedByteBufferInp
 		 */
 		private AtomicBoolean wait = new AtomicBoolean();
 
+		/**
+		 * Block indexes of the channels, <code>null</code> for the channels that are not
+		 * compressed.
+		 */
+		private Map<Integer, BlockIndex> blockIndexes = new HashMap<Integer, BlockIndex>();
+
+		/**
+		 * Inflater for the compressed blocks.
+		 */
+		private Inflater inflater;
+
+		/**
+		 * Path of the channel of the last decompressed block.
+		 */
+		private Path blockChannelPath;
+
+		/**
+		 * Number of the last decompressed block.
+		 */
+		private int blockNumber;
+
+		/**
+		 * Last decompressed block.
+		 */
+		private byte[] block;
+
 		/**
 		 * {@inheritDoc}
 		 */
 		@Override
 		public void run() {
+			try {
+				readDescriptors();
+			} finally {
+				if (null != inflater) {
+					inflater.end();
+				}
+			}
+		}
+
+		/**
+		 * Reads all descriptors.
+		 */
+		private void readDescriptors() {
 			// we run the task until all descriptors are processed
 			while (nextDescriptorIndex.get() < descriptors.size()) {
 				IStorageDescriptor storageDescriptor = descriptors.get(nextDescriptorIndex.get());
 				Path channelPath = storageManager.getChannelPath(storageData, storageDescriptor);
 				openedChannelPaths.add(channelPath);
+				BlockIndex blockIndex = getBlockIndex(storageDescriptor.getChannelId());
+				if (null != blockIndex) {
+					readCompressed(storageDescriptor, channelPath, blockIndex);
+					nextDescriptorIndex.incrementAndGet();
+					continue;
+				}
 				long readPosition = storageDescriptor.getPosition();
 				long readSize = 0;
 				while (readSize < storageDescriptor.getSize()) {
@@ -328,6 +380,125 @@ public class ExtendedByteBufferInputStream extends AbstractExtendedByteBufferInp
 				nextDescriptorIndex.incrementAndGet();
 			}
 		}
+
+		/**
+		 * Reads the descriptor from the block compressed channel. The buffers are filled with the
+		 * decompressed data and put to the full buffers queue.
+		 * 
+		 * @param storageDescriptor
+		 *            Descriptor to read.
+		 * @param channelPath
+		 *            Path to the channel's file.
+		 * @param blockIndex
+		 *            Block index of the channel.
+		 */
+		private void readCompressed(IStorageDescriptor storageDescriptor, Path channelPath, BlockIndex blockIndex) {
+			long position = storageDescriptor.getPosition();
+			long remaining = storageDescriptor.getSize();
+			while (remaining > 0) {
+				ByteBuffer buffer = null;
+				try {
+					buffer = getEmptyBuffers().take();
+				} catch (InterruptedException e) {
+					Thread.interrupted();
+				}
+				buffer.clear();
+				while (buffer.hasRemaining() && (remaining > 0)) {
+					try {
+						byte[] bytes = getBlock(channelPath, blockIndex, blockIndex.getBlock(position));
+						int offset = blockIndex.getOffset(position);
+						int length = (int) Math.min(Math.min(remaining, bytes.length - offset), buffer.remaining());
+						if (length <= 0) {
+							throw new IOException("Descriptor " + storageDescriptor + " points outside of the block.");
+						}
+						buffer.put(bytes, offset, length);
+						position += length;
+						remaining -= length;
+					} catch (IOException | IndexOutOfBoundsException e) {
+						log.warn("Exception occurred trying to read the compressed block in the ReadTask.", e);
+						// we can not read the rest of the descriptor
+						setTotalSize(getTotalSize() - remaining);
+						remaining = 0;
+					}
+				}
+				buffer.flip();
+				if (buffer.hasRemaining()) {
+					getFullBuffers().add(buffer);
+				} else {
+					buffer.clear();
+					getEmptyBuffers().add(buffer);
+				}
+			}
+		}
+
+		/**
+		 * Returns the decompressed block. The last decompressed block is cached, as the
+		 * descriptors are mostly sorted by position.
+		 * 
+		 * @param channelPath
+		 *            Path to the channel's file.
+		 * @param blockIndex
+		 *            Block index of the channel.
+		 * @param number
+		 *            Number of the block.
+		 * @return Decompressed block.
+		 * @throws IOException
+		 *             If reading or decompressing fails.
+		 */
+		private byte[] getBlock(Path channelPath, BlockIndex blockIndex, int number) throws IOException {
+			if ((null != block) && (blockNumber == number) && channelPath.equals(blockChannelPath)) {
+				return block;
+			}
+
+			int compressedSize = blockIndex.getCompressedSize(number);
+			ByteBuffer compressed = ByteBuffer.allocate(compressedSize);
+			final CountDownLatch readLatch = new CountDownLatch(1);
+			WriteReadCompletionRunnable completionRunnable = new WriteReadCompletionRunnable() {
+				@Override
+				public void run() {
+					readLatch.countDown();
+				}
+			};
+			readingChannelManager.read(compressed, blockIndex.getPosition(number), compressedSize, channelPath, completionRunnable);
+			try {
+				readLatch.await();
+			} catch (InterruptedException e) {
+				Thread.interrupted();
+			}
+			if (!completionRunnable.isCompleted()) {
+				throw new IOException("Compressed block " + number + " of the channel " + channelPath + " could not be read.");
+			}
+
+			if (null == inflater) {
+				inflater = new Inflater();
+			}
+			block = BlockCodec.decompress(inflater, compressed.array(), 0, compressed.limit(), blockIndex.getSize(number));
+			blockNumber = number;
+			blockChannelPath = channelPath;
+			return block;
+		}
+
+		/**
+		 * Returns the block index of the channel.
+		 * 
+		 * @param channelId
+		 *            Id of the channel.
+		 * @return {@link BlockIndex} or <code>null</code> if the channel is not compressed.
+		 */
+		private BlockIndex getBlockIndex(int channelId) {
+			if (blockIndexes.containsKey(channelId)) {
+				return blockIndexes.get(channelId);
+			}
+
+			BlockIndex blockIndex = null;
+			try {
+				blockIndex = storageManager.getBlockIndex(storageData, channelId);
+			} catch (IOException e) {
+				log.warn("Exception occurred trying to read the block index of the channel " + channelId + ". Channel will be read as not compressed.", e);
+			}
+			blockIndexes.put(channelId, blockIndex);
+			return blockIndex;
+		}
 	}
 
 }
@@ -0,0 +1,293 @@
+package rocks.inspectit.shared.cs.storage.nio.write;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
+import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockCodec;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockIndex;
+
+/**
+ * Writes the storage channels as compressed blocks. The serialized data is appended to the current
+ * uncompressed block of the channel and the block is compressed and written with the
+ * {@link WritingChannelManager} once it is full. The completion runnable of the data is run when
+ * the block holding the end of the data has been written, with the logical (uncompressed)
+ * position and size of the data as the attempted position and size.
+ * <p>
+ * {@link #finishChannel(Path)} must be called when the writing to the channel is done, so that the
+ * last block and the {@link BlockIndex} are written to the end of the file.
+ */
+@Component
+public class BlockCompressingWriter {
+
+	/**
+	 * Time in seconds to wait for the block index to be written.
+	 */
+	private static final int FINISH_TIMEOUT = 30;
+
+	/**
+	 * The log of this class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * {@link WritingChannelManager}.
+	 */
+	@Autowired
+	WritingChannelManager writingChannelManager;
+
+	/**
+	 * Size of the uncompressed block.
+	 */
+	private int blockSize = BlockIndex.DEFAULT_BLOCK_SIZE;
+
+	/**
+	 * Channels being written.
+	 */
+	private ConcurrentMap<Path, BlockChannel> blockChannels = new ConcurrentHashMap<Path, BlockChannel>(16, 0.75f, 4);
+
+	/**
+	 * Appends the content of the {@link ExtendedByteBufferOutputStream} to the current block of
+	 * the channel. The bytes are copied, so the stream can be closed as soon as this method
+	 * returns.
+	 * 
+	 * @param extendedByteBufferOutputStream
+	 *            Stream holding the serialized data.
+	 * @param channelPath
+	 *            Path to the channel's file.
+	 * @param completionRunnable
+	 *            Runnable that will be marked and executed once when the data is written to the
+	 *            disk.
+	 * @return Logical position of the data in the channel.
+	 * @throws IOException
+	 *             If writing of the full block fails.
+	 */
+	public long write(ExtendedByteBufferOutputStream extendedByteBufferOutputStream, Path channelPath, WriteReadCompletionRunnable completionRunnable) throws IOException {
+		BlockChannel blockChannel = getBlockChannel(channelPath);
+		synchronized (blockChannel) {
+			long position = blockChannel.logicalPosition;
+			completionRunnable.setAttemptedWriteReadPosition(position);
+			completionRunnable.setAttemptedWriteReadSize(extendedByteBufferOutputStream.getTotalWriteSize());
+
+			for (ByteBuffer byteBuffer : extendedByteBufferOutputStream.getAllByteBuffers()) {
+				ByteBuffer buffer = byteBuffer.duplicate();
+				while (buffer.hasRemaining()) {
+					if (blockChannel.fill == blockSize) {
+						writeBlock(channelPath, blockChannel);
+					}
+					int length = Math.min(buffer.remaining(), blockSize - blockChannel.fill);
+					buffer.get(blockChannel.block, blockChannel.fill, length);
+					blockChannel.fill += length;
+					blockChannel.logicalPosition += length;
+				}
+			}
+
+			blockChannel.pendingCompletions.add(completionRunnable);
+			return position;
+		}
+	}
+
+	/**
+	 * Writes the last block and the block index of the channel. Blocks until the index is written.
+	 * Does nothing if nothing was written to the channel.
+	 * 
+	 * @param channelPath
+	 *            Path to the channel's file.
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	public void finishChannel(Path channelPath) throws IOException {
+		BlockChannel blockChannel = blockChannels.remove(channelPath);
+		if (null == blockChannel) {
+			return;
+		}
+
+		final CountDownLatch indexWritten = new CountDownLatch(1);
+		synchronized (blockChannel) {
+			if (blockChannel.fill > 0) {
+				writeBlock(channelPath, blockChannel);
+			}
+			blockChannel.deflater.end();
+
+			if (0 == blockChannel.blockIndex.getBlockCount()) {
+				return;
+			}
+
+			WriteReadCompletionRunnable indexCompletion = new WriteReadCompletionRunnable() {
+				@Override
+				public void run() {
+					indexWritten.countDown();
+				}
+			};
+			long indexPosition = writingChannelManager.write(blockChannel.blockIndex.serialize(blockChannel.physicalPosition), channelPath, indexCompletion);
+			if (indexPosition != blockChannel.physicalPosition) {
+				throw new IOException("Block index of the channel " + channelPath + " written to the position " + indexPosition + " instead of " + blockChannel.physicalPosition + ".");
+			}
+		}
+
+		try {
+			if (!indexWritten.await(FINISH_TIMEOUT, TimeUnit.SECONDS)) {
+				log.warn("Writing of the block index of the channel " + channelPath + " did not finish in " + FINISH_TIMEOUT + " seconds.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Compresses and writes the current block of the channel. Must be called while holding the
+	 * lock of the channel.
+	 * 
+	 * @param channelPath
+	 *            Path to the channel's file.
+	 * @param blockChannel
+	 *            Channel to write the block for.
+	 * @throws IOException
+	 *             If writing fails. The pending completions of the block are marked as failed and
+	 *             the block is added to the index as empty, so that the following blocks can still
+	 *             be read.
+	 */
+	private void writeBlock(Path channelPath, BlockChannel blockChannel) throws IOException {
+		byte[] compressed = BlockCodec.compress(blockChannel.deflater, blockChannel.block, blockChannel.fill);
+		int size = blockChannel.fill;
+		final List<WriteReadCompletionRunnable> completions = blockChannel.pendingCompletions;
+		blockChannel.pendingCompletions = new ArrayList<WriteReadCompletionRunnable>();
+		blockChannel.fill = 0;
+
+		WriteReadCompletionRunnable blockCompletion = new WriteReadCompletionRunnable() {
+			@Override
+			public void run() {
+				complete(completions, isCompleted());
+			}
+		};
+
+		try {
+			long position = writingChannelManager.write(ByteBuffer.wrap(compressed), channelPath, blockCompletion);
+			blockChannel.blockIndex.addBlock(position, compressed.length, size);
+			blockChannel.physicalPosition = position + compressed.length;
+		} catch (IOException e) {
+			blockChannel.blockIndex.addBlock(blockChannel.physicalPosition, 0, size);
+			complete(completions, false);
+			throw e;
+		}
+	}
+
+	/**
+	 * Marks and runs the completion runnables.
+	 * 
+	 * @param completions
+	 *            Completion runnables of the data in the block.
+	 * @param success
+	 *            If the block was written.
+	 */
+	private void complete(List<WriteReadCompletionRunnable> completions, boolean success) {
+		for (WriteReadCompletionRunnable completion : completions) {
+			if (success) {
+				completion.markSuccess();
+			} else {
+				completion.markFailed();
+			}
+			if (completion.isFinished()) {
+				completion.run();
+			}
+		}
+	}
+
+	/**
+	 * Returns the channel for the path, creating it if needed.
+	 * 
+	 * @param channelPath
+	 *            Path to the channel's file.
+	 * @return {@link BlockChannel}
+	 */
+	private BlockChannel getBlockChannel(Path channelPath) {
+		BlockChannel blockChannel = blockChannels.get(channelPath);
+		if (null == blockChannel) {
+			blockChannel = new BlockChannel(blockSize);
+			BlockChannel existing = blockChannels.putIfAbsent(channelPath, blockChannel);
+			if (null != existing) {
+				blockChannel.deflater.end();
+				blockChannel = existing;
+			}
+		}
+		return blockChannel;
+	}
+
+	/**
+	 * Sets {@link #blockSize}.
+	 * 
+	 * @param blockSize
+	 *            New value for {@link #blockSize}
+	 */
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * State of one channel being written.
+	 */
+	private static class BlockChannel {
+
+		/**
+		 * Current uncompressed block.
+		 */
+		private final byte[] block;
+
+		/**
+		 * Number of bytes in the current block.
+		 */
+		private int fill;
+
+		/**
+		 * Logical position of the next data.
+		 */
+		private long logicalPosition;
+
+		/**
+		 * Position in the file after the last written block.
+		 */
+		private long physicalPosition;
+
+		/**
+		 * Index of the written blocks.
+		 */
+		private final BlockIndex blockIndex;
+
+		/**
+		 * Deflater of the channel.
+		 */
+		private final Deflater deflater = BlockCodec.createDeflater();
+
+		/**
+		 * Completion runnables of the data that ends in the current block.
+		 */
+		private List<WriteReadCompletionRunnable> pendingCompletions = new ArrayList<WriteReadCompletionRunnable>();
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param blockSize
+		 *            Size of the uncompressed block.
+		 */
+		BlockChannel(int blockSize) {
+			this.block = new byte[blockSize];
+			this.blockIndex = new BlockIndex(blockSize);
+		}
+	}
+
+}
@@ -3,13 +3,19 @@ package rocks.inspectit.shared.cs.storage.nio.write;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.storage.nio.ByteBufferProvider;
 import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
 import rocks.inspectit.shared.cs.storage.nio.AbstractChannelManager;
 import rocks.inspectit.shared.cs.storage.nio.CustomAsyncChannel;
@@ -18,6 +24,11 @@ import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
 
 /**
  * Channel manager for writing the data.
+ * <p>
+ * Besides the direct writes, the manager can coalesce the writes of many small objects with
+ * {@link #writeCoalesced(ExtendedByteBufferOutputStream, Path, WriteReadCompletionRunnable)}.
+ * The serialized objects are copied to one buffer per channel that is written with a single
+ * write when it is full or when the channel is flushed.
  * 
  * @author Ivan Senic
  * 
@@ -37,6 +48,22 @@ public class WritingChannelManager extends AbstractChannelManager {
 	@Value(value = "${storage.maxWriteChannelsOpened}")
 	private int maxOpenedChannels = 128;
 
+	/**
+	 * {@link ByteBufferProvider} for the buffers of the coalesced writes.
+	 */
+	@Autowired
+	ByteBufferProvider byteBufferProvider;
+
+	/**
+	 * Aggregators of the coalesced writes per channel.
+	 */
+	private ConcurrentMap<Path, WriteAggregator> writeAggregators = new ConcurrentHashMap<Path, WriteAggregator>(16, 0.75f, 4);
+
+	/**
+	 * Number of writes submitted to the channels.
+	 */
+	private AtomicLong submittedWrites = new AtomicLong();
+
 	/**
 	 * Writes the content of the {@link ByteBuffer} to the channel that has the supplied path.
 	 * Channel will be open if necessary.
@@ -78,6 +105,7 @@ public class WritingChannelManager extends AbstractChannelManager {
 				this.openAsyncChannel(channel);
 			}
 		}
+		submittedWrites.incrementAndGet();
 
 		return writingPosition;
 	}
@@ -127,12 +155,215 @@ public class WritingChannelManager extends AbstractChannelManager {
 					this.openAsyncChannel(channel);
 				}
 			}
+			submittedWrites.incrementAndGet();
 			writingPosition += writingSize;
 		}
 
 		return returnWritingPosition;
 	}
 
+	/**
+	 * Copies the content of the {@link ExtendedByteBufferOutputStream} to the aggregation buffer
+	 * of the channel. The buffer is written with a single write when the next content does not fit
+	 * into it or when the channel is flushed with {@link #flush(Path)}. Content that does not fit
+	 * into an empty aggregation buffer is written directly.
+	 * <p>
+	 * As the bytes are copied, the stream can be closed as soon as this method returns.
+	 * 
+	 * @param extendedByteBufferOutputStream
+	 *            Stream holding the serialized data.
+	 * @param channelPath
+	 *            Path to the channel's file.
+	 * @param completionRunnable
+	 *            Runnable that will be marked and executed once when the content is written. The
+	 *            attempted position and size are set before the runnable is executed.
+	 * @throws IOException
+	 *             Delegates the {@link IOException} from I/O operations.
+	 */
+	public void writeCoalesced(ExtendedByteBufferOutputStream extendedByteBufferOutputStream, Path channelPath, WriteReadCompletionRunnable completionRunnable) throws IOException {
+		long size = extendedByteBufferOutputStream.getTotalWriteSize();
+		WriteAggregator writeAggregator = getWriteAggregator(channelPath);
+		synchronized (writeAggregator) {
+			if ((null != writeAggregator.buffer) && (writeAggregator.buffer.remaining() < size)) {
+				flushAggregator(channelPath, writeAggregator);
+			}
+			if (null == writeAggregator.buffer) {
+				ByteBuffer buffer = byteBufferProvider.acquireByteBuffer();
+				if (buffer.capacity() < size) {
+					byteBufferProvider.releaseByteBuffer(buffer);
+					ByteBuffer largeBuffer = ByteBuffer.allocate((int) size);
+					copy(extendedByteBufferOutputStream, largeBuffer);
+					largeBuffer.flip();
+					write(largeBuffer, channelPath, completionRunnable);
+					return;
+				}
+				buffer.clear();
+				writeAggregator.buffer = buffer;
+			}
+
+			int offset = writeAggregator.buffer.position();
+			copy(extendedByteBufferOutputStream, writeAggregator.buffer);
+			writeAggregator.pendingWrites.add(new PendingWrite(completionRunnable, offset, size));
+		}
+	}
+
+	/**
+	 * Writes the aggregation buffer of the channel if it holds any coalesced writes.
+	 * 
+	 * @param channelPath
+	 *            Path to the channel's file.
+	 * @throws IOException
+	 *             Delegates the {@link IOException} from I/O operations.
+	 */
+	public void flush(Path channelPath) throws IOException {
+		WriteAggregator writeAggregator = writeAggregators.get(channelPath);
+		if (null != writeAggregator) {
+			synchronized (writeAggregator) {
+				flushAggregator(channelPath, writeAggregator);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Coalesced writes still pending for the channel are written first.
+	 */
+	@Override
+	public void finalizeChannel(Path channelPath) throws IOException {
+		WriteAggregator writeAggregator = writeAggregators.remove(channelPath);
+		if (null != writeAggregator) {
+			synchronized (writeAggregator) {
+				flushAggregator(channelPath, writeAggregator);
+			}
+		}
+		super.finalizeChannel(channelPath);
+	}
+
+	/**
+	 * Writes the aggregation buffer with a single write and fans the result out to the completion
+	 * runnables of the coalesced writes. Must be called while holding the lock of the aggregator.
+	 * 
+	 * @param channelPath
+	 *            Path to the channel's file.
+	 * @param writeAggregator
+	 *            Aggregator to flush.
+	 * @throws IOException
+	 *             Delegates the {@link IOException} from I/O operations. The coalesced writes are
+	 *             marked as failed in this case.
+	 */
+	private void flushAggregator(Path channelPath, WriteAggregator writeAggregator) throws IOException {
+		final ByteBuffer buffer = writeAggregator.buffer;
+		if (null == buffer) {
+			return;
+		}
+		final List<PendingWrite> pendingWrites = writeAggregator.pendingWrites;
+		writeAggregator.buffer = null;
+		writeAggregator.pendingWrites = new ArrayList<PendingWrite>();
+
+		buffer.flip();
+		if (pendingWrites.isEmpty()) {
+			byteBufferProvider.releaseByteBuffer(buffer);
+			return;
+		}
+
+		WriteReadCompletionRunnable flushCompletionRunnable = new WriteReadCompletionRunnable() {
+			@Override
+			public void run() {
+				byteBufferProvider.releaseByteBuffer(buffer);
+				complete(pendingWrites, getAttemptedWriteReadPosition(), isCompleted());
+			}
+		};
+
+		try {
+			write(buffer, channelPath, flushCompletionRunnable);
+		} catch (IOException e) {
+			byteBufferProvider.releaseByteBuffer(buffer);
+			complete(pendingWrites, 0, false);
+			throw e;
+		}
+	}
+
+	/**
+	 * Sets the position and size of the coalesced writes, marks and runs their completion
+	 * runnables.
+	 * 
+	 * @param pendingWrites
+	 *            Coalesced writes.
+	 * @param position
+	 *            Position the aggregation buffer was written to.
+	 * @param success
+	 *            If the aggregation buffer was written.
+	 */
+	private void complete(List<PendingWrite> pendingWrites, long position, boolean success) {
+		for (PendingWrite pendingWrite : pendingWrites) {
+			WriteReadCompletionRunnable completionRunnable = pendingWrite.completionRunnable;
+			completionRunnable.setAttemptedWriteReadPosition(position + pendingWrite.offset);
+			completionRunnable.setAttemptedWriteReadSize(pendingWrite.size);
+			if (success) {
+				completionRunnable.markSuccess();
+			} else {
+				completionRunnable.markFailed();
+			}
+			if (completionRunnable.isFinished()) {
+				completionRunnable.run();
+			}
+		}
+	}
+
+	/**
+	 * Copies the content of the stream to the buffer.
+	 * 
+	 * @param extendedByteBufferOutputStream
+	 *            Stream holding the serialized data.
+	 * @param buffer
+	 *            Buffer to copy to.
+	 */
+	private void copy(ExtendedByteBufferOutputStream extendedByteBufferOutputStream, ByteBuffer buffer) {
+		for (ByteBuffer byteBuffer : extendedByteBufferOutputStream.getAllByteBuffers()) {
+			buffer.put(byteBuffer.duplicate());
+		}
+	}
+
+	/**
+	 * Returns the aggregator for the channel, creating it if needed.
+	 * 
+	 * @param channelPath
+	 *            Path to the channel's file.
+	 * @return {@link WriteAggregator}
+	 */
+	private WriteAggregator getWriteAggregator(Path channelPath) {
+		WriteAggregator writeAggregator = writeAggregators.get(channelPath);
+		if (null == writeAggregator) {
+			writeAggregator = new WriteAggregator();
+			WriteAggregator existing = writeAggregators.putIfAbsent(channelPath, writeAggregator);
+			if (null != existing) {
+				writeAggregator = existing;
+			}
+		}
+		return writeAggregator;
+	}
+
+	/**
+	 * Returns the number of writes submitted to the channels. Each buffer written is one
+	 * submitted write.
+	 * 
+	 * @return Number of submitted writes.
+	 */
+	public long getSubmittedWriteCount() {
+		return submittedWrites.get();
+	}
+
+	/**
+	 * Sets {@link #byteBufferProvider}.
+	 * 
+	 * @param byteBufferProvider
+	 *            New value for {@link #byteBufferProvider}
+	 */
+	public void setByteBufferProvider(ByteBufferProvider byteBufferProvider) {
+		this.byteBufferProvider = byteBufferProvider;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -141,4 +372,57 @@ public class WritingChannelManager extends AbstractChannelManager {
 		return maxOpenedChannels;
 	}
 
+	/**
+	 * Aggregation buffer of one channel.
+	 */
+	private static class WriteAggregator {
+
+		/**
+		 * Buffer holding the coalesced writes, <code>null</code> if there is none.
+		 */
+		private ByteBuffer buffer;
+
+		/**
+		 * Coalesced writes in the {@link #buffer}.
+		 */
+		private List<PendingWrite> pendingWrites = new ArrayList<PendingWrite>();
+	}
+
+	/**
+	 * Coalesced write waiting for the aggregation buffer to be written.
+	 */
+	private static class PendingWrite {
+
+		/**
+		 * Completion runnable of the write.
+		 */
+		private final WriteReadCompletionRunnable completionRunnable;
+
+		/**
+		 * Offset of the content in the aggregation buffer.
+		 */
+		private final int offset;
+
+		/**
+		 * Size of the content.
+		 */
+		private final long size;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param completionRunnable
+		 *            Completion runnable of the write.
+		 * @param offset
+		 *            Offset of the content in the aggregation buffer.
+		 * @param size
+		 *            Size of the content.
+		 */
+		PendingWrite(WriteReadCompletionRunnable completionRunnable, int offset, long size) {
+			this.completionRunnable = completionRunnable;
+			this.offset = offset;
+			this.size = size;
+		}
+	}
+
 }
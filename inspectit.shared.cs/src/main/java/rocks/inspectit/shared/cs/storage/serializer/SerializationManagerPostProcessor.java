@@ -86,6 +86,7 @@ import rocks.inspectit.shared.cs.indexing.indexer.impl.SensorTypeIdentIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.SqlStringIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.TimestampIndexer;
 import rocks.inspectit.shared.cs.indexing.storage.impl.ArrayBasedStorageLeaf;
+import rocks.inspectit.shared.cs.indexing.storage.impl.LazyStorageTreeComponent;
 import rocks.inspectit.shared.cs.indexing.storage.impl.LeafWithNoDescriptors;
 import rocks.inspectit.shared.cs.indexing.storage.impl.SimpleStorageDescriptor;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageBranch;
@@ -319,6 +320,12 @@ public class SerializationManagerPostProcessor implements BeanPostProcessor {
 
 		// INSPECTIT-2020
 		kryo.register(Log4jLoggingSensorConfig.class, new FieldSerializer<Log4jLoggingSensorConfig>(kryo, Log4jLoggingSensorConfig.class), nextRegistrationId++);
+
+		// partitioned storage indexing tree
+		CustomCompatibleFieldSerializer<LazyStorageTreeComponent<?>> lazyComponentSerializer = new CustomCompatibleFieldSerializer<LazyStorageTreeComponent<?>>(kryo, LazyStorageTreeComponent.class,
+				schemaManager);
+		lazyComponentSerializer.setCopyTransient(false);
+		kryo.register(LazyStorageTreeComponent.class, lazyComponentSerializer, nextRegistrationId++);
 	}
 
 }
@@ -0,0 +1,75 @@
+package rocks.inspectit.shared.cs.indexing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link BoundedResultHeap}.
+ */
+@SuppressWarnings("PMD")
+public class BoundedResultHeapTest {
+
+	@Test
+	public void firstElementsSorted() {
+		BoundedResultHeap<Integer> heap = new BoundedResultHeap<Integer>(Collections.<Integer> reverseOrder(), 3);
+
+		heap.addAll(Arrays.asList(5, 1, 9, 3, 7, 8, 2));
+
+		assertThat(heap.getSortedList(), contains(9, 8, 7));
+	}
+
+	@Test
+	public void lessElementsThanLimit() {
+		BoundedResultHeap<Integer> heap = new BoundedResultHeap<Integer>(new IntegerComparator(), 10);
+
+		heap.addAll(Arrays.asList(5, 1, 3));
+
+		assertThat(heap.getSortedList(), contains(1, 3, 5));
+	}
+
+	@Test
+	public void mergePartialResults() {
+		BoundedResultHeap<Integer> first = new BoundedResultHeap<Integer>(new IntegerComparator(), 2);
+		first.addAll(Arrays.asList(10, 4, 6));
+		BoundedResultHeap<Integer> second = new BoundedResultHeap<Integer>(new IntegerComparator(), 2);
+		second.addAll(Arrays.asList(5, 1, 8));
+
+		BoundedResultHeap<Integer> merged = new BoundedResultHeap<Integer>(new IntegerComparator(), 2);
+		merged.addAll(first.getSortedList());
+		merged.addAll(second.getSortedList());
+
+		assertThat(merged.getSortedList(), contains(1, 4));
+	}
+
+	@Test
+	public void zeroLimit() {
+		BoundedResultHeap<Integer> heap = new BoundedResultHeap<Integer>(new IntegerComparator(), 0);
+
+		heap.addAll(Arrays.asList(5, 1, 3));
+
+		assertThat(heap.getSortedList(), is(empty()));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void negativeLimit() {
+		new BoundedResultHeap<Integer>(new IntegerComparator(), -1);
+	}
+
+	private static class IntegerComparator implements Comparator<Integer> {
+
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			return o1.compareTo(o2);
+		}
+
+	}
+
+}
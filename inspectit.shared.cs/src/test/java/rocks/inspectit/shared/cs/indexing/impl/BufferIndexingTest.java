@@ -14,6 +14,8 @@ import static org.mockito.Mockito.when;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
@@ -366,6 +368,50 @@ public class BufferIndexingTest {
 			assertThat(result.getSensorTypeIdent(), is(equalTo(10L)));
 		}
 	}
+	/**
+	 * Test that the query with comparator and limit returns same elements as sorting and limiting
+	 * the complete result.
+	 * 
+	 * @throws IndexingException
+	 *             If {@link IndexingException} occurs.
+	 */
+	@Test
+	public void queryWithComparatorAndLimit() throws IndexingException {
+		BufferBranchIndexer<DefaultData> methodIdentIndexer = new BufferBranchIndexer<DefaultData>(new MethodIdentIndexer<DefaultData>());
+		BufferBranchIndexer<DefaultData> platformTypeIndexer = new BufferBranchIndexer<DefaultData>(new PlatformIdentIndexer<DefaultData>(), methodIdentIndexer);
+		IBufferTreeComponent<DefaultData> rootBranch = new Branch<DefaultData>(platformTypeIndexer);
+
+		for (int i = 0; i < 1000; i++) {
+			TimerData timerData = new TimerData(new Timestamp(System.currentTimeMillis()), 1L + (i % 3), 1L, 1L + (i % 17));
+			timerData.setId((i * 7919L) % 1000L);
+			rootBranch.put(timerData);
+		}
+
+		Comparator<DefaultData> comparator = new Comparator<DefaultData>() {
+			@Override
+			public int compare(DefaultData o1, DefaultData o2) {
+				return Long.compare(o2.getId(), o1.getId());
+			}
+		};
+
+		List<DefaultData> expected = rootBranch.query(indexQuery);
+		Collections.sort(expected, comparator);
+		expected = expected.subList(0, 50);
+
+		assertThat(rootBranch.query(indexQuery, comparator, 50), is(equalTo(expected)));
+		assertThat(rootBranch.query(indexQuery, comparator, 50, forkJoinPool), is(equalTo(expected)));
+		assertThat(rootBranch.query(indexQuery, comparator, 0).isEmpty(), is(true));
+		assertThat(rootBranch.query(indexQuery, comparator, 2000).size(), is(1000));
+
+		indexQuery.setPlatformIdent(2L);
+		expected = rootBranch.query(indexQuery);
+		Collections.sort(expected, comparator);
+		expected = expected.subList(0, 10);
+
+		assertThat(rootBranch.query(indexQuery, comparator, 10), is(equalTo(expected)));
+		assertThat(rootBranch.query(indexQuery, comparator, 10, forkJoinPool), is(equalTo(expected)));
+	}
+
 	/**
 	 * Test a removal of one element from the indexing tree.
 	 * 
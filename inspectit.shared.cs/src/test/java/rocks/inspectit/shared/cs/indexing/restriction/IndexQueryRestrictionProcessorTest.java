@@ -3,6 +3,8 @@ package rocks.inspectit.shared.cs.indexing.restriction;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -642,4 +644,110 @@ public class IndexQueryRestrictionProcessorTest extends TestBase {
 		}
 	}
 
+	public static class Compile extends IndexQueryRestrictionProcessorTest {
+
+		/**
+		 * Tests compiled restrictions that are all fulfilled.
+		 */
+		@Test
+		public void allFulfilled() {
+			HttpTimerData httpData = new HttpTimerData();
+			httpData.setId(1L);
+			httpData.setPlatformIdent(10L);
+			httpData.getHttpInfo().setId(2L);
+			List<IIndexQueryRestriction> restrictions = Arrays.asList(IndexQueryRestrictionFactory.equal("id", 1L), IndexQueryRestrictionFactory.greaterThan("platformIdent", 5L),
+					IndexQueryRestrictionFactory.lessEqual("httpInfo.id", 2L));
+
+			IIndexQueryRestrictionPredicate predicate = processor.compile(restrictions);
+			boolean result = predicate.areAllRestrictionsFulfilled(httpData);
+
+			assertThat(result, is(true));
+		}
+
+		/**
+		 * Tests compiled restrictions where one is not fulfilled.
+		 */
+		@Test
+		public void oneNotFulfilled() {
+			HttpTimerData httpData = new HttpTimerData();
+			httpData.setId(1L);
+			httpData.getHttpInfo().setId(2L);
+			List<IIndexQueryRestriction> restrictions = Arrays.asList(IndexQueryRestrictionFactory.equal("id", 1L), IndexQueryRestrictionFactory.notEqual("httpInfo.id", 2L));
+
+			IIndexQueryRestrictionPredicate predicate = processor.compile(restrictions);
+			boolean result = predicate.areAllRestrictionsFulfilled(httpData);
+
+			assertThat(result, is(false));
+		}
+
+		/**
+		 * Tests that the compiled restrictions are resolved for each class separately.
+		 */
+		@Test
+		public void differentClasses() {
+			TimerData timerData = new TimerData();
+			timerData.setId(1L);
+			HttpTimerData httpData = new HttpTimerData();
+			httpData.setId(1L);
+			httpData.getHttpInfo().setId(1L);
+			List<IIndexQueryRestriction> restrictions = Arrays.asList(IndexQueryRestrictionFactory.equal("id", 1L), IndexQueryRestrictionFactory.equal("httpInfo.id", 1L));
+
+			IIndexQueryRestrictionPredicate predicate = processor.compile(restrictions);
+
+			assertThat(predicate.areAllRestrictionsFulfilled(timerData), is(false));
+			assertThat(predicate.areAllRestrictionsFulfilled(httpData), is(true));
+			// second time with the compiled restrictions of each class
+			assertThat(predicate.areAllRestrictionsFulfilled(timerData), is(false));
+			assertThat(predicate.areAllRestrictionsFulfilled(httpData), is(true));
+		}
+
+		/**
+		 * Tests that the compiled restrictions give same result as the not compiled ones.
+		 */
+		@Test
+		public void sameResultAsNotCompiled() {
+			HttpTimerData httpData = new HttpTimerData();
+			httpData.setId(3L);
+			httpData.getHttpInfo().setId(1L);
+			List<IIndexQueryRestriction> restrictions = Arrays.asList(IndexQueryRestrictionFactory.isNotNull("httpInfo"), IndexQueryRestrictionFactory.greaterEqual("id", 3L),
+					IndexQueryRestrictionFactory.isInCollection("httpInfo.id", Collections.singletonList(1L)));
+
+			IIndexQueryRestrictionPredicate predicate = processor.compile(restrictions);
+
+			assertThat(predicate.areAllRestrictionsFulfilled(httpData), is(processor.areAllRestrictionsFulfilled(httpData, restrictions)));
+			assertThat(predicate.areAllRestrictionsFulfilled(httpData), is(true));
+		}
+
+		/**
+		 * Tests compiled restriction on the field that does not exists.
+		 */
+		@Test
+		public void fieldDoesNotExists() {
+			TimerData timerData = new TimerData();
+			List<IIndexQueryRestriction> restrictions = Collections.singletonList(IndexQueryRestrictionFactory.isNull("somefield"));
+
+			IIndexQueryRestrictionPredicate predicate = processor.compile(restrictions);
+			boolean result = predicate.areAllRestrictionsFulfilled(timerData);
+
+			assertThat(result, is(false));
+		}
+
+		/**
+		 * Tests that the restrictions added after the compilation are not checked.
+		 */
+		@Test
+		public void listChangedAfterCompile() {
+			TimerData timerData = new TimerData();
+			timerData.setId(1L);
+			List<IIndexQueryRestriction> restrictions = new ArrayList<>();
+			restrictions.add(IndexQueryRestrictionFactory.equal("id", 1L));
+
+			IIndexQueryRestrictionPredicate predicate = processor.compile(restrictions);
+			restrictions.add(IndexQueryRestrictionFactory.equal("id", 2L));
+			boolean result = predicate.areAllRestrictionsFulfilled(timerData);
+
+			assertThat(result, is(true));
+		}
+	}
+
 }
@@ -0,0 +1,232 @@
+package rocks.inspectit.shared.cs.indexing.storage.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.cs.indexing.ITreeComponent;
+import rocks.inspectit.shared.cs.indexing.indexer.impl.ObjectTypeIndexer;
+import rocks.inspectit.shared.cs.indexing.indexer.impl.PlatformIdentIndexer;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreePartitionLoader;
+import rocks.inspectit.shared.cs.storage.StorageFileType;
+
+/**
+ * Tests the {@link StorageTreePartitionUtil} and {@link LazyStorageTreeComponent}.
+ */
+@SuppressWarnings("PMD")
+public class StorageTreePartitionUtilTest {
+
+	/**
+	 * Tree to partition, platform and then object type indexed.
+	 */
+	private IStorageTreeComponent<DefaultData> tree;
+
+	/**
+	 * Created partitions.
+	 */
+	private Map<String, IStorageTreeComponent<DefaultData>> partitions;
+
+	/**
+	 * Init.
+	 */
+	@BeforeMethod
+	public void init() throws Exception {
+		StorageBranchIndexer<DefaultData> objectTypeIndexer = new StorageBranchIndexer<DefaultData>(new ObjectTypeIndexer<DefaultData>(), false);
+		tree = new StorageBranch<DefaultData>(new StorageBranchIndexer<DefaultData>(new PlatformIdentIndexer<DefaultData>(), objectTypeIndexer, false));
+		long size = 100L;
+		for (long platformIdent = 10L; platformIdent <= 20L; platformIdent += 10L) {
+			TimerData timerData = new TimerData();
+			timerData.setId(platformIdent);
+			timerData.setPlatformIdent(platformIdent);
+			tree.put(timerData).setPositionAndSize(0L, size);
+			size += 100L;
+
+			SqlStatementData sqlStatementData = new SqlStatementData();
+			sqlStatementData.setId(platformIdent + 1);
+			sqlStatementData.setPlatformIdent(platformIdent);
+			tree.put(sqlStatementData).setPositionAndSize(0L, size);
+			size += 100L;
+		}
+		partitions = new HashMap<String, IStorageTreeComponent<DefaultData>>();
+	}
+
+	/**
+	 * Each platform is one partition with the depth of one.
+	 */
+	@Test
+	public void partitionFirstLevel() {
+		IStorageTreeComponent<DefaultData> manifest = StorageTreePartitionUtil.partition(tree, 1, partitions);
+
+		assertThat(partitions.size(), is(2));
+		assertThat(manifest, is(instanceOf(StorageBranch.class)));
+		Map<Object, ITreeComponent<IStorageDescriptor, DefaultData>> componentMap = ((StorageBranch<DefaultData>) manifest).getComponentMap();
+		assertThat(componentMap.size(), is(2));
+		for (ITreeComponent<IStorageDescriptor, DefaultData> component : componentMap.values()) {
+			assertThat(component, is(instanceOf(LazyStorageTreeComponent.class)));
+			LazyStorageTreeComponent<DefaultData> lazyComponent = (LazyStorageTreeComponent<DefaultData>) component;
+			assertThat(lazyComponent.getPartitionFile(), endsWith(StorageFileType.INDEX_PARTITION_FILE.getExtension()));
+			assertThat(partitions.containsKey(lazyComponent.getPartitionFile()), is(true));
+			assertThat(lazyComponent.isPartitionLoaded(), is(false));
+		}
+		// original tree is not changed
+		for (ITreeComponent<IStorageDescriptor, DefaultData> component : ((StorageBranch<DefaultData>) tree).getComponentMap().values()) {
+			assertThat(component, is(instanceOf(StorageBranch.class)));
+		}
+	}
+
+	/**
+	 * Each platform and object type is one partition with the depth of two.
+	 */
+	@Test
+	public void partitionSecondLevel() {
+		StorageTreePartitionUtil.partition(tree, 2, partitions);
+
+		assertThat(partitions.size(), is(4));
+	}
+
+	/**
+	 * Query on the manifest returns same results as on the complete tree.
+	 */
+	@Test
+	public void queryAll() {
+		IStorageTreeComponent<DefaultData> manifest = StorageTreePartitionUtil.partition(tree, 2, partitions);
+		MapPartitionLoader partitionLoader = new MapPartitionLoader();
+		StorageTreePartitionUtil.setPartitionLoader(manifest, partitionLoader);
+
+		StorageIndexQuery query = new StorageIndexQuery();
+
+		assertThat(getSizes(manifest.query(query)), containsInAnyOrder(getSizes(tree.query(query)).toArray()));
+		assertThat(getSizes(manifest.query(query, new ForkJoinPool())), containsInAnyOrder(getSizes(tree.query(query)).toArray()));
+		assertThat(partitionLoader.loaded, hasSize(4));
+	}
+
+	/**
+	 * Only partitions reached by the query are loaded.
+	 */
+	@Test
+	public void queryLoadsOnlyReachedPartitions() {
+		IStorageTreeComponent<DefaultData> manifest = StorageTreePartitionUtil.partition(tree, 1, partitions);
+		MapPartitionLoader partitionLoader = new MapPartitionLoader();
+		StorageTreePartitionUtil.setPartitionLoader(manifest, partitionLoader);
+
+		StorageIndexQuery query = new StorageIndexQuery();
+		query.setPlatformIdent(10L);
+		List<IStorageDescriptor> result = manifest.query(query);
+		// second query uses the loaded partition
+		manifest.query(query);
+
+		assertThat(getSizes(result), containsInAnyOrder(100L, 200L));
+		assertThat(partitionLoader.loaded, hasSize(1));
+	}
+
+	/**
+	 * Released partition is loaded again.
+	 */
+	@Test
+	public void releasedPartitionLoadedAgain() {
+		IStorageTreeComponent<DefaultData> manifest = StorageTreePartitionUtil.partition(tree, 1, partitions);
+		String partitionFile = partitions.keySet().iterator().next();
+		LazyStorageTreeComponent<DefaultData> lazyComponent = new LazyStorageTreeComponent<DefaultData>(partitionFile);
+		MapPartitionLoader partitionLoader = new MapPartitionLoader();
+		StorageTreePartitionUtil.setPartitionLoader(manifest, partitionLoader);
+		lazyComponent.setPartitionLoader(partitionLoader);
+
+		lazyComponent.query(new StorageIndexQuery());
+		assertThat(lazyComponent.isPartitionLoaded(), is(true));
+		lazyComponent.releasePartition();
+		assertThat(lazyComponent.isPartitionLoaded(), is(false));
+		lazyComponent.query(new StorageIndexQuery());
+
+		assertThat(partitionLoader.loaded, hasSize(2));
+	}
+
+	/**
+	 * Tree is not partitioned with depth zero.
+	 */
+	@Test
+	public void noPartitioningWithZeroDepth() {
+		IStorageTreeComponent<DefaultData> manifest = StorageTreePartitionUtil.partition(tree, 0, partitions);
+
+		assertThat(manifest, is(sameInstance(tree)));
+		assertThat(partitions.entrySet(), is(empty()));
+	}
+
+	/**
+	 * Component that is not a branch is not partitioned.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void noPartitioningOfNotBranch() {
+		IStorageTreeComponent<DefaultData> component = mock(IStorageTreeComponent.class);
+
+		IStorageTreeComponent<DefaultData> manifest = StorageTreePartitionUtil.partition(component, 3, partitions);
+
+		assertThat(manifest, is(sameInstance(component)));
+		assertThat(partitions.entrySet(), is(empty()));
+	}
+
+	/**
+	 * Lazy component can not be loaded without the loader.
+	 */
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void noPartitionLoader() {
+		new LazyStorageTreeComponent<DefaultData>("partition").query(new StorageIndexQuery());
+	}
+
+	/**
+	 * Returns the sizes of the descriptors.
+	 * 
+	 * @param descriptors
+	 *            Descriptors.
+	 * @return Sizes.
+	 */
+	private List<Long> getSizes(List<IStorageDescriptor> descriptors) {
+		List<Long> sizes = new ArrayList<Long>();
+		for (IStorageDescriptor descriptor : descriptors) {
+			sizes.add(descriptor.getSize());
+		}
+		return sizes;
+	}
+
+	/**
+	 * Loader that serves the partitions from the {@link #partitions} map.
+	 */
+	private class MapPartitionLoader implements IStorageTreePartitionLoader {
+
+		/**
+		 * Loaded partition files.
+		 */
+		private List<String> loaded = new ArrayList<String>();
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public synchronized <E> IStorageTreeComponent<E> loadPartition(String partitionFile) {
+			loaded.add(partitionFile);
+			return (IStorageTreeComponent<E>) (Object) partitions.get(partitionFile);
+		}
+	}
+
+}
@@ -3,6 +3,7 @@ package rocks.inspectit.shared.cs.storage.nio;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -12,8 +13,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
@@ -21,10 +24,13 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.AfterTest;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import rocks.inspectit.shared.all.storage.nio.ByteBufferProvider;
 import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
 import rocks.inspectit.shared.cs.storage.nio.read.ReadingChannelManager;
 import rocks.inspectit.shared.cs.storage.nio.write.WritingChannelManager;
@@ -205,6 +211,68 @@ public class ChannelManagersTest {
 		assertThat(actual, is(equalTo(bytes)));
 	}
 
+	/**
+	 * Tests that the coalesced writes are written with less writes and can be read at the
+	 * positions given to the completion runnables.
+	 *
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws InterruptedException
+	 *             If thread is interruped.
+	 */
+	@Test
+	public void writeCoalesced() throws IOException, InterruptedException {
+		ByteBufferProvider byteBufferProvider = Mockito.mock(ByteBufferProvider.class);
+		Mockito.when(byteBufferProvider.acquireByteBuffer()).thenAnswer(new Answer<ByteBuffer>() {
+			@Override
+			public ByteBuffer answer(InvocationOnMock invocation) throws Throwable {
+				return ByteBuffer.allocateDirect(64 * 1024);
+			}
+		});
+		writingChannelManager.setByteBufferProvider(byteBufferProvider);
+
+		Random random = new Random();
+		int writes = 100;
+		final List<byte[]> data = new ArrayList<byte[]>();
+		final long[] positions = new long[writes];
+		final CountDownLatch latch = new CountDownLatch(writes);
+		long submittedWrites = writingChannelManager.getSubmittedWriteCount();
+		for (int i = 0; i < writes; i++) {
+			// last one does not fit into the aggregation buffer
+			byte[] bytes = new byte[(i == (writes - 1)) ? 100 * 1024 : random.nextInt(4096) + 1];
+			random.nextBytes(bytes);
+			data.add(bytes);
+
+			ExtendedByteBufferOutputStream outputStream = Mockito.mock(ExtendedByteBufferOutputStream.class);
+			Mockito.when(outputStream.getAllByteBuffers()).thenReturn(Collections.singletonList(ByteBuffer.wrap(bytes)));
+			Mockito.when(outputStream.getTotalWriteSize()).thenReturn((long) bytes.length);
+			final int index = i;
+			writingChannelManager.writeCoalesced(outputStream, file, new WriteReadCompletionRunnable() {
+				@Override
+				public void run() {
+					if (isCompleted() && (getAttemptedWriteReadSize() == data.get(index).length)) {
+						positions[index] = getAttemptedWriteReadPosition();
+						latch.countDown();
+					}
+				}
+			});
+		}
+		writingChannelManager.flush(file);
+
+		assertThat(latch.await(30, TimeUnit.SECONDS), is(true));
+		assertThat(writingChannelManager.getSubmittedWriteCount() - submittedWrites, is(lessThan((long) writes)));
+
+		byte[] fileBytes = Files.readAllBytes(file);
+		for (int i = 0; i < writes; i++) {
+			byte[] actual = new byte[data.get(i).length];
+			System.arraycopy(fileBytes, (int) positions[i], actual, 0, actual.length);
+			assertThat(actual, is(equalTo(data.get(i))));
+		}
+		Mockito.verify(byteBufferProvider, Mockito.atLeastOnce()).releaseByteBuffer(Mockito.<ByteBuffer> anyObject());
+
+		writingChannelManager.finalizeChannel(file);
+	}
+
 	/**
 	 * Deletes the created file.
 	 *
@@ -0,0 +1,131 @@
+package rocks.inspectit.shared.cs.storage.nio.block;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link BlockIndex} and the {@link BlockCodec}.
+ */
+@SuppressWarnings("PMD")
+public class BlockIndexTest {
+
+	/**
+	 * Logical positions are mapped to the block and the offset.
+	 */
+	@Test
+	public void blockAndOffset() {
+		BlockIndex blockIndex = new BlockIndex(100);
+
+		assertThat(blockIndex.getBlock(0), is(0));
+		assertThat(blockIndex.getBlock(250), is(2));
+		assertThat(blockIndex.getOffset(250), is(50));
+	}
+
+	/**
+	 * Index is written with the footer and read back from the file.
+	 */
+	@Test
+	public void readFromFile() throws IOException {
+		BlockIndex blockIndex = new BlockIndex(100);
+		blockIndex.addBlock(0, 30, 100);
+		blockIndex.addBlock(30, 40, 100);
+		blockIndex.addBlock(70, 10, 20);
+
+		Path path = Files.createTempFile("blockIndex", ".itdata");
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+			fileChannel.write(ByteBuffer.allocate(80), 0);
+			fileChannel.write(blockIndex.serialize(80), 80);
+
+			BlockIndex read = BlockIndex.read(fileChannel);
+
+			assertThat(read, is(notNullValue()));
+			assertThat(read.getBlockSize(), is(100));
+			assertThat(read.getBlockCount(), is(3));
+			assertThat(read.getPosition(1), is(30L));
+			assertThat(read.getCompressedSize(1), is(40));
+			assertThat(read.getSize(2), is(20));
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * Files without the footer are not compressed.
+	 */
+	@Test
+	public void notCompressedFile() throws IOException {
+		Path path = Files.createTempFile("blockIndex", ".itdata");
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+			assertThat(BlockIndex.read(fileChannel), is(nullValue()));
+
+			fileChannel.write(ByteBuffer.wrap(new byte[100]), 0);
+			assertThat(BlockIndex.read(fileChannel), is(nullValue()));
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * Unknown format version can not be read.
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void unknownVersion() throws IOException {
+		ByteBuffer footer = ByteBuffer.allocate(BlockIndex.FOOTER_SIZE);
+		footer.putLong(0);
+		footer.putInt(BlockIndex.FORMAT_VERSION + 1);
+		footer.putLong(BlockIndex.MAGIC);
+		footer.flip();
+
+		BlockIndex.getIndexPosition(footer);
+	}
+
+	/**
+	 * Compressed block is decompressed to the same bytes.
+	 */
+	@Test
+	public void codec() throws IOException {
+		byte[] block = new byte[BlockIndex.DEFAULT_BLOCK_SIZE];
+		for (int i = 0; i < block.length; i++) {
+			block[i] = (byte) (i % 16);
+		}
+		Deflater deflater = BlockCodec.createDeflater();
+		Inflater inflater = new Inflater();
+
+		byte[] compressed = BlockCodec.compress(deflater, block, block.length);
+		byte[] decompressed = BlockCodec.decompress(inflater, compressed, 0, compressed.length, block.length);
+
+		assertThat(compressed.length, is(lessThan(block.length)));
+		assertThat(decompressed, is(equalTo(block)));
+		deflater.end();
+		inflater.end();
+	}
+
+	/**
+	 * Decompressing to the wrong size fails.
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void codecWrongSize() throws IOException {
+		byte[] block = new byte[100];
+		Deflater deflater = BlockCodec.createDeflater();
+		byte[] compressed = BlockCodec.compress(deflater, block, block.length);
+		deflater.end();
+
+		BlockCodec.decompress(new Inflater(), compressed, 0, compressed.length, 200);
+	}
+
+}
@@ -0,0 +1,233 @@
+package rocks.inspectit.shared.cs.storage.nio.read;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.esotericsoftware.kryo.io.Input;
+
+import rocks.inspectit.shared.all.storage.serializer.ISerializer;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
+import rocks.inspectit.shared.cs.storage.StorageData;
+import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockCodec;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockIndex;
+
+/**
+ * Tests the {@link MappedChannelReader}.
+ */
+@SuppressWarnings("PMD")
+public class MappedChannelReaderTest {
+
+	/**
+	 * Class under test.
+	 */
+	private MappedChannelReader mappedChannelReader;
+
+	@Mock
+	private StorageManager storageManager;
+
+	@Mock
+	private StorageData storageData;
+
+	@Mock
+	private ISerializer serializer;
+
+	/**
+	 * Channel file.
+	 */
+	private Path channelPath;
+
+	/**
+	 * Init.
+	 */
+	@BeforeMethod
+	public void init() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		mappedChannelReader = new MappedChannelReader();
+		mappedChannelReader.log = LoggerFactory.getLogger(MappedChannelReader.class);
+		mappedChannelReader.setStorageManager(storageManager);
+
+		channelPath = Files.createTempFile("mapped", ".itdata");
+		when(storageManager.getChannelPath(eq(storageData), Mockito.<IStorageDescriptor> anyObject())).thenReturn(channelPath);
+		// every serialized object is a long
+		when(serializer.deserialize(any(Input.class))).thenAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(InvocationOnMock invocation) throws Throwable {
+				return ((Input) invocation.getArguments()[0]).readLong();
+			}
+		});
+	}
+
+	/**
+	 * Deletes the channel file.
+	 */
+	@AfterMethod
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(channelPath);
+	}
+
+	/**
+	 * Objects are read from the mapped file.
+	 */
+	@Test
+	public void read() throws Exception {
+		Files.write(channelPath, longs(0, 100));
+		List<IStorageDescriptor> descriptors = new ArrayList<>();
+		descriptors.add(new StorageDescriptor(1, 8 * 10, 8 * 3));
+		descriptors.add(new StorageDescriptor(1, 0, 8 * 2));
+		descriptors.add(new StorageDescriptor(1, 8 * 99, 8));
+
+		List<Long> result = mappedChannelReader.read(storageData, descriptors, serializer);
+
+		assertThat(result, contains(10L, 11L, 12L, 0L, 1L, 99L));
+	}
+
+	/**
+	 * Files bigger than the region size are mapped in several regions.
+	 */
+	@Test
+	public void readRegions() throws Exception {
+		Files.write(channelPath, longs(0, 1000));
+		mappedChannelReader.setRegionSize(100);
+		List<IStorageDescriptor> descriptors = new ArrayList<>();
+		for (int i = 0; i < 1000; i += 10) {
+			descriptors.add(new StorageDescriptor(1, 8 * i, 8 * 10));
+		}
+		// bigger than the region
+		descriptors.add(new StorageDescriptor(1, 8 * 500, 8 * 200));
+
+		List<Long> result = mappedChannelReader.read(storageData, descriptors, serializer);
+
+		assertThat(result, hasSize(1200));
+		for (int i = 0; i < 1000; i++) {
+			assertThat(result.get(i), is((long) i));
+		}
+		assertThat(result.get(1000), is(500L));
+		assertThat(result.get(1199), is(699L));
+	}
+
+	/**
+	 * Objects are read from the block compressed file.
+	 */
+	@Test
+	public void readCompressed() throws Exception {
+		writeCompressed();
+
+		// spans three blocks
+		IStorageDescriptor descriptor = new StorageDescriptor(1, 8 * 5, 8 * 20);
+		List<Long> result = mappedChannelReader.read(storageData, Collections.singletonList(descriptor), serializer);
+
+		assertThat(result, hasSize(20));
+		for (int i = 0; i < 20; i++) {
+			assertThat(result.get(i), is((long) i + 5));
+		}
+	}
+
+	/**
+	 * Objects are read from the block compressed file with the already read block index.
+	 */
+	@Test
+	public void readCompressedWithBlockIndex() throws Exception {
+		writeCompressed();
+		BlockIndex blockIndex = mappedChannelReader.getBlockIndex(storageData, new StorageDescriptor(1, 0, 8));
+
+		assertThat(blockIndex.getBlockCount(), is(10));
+		List<IStorageDescriptor> descriptors = new ArrayList<>();
+		descriptors.add(new StorageDescriptor(1, 8 * 50, 8 * 2));
+		descriptors.add(new StorageDescriptor(1, 8 * 5, 8 * 2));
+		List<Long> result = mappedChannelReader.read(storageData, descriptors, blockIndex, serializer);
+
+		assertThat(result, contains(50L, 51L, 5L, 6L));
+	}
+
+	/**
+	 * Not compressed file has no block index and is read mapped.
+	 */
+	@Test
+	public void readWithoutBlockIndex() throws Exception {
+		Files.write(channelPath, longs(0, 100));
+		IStorageDescriptor descriptor = new StorageDescriptor(1, 8 * 10, 8 * 3);
+
+		assertThat(mappedChannelReader.getBlockIndex(storageData, descriptor), is(nullValue()));
+		List<Long> result = mappedChannelReader.read(storageData, Collections.singletonList(descriptor), null, serializer);
+
+		assertThat(result, contains(10L, 11L, 12L));
+	}
+
+	/**
+	 * Descriptor pointing outside of the file can not be read.
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void outsideOfFile() throws Exception {
+		Files.write(channelPath, longs(0, 10));
+
+		mappedChannelReader.read(storageData, Collections.<IStorageDescriptor> singletonList(new StorageDescriptor(1, 8 * 5, 8 * 10)), serializer);
+	}
+
+	/**
+	 * Writes 100 consecutive longs to the channel file in compressed blocks of 80 bytes.
+	 */
+	private void writeCompressed() throws IOException {
+		int blockSize = 80;
+		byte[] data = longs(0, 100);
+		BlockIndex blockIndex = new BlockIndex(blockSize);
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		Deflater deflater = BlockCodec.createDeflater();
+		for (int offset = 0; offset < data.length; offset += blockSize) {
+			byte[] block = Arrays.copyOfRange(data, offset, offset + blockSize);
+			byte[] compressed = BlockCodec.compress(deflater, block, blockSize);
+			blockIndex.addBlock(file.size(), compressed.length, blockSize);
+			file.write(compressed);
+		}
+		deflater.end();
+		ByteBuffer index = blockIndex.serialize(file.size());
+		file.write(index.array(), index.position(), index.remaining());
+		Files.write(channelPath, file.toByteArray());
+	}
+
+	/**
+	 * Creates the bytes of consecutive longs.
+	 * 
+	 * @param from
+	 *            First long.
+	 * @param count
+	 *            Number of longs.
+	 * @return Bytes.
+	 */
+	private byte[] longs(long from, int count) {
+		ByteBuffer buffer = ByteBuffer.allocate(count * 8);
+		for (int i = 0; i < count; i++) {
+			buffer.putLong(from + i);
+		}
+		return buffer.array();
+	}
+
+}
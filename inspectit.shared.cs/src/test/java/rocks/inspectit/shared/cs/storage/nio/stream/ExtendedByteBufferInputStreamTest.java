@@ -3,6 +3,7 @@ package rocks.inspectit.shared.cs.storage.nio.stream;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
@@ -11,6 +12,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
@@ -19,6 +21,7 @@ import java.util.Collections;
 import java.util.Random;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.zip.Deflater;
 
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -34,6 +37,8 @@ import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageManager;
 import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockCodec;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockIndex;
 import rocks.inspectit.shared.cs.storage.nio.read.ReadingChannelManager;
 import rocks.inspectit.shared.cs.storage.nio.stream.ExtendedByteBufferInputStream;
 
@@ -141,4 +146,82 @@ public class ExtendedByteBufferInputStreamTest {
 
 		verify(byteBufferProvider, times(NUMBER_OF_BUFFERS)).releaseByteBuffer(Mockito.<ByteBuffer> anyObject());
 	}
+
+	/**
+	 * Tests reading of the descriptor spanning several blocks of a block compressed channel.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readCompressed() throws IOException {
+		Random random = new Random();
+		final int blockSize = 512;
+		final int bufferSize = 1024;
+		byte[] data = new byte[blockSize * 5];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) random.nextInt(4);
+		}
+
+		// compress the blocks to the file
+		BlockIndex blockIndex = new BlockIndex(blockSize);
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		Deflater deflater = BlockCodec.createDeflater();
+		for (int i = 0; i < 5; i++) {
+			byte[] block = new byte[blockSize];
+			System.arraycopy(data, i * blockSize, block, 0, blockSize);
+			byte[] compressed = BlockCodec.compress(deflater, block, blockSize);
+			blockIndex.addBlock(file.size(), compressed.length, blockSize);
+			file.write(compressed);
+		}
+		deflater.end();
+		final byte[] fileBytes = file.toByteArray();
+
+		when(byteBufferProvider.acquireByteBuffer()).thenAnswer(new Answer<ByteBuffer>() {
+			@Override
+			public ByteBuffer answer(InvocationOnMock invocation) throws Throwable {
+				return ByteBuffer.allocateDirect(bufferSize);
+			}
+		});
+		when(storageManager.getBlockIndex(eq(storageData), anyInt())).thenReturn(blockIndex);
+		int dataPosition = blockSize + 100;
+		int readSize = (blockSize * 2) + 50;
+		IStorageDescriptor storageDescriptor = mock(StorageDescriptor.class);
+		when(storageDescriptor.getPosition()).thenReturn((long) dataPosition);
+		when(storageDescriptor.getSize()).thenReturn((long) readSize);
+
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Object[] args = invocation.getArguments();
+				ByteBuffer byteBuffer = (ByteBuffer) args[0];
+				long position = (long) args[1];
+				long size = (long) args[2];
+				WriteReadCompletionRunnable writeReadCompletionRunnable = (WriteReadCompletionRunnable) args[4];
+
+				byteBuffer.put(fileBytes, (int) position, (int) size);
+				byteBuffer.flip();
+
+				writeReadCompletionRunnable.markSuccess();
+				writeReadCompletionRunnable.run();
+
+				return null;
+			}
+		}).when(readingChannelManager).read(Mockito.<ByteBuffer> anyObject(), anyLong(), anyLong(), Mockito.<Path> anyObject(), Mockito.<WriteReadCompletionRunnable> anyObject());
+
+		inputStream.setDescriptors(Collections.singletonList(storageDescriptor));
+		inputStream.prepare();
+
+		byte[] bytes = new byte[readSize];
+		int read = 0;
+		while (read < readSize) {
+			read += inputStream.read(bytes, read, readSize - read);
+		}
+		inputStream.close();
+
+		byte[] expected = new byte[readSize];
+		System.arraycopy(data, dataPosition, expected, 0, readSize);
+		assertThat(bytes, is(equalTo(expected)));
+		// only the three blocks holding the data are read
+		verify(readingChannelManager, times(3)).read(Mockito.<ByteBuffer> anyObject(), anyLong(), anyLong(), Mockito.<Path> anyObject(), Mockito.<WriteReadCompletionRunnable> anyObject());
+	}
 }
@@ -0,0 +1,245 @@
+package rocks.inspectit.shared.cs.storage.nio.write;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Inflater;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
+import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockCodec;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockIndex;
+
+/**
+ * Tests the {@link BlockCompressingWriter}.
+ */
+@SuppressWarnings("PMD")
+public class BlockCompressingWriterTest {
+
+	/**
+	 * Block size used in the test.
+	 */
+	private static final int BLOCK_SIZE = 100;
+
+	/**
+	 * Class under test.
+	 */
+	private BlockCompressingWriter blockCompressingWriter;
+
+	@Mock
+	private WritingChannelManager writingChannelManager;
+
+	/**
+	 * Bytes written to the channel.
+	 */
+	private ByteArrayOutputStream file;
+
+	/**
+	 * Path of the channel.
+	 */
+	private Path channelPath = Paths.get("test");
+
+	/**
+	 * Init.
+	 */
+	@BeforeMethod
+	public void init() throws IOException {
+		MockitoAnnotations.initMocks(this);
+		blockCompressingWriter = new BlockCompressingWriter();
+		blockCompressingWriter.writingChannelManager = writingChannelManager;
+		blockCompressingWriter.log = LoggerFactory.getLogger(BlockCompressingWriter.class);
+		blockCompressingWriter.setBlockSize(BLOCK_SIZE);
+
+		file = new ByteArrayOutputStream();
+		doAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(InvocationOnMock invocation) throws Throwable {
+				ByteBuffer byteBuffer = (ByteBuffer) invocation.getArguments()[0];
+				WriteReadCompletionRunnable completionRunnable = (WriteReadCompletionRunnable) invocation.getArguments()[2];
+				long position = file.size();
+				while (byteBuffer.hasRemaining()) {
+					file.write(byteBuffer.get());
+				}
+				completionRunnable.markSuccess();
+				completionRunnable.run();
+				return position;
+			}
+		}).when(writingChannelManager).write(any(ByteBuffer.class), eq(channelPath), any(WriteReadCompletionRunnable.class));
+	}
+
+	/**
+	 * Data is completed with the logical position when the block is written.
+	 */
+	@Test
+	public void completedWhenBlockWritten() throws IOException {
+		RecordingCompletionRunnable first = new RecordingCompletionRunnable();
+		RecordingCompletionRunnable second = new RecordingCompletionRunnable();
+
+		long firstPosition = blockCompressingWriter.write(stream(bytes(60, 1)), channelPath, first);
+		long secondPosition = blockCompressingWriter.write(stream(bytes(60, 2)), channelPath, second);
+
+		assertThat(firstPosition, is(0L));
+		assertThat(secondPosition, is(60L));
+		assertThat(first.getAttemptedWriteReadPosition(), is(0L));
+		assertThat(first.getAttemptedWriteReadSize(), is(60L));
+		assertThat(second.getAttemptedWriteReadPosition(), is(60L));
+		// nothing written as the first block is not yet known to be full
+		assertThat(first.runs, is(0));
+		verify(writingChannelManager, never()).write(any(ByteBuffer.class), eq(channelPath), any(WriteReadCompletionRunnable.class));
+
+		blockCompressingWriter.write(stream(bytes(60, 3)), channelPath, new RecordingCompletionRunnable());
+
+		// first block is written, first data ends in it, second data in the next one
+		assertThat(first.runs, is(1));
+		assertThat(first.isCompleted(), is(true));
+		assertThat(second.runs, is(0));
+
+		blockCompressingWriter.finishChannel(channelPath);
+
+		assertThat(second.runs, is(1));
+		assertThat(second.isCompleted(), is(true));
+	}
+
+	/**
+	 * The blocks and the index are written to the file and can be read back.
+	 */
+	@Test
+	public void fileReadable() throws IOException {
+		List<byte[]> data = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			data.add(bytes(37, i));
+			blockCompressingWriter.write(stream(data.get(i)), channelPath, new RecordingCompletionRunnable());
+		}
+		blockCompressingWriter.finishChannel(channelPath);
+
+		byte[] fileBytes = file.toByteArray();
+		ByteBuffer footer = ByteBuffer.wrap(fileBytes, fileBytes.length - BlockIndex.FOOTER_SIZE, BlockIndex.FOOTER_SIZE);
+		long indexPosition = BlockIndex.getIndexPosition(footer);
+		BlockIndex blockIndex = BlockIndex.deserialize(ByteBuffer.wrap(fileBytes, (int) indexPosition, fileBytes.length - (int) indexPosition));
+
+		assertThat(blockIndex.getBlockCount(), is(3));
+		assertThat(blockIndex.getSize(2), is((7 * 37) - (2 * BLOCK_SIZE)));
+
+		ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+		Inflater inflater = new Inflater();
+		for (int i = 0; i < blockIndex.getBlockCount(); i++) {
+			decompressed.write(BlockCodec.decompress(inflater, fileBytes, (int) blockIndex.getPosition(i), blockIndex.getCompressedSize(i), blockIndex.getSize(i)));
+		}
+		inflater.end();
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		for (byte[] bytes : data) {
+			expected.write(bytes);
+		}
+		assertThat(decompressed.toByteArray(), is(equalTo(expected.toByteArray())));
+	}
+
+	/**
+	 * Failed block write fails the data ending in the block.
+	 */
+	@Test
+	public void failedBlockWrite() throws IOException {
+		doAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(InvocationOnMock invocation) throws Throwable {
+				WriteReadCompletionRunnable completionRunnable = (WriteReadCompletionRunnable) invocation.getArguments()[2];
+				completionRunnable.markFailed();
+				completionRunnable.run();
+				return 0L;
+			}
+		}).when(writingChannelManager).write(any(ByteBuffer.class), eq(channelPath), any(WriteReadCompletionRunnable.class));
+		RecordingCompletionRunnable completionRunnable = new RecordingCompletionRunnable();
+
+		blockCompressingWriter.write(stream(bytes(BLOCK_SIZE, 1)), channelPath, completionRunnable);
+		blockCompressingWriter.write(stream(bytes(1, 1)), channelPath, new RecordingCompletionRunnable());
+
+		assertThat(completionRunnable.runs, is(1));
+		assertThat(completionRunnable.isFailed(), is(true));
+	}
+
+	/**
+	 * Finishing the channel that was not written does nothing.
+	 */
+	@Test
+	public void finishNotWritten() throws IOException {
+		blockCompressingWriter.finishChannel(channelPath);
+
+		verify(writingChannelManager, never()).write(any(ByteBuffer.class), eq(channelPath), any(WriteReadCompletionRunnable.class));
+		assertThat(file.toByteArray().length, is(0));
+	}
+
+	/**
+	 * Creates the bytes.
+	 * 
+	 * @param size
+	 *            Size.
+	 * @param value
+	 *            Value of each byte.
+	 * @return Bytes.
+	 */
+	private byte[] bytes(int size, int value) {
+		byte[] bytes = new byte[size];
+		for (int i = 0; i < size; i++) {
+			bytes[i] = (byte) value;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Mocks the stream holding the bytes.
+	 * 
+	 * @param bytes
+	 *            Bytes.
+	 * @return Stream.
+	 */
+	private ExtendedByteBufferOutputStream stream(byte[] bytes) {
+		ExtendedByteBufferOutputStream stream = mock(ExtendedByteBufferOutputStream.class);
+		when(stream.getAllByteBuffers()).thenReturn(Collections.singletonList(ByteBuffer.wrap(bytes)));
+		when(stream.getTotalWriteSize()).thenReturn((long) bytes.length);
+		return stream;
+	}
+
+	/**
+	 * Completion runnable that counts the runs.
+	 */
+	private static class RecordingCompletionRunnable extends WriteReadCompletionRunnable {
+
+		/**
+		 * Number of runs.
+		 */
+		private int runs;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			runs++;
+		}
+	}
+
+}
@@ -0,0 +1,254 @@
+package rocks.inspectit.ui.rcp.storage.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.spring.logger.LoggerPostProcessor;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.storage.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
+import rocks.inspectit.shared.cs.storage.IStorageData;
+import rocks.inspectit.shared.cs.storage.LocalStorageData;
+import rocks.inspectit.shared.cs.storage.StorageFileType;
+import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.nio.read.MappedChannelReader;
+import rocks.inspectit.shared.cs.storage.serializer.SerializationManagerPostProcessor;
+
+/**
+ * Measures loading of the SQL statements from the local storage with the {@link DataRetriever}
+ * using different number of de-serialization threads. The storage is generated in the setup with
+ * one descriptor per statement, same as the storage writer does, and the statements are divided
+ * between several channels.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class DataRetrieverPerfTest {
+
+	/**
+	 * Number of the de-serialization threads.
+	 */
+	@Param({ "1", "2", "4", "8", "16" })
+	private int threads;
+
+	/**
+	 * Number of statements in the storage.
+	 */
+	@Param({ "1000000" })
+	private int statements;
+
+	/**
+	 * Number of channels in the storage.
+	 */
+	@Param({ "4" })
+	private int channels;
+
+	/**
+	 * Directory of the storage.
+	 */
+	private Path storageDir;
+
+	/**
+	 * Local storage data.
+	 */
+	private LocalStorageData localStorageData;
+
+	/**
+	 * Descriptors of all statements.
+	 */
+	private List<IStorageDescriptor> descriptors;
+
+	/**
+	 * Schema manager for the serializers.
+	 */
+	private ClassSchemaManager schemaManager;
+
+	/**
+	 * Retriever to test.
+	 */
+	private DataRetriever dataRetriever;
+
+	/**
+	 * Generates the storage and initializes the retriever.
+	 * 
+	 * @throws Exception
+	 *             If storage can not be written or retriever initialized.
+	 */
+	@Setup(Level.Trial)
+	public void init() throws Exception {
+		storageDir = Files.createTempDirectory("storage");
+		localStorageData = new LocalStorageData();
+		StorageManager storageManager = new StorageManager() {
+			@Override
+			public Path getStoragePath(IStorageData storageData) {
+				return storageDir;
+			}
+
+			@Override
+			protected Path getDefaultStorageDirPath() {
+				return storageDir;
+			}
+		};
+
+		schemaManager = new ClassSchemaManager();
+		schemaManager.setLog(LoggerFactory.getLogger(ClassSchemaManager.class));
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, ClassSchemaManager.class.getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+		SerializationManagerProvider serializationManagerProvider = new SerializationManagerProvider() {
+			@Override
+			public SerializationManager createSerializer() {
+				return DataRetrieverPerfTest.this.createSerializer();
+			}
+		};
+
+		writeStorage(createSerializer(), storageManager);
+
+		MappedChannelReader mappedChannelReader = new MappedChannelReader();
+		new LoggerPostProcessor().postProcessBeforeInitialization(mappedChannelReader, "mappedChannelReader");
+		mappedChannelReader.setStorageManager(storageManager);
+
+		dataRetriever = new DataRetriever();
+		dataRetriever.setStorageManager(storageManager);
+		dataRetriever.setSerializationManagerProvider(serializationManagerProvider);
+		dataRetriever.setMappedChannelReader(mappedChannelReader);
+		dataRetriever.setDeserializationThreads(threads);
+		dataRetriever.init();
+	}
+
+	/**
+	 * Deletes the storage.
+	 * 
+	 * @throws IOException
+	 *             If files can not be deleted.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		dataRetriever.dispose();
+		for (int channel = 1; channel <= channels; channel++) {
+			Files.delete(storageDir.resolve(channel + StorageFileType.DATA_FILE.getExtension()));
+		}
+		Files.delete(storageDir);
+	}
+
+	/**
+	 * Loads all statements.
+	 * 
+	 * @return Number of loaded statements.
+	 * @throws Exception
+	 *             If loading fails.
+	 */
+	@Benchmark
+	public int load() throws Exception {
+		return dataRetriever.<SqlStatementData> getDataLocally(localStorageData, descriptors).size();
+	}
+
+	/**
+	 * Writes the statements to the channel files of the storage.
+	 * 
+	 * @param serializer
+	 *            Serializer to use.
+	 * @param storageManager
+	 *            Storage manager providing the channel paths.
+	 * @throws IOException
+	 *             If files can not be written.
+	 */
+	private void writeStorage(SerializationManager serializer, StorageManager storageManager) throws IOException {
+		descriptors = new ArrayList<IStorageDescriptor>(statements);
+		Random random = new Random(1);
+		Output output = new Output(2 * 1024 * 1024, -1);
+		for (int channel = 1; channel <= channels; channel++) {
+			Path channelPath = storageManager.getChannelPath(localStorageData, channel);
+			long position = 0;
+			try (OutputStream outputStream = Files.newOutputStream(channelPath)) {
+				for (int i = channel - 1; i < statements; i += channels) {
+					int objectPosition = output.position();
+					serializer.serialize(createStatement(random, i), output);
+					int objectSize = output.position() - objectPosition;
+					descriptors.add(new StorageDescriptor(channel, position, objectSize));
+					position += objectSize;
+					if (output.position() > 1024 * 1024) {
+						outputStream.write(output.getBuffer(), 0, output.position());
+						output.clear();
+					}
+				}
+				outputStream.write(output.getBuffer(), 0, output.position());
+				output.clear();
+			} catch (SerializationException e) {
+				throw new IOException(e);
+			}
+		}
+		// the indexing tree returns the descriptors unordered
+		Collections.shuffle(descriptors, random);
+	}
+
+	/**
+	 * Creates the initialized serializer.
+	 * 
+	 * @return Serializer.
+	 */
+	private SerializationManager createSerializer() {
+		SerializationManager serializer = new SerializationManager();
+		serializer.setSchemaManager(schemaManager);
+		serializer.setKryoNetNetwork(new KryoNetNetwork());
+		serializer.initKryo();
+		new SerializationManagerPostProcessor().postProcessAfterInitialization(serializer, "serializer");
+		return serializer;
+	}
+
+	/**
+	 * Creates the statement.
+	 * 
+	 * @param random
+	 *            Random to use.
+	 * @param id
+	 *            Id of the statement.
+	 * @return Statement.
+	 */
+	private static SqlStatementData createStatement(Random random, long id) {
+		Timestamp timestamp = new Timestamp(1451606400000L + random.nextInt(100000000));
+		SqlStatementData sqlStatementData = new SqlStatementData(timestamp, random.nextInt(4), 1, random.nextInt(10000), "SELECT * FROM TABLE_" + random.nextInt(100) + " WHERE ID = ?",
+				"jdbc:h2:mem:test", "1.4", "H2");
+		sqlStatementData.setId(id);
+		sqlStatementData.setPreparedStatement(true);
+		sqlStatementData.setDuration(random.nextDouble() * 100);
+		sqlStatementData.setCpuDuration(random.nextDouble() * 100);
+		sqlStatementData.setCount(1);
+		sqlStatementData.setParameterValues(Collections.singletonList(String.valueOf(random.nextInt(1000))));
+		return sqlStatementData;
+	}
+
+}
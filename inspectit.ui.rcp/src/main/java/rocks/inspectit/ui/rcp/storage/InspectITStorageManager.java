@@ -35,8 +35,10 @@ import rocks.inspectit.shared.all.storage.serializer.ISerializer;
 import rocks.inspectit.shared.all.storage.serializer.SerializationException;
 import rocks.inspectit.shared.all.util.ObjectUtils;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreePartitionLoader;
 import rocks.inspectit.shared.cs.indexing.storage.impl.ArrayBasedStorageLeaf;
 import rocks.inspectit.shared.cs.indexing.storage.impl.CombinedStorageBranch;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageTreePartitionUtil;
 import rocks.inspectit.shared.cs.storage.IStorageData;
 import rocks.inspectit.shared.cs.storage.LocalStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
@@ -894,7 +896,8 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 	}
 
 	/**
-	 * Loads indexing tree from a disk for a storage.
+	 * Loads indexing tree from a disk for a storage. If the indexing tree is partitioned only the
+	 * manifest is loaded, while the partitions are loaded on demand when queried.
 	 * 
 	 * @param storageData
 	 *            {@link IStorageData}
@@ -907,6 +910,10 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 	private IStorageTreeComponent<DefaultData> getIndexingTree(final IStorageData storageData) throws IOException, SerializationException {
 		Path storagePath = getStoragePath(storageData);
 		List<IStorageTreeComponent<DefaultData>> indexingTrees = this.getObjectsByFileTreeWalk(storagePath, StorageFileType.INDEX_FILE.getExtension());
+		IStorageTreePartitionLoader partitionLoader = new StorageTreePartitionLoader(storagePath);
+		for (IStorageTreeComponent<DefaultData> indexingTree : indexingTrees) {
+			StorageTreePartitionUtil.setPartitionLoader(indexingTree, partitionLoader);
+		}
 		if (!indexingTrees.isEmpty()) {
 			if (indexingTrees.size() == 1) {
 				return indexingTrees.get(0);
@@ -1060,4 +1067,44 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 		this.storageRepositoryDefinitionProvider = storageRepositoryDefinitionProvider;
 	}
 
+	/**
+	 * Loads the indexing tree partitions from the storage directory on the local disk.
+	 */
+	private class StorageTreePartitionLoader implements IStorageTreePartitionLoader {
+
+		/**
+		 * Directory of the storage.
+		 */
+		private Path storagePath;
+
+		/**
+		 * Serializer, created on first load.
+		 */
+		private ISerializer serializer;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param storagePath
+		 *            Directory of the storage.
+		 */
+		StorageTreePartitionLoader(Path storagePath) {
+			this.storagePath = storagePath;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public synchronized <E> IStorageTreeComponent<E> loadPartition(String partitionFile) throws IOException, SerializationException {
+			if (null == serializer) {
+				serializer = getSerializationManagerProvider().createSerializer();
+			}
+			try (Input input = new Input(Files.newInputStream(storagePath.resolve(partitionFile), StandardOpenOption.READ))) {
+				return (IStorageTreeComponent<E>) serializer.deserialize(input);
+			}
+		}
+	}
+
 }
@@ -3,6 +3,8 @@ package rocks.inspectit.ui.rcp.storage.util;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -13,9 +15,19 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -41,6 +53,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatus.Series;
 
 import com.esotericsoftware.kryo.io.Input;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.exception.BusinessException;
@@ -56,6 +69,9 @@ import rocks.inspectit.shared.cs.storage.LocalStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageFileType;
 import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockCodec;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockIndex;
+import rocks.inspectit.shared.cs.storage.nio.read.MappedChannelReader;
 import rocks.inspectit.shared.cs.storage.nio.stream.InputStreamProvider;
 import rocks.inspectit.shared.cs.storage.util.RangeDescriptor;
 import rocks.inspectit.ui.rcp.repository.CmrRepositoryDefinition;
@@ -69,11 +85,30 @@ import rocks.inspectit.ui.rcp.storage.http.TransferDataMonitor;
  */
 public class DataRetriever {
 
+	/**
+	 * Approximate amount of serialized bytes de-serialized by one task of the
+	 * {@link #deserializationExecutorService}. The data is split only at the descriptor
+	 * boundaries, thus the task can be bigger if the single descriptor is bigger.
+	 */
+	private static final long DESERIALIZATION_TASK_SIZE = 1024 * 1024;
+
 	/**
 	 * Amount of serializers to be available to this class.
 	 */
 	private int serializerCount = 3;
 
+	/**
+	 * Amount of threads de-serializing the data in parallel. Zero means one thread per available
+	 * processor.
+	 */
+	private int deserializationThreads = 0;
+
+	/**
+	 * Executor for the parallel de-serialization of the data. Each task takes its own serializer
+	 * from the {@link #serializerQueue}.
+	 */
+	private ExecutorService deserializationExecutorService;
+
 	/**
 	 * {@link StorageManager}.
 	 */
@@ -94,6 +129,22 @@ public class DataRetriever {
 	 */
 	private InputStreamProvider streamProvider;
 
+	/**
+	 * Reader for the memory mapped reading of the local storages.
+	 */
+	private MappedChannelReader mappedChannelReader;
+
+	/**
+	 * If the local storages should be read with the {@link #mappedChannelReader}.
+	 */
+	private boolean memoryMappedRead = true;
+
+	/**
+	 * Block indexes of the storage files on the servers mapped to the file URI. Files that are not
+	 * compressed are mapped to <code>null</code>.
+	 */
+	private Map<String, BlockIndex> blockIndexCache = Collections.synchronizedMap(new HashMap<String, BlockIndex>());
+
 	/**
 	 * Initializes the retriever.
 	 * 
@@ -101,17 +152,37 @@ public class DataRetriever {
 	 *             If exception occurs.
 	 */
 	protected void init() throws Exception {
-		for (int i = 0; i < serializerCount; i++) {
+		int threads = deserializationThreads;
+		if (threads <= 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+		if (null == deserializationExecutorService) {
+			ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("storage-deserialization-thread-%d").setDaemon(true).build();
+			deserializationExecutorService = Executors.newFixedThreadPool(threads, threadFactory);
+		}
+
+		// each de-serialization thread needs its own serializer
+		for (int i = 0; i < Math.max(serializerCount, threads); i++) {
 			serializerQueue.add(serializationManagerProvider.createSerializer());
 		}
 	}
 
+	/**
+	 * Shuts down the {@link #deserializationExecutorService}.
+	 */
+	protected void dispose() {
+		if (null != deserializationExecutorService) {
+			deserializationExecutorService.shutdown();
+		}
+	}
+
 	/**
 	 * Retrieves the wanted data described in the {@link StorageDescriptor} from the desired
 	 * {@link CmrRepositoryDefinition}. This method will try to invoke as less as possible HTTP
 	 * requests for all descriptors.
 	 * <p>
-	 * The method will execute the HTTP requests sequentially.
+	 * The method will execute the HTTP requests sequentially. The received data is split at the
+	 * descriptor boundaries and de-serialized in parallel, while the next request is executed.
 	 * <p>
 	 * It is not guaranteed that amount of returned objects in the list is same as the amount of
 	 * provided descriptors. If some of the descriptors are pointing to the wrong files or files
@@ -134,90 +205,292 @@ public class DataRetriever {
 	 * @throws IOException
 	 *             If {@link IOException} occurs.
 	 */
-	@SuppressWarnings("unchecked")
 	public <E extends DefaultData> List<E> getDataViaHttp(CmrRepositoryDefinition cmrRepositoryDefinition, IStorageData storageData, List<IStorageDescriptor> descriptors) throws IOException,
 			SerializationException {
 		Map<Integer, List<IStorageDescriptor>> separateFilesGroup = createFilesGroup(descriptors);
 		List<E> receivedData = new ArrayList<E>();
+		List<Future<List<Object>>> futures = new ArrayList<Future<List<Object>>>();
 		String serverUri = getServerUri(cmrRepositoryDefinition);
 
 		HttpClient httpClient = new DefaultHttpClient();
-		for (Map.Entry<Integer, List<IStorageDescriptor>> entry : separateFilesGroup.entrySet()) {
-			HttpGet httpGet = new HttpGet(serverUri + storageManager.getHttpFileLocation(storageData, entry.getKey()));
-			StringBuilder rangeHeader = new StringBuilder("bytes=");
+		try {
+			for (Map.Entry<Integer, List<IStorageDescriptor>> entry : separateFilesGroup.entrySet()) {
+				String fileUri = serverUri + storageManager.getHttpFileLocation(storageData, entry.getKey());
+				BlockIndex blockIndex = getBlockIndex(httpClient, fileUri);
+				if (null != blockIndex) {
+					byte[] bytes = getCompressedDataViaHttp(httpClient, fileUri, blockIndex, entry.getValue());
+					submitDeserialization(bytes, 0, bytes.length, entry.getValue(), futures);
+					continue;
+				}
 
-			RangeDescriptor rangeDescriptor = null;
-			for (IStorageDescriptor descriptor : entry.getValue()) {
-				if (null == rangeDescriptor) {
-					rangeDescriptor = new RangeDescriptor(descriptor);
-				} else {
-					if (rangeDescriptor.getEnd() + 1 == descriptor.getPosition()) {
-						rangeDescriptor.setEnd(descriptor.getPosition() + descriptor.getSize() - 1);
-					} else {
-						rangeHeader.append(rangeDescriptor.toString());
-						rangeHeader.append(',');
+				HttpGet httpGet = new HttpGet(fileUri);
+				StringBuilder rangeHeader = new StringBuilder("bytes=");
+
+				// descriptors of each range, needed to split the received parts
+				List<List<IStorageDescriptor>> rangeDescriptors = new ArrayList<List<IStorageDescriptor>>();
+				RangeDescriptor rangeDescriptor = null;
+				for (IStorageDescriptor descriptor : entry.getValue()) {
+					if (null == rangeDescriptor) {
 						rangeDescriptor = new RangeDescriptor(descriptor);
+						rangeDescriptors.add(new ArrayList<IStorageDescriptor>());
+					} else {
+						if (rangeDescriptor.getEnd() + 1 == descriptor.getPosition()) {
+							rangeDescriptor.setEnd(descriptor.getPosition() + descriptor.getSize() - 1);
+						} else {
+							rangeHeader.append(rangeDescriptor.toString());
+							rangeHeader.append(',');
+							rangeDescriptor = new RangeDescriptor(descriptor);
+							rangeDescriptors.add(new ArrayList<IStorageDescriptor>());
+						}
 					}
+					rangeDescriptors.get(rangeDescriptors.size() - 1).add(descriptor);
 				}
-			}
-			rangeHeader.append(rangeDescriptor);
+				rangeHeader.append(rangeDescriptor);
 
-			httpGet.addHeader("Range", rangeHeader.toString());
-			ISerializer serializer = null;
-			try {
-				serializer = serializerQueue.take();
-			} catch (InterruptedException e) {
-				Thread.interrupted();
-			}
-			InputStream inputStream = null;
-			Input input = null;
-			try {
+				httpGet.addHeader("Range", rangeHeader.toString());
 				HttpResponse response = httpClient.execute(httpGet);
 				HttpEntity entity = response.getEntity();
 				if (MultipartEntityUtil.isMultipart(entity)) {
-					inputStream = entity.getContent();
+					try (InputStream inputStream = entity.getContent()) {
+						@SuppressWarnings("deprecation")
+						// all non-deprecated constructors have default modifier
+						MultipartStream multipartStream = new MultipartStream(inputStream, MultipartEntityUtil.getBoundary(entity).getBytes());
+						int part = 0;
+						boolean nextPart = multipartStream.skipPreamble();
+						while (nextPart) {
+							multipartStream.readHeaders();
+							ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+							multipartStream.readBodyData(byteArrayOutputStream);
+							byte[] bytes = byteArrayOutputStream.toByteArray();
+							List<IStorageDescriptor> partDescriptors = (part < rangeDescriptors.size()) ? rangeDescriptors.get(part) : Collections.<IStorageDescriptor> emptyList();
+							submitDeserialization(bytes, 0, bytes.length, partDescriptors, futures);
+							part++;
+							nextPart = multipartStream.readBoundary();
+						}
+					}
+				} else {
+					// when kryo changes the visibility of optional() method, we can really stream
+					byte[] bytes = EntityUtils.toByteArray(entity);
+					List<IStorageDescriptor> partDescriptors = (1 == rangeDescriptors.size()) ? rangeDescriptors.get(0) : Collections.<IStorageDescriptor> emptyList();
+					submitDeserialization(bytes, 0, bytes.length, partDescriptors, futures);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			cancelDeserialization(futures);
+			throw e;
+		}
+
+		this.<E> collectDeserialization(futures, receivedData);
+		return receivedData;
+	}
+
+	/**
+	 * Retrieves the data of the descriptors from the block compressed storage file. Only the
+	 * compressed blocks holding the data of the descriptors are requested and decompressed.
+	 * 
+	 * @param httpClient
+	 *            {@link HttpClient} to use.
+	 * @param fileUri
+	 *            URI of the file.
+	 * @param blockIndex
+	 *            {@link BlockIndex} of the file.
+	 * @param descriptors
+	 *            Descriptors pointing to the file, sorted by position.
+	 * @return Serialized data of all descriptors in the order of the descriptors.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private byte[] getCompressedDataViaHttp(HttpClient httpClient, String fileUri, BlockIndex blockIndex, List<IStorageDescriptor> descriptors) throws IOException {
+		SortedSet<Integer> blocks = new TreeSet<Integer>();
+		for (IStorageDescriptor descriptor : descriptors) {
+			int lastBlock = blockIndex.getBlock((descriptor.getPosition() + descriptor.getSize()) - 1);
+			for (int block = blockIndex.getBlock(descriptor.getPosition()); block <= lastBlock; block++) {
+				blocks.add(Integer.valueOf(block));
+			}
+		}
+
+		// request the runs of the consecutive blocks as ranges
+		StringBuilder rangeHeader = new StringBuilder("bytes=");
+		int runStart = -1;
+		int runEnd = -1;
+		for (int block : blocks) {
+			if (runEnd + 1 != block) {
+				if (runStart >= 0) {
+					appendBlockRange(rangeHeader, blockIndex, runStart, runEnd);
+					rangeHeader.append(',');
+				}
+				runStart = block;
+			}
+			runEnd = block;
+		}
+		appendBlockRange(rangeHeader, blockIndex, runStart, runEnd);
+
+		HttpGet httpGet = new HttpGet(fileUri);
+		httpGet.addHeader("Range", rangeHeader.toString());
+		HttpResponse response = httpClient.execute(httpGet);
+		HttpEntity entity = response.getEntity();
+		byte[] compressed;
+		Map<Integer, Integer> blockOffsets = new HashMap<Integer, Integer>();
+		if (HttpStatus.PARTIAL_CONTENT.value() == response.getStatusLine().getStatusCode()) {
+			// parts of all ranges are concatenated in the order of the blocks
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			if (MultipartEntityUtil.isMultipart(entity)) {
+				try (InputStream inputStream = entity.getContent()) {
 					@SuppressWarnings("deprecation")
 					// all non-deprecated constructors have default modifier
 					MultipartStream multipartStream = new MultipartStream(inputStream, MultipartEntityUtil.getBoundary(entity).getBytes());
-					ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
 					boolean nextPart = multipartStream.skipPreamble();
 					while (nextPart) {
 						multipartStream.readHeaders();
 						multipartStream.readBodyData(byteArrayOutputStream);
-						input = new Input(byteArrayOutputStream.toByteArray());
-						while (KryoUtil.hasMoreBytes(input)) {
-							Object object = serializer.deserialize(input);
-							E element = (E) object;
-							receivedData.add(element);
-						}
 						nextPart = multipartStream.readBoundary();
 					}
-				} else {
-					// when kryo changes the visibility of optional() method, we can really stream
-					input = new Input(EntityUtils.toByteArray(entity));
-					while (KryoUtil.hasMoreBytes(input)) {
-						Object object = serializer.deserialize(input);
-						E element = (E) object;
-						receivedData.add(element);
-					}
 				}
-			} finally {
-				if (null != inputStream) {
-					inputStream.close();
+			} else {
+				byteArrayOutputStream.write(EntityUtils.toByteArray(entity));
+			}
+			compressed = byteArrayOutputStream.toByteArray();
+			int offset = 0;
+			for (Integer block : blocks) {
+				blockOffsets.put(block, Integer.valueOf(offset));
+				offset += blockIndex.getCompressedSize(block.intValue());
+			}
+		} else if (HttpStatus.valueOf(response.getStatusLine().getStatusCode()).series().equals(Series.SUCCESSFUL)) {
+			// complete file returned
+			compressed = EntityUtils.toByteArray(entity);
+			for (Integer block : blocks) {
+				blockOffsets.put(block, Integer.valueOf((int) blockIndex.getPosition(block.intValue())));
+			}
+		} else {
+			EntityUtils.consume(entity);
+			throw new IOException("Compressed blocks of the file " + fileUri + " could not be retrieved, server responded with " + response.getStatusLine() + ".");
+		}
+
+		Map<Integer, byte[]> decompressedBlocks = new HashMap<Integer, byte[]>();
+		Inflater inflater = new Inflater();
+		try {
+			for (Integer block : blocks) {
+				int compressedSize = blockIndex.getCompressedSize(block.intValue());
+				int offset = blockOffsets.get(block).intValue();
+				if (offset + compressedSize > compressed.length) {
+					throw new IOException("Compressed block " + block + " of the file " + fileUri + " has not been completely retrieved.");
 				}
-				if (null != input) {
-					input.close();
+				decompressedBlocks.put(block, BlockCodec.decompress(inflater, compressed, offset, compressedSize, blockIndex.getSize(block.intValue())));
+			}
+		} finally {
+			inflater.end();
+		}
+
+		// assemble the data of the descriptors
+		ByteArrayOutputStream dataOutputStream = new ByteArrayOutputStream();
+		for (IStorageDescriptor descriptor : descriptors) {
+			long position = descriptor.getPosition();
+			long remaining = descriptor.getSize();
+			while (remaining > 0) {
+				byte[] block = decompressedBlocks.get(Integer.valueOf(blockIndex.getBlock(position)));
+				int offset = blockIndex.getOffset(position);
+				int length = (int) Math.min(remaining, block.length - offset);
+				if (length <= 0) {
+					throw new IOException("Descriptor " + descriptor + " points outside of the block.");
 				}
-				serializerQueue.add(serializer);
+				dataOutputStream.write(block, offset, length);
+				position += length;
+				remaining -= length;
 			}
 		}
-		return receivedData;
+		return dataOutputStream.toByteArray();
+	}
+
+	/**
+	 * Appends the range of the compressed blocks to the range header.
+	 * 
+	 * @param rangeHeader
+	 *            Range header being built.
+	 * @param blockIndex
+	 *            {@link BlockIndex} of the file.
+	 * @param firstBlock
+	 *            First block of the range.
+	 * @param lastBlock
+	 *            Last block of the range.
+	 */
+	private void appendBlockRange(StringBuilder rangeHeader, BlockIndex blockIndex, int firstBlock, int lastBlock) {
+		rangeHeader.append(blockIndex.getPosition(firstBlock));
+		rangeHeader.append('-');
+		rangeHeader.append((blockIndex.getPosition(lastBlock) + blockIndex.getCompressedSize(lastBlock)) - 1);
+	}
+
+	/**
+	 * Returns the block index of the storage file on the server. The footer of the file is
+	 * requested first and the index only if the file is block compressed. Results are cached.
+	 * 
+	 * @param httpClient
+	 *            {@link HttpClient} to use.
+	 * @param fileUri
+	 *            URI of the file.
+	 * @return {@link BlockIndex} or <code>null</code> if the file is not block compressed.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private BlockIndex getBlockIndex(HttpClient httpClient, String fileUri) throws IOException {
+		if (blockIndexCache.containsKey(fileUri)) {
+			return blockIndexCache.get(fileUri);
+		}
+
+		BlockIndex blockIndex = null;
+		byte[] footer = getBytesViaHttp(httpClient, fileUri, "bytes=-" + BlockIndex.FOOTER_SIZE);
+		if ((null != footer) && (footer.length >= BlockIndex.FOOTER_SIZE)) {
+			long indexPosition = BlockIndex.getIndexPosition(ByteBuffer.wrap(footer, footer.length - BlockIndex.FOOTER_SIZE, BlockIndex.FOOTER_SIZE));
+			if (indexPosition >= 0) {
+				byte[] index = getBytesViaHttp(httpClient, fileUri, "bytes=" + indexPosition + "-");
+				if (null == index) {
+					throw new IOException("Block index of the file " + fileUri + " could not be retrieved.");
+				}
+				blockIndex = BlockIndex.deserialize(ByteBuffer.wrap(index));
+			}
+		}
+
+		blockIndexCache.put(fileUri, blockIndex);
+		return blockIndex;
+	}
+
+	/**
+	 * Requests the range of the file.
+	 * 
+	 * @param httpClient
+	 *            {@link HttpClient} to use.
+	 * @param fileUri
+	 *            URI of the file.
+	 * @param range
+	 *            Value of the range header.
+	 * @return Bytes of the range or <code>null</code> if the range could not be satisfied.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private byte[] getBytesViaHttp(HttpClient httpClient, String fileUri, String range) throws IOException {
+		HttpGet httpGet = new HttpGet(fileUri);
+		httpGet.addHeader("Range", range);
+		HttpResponse response = httpClient.execute(httpGet);
+		HttpEntity entity = response.getEntity();
+		if (HttpStatus.PARTIAL_CONTENT.value() == response.getStatusLine().getStatusCode()) {
+			return EntityUtils.toByteArray(entity);
+		} else {
+			EntityUtils.consume(entity);
+			return null;
+		}
 	}
 
 	/**
 	 * Retrieves the wanted data described in the {@link StorageDescriptor} from the desired
 	 * offline-available storage.
 	 * <p>
+	 * If {@link #memoryMappedRead} is active, the channel files are memory mapped and the data is
+	 * de-serialized directly from the mapped regions with the {@link MappedChannelReader}. The
+	 * descriptors are split in parts of approximately {@link #DESERIALIZATION_TASK_SIZE} bytes that
+	 * are read and de-serialized in parallel, the block index of the compressed channels is read
+	 * only once for all parts. Otherwise, or if the channel files can not be opened for mapping,
+	 * the data is read with the
+	 * {@link rocks.inspectit.shared.cs.storage.nio.stream.ExtendedByteBufferInputStream}.
+	 * <p>
 	 * It is not guaranteed that amount of returned objects in the list is same as the amount of
 	 * provided descriptors. If some of the descriptors are pointing to the wrong files or files
 	 * positions, it can happen that this influences the rest of the descriptor that point to the
@@ -238,28 +511,60 @@ public class DataRetriever {
 	 *             If {@link IOException} occurs.
 	 */
 	@SuppressWarnings("unchecked")
-	public <E extends DefaultData> List<E> getDataLocally(LocalStorageData localStorageData, List<IStorageDescriptor> descriptors) throws IOException, SerializationException {
+	public <E extends DefaultData> List<E> getDataLocally(final LocalStorageData localStorageData, List<IStorageDescriptor> descriptors) throws IOException, SerializationException {
 		Map<Integer, List<IStorageDescriptor>> separateFilesGroup = createFilesGroup(descriptors);
+		List<List<IStorageDescriptor>> taskDescriptors = new ArrayList<List<IStorageDescriptor>>();
 		List<IStorageDescriptor> optimizedDescriptors = new ArrayList<IStorageDescriptor>();
 		for (Map.Entry<Integer, List<IStorageDescriptor>> entry : separateFilesGroup.entrySet()) {
-			StorageDescriptor storageDescriptor = null;
-			for (IStorageDescriptor descriptor : entry.getValue()) {
-				if (null == storageDescriptor) {
-					storageDescriptor = new StorageDescriptor(entry.getKey());
-					storageDescriptor.setPositionAndSize(descriptor.getPosition(), descriptor.getSize());
-				} else {
-					if (!storageDescriptor.join(descriptor)) {
-						optimizedDescriptors.add(storageDescriptor);
+			for (List<IStorageDescriptor> split : splitDescriptors(entry.getValue())) {
+				List<IStorageDescriptor> joinedDescriptors = new ArrayList<IStorageDescriptor>();
+				StorageDescriptor storageDescriptor = null;
+				for (IStorageDescriptor descriptor : split) {
+					if (null == storageDescriptor) {
 						storageDescriptor = new StorageDescriptor(entry.getKey());
 						storageDescriptor.setPositionAndSize(descriptor.getPosition(), descriptor.getSize());
+					} else {
+						if (!storageDescriptor.join(descriptor)) {
+							joinedDescriptors.add(storageDescriptor);
+							storageDescriptor = new StorageDescriptor(entry.getKey());
+							storageDescriptor.setPositionAndSize(descriptor.getPosition(), descriptor.getSize());
+						}
 					}
 				}
+				joinedDescriptors.add(storageDescriptor);
+				taskDescriptors.add(joinedDescriptors);
+				optimizedDescriptors.addAll(joinedDescriptors);
 			}
-			optimizedDescriptors.add(storageDescriptor);
 		}
 
 		List<E> receivedData = new ArrayList<E>(descriptors.size());
 
+		if (memoryMappedRead && (null != mappedChannelReader)) {
+			List<Future<List<Object>>> futures = new ArrayList<Future<List<Object>>>();
+			try {
+				// block index is read once per channel and shared by all tasks of the channel
+				Map<Integer, BlockIndex> blockIndexes = new HashMap<Integer, BlockIndex>();
+				for (Map.Entry<Integer, List<IStorageDescriptor>> entry : separateFilesGroup.entrySet()) {
+					blockIndexes.put(entry.getKey(), mappedChannelReader.getBlockIndex(localStorageData, entry.getValue().get(0)));
+				}
+
+				for (final List<IStorageDescriptor> joinedDescriptors : taskDescriptors) {
+					final BlockIndex blockIndex = blockIndexes.get(Integer.valueOf(joinedDescriptors.get(0).getChannelId()));
+					futures.add(submitDeserialization(new DeserializationTask() {
+						@Override
+						protected List<Object> deserialize(ISerializer serializer) throws IOException, SerializationException {
+							return mappedChannelReader.read(localStorageData, joinedDescriptors, blockIndex, serializer);
+						}
+					}));
+				}
+				this.<E> collectDeserialization(futures, receivedData);
+				return receivedData;
+			} catch (FileSystemException e) { // NOPMD
+				// channel files can not be opened for mapping (f.e. read-only media), use stream
+				receivedData.clear();
+			}
+		}
+
 		ISerializer serializer = null;
 		try {
 			serializer = serializerQueue.take();
@@ -286,6 +591,141 @@ public class DataRetriever {
 		return receivedData;
 	}
 
+	/**
+	 * Splits the descriptors sorted by position in the consecutive parts of approximately
+	 * {@link #DESERIALIZATION_TASK_SIZE} bytes, so that each part can be de-serialized by a
+	 * separate task.
+	 * 
+	 * @param descriptors
+	 *            Descriptors to split.
+	 * @return Parts of the descriptors in the original order.
+	 */
+	private List<List<IStorageDescriptor>> splitDescriptors(List<IStorageDescriptor> descriptors) {
+		List<List<IStorageDescriptor>> parts = new ArrayList<List<IStorageDescriptor>>();
+		List<IStorageDescriptor> part = null;
+		long partSize = 0;
+		for (IStorageDescriptor descriptor : descriptors) {
+			if ((null == part) || (partSize >= DESERIALIZATION_TASK_SIZE)) {
+				part = new ArrayList<IStorageDescriptor>();
+				partSize = 0;
+				parts.add(part);
+			}
+			part.add(descriptor);
+			partSize += descriptor.getSize();
+		}
+		return parts;
+	}
+
+	/**
+	 * Submits the de-serialization of the received bytes. If the bytes hold exactly the data of
+	 * the given descriptors, they are split at the descriptor boundaries to several tasks,
+	 * otherwise one task de-serializes all bytes.
+	 * 
+	 * @param bytes
+	 *            Received bytes.
+	 * @param offset
+	 *            Offset of the data in the bytes.
+	 * @param length
+	 *            Length of the data.
+	 * @param descriptors
+	 *            Descriptors of the data in the received order.
+	 * @param futures
+	 *            List to add the futures of the submitted tasks to.
+	 */
+	private void submitDeserialization(byte[] bytes, int offset, int length, List<IStorageDescriptor> descriptors, List<Future<List<Object>>> futures) {
+		long descriptorsSize = 0;
+		for (IStorageDescriptor descriptor : descriptors) {
+			descriptorsSize += descriptor.getSize();
+		}
+		if (descriptorsSize != length) {
+			futures.add(submitDeserialization(new BytesDeserializationTask(bytes, offset, length)));
+			return;
+		}
+
+		int partOffset = offset;
+		for (List<IStorageDescriptor> part : splitDescriptors(descriptors)) {
+			int partLength = 0;
+			for (IStorageDescriptor descriptor : part) {
+				partLength += descriptor.getSize();
+			}
+			futures.add(submitDeserialization(new BytesDeserializationTask(bytes, partOffset, partLength)));
+			partOffset += partLength;
+		}
+	}
+
+	/**
+	 * Submits the task to the {@link #deserializationExecutorService}. If the executor is not
+	 * available, the task is executed in the calling thread.
+	 * 
+	 * @param task
+	 *            Task to submit.
+	 * @return Future of the task.
+	 */
+	private Future<List<Object>> submitDeserialization(DeserializationTask task) {
+		if (null != deserializationExecutorService) {
+			return deserializationExecutorService.submit(task);
+		} else {
+			FutureTask<List<Object>> futureTask = new FutureTask<List<Object>>(task);
+			futureTask.run();
+			return futureTask;
+		}
+	}
+
+	/**
+	 * Waits for the de-serialization tasks and adds their results to the given list in the order of
+	 * the futures. If any of the tasks fails, the remaining ones are cancelled and the failure is
+	 * re-thrown.
+	 * 
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param futures
+	 *            Futures of the submitted tasks.
+	 * @param receivedData
+	 *            List to add the de-serialized objects to.
+	 * @throws SerializationException
+	 *             If {@link SerializationException} occurs in any task.
+	 * @throws IOException
+	 *             If {@link IOException} occurs in any task or if the waiting is interrupted.
+	 */
+	@SuppressWarnings("unchecked")
+	private <E> void collectDeserialization(List<Future<List<Object>>> futures, List<E> receivedData) throws IOException, SerializationException {
+		try {
+			for (Future<List<Object>> future : futures) {
+				receivedData.addAll((List<E>) (List<?>) future.get());
+			}
+		} catch (InterruptedException e) {
+			cancelDeserialization(futures);
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the de-serialization of the data.", e);
+		} catch (ExecutionException e) {
+			cancelDeserialization(futures);
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof SerializationException) {
+				throw (SerializationException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new SerializationException("De-serialization of the data failed.", cause);
+			}
+		}
+	}
+
+	/**
+	 * Cancels the de-serialization tasks that have not started yet.
+	 * 
+	 * @param futures
+	 *            Futures of the submitted tasks.
+	 */
+	private void cancelDeserialization(List<Future<List<Object>>> futures) {
+		for (Future<List<Object>> future : futures) {
+			future.cancel(false);
+		}
+	}
+
 	/**
 	 * Returns cached data for the storage from the CMR if the cached data exists for given hash. If
 	 * data does not exist <code>null</code> is returned.
@@ -685,6 +1125,30 @@ public class DataRetriever {
 		this.serializerCount = serializerCount;
 	}
 
+	/**
+	 * Sets {@link #deserializationThreads}.
+	 * 
+	 * @param deserializationThreads
+	 *            New value for {@link #deserializationThreads}
+	 */
+	public void setDeserializationThreads(int deserializationThreads) {
+		this.deserializationThreads = deserializationThreads;
+	}
+
+	/**
+	 * Sets {@link #deserializationExecutorService}. If not set, the executor with
+	 * {@link #deserializationThreads} threads is created on initialization.
+	 * <p>
+	 * Not public, so that the bean is not auto-wired with one of the executor services of the
+	 * context. Used in tests.
+	 * 
+	 * @param deserializationExecutorService
+	 *            New value for {@link #deserializationExecutorService}
+	 */
+	void setDeserializationExecutorService(ExecutorService deserializationExecutorService) {
+		this.deserializationExecutorService = deserializationExecutorService;
+	}
+
 	/**
 	 * Sets {@link #serializationManagerProvider}.
 	 * 
@@ -705,6 +1169,119 @@ public class DataRetriever {
 		this.streamProvider = streamProvider;
 	}
 
+	/**
+	 * Sets {@link #mappedChannelReader}.
+	 * 
+	 * @param mappedChannelReader
+	 *            New value for {@link #mappedChannelReader}
+	 */
+	public void setMappedChannelReader(MappedChannelReader mappedChannelReader) {
+		this.mappedChannelReader = mappedChannelReader;
+	}
+
+	/**
+	 * Sets {@link #memoryMappedRead}.
+	 * 
+	 * @param memoryMappedRead
+	 *            New value for {@link #memoryMappedRead}
+	 */
+	public void setMemoryMappedRead(boolean memoryMappedRead) {
+		this.memoryMappedRead = memoryMappedRead;
+	}
+
+	/**
+	 * Part of the data de-serialized by one task of the {@link #deserializationExecutorService}.
+	 * The task takes its own serializer from the {@link #serializerQueue} and returns it when
+	 * finished.
+	 */
+	private abstract class DeserializationTask implements Callable<List<Object>> {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public List<Object> call() throws Exception {
+			ISerializer serializer = null;
+			try {
+				serializer = serializerQueue.take();
+			} catch (InterruptedException e) {
+				Thread.interrupted();
+			}
+			try {
+				return deserialize(serializer);
+			} finally {
+				serializerQueue.add(serializer);
+			}
+		}
+
+		/**
+		 * De-serializes the data of the task.
+		 * 
+		 * @param serializer
+		 *            Serializer to use, not used by other threads.
+		 * @return De-serialized objects.
+		 * @throws IOException
+		 *             If {@link IOException} occurs.
+		 * @throws SerializationException
+		 *             If {@link SerializationException} occurs.
+		 */
+		protected abstract List<Object> deserialize(ISerializer serializer) throws IOException, SerializationException;
+	}
+
+	/**
+	 * Task de-serializing the received bytes.
+	 */
+	private class BytesDeserializationTask extends DeserializationTask {
+
+		/**
+		 * Received bytes.
+		 */
+		private final byte[] bytes;
+
+		/**
+		 * Offset of the data in the bytes.
+		 */
+		private final int offset;
+
+		/**
+		 * Length of the data.
+		 */
+		private final int length;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param bytes
+		 *            Received bytes.
+		 * @param offset
+		 *            Offset of the data in the bytes.
+		 * @param length
+		 *            Length of the data.
+		 */
+		BytesDeserializationTask(byte[] bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected List<Object> deserialize(ISerializer serializer) throws IOException, SerializationException {
+			List<Object> result = new ArrayList<Object>();
+			Input input = new Input(bytes, offset, length);
+			try {
+				while (KryoUtil.hasMoreBytes(input)) {
+					result.add(serializer.deserialize(input));
+				}
+			} finally {
+				input.close();
+			}
+			return result;
+		}
+	}
+
 	/**
 	 * A wrapper for the {@link HttpEntity} that will surround the entity's input stream with the
 	 * {@link GZIPInputStream}. *
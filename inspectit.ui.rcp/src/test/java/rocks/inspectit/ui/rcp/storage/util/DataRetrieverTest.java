@@ -0,0 +1,394 @@
+package rocks.inspectit.ui.rcp.storage.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
+import rocks.inspectit.shared.cs.storage.IStorageData;
+import rocks.inspectit.shared.cs.storage.LocalStorageData;
+import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.nio.block.BlockIndex;
+import rocks.inspectit.shared.cs.storage.nio.read.MappedChannelReader;
+import rocks.inspectit.ui.rcp.repository.CmrRepositoryDefinition;
+
+/**
+ * Tests the parallel de-serialization of the {@link DataRetriever}.
+ * <p>
+ * Each channel holds three descriptors of {@link #DESCRIPTOR_SIZE} bytes, thus the data of each
+ * channel is de-serialized in two parts. The first part is always the slowest one, so that the
+ * results of the later parts are available first.
+ */
+@SuppressWarnings("PMD")
+public class DataRetrieverTest {
+
+	/**
+	 * Size of one descriptor, two descriptors fill one de-serialization part.
+	 */
+	private static final int DESCRIPTOR_SIZE = 600 * 1024;
+
+	/**
+	 * Time the first part waits before finishing.
+	 */
+	private static final long FIRST_PART_DELAY = 200L;
+
+	/**
+	 * Class under test.
+	 */
+	private DataRetriever dataRetriever;
+
+	/**
+	 * Executor running the de-serialization.
+	 */
+	private ExecutorService executorService;
+
+	/**
+	 * {@link MappedChannelReader}.
+	 */
+	@Mock
+	private MappedChannelReader mappedChannelReader;
+
+	/**
+	 * {@link SerializationManagerProvider}.
+	 */
+	@Mock
+	private SerializationManagerProvider serializationManagerProvider;
+
+	/**
+	 * Serializer given to all de-serialization tasks.
+	 */
+	@Mock
+	private SerializationManager serializer;
+
+	/**
+	 * {@link StorageManager}.
+	 */
+	@Mock
+	private StorageManager storageManager;
+
+	/**
+	 * {@link CmrRepositoryDefinition} pointing to the {@link #httpServer}.
+	 */
+	@Mock
+	private CmrRepositoryDefinition cmrRepositoryDefinition;
+
+	/**
+	 * Storage to read via HTTP.
+	 */
+	@Mock
+	private IStorageData storageData;
+
+	/**
+	 * Local storage to read.
+	 */
+	private LocalStorageData localStorageData;
+
+	/**
+	 * Server providing the channel files, only started by the HTTP tests.
+	 */
+	private HttpServer httpServer;
+
+	/**
+	 * Init.
+	 */
+	@BeforeMethod
+	public void init() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		when(serializationManagerProvider.createSerializer()).thenReturn(serializer);
+		localStorageData = new LocalStorageData();
+		executorService = Executors.newFixedThreadPool(4);
+
+		dataRetriever = new DataRetriever();
+		dataRetriever.setDeserializationThreads(4);
+		dataRetriever.setDeserializationExecutorService(executorService);
+		dataRetriever.setSerializationManagerProvider(serializationManagerProvider);
+		dataRetriever.setMappedChannelReader(mappedChannelReader);
+		dataRetriever.setStorageManager(storageManager);
+		dataRetriever.init();
+	}
+
+	/**
+	 * Stops the executor and the server.
+	 */
+	@AfterMethod
+	public void dispose() {
+		dataRetriever.dispose();
+		if (null != httpServer) {
+			httpServer.stop(0);
+			httpServer = null;
+		}
+	}
+
+	/**
+	 * Data of the mapped channels is returned by channel and position, independent of the order
+	 * the parts are finished in. Block index of each channel is read only once.
+	 */
+	@Test
+	public void localDataInOrder() throws Exception {
+		BlockIndex blockIndex = new BlockIndex(BlockIndex.DEFAULT_BLOCK_SIZE);
+		when(mappedChannelReader.getBlockIndex(eq(localStorageData), any(IStorageDescriptor.class))).thenReturn(blockIndex);
+		when(mappedChannelReader.<Object> read(eq(localStorageData), anyListOf(IStorageDescriptor.class), any(BlockIndex.class), eq(serializer))).thenAnswer(new Answer<List<Object>>() {
+			@Override
+			public List<Object> answer(InvocationOnMock invocation) throws Throwable {
+				@SuppressWarnings("unchecked")
+				List<IStorageDescriptor> descriptors = (List<IStorageDescriptor>) invocation.getArguments()[1];
+				if (isFirstPart(descriptors.get(0))) {
+					Thread.sleep(FIRST_PART_DELAY);
+				}
+				List<Object> result = new ArrayList<Object>();
+				for (IStorageDescriptor descriptor : descriptors) {
+					result.add(createData(getId(descriptor)));
+				}
+				return result;
+			}
+		});
+
+		List<DefaultData> data = dataRetriever.getDataLocally(localStorageData, createLocalDescriptors());
+
+		assertThat(getIds(data), contains(1000L, 1002L, 1004L, 2000L, 2002L, 2004L));
+		verify(mappedChannelReader, times(2)).getBlockIndex(eq(localStorageData), any(IStorageDescriptor.class));
+		verify(mappedChannelReader, times(4)).read(eq(localStorageData), anyListOf(IStorageDescriptor.class), eq(blockIndex), eq(serializer));
+	}
+
+	/**
+	 * Exception of the first part is re-thrown even if the later parts fail before.
+	 */
+	@Test(expectedExceptions = SerializationException.class, expectedExceptionsMessageRegExp = "first")
+	public void localFirstExceptionRethrown() throws Exception {
+		when(mappedChannelReader.<Object> read(eq(localStorageData), anyListOf(IStorageDescriptor.class), any(BlockIndex.class), eq(serializer))).thenAnswer(new Answer<List<Object>>() {
+			@Override
+			public List<Object> answer(InvocationOnMock invocation) throws Throwable {
+				@SuppressWarnings("unchecked")
+				List<IStorageDescriptor> descriptors = (List<IStorageDescriptor>) invocation.getArguments()[1];
+				if (isFirstPart(descriptors.get(0))) {
+					Thread.sleep(FIRST_PART_DELAY);
+					throw new SerializationException("first");
+				}
+				throw new IOException("later");
+			}
+		});
+
+		dataRetriever.getDataLocally(localStorageData, createLocalDescriptors());
+	}
+
+	/**
+	 * Data received via HTTP is split at the descriptor boundaries and returned by channel and
+	 * position, independent of the order the parts are finished in.
+	 */
+	@Test
+	public void httpDataInOrder() throws Exception {
+		startServer();
+		when(serializer.deserialize(any(Input.class))).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				long id = readData((Input) invocation.getArguments()[0]);
+				if (1000L == id) {
+					Thread.sleep(FIRST_PART_DELAY);
+				}
+				return createData(id);
+			}
+		});
+
+		List<DefaultData> data = dataRetriever.getDataViaHttp(cmrRepositoryDefinition, storageData, createHttpDescriptors());
+
+		assertThat(getIds(data), contains(1000L, 1001L, 1002L, 2000L, 2001L, 2002L));
+	}
+
+	/**
+	 * Exception of the first part received via HTTP is re-thrown even if the later parts fail
+	 * before.
+	 */
+	@Test(expectedExceptions = SerializationException.class, expectedExceptionsMessageRegExp = "first")
+	public void httpFirstExceptionRethrown() throws Exception {
+		startServer();
+		when(serializer.deserialize(any(Input.class))).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				long id = readData((Input) invocation.getArguments()[0]);
+				if (1000L == id) {
+					Thread.sleep(FIRST_PART_DELAY);
+					throw new SerializationException("first");
+				}
+				throw new IllegalStateException("later");
+			}
+		});
+
+		dataRetriever.getDataViaHttp(cmrRepositoryDefinition, storageData, createHttpDescriptors());
+	}
+
+	/**
+	 * Creates descriptors of channels 1 and 2 in the reversed order. Descriptors are not next to
+	 * each other, so that they are not joined.
+	 * 
+	 * @return Descriptors.
+	 */
+	private List<IStorageDescriptor> createLocalDescriptors() {
+		List<IStorageDescriptor> descriptors = new ArrayList<IStorageDescriptor>();
+		for (int channelId = 2; channelId >= 1; channelId--) {
+			for (int i = 4; i >= 0; i -= 2) {
+				descriptors.add(new StorageDescriptor(channelId, (long) i * DESCRIPTOR_SIZE, DESCRIPTOR_SIZE));
+			}
+		}
+		return descriptors;
+	}
+
+	/**
+	 * Creates descriptors of channels 1 and 2 in the reversed order. Descriptors of each channel
+	 * are next to each other, so that the data of channel is received in one range.
+	 * 
+	 * @return Descriptors.
+	 */
+	private List<IStorageDescriptor> createHttpDescriptors() {
+		List<IStorageDescriptor> descriptors = new ArrayList<IStorageDescriptor>();
+		for (int channelId = 2; channelId >= 1; channelId--) {
+			for (int i = 2; i >= 0; i--) {
+				descriptors.add(new StorageDescriptor(channelId, (long) i * DESCRIPTOR_SIZE, DESCRIPTOR_SIZE));
+			}
+		}
+		return descriptors;
+	}
+
+	/**
+	 * Starts the server providing the files of channels 1 and 2. The data of each descriptor holds
+	 * its ID and the padding to the descriptor size. Block index is not available.
+	 */
+	private void startServer() throws IOException {
+		final Map<String, byte[]> files = new HashMap<String, byte[]>();
+		for (int channelId = 1; channelId <= 2; channelId++) {
+			ByteBuffer buffer = ByteBuffer.allocate(3 * DESCRIPTOR_SIZE);
+			for (int i = 0; i < 3; i++) {
+				buffer.position(i * DESCRIPTOR_SIZE);
+				buffer.putLong(channelId * 1000L + i);
+				buffer.putInt(DESCRIPTOR_SIZE - 12);
+			}
+			String path = "/storage/" + channelId + ".itdata";
+			files.put(path, buffer.array());
+			when(storageManager.getHttpFileLocation(storageData, Integer.valueOf(channelId))).thenReturn(path);
+		}
+
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		httpServer.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] file = files.get(exchange.getRequestURI().getPath());
+				String range = exchange.getRequestHeaders().getFirst("Range");
+				if ((null == file) || (null == range) || range.startsWith("bytes=-")) {
+					exchange.sendResponseHeaders(416, -1);
+					exchange.close();
+					return;
+				}
+				String[] bounds = range.substring("bytes=".length()).split("-");
+				byte[] bytes = Arrays.copyOfRange(file, Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]) + 1);
+				exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+				exchange.sendResponseHeaders(206, bytes.length);
+				try (OutputStream outputStream = exchange.getResponseBody()) {
+					outputStream.write(bytes);
+				}
+			}
+		});
+		httpServer.start();
+
+		when(cmrRepositoryDefinition.getIp()).thenReturn("localhost");
+		when(cmrRepositoryDefinition.getPort()).thenReturn(httpServer.getAddress().getPort());
+	}
+
+	/**
+	 * Reads the data written by the server.
+	 * 
+	 * @param input
+	 *            Input to read from.
+	 * @return ID of the data.
+	 */
+	private static long readData(Input input) {
+		long id = input.readLong();
+		input.skip(input.readInt());
+		return id;
+	}
+
+	/**
+	 * Returns if the descriptor is the first one of the channel 1.
+	 * 
+	 * @param descriptor
+	 *            Descriptor.
+	 * @return If the descriptor is the first one of the channel 1.
+	 */
+	private static boolean isFirstPart(IStorageDescriptor descriptor) {
+		return (1 == descriptor.getChannelId()) && (0L == descriptor.getPosition());
+	}
+
+	/**
+	 * Returns the ID of the data of the descriptor.
+	 * 
+	 * @param descriptor
+	 *            Descriptor.
+	 * @return Channel ID multiplied by 1000 plus the position in descriptor sizes.
+	 */
+	private static long getId(IStorageDescriptor descriptor) {
+		return descriptor.getChannelId() * 1000L + descriptor.getPosition() / DESCRIPTOR_SIZE;
+	}
+
+	/**
+	 * Creates the data with the given ID.
+	 * 
+	 * @param id
+	 *            ID.
+	 * @return Data.
+	 */
+	private static TimerData createData(long id) {
+		TimerData timerData = new TimerData();
+		timerData.setId(id);
+		return timerData;
+	}
+
+	/**
+	 * Returns the IDs of the data.
+	 * 
+	 * @param data
+	 *            Data.
+	 * @return IDs.
+	 */
+	private static List<Long> getIds(List<DefaultData> data) {
+		List<Long> ids = new ArrayList<Long>();
+		for (DefaultData defaultData : data) {
+			ids.add(defaultData.getId());
+		}
+		return ids;
+	}
+
+}